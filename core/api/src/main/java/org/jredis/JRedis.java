@@ -16,7 +16,13 @@
 
 package org.jredis;
 
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.Serializable;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import org.jredis.protocol.Command;
@@ -108,6 +114,32 @@ public interface JRedis {
 	 */
 	public <T extends Serializable> 
 		   void set (String key, T object) throws RedisException;
+	/**
+	 * Streaming variant for (very) large values: the value is written to the connection as it 
+	 * is read from the stream, and is never fully buffered.
+	 * @Redis SET
+	 * @param key
+	 * @param value the stream the value is read from.  The stream is not closed.
+	 * @param length the exact number of bytes that will be read from the stream.
+	 * @throws RedisException
+	 * @throws ClientRuntimeException if the stream ends prematurely or raises an error.  The 
+	 * connection is reset in that case, and the value is not set.
+	 * @see {@link JRedis#set(String, byte[])}
+	 */
+	public void set (String key, InputStream value, long length) throws RedisException;
+	/**
+	 * Streaming variant for (very) large values, reading from the channel's current position. 
+	 * If the channel is a {@link FileChannel}, the value is transferred using 
+	 * {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)} 
+	 * and its position is then advanced by <code>length</code>.
+	 * @Redis SET
+	 * @param key
+	 * @param value the channel the value is read from.  The channel is not closed.
+	 * @param length the exact number of bytes that will be read from the channel.
+	 * @throws RedisException
+	 * @see {@link JRedis#set(String, InputStream, long)}
+	 */
+	public void set (String key, ReadableByteChannel value, long length) throws RedisException;
 
 	/**
 	 * @Redis SETNX
@@ -129,6 +161,28 @@ public interface JRedis {
 	 * @throws RedisException
 	 */
 	public byte[] get (String key)  throws RedisException;
+	/**
+	 * Streaming variant for (very) large values: the value is written to the stream as it 
+	 * is read from the connection, and is never fully buffered.
+	 * @Redis GET
+	 * @param key
+	 * @param out the stream the value is written to.  The stream is neither flushed nor closed.
+	 * @return the length of the value, or -1 if the key does not exist (and nothing was written).
+	 * @throws RedisException
+	 * @throws ClientRuntimeException if writing to the stream raises an error.  The 
+	 * connection is reset in that case.
+	 */
+	public long get (String key, OutputStream out) throws RedisException;
+	/**
+	 * Streaming variant for (very) large values.
+	 * @Redis GET
+	 * @param key
+	 * @param out the channel the value is written to.  The channel is not closed.
+	 * @return the length of the value, or -1 if the key does not exist (and nothing was written).
+	 * @throws RedisException
+	 * @see {@link JRedis#get(String, OutputStream)}
+	 */
+	public long get (String key, WritableByteChannel out) throws RedisException;
 
 	public byte[] getset (String key, byte[] value) throws RedisException;
 	public byte[] getset (String key, String stringValue) throws RedisException;
@@ -236,6 +290,8 @@ public interface JRedis {
 	// ------------------------------------------------------------------------
 	
 	/**
+	 * Note that KEYS blocks the server while the entire key space is matched, and the reply 
+	 * is a single (space delimited) bulk: see {@link JRedis#scan(String, int)} for large dbs.
 	 * @Redis KEYS
 	 * @param pattern
 	 * @return
@@ -251,6 +307,18 @@ public interface JRedis {
 	 * @see {@link JRedis#keys(String)}
 	 */
 	public List<String> keys () throws RedisException;
+	
+	/**
+	 * Incremental iteration of the keys of the db, with a SCAN request per batch of keys. The 
+	 * server is never blocked for more than a batch, and only the current batch is held.  
+	 * All keys that exist for the duration of the iteration are returned, but a key may be 
+	 * returned more than once.  The iterator raises {@link ClientRuntimeException}s on errors. 
+	 * @Redis SCAN
+	 * @param pattern glob-style pattern of the keys, or null for all keys
+	 * @param count number of keys (hint) requested per SCAN
+	 * @return the (lazy) iterator of the keys
+	 */
+	public Iterator<String> scan (String pattern, int count);
 
 	/**
 	 * @Redis RANDOMKEY
@@ -388,6 +456,19 @@ public interface JRedis {
 	 */
 	public List<byte[]> lrange (String listkey, long from, long to) throws RedisException; 
 
+	/**
+	 * Streaming {@link JRedis#lrange(String, long, long)} -- the elements are read as the
+	 * returned stream is iterated.  
+	 * @Redis LRANGE
+	 * @param listkey
+	 * @param from
+	 * @param to
+	 * @return the (open) stream of the range -- must be exhausted or closed
+	 * @throws RedisException
+	 * @see ResultStream
+	 */
+	public ResultStream<byte[]> lrangeStream (String listkey, long from, long to) throws RedisException; 
+
 	/**
 	 * @Redis LTRIM
 	 * @param listkey
@@ -431,6 +512,44 @@ public interface JRedis {
 	 */
 	public byte[] rpoplpush (String srcList, String destList) throws RedisException;
 
+	/**
+	 * Blocks until an item can be popped from the head of one of the lists, checked in the 
+	 * given order, or the timeout elapses.  
+	 * <p>
+	 * The request blocks the connection servicing it, so implementations using shared 
+	 * connections service blocking requests on dedicated connections.
+	 * @Redis BLPOP
+	 * @param timeout in seconds -- 0 blocks indefinitely
+	 * @param listKeys
+	 * @return the key of the list and the popped item, or null if timed out
+	 * @throws RedisException
+	 */
+	public List<byte[]> blpop (long timeout, String...listKeys) throws RedisException;
+	
+	/**
+	 * Blocks until an item can be popped from the tail of one of the lists, checked in the 
+	 * given order, or the timeout elapses.
+	 * @Redis BRPOP
+	 * @param timeout in seconds -- 0 blocks indefinitely
+	 * @param listKeys
+	 * @return the key of the list and the popped item, or null if timed out
+	 * @throws RedisException
+	 * @see JRedis#blpop(long, String...)
+	 */
+	public List<byte[]> brpop (long timeout, String...listKeys) throws RedisException;
+	
+	/**
+	 * Blocking {@link JRedis#rpoplpush(String, String)}.
+	 * @Redis BRPOPLPUSH
+	 * @param srcList
+	 * @param destList
+	 * @param timeout in seconds -- 0 blocks indefinitely
+	 * @return the item moved, or null if timed out
+	 * @throws RedisException
+	 * @see JRedis#blpop(long, String...)
+	 */
+	public byte[] brpoplpush (String srcList, String destList, long timeout) throws RedisException;
+
 	// ------------------------------------------------------------------------
 	// Commands operating on sets
 	// ------------------------------------------------------------------------
@@ -553,6 +672,17 @@ public interface JRedis {
 	 * @throws RedisException
 	 */
 	public List<byte[]> smembers (String setkey) throws RedisException;
+
+	/**
+	 * Streaming {@link JRedis#smembers(String)} -- the members are read as the returned 
+	 * stream is iterated.  
+	 * @Redis SMEMBERS
+	 * @param setkey
+	 * @return the (open) stream of the members -- must be exhausted or closed
+	 * @throws RedisException
+	 * @see ResultStream
+	 */
+	public ResultStream<byte[]> smembersStream (String setkey) throws RedisException;
 	
 	/**
 	 * @Redis SRANDMEMBER
@@ -570,6 +700,77 @@ public interface JRedis {
 	 */
 	public byte[] spop (String setkey) throws RedisException;
 	
+	// ------------------------------------------------------------------------
+	// Commands operating on hashes
+	// ------------------------------------------------------------------------
+	
+	/**
+	 * @Redis HSET
+	 * @param hashkey
+	 * @param field
+	 * @param value
+	 * @return true if the field is new, false if its value was updated
+	 * @throws RedisException
+	 */
+	public boolean hset (String hashkey, String field, byte[] value) throws RedisException;
+	public boolean hset (String hashkey, String field, String stringValue) throws RedisException;
+	public boolean hset (String hashkey, String field, Number numberValue) throws RedisException;
+	public <T extends Serializable> 
+		   boolean hset (String hashkey, String field, T object) throws RedisException;
+	
+	/**
+	 * @Redis HGET
+	 * @param hashkey
+	 * @param field
+	 * @return the value of the field, or null if the hash or field does not exist
+	 * @throws RedisException
+	 */
+	public byte[] hget (String hashkey, String field) throws RedisException;
+	
+	/**
+	 * @Redis HMSET
+	 * @param hashkey
+	 * @param fieldValueMap a {@link Map}ping of field names to byte[] values.
+	 * @throws RedisException
+	 */
+	public void hmset (String hashkey, Map<String, byte[]> fieldValueMap) throws RedisException;
+	
+	/**
+	 * @Redis HMGET
+	 * @param hashkey
+	 * @param fields
+	 * @return the values of the fields, in order -- null for fields that do not exist
+	 * @throws RedisException
+	 */
+	public List<byte[]> hmget (String hashkey, String...fields) throws RedisException;
+	
+	/**
+	 * @Redis HGETALL
+	 * @param hashkey
+	 * @return the fields and values of the hash -- empty if the hash does not exist
+	 * @throws RedisException
+	 */
+	public Map<String, byte[]> hgetall (String hashkey) throws RedisException;
+	
+	/**
+	 * @Redis HINCRBY
+	 * @param hashkey
+	 * @param field
+	 * @param delta
+	 * @return the value of the field after the increment
+	 * @throws RedisException
+	 */
+	public long hincrby (String hashkey, String field, long delta) throws RedisException;
+	
+	/**
+	 * @Redis HDEL
+	 * @param hashkey
+	 * @param field
+	 * @return true if the field existed and was removed
+	 * @throws RedisException
+	 */
+	public boolean hdel (String hashkey, String field) throws RedisException;
+	
 	// ------------------------------------------------------------------------
 	// Commands operating on sets
 	// ------------------------------------------------------------------------
@@ -643,6 +844,19 @@ public interface JRedis {
 	 */
 	public List<byte[]> zrange (String setkey, long from, long to) throws RedisException; 
 
+	/**
+	 * Streaming {@link JRedis#zrange(String, long, long)} -- the elements are read as the
+	 * returned stream is iterated.  
+	 * @Redis ZRANGE
+	 * @param setkey
+	 * @param from
+	 * @param to
+	 * @return the (open) stream of the range -- must be exhausted or closed
+	 * @throws RedisException
+	 * @see ResultStream
+	 */
+	public ResultStream<byte[]> zrangeStream (String setkey, long from, long to) throws RedisException; 
+
 	/**
 	 * @Redis ZREVRANGE
 	 * @param setkey
@@ -669,6 +883,20 @@ public interface JRedis {
 	 */
 	public List<ZSetEntry> zrangeSubset (String setkey, long from, long to) throws RedisException; 
 
+	/**
+	 * Equivalent to {@link JRedis#zrangeSubset(String, long, long)}, with the entries decoded
+	 * into parallel value and (primitive) score arrays.
+	 *  
+	 * @Redis ZRANGE ... WITHSCORES
+	 * @param setkey
+	 * @param from
+	 * @param to
+	 * @return the entries of the specified range -- empty if none
+	 * @throws RedisException
+	 * @see ZSetEntries
+	 */
+	public ZSetEntries zrangeEntries (String setkey, long from, long to) throws RedisException; 
+
 	/**
 	 * Equivalent to {@link JRedis#zrevrange(String, long, long)} with the {@link Command.Options#WITHSCORES}.
 	 * Unlike the general ZREVRANGE command that only returns the values, this method returns both
@@ -685,6 +913,20 @@ public interface JRedis {
 	 */
 	public List<ZSetEntry> zrevrangeSubset (String setkey, long from, long to) throws RedisException; 
 
+	/**
+	 * Equivalent to {@link JRedis#zrevrangeSubset(String, long, long)}, with the entries decoded
+	 * into parallel value and (primitive) score arrays.
+	 *  
+	 * @Redis ZREVRANGE ... WITHSCORES
+	 * @param setkey
+	 * @param from
+	 * @param to
+	 * @return the entries of the specified range -- empty if none
+	 * @throws RedisException
+	 * @see ZSetEntries
+	 */
+	public ZSetEntries zrevrangeEntries (String setkey, long from, long to) throws RedisException; 
+
 	/**
 	 * @Redis ZRANGEBYSCORE
 	 * @param setkey
@@ -708,6 +950,19 @@ public interface JRedis {
 	 */
 	public List<ZSetEntry> zrangebyscoreSubset (String setkey, double minScore, double maxScore) throws RedisException; 
 
+	/**
+	 * Equivalent to {@link JRedis#zrangebyscoreSubset(String, double, double)}, with the entries decoded
+	 * into parallel value and (primitive) score arrays.
+	 * @Redis ZRANGEBYSCORE ... WITHSCORES
+	 * @param setkey
+	 * @param minScore
+	 * @param maxScore
+	 * @return the entries of the specified range -- empty if none
+	 * @throws RedisException
+	 * @see ZSetEntries
+	 */
+	public ZSetEntries zrangebyscoreEntries (String setkey, double minScore, double maxScore) throws RedisException; 
+
 	/**
 	 * @Redis ZREMRANGEBYSCORE
 	 * @param setkey
@@ -803,6 +1058,45 @@ public interface JRedis {
 	 */
 	public Sort sort(String key);
 	
+	// ------------------------------------------------------------------------
+	// Transactions
+	// ------------------------------------------------------------------------
+	
+	/**
+	 * Usage:
+	 * <p><code><pre>
+	 * Transaction tx = redis.multi();
+	 * Future<Long> counter = tx.incr("counter");
+	 * tx.set("last-incr", timestamp);
+	 * tx.exec();
+	 * </pre></code>
+	 * <p>The commands are queued by the returned {@link Transaction} and sent to the server on
+	 * {@link Transaction#exec()}, along with MULTI and EXEC, in one go.  
+	 * 
+	 * @return a new transaction.
+	 * @Redis MULTI
+	 * @see Transaction
+	 */
+	public Transaction multi();
+	
+	// ------------------------------------------------------------------------
+	// Publish/Subscribe
+	// ------------------------------------------------------------------------
+	
+	/**
+	 * Publishes the message to the subscribers of the channel.  Subscribing requires a dedicated
+	 * connection -- see {@link Subscriber}.
+	 * @param channel
+	 * @param message
+	 * @return the number of subscribers that received the message
+	 * @throws RedisException
+	 * @Redis PUBLISH
+	 */
+	public long publish (String channel, byte[] message) throws RedisException;
+	public long publish (String channel, String message) throws RedisException;
+	public long publish (String channel, Number message) throws RedisException;
+	public <T extends Serializable> long publish (String channel, T message) throws RedisException;
+	
 	// ------------------------------------------------------------------------
 	// Persistence control commands
 	// ------------------------------------------------------------------------
@@ -387,6 +387,19 @@ public interface JRedisFuture {
 	 */
 	public Future<List<byte[]>> lrange (String listkey, long from, long to); 
 
+	/**
+	 * Streaming {@link JRedisFuture#lrange(String, long, long)} -- the future completes once the
+	 * reply header has been read and the elements are read as the stream is iterated.  Responses
+	 * to requests queued after this one are not processed until the stream is exhausted or closed.
+	 * @Redis LRANGE
+	 * @param listkey
+	 * @param from
+	 * @param to
+	 * @return
+	 * @see ResultStream
+	 */
+	public Future<ResultStream<byte[]>> lrangeStream (String listkey, long from, long to); 
+
 	/**
 	 * @Redis LTRIM
 	 * @param listkey
@@ -424,6 +437,44 @@ public interface JRedisFuture {
 	 * @return
 	 */
 	public Future<byte[]> rpoplpush (String srcList, String destList);
+
+	/**
+	 * The request is serviced by a dedicated connection, so that it does not block the 
+	 * requests queued after it.
+	 * <p>
+	 * Note that as it is not pipelined, the request is <b>not</b> ordered after the requests 
+	 * queued before it, which may not yet have been serviced when it is sent: e.g. the pop
+	 * may not see the items of a preceding {@link #rpush(String, byte[])} unless its future 
+	 * has completed.  The same applies to {@link #brpop(long, String...)} and 
+	 * {@link #brpoplpush(String, String, long)}.
+	 * @Redis BLPOP
+	 * @param timeout in seconds -- 0 blocks indefinitely
+	 * @param listKeys
+	 * @return the key of the list and the popped item, or null if timed out
+	 * @see JRedis#blpop(long, String...)
+	 */
+	public Future<List<byte[]>> blpop (long timeout, String...listKeys);
+	
+	/**
+	 * Serviced by a dedicated connection, and not ordered after the requests queued before it.
+	 * @Redis BRPOP
+	 * @param timeout in seconds -- 0 blocks indefinitely
+	 * @param listKeys
+	 * @return the key of the list and the popped item, or null if timed out
+	 * @see JRedisFuture#blpop(long, String...)
+	 */
+	public Future<List<byte[]>> brpop (long timeout, String...listKeys);
+	
+	/**
+	 * Serviced by a dedicated connection, and not ordered after the requests queued before it.
+	 * @Redis BRPOPLPUSH
+	 * @param srcList
+	 * @param destList
+	 * @param timeout in seconds -- 0 blocks indefinitely
+	 * @return the item moved, or null if timed out
+	 * @see JRedisFuture#blpop(long, String...)
+	 */
+	public Future<byte[]> brpoplpush (String srcList, String destList, long timeout);
 	// ------------------------------------------------------------------------
 	// Commands operating on sets
 	// ------------------------------------------------------------------------
@@ -534,6 +585,15 @@ public interface JRedisFuture {
 	 * @return
 	 */
 	public Future<List<byte[]>> smembers (String setkey);
+
+	/**
+	 * Streaming {@link JRedisFuture#smembers(String)}.
+	 * @Redis SMEMBERS
+	 * @param setkey
+	 * @return
+	 * @see JRedisFuture#lrangeStream(String, long, long)
+	 */
+	public Future<ResultStream<byte[]>> smembersStream (String setkey);
 	
 	/**
 	 * @Redis SRANDMEMBER
@@ -549,6 +609,71 @@ public interface JRedisFuture {
 	 */
 	public Future<byte[]> spop (String setkey);
 
+	// ------------------------------------------------------------------------
+	// Commands operating on hashes
+	// ------------------------------------------------------------------------
+	
+	/**
+	 * @Redis HSET
+	 * @param hashkey
+	 * @param field
+	 * @param value
+	 * @return true if the field is new, false if its value was updated
+	 */
+	public Future<Boolean> hset (String hashkey, String field, byte[] value);
+	public Future<Boolean> hset (String hashkey, String field, String stringValue);
+	public Future<Boolean> hset (String hashkey, String field, Number numberValue);
+	public <T extends Serializable> 
+		Future<Boolean> hset (String hashkey, String field, T object);
+	
+	/**
+	 * @Redis HGET
+	 * @param hashkey
+	 * @param field
+	 * @return the value of the field, or null if the hash or field does not exist
+	 */
+	public Future<byte[]> hget (String hashkey, String field);
+	
+	/**
+	 * @Redis HMSET
+	 * @param hashkey
+	 * @param fieldValueMap a {@link Map}ping of field names to byte[] values.
+	 * @return
+	 */
+	public Future<ResponseStatus> hmset (String hashkey, Map<String, byte[]> fieldValueMap);
+	
+	/**
+	 * @Redis HMGET
+	 * @param hashkey
+	 * @param fields
+	 * @return the values of the fields, in order -- null for fields that do not exist
+	 */
+	public Future<List<byte[]>> hmget (String hashkey, String...fields);
+	
+	/**
+	 * @Redis HGETALL
+	 * @param hashkey
+	 * @return the fields and values of the hash -- empty if the hash does not exist
+	 */
+	public Future<Map<String, byte[]>> hgetall (String hashkey);
+	
+	/**
+	 * @Redis HINCRBY
+	 * @param hashkey
+	 * @param field
+	 * @param delta
+	 * @return the value of the field after the increment
+	 */
+	public Future<Long> hincrby (String hashkey, String field, long delta);
+	
+	/**
+	 * @Redis HDEL
+	 * @param hashkey
+	 * @param field
+	 * @return true if the field existed and was removed
+	 */
+	public Future<Boolean> hdel (String hashkey, String field);
+
 	// ------------------------------------------------------------------------
 	// Commands operating on sorted sets
 	// ------------------------------------------------------------------------
@@ -615,6 +740,17 @@ public interface JRedisFuture {
 	 */
 	public Future<List<byte[]>> zrange (String setkey, long from, long to); 
 
+	/**
+	 * Streaming {@link JRedisFuture#zrange(String, long, long)}.
+	 * @Redis ZRANGE
+	 * @param setkey
+	 * @param from
+	 * @param to
+	 * @return
+	 * @see JRedisFuture#lrangeStream(String, long, long)
+	 */
+	public Future<ResultStream<byte[]>> zrangeStream (String setkey, long from, long to);
+
 	/**
 	 * @Redis ZREVRANGE
 	 * @param setkey
@@ -639,6 +775,19 @@ public interface JRedisFuture {
 	 */
 	public Future<List<ZSetEntry>> zrangeSubset (String setkey, long from, long to); 
 
+	/**
+	 * Equivalent to {@link JRedisFuture#zrangeSubset(String, long, long)}, with the entries decoded
+	 * into parallel value and (primitive) score arrays.
+	 * 
+	 * @Redis ZRANGE ... WITHSCORES
+	 * @param setkey
+	 * @param from
+	 * @param to
+	 * @return
+	 * @see ZSetEntries
+	 */
+	public Future<ZSetEntries> zrangeEntries (String setkey, long from, long to); 
+
 	/**
 	 * Equivalent to {@link JRedis#zrange(String, long, long)} with the {@link Command.Options#WITHSCORES}.
 	 * Unlike the general ZRANGE command that only returns the values, this method returns both
@@ -654,6 +803,19 @@ public interface JRedisFuture {
 	 */
 	public Future<List<ZSetEntry>> zrevrangeSubset (String setkey, long from, long to); 
 
+	/**
+	 * Equivalent to {@link JRedisFuture#zrevrangeSubset(String, long, long)}, with the entries decoded
+	 * into parallel value and (primitive) score arrays.
+	 * 
+	 * @Redis ZREVRANGE ... WITHSCORES
+	 * @param setkey
+	 * @param from
+	 * @param to
+	 * @return
+	 * @see ZSetEntries
+	 */
+	public Future<ZSetEntries> zrevrangeEntries (String setkey, long from, long to); 
+
 	/**
 	 * @Redis ZRANGEBYSCORE
 	 * @param setkey
@@ -675,6 +837,18 @@ public interface JRedisFuture {
 	 */
 	public Future<List<ZSetEntry>> zrangebyscoreSubset (String setkey, double minScore, double maxScore); 
 
+	/**
+	 * Equivalent to {@link JRedisFuture#zrangebyscoreSubset(String, double, double)}, with the entries decoded
+	 * into parallel value and (primitive) score arrays.
+	 * @Redis ZRANGEBYSCORE ... WITHSCORES
+	 * @param setkey
+	 * @param minScore
+	 * @param maxScore
+	 * @return
+	 * @see ZSetEntries
+	 */
+	public Future<ZSetEntries> zrangebyscoreEntries (String setkey, double minScore, double maxScore); 
+
 	/**
 	 * @Redis ZREMRANGEBYSCORE
 	 * @param setkey
@@ -758,6 +932,37 @@ public interface JRedisFuture {
 	 */
 	public Sort sort(String key);
 	
+	// ------------------------------------------------------------------------
+	// Transactions
+	// ------------------------------------------------------------------------
+	
+	/**
+	 * <p>For Usage details regarding transaction semantics, see {@link JRedis#multi()}.  The
+	 * only difference in usage is that you must use the {@link Transaction#execAsynch()} method
+	 * which returns a {@link Future} instance.
+	 * 
+	 * @return a new transaction.
+	 * @Redis MULTI
+	 * @see Transaction
+	 */
+	public Transaction multi();
+	
+	// ------------------------------------------------------------------------
+	// Publish/Subscribe
+	// ------------------------------------------------------------------------
+	
+	/**
+	 * @param channel
+	 * @param message
+	 * @return the {@link Future} number of subscribers that received the message
+	 * @Redis PUBLISH
+	 * @see JRedis#publish(String, byte[])
+	 */
+	public Future<Long> publish (String channel, byte[] message);
+	public Future<Long> publish (String channel, String message);
+	public Future<Long> publish (String channel, Number message);
+	public <T extends Serializable> Future<Long> publish (String channel, T message);
+	
 	// ------------------------------------------------------------------------
 	// Persistence control commands
 	// ------------------------------------------------------------------------
@@ -16,9 +16,7 @@
 
 package org.jredis;
 
-import java.util.ArrayList;
 import java.util.Formatter;
-import java.util.List;
 import java.util.StringTokenizer;
 
 /**
@@ -32,11 +30,17 @@ import java.util.StringTokenizer;
  */
 
 public class ObjectInfo {
+	/** names of the (Redis) object encodings, by encoding code */
+	private static final String[] ENCODINGS = {
+		"raw", "int", "hashtable", "zipmap", "linkedlist", "ziplist", "intset", "skiplist", "embstr", "quicklist"
+	};
 	private final String keyAddress;
 	private final long keyRefCount;
 	private final String valueAddress;
 	private final long valueRefCount;
 	private final int encoding;
+	private final String encodingName;
+	private final long serializedLength;
 	public ObjectInfo(
 			String 	keyAddress,
 			long	keyRefCount,
@@ -44,18 +48,32 @@ public class ObjectInfo {
 			long	valueRefCount,
 			int		encoding
 		) 
+	{
+		this(keyAddress, keyRefCount, valueAddress, valueRefCount, encoding, encodingName(encoding), -1);
+	}
+	public ObjectInfo(
+			String 	keyAddress,
+			long	keyRefCount,
+			String 	valueAddress,
+			long	valueRefCount,
+			int		encoding,
+			String	encodingName,
+			long	serializedLength
+		) 
 	{
 		this.keyAddress = keyAddress;
 		this.keyRefCount = keyRefCount;
 		this.valueAddress = valueAddress;
 		this.valueRefCount = valueRefCount;
 		this.encoding = encoding;
+		this.encodingName = encodingName;
+		this.serializedLength = serializedLength;
 	}
-	/**  @return the keyAddress as {@link String} representation of hex address.  Ex: "0x100d60" */
+	/**  @return the keyAddress as {@link String} representation of hex address.  Ex: "0x100d60" -- null if not reported */
     public String getKeyAddress () {
     	return keyAddress;
     }
-	/**  @return the keyRefCount */
+	/**  @return the keyRefCount -- -1 if not reported */
     public long getKeyRefCount () {
     	return keyRefCount;
     }
@@ -67,10 +85,18 @@ public class ObjectInfo {
     public long getValueRefCount () {
     	return valueRefCount;
     }
-    /**  @return the encoding */
+    /**  @return the encoding -- -1 if not a known encoding */
     public int getEncoding () {
 	    return encoding;
     }
+    /**  @return the name of the encoding, e.g. "ziplist" */
+    public String getEncodingName () {
+    	return encodingName;
+    }
+    /**  @return the length of the value when serialized (e.g. in the dump file) -- -1 if not reported */
+    public long getSerializedLength () {
+    	return serializedLength;
+    }
     /**
      * Convenience method to convert the address info to long.  Ex: "0x101860" => 1054816.  (Note that
      * the returned number is (obviously) base 10.) 
@@ -85,34 +111,79 @@ public class ObjectInfo {
     public String toString() {
     	Formatter formatter = new Formatter();
     	formatter.format(
-    			"ObjectInfo: key [addr:%s  refCnt: %d] value [addr:%s  refCnt: %d] encoding:%d" , 
-    			keyAddress, keyRefCount, valueAddress, valueRefCount, encoding);
+    			"ObjectInfo: key [addr:%s  refCnt: %d] value [addr:%s  refCnt: %d] encoding:%s serializedLength:%d" , 
+    			keyAddress, keyRefCount, valueAddress, valueRefCount, encodingName, serializedLength);
     	return formatter.toString();
     }
 	/**
      * Strictly speaking, this doesn't belong here but cuts down on redundant code.  Parses
      * the DEBUG OBJECT <key> response to return an instance of {@link ObjectInfo}.
+     * <p>
+     * Both the (1.x) "Key at:... refcount:1, value at:... refcount:1 encoding:0" format and the 
+     * (2.x) "Value at:... refcount:1 encoding:raw serializedlength:3 ..." format are supported.  
+     * Fields that are not known are ignored.
      * @param strRep
      * @return {@link ObjectInfo}
      */
     static public final ObjectInfo valueOf(String strRep) {
     	StringTokenizer tokenizer = new StringTokenizer(strRep);
-    	int tokenCnt = tokenizer.countTokens();
 
-    	if(tokenCnt != 7) throw new ProviderException ("DEBUG OBJECT <key> response does not conform to expected format.  Got: [" + strRep + "]");
-    	List<String> tokens = new ArrayList<String>(tokenCnt);
-    	while (tokenizer.hasMoreElements())
-    		tokens.add(tokenizer.nextToken());
-    	
-    	String keyAddr = tokens.get(1).substring(3);
-    	String keyCnt = tokens.get(2).substring("refcount:".length());
-    	keyCnt = keyCnt.substring(0, keyCnt.length()-1);
-    	String valAddr = tokens.get(4).substring(3);
-    	String valCnt = tokens.get(5).substring("refcount:".length());
-    	String encoding = tokens.get(6).substring("encoding:".length());
+    	String keyAddr = null;
+    	long keyCnt = -1;
+    	String valAddr = null;
+    	long valCnt = -1;
+    	int encoding = -1;
+    	String encodingName = null;
+    	long serializedLength = -1;
+    	boolean ofKey = false;
+    	try {
+    		while (tokenizer.hasMoreTokens()){
+    			String token = tokenizer.nextToken();
+    			if(token.endsWith(",")) token = token.substring(0, token.length()-1);
+    			int c = token.indexOf(':');
+    			if(c == -1) {
+    				ofKey = token.equalsIgnoreCase("Key");
+    				continue;
+    			}
+    			String name = token.substring(0, c);
+    			String value = token.substring(c+1);
+    			if(name.equals("at")) {
+    				if(ofKey) keyAddr = value; else valAddr = value;
+    			}
+    			else if(name.equals("refcount")) {
+    				if(ofKey) keyCnt = Long.parseLong(value); else valCnt = Long.parseLong(value);
+    			}
+    			else if(name.equals("encoding")) {
+    				if(value.length() > 0 && Character.isDigit(value.charAt(0))) {
+    					encoding = Integer.parseInt(value);
+    					encodingName = encodingName(encoding);
+    				}
+    				else {
+    					encodingName = value;
+    					encoding = encodingOf(value);
+    				}
+    			}
+    			else if(name.equals("serializedlength")) {
+    				serializedLength = Long.parseLong(value);
+    			}
+    		}
+    	}
+    	catch (NumberFormatException e) {
+    		throw new ProviderException ("DEBUG OBJECT <key> response does not conform to expected format.  Got: [" + strRep + "]", e);
+    	}
+    	if(null == valAddr || null == encodingName) 
+    		throw new ProviderException ("DEBUG OBJECT <key> response does not conform to expected format.  Got: [" + strRep + "]");
 
-    	ObjectInfo info = new ObjectInfo(keyAddr, Integer.parseInt(keyCnt), valAddr, Integer.parseInt(valCnt), Integer.parseInt(encoding));;
-
-    	return info;
+    	return new ObjectInfo(keyAddr, keyCnt, valAddr, valCnt, encoding, encodingName, serializedLength);
+    }
+    
+    private static String encodingName (int encoding) {
+    	return encoding >= 0 && encoding < ENCODINGS.length ? ENCODINGS[encoding] : String.valueOf(encoding);
+    }
+    
+    private static int encodingOf (String encodingName) {
+    	for(int i=0; i<ENCODINGS.length; i++)
+    		if(ENCODINGS[i].equals(encodingName)) return i;
+    	return -1;
     }
 }
@@ -55,10 +55,10 @@ public interface Query {
 	 * Executes the query.
 	 * 
 	 * @return the resultant value list from redis.
-	 * @throws IllegalStateException
+	 * @throws IllegalStateException if the query can not be executed in this form -- e.g. a synchronous exec
+	 * with an asynchronous client, or a {@link Sort} with a STORE clause 
 	 * @throws RedisException
 	 */
-	// TODO: why illegal state?
 	public List<byte[]> exec () throws IllegalStateException, RedisException;	
 	public Future<List<byte[]>> execAsynch ();	
 }
@@ -30,5 +30,16 @@ public enum RedisType {
 	string,
 	list,
 	set,
-	hash
+	hash,
+	zset;
+	
+	/**
+	 * @param reply the status reply of TYPE
+	 * @return the type of the reply, {@link #NONE} for the "none" of keys that do not exist
+	 * @throws IllegalArgumentException if the reply is not a known type
+	 */
+	public static RedisType forReply (String reply) {
+		if("none".equals(reply)) return NONE;
+		return valueOf(reply);
+	}
 }
\ No newline at end of file
@@ -0,0 +1,62 @@
+/*
+ *   Copyright 2009 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+
+package org.jredis;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Incremental delivery of a (potentially very large) multi-bulk result, such as that of
+ * {@link JRedis#lrangeStream(String, long, long)}.  Elements are read off the connection
+ * as the stream is iterated, so the heap cost is that of the current element, and the 
+ * processing of the elements overlaps the transfer of the rest of the reply.  The consumer
+ * is never overrun: elements not yet requested simply remain in the network buffers.
+ * <p>
+ * The connection that delivers the reply is reserved for the stream until it has been 
+ * fully iterated or {@link ResultStream#close() closed}.  Other users of the connection 
+ * (e.g. other threads of a shared client, or pipelined requests queued behind the stream) 
+ * wait until then, so streams should be consumed promptly and closed when abandoned.  
+ * As a convenience, a synchronous single connection client that is used (by the same 
+ * thread) before its stream is exhausted discards the remainder of the stream.
+ * <p>
+ * The stream is not thread-safe; {@link Iterator#remove()} is not supported.
+ * 
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @since   alpha.0
+ * @see JRedis
+ * @see JRedisFuture
+ */
+public interface ResultStream<T> extends Iterator<T> {
+	/**
+	 * @return the number of elements in the reply, per the reply header -- 0 for a nil reply.
+	 */
+	public int size ();
+	
+	/**
+	 * @return the next element -- elements may be null, reflecting '<b>nil</b>' values per redis specification.
+	 * @throws NoSuchElementException if the stream is exhausted or closed
+	 * @throws ClientRuntimeException if the connection faults while reading the element
+	 */
+	public T next () throws ClientRuntimeException;
+	
+	/**
+	 * Discards any remaining elements of the reply and releases the connection.  Idempotent.
+	 * @throws ClientRuntimeException if the connection faults while discarding the remainder
+	 */
+	public void close () throws ClientRuntimeException;
+}
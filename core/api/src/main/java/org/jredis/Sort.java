@@ -18,6 +18,7 @@
 package org.jredis;
 
 import java.util.List;
+import java.util.concurrent.Future;
 
 
 /**
@@ -54,6 +55,12 @@ import java.util.List;
  *     // do something with item ..
  *  }
  * </pre></code>
+ * <p>The results of a sort may instead be stored on the server, and a specification reused for other keys:
+ * <p><code><pre>
+ * Sort byWeight = redis.sort("list-1").BY("weight*").DESC();
+ * List<byte[]>  results = byWeight.<b>exec()</b>;
+ * long stored = byWeight.forKey("list-2").STORE("list-2-sorted").<b>execStore()</b>;
+ * </pre></code>
  * 
  * @author  Joubin Houshyar (alphazero@sensesay.net)
  * @version alpha.0, 04/02/09
@@ -80,6 +87,32 @@ public interface Sort extends Query {
 	/** sort is be default numeric -- use this to indicate lexiographic alphanumeric sort */
 	Sort ALPHA ();
 	
-//	/** TODO: store the sort results in another key */
-//	Sort STORE (String destKey);
+	/** 
+	 * Specifies the STORE clause: the results are stored in the list at destKey, rather than returned.
+	 * Use {@link Sort#execStore()} (or {@link Sort#execStoreAsynch()}) to execute a STORE sort.
+	 * @param destKey
+	 */
+	Sort STORE (String destKey);
+	
+	/**
+	 * The specification of a sort is compiled once, on first execution, and may be reused across keys.
+	 * @param key
+	 * @return a sort of the key, per the specification of this sort -- changes to either sort do not affect the other 
+	 */
+	Sort forKey (String key);
+	
+	/**
+	 * Executes a sort specifying the {@link Sort#STORE(String)} clause.
+	 * @return the number of elements stored
+	 * @throws IllegalStateException if the STORE clause is not specified
+	 * @throws RedisException
+	 */
+	long execStore () throws IllegalStateException, RedisException;
+	
+	/**
+	 * @return the {@link Future} number of elements stored
+	 * @throws IllegalStateException if the STORE clause is not specified
+	 * @see Sort#execStore()
+	 */
+	Future<Long> execStoreAsynch () throws IllegalStateException;
 }
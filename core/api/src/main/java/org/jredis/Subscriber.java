@@ -0,0 +1,126 @@
+/*
+ *   Copyright 2009 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+
+package org.jredis;
+
+import java.util.Set;
+
+/**
+ * A dedicated connection subscribed to channels and/or channel patterns.  The messages 
+ * {@link JRedis#publish(String, byte[]) published} to the subscribed channels are pushed by the
+ * server and delivered to the subscriber's {@link Subscriber.Listener}s, so consumers of 
+ * notifications need not poll for them.
+ * <p>Usage:
+ * <p><code><pre>
+ * Subscriber subscriber = new JRedisSubscriber(spec);
+ * subscriber.addListener(new Subscriber.Listener() {
+ *     public void onMessage (String channel, String pattern, byte[] message) {
+ *         // handle the message ..
+ *     }
+ * });
+ * subscriber.subscribe("news", "weather");
+ * subscriber.psubscribe("alerts.*");
+ * ...
+ * subscriber.quit();
+ * </pre></code>
+ * <p>A subscribed connection can not be used for any other commands, and messages are only
+ * delivered while subscribed -- there is no replay of the messages published while the 
+ * subscriber was not connected.  Messages are delivered on threads of the subscriber, and 
+ * not on the thread that subscribed.
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @since   alpha.0
+ * @see JRedis#publish(String, byte[])
+ * @see JRedisFuture#publish(String, byte[])
+ */
+public interface Subscriber {
+	
+	/**
+	 * Subscribes to the channels.  Returns once the server has confirmed the subscriptions.
+	 * @param channels
+	 * @throws ClientRuntimeException if not confirmed in time, or the subscriber has quit.
+	 * @Redis SUBSCRIBE
+	 */
+	public void subscribe (String... channels) throws ClientRuntimeException;
+	
+	/**
+	 * Unsubscribes from the channels.  Returns once the server has confirmed.
+	 * @param channels -- all subscribed channels if none
+	 * @throws ClientRuntimeException if not confirmed in time, or the subscriber has quit.
+	 * @Redis UNSUBSCRIBE
+	 */
+	public void unsubscribe (String... channels) throws ClientRuntimeException;
+	
+	/**
+	 * Subscribes to the channels matching the (glob-style) patterns.  Returns once the server 
+	 * has confirmed the subscriptions.
+	 * @param patterns
+	 * @throws ClientRuntimeException if not confirmed in time, or the subscriber has quit.
+	 * @Redis PSUBSCRIBE
+	 */
+	public void psubscribe (String... patterns) throws ClientRuntimeException;
+	
+	/**
+	 * Unsubscribes from the patterns.  Returns once the server has confirmed.
+	 * @param patterns -- all subscribed patterns if none
+	 * @throws ClientRuntimeException if not confirmed in time, or the subscriber has quit.
+	 * @Redis PUNSUBSCRIBE
+	 */
+	public void punsubscribe (String... patterns) throws ClientRuntimeException;
+	
+	/** @return the subscribed channels -- a copy */
+	public Set<String> getChannels ();
+	
+	/** @return the subscribed patterns -- a copy */
+	public Set<String> getPatterns ();
+	
+	/**
+	 * Messages are delivered to all listeners.  Messages received while there are no listeners 
+	 * are dropped.
+	 * @param listener
+	 * @return true if added
+	 */
+	public boolean addListener (Listener listener);
+	
+	/**
+	 * @param listener
+	 * @return true if removed
+	 */
+	public boolean removeListener (Listener listener);
+	
+	/**
+	 * Closes the connection.  Messages already received are still delivered.
+	 */
+	public void quit ();
+	
+	// ========================================================================
+	// Inner Types
+	// ========================================================================
+	/**
+	 * Listener of the messages pushed to a {@link Subscriber}.  Listeners are called on the
+	 * subscriber's dispatch threads, and should hand off any lengthy processing as the messages
+	 * not yet delivered are held in a bounded queue.
+	 */
+	public interface Listener {
+		/**
+		 * @param channel the channel the message was published to
+		 * @param pattern the subscribed pattern that matched the channel, or null if the subscription is to the channel
+		 * @param message
+		 */
+		public void onMessage (String channel, String pattern, byte[] message);
+	}
+}
@@ -0,0 +1,78 @@
+/*
+ *   Copyright 2009 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+
+package org.jredis;
+
+import java.util.List;
+import java.util.concurrent.Future;
+
+/**
+ * A transaction block: commands that are executed by the server atomically, as a single unit.  
+ * 
+ * <p>Transactions are obtained from the {@link JRedis} and {@link JRedisFuture} clients, by calling 
+ * the eponymous method {@link JRedis#multi()}.  The commands of the transaction are issued using the 
+ * (inherited) {@link JRedisFuture} methods, but are only queued: the {@link Future} results of the 
+ * commands are resolved once the transaction has been executed.
+ * <p>Usage:
+ * <p><code><pre>
+ * Transaction tx = redis.multi();
+ * Future<Long> counter = tx.incr("counter");
+ * tx.lpush("log", "counter was incremented");
+ * List<Object> results = tx.exec();
+ * long value = counter.get();   // same as results.get(0)
+ * </pre></code>
+ * <p>On execution, the MULTI, the queued commands, and EXEC are sent to the server back to back, without 
+ * waiting for the replies to the queued commands, so a transaction costs a single round trip.
+ * <p>Transactions are not thread-safe and may be executed (or discarded) only once.
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @since   alpha.0
+ * @see JRedis#multi()
+ * @see JRedisFuture#multi()
+ */
+public interface Transaction extends JRedisFuture {
+	
+	/**
+	 * Executes the transaction.
+	 * 
+	 * @return the results of the commands, in order, of the same type as the result of their {@link Future}.
+	 * The result of a command that failed is its {@link RedisException}.
+	 * @throws IllegalStateException if the transaction has already been executed or discarded, or
+	 * can only be executed asynchronously.
+	 * @throws RedisException if the transaction was not executed.
+	 * @Redis MULTI
+	 * @Redis EXEC
+	 */
+	public List<Object> exec () throws IllegalStateException, RedisException;
+	
+	/**
+	 * Executes the transaction asynchronously.  
+	 * 
+	 * @return the {@link Future} results of the commands, per {@link Transaction#exec()}.
+	 * @throws IllegalStateException if the transaction has already been executed or discarded, or
+	 * can only be executed synchronously.
+	 */
+	public Future<List<Object>> execAsynch () throws IllegalStateException;
+	
+	/**
+	 * Discards the transaction.  The {@link Future} results of the queued commands are canceled.
+	 * As the commands have not been sent, no request is made to the server.
+	 * 
+	 * @throws IllegalStateException if the transaction has already been executed or discarded.
+	 */
+	public void discard () throws IllegalStateException;
+}
@@ -0,0 +1,47 @@
+/*
+ *   Copyright 2009 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.jredis;
+
+/**
+ * The entries of a range of a Redis "sorted set", as parallel arrays of values and (primitive) scores,
+ * returned by the entries Z* commands, such as {@link JRedis#zrangeEntries(String, long, long)}.
+ * Unlike a list of {@link ZSetEntry}, there are no per-entry objects: a range of N entries is 
+ * N value byte[]s, and a double[N].
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, May 20, 2010
+ * @since   alpha.0
+ * @see JRedis
+ * @see JRedisFuture
+ */
+
+public interface ZSetEntries {
+	/** @return the number of entries */
+	int size ();
+	
+	/** @return the value of the i-th entry */
+	byte[] getValue (int i);
+	
+	/** @return the score of the i-th entry */
+	double getScore (int i);
+	
+	/** @return the values of the entries, in order -- the backing array, not a copy */
+	byte[][] getValues ();
+	
+	/** @return the scores of the entries, in order -- the backing array, not a copy */
+	double[] getScores ();
+}
@@ -139,7 +139,11 @@ public interface Connection {
 		public enum Type {
 			CONNECTED,
 			DISCONNECTED,
-			FAULTED
+			FAULTED,
+			/** requests to the connection's server are failing fast */
+			CIRCUIT_OPENED,
+			/** the connection's server is (again) accepting requests */
+			CIRCUIT_CLOSED
 		}
 	}
 }
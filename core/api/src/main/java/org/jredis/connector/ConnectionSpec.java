@@ -145,6 +145,29 @@ public interface ConnectionSpec {
     
     public void isPipeline(boolean flag);
     
+    /**
+     * Deadline of the (asynchronous) requests of the connection, measured from when the request 
+     * is queued.  Expired requests fail with a timeout, and their (late) responses are discarded.
+     * @return the request timeout in milliseconds, or 0 if requests do not expire.
+     */
+    public int getRequestTimeout();
+    
+    /**
+     * @param msecs the request timeout in milliseconds, or 0 if requests do not expire.
+     */
+    public void setRequestTimeout(int msecs);
+    
+    /**
+     * @return the tracer of the requests of the connection, or null if requests are not traced.
+     * @see RequestTracer
+     */
+    public RequestTracer getRequestTracer();
+    
+    /**
+     * @param tracer the tracer of the requests of the connection, or null to stop tracing.
+     */
+    public void setRequestTracer(RequestTracer tracer);
+    
 	// ------------------------------------------------------------------------
 	// Associated (inner) types
 	// ------------------------------------------------------------------------
@@ -278,6 +301,12 @@ public interface ConnectionSpec {
 		
 		/** heartbeat period in milliseconds */
 		private int heartbeat;
+		
+		/** request timeout in milliseconds */
+		private int requestTimeout;
+		
+		/** tracer of the requests, if any */
+		private volatile RequestTracer requestTracer;
 		// ------------------------------------------------------------------------
 		// Constructor(s)
 		// ------------------------------------------------------------------------
@@ -441,6 +470,34 @@ public interface ConnectionSpec {
         public void setHeartbeat(int seconds) {
         	this.heartbeat = seconds * 1000;
         }
+        
+        /**
+         * @return the request timeout in milliseconds
+         */
+        public int getRequestTimeout() {
+        	return requestTimeout;
+        }
+        
+        /**
+         * @param msecs request timeout
+         */
+        public void setRequestTimeout(int msecs) {
+        	this.requestTimeout = msecs;
+        }
+        
+        /**
+         * @return the request tracer
+         */
+        public RequestTracer getRequestTracer() {
+        	return requestTracer;
+        }
+        
+        /**
+         * @param tracer request tracer
+         */
+        public void setRequestTracer(RequestTracer tracer) {
+        	this.requestTracer = tracer;
+        }
 
 	}
 }
\ No newline at end of file
@@ -0,0 +1,99 @@
+/*
+ *   Copyright 2009-2010 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.jredis.connector;
+
+import org.jredis.connector.RequestTracer.Stage;
+import org.jredis.protocol.Command;
+
+/**
+ * The trace of a (sampled) request, recording the {@link System#nanoTime()} of each 
+ * {@link Stage} of the request as it is reached.  Instances are created by the {@link RequestTracer}
+ * and their stages are marked by the connections.
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, May 20, 2010
+ * @since   alpha.0
+ * 
+ */
+public final class RequestTrace {
+	
+	/** the traced command -- {@link Command#EXEC} for transactions */
+	private final Command	cmd;
+	
+	/** context of the caller, if any */
+	private final Object	context;
+	
+	/** times of the stages, by ordinal -- 0 if not reached */
+	private final long[]	times = new long[Stage.values().length];
+	
+	/** the cause of the failure of the request, if any */
+	private volatile Throwable fault;
+	
+	/**
+	 * @param cmd
+	 * @param context the (optional) context of the caller, e.g. a correlation id
+	 */
+	public RequestTrace (Command cmd, Object context) {
+		this.cmd = cmd;
+		this.context = context;
+	}
+	
+	/** @return the traced command */
+	public Command getCommand () { return cmd; }
+	
+	/** @return the context of the caller, or null */
+	public Object getContext () { return context; }
+	
+	/** @return the {@link System#nanoTime()} of the stage, or 0 if not reached */
+	public long getTime (Stage stage) { return times[stage.ordinal()]; }
+	
+	/** @return nanos elapsed between the stages, or -1 if either was not reached */
+	public long getElapsed (Stage from, Stage to) {
+		long start = getTime(from);
+		long end = getTime(to);
+		return start == 0 || end == 0 ? -1 : end - start;
+	}
+	
+	/** 
+	 * @return the cause of the failure of the request -- e.g. a {@link org.jredis.RedisException} on error 
+	 * responses -- or null if completed without fault.
+	 */
+	public Throwable getFault () { return fault; }
+	
+	/**
+	 * Records the time of the stage.
+	 * @param stage
+	 * @return the recorded time
+	 */
+	public long mark (Stage stage) {
+		long now = System.nanoTime();
+		times[stage.ordinal()] = now != 0 ? now : 1;
+		return now;
+	}
+	
+	/** @param fault the cause of the failure of the request */
+	public void setFault (Throwable fault) { this.fault = fault; }
+	
+	@Override
+	public String toString () {
+		return String.format("%s [queued: %d, server: %d, read: %d nsecs]%s", cmd.code, 
+				getElapsed(Stage.ENQUEUED, Stage.WRITTEN), 
+				getElapsed(Stage.WRITTEN, Stage.FIRST_BYTE), 
+				getElapsed(Stage.FIRST_BYTE, Stage.COMPLETED),
+				fault != null ? " fault: " + fault.getMessage() : "");
+	}
+}
@@ -0,0 +1,67 @@
+/*
+ *   Copyright 2009-2010 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.jredis.connector;
+
+import org.jredis.protocol.Command;
+
+/**
+ * Service provider interface for tracing the lifecycle of requests, e.g. to attribute the latency
+ * of slow requests to queuing in the client, or to the server.  A tracer is installed per 
+ * {@link ConnectionSpec#setRequestTracer(RequestTracer)} and is shared by the connections of the spec.
+ * <p>
+ * Only the sampled requests are traced: a trace is created for the request on the thread issuing
+ * it, and is passed to the tracer at each of its {@link Stage}s, in order, with the time of the
+ * stage recorded.  Stages are reported on the thread that reached them, so implementations must 
+ * be thread-safe, and should not block.  
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, May 20, 2010
+ * @since   alpha.0
+ * 
+ */
+public interface RequestTracer {
+	
+	/**
+	 * The lifecycle stages of a request.
+	 */
+	public enum Stage {
+		/** the request was issued -- it may wait for a connection, or to be written */
+		ENQUEUED,
+		/** the request was written to the connection */
+		WRITTEN,
+		/** the response was available to read */
+		FIRST_BYTE,
+		/** the response was read, or the request failed -- see {@link RequestTrace#getFault()} */
+		COMPLETED
+	}
+	
+	/**
+	 * Samples the request, on the thread issuing it.
+	 * @param cmd
+	 * @return the trace of the request, carrying the context of the caller (if any), or null if the 
+	 * request is not traced.
+	 */
+	public RequestTrace newTrace (Command cmd);
+	
+	/**
+	 * Called at each stage of a traced request.  Stages the request did not reach (e.g. 
+	 * if it failed) are not reported.
+	 * @param trace
+	 * @param stage
+	 */
+	public void onStage (RequestTrace trace, Stage stage);
+}
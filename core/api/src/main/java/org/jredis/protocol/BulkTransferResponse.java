@@ -0,0 +1,32 @@
+/*
+ *   Copyright 2009 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.jredis.protocol;
+
+/**
+ * A bulk response that transfers its data to a channel as it is read, instead of 
+ * buffering it.
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @since   alpha.0
+ * @see Protocol#createTransferResponse(Command, java.nio.channels.WritableByteChannel)
+ */
+public interface BulkTransferResponse extends Response {
+	/**
+	 * @return the number of bytes transferred, or -1 if the reply was nil.
+	 */
+	public long getTransferLength ();
+}
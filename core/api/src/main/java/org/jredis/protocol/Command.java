@@ -16,6 +16,9 @@
 
 package org.jredis.protocol;
 
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
 import org.jredis.Redis;
 
 
@@ -36,17 +39,29 @@ import org.jredis.Redis;
 public enum Command {
 	
 	// security
-	AUTH 		(RequestType.KEY, 			ResponseType.STATUS),
+	AUTH 		(RequestType.KEY, 			ResponseType.STATUS, Flag.CONNECTION),
 	
 	// connection handling
-	PING 		(RequestType.NO_ARG, 		ResponseType.STATUS), 
+	PING 		(RequestType.NO_ARG, 		ResponseType.STATUS, Flag.CONNECTION), 
 	QUIT 		(RequestType.NO_ARG, 		ResponseType.VIRTUAL), 
 
+	// transactions
+	MULTI		(RequestType.NO_ARG,		ResponseType.STATUS),
+	EXEC		(RequestType.NO_ARG,		ResponseType.MULTI_BULK),
+	DISCARD		(RequestType.NO_ARG,		ResponseType.STATUS),
+
+	// publish/subscribe
+	PUBLISH		(RequestType.KEY_VALUE,		ResponseType.NUMBER),
+	SUBSCRIBE	(RequestType.MULTI_KEY,		ResponseType.MULTI_BULK),
+	UNSUBSCRIBE	(RequestType.MULTI_KEY,		ResponseType.MULTI_BULK),
+	PSUBSCRIBE	(RequestType.MULTI_KEY,		ResponseType.MULTI_BULK),
+	PUNSUBSCRIBE(RequestType.MULTI_KEY,		ResponseType.MULTI_BULK),
+
 	// String values operations
 	SET 		(RequestType.KEY_VALUE, 	ResponseType.STATUS), 
-	GET 		(RequestType.KEY, 			ResponseType.BULK), 
+	GET 		(RequestType.KEY, 			ResponseType.BULK, Flag.READ_ONLY), 
 	GETSET		(RequestType.KEY_VALUE, 	ResponseType.BULK), 
-	MGET		(RequestType.MULTI_KEY, 	ResponseType.MULTI_BULK), 
+	MGET		(RequestType.MULTI_KEY, 	ResponseType.MULTI_BULK, Flag.READ_ONLY), 
 	SETNX		(RequestType.KEY_VALUE, 	ResponseType.BOOLEAN),
 	MSET		(RequestType.BULK_SET, 		ResponseType.STATUS), 
 	MSETNX		(RequestType.BULK_SET, 		ResponseType.BOOLEAN), 
@@ -54,73 +69,87 @@ public enum Command {
 	INCRBY		(RequestType.KEY_NUM,		ResponseType.NUMBER),  
 	DECR		(RequestType.KEY, 			ResponseType.NUMBER), 
 	DECRBY		(RequestType.KEY_NUM,		ResponseType.NUMBER),  
-	EXISTS		(RequestType.KEY, 			ResponseType.BOOLEAN), 
+	EXISTS		(RequestType.KEY, 			ResponseType.BOOLEAN, Flag.READ_ONLY), 
 	DEL			(RequestType.MULTI_KEY, 	ResponseType.NUMBER), 
-	TYPE		(RequestType.KEY, 			ResponseType.STRING),
+	TYPE		(RequestType.KEY, 			ResponseType.STRING, Flag.READ_ONLY),
 
 	// "Commands operating on the key space"
-	KEYS		(RequestType.KEY, 			ResponseType.BULK), 
-	RANDOMKEY	(RequestType.NO_ARG,		ResponseType.STRING),
+	KEYS		(RequestType.KEY, 			ResponseType.BULK, Flag.READ_ONLY), 
+	SCAN		(RequestType.BULK_ARGS,		ResponseType.MULTI_BULK, Flag.READ_ONLY),
+	RANDOMKEY	(RequestType.NO_ARG,		ResponseType.STRING, Flag.READ_ONLY),
 	RENAME		(RequestType.KEY_KEY, 		ResponseType.STATUS), 
 	RENAMENX	(RequestType.KEY_KEY, 		ResponseType.BOOLEAN), 
-	DBSIZE		(RequestType.NO_ARG,		ResponseType.NUMBER),
+	DBSIZE		(RequestType.NO_ARG,		ResponseType.NUMBER, Flag.READ_ONLY),
 	EXPIRE		(RequestType.KEY_NUM,		ResponseType.BOOLEAN), 
 	EXPIREAT	(RequestType.KEY_NUM,		ResponseType.BOOLEAN), 
-	TTL			(RequestType.KEY,			ResponseType.NUMBER),
+	TTL			(RequestType.KEY,			ResponseType.NUMBER, Flag.READ_ONLY),
 	
 	// Commands operating on lists
 	RPUSH		(RequestType.KEY_VALUE,		ResponseType.STATUS), 
 	LPUSH		(RequestType.KEY_VALUE,		ResponseType.STATUS),
-	LLEN		(RequestType.KEY,			ResponseType.NUMBER), 
-	LRANGE		(RequestType.KEY_NUM_NUM,	ResponseType.MULTI_BULK), 
+	LLEN		(RequestType.KEY,			ResponseType.NUMBER, Flag.READ_ONLY), 
+	LRANGE		(RequestType.KEY_NUM_NUM,	ResponseType.MULTI_BULK, Flag.READ_ONLY), 
 	LTRIM		(RequestType.KEY_NUM_NUM,	ResponseType.STATUS),
-	LINDEX		(RequestType.KEY_NUM,		ResponseType.BULK), 
+	LINDEX		(RequestType.KEY_NUM,		ResponseType.BULK, Flag.READ_ONLY), 
 	LSET		(RequestType.KEY_IDX_VALUE,	ResponseType.STATUS), 
 	LREM		(RequestType.KEY_CNT_VALUE,	ResponseType.NUMBER),
 	LPOP		(RequestType.KEY,			ResponseType.BULK), 
 	RPOP		(RequestType.KEY,			ResponseType.BULK),
 	RPOPLPUSH	(RequestType.KEY_KEY,		ResponseType.BULK),
+	BLPOP		(RequestType.MULTI_KEY,		ResponseType.MULTI_BULK, Flag.BLOCKING),
+	BRPOP		(RequestType.MULTI_KEY,		ResponseType.MULTI_BULK, Flag.BLOCKING),
+	BRPOPLPUSH	(RequestType.MULTI_KEY,		ResponseType.BULK, Flag.BLOCKING),
 	
 	// Commands operating on sets
 	SADD		(RequestType.KEY_VALUE,		ResponseType.BOOLEAN), 
 	SREM		(RequestType.KEY_VALUE,		ResponseType.BOOLEAN), 
-	SCARD		(RequestType.KEY,			ResponseType.NUMBER), 
-	SISMEMBER	(RequestType.KEY_VALUE,		ResponseType.BOOLEAN), 
-	SINTER		(RequestType.MULTI_KEY,		ResponseType.MULTI_BULK), 
+	SCARD		(RequestType.KEY,			ResponseType.NUMBER, Flag.READ_ONLY), 
+	SISMEMBER	(RequestType.KEY_VALUE,		ResponseType.BOOLEAN, Flag.READ_ONLY), 
+	SINTER		(RequestType.MULTI_KEY,		ResponseType.MULTI_BULK, Flag.READ_ONLY), 
 	SINTERSTORE (RequestType.MULTI_KEY,		ResponseType.STATUS),
-	SUNION		(RequestType.MULTI_KEY,		ResponseType.MULTI_BULK), 
+	SUNION		(RequestType.MULTI_KEY,		ResponseType.MULTI_BULK, Flag.READ_ONLY), 
 	SUNIONSTORE (RequestType.MULTI_KEY,		ResponseType.STATUS), 
-	SDIFF		(RequestType.MULTI_KEY,		ResponseType.MULTI_BULK), 
+	SDIFF		(RequestType.MULTI_KEY,		ResponseType.MULTI_BULK, Flag.READ_ONLY), 
 	SDIFFSTORE  (RequestType.MULTI_KEY,		ResponseType.STATUS),
-	SMEMBERS	(RequestType.KEY,			ResponseType.MULTI_BULK), 
+	SMEMBERS	(RequestType.KEY,			ResponseType.MULTI_BULK, Flag.READ_ONLY), 
 	SMOVE		(RequestType.KEY_KEY_VALUE,	ResponseType.BOOLEAN),
-	SRANDMEMBER (RequestType.KEY,  			ResponseType.BULK),
+	SRANDMEMBER (RequestType.KEY,  			ResponseType.BULK, Flag.READ_ONLY),
 	SPOP 		(RequestType.KEY,  			ResponseType.BULK),
 	
+	// Commands operating on hashes
+	HSET		(RequestType.KEY_BULK_ARGS,	ResponseType.BOOLEAN),
+	HGET		(RequestType.KEY_BULK_ARGS,	ResponseType.BULK, Flag.READ_ONLY),
+	HMSET		(RequestType.KEY_BULK_ARGS,	ResponseType.STATUS),
+	HMGET		(RequestType.KEY_BULK_ARGS,	ResponseType.MULTI_BULK, Flag.READ_ONLY),
+	HGETALL		(RequestType.KEY_BULK_ARGS,	ResponseType.MULTI_BULK, Flag.READ_ONLY),
+	HINCRBY		(RequestType.KEY_BULK_ARGS,	ResponseType.NUMBER),
+	HDEL		(RequestType.KEY_BULK_ARGS,	ResponseType.BOOLEAN),
+	
 	// Commands operating on sorted sets
 	ZADD		(RequestType.KEY_IDX_VALUE,	ResponseType.BOOLEAN), 
 	ZREM		(RequestType.KEY_VALUE,		ResponseType.BOOLEAN),
-	ZCARD		(RequestType.KEY,			ResponseType.NUMBER), 
-	ZSCORE		(RequestType.KEY_VALUE,		ResponseType.BULK),
-	ZRANGE		(RequestType.KEY_NUM_NUM,	ResponseType.MULTI_BULK),
-	ZCOUNT    (RequestType.KEY_NUM_NUM, ResponseType.NUMBER),	
-	ZRANGE$OPTS			(RequestType.KEY_NUM_NUM_OPTS,	ResponseType.MULTI_BULK),
-	ZREVRANGE			(RequestType.KEY_NUM_NUM,		ResponseType.MULTI_BULK),
-	ZREVRANGE$OPTS		(RequestType.KEY_NUM_NUM_OPTS,	ResponseType.MULTI_BULK),
+	ZCARD		(RequestType.KEY,			ResponseType.NUMBER, Flag.READ_ONLY), 
+	ZSCORE		(RequestType.KEY_VALUE,		ResponseType.BULK, Flag.READ_ONLY),
+	ZRANGE		(RequestType.KEY_NUM_NUM,	ResponseType.MULTI_BULK, Flag.READ_ONLY),
+	ZCOUNT    (RequestType.KEY_NUM_NUM, ResponseType.NUMBER, Flag.READ_ONLY),	
+	ZRANGE$OPTS			(RequestType.KEY_NUM_NUM_OPTS,	ResponseType.MULTI_BULK, Flag.READ_ONLY),
+	ZREVRANGE			(RequestType.KEY_NUM_NUM,		ResponseType.MULTI_BULK, Flag.READ_ONLY),
+	ZREVRANGE$OPTS		(RequestType.KEY_NUM_NUM_OPTS,	ResponseType.MULTI_BULK, Flag.READ_ONLY),
 	ZINCRBY				(RequestType.KEY_IDX_VALUE, 	ResponseType.BULK),
-	ZRANGEBYSCORE		(RequestType.KEY_NUM_NUM,		ResponseType.MULTI_BULK),
-	ZRANGEBYSCORE$OPTS	(RequestType.KEY_NUM_NUM_OPTS,	ResponseType.MULTI_BULK),
+	ZRANGEBYSCORE		(RequestType.KEY_NUM_NUM,		ResponseType.MULTI_BULK, Flag.READ_ONLY),
+	ZRANGEBYSCORE$OPTS	(RequestType.KEY_NUM_NUM_OPTS,	ResponseType.MULTI_BULK, Flag.READ_ONLY),
 	ZREMRANGEBYSCORE	(RequestType.KEY_NUM_NUM,		ResponseType.NUMBER),
 		
 	
 	// "Multiple databases handling commands"
-	SELECT		(RequestType.KEY,			ResponseType.STATUS),
+	SELECT		(RequestType.KEY,			ResponseType.STATUS, Flag.CONNECTION),
 	FLUSHDB		(RequestType.NO_ARG,		ResponseType.STATUS), 
 	FLUSHALL	(RequestType.NO_ARG,		ResponseType.STATUS),
 	MOVE		(RequestType.KEY_NUM,		ResponseType.BOOLEAN),
 	
 	// Sorting
-	SORT		(RequestType.KEY_SPEC,		ResponseType.MULTI_BULK),
+	SORT		(RequestType.KEY_BULK_ARGS,	ResponseType.MULTI_BULK),
+	SORT$STORE	(RequestType.KEY_BULK_ARGS,	ResponseType.NUMBER),
 	
 	// Persistence control commands
 	SAVE		(RequestType.NO_ARG,		ResponseType.STATUS), 
@@ -130,11 +159,11 @@ public enum Command {
 	SHUTDOWN	(RequestType.NO_ARG, 		ResponseType.VIRTUAL),
 
 	// Diagnostics commands
-	ECHO		(RequestType.VALUE, 		ResponseType.BULK), 
+	ECHO		(RequestType.VALUE, 		ResponseType.BULK, Flag.CONNECTION), 
 	DEBUG		(RequestType.KEY_KEY, 		ResponseType.STRING), 
 	
 	// Remote server control commands
-	INFO		(RequestType.NO_ARG, 		ResponseType.BULK), 
+	INFO		(RequestType.NO_ARG, 		ResponseType.BULK, Flag.CONNECTION), 
 	MONITOR	    (RequestType.NO_ARG, 		ResponseType.VIRTUAL), 
 	SLAVEOF		(RequestType.KEY_KEY, 		ResponseType.STATUS);
 	
@@ -145,6 +174,7 @@ public enum Command {
 //	public final int arg_cnt;
 	public final RequestType requestType;
 	public final ResponseType responseType;
+	private final Set<Flag> flags;
 	
 	/**
 	 * Each enum member directly corresponds to a Redis command, per
@@ -152,11 +182,12 @@ public enum Command {
 	 * constructor params.
 	 * @param reqType the {@link RequestType} of the Command
 	 * @param respType the {@link ResponseType} of the Command
+	 * @param flags the (optional) {@link Flag}s qualifying the Command semantics
 	 */
-	Command (RequestType reqType, ResponseType respType) { 
+	Command (RequestType reqType, ResponseType respType, Flag...flags) { 
 		this.code = this.name(); 
 
-		if(code.indexOf("$OPT") > 0) 
+		if(code.indexOf('$') > 0) 
 			this.bytes = code.substring(0, code.indexOf('$')).getBytes();
 		else
 			this.bytes = code.getBytes();
@@ -164,13 +195,68 @@ public enum Command {
 //		this.length = code.length();
 		this.requestType = reqType;
 		this.responseType = respType;
+		this.flags = flags.length > 0 ? EnumSet.copyOf(Arrays.asList(flags)) : EnumSet.noneOf(Flag.class);
 //		this.arg_cnt = -1; // to raise exception -- make sure we don't miss any
 	}
 
+	/**
+	 * @param flag
+	 * @return true if the Command is qualified by the given {@link Flag}
+	 */
+	public boolean isA (Flag flag) {
+		return flags.contains(flag);
+	}
+	
+	/**
+	 * @return true if the Command is a {@link Flag#READ_ONLY} command.
+	 */
+	public boolean isReadOnly () {
+		return flags.contains(Flag.READ_ONLY);
+	}
+	
+	/**
+	 * @return true if the Command is {@link Flag#READ_ONLY} or {@link Flag#CONNECTION}, i.e. it may be
+	 * re-issued automatically on a re-established connection if its response was lost.  Writes are 
+	 * never replayed, as the writes of other clients in the interim would be overwritten (SET) or wiped 
+	 * (FLUSHDB).
+	 */
+	public boolean isReplayable () {
+		return flags.contains(Flag.READ_ONLY) || flags.contains(Flag.CONNECTION);
+	}
+	
+	/**
+	 * @return true if the Command is {@link Flag#BLOCKING}
+	 */
+	public boolean isBlocking () {
+		return flags.contains(Flag.BLOCKING);
+	}
+
 	// ------------------------------------------------------------------------
 	// Inner Types
 	// ------------------------------------------------------------------------
 
+	/**
+	 * Qualifiers of the {@link Command} semantics that are of interest to the
+	 * connectors, e.g. for routing requests in a cluster.
+	 */
+	public enum Flag {
+		/** 
+		 * Command reads from the data set and never modifies it.  Such commands may 
+		 * be serviced by a replica (slave) of the server.
+		 */
+		READ_ONLY,
+		/**
+		 * Command concerns the connection or the server, not the data set, e.g. PING or SELECT.  Such 
+		 * commands may be re-issued on a re-established connection.
+		 */
+		CONNECTION,
+		/**
+		 * Command may block the connection until data is available or its timeout elapses.  Such 
+		 * commands should not share a connection with other requests.
+		 */
+		BLOCKING
+	}
+
 	/**
 	 * Redis Command Options and modifiers
 	 * 
@@ -232,7 +318,11 @@ public enum Command {
     	/**  */
     	MULTI_KEY,
     	/**  */
-    	BULK_SET
+    	BULK_SET,
+    	/** a key followed by (binary safe) args -- written in the multi-bulk format */
+    	KEY_BULK_ARGS,
+    	/** (binary safe) args that do not include a key -- written in the multi-bulk format */
+    	BULK_ARGS
     }
 
     /**
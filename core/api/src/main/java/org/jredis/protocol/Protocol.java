@@ -16,6 +16,9 @@
 
 package org.jredis.protocol;
 
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.List;
 import org.jredis.ClientRuntimeException;
 import org.jredis.ProviderException;
 import org.jredis.connector.Message;
@@ -66,6 +69,32 @@ public interface Protocol {
 	 */
 	public Request createRequest (Command cmd, byte[]...args) throws ProviderException, IllegalArgumentException;
 
+	/**
+	 * Creates a request for a {@link Command} with a value argument that is transferred from the 
+	 * given channel as the request is written, without being buffered.  The value is the last
+	 * argument of the command.
+	 * @param cmd a command with a single key and value argument, e.g. {@link Command#SET}
+	 * @param value the channel the value is read from
+	 * @param length the length of the value
+	 * @param args the command's arguments, excluding the value
+	 * @return
+	 * @throws ProviderException
+	 * @throws IllegalArgumentException if the command does not take a key and value argument
+	 */
+	public Request createRequest (Command cmd, ReadableByteChannel value, long length, byte[]...args) throws ProviderException, IllegalArgumentException;
+
+	/**
+	 * Creates a request for a transaction block -- a MULTI, the given commands, and EXEC -- that 
+	 * is written in one go, without waiting for the replies to the queued commands.
+	 * @param cmds the transaction's commands
+	 * @param args the arguments of each command
+	 * @return
+	 * @throws ProviderException
+	 * @throws IllegalArgumentException if a command can not be queued in a transaction, e.g. {@link Command#QUIT}
+	 * @see Protocol#createTransactionResponse(List)
+	 */
+	public Request createTransactionRequest (List<Command> cmds, List<byte[][]> args) throws ProviderException, IllegalArgumentException;
+
 	/**
 	 * Creates a response object for the {@link Command} specified.  
 	 * <p><b>Note</b> that this {@link Response} object has not yet been read.
@@ -81,4 +110,38 @@ public interface Protocol {
 	 */
 	public Response createResponse (Command cmd) throws ProviderException, ClientRuntimeException ;
 
+	/**
+	 * Creates a {@link StreamingMultiBulkResponse} for the (multi-bulk) {@link Command} specified.
+	 * Reading the response only consumes the reply header -- the elements are read as the
+	 * response's stream is iterated, so the caller must not read further responses from the 
+	 * connection until the stream has been exhausted or closed.
+	 * 
+	 * @param cmd the {@link Command} that will be responded to.
+	 * @return the response object that is ready to be read from the network connection.
+	 * @throws IllegalArgumentException if the command's response is not a multi-bulk reply
+	 * @see StreamingMultiBulkResponse
+	 */
+	public StreamingMultiBulkResponse createStreamingResponse (Command cmd) throws ProviderException, IllegalArgumentException;
+
+	/**
+	 * Creates a {@link BulkTransferResponse} for the (bulk) {@link Command} specified.  Reading the
+	 * response writes the bulk data to the given channel as it is read from the connection.
+	 * 
+	 * @param cmd the {@link Command} that will be responded to.
+	 * @param sink the channel the bulk data is written to.
+	 * @return the response object that is ready to be read from the network connection.
+	 * @throws IllegalArgumentException if the command's response is not a bulk reply
+	 */
+	public BulkTransferResponse createTransferResponse (Command cmd, WritableByteChannel sink) throws ProviderException, IllegalArgumentException;
+
+	/**
+	 * Creates a {@link TransactionResponse} for a request created by {@link Protocol#createTransactionRequest(List, List)}.
+	 * Reading the response reads the replies to MULTI, each queued command, and EXEC, and decodes the
+	 * elements of the EXEC reply per the response type of their command.
+	 * 
+	 * @param cmds the transaction's commands
+	 * @return the response object that is ready to be read from the network connection.
+	 */
+	public TransactionResponse createTransactionResponse (List<Command> cmds) throws ProviderException;
+
 }
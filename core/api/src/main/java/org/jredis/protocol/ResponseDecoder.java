@@ -0,0 +1,40 @@
+/*
+ *   Copyright 2009-2010 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.jredis.protocol;
+
+/**
+ * Strategy for converting a (non-error) {@link Response} to the result type 
+ * of the request.  Asynchronous connections that support decoders convert
+ * the response once, on the thread that reads the response, so that the pending 
+ * result can be returned directly to the caller.
+ * <p>
+ * Implementations must be stateless (or thread-safe) as a single instance is 
+ * shared by all requests of a given result type.
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, Apr 15, 2010
+ * @since   alpha.0
+ * 
+ */
+public interface ResponseDecoder<T> {
+	/**
+	 * @param response a non-error response.
+	 * @return the result
+	 * @throws ClassCastException if the response is not of the expected type
+	 */
+	public T decode (Response response) throws ClassCastException;
+}
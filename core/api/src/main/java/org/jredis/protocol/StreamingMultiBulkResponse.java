@@ -0,0 +1,36 @@
+/*
+ *   Copyright 2009 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+
+package org.jredis.protocol;
+
+import org.jredis.ResultStream;
+
+/**
+ * A multi-bulk response that is read incrementally -- reading the response only 
+ * consumes the reply header and the elements are read as the {@link ResultStream}
+ * is iterated.
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @since   alpha.0
+ * @see Protocol#createStreamingResponse(Command)
+ */
+public interface StreamingMultiBulkResponse extends Response {
+	/**
+	 * @return the stream of the reply's elements.  
+	 */
+	public ResultStream<byte[]> getMultiBulkStream ();
+}
@@ -0,0 +1,37 @@
+/*
+ *   Copyright 2009 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+
+package org.jredis.protocol;
+
+import java.util.List;
+
+/**
+ * The response to a transaction request -- the MULTI, queued commands, and EXEC of a
+ * transaction block, sent back to back.  The response status is that of the EXEC command:
+ * it is an error if the transaction was not executed.
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @since   alpha.0
+ * @see Protocol#createTransactionResponse(List)
+ */
+public interface TransactionResponse extends Response {
+	/**
+	 * @return the (read) responses of the transaction's commands, in order.  A command that
+	 * was rejected when queued has its error response.
+	 */
+	public List<Response> getResponses ();
+}
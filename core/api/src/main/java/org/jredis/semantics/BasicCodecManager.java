@@ -16,17 +16,22 @@
 
 package org.jredis.semantics;
 
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import org.jredis.Codec;
 
+/**
+ * A thread-safe {@link CodecManager}.  The first codec registered for a type is retained.
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, Apr 14, 2009
+ * @since   alpha.0
+ * 
+ */
 // REFACTOR: this doesn't belong here
 //
 public final class BasicCodecManager implements CodecManager {
-	Map<Class<?>, Codec<?>> map;
-	public void foo () {
-		Codec<String>  stringCodec = null;
-		map.put(String.class, stringCodec);
-	}
+	final ConcurrentMap<Class<?>, Codec<?>> map = new ConcurrentHashMap<Class<?>, Codec<?>>();
 
 	@SuppressWarnings("unchecked")
 //	@Override
@@ -36,15 +41,10 @@ public final class BasicCodecManager implements CodecManager {
 
 //	@Override
 	public <T> boolean register(Codec<T> code, Class<T> type) {
-		// 1 - does it exist?
-		boolean registered = false;
-		Codec<?>	existing = map.get(type);
-		if(null == existing){
-			if (code.supports(type)){
-				map.put(type, code);
-				registered = true;
-			}
-		}
-		return registered;
+		// 1 - does it support the type?
+		if(!code.supports(type))
+			return false;
+		// 2 - does it exist?
+		return null == map.putIfAbsent(type, code);
 	}
 }
\ No newline at end of file
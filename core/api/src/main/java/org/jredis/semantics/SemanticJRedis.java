@@ -24,6 +24,9 @@ import org.jredis.RedisException;
 import org.jredis.RedisType;
 
 /**
+ * Typed access to the values of Redis: values are (en/de)coded by the {@link org.jredis.Codec} 
+ * registered for the semantic type <code>T</code>.
+ * <p>
  * This interface is certainly optional, and as of now simply an idea
  * that needed to be put in place for review and feedback.
  * 
@@ -47,16 +50,17 @@ extends CodecManager {
 	// Security and User Management
 	// ------------------------------------------------------------------------
 
-	/**
-	 * Required for authorizing access to the server.  This method implements
-	 * the AUTH command.  It may be used with a non-secured server without
-	 * any side effect.
-	 * 
-	 * @param authorization key as defined in the server.
-	 * @throws RedisException if the server is in secure more and the 
-	 * authorization provided 
-	 */
-	public JRedis auth (String authorization) throws RedisException;
+	// authorization is per the ConnectionSpec of the underlying JRedis
+//	/**
+//	 * Required for authorizing access to the server.  This method implements
+//	 * the AUTH command.  It may be used with a non-secured server without
+//	 * any side effect.
+//	 * 
+//	 * @param authorization key as defined in the server.
+//	 * @throws RedisException if the server is in secure more and the 
+//	 * authorization provided 
+//	 */
+//	public JRedis auth (String authorization) throws RedisException;
 
 	// ------------------------------------------------------------------------
 	// "Connection Handling"
@@ -99,7 +103,7 @@ extends CodecManager {
 	public List<String> keys () throws RedisException;
 	public List<String> keys (String pattern) throws RedisException;
 	public String randomkey() throws RedisException;
-	public String rename (String oldkey, String newkey) throws RedisException;
+	public void rename (String oldkey, String newkey) throws RedisException;
 	public boolean renamenx (String oldkey, String brandnewkey) throws RedisException;
 	public long dbsize () throws RedisException;
 	public boolean expire (String key, int ttlseconds) throws RedisException; 
@@ -134,7 +138,7 @@ extends CodecManager {
 	// Multiple databases handling commands
 	// ------------------------------------------------------------------------
 
-	public JRedis select (int index) throws RedisException;
+//	public JRedis select (int index) throws RedisException;
 	public JRedis flushdb () throws RedisException;
 	public JRedis flushall () throws RedisException;
 	public boolean move (String key, int dbIndex) throws RedisException;
@@ -152,7 +156,7 @@ extends CodecManager {
 	public void save() throws RedisException;
 	public void bgsave () throws RedisException;
 	public long lastsave () throws RedisException;
-	public void shutdown () throws RedisException;
+//	public void shutdown () throws RedisException;
 
 	//------------------------------------------------------------------------
 	//Remote server control commands
@@ -0,0 +1,139 @@
+/*
+ *   Copyright 2009 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+
+package org.jredis.semantics;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+import org.jredis.JRedisFuture;
+import org.jredis.RedisType;
+import org.jredis.protocol.ResponseStatus;
+
+/**
+ * The asynchronous peer of {@link SemanticJRedis}: typed access to the values of Redis over a
+ * {@link JRedisFuture}, with values (en/de)coded by the {@link org.jredis.Codec} registered for 
+ * the semantic type <code>T</code>.  Results are decoded on {@link Future#get()}, on the 
+ * caller's thread.
+ * 
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, May 20, 2010
+ * @since   alpha.0
+ * 
+ */
+
+public interface SemanticJRedisFuture <T> extends CodecManager {
+
+	// ------------------------------------------------------------------------
+	// "Connection Handling"
+	// ------------------------------------------------------------------------
+
+	public Future<ResponseStatus> ping ();
+	public Future<ResponseStatus> quit ();
+
+	// ------------------------------------------------------------------------
+	// "Commands operating on string values"
+	// ------------------------------------------------------------------------
+
+	public Future<ResponseStatus> set (String key, T value);
+
+	public Future<Boolean> setnx (String key, T value);
+
+	public Future<T> get (String key);
+
+	public Future<List<T>> mget(String key, String...moreKeys);
+
+	public Future<Long> incr (String key);
+	public Future<Long> incrby (String key, int delta);
+	public Future<Long> decr (String key);
+	public Future<Long> decrby (String key, int delta);
+
+	public Future<Boolean> exists(String key);
+	public Future<Long> del (String key);
+	public Future<RedisType> type (String key);
+
+	// ------------------------------------------------------------------------
+	// "Commands operating on the key space"
+	// ------------------------------------------------------------------------
+
+	public Future<List<String>> keys ();
+	public Future<List<String>> keys (String pattern);
+	public Future<String> randomkey();
+	public Future<ResponseStatus> rename (String oldkey, String newkey);
+	public Future<Boolean> renamenx (String oldkey, String brandnewkey);
+	public Future<Long> dbsize ();
+	public Future<Boolean> expire (String key, int ttlseconds); 
+	
+	// ------------------------------------------------------------------------
+	// Commands operating on lists
+	// ------------------------------------------------------------------------
+
+	public Future<ResponseStatus> rpush (String listkey, T value);
+	public Future<ResponseStatus> lpush (String listkey, T value);
+	public Future<ResponseStatus> lset (String key, long index, T value);
+	public Future<Long> lrem (String listKey, T value, int count);
+	public Future<Long> llen (String listkey);
+	public Future<List<T>> lrange (String listkey, long from, long to); 
+	public Future<ResponseStatus> ltrim (String listkey, long keepFrom, long keepTo);
+	public Future<T> lindex (String listkey, long index);
+	public Future<T> lpop (String listKey);
+	public Future<T> rpop (String listKey);
+
+	// ------------------------------------------------------------------------
+	// Commands operating on sets
+	// ------------------------------------------------------------------------
+
+	public Future<Boolean> sadd (String setkey, T member);
+	public Future<Boolean> srem (String setKey, T member);
+	public Future<Boolean> sismember (String setKey, T member);
+	public Future<Long> scard (String setKey);	
+	public Future<List<T>> sinter (String set1, String...sets);
+	public Future<ResponseStatus> sinterstore (String destSetKey, String...sets);
+	public Future<List<T>> smembers (String setkey);
+
+	// ------------------------------------------------------------------------
+	// Multiple databases handling commands
+	// ------------------------------------------------------------------------
+
+	public Future<ResponseStatus> flushdb ();
+	public Future<ResponseStatus> flushall ();
+	public Future<Boolean> move (String key, int dbIndex);
+
+	// ------------------------------------------------------------------------
+	// Sorting
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Note that only the asynchronous exec methods of the sort are supported, e.g. 
+	 * {@link SemanticSort#execDecodedAsynch()}.
+	 */
+	public SemanticSort<T> sort(String key);
+
+	// ------------------------------------------------------------------------
+	// Persistence control commands
+	// ------------------------------------------------------------------------
+
+	public Future<ResponseStatus> save();
+	public Future<ResponseStatus> bgsave ();
+	public Future<Long> lastsave ();
+
+	//------------------------------------------------------------------------
+	//Remote server control commands
+	//------------------------------------------------------------------------
+
+	public Future<Map<String, String>>	info ();
+}
@@ -16,10 +16,13 @@
 
 package org.jredis.semantics;
 
+import java.util.List;
+import java.util.concurrent.Future;
+import org.jredis.RedisException;
 import org.jredis.Sort;
 
 /**
- * [TODO: document me!]
+ * A {@link Sort} whose results are decoded to the semantic type <code>T</code>.
  *
  * @author  Joubin Houshyar (alphazero@sensesay.net)
  * @version alpha.0, Apr 14, 2009
@@ -28,5 +31,27 @@ import org.jredis.Sort;
  */
 
 public interface SemanticSort <T> extends Sort {
-
+	SemanticSort<T> BY    (String pattern);
+	SemanticSort<T> GET   (String pattern);
+	SemanticSort<T> LIMIT (long from, long count);
+	SemanticSort<T> DESC  ();
+	SemanticSort<T> ALPHA ();
+	SemanticSort<T> STORE (String destKey);
+	SemanticSort<T> forKey (String key);
+	
+	/**
+	 * Executes the sort.
+	 * @return the results, decoded to <code>T</code>
+	 * @throws IllegalStateException
+	 * @throws RedisException
+	 * @see Sort#exec()
+	 */
+	public List<T> execDecoded () throws IllegalStateException, RedisException;
+	
+	/**
+	 * Executes the sort asynchronously.
+	 * @return the future results, decoded to <code>T</code> on {@link Future#get()}
+	 * @see Sort#execAsynch()
+	 */
+	public Future<List<T>> execDecodedAsynch ();
 }
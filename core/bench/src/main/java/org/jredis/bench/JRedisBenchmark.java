@@ -17,6 +17,7 @@
 package org.jredis.bench;
 
 import static org.jredis.bench.Util.getRandomString;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
@@ -26,6 +27,7 @@ import org.jredis.ClientRuntimeException;
 import org.jredis.JRedis;
 import org.jredis.RedisException;
 import org.jredis.bench.Util.Timer;
+import org.jredis.fake.FakeRedisServer;
 import org.jredis.protocol.Command;
 import org.jredis.ri.alphazero.connection.SocketConnection;
 
@@ -33,6 +35,10 @@ import org.jredis.ri.alphazero.connection.SocketConnection;
 /**
  * Runs a few benchmarks for the {@link SocketConnection}, using a concurrent set of workers, each with its own
  * unique connection to the Redis server.  
+ * <p>
+ * These are closed loop, uniform key, fixed value runs of single commands.  For benchmarks that model 
+ * real traffic -- operation mixes, skewed key access, value size distributions, open loop arrival rates
+ * and latency percentiles -- see {@link org.jredis.bench.workload.WorkloadRunner}.
  *  
  * @author Joubin Houshyar (alphazero@sensesay.net)
  */
@@ -40,6 +46,12 @@ public abstract class JRedisBenchmark {
 	
 	/** password used to AUTH with redis select -- password is: jredis */
 	public static final String password = "jredis";
+	
+	/** 
+	 * benchmarks given this host name are run against an in-process {@link FakeRedisServer} 
+	 * -- useful for measuring the client side overhead, reproducibly, anywhere. 
+	 */
+	public static final String FAKE_HOST = "fake";
 
 	// ------------------------------------------------------------------------
 	// Helper methods
@@ -60,6 +72,20 @@ public abstract class JRedisBenchmark {
      * @param b
      */
     protected void quitOnRunEnd (boolean flag) { this.quitOnRunEnd = flag; }
+	/**
+	 * Starts an in-process {@link FakeRedisServer} (on a daemon thread) on an ephemeral
+	 * port, for benchmarking the client side without a redis server.
+	 * @return the port of the server
+	 * @see JRedisBenchmark#FAKE_HOST
+	 */
+	protected static int startFakeServer () {
+		try {
+			return new FakeRedisServer().setPassword(password).start().getPort();
+		}
+		catch (IOException e) {
+			throw new RuntimeException("Failed to start the fake redis server", e);
+		}
+	}
 	// ------------------------------------------------------------------------
 	// Extension Points
 	// ------------------------------------------------------------------------
@@ -665,7 +691,7 @@ public abstract class JRedisBenchmark {
 		public void run() {
 			try {
 
-				jredis = newConnection (host, 6379, db, password);
+				jredis = newConnection (host, port, db, password);
 				try {
 //					jredis.auth (password).select(db).flushdb();
 					jredis.flushdb();
@@ -0,0 +1,36 @@
+/*
+ *   Copyright 2009 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+
+package org.jredis.bench.workload;
+
+import java.util.Random;
+
+/**
+ * A source of (non-negative) integral samples, e.g. key indexes or value sizes,
+ * drawn using the caller's {@link Random}.  Implementations are immutable and may 
+ * be shared by the workload's workers.
+ * 
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @see Distributions
+ */
+public interface Distribution {
+	/**
+	 * @param random the caller's (typically thread confined) generator
+	 * @return the next sample
+	 */
+	public long next (Random random);
+}
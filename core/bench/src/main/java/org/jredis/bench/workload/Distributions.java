@@ -0,0 +1,146 @@
+/*
+ *   Copyright 2009 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+
+package org.jredis.bench.workload;
+
+import java.util.Random;
+
+/**
+ * Factory for the standard {@link Distribution}s used to describe key access
+ * patterns and value sizes of a {@link Workload}.
+ * 
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ */
+public final class Distributions {
+	
+	private Distributions () {}
+	
+	// ------------------------------------------------------------------------
+	// Factory methods
+	// ------------------------------------------------------------------------
+	/** @return a distribution that always yields <code>value</code> */
+	public static Distribution fixed (long value) {
+		if(value < 0) throw new IllegalArgumentException("value must be non-negative: " + value);
+		return new Fixed(value);
+	}
+	/** @return a uniform distribution over <code>[min, max]</code> */
+	public static Distribution uniform (long min, long max) {
+		if(min < 0 || max < min) throw new IllegalArgumentException("invalid range: [" + min + ", " + max + "]");
+		return new Uniform(min, max);
+	}
+	/**
+	 * @param n size of the population -- samples are in <code>[0, n)</code>
+	 * @param theta skew, in (0, 1) -- 0.99 is the customary value
+	 * @return a zipfian distribution, with index 0 the most popular
+	 */
+	public static Distribution zipfian (long n, double theta) {
+		if(n < 1) throw new IllegalArgumentException("population must be positive: " + n);
+		if(theta <= 0 || theta >= 1) throw new IllegalArgumentException("theta must be in (0, 1): " + theta);
+		return new Zipfian(n, theta);
+	}
+	/**
+	 * @param n size of the population -- samples are in <code>[0, n)</code>
+	 * @param hotSetFraction fraction of the population that is hot, e.g. 0.2
+	 * @param hotOpFraction fraction of the samples drawn from the hot set, e.g. 0.8
+	 * @return a distribution that is uniform within the hot and the cold sets
+	 */
+	public static Distribution hotspot (long n, double hotSetFraction, double hotOpFraction) {
+		if(n < 1) throw new IllegalArgumentException("population must be positive: " + n);
+		if(hotSetFraction <= 0 || hotSetFraction > 1) throw new IllegalArgumentException("hotSetFraction must be in (0, 1]: " + hotSetFraction);
+		if(hotOpFraction < 0 || hotOpFraction > 1) throw new IllegalArgumentException("hotOpFraction must be in [0, 1]: " + hotOpFraction);
+		return new Hotspot(n, hotSetFraction, hotOpFraction);
+	}
+	
+	// ------------------------------------------------------------------------
+	// Inner types
+	// ------------------------------------------------------------------------
+	static final class Fixed implements Distribution {
+		final long value;
+		Fixed (long value) { this.value = value; }
+		public long next (Random random) { return value; }
+		@Override public String toString() { return "fixed:" + value; }
+	}
+	
+	static final class Uniform implements Distribution {
+		final long min;
+		final long range;
+		Uniform (long min, long max) { this.min = min; this.range = max - min + 1; }
+		public long next (Random random) { return min + nextLong(random, range); }
+		@Override public String toString() { return "uniform:" + min + ":" + (min + range - 1); }
+	}
+	
+	/**
+	 * Per Gray et al., "Quickly Generating Billion-Record Synthetic Databases" -- 
+	 * the zeta constant is computed once (in O(n)) on construction.
+	 */
+	static final class Zipfian implements Distribution {
+		final long   n;
+		final double theta;
+		final double zetan;
+		final double alpha;
+		final double eta;
+		final double halfPowTheta;
+		Zipfian (long n, double theta) {
+			this.n = n;
+			this.theta = theta;
+			this.zetan = zeta(n, theta);
+			this.alpha = 1.0 / (1.0 - theta);
+			this.eta = (1 - Math.pow(2.0 / n, 1 - theta)) / (1 - zeta(2, theta) / zetan);
+			this.halfPowTheta = 1.0 + Math.pow(0.5, theta);
+		}
+		public long next (Random random) {
+			double u = random.nextDouble();
+			double uz = u * zetan;
+			if(uz < 1.0) return 0;
+			if(uz < halfPowTheta) return n > 1 ? 1 : 0;
+			long v = (long) (n * Math.pow(eta * u - eta + 1, alpha));
+			return v < n ? v : n - 1;
+		}
+		private static double zeta (long n, double theta) {
+			double sum = 0;
+			for(long i=1; i<=n; i++) sum += 1 / Math.pow(i, theta);
+			return sum;
+		}
+		@Override public String toString() { return "zipfian:" + n + ":" + theta; }
+	}
+	
+	static final class Hotspot implements Distribution {
+		final long   n;
+		final long   hotCnt;
+		final double hotOpFraction;
+		final double hotSetFraction;
+		Hotspot (long n, double hotSetFraction, double hotOpFraction) {
+			this.n = n;
+			this.hotCnt = Math.max(1, (long) (n * hotSetFraction));
+			this.hotSetFraction = hotSetFraction;
+			this.hotOpFraction = hotOpFraction;
+		}
+		public long next (Random random) {
+			if(hotCnt == n || random.nextDouble() < hotOpFraction)
+				return nextLong(random, hotCnt);
+			return hotCnt + nextLong(random, n - hotCnt);
+		}
+		@Override public String toString() { return "hotspot:" + n + ":" + hotSetFraction + ":" + hotOpFraction; }
+	}
+	
+	/** @return uniform sample in [0, bound) */
+	static long nextLong (Random random, long bound) {
+		if(bound <= Integer.MAX_VALUE) return random.nextInt((int) bound);
+		long r = random.nextLong() % bound;
+		return r < 0 ? r + bound : r;
+	}
+}
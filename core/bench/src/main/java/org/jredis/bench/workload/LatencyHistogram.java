@@ -0,0 +1,124 @@
+/*
+ *   Copyright 2009 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+
+package org.jredis.bench.workload;
+
+/**
+ * A log-linear histogram of latencies with microsecond resolution and (at most) 1/64 
+ * relative error, in fixed space regardless of the number of recorded values.  
+ * <p>
+ * Values below 128us are recorded exactly.  Larger values fall in buckets of 64 sub-buckets
+ * per power of 2, and are reported as the upper bound of their sub-bucket.  
+ * <p>
+ * Not thread-safe: each worker records to its own histogram and these are 
+ * {@link LatencyHistogram#add(LatencyHistogram) merged} for the report.
+ * 
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ */
+public final class LatencyHistogram {
+	
+	// ------------------------------------------------------------------------
+	// Consts
+	// ------------------------------------------------------------------------
+	private static final int LINEAR_BITS = 7;
+	private static final int LINEAR_CNT = 1 << LINEAR_BITS;
+	private static final int SUB_BITS = LINEAR_BITS - 1;
+	private static final int SUB_CNT = 1 << SUB_BITS;
+	private static final int BUCKET_CNT = LINEAR_CNT + (64 - LINEAR_BITS) * SUB_CNT;
+	
+	// ------------------------------------------------------------------------
+	// Properties
+	// ------------------------------------------------------------------------
+	private final long[] counts = new long[BUCKET_CNT];
+	private long count = 0;
+	private long sum = 0;
+	private long min = Long.MAX_VALUE;
+	private long max = 0;
+	
+	// ------------------------------------------------------------------------
+	// Interface
+	// ------------------------------------------------------------------------
+	/** @param nanos latency in nanoseconds -- negatives are recorded as 0 */
+	public void recordNanos (long nanos) {
+		record(nanos > 0 ? nanos / 1000 : 0);
+	}
+	
+	/** @param micros latency in microseconds */
+	public void record (long micros) {
+		if(micros < 0) micros = 0;
+		counts[indexOf(micros)]++;
+		count++;
+		sum += micros;
+		if(micros < min) min = micros;
+		if(micros > max) max = micros;
+	}
+	
+	/** Adds the other histogram's values to this histogram */
+	public void add (LatencyHistogram other) {
+		for(int i=0; i<BUCKET_CNT; i++) counts[i] += other.counts[i];
+		count += other.count;
+		sum += other.sum;
+		if(other.min < min) min = other.min;
+		if(other.max > max) max = other.max;
+	}
+	
+	public long getCount () { return count; }
+	
+	/** @return minimum in microseconds, 0 if empty */
+	public long getMin () { return count > 0 ? min : 0; }
+	
+	/** @return maximum in microseconds (exact) */
+	public long getMax () { return max; }
+	
+	/** @return mean in microseconds */
+	public double getMean () { return count > 0 ? sum / (double) count : 0; }
+	
+	/**
+	 * @param percentile in [0, 100]
+	 * @return the value in microseconds that <code>percentile</code> of the recorded values
+	 * do not exceed -- 0 if empty
+	 */
+	public long getPercentile (double percentile) {
+		if(percentile < 0 || percentile > 100) throw new IllegalArgumentException("percentile must be in [0, 100]: " + percentile);
+		if(count == 0) return 0;
+		long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+		long seen = 0;
+		for(int i=0; i<BUCKET_CNT; i++){
+			seen += counts[i];
+			if(seen >= rank) return Math.min(upperBoundOf(i), max);
+		}
+		return max;
+	}
+	
+	// ------------------------------------------------------------------------
+	// Inner ops
+	// ------------------------------------------------------------------------
+	static int indexOf (long v) {
+		if(v < LINEAR_CNT) return (int) v;
+		int magnitude = 63 - Long.numberOfLeadingZeros(v);
+		int shift = magnitude - SUB_BITS;
+		int sub = (int) (v >>> shift) - SUB_CNT;
+		return LINEAR_CNT + (shift - 1) * SUB_CNT + sub;
+	}
+	
+	static long upperBoundOf (int index) {
+		if(index < LINEAR_CNT) return index;
+		int shift = (index - LINEAR_CNT) / SUB_CNT + 1;
+		long sub = (index - LINEAR_CNT) % SUB_CNT + SUB_CNT;
+		return ((sub + 1) << shift) - 1;
+	}
+}
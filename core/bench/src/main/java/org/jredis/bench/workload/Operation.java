@@ -0,0 +1,131 @@
+/*
+ *   Copyright 2009 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+
+package org.jredis.bench.workload;
+
+import java.util.concurrent.Future;
+import org.jredis.JRedis;
+import org.jredis.JRedisFuture;
+import org.jredis.RedisException;
+
+/**
+ * The operations a {@link Workload} mix is composed of.  Each operation works on keys in
+ * its own namespace (per its {@link Operation#keyPrefix}) so that a mix never results in
+ * type errors -- e.g. INCR and SET do not share keys.  Collection members are the generated 
+ * values.
+ * 
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ */
+public enum Operation {
+	PING	(false, "") {
+		void execute (JRedis redis, String key, byte[] value) throws RedisException { redis.ping(); }
+		Future<?> queue (JRedisFuture redis, String key, byte[] value) { return redis.ping(); }
+	},
+	GET		(false, "str:") {
+		void execute (JRedis redis, String key, byte[] value) throws RedisException { redis.get(key); }
+		Future<?> queue (JRedisFuture redis, String key, byte[] value) { return redis.get(key); }
+	},
+	SET		(true, "str:") {
+		void execute (JRedis redis, String key, byte[] value) throws RedisException { redis.set(key, value); }
+		Future<?> queue (JRedisFuture redis, String key, byte[] value) { return redis.set(key, value); }
+	},
+	SETNX	(true, "str:") {
+		void execute (JRedis redis, String key, byte[] value) throws RedisException { redis.setnx(key, value); }
+		Future<?> queue (JRedisFuture redis, String key, byte[] value) { return redis.setnx(key, value); }
+	},
+	EXISTS	(false, "str:") {
+		void execute (JRedis redis, String key, byte[] value) throws RedisException { redis.exists(key); }
+		Future<?> queue (JRedisFuture redis, String key, byte[] value) { return redis.exists(key); }
+	},
+	DEL		(true, "str:") {
+		void execute (JRedis redis, String key, byte[] value) throws RedisException { redis.del(key); }
+		Future<?> queue (JRedisFuture redis, String key, byte[] value) { return redis.del(key); }
+	},
+	INCR	(true, "counter:") {
+		void execute (JRedis redis, String key, byte[] value) throws RedisException { redis.incr(key); }
+		Future<?> queue (JRedisFuture redis, String key, byte[] value) { return redis.incr(key); }
+	},
+	LPUSH	(true, "list:") {
+		void execute (JRedis redis, String key, byte[] value) throws RedisException { redis.lpush(key, value); }
+		Future<?> queue (JRedisFuture redis, String key, byte[] value) { return redis.lpush(key, value); }
+	},
+	RPUSH	(true, "list:") {
+		void execute (JRedis redis, String key, byte[] value) throws RedisException { redis.rpush(key, value); }
+		Future<?> queue (JRedisFuture redis, String key, byte[] value) { return redis.rpush(key, value); }
+	},
+	LPOP	(true, "list:") {
+		void execute (JRedis redis, String key, byte[] value) throws RedisException { redis.lpop(key); }
+		Future<?> queue (JRedisFuture redis, String key, byte[] value) { return redis.lpop(key); }
+	},
+	LLEN	(false, "list:") {
+		void execute (JRedis redis, String key, byte[] value) throws RedisException { redis.llen(key); }
+		Future<?> queue (JRedisFuture redis, String key, byte[] value) { return redis.llen(key); }
+	},
+	LRANGE	(false, "list:") {
+		void execute (JRedis redis, String key, byte[] value) throws RedisException { redis.lrange(key, 0, 9); }
+		Future<?> queue (JRedisFuture redis, String key, byte[] value) { return redis.lrange(key, 0, 9); }
+	},
+	SADD	(true, "set:") {
+		void execute (JRedis redis, String key, byte[] value) throws RedisException { redis.sadd(key, value); }
+		Future<?> queue (JRedisFuture redis, String key, byte[] value) { return redis.sadd(key, value); }
+	},
+	SREM	(true, "set:") {
+		void execute (JRedis redis, String key, byte[] value) throws RedisException { redis.srem(key, value); }
+		Future<?> queue (JRedisFuture redis, String key, byte[] value) { return redis.srem(key, value); }
+	},
+	SISMEMBER	(false, "set:") {
+		void execute (JRedis redis, String key, byte[] value) throws RedisException { redis.sismember(key, value); }
+		Future<?> queue (JRedisFuture redis, String key, byte[] value) { return redis.sismember(key, value); }
+	},
+	SCARD	(false, "set:") {
+		void execute (JRedis redis, String key, byte[] value) throws RedisException { redis.scard(key); }
+		Future<?> queue (JRedisFuture redis, String key, byte[] value) { return redis.scard(key); }
+	},
+	ZADD	(true, "zset:") {
+		void execute (JRedis redis, String key, byte[] value) throws RedisException { redis.zadd(key, value.length, value); }
+		Future<?> queue (JRedisFuture redis, String key, byte[] value) { return redis.zadd(key, value.length, value); }
+	},
+	ZINCRBY	(true, "zset:") {
+		void execute (JRedis redis, String key, byte[] value) throws RedisException { redis.zincrby(key, 1, value); }
+		Future<?> queue (JRedisFuture redis, String key, byte[] value) { return redis.zincrby(key, 1, value); }
+	},
+	ZSCORE	(false, "zset:") {
+		void execute (JRedis redis, String key, byte[] value) throws RedisException { redis.zscore(key, value); }
+		Future<?> queue (JRedisFuture redis, String key, byte[] value) { return redis.zscore(key, value); }
+	},
+	ZRANGE	(false, "zset:") {
+		void execute (JRedis redis, String key, byte[] value) throws RedisException { redis.zrange(key, 0, 9); }
+		Future<?> queue (JRedisFuture redis, String key, byte[] value) { return redis.zrange(key, 0, 9); }
+	};
+	
+	/** true if the operation modifies the dataset */
+	public final boolean isWrite;
+	
+	/** namespace of the keys of this operation */
+	public final String keyPrefix;
+	
+	Operation (boolean isWrite, String keyPrefix) {
+		this.isWrite = isWrite;
+		this.keyPrefix = keyPrefix;
+	}
+	
+	/** Executes the operation synchronously */
+	abstract void execute (JRedis redis, String key, byte[] value) throws RedisException;
+	
+	/** Queues the operation -- the returned future completes with the response */
+	abstract Future<?> queue (JRedisFuture redis, String key, byte[] value);
+}
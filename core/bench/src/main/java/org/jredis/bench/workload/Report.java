@@ -0,0 +1,217 @@
+/*
+ *   Copyright 2009 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+
+package org.jredis.bench.workload;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The results of a {@link WorkloadRunner} run, per operation and in total, in machine
+ * readable (JSON or CSV) form.  
+ * <p>
+ * All latencies are in microseconds.  The <code>latency</code> of a request is measured from
+ * its scheduled send time, and the <code>service</code> time from its actual send time -- these 
+ * differ only for open loop workloads, when the target falls behind the offered load.
+ * 
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ */
+public final class Report {
+	
+	/** percentiles reported */
+	private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+	private static final String[] PERCENTILE_NAMES = {"p50", "p90", "p99", "p999"};
+	
+	// ------------------------------------------------------------------------
+	// Properties
+	// ------------------------------------------------------------------------
+	private final Workload workload;
+	private final String targetName;
+	private final long elapsedMillis;
+	private final Map<Operation, Stats> operations = new TreeMap<Operation, Stats>();
+	private final Stats total = new Stats();
+	
+	Report (Workload workload, String targetName, long elapsedMillis, Map<Operation, Stats> stats) {
+		this.workload = workload;
+		this.targetName = targetName;
+		this.elapsedMillis = elapsedMillis;
+		for(Map.Entry<Operation, Stats> e : stats.entrySet()){
+			operations.put(e.getKey(), e.getValue());
+			total.add(e.getValue());
+		}
+	}
+	
+	// ------------------------------------------------------------------------
+	// Accessors
+	// ------------------------------------------------------------------------
+	public Workload getWorkload () { return workload; }
+	public String getTargetName () { return targetName; }
+	public long getElapsedMillis () { return elapsedMillis; }
+	public Map<Operation, Stats> getOperations () { return operations; }
+	public Stats getTotal () { return total; }
+	
+	/** @return completed requests per second over the measured period */
+	public double getThroughput () { return throughput(total); }
+	
+	private double throughput (Stats stats) {
+		return elapsedMillis > 0 ? stats.getCount() * 1000.0 / elapsedMillis : 0;
+	}
+	
+	// ------------------------------------------------------------------------
+	// Formats
+	// ------------------------------------------------------------------------
+	/** @return the report as a JSON object */
+	public String toJson () {
+		StringBuilder b = new StringBuilder();
+		b.append("{\n");
+		b.append("  \"workload\": ").append(quote(workload.getName())).append(",\n");
+		b.append("  \"target\": ").append(quote(targetName)).append(",\n");
+		b.append("  \"openLoop\": ").append(workload.isOpenLoop()).append(",\n");
+		b.append("  \"rate\": ").append(number(workload.getRate())).append(",\n");
+		b.append("  \"workers\": ").append(workload.getWorkers()).append(",\n");
+		b.append("  \"keyCount\": ").append(workload.getKeyCount()).append(",\n");
+		b.append("  \"keyDistribution\": ").append(quote(String.valueOf(workload.getKeyDistribution()))).append(",\n");
+		b.append("  \"valueSize\": ").append(quote(String.valueOf(workload.getValueSize()))).append(",\n");
+		b.append("  \"mix\": {");
+		String sep = "";
+		for(Map.Entry<Operation, Integer> e : workload.getMix().entrySet()){
+			b.append(sep).append(quote(e.getKey().name())).append(": ").append(e.getValue());
+			sep = ", ";
+		}
+		b.append("},\n");
+		b.append("  \"elapsedMillis\": ").append(elapsedMillis).append(",\n");
+		b.append("  \"operations\": [\n");
+		sep = "";
+		for(Map.Entry<Operation, Stats> e : operations.entrySet()){
+			b.append(sep).append("    ");
+			appendJson(b, e.getKey().name(), e.getValue());
+			sep = ",\n";
+		}
+		b.append("\n  ],\n");
+		b.append("  \"total\": ");
+		appendJson(b, "ALL", total);
+		b.append("\n}\n");
+		return b.toString();
+	}
+	
+	private void appendJson (StringBuilder b, String op, Stats stats) {
+		b.append("{\"op\": ").append(quote(op));
+		b.append(", \"count\": ").append(stats.getCount());
+		b.append(", \"errors\": ").append(stats.getErrors());
+		b.append(", \"throughput\": ").append(number(throughput(stats)));
+		b.append(", \"latency\": ");
+		appendJson(b, stats.getLatency());
+		b.append(", \"service\": ");
+		appendJson(b, stats.getService());
+		b.append("}");
+	}
+	
+	private static void appendJson (StringBuilder b, LatencyHistogram h) {
+		b.append("{\"min\": ").append(h.getMin());
+		b.append(", \"mean\": ").append(number(h.getMean()));
+		for(int i=0; i<PERCENTILES.length; i++)
+			b.append(", \"").append(PERCENTILE_NAMES[i]).append("\": ").append(h.getPercentile(PERCENTILES[i]));
+		b.append(", \"max\": ").append(h.getMax()).append("}");
+	}
+	
+	/** @return the report as CSV, with a header line and a line per operation and the total */
+	public String toCsv () {
+		StringBuilder b = new StringBuilder();
+		b.append("workload,target,rate,workers,op,count,errors,throughput");
+		for(String kind : new String[]{"latency", "service"}) {
+			b.append(',').append(kind).append("_min,").append(kind).append("_mean");
+			for(String p : PERCENTILE_NAMES) b.append(',').append(kind).append('_').append(p);
+			b.append(',').append(kind).append("_max");
+		}
+		b.append('\n');
+		for(Map.Entry<Operation, Stats> e : operations.entrySet())
+			appendCsv(b, e.getKey().name(), e.getValue());
+		appendCsv(b, "ALL", total);
+		return b.toString();
+	}
+	
+	private void appendCsv (StringBuilder b, String op, Stats stats) {
+		b.append(csv(workload.getName())).append(',').append(csv(targetName)).append(',');
+		b.append(number(workload.getRate())).append(',').append(workload.getWorkers()).append(',');
+		b.append(op).append(',').append(stats.getCount()).append(',').append(stats.getErrors()).append(',');
+		b.append(number(throughput(stats)));
+		for(LatencyHistogram h : new LatencyHistogram[]{stats.getLatency(), stats.getService()}){
+			b.append(',').append(h.getMin()).append(',').append(number(h.getMean()));
+			for(double p : PERCENTILES) b.append(',').append(h.getPercentile(p));
+			b.append(',').append(h.getMax());
+		}
+		b.append('\n');
+	}
+	
+	private static String number (double v) {
+		return String.format(Locale.US, "%.2f", v);
+	}
+	
+	private static String quote (String s) {
+		StringBuilder b = new StringBuilder(s.length() + 2).append('"');
+		for(int i=0; i<s.length(); i++){
+			char c = s.charAt(i);
+			switch (c) {
+			case '"':  b.append("\\\""); break;
+			case '\\': b.append("\\\\"); break;
+			case '\n': b.append("\\n"); break;
+			case '\r': b.append("\\r"); break;
+			case '\t': b.append("\\t"); break;
+			default:
+				if(c < 0x20) b.append(String.format("\\u%04x", (int) c));
+				else b.append(c);
+			}
+		}
+		return b.append('"').toString();
+	}
+	
+	private static String csv (String s) {
+		if(s.indexOf(',') < 0 && s.indexOf('"') < 0 && s.indexOf('\n') < 0) return s;
+		return '"' + s.replace("\"", "\"\"") + '"';
+	}
+	
+	// ------------------------------------------------------------------------
+	// Inner types
+	// ------------------------------------------------------------------------
+	/**
+	 * Per operation results.
+	 */
+	public static final class Stats {
+		private final LatencyHistogram latency = new LatencyHistogram();
+		private final LatencyHistogram service = new LatencyHistogram();
+		private long errors = 0;
+		
+		void record (long scheduled, long sent, long done) {
+			latency.recordNanos(done - scheduled);
+			service.recordNanos(done - sent);
+		}
+		void error () { errors++; }
+		void add (Stats other) {
+			latency.add(other.latency);
+			service.add(other.service);
+			errors += other.errors;
+		}
+		/** @return number of successfully completed requests */
+		public long getCount () { return latency.getCount(); }
+		public long getErrors () { return errors; }
+		/** @return latencies measured from the scheduled send time */
+		public LatencyHistogram getLatency () { return latency; }
+		/** @return latencies measured from the actual send time */
+		public LatencyHistogram getService () { return service; }
+	}
+}
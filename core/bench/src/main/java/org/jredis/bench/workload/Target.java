@@ -0,0 +1,104 @@
+/*
+ *   Copyright 2009 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+
+package org.jredis.bench.workload;
+
+import org.jredis.JRedis;
+import org.jredis.JRedisFuture;
+
+/**
+ * The system under test of a {@link WorkloadRunner}.  Each worker obtains its own target 
+ * from the {@link Target.Factory} -- whether these are distinct connections or share
+ * a (thread-safe) client, e.g. a JRedisService or a pipeline, is up to the factory.
+ * <p>
+ * Adapters for {@link JRedis} and {@link JRedisFuture} providers are included, which 
+ * covers the single connection clients, the connection pooled services, the pipelines,
+ * and any other (e.g. cluster) provider of these interfaces.
+ * 
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ */
+public interface Target {
+	
+	/** @return the name used in the reports, e.g. the provider class name */
+	public String getName ();
+	
+	/**
+	 * Executes the operation and waits for its response.
+	 * @throws Exception on any error -- errors are counted and do not stop the run
+	 */
+	public void execute (Operation op, String key, byte[] value) throws Exception;
+	
+	/** Releases the target's resources at the end of the run */
+	public void close ();
+	
+	// ------------------------------------------------------------------------
+	// Inner types
+	// ------------------------------------------------------------------------
+	/**
+	 * Creates a target per worker.
+	 */
+	public interface Factory {
+		public Target newTarget ();
+	}
+	
+	/**
+	 * Adapts a {@link JRedis} provider.
+	 */
+	public static class ForJRedis implements Target {
+		final JRedis redis;
+		final String name;
+		final boolean quitOnClose;
+		/**
+		 * @param redis
+		 * @param quitOnClose use false if the provider is shared by workers
+		 */
+		public ForJRedis (JRedis redis, boolean quitOnClose) {
+			this.redis = redis;
+			this.name = redis.getClass().getName();
+			this.quitOnClose = quitOnClose;
+		}
+		public String getName () { return name; }
+		public void execute (Operation op, String key, byte[] value) throws Exception {
+			op.execute(redis, key, value);
+		}
+		public void close () { if(quitOnClose) redis.quit(); }
+	}
+	
+	/**
+	 * Adapts a {@link JRedisFuture} provider -- requests are issued asynchronously but
+	 * a worker awaits its response before issuing its next request.
+	 */
+	public static class ForJRedisFuture implements Target {
+		final JRedisFuture redis;
+		final String name;
+		final boolean quitOnClose;
+		/**
+		 * @param redis
+		 * @param quitOnClose use false if the provider is shared by workers
+		 */
+		public ForJRedisFuture (JRedisFuture redis, boolean quitOnClose) {
+			this.redis = redis;
+			this.name = redis.getClass().getName();
+			this.quitOnClose = quitOnClose;
+		}
+		public String getName () { return name; }
+		public void execute (Operation op, String key, byte[] value) throws Exception {
+			op.queue(redis, key, value).get();
+		}
+		public void close () { if(quitOnClose) redis.quit(); }
+	}
+}
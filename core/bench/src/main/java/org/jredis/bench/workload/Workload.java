@@ -0,0 +1,204 @@
+/*
+ *   Copyright 2009 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+
+package org.jredis.bench.workload;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Specification of a benchmark workload: the operation mix, the key access pattern,
+ * value sizes, the offered load and the run duration.  
+ * <p>
+ * A positive {@link Workload#setRate(double) rate} specifies an open loop workload: requests 
+ * are issued on schedule, regardless of the responsiveness of the target, and latencies are
+ * measured from the scheduled (and not the actual) send time so that stalls are not hidden by
+ * coordinated omission.  A rate of 0 (the default) specifies a closed loop, with each worker 
+ * issuing its next request as soon as the previous has completed.
+ * <p>
+ * Setters return the workload for chaining, e.g.
+ * <pre><code>
+ * new Workload("read-heavy").mix(Operation.GET, 90).mix(Operation.SET, 10)
+ *     .setKeyCount(100000).setKeyDistribution(Distributions.zipfian(100000, 0.99))
+ *     .setRate(20000).setDuration(30, TimeUnit.SECONDS);
+ * </code></pre>
+ * 
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @see WorkloadRunner
+ */
+public class Workload {
+	
+	// ------------------------------------------------------------------------
+	// Properties
+	// ------------------------------------------------------------------------
+	private final String name;
+	private final Map<Operation, Integer> mix = new LinkedHashMap<Operation, Integer>();
+	private long			keyCount = 10000;
+	private Distribution	keyDistribution = null;
+	private Distribution	valueSize = Distributions.fixed(128);
+	private double			rate = 0;
+	private int				workers = 10;
+	private long			durationMillis = 10000;
+	private long			warmupMillis = 2000;
+	private boolean			preload = true;
+	private long			seed = System.nanoTime();
+	
+	/** cumulative weights, per order of mix */
+	private volatile Operation[] ops;
+	private int[]			cumulative;
+	
+	// ------------------------------------------------------------------------
+	// Constructor
+	// ------------------------------------------------------------------------
+	public Workload (String name) {
+		if(name == null) throw new IllegalArgumentException("name is null");
+		this.name = name;
+	}
+	
+	// ------------------------------------------------------------------------
+	// Spec
+	// ------------------------------------------------------------------------
+	/**
+	 * Adds (or replaces) an operation in the mix.  Weights are relative.
+	 * @param op
+	 * @param weight non-negative -- a weight of 0 removes the operation
+	 * @return this
+	 */
+	public Workload mix (Operation op, int weight) {
+		if(op == null) throw new IllegalArgumentException("op is null");
+		if(weight < 0) throw new IllegalArgumentException("weight must be non-negative: " + weight);
+		if(weight == 0) mix.remove(op);
+		else mix.put(op, weight);
+		ops = null;
+		return this;
+	}
+	/** @param keyCount number of distinct keys (per operation namespace) */
+	public Workload setKeyCount (long keyCount) {
+		if(keyCount < 1) throw new IllegalArgumentException("keyCount must be positive: " + keyCount);
+		this.keyCount = keyCount;
+		return this;
+	}
+	/** @param keyDistribution yielding key indexes in [0, keyCount) -- uniform if not set */
+	public Workload setKeyDistribution (Distribution keyDistribution) {
+		this.keyDistribution = keyDistribution;
+		return this;
+	}
+	/** @param valueSize distribution of the size (in bytes) of values written */
+	public Workload setValueSize (Distribution valueSize) {
+		if(valueSize == null) throw new IllegalArgumentException("valueSize is null");
+		this.valueSize = valueSize;
+		return this;
+	}
+	/** @param rate total offered load in requests/sec -- 0 for a closed loop */
+	public Workload setRate (double rate) {
+		if(rate < 0) throw new IllegalArgumentException("rate must be non-negative: " + rate);
+		this.rate = rate;
+		return this;
+	}
+	/** @param workers number of concurrent workers, each using its own {@link Target} */
+	public Workload setWorkers (int workers) {
+		if(workers < 1) throw new IllegalArgumentException("workers must be positive: " + workers);
+		this.workers = workers;
+		return this;
+	}
+	/** @param duration of the measured period */
+	public Workload setDuration (long duration, TimeUnit unit) {
+		if(duration < 1) throw new IllegalArgumentException("duration must be positive: " + duration);
+		this.durationMillis = unit.toMillis(duration);
+		return this;
+	}
+	/** @param warmup period preceding the measured period -- its results are discarded */
+	public Workload setWarmup (long warmup, TimeUnit unit) {
+		if(warmup < 0) throw new IllegalArgumentException("warmup must be non-negative: " + warmup);
+		this.warmupMillis = unit.toMillis(warmup);
+		return this;
+	}
+	/** @param preload if true, the string keys are SET before the run so that reads hit */
+	public Workload setPreload (boolean preload) {
+		this.preload = preload;
+		return this;
+	}
+	/** @param seed of the workers' random generators, for reproducible request streams */
+	public Workload setSeed (long seed) {
+		this.seed = seed;
+		return this;
+	}
+	
+	// ------------------------------------------------------------------------
+	// Accessors
+	// ------------------------------------------------------------------------
+	public String getName () { return name; }
+	public Map<Operation, Integer> getMix () { return Collections.unmodifiableMap(mix); }
+	public long getKeyCount () { return keyCount; }
+	public Distribution getKeyDistribution () {
+		return keyDistribution != null ? keyDistribution : Distributions.uniform(0, keyCount-1);
+	}
+	public Distribution getValueSize () { return valueSize; }
+	public double getRate () { return rate; }
+	public boolean isOpenLoop () { return rate > 0; }
+	public int getWorkers () { return workers; }
+	public long getDurationMillis () { return durationMillis; }
+	public long getWarmupMillis () { return warmupMillis; }
+	public boolean isPreload () { return preload; }
+	public long getSeed () { return seed; }
+	
+	/** @return the fraction of the mix that are write operations */
+	public double getWriteFraction () {
+		long total = 0, writes = 0;
+		for(Map.Entry<Operation, Integer> e : mix.entrySet()){
+			total += e.getValue();
+			if(e.getKey().isWrite) writes += e.getValue();
+		}
+		return total > 0 ? writes / (double) total : 0;
+	}
+	
+	/**
+	 * @param random
+	 * @return an operation drawn per the weights of the mix
+	 * @throws IllegalStateException if the mix is empty
+	 */
+	public Operation nextOperation (Random random) {
+		if(ops == null) compileMix();
+		int r = random.nextInt(cumulative[cumulative.length-1]);
+		for(int i=0; i<cumulative.length; i++)
+			if(r < cumulative[i]) return ops[i];
+		throw new IllegalStateException("bug -- weight overflow");
+	}
+	
+	private synchronized void compileMix () {
+		if(mix.isEmpty()) throw new IllegalStateException("workload " + name + " has an empty operation mix");
+		Operation[] _ops = new Operation[mix.size()];
+		int[] _cumulative = new int[mix.size()];
+		int i = 0, sum = 0;
+		for(Map.Entry<Operation, Integer> e : mix.entrySet()){
+			sum += e.getValue();
+			_ops[i] = e.getKey();
+			_cumulative[i++] = sum;
+		}
+		cumulative = _cumulative;
+		ops = _ops;
+	}
+	
+	@Override
+	public String toString () {
+		return String.format("%s [mix: %s, keys: %d, keyDistribution: %s, valueSize: %s, rate: %s, workers: %d, duration: %dms, warmup: %dms]",
+				name, mix, keyCount, getKeyDistribution(), valueSize, isOpenLoop() ? rate + "/s" : "closed-loop", workers, durationMillis, warmupMillis);
+	}
+}
@@ -0,0 +1,218 @@
+/*
+ *   Copyright 2009 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+
+package org.jredis.bench.workload;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs a {@link Workload} against the {@link Target}s of a {@link Target.Factory} and
+ * {@link Report}s the results.
+ * <p>
+ * Each worker draws its request stream from its own generator, seeded from the workload's 
+ * seed.  For open loop workloads the offered rate is divided evenly among the workers, 
+ * with staggered schedules, and a worker that falls behind issues its late requests 
+ * back-to-back (and is charged for the delay) until it has caught up.
+ * 
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ */
+public class WorkloadRunner {
+	
+	/** string keys are preloaded by the workers before the run */
+	private static final String PRELOAD_PREFIX = Operation.SET.keyPrefix;
+	
+	private final Workload workload;
+	private final Target.Factory factory;
+	
+	public WorkloadRunner (Workload workload, Target.Factory factory) {
+		if(workload == null) throw new IllegalArgumentException("workload is null");
+		if(factory == null) throw new IllegalArgumentException("factory is null");
+		if(workload.getMix().isEmpty()) throw new IllegalArgumentException("workload " + workload.getName() + " has an empty operation mix");
+		this.workload = workload;
+		this.factory = factory;
+	}
+	
+	/**
+	 * Runs the workload to completion.
+	 * @return the report of the measured period
+	 * @throws InterruptedException
+	 */
+	public Report run () throws InterruptedException {
+		final int workerCnt = workload.getWorkers();
+		final boolean preload = workload.isPreload() && usesPrefix(PRELOAD_PREFIX);
+		
+		Worker[] workers = new Worker[workerCnt];
+		for(int i=0; i<workerCnt; i++)
+			workers[i] = new Worker(i, factory.newTarget());
+		
+		try {
+			if(preload){
+				Thread[] loaders = new Thread[workerCnt];
+				for(int i=0; i<workerCnt; i++) {
+					final Worker worker = workers[i];
+					loaders[i] = new Thread(new Runnable() {
+						public void run () { worker.preload(); }
+					}, "workload-preload-" + i);
+					loaders[i].start();
+				}
+				for(Thread t : loaders) t.join();
+			}
+			
+			CountDownLatch ready = new CountDownLatch(workerCnt);
+			CountDownLatch start = new CountDownLatch(1);
+			Thread[] threads = new Thread[workerCnt];
+			for(int i=0; i<workerCnt; i++){
+				workers[i].ready = ready;
+				workers[i].start = start;
+				threads[i] = new Thread(workers[i], "workload-worker-" + i);
+				threads[i].start();
+			}
+			ready.await();
+			long t0 = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(10);
+			for(Worker w : workers) w.t0 = t0;
+			start.countDown();
+			for(Thread t : threads) t.join();
+			
+			long measureStart = t0 + TimeUnit.MILLISECONDS.toNanos(workload.getWarmupMillis());
+			long lastDone = measureStart;
+			Map<Operation, Report.Stats> stats = new EnumMap<Operation, Report.Stats>(Operation.class);
+			for(Worker w : workers){
+				if(w.lastDone > lastDone) lastDone = w.lastDone;
+				for(Map.Entry<Operation, Report.Stats> e : w.stats.entrySet()){
+					Report.Stats s = stats.get(e.getKey());
+					if(s == null) stats.put(e.getKey(), s = new Report.Stats());
+					s.add(e.getValue());
+				}
+			}
+			long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(lastDone - measureStart);
+			return new Report(workload, workers[0].target.getName(), elapsedMillis, stats);
+		}
+		finally {
+			for(Worker w : workers) w.target.close();
+		}
+	}
+	
+	private boolean usesPrefix (String prefix) {
+		for(Operation op : workload.getMix().keySet())
+			if(op.keyPrefix.equals(prefix)) return true;
+		return false;
+	}
+	
+	// ------------------------------------------------------------------------
+	// Inner types
+	// ------------------------------------------------------------------------
+	private final class Worker implements Runnable {
+		final int id;
+		final Target target;
+		final Random random;
+		final Map<Operation, Report.Stats> stats = new EnumMap<Operation, Report.Stats>(Operation.class);
+		final Distribution keys = workload.getKeyDistribution();
+		final Distribution sizes = workload.getValueSize();
+		
+		CountDownLatch ready;
+		CountDownLatch start;
+		volatile long t0;
+		long lastDone;
+		
+		/** source of value content */
+		private byte[] content = new byte[0];
+		
+		Worker (int id, Target target) {
+			this.id = id;
+			this.target = target;
+			this.random = new Random(workload.getSeed() + id);
+			for(Operation op : workload.getMix().keySet())
+				stats.put(op, new Report.Stats());
+		}
+		
+		void preload () {
+			long keyCount = workload.getKeyCount();
+			for(long k = id; k < keyCount; k += workload.getWorkers()) {
+				try {
+					target.execute(Operation.SET, PRELOAD_PREFIX + k, nextValue());
+				}
+				catch (Exception e) { /* preload is best effort */ }
+			}
+		}
+		
+		public void run () {
+			ready.countDown();
+			try {
+				start.await();
+			}
+			catch (InterruptedException e) {
+				return;
+			}
+			final long measureStart = t0 + TimeUnit.MILLISECONDS.toNanos(workload.getWarmupMillis());
+			final long end = measureStart + TimeUnit.MILLISECONDS.toNanos(workload.getDurationMillis());
+			final boolean openLoop = workload.isOpenLoop();
+			final double interval = openLoop ? workload.getWorkers() * 1e9 / workload.getRate() : 0;
+			final long offset = (long) (interval * id / workload.getWorkers());
+			
+			for(long i = 0; ; i++) {
+				long scheduled;
+				if(openLoop) {
+					scheduled = t0 + offset + (long) (i * interval);
+					if(scheduled >= end) break;
+					long wait;
+					while((wait = scheduled - System.nanoTime()) > 0)
+						LockSupport.parkNanos(wait);
+				}
+				else {
+					scheduled = System.nanoTime();
+					if(scheduled >= end) break;
+				}
+				
+				Operation op = workload.nextOperation(random);
+				String key = op.keyPrefix + keys.next(random);
+				byte[] value = nextValue();
+				
+				long sent = System.nanoTime();
+				boolean failed = false;
+				try {
+					target.execute(op, key, value);
+				}
+				catch (Exception e) {
+					failed = true;
+				}
+				long done = System.nanoTime();
+				if(scheduled >= measureStart) {
+					Report.Stats s = stats.get(op);
+					if(failed) s.error();
+					else s.record(scheduled, sent, done);
+					lastDone = done;
+				}
+			}
+		}
+		
+		private byte[] nextValue () {
+			int size = (int) sizes.next(random);
+			if(size > content.length) {
+				content = new byte[Math.max(size, content.length * 2)];
+				random.nextBytes(content);
+			}
+			byte[] value = new byte[size];
+			System.arraycopy(content, 0, value, 0, size);
+			return value;
+		}
+	}
+}
@@ -48,14 +48,18 @@ public class JRedisPipelineServiceBenchmark extends JRedisBenchmark {
 		if(args.length > 2) reqCnt = Integer.valueOf(args[2]);
 		if(args.length > 3) size = Integer.parseInt(args[3]);
 		if(args.length > 4) host = args[4];
+		if(FAKE_HOST.equals(host)) {
+			port = startFakeServer();
+			host = "127.0.0.1";
+		}
 		
-		System.out.format("==> Usage: [db [conn [req [size [host]]]]\n");
+		System.out.format("==> Usage: [db [conn [req [size [host]]]] -- host '%s' for an in-process fake server\n", FAKE_HOST);
 		
 		new JRedisPipelineServiceBenchmark(host, port, db, password).runBenchmarks (host, port, workerCnt, reqCnt, size, db);
 	}
 	final JRedis jredisService;
     public JRedisPipelineServiceBenchmark (String host, int port, int db, String password) {
-		ConnectionSpec connectionSpec = DefaultConnectionSpec.newSpec("localhost", 6379, db, "jredis".getBytes());
+		ConnectionSpec connectionSpec = DefaultConnectionSpec.newSpec(host, port, db, password.getBytes());
 		jredisService = new JRedisPipelineService(connectionSpec);
 		super.quitOnRunEnd(false);
     }
@@ -48,8 +48,12 @@ public class JRedisServiceBenchmark extends JRedisBenchmark {
 		if(args.length > 2) reqCnt = Integer.valueOf(args[2]);
 		if(args.length > 3) size = Integer.parseInt(args[3]);
 		if(args.length > 4) host = args[4];
+		if(FAKE_HOST.equals(host)) {
+			port = startFakeServer();
+			host = "127.0.0.1";
+		}
 		
-		System.out.format("==> Usage: [db [conn [req [size [host]]]]\n");
+		System.out.format("==> Usage: [db [conn [req [size [host]]]] -- host '%s' for an in-process fake server\n", FAKE_HOST);
 //		System.out.format("*** host: %s:%d (db: %d) | datasize: %d | connections: %d | request/conn: %d \n\n", host, port, db, size ,connectionCnt, reqCnt);
 		
 		new JRedisServiceBenchmark(poolCnt, host, port, db, password).runBenchmarks (host, port, workerCnt, reqCnt, size, db);
@@ -57,7 +61,7 @@ public class JRedisServiceBenchmark extends JRedisBenchmark {
 	
 	final JRedis jredisService;
     public JRedisServiceBenchmark (int poolCnt, String host, int port, int db, String password) {
-		ConnectionSpec connectionSpec = DefaultConnectionSpec.newSpec("localhost", 6379, db, "jredis".getBytes());
+		ConnectionSpec connectionSpec = DefaultConnectionSpec.newSpec(host, port, db, password.getBytes());
 		jredisService = new JRedisService(connectionSpec, poolCnt);
 		super.quitOnRunEnd(false);
     }
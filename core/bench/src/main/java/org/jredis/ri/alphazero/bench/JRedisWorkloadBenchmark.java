@@ -0,0 +1,228 @@
+/*
+ *   Copyright 2009 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+
+package org.jredis.ri.alphazero.bench;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.jredis.JRedis;
+import org.jredis.JRedisFuture;
+import org.jredis.RedisException;
+import org.jredis.bench.JRedisBenchmark;
+import org.jredis.bench.workload.Distribution;
+import org.jredis.bench.workload.Distributions;
+import org.jredis.bench.workload.Operation;
+import org.jredis.bench.workload.Report;
+import org.jredis.bench.workload.Target;
+import org.jredis.bench.workload.Workload;
+import org.jredis.bench.workload.WorkloadRunner;
+import org.jredis.connector.ConnectionSpec;
+import org.jredis.fake.FakeRedisServer;
+import org.jredis.ri.alphazero.JRedisClient;
+import org.jredis.ri.alphazero.JRedisPipeline;
+import org.jredis.ri.alphazero.JRedisPipelineService;
+import org.jredis.ri.alphazero.JRedisService;
+import org.jredis.ri.alphazero.connection.DefaultConnectionSpec;
+
+/**
+ * Command line driver for {@link WorkloadRunner}, with the alphazero providers as targets.  
+ * Options are given as <code>name=value</code> arguments, e.g.
+ * <pre><code>
+ * target=service mix=GET:90,SET:10 keys=100000 dist=zipfian:0.99 size=uniform:64:1024 rate=20000 duration=30 format=csv
+ * </code></pre>
+ * Run with <code>help</code> for the options and their defaults.
+ * <p><b>Be advised that this will FLUSH the db specified</b> (unless <code>flush=false</code>) -- see 
+ * {@link JRedisBenchmark}.
+ * 
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ */
+public class JRedisWorkloadBenchmark {
+	
+	static final String FAKE_HOST = JRedisBenchmark.FAKE_HOST;
+	
+	static final String[][] OPTIONS = {
+		{"target", "client", "client | service | pipeline | pipelineservice"},
+		{"host", "127.0.0.1", "redis host -- '" + FAKE_HOST + "' for an in-process fake server"},
+		{"port", "6379", "redis port"},
+		{"db", "13", "redis db"},
+		{"password", JRedisBenchmark.password, "redis password"},
+		{"connections", "5", "connection count of the service targets"},
+		{"name", "workload", "workload name, for the report"},
+		{"mix", "GET:80,SET:20", "comma separated OPERATION:weight"},
+		{"keys", "10000", "number of keys"},
+		{"dist", "uniform", "uniform | zipfian[:theta] | hotspot[:hotSetFraction[:hotOpFraction]]"},
+		{"size", "128", "value size: n | fixed:n | uniform:min:max"},
+		{"rate", "0", "offered load, requests/sec -- 0 for closed loop"},
+		{"workers", "10", "concurrent workers"},
+		{"duration", "10", "measured period, seconds"},
+		{"warmup", "2", "warm-up period, seconds"},
+		{"preload", "true", "SET the string keys before the run"},
+		{"flush", "true", "FLUSHDB before the run"},
+		{"seed", "", "seed of the request streams"},
+		{"format", "json", "json | csv"},
+		{"out", "", "report file -- stdout if not set"},
+	};
+	
+	public static void main (String[] args) throws Exception {
+		Map<String, String> options = new HashMap<String, String>();
+		for(String[] option : OPTIONS) options.put(option[0], option[1]);
+		for(String arg : args){
+			int eq = arg.indexOf('=');
+			if(eq < 0 || !options.containsKey(arg.substring(0, eq))) {
+				usage();
+				if(!arg.equals("help")) System.err.format("==> unknown argument: %s\n", arg);
+				System.exit(1);
+			}
+			options.put(arg.substring(0, eq), arg.substring(eq+1));
+		}
+		
+		String host = options.get("host");
+		int port = Integer.parseInt(options.get("port"));
+		String pwd = options.get("password");
+		if(FAKE_HOST.equals(host)) {
+			port = startFakeServer(pwd);
+			host = "127.0.0.1";
+		}
+		ConnectionSpec spec = DefaultConnectionSpec.newSpec(host, port, Integer.parseInt(options.get("db")), pwd.length() > 0 ? pwd.getBytes() : null);
+		
+		Workload workload = newWorkload(options);
+		System.err.format("==> %s\n", workload);
+		
+		if(Boolean.parseBoolean(options.get("flush"))) {
+			JRedis jredis = new JRedisClient(spec);
+			try {
+				jredis.flushdb();
+			}
+			catch (RedisException e) {
+				System.err.format("==> FLUSHDB failed: %s\n", e.getMessage());
+			}
+			finally {
+				jredis.quit();
+			}
+		}
+		
+		Target.Factory factory = newTargetFactory(options.get("target"), spec, Integer.parseInt(options.get("connections")));
+		Report report = new WorkloadRunner(workload, factory).run();
+		if(factory instanceof SharedTargetFactory) ((SharedTargetFactory) factory).shutdown();
+		
+		String output = "csv".equalsIgnoreCase(options.get("format")) ? report.toCsv() : report.toJson();
+		String out = options.get("out");
+		if(out.length() > 0) {
+			OutputStream os = new FileOutputStream(out);
+			try {
+				os.write(output.getBytes("UTF-8"));
+			}
+			finally {
+				os.close();
+			}
+			System.err.format("==> %.0f ops/sec -- report written to %s\n", report.getThroughput(), out);
+		}
+		else {
+			System.out.print(output);
+		}
+	}
+	
+	static int startFakeServer (String password) throws IOException {
+		FakeRedisServer server = new FakeRedisServer();
+		if(password.length() > 0) server.setPassword(password);
+		return server.start().getPort();
+	}
+	
+	static void usage () {
+		System.err.println("==> Usage: [name=value ...]");
+		for(String[] option : OPTIONS)
+			System.err.format("    %-12s %s (default: '%s')\n", option[0], option[2], option[1]);
+	}
+	
+	static Workload newWorkload (Map<String, String> options) {
+		long keyCount = Long.parseLong(options.get("keys"));
+		Workload workload = new Workload(options.get("name"))
+			.setKeyCount(keyCount)
+			.setKeyDistribution(parseKeyDistribution(options.get("dist"), keyCount))
+			.setValueSize(parseSizeDistribution(options.get("size")))
+			.setRate(Double.parseDouble(options.get("rate")))
+			.setWorkers(Integer.parseInt(options.get("workers")))
+			.setDuration(Long.parseLong(options.get("duration")), TimeUnit.SECONDS)
+			.setWarmup(Long.parseLong(options.get("warmup")), TimeUnit.SECONDS)
+			.setPreload(Boolean.parseBoolean(options.get("preload")));
+		if(options.get("seed").length() > 0)
+			workload.setSeed(Long.parseLong(options.get("seed")));
+		for(String entry : options.get("mix").split(",")){
+			String[] opw = entry.split(":");
+			workload.mix(Operation.valueOf(opw[0].trim().toUpperCase()), opw.length > 1 ? Integer.parseInt(opw[1].trim()) : 1);
+		}
+		return workload;
+	}
+	
+	static Distribution parseKeyDistribution (String spec, long keyCount) {
+		String[] p = spec.split(":");
+		if(p[0].equals("uniform"))
+			return Distributions.uniform(0, keyCount-1);
+		if(p[0].equals("zipfian"))
+			return Distributions.zipfian(keyCount, p.length > 1 ? Double.parseDouble(p[1]) : 0.99);
+		if(p[0].equals("hotspot"))
+			return Distributions.hotspot(keyCount, p.length > 1 ? Double.parseDouble(p[1]) : 0.2, p.length > 2 ? Double.parseDouble(p[2]) : 0.8);
+		throw new IllegalArgumentException("unknown key distribution: " + spec);
+	}
+	
+	static Distribution parseSizeDistribution (String spec) {
+		String[] p = spec.split(":");
+		if(p.length == 1)
+			return Distributions.fixed(Long.parseLong(p[0]));
+		if(p[0].equals("fixed"))
+			return Distributions.fixed(Long.parseLong(p[1]));
+		if(p[0].equals("uniform") && p.length == 3)
+			return Distributions.uniform(Long.parseLong(p[1]), Long.parseLong(p[2]));
+		throw new IllegalArgumentException("unknown size distribution: " + spec);
+	}
+	
+	static Target.Factory newTargetFactory (String target, final ConnectionSpec spec, int connections) {
+		if(target.equals("client")) {
+			return new Target.Factory() {
+				public Target newTarget () { return new Target.ForJRedis(new JRedisClient(spec), true); }
+			};
+		}
+		if(target.equals("service"))
+			return new SharedTargetFactory(new JRedisService(spec, connections));
+		if(target.equals("pipelineservice"))
+			return new SharedTargetFactory(new JRedisPipelineService(spec));
+		if(target.equals("pipeline"))
+			return new SharedTargetFactory(new JRedisPipeline(spec));
+		throw new IllegalArgumentException("unknown target: " + target);
+	}
+	
+	/**
+	 * All workers share the one (thread-safe) provider.
+	 */
+	static final class SharedTargetFactory implements Target.Factory {
+		final JRedis jredis;
+		final JRedisFuture jredisFuture;
+		SharedTargetFactory (JRedis jredis) { this.jredis = jredis; this.jredisFuture = null; }
+		SharedTargetFactory (JRedisFuture jredisFuture) { this.jredis = null; this.jredisFuture = jredisFuture; }
+		public Target newTarget () {
+			return jredis != null ? new Target.ForJRedis(jredis, false) : new Target.ForJRedisFuture(jredisFuture, false);
+		}
+		void shutdown () {
+			if(jredis != null) jredis.quit();
+			else jredisFuture.quit();
+		}
+	}
+}
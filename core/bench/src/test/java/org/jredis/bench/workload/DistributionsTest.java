@@ -0,0 +1,130 @@
+/*
+ *   Copyright 2009 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+
+package org.jredis.bench.workload;
+
+import java.util.Random;
+import org.testng.annotations.Test;
+import static org.testng.Assert.*;
+
+/**
+ * Tests the sample frequencies of the {@link Distributions}.  The generators are seeded, so
+ * the tests are deterministic.
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, May 20, 2010
+ * @since   alpha.0
+ * 
+ */
+@Test(suiteName="bench-workload-tests")
+public class DistributionsTest {
+	
+	private static final int SAMPLE_CNT = 1000000;
+
+	@Test
+	public void testZipfian () {
+		int n = 1000;
+		double theta = 0.99;
+		long[] counts = sample(Distributions.zipfian(n, theta), n);
+		
+		double zetan = 0;
+		for(int i=1; i<=n; i++) zetan += 1 / Math.pow(i, theta);
+		double[] expected = new double[n];
+		for(int i=0; i<n; i++) expected[i] = 1 / Math.pow(i+1, theta) / zetan;
+		
+		// the generator is exact for the two most popular ranks ...
+		for(int i=0; i<2; i++)
+			assertEquals(counts[i] / (double) SAMPLE_CNT, expected[i], 0.02 * expected[i], "frequency of rank " + i);
+		// ... and approximates the rest
+		for(int i=0; i<20; i++)
+			assertTrue(counts[i] > counts[i+1], "rank " + i + " should be more frequent than rank " + (i+1));
+		int[] bands = {0, 10, 100, n};
+		for(int b=0; b<bands.length-1; b++){
+			long cnt = 0;
+			double share = 0;
+			for(int i=bands[b]; i<bands[b+1]; i++) { cnt += counts[i]; share += expected[i]; }
+			assertEquals(cnt / (double) SAMPLE_CNT, share, 0.02, "share of ranks [" + bands[b] + ", " + bands[b+1] + ")");
+		}
+	}
+	
+	@Test
+	public void testHotspot () {
+		int n = 1000;
+		long[] counts = sample(Distributions.hotspot(n, 0.2, 0.8), n);
+		long hot = 0;
+		for(int i=0; i<200; i++) hot += counts[i];
+		assertEquals(hot / (double) SAMPLE_CNT, 0.8, 0.005, "fraction of samples from the hot set");
+		
+		// uniform within the hot and the cold sets
+		for(int i=0; i<n; i++){
+			double expected = i < 200 ? 0.8 / 200 : 0.2 / 800;
+			assertEquals(counts[i] / (double) SAMPLE_CNT, expected, 0.3 * expected, "frequency of " + i);
+		}
+		
+		long[] allHot = sample(Distributions.hotspot(10, 1.0, 0.5), 10);
+		for(int i=0; i<10; i++)
+			assertTrue(allHot[i] > 0, "all keys are hot");
+	}
+	
+	@Test
+	public void testUniformAndFixed () {
+		long[] counts = sample(Distributions.uniform(10, 19), 20);
+		for(int i=0; i<20; i++){
+			if(i < 10) assertEquals(counts[i], 0, "below min");
+			else assertEquals(counts[i] / (double) SAMPLE_CNT, 0.1, 0.005, "frequency of " + i);
+		}
+		assertEquals(Distributions.fixed(128).next(new Random()), 128);
+		
+		Distribution large = Distributions.uniform(0, 1L << 40);
+		Random random = new Random(42);
+		for(int i=0; i<1000; i++){
+			long v = large.next(random);
+			assertTrue(v >= 0 && v <= 1L << 40, "in range: " + v);
+		}
+	}
+	
+	@Test
+	public void testInvalidArgs () {
+		assertInvalid(new Runnable() { public void run () { Distributions.fixed(-1); } });
+		assertInvalid(new Runnable() { public void run () { Distributions.uniform(5, 4); } });
+		assertInvalid(new Runnable() { public void run () { Distributions.zipfian(0, 0.99); } });
+		assertInvalid(new Runnable() { public void run () { Distributions.zipfian(10, 1.0); } });
+		assertInvalid(new Runnable() { public void run () { Distributions.hotspot(10, 0, 0.8); } });
+		assertInvalid(new Runnable() { public void run () { Distributions.hotspot(10, 0.2, 1.1); } });
+	}
+	
+	// ------------------------------------------------------------------------
+	// helpers
+	// ------------------------------------------------------------------------
+	/** @return the count of each sample, asserting that all are in [0, n) */
+	private static long[] sample (Distribution distribution, int n) {
+		Random random = new Random(42);
+		long[] counts = new long[n];
+		for(int i=0; i<SAMPLE_CNT; i++){
+			long v = distribution.next(random);
+			assertTrue(v >= 0 && v < n, distribution + " sample out of range: " + v);
+			counts[(int) v]++;
+		}
+		return counts;
+	}
+	private static void assertInvalid (Runnable factory) {
+		boolean expectedError = false;
+		try { factory.run(); }
+		catch (IllegalArgumentException e) { expectedError = true; }
+		assertTrue(expectedError, "expecting an IllegalArgumentException");
+	}
+}
@@ -0,0 +1,103 @@
+/*
+ *   Copyright 2009 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+
+package org.jredis.bench.workload;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.testng.annotations.Test;
+import static org.testng.Assert.*;
+
+/**
+ * Tests the {@link LatencyHistogram} buckets and the error bound of its percentiles.
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, May 20, 2010
+ * @since   alpha.0
+ * 
+ */
+@Test(suiteName="bench-workload-tests")
+public class LatencyHistogramTest {
+
+	@Test
+	public void testPercentileErrorBound () {
+		LatencyHistogram histogram = new LatencyHistogram();
+		Random random = new Random(42);
+		long[] values = new long[100000];
+		for(int i=0; i<values.length; i++){
+			// log-uniform over [1us, 10s]
+			values[i] = (long) Math.exp(random.nextDouble() * Math.log(1e7));
+			histogram.record(values[i]);
+		}
+		Arrays.sort(values);
+		
+		double[] percentiles = {0, 1, 10, 25, 50, 75, 90, 99, 99.9, 99.99, 100};
+		for(double percentile : percentiles){
+			long exact = values[(int) Math.max(1, Math.ceil(percentile / 100 * values.length)) - 1];
+			long reported = histogram.getPercentile(percentile);
+			assertTrue(reported >= exact, "p" + percentile + " " + reported + " should not underestimate " + exact);
+			assertTrue(reported - exact <= exact / 64, "p" + percentile + " " + reported + " should be within 1/64 of " + exact);
+		}
+		assertEquals(histogram.getCount(), values.length);
+		assertEquals(histogram.getMin(), values[0]);
+		assertEquals(histogram.getMax(), values[values.length-1]);
+		assertEquals(histogram.getPercentile(100), values[values.length-1], "max is exact");
+	}
+	
+	@Test
+	public void testBuckets () {
+		for(long v=0; v<128; v++){
+			assertEquals(LatencyHistogram.indexOf(v), (int) v, "values below 128 are recorded exactly");
+			assertEquals(LatencyHistogram.upperBoundOf((int) v), v);
+		}
+		for(long v=128; v<(1L << 24); v+=(v >>> 7) + 1){
+			int index = LatencyHistogram.indexOf(v);
+			long bound = LatencyHistogram.upperBoundOf(index);
+			assertTrue(bound >= v && bound - v <= v / 64, "bound " + bound + " of " + v);
+			assertEquals(LatencyHistogram.indexOf(bound), index, "bound is in the bucket");
+			assertEquals(LatencyHistogram.indexOf(bound + 1), index + 1, "buckets are contiguous");
+		}
+	}
+	
+	@Test
+	public void testRecordAndMerge () {
+		LatencyHistogram empty = new LatencyHistogram();
+		assertEquals(empty.getCount(), 0);
+		assertEquals(empty.getMin(), 0);
+		assertEquals(empty.getPercentile(99), 0);
+		
+		LatencyHistogram h1 = new LatencyHistogram();
+		LatencyHistogram h2 = new LatencyHistogram();
+		h1.record(10);
+		h1.recordNanos(30000);
+		h1.recordNanos(-1);
+		h2.record(-5);
+		h2.record(1000000);
+		h1.add(h2);
+		assertEquals(h1.getCount(), 5);
+		assertEquals(h1.getMin(), 0, "negatives are recorded as 0");
+		assertEquals(h1.getMax(), 1000000);
+		assertEquals(h1.getMean(), (10 + 30 + 1000000) / 5.0, 0.001);
+		assertEquals(h1.getPercentile(60), 10);
+		assertEquals(h1.getPercentile(80), 30, "nanos are recorded as micros");
+		
+		boolean expectedError = false;
+		try { h1.getPercentile(100.1); }
+		catch (IllegalArgumentException e) { expectedError = true; }
+		assertTrue(expectedError, "percentiles above 100 should raise an IllegalArgumentException");
+	}
+}
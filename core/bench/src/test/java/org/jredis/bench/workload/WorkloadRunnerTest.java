@@ -0,0 +1,108 @@
+/*
+ *   Copyright 2009 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+
+package org.jredis.bench.workload;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.testng.annotations.Test;
+import static org.testng.Assert.*;
+
+/**
+ * Tests the {@link WorkloadRunner} against in-memory {@link Target}s: no server is required.
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, May 20, 2010
+ * @since   alpha.0
+ * 
+ */
+@Test(suiteName="bench-workload-tests")
+public class WorkloadRunnerTest {
+
+	@Test
+	public void testClosedLoop () throws InterruptedException {
+		Workload workload = new Workload("closed").mix(Operation.GET, 3).mix(Operation.SET, 1).mix(Operation.DEL, 1)
+			.setKeyCount(100).setWorkers(2).setWarmup(50, TimeUnit.MILLISECONDS).setDuration(200, TimeUnit.MILLISECONDS).setSeed(42);
+		CountingTargets targets = new CountingTargets(Operation.DEL);
+		Report report = new WorkloadRunner(workload, targets).run();
+		
+		assertEquals(targets.created.get(), 2, "a target per worker");
+		assertEquals(targets.closed.get(), 2, "targets are closed after the run");
+		assertEquals(targets.preloaded.size(), 100, "string keys are preloaded");
+		
+		Report.Stats get = report.getOperations().get(Operation.GET);
+		Report.Stats set = report.getOperations().get(Operation.SET);
+		Report.Stats del = report.getOperations().get(Operation.DEL);
+		assertEquals(del.getCount(), 0, "failed requests are not timed");
+		assertTrue(del.getErrors() > 0, "failed requests are counted as errors");
+		assertEquals(get.getErrors() + set.getErrors(), 0);
+		assertTrue(get.getCount() > 0 && set.getCount() > 0);
+		
+		double getShare = get.getCount() / (double) (get.getCount() + set.getCount() + del.getErrors());
+		assertEquals(getShare, 0.6, 0.05, "share of GETs per mix");
+		assertTrue(get.getCount() < targets.executed.get(Operation.GET).get(), "warmup requests are not reported");
+		assertTrue(report.getElapsedMillis() >= 150 && report.getElapsedMillis() < 1000, "measured period " + report.getElapsedMillis());
+	}
+	
+	@Test
+	public void testOpenLoop () throws InterruptedException {
+		Workload workload = new Workload("open").mix(Operation.PING, 1).setRate(2000).setWorkers(2)
+			.setWarmup(0, TimeUnit.MILLISECONDS).setDuration(500, TimeUnit.MILLISECONDS).setSeed(42);
+		CountingTargets targets = new CountingTargets(null);
+		Report report = new WorkloadRunner(workload, targets).run();
+		
+		assertEquals(targets.preloaded.size(), 0, "no string keys to preload");
+		assertEquals(report.getTotal().getCount(), 1000, 10, "requests issued per the rate");
+		assertEquals(report.getOperations().get(Operation.PING).getCount(), report.getTotal().getCount());
+	}
+	
+	// ------------------------------------------------------------------------
+	// helpers
+	// ------------------------------------------------------------------------
+	/** Counts the requests of its targets, which fail the requests of one operation. */
+	private static class CountingTargets implements Target.Factory {
+		final AtomicInteger created = new AtomicInteger();
+		final AtomicInteger closed = new AtomicInteger();
+		final Map<String, Boolean> preloaded = new ConcurrentHashMap<String, Boolean>();
+		final Map<Operation, AtomicLong> executed = new ConcurrentHashMap<Operation, AtomicLong>();
+		final Operation failing;
+		
+		CountingTargets (Operation failing) {
+			this.failing = failing;
+			for(Operation op : Operation.values()) executed.put(op, new AtomicLong());
+		}
+		public Target newTarget () {
+			created.incrementAndGet();
+			return new Target() {
+				public String getName () { return "counting"; }
+				public void execute (Operation op, String key, byte[] value) throws Exception {
+					if(!Thread.currentThread().getName().startsWith("workload-preload")) {
+						executed.get(op).incrementAndGet();
+						if(op == failing) throw new Exception("failed " + op);
+					}
+					else {
+						preloaded.put(key, Boolean.TRUE);
+					}
+				}
+				public void close () { closed.incrementAndGet(); }
+			};
+		}
+	}
+}
@@ -0,0 +1,70 @@
+/*
+ *   Copyright 2009 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+
+package org.jredis.fake;
+
+import java.util.Arrays;
+
+/**
+ * Immutable wrapper of a <code>byte[]</code> for use as keys and set members in
+ * the in-memory data sets of the {@link FakeRedisServer}.  Ordering is unsigned
+ * lexicographic (i.e. same as <code>memcmp</code>).
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, Apr 27, 2010
+ * @since   alpha.0
+ * 
+ */
+final class Bytes implements Comparable<Bytes> {
+	/**  */
+	final byte[] data;
+	/**  */
+	final private int hash;
+	
+	Bytes (byte[] data) {
+		this.data = data;
+		this.hash = Arrays.hashCode(data);
+	}
+	
+	/* (non-Javadoc) @see java.lang.Object#hashCode() */
+	@Override
+	public int hashCode () { return hash; }
+	
+	/* (non-Javadoc) @see java.lang.Object#equals(java.lang.Object) */
+	@Override
+	public boolean equals (Object o) {
+		if(this == o) return true;
+		if(!(o instanceof Bytes)) return false;
+		Bytes other = (Bytes) o;
+		return hash == other.hash && Arrays.equals(data, other.data);
+	}
+	
+	/* (non-Javadoc) @see java.lang.Comparable#compareTo(java.lang.Object) */
+//	@Override
+	public int compareTo (Bytes other) {
+		int len = Math.min(data.length, other.data.length);
+		for(int i=0; i<len; i++){
+			int c = (data[i] & 0xFF) - (other.data[i] & 0xFF);
+			if(c != 0) return c;
+		}
+		return data.length - other.data.length;
+	}
+	
+	/* (non-Javadoc) @see java.lang.Object#toString() */
+	@Override
+	public String toString () { return new String(data); }
+}
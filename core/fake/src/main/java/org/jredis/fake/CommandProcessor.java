@@ -0,0 +1,1197 @@
+/*
+ *   Copyright 2009 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+
+package org.jredis.fake;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.jredis.fake.RequestReader.Invocation;
+import org.jredis.protocol.Command;
+
+/**
+ * Implements the semantics of the {@link Command}s on the in-memory {@link Database}s.
+ * Responses are per the {@link Command.ResponseType} expected by the client for the 
+ * command, which (but for a few noted cases) is also how Redis responds.
+ * <p>
+ * All processing is serialized on this object's monitor.
+ * 
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, Apr 27, 2010
+ * @since   alpha.0
+ * 
+ */
+final class CommandProcessor {
+	// ------------------------------------------------------------------------
+	// Consts
+	// ------------------------------------------------------------------------
+	/** number of databases */
+	static final int DB_CNT = 16;
+	/** the redis version we report */
+	static final String REDIS_VERSION = "1.2.6";
+	
+	static final String ERR_WRONG_TYPE = "ERR Operation against a key holding the wrong kind of value";
+	static final String ERR_NO_KEY = "ERR no such key";
+	static final String ERR_SYNTAX = "ERR syntax error";
+	static final String ERR_NOT_INTEGER = "ERR value is not an integer";
+	static final String ERR_NOT_DOUBLE = "ERR value is not a double";
+	static final String ERR_AUTH_REQUIRED = "ERR operation not permitted";
+	static final String ERR_SUBSCRIBED = "ERR only (P)SUBSCRIBE / (P)UNSUBSCRIBE / QUIT allowed in this context";
+	
+	// ------------------------------------------------------------------------
+	// Inner Type
+	// ------------------------------------------------------------------------
+	/** raised by command processing -- sent to the client as an error response */
+	@SuppressWarnings("serial")
+	static final class CommandError extends RuntimeException {
+		CommandError (String message) { super(message); }
+	}
+	
+	// ------------------------------------------------------------------------
+	// Properties
+	// ------------------------------------------------------------------------
+	private final Database[]	databases = new Database[DB_CNT];
+	private final Random		random = new Random();
+	private final long			startTime = System.currentTimeMillis();
+	private volatile String		password;
+	private long				lastSave = startTime / 1000;
+	private long				changes = 0;
+	private long				processed = 0;
+	
+	/** server is consulted for client/connection stats */
+	private final FakeRedisServer server;
+	
+	// ------------------------------------------------------------------------
+	// Constructor
+	// ------------------------------------------------------------------------
+	CommandProcessor (FakeRedisServer server) {
+		this.server = server;
+		for(int i=0; i<DB_CNT; i++) databases[i] = new Database();
+	}
+	
+	// ------------------------------------------------------------------------
+	// Interface
+	// ------------------------------------------------------------------------
+	void setPassword (String password) { this.password = password; }
+	String getPassword () { return password; }
+	
+	synchronized void flushAll () {
+		for(Database db : databases) db.clear();
+	}
+	
+	synchronized long getProcessedCount () { return processed; }
+	
+	/**
+	 * Processes the request.
+	 * @param session
+	 * @param invocation
+	 * @return the reply -- {@link Reply#NONE} if none is to be sent.
+	 */
+	synchronized Reply process (Session session, Invocation invocation) {
+		processed++;
+		Command cmd = invocation.cmd;
+		if(null == cmd) 
+			return Reply.error("ERR unknown command '" + invocation.name + "'");
+		if(!session.authenticated && cmd != Command.AUTH && cmd != Command.QUIT)
+			return Reply.error(ERR_AUTH_REQUIRED);
+		if(session.isSubscribed() && !isSubscriptionControl(cmd))
+			return Reply.error(ERR_SUBSCRIBED);
+		if(null != session.transaction && !isTransactionControl(cmd)) {
+			session.transaction.add(invocation);
+			return Reply.QUEUED;
+		}
+		try {
+			return process(session, cmd, invocation.args, databases[session.db]);
+		}
+		catch (CommandError e) {
+			return Reply.error(e.getMessage());
+		}
+		catch (IndexOutOfBoundsException e) {
+			return Reply.error("ERR wrong number of arguments for '" + invocation.name + "' command");
+		}
+	}
+	
+	/**
+	 * Serves the blocking pop of the session, if any of its lists has an item.
+	 * @param session a blocked session
+	 * @return the reply, or null if the session remains blocked
+	 */
+	synchronized Reply serveBlocked (Session session) {
+		Session.Blocked blocked = session.blocked;
+		Reply reply;
+		try {
+			reply = blockingPop(session, blocked.cmd, blocked.args, databases[session.db]);
+		}
+		catch (CommandError e) {
+			reply = Reply.error(e.getMessage());
+		}
+		if(null != reply) session.blocked = null;
+		return reply;
+	}
+	
+	/**
+	 * Times out the blocking pop of the session.
+	 * @param session a blocked session
+	 * @return the (nil) reply
+	 */
+	synchronized Reply timeoutBlocked (Session session) {
+		session.blocked = null;
+		return Reply.NIL_MULTI;
+	}
+	
+	// ------------------------------------------------------------------------
+	// Command processing
+	// ------------------------------------------------------------------------
+	private Reply process (Session session, Command cmd, byte[][] args, Database db) {
+		switch (cmd) {
+		// connection handling
+		case AUTH:
+			if(null != password && !password.equals(string(args[0]))) {
+				session.authenticated = false;
+				return Reply.error("ERR invalid password");
+			}
+			session.authenticated = true;
+			return Reply.OK;
+		case PING:
+			return Reply.PONG;
+		case QUIT:
+			session.closing = true;
+			return Reply.NONE;
+			
+		// transactions
+		case MULTI:
+			if(null != session.transaction)
+				return Reply.error("ERR MULTI calls can not be nested");
+			session.transaction = new ArrayList<Invocation>();
+			return Reply.OK;
+		case EXEC: {
+			if(null == session.transaction)
+				return Reply.error("ERR EXEC without MULTI");
+			List<Invocation> queued = session.transaction;
+			session.transaction = null;
+			List<Reply> replies = new ArrayList<Reply>(queued.size());
+			for(Invocation q : queued) {
+				Reply reply = process(session, q);
+				if(reply == Reply.BLOCKED) {
+					// blocking pops do not block in a transaction
+					session.blocked = null;
+					reply = Reply.NIL_MULTI;
+				}
+				replies.add(reply);
+			}
+			return Reply.multi(replies);
+		}
+		case DISCARD:
+			if(null == session.transaction)
+				return Reply.error("ERR DISCARD without MULTI");
+			session.transaction = null;
+			return Reply.OK;
+			
+		// publish/subscribe
+		case PUBLISH:
+			return Reply.integer(server.publish(args[0], args[1]));
+		case SUBSCRIBE:
+		case UNSUBSCRIBE:
+		case PSUBSCRIBE:
+		case PUNSUBSCRIBE:
+			return subscription(session, cmd, args);
+			
+		// string values
+		case SET:
+			changed();
+			db.put(key(args[0]), args[1]);
+			return Reply.OK;
+		case GET:
+			return Reply.bulk(getString(db, args[0]));
+		case GETSET:
+		{
+			byte[] prev = getString(db, args[0]);
+			changed();
+			db.put(key(args[0]), args[1]);
+			return Reply.bulk(prev);
+		}
+		case MGET:
+		{
+			List<byte[]> values = new ArrayList<byte[]>(args.length);
+			for(byte[] k : args){
+				Object v = db.get(key(k));
+				values.add(v instanceof byte[] ? (byte[]) v : null);
+			}
+			return Reply.multiBulk(values);
+		}
+		case SETNX:
+			if(db.exists(key(args[0]))) return Reply.ZERO;
+			changed();
+			db.put(key(args[0]), args[1]);
+			return Reply.ONE;
+		case MSET:
+		case MSETNX:
+		{
+			if(args.length == 0 || args.length % 2 != 0) throw new CommandError("ERR wrong number of arguments for MSET");
+			if(cmd == Command.MSETNX) {
+				for(int i=0; i<args.length; i+=2)
+					if(db.exists(key(args[i]))) return Reply.ZERO;
+			}
+			changed();
+			for(int i=0; i<args.length; i+=2)
+				db.put(key(args[i]), args[i+1]);
+			return cmd == Command.MSETNX ? Reply.ONE : Reply.OK;
+		}
+		case INCR:
+			return incrBy(db, args[0], 1);
+		case INCRBY:
+			return incrBy(db, args[0], toLong(args[1]));
+		case DECR:
+			return incrBy(db, args[0], -1);
+		case DECRBY:
+			return incrBy(db, args[0], -toLong(args[1]));
+			
+		// keys
+		case EXISTS:
+			return Reply.bool(db.exists(key(args[0])));
+		case DEL:
+		{
+			int cnt = 0;
+			for(byte[] k : args) 
+				if(db.remove(key(k))) cnt++;
+			if(cnt > 0) changed();
+			return Reply.integer(cnt);
+		}
+		case TYPE:
+			return Reply.status(typeOf(db.get(key(args[0]))));
+		case KEYS:
+		{
+			byte[] pattern = args[0];
+			StringBuilder buff = new StringBuilder();
+			for(Bytes k : db.keys()){
+				if(GlobPattern.matches(pattern, k.data)){
+					if(buff.length() > 0) buff.append(' ');
+					buff.append(k.toString());
+				}
+			}
+			return Reply.bulk(buff.toString().getBytes());
+		}
+		case SCAN:
+			return scan(db, args);
+		case RANDOMKEY:
+		{
+			Bytes k = db.randomKey(random);
+			return Reply.status(k != null ? k.toString() : "");
+		}
+		case RENAME:
+		case RENAMENX:
+		{
+			Bytes src = key(args[0]);
+			Bytes dst = key(args[1]);
+			Object value = db.get(src);
+			if(null == value) throw new CommandError(ERR_NO_KEY);
+			if(src.equals(dst)) throw new CommandError("ERR source and destination objects are the same");
+			if(cmd == Command.RENAMENX && db.exists(dst)) return Reply.ZERO;
+			long expiry = db.getExpiry(src);
+			changed();
+			db.remove(src);
+			db.put(dst, value);
+			if(expiry != -1) db.setExpiry(dst, expiry);
+			return cmd == Command.RENAMENX ? Reply.ONE : Reply.OK;
+		}
+		case DBSIZE:
+			return Reply.integer(db.size());
+		case EXPIRE:
+		case EXPIREAT:
+		{
+			Bytes k = key(args[0]);
+			if(!db.exists(k)) return Reply.ZERO;
+			long t = toLong(args[1]);
+			long expiry = cmd == Command.EXPIRE ? Database.now() + t : t;
+			changed();
+			db.setExpiry(k, expiry);
+			return Reply.ONE;
+		}
+		case TTL:
+		{
+			Bytes k = key(args[0]);
+			long expiry = db.exists(k) ? db.getExpiry(k) : -1;
+			if(expiry == -1) return Reply.integer(-1);
+			return Reply.integer(Math.max(0, expiry - Database.now()));
+		}
+		
+		// lists
+		case RPUSH:
+		case LPUSH:
+		{
+			LinkedList<byte[]> list = getList(db, args[0], true);
+			changed();
+			if(cmd == Command.RPUSH) list.addLast(args[1]);
+			else list.addFirst(args[1]);
+			return Reply.OK;
+		}
+		case LLEN:
+		{
+			LinkedList<byte[]> list = getList(db, args[0], false);
+			return Reply.integer(list != null ? list.size() : 0);
+		}
+		case LRANGE:
+		{
+			LinkedList<byte[]> list = getList(db, args[0], false);
+			List<byte[]> items = new ArrayList<byte[]>();
+			if(null != list) {
+				int[] range = range(list.size(), toLong(args[1]), toLong(args[2]));
+				if(null != range) items.addAll(list.subList(range[0], range[1]+1));
+			}
+			return Reply.multiBulk(items);
+		}
+		case LTRIM:
+		{
+			LinkedList<byte[]> list = getList(db, args[0], false);
+			if(null != list) {
+				changed();
+				int[] range = range(list.size(), toLong(args[1]), toLong(args[2]));
+				if(null == range) {
+					db.remove(key(args[0]));
+				}
+				else {
+					List<byte[]> retained = new ArrayList<byte[]>(list.subList(range[0], range[1]+1));
+					list.clear();
+					list.addAll(retained);
+				}
+			}
+			return Reply.OK;
+		}
+		case LINDEX:
+		{
+			LinkedList<byte[]> list = getList(db, args[0], false);
+			if(null == list) return Reply.NIL;
+			long idx = toLong(args[1]);
+			if(idx < 0) idx = list.size() + idx;
+			if(idx < 0 || idx >= list.size()) return Reply.NIL;
+			return Reply.bulk(list.get((int) idx));
+		}
+		case LSET:
+		{
+			LinkedList<byte[]> list = getList(db, args[0], false);
+			if(null == list) throw new CommandError(ERR_NO_KEY);
+			long idx = toLong(args[1]);
+			if(idx < 0) idx = list.size() + idx;
+			if(idx < 0 || idx >= list.size()) throw new CommandError("ERR index out of range");
+			changed();
+			list.set((int) idx, args[2]);
+			return Reply.OK;
+		}
+		case LREM:
+		{
+			LinkedList<byte[]> list = getList(db, args[0], false);
+			if(null == list) return Reply.ZERO;
+			long max = toLong(args[1]);
+			Bytes value = new Bytes(args[2]);
+			int cnt = 0;
+			boolean fromTail = max < 0;
+			ListIterator<byte[]> it = list.listIterator(fromTail ? list.size() : 0);
+			while((fromTail ? it.hasPrevious() : it.hasNext()) && (max == 0 || cnt < Math.abs(max))){
+				if(value.equals(new Bytes(fromTail ? it.previous() : it.next()))){
+					it.remove();
+					cnt++;
+				}
+			}
+			if(cnt > 0) changed();
+			if(list.isEmpty()) db.remove(key(args[0]));
+			return Reply.integer(cnt);
+		}
+		case LPOP:
+		case RPOP:
+		{
+			LinkedList<byte[]> list = getList(db, args[0], false);
+			if(null == list) return Reply.NIL;
+			changed();
+			byte[] item = cmd == Command.LPOP ? list.removeFirst() : list.removeLast();
+			if(list.isEmpty()) db.remove(key(args[0]));
+			return Reply.bulk(item);
+		}
+		case RPOPLPUSH:
+		{
+			LinkedList<byte[]> src = getList(db, args[0], false);
+			if(null == src) return Reply.NIL;
+			LinkedList<byte[]> dst = getList(db, args[1], false); // type check before the pop
+			changed();
+			byte[] item = src.removeLast();
+			if(src.isEmpty()) db.remove(key(args[0]));
+			if(null == dst) dst = getList(db, args[1], true);
+			dst.addFirst(item);
+			return Reply.bulk(item);
+		}
+		
+		case BLPOP:
+		case BRPOP:
+		case BRPOPLPUSH:
+		{
+			long timeout = toLong(args[args.length-1]);
+			if(timeout < 0) throw new CommandError("ERR timeout is negative");
+			Reply reply = blockingPop(session, cmd, args, db);
+			if(null != reply) return reply;
+			long deadline = 0;
+			if(timeout > 0) {
+				deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeout);
+				if(deadline == 0) deadline = 1;
+			}
+			session.blocked = new Session.Blocked(cmd, args, deadline);
+			return Reply.BLOCKED;
+		}
+		
+		// sets -- note that (as with Redis 1.2) sets that are emptied are not removed
+		case SADD:
+		{
+			Set<Bytes> set = getSet(db, args[0], true);
+			boolean added = set.add(new Bytes(args[1]));
+			if(added) changed();
+			return Reply.bool(added);
+		}
+		case SREM:
+		{
+			Set<Bytes> set = getSet(db, args[0], false);
+			boolean removed = null != set && set.remove(new Bytes(args[1]));
+			if(removed) changed();
+			return Reply.bool(removed);
+		}
+		case SCARD:
+		{
+			Set<Bytes> set = getSet(db, args[0], false);
+			return Reply.integer(null != set ? set.size() : 0);
+		}
+		case SISMEMBER:
+		{
+			Set<Bytes> set = getSet(db, args[0], false);
+			return Reply.bool(null != set && set.contains(new Bytes(args[1])));
+		}
+		case SMEMBERS:
+		{
+			Set<Bytes> set = getSet(db, args[0], false);
+			return Reply.multiBulk(null != set ? toList(set) : null);
+		}
+		case SINTER:
+		case SUNION:
+		case SDIFF:
+			return Reply.multiBulk(toList(setOperation(db, cmd, args, 0)));
+		case SINTERSTORE:
+		case SUNIONSTORE:
+		case SDIFFSTORE:
+		{
+			Set<Bytes> result = setOperation(db, cmd, args, 1);
+			changed();
+			if(result.isEmpty()) db.remove(key(args[0]));
+			else db.put(key(args[0]), result);
+			return Reply.OK;
+		}
+		case SMOVE:
+		{
+			Set<Bytes> src = getSet(db, args[0], false);
+			Set<Bytes> dst = getSet(db, args[1], false);
+			Bytes member = new Bytes(args[2]);
+			if(null == src || !src.remove(member)) return Reply.ZERO;
+			changed();
+			if(null == dst) dst = getSet(db, args[1], true);
+			dst.add(member);
+			return Reply.ONE;
+		}
+		case SRANDMEMBER:
+		case SPOP:
+		{
+			Set<Bytes> set = getSet(db, args[0], false);
+			if(null == set || set.isEmpty()) return Reply.NIL;
+			List<Bytes> members = new ArrayList<Bytes>(set);
+			Bytes member = members.get(random.nextInt(members.size()));
+			if(cmd == Command.SPOP){
+				changed();
+				set.remove(member);
+			}
+			return Reply.bulk(member.data);
+		}
+		
+		// hashes -- emptied hashes are removed
+		case HSET:
+		{
+			Map<Bytes, byte[]> hash = getHash(db, args[0], true);
+			changed();
+			return Reply.bool(null == hash.put(new Bytes(args[1]), args[2]));
+		}
+		case HGET:
+		{
+			Map<Bytes, byte[]> hash = getHash(db, args[0], false);
+			return Reply.bulk(null != hash ? hash.get(new Bytes(args[1])) : null);
+		}
+		case HMSET:
+		{
+			if(args.length < 3 || args.length % 2 == 0) throw new CommandError("ERR wrong number of arguments for HMSET");
+			Map<Bytes, byte[]> hash = getHash(db, args[0], true);
+			changed();
+			for(int i=1; i<args.length; i+=2)
+				hash.put(new Bytes(args[i]), args[i+1]);
+			return Reply.OK;
+		}
+		case HMGET:
+		{
+			if(args.length < 2) throw new CommandError("ERR wrong number of arguments for HMGET");
+			Map<Bytes, byte[]> hash = getHash(db, args[0], false);
+			List<byte[]> values = new ArrayList<byte[]>(args.length-1);
+			for(int i=1; i<args.length; i++)
+				values.add(null != hash ? hash.get(new Bytes(args[i])) : null);
+			return Reply.multiBulk(values);
+		}
+		case HGETALL:
+		{
+			Map<Bytes, byte[]> hash = getHash(db, args[0], false);
+			List<byte[]> entries = new ArrayList<byte[]>();
+			if(null != hash) {
+				for(Map.Entry<Bytes, byte[]> e : hash.entrySet()){
+					entries.add(e.getKey().data);
+					entries.add(e.getValue());
+				}
+			}
+			return Reply.multiBulk(entries);
+		}
+		case HINCRBY:
+		{
+			long delta = toLong(args[2]);
+			Map<Bytes, byte[]> hash = getHash(db, args[0], false);
+			byte[] current = null != hash ? hash.get(new Bytes(args[1])) : null;
+			long value = (null != current ? toLong(current) : 0) + delta;
+			if(null == hash) hash = getHash(db, args[0], true);
+			changed();
+			hash.put(new Bytes(args[1]), String.valueOf(value).getBytes());
+			return Reply.integer(value);
+		}
+		case HDEL:
+		{
+			Map<Bytes, byte[]> hash = getHash(db, args[0], false);
+			boolean removed = null != hash && null != hash.remove(new Bytes(args[1]));
+			if(removed) {
+				changed();
+				if(hash.isEmpty()) db.remove(key(args[0]));
+			}
+			return Reply.bool(removed);
+		}
+		
+		// sorted sets
+		case ZADD:
+		{
+			double score = toDouble(args[1]);
+			ZSet zset = getZSet(db, args[0], true);
+			changed();
+			return Reply.bool(zset.add(new Bytes(args[2]), score));
+		}
+		case ZINCRBY:
+		{
+			double delta = toDouble(args[1]);
+			ZSet zset = getZSet(db, args[0], true);
+			Bytes member = new Bytes(args[2]);
+			Double prev = zset.score(member);
+			double score = (prev != null ? prev : 0) + delta;
+			changed();
+			zset.add(member, score);
+			return Reply.bulk(formatScore(score));
+		}
+		case ZREM:
+		{
+			ZSet zset = getZSet(db, args[0], false);
+			boolean removed = null != zset && zset.remove(new Bytes(args[1]));
+			if(removed) {
+				changed();
+				if(zset.size() == 0) db.remove(key(args[0]));
+			}
+			return Reply.bool(removed);
+		}
+		case ZCARD:
+		{
+			ZSet zset = getZSet(db, args[0], false);
+			return Reply.integer(null != zset ? zset.size() : 0);
+		}
+		case ZSCORE:
+		{
+			ZSet zset = getZSet(db, args[0], false);
+			Double score = null != zset ? zset.score(new Bytes(args[1])) : null;
+			return score != null ? Reply.bulk(formatScore(score)) : Reply.NIL;
+		}
+		case ZRANGE:
+		case ZRANGE$OPTS:
+		case ZREVRANGE:
+		case ZREVRANGE$OPTS:
+		{
+			boolean withScores = false;
+			for(int i=3; i<args.length; i++){
+				if(string(args[i]).equalsIgnoreCase("WITHSCORES")) withScores = true;
+				else throw new CommandError(ERR_SYNTAX);
+			}
+			ZSet zset = getZSet(db, args[0], false);
+			List<ZSet.Entry> entries = null != zset ? zset.entries() : new ArrayList<ZSet.Entry>();
+			if(cmd == Command.ZREVRANGE || cmd == Command.ZREVRANGE$OPTS) Collections.reverse(entries);
+			int[] range = range(entries.size(), toLong(args[1]), toLong(args[2]));
+			if(null == range) entries.clear();
+			else entries = entries.subList(range[0], range[1]+1);
+			return Reply.multiBulk(toList(entries, withScores));
+		}
+		case ZRANGEBYSCORE:
+		case ZRANGEBYSCORE$OPTS:
+		{
+			boolean withScores = false;
+			int offset = 0;
+			int count = -1;
+			for(int i=3; i<args.length; i++){
+				String opt = string(args[i]);
+				if(opt.equalsIgnoreCase("WITHSCORES")) withScores = true;
+				else if(opt.equalsIgnoreCase("LIMIT") && i+2 < args.length) {
+					offset = (int) toLong(args[++i]);
+					count = (int) toLong(args[++i]);
+				}
+				else throw new CommandError(ERR_SYNTAX);
+			}
+			List<ZSet.Entry> entries = scoreRange(db, args);
+			int from = Math.min(Math.max(offset, 0), entries.size());
+			int to = count < 0 ? entries.size() : Math.min(entries.size(), from + count);
+			return Reply.multiBulk(toList(entries.subList(from, to), withScores));
+		}
+		case ZCOUNT:
+			return Reply.integer(scoreRange(db, args).size());
+		case ZREMRANGEBYSCORE:
+		{
+			ZSet zset = getZSet(db, args[0], false);
+			if(null == zset) return Reply.ZERO;
+			int cnt = 0;
+			for(ZSet.Entry e : scoreRange(db, args)){
+				zset.remove(e.member);
+				cnt++;
+			}
+			if(cnt > 0) changed();
+			if(zset.size() == 0) db.remove(key(args[0]));
+			return Reply.integer(cnt);
+		}
+		
+		// databases
+		case SELECT:
+		{
+			long idx = toLong(args[0]);
+			if(idx < 0 || idx >= DB_CNT) throw new CommandError("ERR invalid DB index");
+			session.db = (int) idx;
+			return Reply.OK;
+		}
+		case FLUSHDB:
+			changed();
+			db.clear();
+			return Reply.OK;
+		case FLUSHALL:
+			changed();
+			for(Database d : databases) d.clear();
+			return Reply.OK;
+		case MOVE:
+		{
+			long idx = toLong(args[1]);
+			if(idx < 0 || idx >= DB_CNT) throw new CommandError("ERR index out of range");
+			Database target = databases[(int) idx];
+			if(target == db) throw new CommandError("ERR source and destination objects are the same");
+			Bytes k = key(args[0]);
+			Object value = db.get(k);
+			if(null == value || target.exists(k)) return Reply.ZERO;
+			changed();
+			db.remove(k);
+			target.put(k, value);
+			return Reply.ONE;
+		}
+		
+		// sort
+		case SORT:
+			return sort(db, args);
+			
+		// persistence
+		case SAVE:
+		case BGSAVE:
+			lastSave = System.currentTimeMillis() / 1000;
+			changes = 0;
+			return Reply.OK;
+		case BGREWRITEAOF:
+			return Reply.status("Background append only file rewriting started");
+		case LASTSAVE:
+			return Reply.integer(lastSave);
+		case SHUTDOWN:
+			session.closing = true;
+			server.stopAsynch();
+			return Reply.NONE;
+			
+		// remote server control
+		case ECHO:
+			return Reply.bulk(args[0]);
+		case DEBUG:
+		{
+			String sub = string(args[0]);
+			if(sub.equalsIgnoreCase("OBJECT")) {
+				Bytes k = key(args[1]);
+				Object value = db.get(k);
+				if(null == value) throw new CommandError(ERR_NO_KEY);
+				return Reply.status(String.format("Key at:0x%x refcount:1, value at:0x%x refcount:1 encoding:0 serializedlength:%d", 
+						System.identityHashCode(k), System.identityHashCode(value), serializedLength(value)));
+			}
+			if(sub.equalsIgnoreCase("RELOAD")) 
+				return Reply.OK;
+			throw new CommandError(ERR_SYNTAX);
+		}
+		case INFO:
+			return Reply.bulk(info().getBytes());
+		case SLAVEOF:
+			return Reply.OK;
+			
+		default:
+			return Reply.error("ERR command " + cmd.name() + " is not supported");
+		}
+	}
+	
+	// ------------------------------------------------------------------------
+	// Inner ops
+	// ------------------------------------------------------------------------
+	/** 
+	 * Pops from the first non-empty list of the blocking pop, per the non-blocking command. 
+	 * @return the reply, or null if all the lists are empty
+	 */
+	private Reply blockingPop (Session session, Command cmd, byte[][] args, Database db) {
+		if(cmd == Command.BRPOPLPUSH) {
+			if(null == getList(db, args[0], false)) return null;
+			return process(session, Command.RPOPLPUSH, args, db);
+		}
+		for(int i=0; i<args.length-1; i++){
+			if(null == getList(db, args[i], false)) continue;
+			Reply item = process(session, cmd == Command.BLPOP ? Command.LPOP : Command.RPOP, new byte[][]{args[i]}, db);
+			return Reply.multi(Arrays.asList(Reply.bulk(args[i]), item));
+		}
+		return null;
+	}
+	
+	private void changed () { changes++; }
+	
+	/** @return true if the command is processed (rather than queued) in a MULTI block */
+	private static boolean isTransactionControl (Command cmd) {
+		return cmd == Command.MULTI || cmd == Command.EXEC || cmd == Command.DISCARD || cmd == Command.QUIT;
+	}
+	
+	/** @return true if the command is processed in pub/sub mode */
+	private static boolean isSubscriptionControl (Command cmd) {
+		return cmd == Command.SUBSCRIBE || cmd == Command.UNSUBSCRIBE || cmd == Command.PSUBSCRIBE || cmd == Command.PUNSUBSCRIBE || cmd == Command.QUIT;
+	}
+	
+	/** 
+	 * Unsubscribe requests without args are for all channels (or patterns).
+	 * @return the confirmation of each channel (or pattern), with the session's subscription count 
+	 */
+	private static Reply subscription (Session session, Command cmd, byte[][] args) {
+		boolean subscribe = cmd == Command.SUBSCRIBE || cmd == Command.PSUBSCRIBE;
+		Set<Bytes> subscriptions = cmd == Command.SUBSCRIBE || cmd == Command.UNSUBSCRIBE ? session.channels : session.patterns;
+		byte[] kind = cmd.code.toLowerCase().getBytes();
+		
+		List<byte[]> names = new ArrayList<byte[]>();
+		if(!subscribe && args.length == 0) {
+			for(Bytes name : subscriptions) names.add(name.data);
+		}
+		else {
+			names.addAll(Arrays.asList(args));
+		}
+		
+		List<Reply> confirmations = new ArrayList<Reply>();
+		for(byte[] name : names) {
+			if(subscribe) subscriptions.add(key(name));
+			else subscriptions.remove(key(name));
+			confirmations.add(Reply.multi(Arrays.asList(Reply.bulk(kind), Reply.bulk(name), Reply.integer(session.channels.size() + session.patterns.size()))));
+		}
+		if(confirmations.isEmpty())
+			confirmations.add(Reply.multi(Arrays.asList(Reply.bulk(kind), Reply.NIL, Reply.integer(session.channels.size() + session.patterns.size()))));
+		return Reply.sequence(confirmations);
+	}
+	
+	private Reply incrBy (Database db, byte[] key, long delta) {
+		byte[] value = getString(db, key);
+		long n = 0;
+		if(null != value) n = toLong(value);
+		n += delta;
+		changed();
+		db.put(key(key), Long.toString(n).getBytes());
+		return Reply.integer(n);
+	}
+	
+	private Set<Bytes> setOperation (Database db, Command cmd, byte[][] args, int first) {
+		Set<Bytes> result = null;
+		for(int i=first; i<args.length; i++){
+			Set<Bytes> set = getSet(db, args[i], false);
+			if(null == set) set = Collections.emptySet();
+			if(null == result) {
+				result = new HashSet<Bytes>(set);
+				continue;
+			}
+			switch (cmd) {
+			case SINTER: case SINTERSTORE: result.retainAll(set); break;
+			case SUNION: case SUNIONSTORE: result.addAll(set); break;
+			default: result.removeAll(set); break;
+			}
+		}
+		if(null == result) throw new CommandError("ERR wrong number of arguments");
+		return result;
+	}
+	
+	private List<ZSet.Entry> scoreRange (Database db, byte[][] args) {
+		ZSet zset = getZSet(db, args[0], false);
+		if(null == zset) return new ArrayList<ZSet.Entry>();
+		String min = string(args[1]);
+		String max = string(args[2]);
+		boolean minExclusive = min.startsWith("(");
+		boolean maxExclusive = max.startsWith("(");
+		return zset.range(
+				toDouble((minExclusive ? min.substring(1) : min).getBytes()), minExclusive, 
+				toDouble((maxExclusive ? max.substring(1) : max).getBytes()), maxExclusive);
+	}
+	
+	/**
+	 * The keys are scanned in the order of their (unsigned) hash, and the cursor is that of the 
+	 * next hash to scan (plus one) -- keys that exist for the duration of the scan are returned
+	 * exactly once.  As with Redis, COUNT keys are scanned before MATCH is applied.
+	 */
+	private static Reply scan (Database db, byte[][] args) {
+		long cursor;
+		try { cursor = Long.parseLong(string(args[0])); }
+		catch (NumberFormatException e) { throw new CommandError("ERR invalid cursor"); }
+		byte[] pattern = null;
+		long count = 10;
+		for(int i=1; i<args.length; i++){
+			String opt = string(args[i]);
+			if(opt.equalsIgnoreCase("MATCH") && i+1 < args.length) pattern = args[++i];
+			else if(opt.equalsIgnoreCase("COUNT") && i+1 < args.length) count = toLong(args[++i]);
+			else throw new CommandError(ERR_SYNTAX);
+		}
+		if(cursor < 0 || count < 1) throw new CommandError(ERR_SYNTAX);
+		
+		List<Bytes> keys = db.keys();
+		Collections.sort(keys, HASH_ORDER);
+		long from = cursor == 0 ? 0 : cursor - 1;
+		List<byte[]> scanned = new ArrayList<byte[]>();
+		long next = 0;
+		int n = 0;
+		long last = -1;
+		for(Bytes k : keys){
+			long hash = k.hashCode() & 0xFFFFFFFFL;
+			if(hash < from) continue;
+			if(n >= count && hash != last) {
+				next = hash + 1;
+				break;
+			}
+			n++;
+			last = hash;
+			if(null == pattern || GlobPattern.matches(pattern, k.data))
+				scanned.add(k.data);
+		}
+		List<Reply> reply = new ArrayList<Reply>(2);
+		reply.add(Reply.bulk(String.valueOf(next).getBytes()));
+		reply.add(Reply.multiBulk(scanned));
+		return Reply.multi(reply);
+	}
+	
+	/** order of keys of SCAN */
+	private static final Comparator<Bytes> HASH_ORDER = new Comparator<Bytes>() {
+		public int compare (Bytes a, Bytes b) {
+			long ha = a.hashCode() & 0xFFFFFFFFL;
+			long hb = b.hashCode() & 0xFFFFFFFFL;
+			return ha < hb ? -1 : ha > hb ? 1 : a.compareTo(b);
+		}
+	};
+	
+	/**
+	 * SORT key [BY pattern] [LIMIT offset count] [GET pattern]* [ASC|DESC] [ALPHA] [STORE dstkey]
+	 * <p>
+	 * Note that as with Redis, the response to a STORE sort is the count of stored elements. 
+	 */
+	private Reply sort (final Database db, byte[][] args) {
+		byte[] by = null;
+		int offset = 0;
+		int count = -1;
+		List<byte[]> gets = new ArrayList<byte[]>();
+		boolean desc = false;
+		boolean alpha = false;
+		byte[] store = null;
+		for(int i=1; i<args.length; i++){
+			String opt = string(args[i]);
+			if(opt.equalsIgnoreCase("BY") && i+1 < args.length) by = args[++i];
+			else if(opt.equalsIgnoreCase("LIMIT") && i+2 < args.length) {
+				offset = (int) toLong(args[++i]);
+				count = (int) toLong(args[++i]);
+			}
+			else if(opt.equalsIgnoreCase("GET") && i+1 < args.length) gets.add(args[++i]);
+			else if(opt.equalsIgnoreCase("ASC")) desc = false;
+			else if(opt.equalsIgnoreCase("DESC")) desc = true;
+			else if(opt.equalsIgnoreCase("ALPHA")) alpha = true;
+			else if(opt.equalsIgnoreCase("STORE") && i+1 < args.length) store = args[++i];
+			else throw new CommandError(ERR_SYNTAX);
+		}
+		
+		Object value = db.get(key(args[0]));
+		List<byte[]> elements = new ArrayList<byte[]>();
+		if(value instanceof LinkedList<?>) {
+			elements.addAll(getList(db, args[0], false));
+		}
+		else if(value instanceof Set<?>) {
+			elements.addAll(toList(getSet(db, args[0], false)));
+		}
+		else if(value instanceof ZSet) {
+			elements.addAll(toList(((ZSet) value).entries(), false));
+		}
+		else if(null != value) {
+			throw new CommandError(ERR_WRONG_TYPE);
+		}
+		
+		boolean nosort = null != by && indexOf(by, (byte) '*') == -1;
+		if(!nosort){
+			final byte[] byPattern = by;
+			final boolean isAlpha = alpha;
+			// compute the weights up front, as Redis does
+			final List<Object> weights = new ArrayList<Object>(elements.size());
+			for(byte[] e : elements){
+				byte[] w = null != byPattern ? lookup(db, byPattern, e) : e;
+				if(isAlpha) weights.add(null != w ? new Bytes(w) : new Bytes(new byte[0]));
+				else {
+					try { weights.add(null != w ? Double.parseDouble(string(w)) : 0d); }
+					catch (NumberFormatException ex) { throw new CommandError("ERR One or more scores can't be converted into double"); }
+				}
+			}
+			Integer[] order = new Integer[elements.size()];
+			for(int i=0; i<order.length; i++) order[i] = i;
+			final boolean descending = desc;
+			Arrays.sort(order, new Comparator<Integer>() {
+				@SuppressWarnings("unchecked")
+				public int compare (Integer a, Integer b) {
+					int c = ((Comparable<Object>) weights.get(a)).compareTo(weights.get(b));
+					return descending ? -c : c;
+				}
+			});
+			List<byte[]> sorted = new ArrayList<byte[]>(elements.size());
+			for(Integer i : order) sorted.add(elements.get(i));
+			elements = sorted;
+		}
+		
+		int from = Math.min(Math.max(offset, 0), elements.size());
+		int to = count < 0 ? elements.size() : Math.min(elements.size(), from + count);
+		elements = elements.subList(from, to);
+		
+		List<byte[]> result = elements;
+		if(!gets.isEmpty()){
+			result = new ArrayList<byte[]>(elements.size() * gets.size());
+			for(byte[] e : elements)
+				for(byte[] pattern : gets)
+					result.add(pattern.length == 1 && pattern[0] == '#' ? e : lookup(db, pattern, e));
+		}
+		
+		if(null != store){
+			LinkedList<byte[]> list = new LinkedList<byte[]>();
+			for(byte[] r : result) list.add(null != r ? r : new byte[0]);
+			changed();
+			if(list.isEmpty()) db.remove(key(store));
+			else db.put(key(store), list);
+			return Reply.integer(list.size());
+		}
+		return Reply.multiBulk(result);
+	}
+	
+	/** @return the string value of the key given by substituting the first '*' in the pattern */
+	private byte[] lookup (Database db, byte[] pattern, byte[] subst) {
+		int star = indexOf(pattern, (byte) '*');
+		if(star == -1) return null;
+		byte[] k = new byte[pattern.length - 1 + subst.length];
+		System.arraycopy(pattern, 0, k, 0, star);
+		System.arraycopy(subst, 0, k, star, subst.length);
+		System.arraycopy(pattern, star+1, k, star + subst.length, pattern.length - star - 1);
+		Object value = db.get(key(k));
+		return value instanceof byte[] ? (byte[]) value : null;
+	}
+	
+	/** @return the sum of the lengths of the elements of the value -- approximates the length of its dump */
+	@SuppressWarnings("unchecked")
+	private static long serializedLength (Object value) {
+		long len = 0;
+		if(value instanceof byte[]) 
+			len = ((byte[]) value).length;
+		else if(value instanceof LinkedList<?>)
+			for(byte[] e : (LinkedList<byte[]>) value) len += e.length;
+		else if(value instanceof Set<?>)
+			for(Bytes e : (Set<Bytes>) value) len += e.data.length;
+		else if(value instanceof Map<?, ?>)
+			for(Map.Entry<Bytes, byte[]> e : ((Map<Bytes, byte[]>) value).entrySet()) len += e.getKey().data.length + e.getValue().length;
+		else
+			for(ZSet.Entry e : ((ZSet) value).entries()) len += e.member.data.length + 8;
+		return len;
+	}
+	
+	private String info () {
+		long uptime = (System.currentTimeMillis() - startTime) / 1000;
+		long memory = Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
+		StringBuilder buff = new StringBuilder();
+		buff.append("redis_version:").append(REDIS_VERSION).append("\r\n");
+		buff.append("arch_bits:64\r\n");
+		buff.append("multiplexing_api:nio\r\n");
+		buff.append("uptime_in_seconds:").append(uptime).append("\r\n");
+		buff.append("uptime_in_days:").append(uptime / 86400).append("\r\n");
+		buff.append("connected_clients:").append(server.getClientCount()).append("\r\n");
+		buff.append("connected_slaves:0\r\n");
+		buff.append("used_memory:").append(memory).append("\r\n");
+		buff.append("used_memory_human:").append(memory / (1024*1024)).append("M\r\n");
+		buff.append("changes_since_last_save:").append(changes).append("\r\n");
+		buff.append("bgsave_in_progress:0\r\n");
+		buff.append("last_save_time:").append(lastSave).append("\r\n");
+		buff.append("bgrewriteaof_in_progress:0\r\n");
+		buff.append("total_connections_received:").append(server.getConnectionCount()).append("\r\n");
+		buff.append("total_commands_processed:").append(processed).append("\r\n");
+		buff.append("role:master\r\n");
+		for(int i=0; i<DB_CNT; i++){
+			int keys = databases[i].size();
+			if(keys > 0)
+				buff.append("db").append(i).append(":keys=").append(keys).append(",expires=").append(databases[i].volatileSize()).append("\r\n");
+		}
+		return buff.toString();
+	}
+	
+	// ------------------------------------------------------------------------
+	// Type access
+	// ------------------------------------------------------------------------
+	private static String typeOf (Object value) {
+		if(null == value) return "none";
+		if(value instanceof byte[]) return "string";
+		if(value instanceof LinkedList<?>) return "list";
+		if(value instanceof Set<?>) return "set";
+		if(value instanceof Map<?, ?>) return "hash";
+		return "zset";
+	}
+	
+	private static byte[] getString (Database db, byte[] key) {
+		Object value = db.get(key(key));
+		if(null != value && !(value instanceof byte[])) throw new CommandError(ERR_WRONG_TYPE);
+		return (byte[]) value;
+	}
+	
+	@SuppressWarnings("unchecked")
+	private static LinkedList<byte[]> getList (Database db, byte[] key, boolean create) {
+		Bytes k = key(key);
+		Object value = db.get(k);
+		if(null == value && create) {
+			value = new LinkedList<byte[]>();
+			db.put(k, value);
+		}
+		if(null != value && !(value instanceof LinkedList<?>)) throw new CommandError(ERR_WRONG_TYPE);
+		return (LinkedList<byte[]>) value;
+	}
+	
+	@SuppressWarnings("unchecked")
+	private static Set<Bytes> getSet (Database db, byte[] key, boolean create) {
+		Bytes k = key(key);
+		Object value = db.get(k);
+		if(null == value && create) {
+			value = new HashSet<Bytes>();
+			db.put(k, value);
+		}
+		if(null != value && !(value instanceof Set<?>)) throw new CommandError(ERR_WRONG_TYPE);
+		return (Set<Bytes>) value;
+	}
+	
+	@SuppressWarnings("unchecked")
+	private static Map<Bytes, byte[]> getHash (Database db, byte[] key, boolean create) {
+		Bytes k = key(key);
+		Object value = db.get(k);
+		if(null == value && create) {
+			value = new LinkedHashMap<Bytes, byte[]>();
+			db.put(k, value);
+		}
+		if(null != value && !(value instanceof Map<?, ?>)) throw new CommandError(ERR_WRONG_TYPE);
+		return (Map<Bytes, byte[]>) value;
+	}
+	
+	private static ZSet getZSet (Database db, byte[] key, boolean create) {
+		Bytes k = key(key);
+		Object value = db.get(k);
+		if(null == value && create) {
+			value = new ZSet();
+			db.put(k, value);
+		}
+		if(null != value && !(value instanceof ZSet)) throw new CommandError(ERR_WRONG_TYPE);
+		return (ZSet) value;
+	}
+	
+	// ------------------------------------------------------------------------
+	// Conversions
+	// ------------------------------------------------------------------------
+	private static Bytes key (byte[] key) { return new Bytes(key); }
+	
+	private static String string (byte[] b) { return new String(b); }
+	
+	private static long toLong (byte[] b) {
+		try { return Long.parseLong(string(b).trim()); }
+		catch (NumberFormatException e) { throw new CommandError(ERR_NOT_INTEGER); }
+	}
+	
+	private static double toDouble (byte[] b) {
+		String s = string(b).trim();
+		if(s.equalsIgnoreCase("inf") || s.equalsIgnoreCase("+inf")) return Double.POSITIVE_INFINITY;
+		if(s.equalsIgnoreCase("-inf")) return Double.NEGATIVE_INFINITY;
+		try { return Double.parseDouble(s); }
+		catch (NumberFormatException e) { throw new CommandError(ERR_NOT_DOUBLE); }
+	}
+	
+	static byte[] formatScore (double score) {
+		if(Double.isInfinite(score)) return (score > 0 ? "inf" : "-inf").getBytes();
+		if(score == Math.rint(score) && Math.abs(score) < 1e15) return Long.toString((long) score).getBytes();
+		return Double.toString(score).getBytes();
+	}
+	
+	/** 
+	 * normalizes the (possibly negative) inclusive index range per Redis semantics 
+	 * @return {from, to} inclusive, or null if empty 
+	 */
+	private static int[] range (int size, long start, long end) {
+		if(start < 0) start = size + start;
+		if(end < 0) end = size + end;
+		if(start < 0) start = 0;
+		if(end >= size) end = size - 1;
+		if(start > end || start >= size) return null;
+		return new int[]{(int) start, (int) end};
+	}
+	
+	private static List<byte[]> toList (Collection<Bytes> members) {
+		List<byte[]> list = new ArrayList<byte[]>(members.size());
+		for(Bytes b : members) list.add(b.data);
+		return list;
+	}
+	
+	private static List<byte[]> toList (List<ZSet.Entry> entries, boolean withScores) {
+		List<byte[]> list = new ArrayList<byte[]>(entries.size() * (withScores ? 2 : 1));
+		for(ZSet.Entry e : entries) {
+			list.add(e.member.data);
+			if(withScores) list.add(formatScore(e.score));
+		}
+		return list;
+	}
+	
+	private static int indexOf (byte[] b, byte c) {
+		for(int i=0; i<b.length; i++) if(b[i] == c) return i;
+		return -1;
+	}
+}
@@ -0,0 +1,136 @@
+/*
+ *   Copyright 2009 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+
+package org.jredis.fake;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * A single (SELECTable) database of the {@link FakeRedisServer}.  Values are
+ * <code>byte[]</code> (strings), {@link java.util.LinkedList} (lists), 
+ * {@link java.util.HashSet} of {@link Bytes} (sets), {@link ZSet} (sorted sets), and
+ * {@link java.util.LinkedHashMap} of {@link Bytes} fields to <code>byte[]</code> values (hashes).
+ * <p>
+ * Expiration is lazy, as keys are accessed, and (as with Redis) with a resolution
+ * of seconds: a key expires once the current time is past its expiration second.
+ * <p>
+ * Not thread safe -- all access is by the server's processor.
+ * 
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, Apr 27, 2010
+ * @since   alpha.0
+ * 
+ */
+final class Database {
+	// ------------------------------------------------------------------------
+	// Properties
+	// ------------------------------------------------------------------------
+	private final Map<Bytes, Object> 	data = new HashMap<Bytes, Object>();
+	private final Map<Bytes, Long>		expires = new HashMap<Bytes, Long>();
+	
+	// ------------------------------------------------------------------------
+	// Interface
+	// ------------------------------------------------------------------------
+	/** @return the value or null if none or expired */
+	Object get (Bytes key) {
+		Long expiry = expires.get(key);
+		if(expiry != null && expiry < now()){
+			data.remove(key);
+			expires.remove(key);
+			return null;
+		}
+		return data.get(key);
+	}
+	
+	/** Sets the value and clears any expiration. */
+	void put (Bytes key, Object value) {
+		data.put(key, value);
+		expires.remove(key);
+	}
+	
+	boolean remove (Bytes key) {
+		boolean existed = get(key) != null;
+		data.remove(key);
+		expires.remove(key);
+		return existed;
+	}
+	
+	boolean exists (Bytes key) {
+		return get(key) != null;
+	}
+	
+	void setExpiry (Bytes key, long epochSecs) {
+		expires.put(key, epochSecs);
+	}
+	
+	/** @return the expiration (epoch seconds) or -1 if none */
+	long getExpiry (Bytes key) {
+		Long expiry = expires.get(key);
+		return expiry != null ? expiry : -1;
+	}
+	
+	/** @return number of keys -- purges expired keys */
+	int size () {
+		purgeExpired();
+		return data.size();
+	}
+	
+	int volatileSize () {
+		purgeExpired();
+		return expires.size();
+	}
+	
+	/** @return snapshot of the (live) keys */
+	List<Bytes> keys () {
+		purgeExpired();
+		return new ArrayList<Bytes>(data.keySet());
+	}
+	
+	Bytes randomKey (Random random) {
+		List<Bytes> keys = keys();
+		return keys.isEmpty() ? null : keys.get(random.nextInt(keys.size()));
+	}
+	
+	void clear () {
+		data.clear();
+		expires.clear();
+	}
+	
+	// ------------------------------------------------------------------------
+	// Inner ops
+	// ------------------------------------------------------------------------
+	/** @return current epoch time in seconds */
+	static long now () {
+		return System.currentTimeMillis() / 1000;
+	}
+	
+	private void purgeExpired () {
+		long now = now();
+		for(Iterator<Map.Entry<Bytes, Long>> it = expires.entrySet().iterator(); it.hasNext();){
+			Map.Entry<Bytes, Long> e = it.next();
+			if(e.getValue() < now){
+				data.remove(e.getKey());
+				it.remove();
+			}
+		}
+	}
+}
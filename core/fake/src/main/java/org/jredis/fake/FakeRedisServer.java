@@ -0,0 +1,546 @@
+/*
+ *   Copyright 2009 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+
+package org.jredis.fake;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.jredis.fake.RequestReader.Invocation;
+import org.jredis.fake.RequestReader.ProtocolError;
+import org.jredis.fake.Session.PendingReply;
+import org.jredis.protocol.Command;
+
+/**
+ * An embeddable, in-process stand-in for a Redis server, for use by tests and 
+ * benchmarks in environments where a live Redis server is not available.
+ * <p>
+ * The server speaks the same protocol as the JRedis connectors and implements the
+ * semantics of the {@link Command}s on in-memory data sets.  (There is no persistence,
+ * replication, or MONITOR.)  Published messages are pushed to the subscribed clients, and
+ * blocking pops block (only) the requesting client.
+ * A single NIO selector thread services all clients 
+ * and requests are processed in arrival order, so the server is (much like Redis itself)
+ * single threaded.
+ * <p>
+ * Any number of instances can be run, e.g. one per node of a test cluster.  By default 
+ * a server listens on an ephemeral port of the loopback interface.
+ * <p>
+ * For performance and fault tolerance testing, each {@link Command} can be configured
+ * with a response latency and a {@link Fault} that is injected with a given probability.
+ * Latency does not block the server: the response (and those of requests pipelined 
+ * after it on the same connection) is simply held back until it is due.
+ * <p>
+ * Usage:
+ * <pre><code>
+ * FakeRedisServer server = new FakeRedisServer().setPassword("jredis").start();
+ * JRedis jredis = new JRedisClient("localhost", server.getPort(), "jredis", 0);
+ * ...
+ * server.setLatency(Command.GET, 5, TimeUnit.MILLISECONDS);
+ * server.injectFault(Command.SET, Fault.DISCONNECT, 0.01);
+ * ...
+ * server.stop();
+ * </code></pre>
+ * 
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, Apr 27, 2010
+ * @since   alpha.0
+ * 
+ */
+public final class FakeRedisServer {
+	// ------------------------------------------------------------------------
+	// Inner Type
+	// ------------------------------------------------------------------------
+	/** injected fault and its probability */
+	private static final class FaultSpec {
+		final Fault		fault;
+		final double	probability;
+		FaultSpec (Fault fault, double probability){
+			this.fault = fault;
+			this.probability = probability;
+		}
+	}
+	
+	// ------------------------------------------------------------------------
+	// Consts
+	// ------------------------------------------------------------------------
+	/** kinds of the pushed pub/sub messages */
+	private static final byte[] MESSAGE = "message".getBytes();
+	private static final byte[] PMESSAGE = "pmessage".getBytes();
+	
+	// ------------------------------------------------------------------------
+	// Properties
+	// ------------------------------------------------------------------------
+	private final InetSocketAddress		bindAddress;
+	private final CommandProcessor		processor = new CommandProcessor(this);
+	
+	private final Map<Command, Long>		latencies = new ConcurrentHashMap<Command, Long>();
+	private volatile long					defaultLatency = 0;
+	private final Map<Command, FaultSpec>	faults = new ConcurrentHashMap<Command, FaultSpec>();
+	private final Random					random = new Random();
+	
+	private ServerSocketChannel		serverChannel;
+	private Selector				selector;
+	private Thread					thread;
+	private volatile boolean		running;
+	
+	/** accessed only by the server thread */
+	private final Set<Session>		sessions = new HashSet<Session>();
+	/** the sessions blocked on blocking pops, in the order they blocked -- accessed on the server thread */
+	private final List<Session>		blocked = new ArrayList<Session>();
+	/** set while the blocked sessions are served -- accessed on the server thread */
+	private boolean					unblocking;
+	private volatile int			clientCount = 0;
+	private final AtomicLong		connectionCount = new AtomicLong();
+	
+	// ------------------------------------------------------------------------
+	// Constructor(s)
+	// ------------------------------------------------------------------------
+	/**
+	 * A server on an ephemeral port of the loopback interface.
+	 * @see FakeRedisServer#getPort()
+	 */
+	public FakeRedisServer () {
+		this(0);
+	}
+	
+	/**
+	 * @param port a specific port (of the loopback interface) or 0 for an ephemeral port
+	 */
+	public FakeRedisServer (int port) {
+		this(new InetSocketAddress("127.0.0.1", port));
+	}
+	
+	/**
+	 * @param bindAddress
+	 */
+	public FakeRedisServer (InetSocketAddress bindAddress) {
+		if(null == bindAddress) throw new IllegalArgumentException("null bindAddress");
+		this.bindAddress = bindAddress;
+	}
+	
+	// ------------------------------------------------------------------------
+	// Configuration
+	// ------------------------------------------------------------------------
+	/**
+	 * Clients will be required to AUTH with the password, when set.  If not set, AUTH
+	 * with any password is accepted.
+	 * @param password or null
+	 * @return this
+	 */
+	public FakeRedisServer setPassword (String password) {
+		processor.setPassword(password);
+		return this;
+	}
+	
+	/**
+	 * Sets the response latency of all commands that do not have a specific latency set.
+	 * @param latency
+	 * @param unit
+	 * @return this
+	 */
+	public FakeRedisServer setLatency (long latency, TimeUnit unit) {
+		if(latency < 0) throw new IllegalArgumentException("latency: " + latency);
+		defaultLatency = unit.toNanos(latency);
+		return this;
+	}
+	
+	/**
+	 * Sets the response latency of the command.
+	 * @param cmd
+	 * @param latency
+	 * @param unit
+	 * @return this
+	 */
+	public FakeRedisServer setLatency (Command cmd, long latency, TimeUnit unit) {
+		if(null == cmd) throw new IllegalArgumentException("null cmd");
+		if(latency < 0) throw new IllegalArgumentException("latency: " + latency);
+		latencies.put(cmd, unit.toNanos(latency));
+		return this;
+	}
+	
+	/**
+	 * Injects the fault in the processing of the given command, with the given probability.
+	 * @param cmd
+	 * @param fault
+	 * @param probability in range (0, 1] -- 1 for every request.
+	 * @return this
+	 */
+	public FakeRedisServer injectFault (Command cmd, Fault fault, double probability) {
+		if(null == cmd) throw new IllegalArgumentException("null cmd");
+		if(null == fault) throw new IllegalArgumentException("null fault");
+		if(probability <= 0 || probability > 1) throw new IllegalArgumentException("probability: " + probability);
+		faults.put(cmd, new FaultSpec(fault, probability));
+		return this;
+	}
+	
+	/**
+	 * Removes all injected faults and latencies.
+	 * @return this
+	 */
+	public FakeRedisServer reset () {
+		faults.clear();
+		latencies.clear();
+		defaultLatency = 0;
+		return this;
+	}
+	
+	// ------------------------------------------------------------------------
+	// Interface
+	// ------------------------------------------------------------------------
+	/**
+	 * Binds the server socket and starts servicing clients.
+	 * @return this
+	 * @throws IOException if the server socket can not be bound 
+	 * @throws IllegalStateException if already running
+	 */
+	public synchronized FakeRedisServer start () throws IOException {
+		if(running) throw new IllegalStateException("already running");
+		
+		selector = Selector.open();
+		serverChannel = ServerSocketChannel.open();
+		serverChannel.socket().setReuseAddress(true);
+		serverChannel.socket().bind(bindAddress);
+		serverChannel.configureBlocking(false);
+		serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+		
+		running = true;
+		thread = new Thread(new Runnable() {
+			public void run () { serve(); }
+		}, "fake-redis-server:" + getPort());
+		thread.setDaemon(true);
+		thread.start();
+		return this;
+	}
+	
+	/**
+	 * Stops the server and closes all client connections.  Data is retained and 
+	 * the server can be restarted.
+	 */
+	public synchronized void stop () {
+		if(null == thread) return;
+		stopAsynch();
+		try {
+			if(Thread.currentThread() != thread) thread.join();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		thread = null;
+	}
+	
+	/** @return true if started and not stopped */
+	public boolean isRunning () {
+		return running;
+	}
+	
+	/** @return the port the server is listening on -- valid after {@link FakeRedisServer#start()} */
+	public int getPort () {
+		ServerSocketChannel channel = serverChannel;
+		return null != channel ? channel.socket().getLocalPort() : bindAddress.getPort();
+	}
+	
+	/** Removes all keys of all databases */
+	public void flushAll () {
+		processor.flushAll();
+	}
+	
+	/** @return total number of requests processed */
+	public long getProcessedCount () {
+		return processor.getProcessedCount();
+	}
+	
+	/** @return number of currently connected clients */
+	public int getClientCount () {
+		return clientCount;
+	}
+	
+	/** @return total number of client connections accepted */
+	public long getConnectionCount () {
+		return connectionCount.get();
+	}
+	
+	// ------------------------------------------------------------------------
+	// Inner ops
+	// ------------------------------------------------------------------------
+	/** signals the server thread to stop -- used by SHUTDOWN */
+	void stopAsynch () {
+		running = false;
+		Selector s = selector;
+		if(null != s) s.wakeup();
+	}
+	
+	/**
+	 * Pushes the message to the sessions subscribed to the channel, or to patterns matching it.
+	 * Called by the processor, on the server thread.
+	 * @return the number of subscriptions the message was pushed to
+	 */
+	int publish (byte[] channel, byte[] message) {
+		int receivers = 0;
+		Bytes key = new Bytes(channel);
+		for(Session session : sessions){
+			if(session.closing) continue;
+			if(session.channels.contains(key)) {
+				queue(session, null, Reply.multi(Arrays.asList(Reply.bulk(MESSAGE), Reply.bulk(channel), Reply.bulk(message))), false);
+				receivers++;
+			}
+			for(Bytes pattern : session.patterns){
+				if(!GlobPattern.matches(pattern.data, channel)) continue;
+				queue(session, null, Reply.multi(Arrays.asList(Reply.bulk(PMESSAGE), Reply.bulk(pattern.data), Reply.bulk(channel), Reply.bulk(message))), false);
+				receivers++;
+			}
+		}
+		return receivers;
+	}
+	
+	/** the server thread's loop */
+	private void serve () {
+		try {
+			while(running) {
+				long waitNanos = expireBlocked();
+				long flushNanos = flushDueReplies();
+				if(waitNanos == 0 || (flushNanos != 0 && flushNanos < waitNanos)) waitNanos = flushNanos;
+				if(waitNanos == 0) selector.select();
+				else selector.select(Math.max(1, TimeUnit.NANOSECONDS.toMillis(waitNanos)));
+				
+				Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+				while(it.hasNext()){
+					SelectionKey key = it.next();
+					it.remove();
+					if(!key.isValid()) continue;
+					if(key.isAcceptable()) accept();
+					else {
+						Session session = (Session) key.attachment();
+						if(key.isReadable()) read(session);
+						if(key.isValid() && key.isWritable()) write(session);
+					}
+				}
+			}
+		}
+		catch (IOException e) {
+			System.err.format("FakeRedisServer:%d -- server loop terminated: %s\n", getPort(), e);
+		}
+		finally {
+			running = false;
+			for(Session session : new ArrayList<Session>(sessions)) close(session);
+			try { serverChannel.close(); } catch (IOException ignore) {}
+			try { selector.close(); } catch (IOException ignore) {}
+			serverChannel = null;
+		}
+	}
+	
+	private void accept () throws IOException {
+		SocketChannel channel = serverChannel.accept();
+		if(null == channel) return;
+		channel.configureBlocking(false);
+		channel.socket().setTcpNoDelay(true);
+		SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+		Session session = new Session(channel, key, null == processor.getPassword());
+		key.attach(session);
+		sessions.add(session);
+		clientCount = sessions.size();
+		connectionCount.incrementAndGet();
+	}
+	
+	private void read (Session session) {
+		try {
+			ByteBuffer input = session.input;
+			input.compact();
+			if(!input.hasRemaining()){
+				ByteBuffer larger = ByteBuffer.allocate(input.capacity() * 2);
+				input.flip();
+				larger.put(input);
+				input = session.input = larger;
+			}
+			int n = session.channel.read(input);
+			input.flip();
+			if(n == -1) {
+				close(session);
+				return;
+			}
+			serviceInput(session);
+		}
+		catch (IOException e) {
+			close(session);
+		}
+	}
+	
+	/** services the requests read by the session, until it blocks */
+	private void serviceInput (Session session) {
+		try {
+			Invocation invocation;
+			while(!session.closing && null == session.blocked && (invocation = RequestReader.read(session.input)) != null)
+				service(session, invocation);
+		}
+		catch (ProtocolError e) {
+			queue(session, null, Reply.error("ERR Protocol error: " + e.getMessage()), true);
+		}
+	}
+	
+	private void service (Session session, Invocation invocation) {
+		Command cmd = invocation.cmd;
+		if(null != cmd) {
+			FaultSpec spec = faults.get(cmd);
+			if(null != spec && (spec.probability >= 1 || random.nextDouble() < spec.probability)){
+				switch (spec.fault) {
+				case ERROR:
+					queue(session, cmd, Reply.error("ERR injected fault for " + invocation.name), false);
+					return;
+				case DISCONNECT:
+					close(session);
+					return;
+				case NO_RESPONSE:
+					return;
+				}
+			}
+		}
+		Reply reply = processor.process(session, invocation);
+		if(reply == Reply.BLOCKED) {
+			blocked.add(session);
+			return;
+		}
+		queue(session, cmd, reply, session.closing);
+		if(!blocked.isEmpty()) unblock();
+	}
+	
+	/**
+	 * Serves the blocked sessions that can be served (e.g. after a push to the lists they are blocked on),
+	 * in the order they blocked, and resumes the servicing of their requests.
+	 */
+	private void unblock () {
+		if(unblocking) return;
+		unblocking = true;
+		try {
+			boolean served = true;
+			while(served) {
+				served = false;
+				for(Session session : new ArrayList<Session>(blocked)){
+					if(null == session.blocked) continue;
+					Command cmd = session.blocked.cmd;
+					Reply reply = processor.serveBlocked(session);
+					if(null == reply) continue;
+					blocked.remove(session);
+					queue(session, cmd, reply, false);
+					serviceInput(session);
+					served = true;
+				}
+			}
+		}
+		finally {
+			unblocking = false;
+		}
+	}
+	
+	/**
+	 * Replies to the blocked sessions whose timeout has elapsed.
+	 * @return nanos till the next timeout, or 0 if none are pending. 
+	 */
+	private long expireBlocked () {
+		long next = 0;
+		long now = System.nanoTime();
+		for(Session session : new ArrayList<Session>(blocked)){
+			Session.Blocked b = session.blocked;
+			if(b.deadlineNanos == 0) continue;
+			long wait = b.deadlineNanos - now;
+			if(wait <= 0) {
+				blocked.remove(session);
+				queue(session, b.cmd, processor.timeoutBlocked(session), false);
+				serviceInput(session);
+			}
+			else if(next == 0 || wait < next) {
+				next = wait;
+			}
+		}
+		return next;
+	}
+	
+	/** queues the reply per the latency of the command */
+	private void queue (Session session, Command cmd, Reply reply, boolean close) {
+		Long latency = null != cmd ? latencies.get(cmd) : null;
+		long delay = null != latency ? latency : defaultLatency;
+		long due = Math.max(System.nanoTime() + delay, session.lastDueNanos());
+		session.replies.add(new PendingReply(reply.bytes, due, close));
+		if(close) session.closing = true;
+	}
+	
+	/**
+	 * Writes all replies that are due.
+	 * @return nanos till the next reply is due, or 0 if none are pending. 
+	 */
+	private long flushDueReplies () {
+		long next = 0;
+		for(Session session : new ArrayList<Session>(sessions)){
+			write(session);
+			if(session.replies.isEmpty() || (session.key.interestOps() & SelectionKey.OP_WRITE) != 0) 
+				continue;
+			long wait = Math.max(1, session.replies.getFirst().dueNanos - System.nanoTime());
+			if(next == 0 || wait < next) next = wait;
+		}
+		return next;
+	}
+	
+	/** writes the due replies of the session */
+	private void write (Session session) {
+		if(!session.channel.isOpen()) return;
+		try {
+			long now = System.nanoTime();
+			while(!session.replies.isEmpty()){
+				PendingReply reply = session.replies.getFirst();
+				if(reply.dueNanos > now) break;
+				session.channel.write(reply.data);
+				if(reply.data.hasRemaining()) {
+					session.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+					return;
+				}
+				session.replies.removeFirst();
+				if(reply.close) {
+					close(session);
+					return;
+				}
+			}
+			session.key.interestOps(SelectionKey.OP_READ);
+		}
+		catch (IOException e) {
+			close(session);
+		}
+	}
+	
+	private void close (Session session) {
+		session.closing = true;
+		session.key.cancel();
+		try { session.channel.close(); } catch (IOException ignore) {}
+		session.replies.clear();
+		sessions.remove(session);
+		blocked.remove(session);
+		clientCount = sessions.size();
+	}
+}
@@ -0,0 +1,36 @@
+/*
+ *   Copyright 2009 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+
+package org.jredis.fake;
+
+/**
+ * Faults that can be injected into the processing of specific commands by the 
+ * {@link FakeRedisServer}.
+ * 
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, Apr 27, 2010
+ * @since   alpha.0
+ * @see FakeRedisServer#injectFault(org.jredis.protocol.Command, Fault, double)
+ */
+public enum Fault {
+	/** command is not processed and an error response is sent */
+	ERROR,
+	/** command is not processed and the client connection is closed */
+	DISCONNECT,
+	/** command is not processed and no response is ever sent -- for timeout testing */
+	NO_RESPONSE
+}
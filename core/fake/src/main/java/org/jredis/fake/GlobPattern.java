@@ -0,0 +1,91 @@
+/*
+ *   Copyright 2009 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+
+package org.jredis.fake;
+
+/**
+ * Glob-style matching of keys for <code>KEYS</code>, per Redis: <code>*</code>, 
+ * <code>?</code>, <code>[abc]</code>, <code>[^a-z]</code>, and <code>\</code> escapes.
+ * 
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, Apr 27, 2010
+ * @since   alpha.0
+ * 
+ */
+final class GlobPattern {
+	private GlobPattern () {}
+	
+	static boolean matches (byte[] pattern, byte[] string) {
+		return matches(pattern, 0, string, 0);
+	}
+	
+	private static boolean matches (byte[] p, int pi, byte[] s, int si) {
+		while(pi < p.length) {
+			switch (p[pi]) {
+			case '*':
+				while(pi+1 < p.length && p[pi+1] == '*') pi++;
+				if(pi+1 == p.length) return true;
+				for(int i=si; i<=s.length; i++)
+					if(matches(p, pi+1, s, i)) return true;
+				return false;
+			case '?':
+				if(si == s.length) return false;
+				si++;
+				break;
+			case '[':
+			{
+				if(si == s.length) return false;
+				pi++;
+				boolean not = pi < p.length && p[pi] == '^';
+				if(not) pi++;
+				boolean match = false;
+				while(pi < p.length && p[pi] != ']'){
+					if(p[pi] == '\\' && pi+1 < p.length) {
+						pi++;
+						if(p[pi] == s[si]) match = true;
+					}
+					else if(pi+2 < p.length && p[pi+1] == '-' && p[pi+2] != ']') {
+						int lo = p[pi] & 0xFF, hi = p[pi+2] & 0xFF;
+						if(lo > hi) { int t = lo; lo = hi; hi = t; }
+						int c = s[si] & 0xFF;
+						if(c >= lo && c <= hi) match = true;
+						pi += 2;
+					}
+					else if(p[pi] == s[si]) match = true;
+					pi++;
+				}
+				if(not) match = !match;
+				if(!match) return false;
+				si++;
+				break;
+			}
+			case '\\':
+				// the escaped char is matched literally -- a trailing backslash matches itself
+				if(pi+1 < p.length) pi++;
+				if(si == s.length || p[pi] != s[si]) return false;
+				si++;
+				break;
+			default:
+				if(si == s.length || p[pi] != s[si]) return false;
+				si++;
+				break;
+			}
+			pi++;
+		}
+		return si == s.length;
+	}
+}
@@ -0,0 +1,146 @@
+/*
+ *   Copyright 2009 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+
+package org.jredis.fake;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+
+/**
+ * Encodes the server replies per the Redis protocol.  
+ * 
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, Apr 27, 2010
+ * @since   alpha.0
+ * 
+ */
+final class Reply {
+	// ------------------------------------------------------------------------
+	// Consts
+	// ------------------------------------------------------------------------
+	static final byte[] CRLF = {(byte) 13, (byte) 10};
+	
+	static final Reply OK = status("OK");
+	static final Reply PONG = status("PONG");
+	static final Reply QUEUED = status("QUEUED");
+	static final Reply NIL = bulk(null);
+	static final Reply ZERO = integer(0);
+	static final Reply ONE = integer(1);
+	/** sent for commands that have no response, e.g. QUIT */
+	static final Reply NONE = new Reply(new byte[0]);
+	/** nil multi-bulk, e.g. the reply of blocking pops on timeout */
+	static final Reply NIL_MULTI = multiBulk(null);
+	/** returned by the processor for blocking pops that are to wait -- never sent */
+	static final Reply BLOCKED = new Reply(new byte[0]);
+	
+	// ------------------------------------------------------------------------
+	// Properties
+	// ------------------------------------------------------------------------
+	/** the encoded reply */
+	final byte[] bytes;
+	
+	private Reply (byte[] bytes) { this.bytes = bytes; }
+	
+	// ------------------------------------------------------------------------
+	// Factory methods
+	// ------------------------------------------------------------------------
+	static Reply status (String status) {
+		return line ('+', status);
+	}
+	static Reply error (String message) {
+		return line ('-', message);
+	}
+	static Reply integer (long number) {
+		return line (':', Long.toString(number));
+	}
+	static Reply bool (boolean flag) {
+		return flag ? ONE : ZERO;
+	}
+	static Reply bulk (byte[] data) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(data != null ? data.length + 16 : 5);
+		writeBulk(out, data);
+		return new Reply(out.toByteArray());
+	}
+	/**
+	 * @param data list of bulk data -- null elements (and null lists) are sent as nil.
+	 * @return
+	 */
+	static Reply multiBulk (List<byte[]> data) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		if(null == data) {
+			writeLine(out, '*', "-1");
+		}
+		else {
+			writeLine(out, '*', Integer.toString(data.size()));
+			for(byte[] d : data)
+				writeBulk(out, d);
+		}
+		return new Reply(out.toByteArray());
+	}
+	
+	/**
+	 * @param replies
+	 * @return a multi-bulk of the (mixed type) replies, e.g. the EXEC reply.  A null list is sent as nil.
+	 */
+	static Reply multi (List<Reply> replies) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		if(null == replies) {
+			writeLine(out, '*', "-1");
+		}
+		else {
+			writeLine(out, '*', Integer.toString(replies.size()));
+			for(Reply r : replies)
+				out.write(r.bytes, 0, r.bytes.length);
+		}
+		return new Reply(out.toByteArray());
+	}
+	
+	/**
+	 * @param replies
+	 * @return the replies back to back, e.g. the confirmations of each channel of a SUBSCRIBE.
+	 */
+	static Reply sequence (List<Reply> replies) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		for(Reply r : replies)
+			out.write(r.bytes, 0, r.bytes.length);
+		return new Reply(out.toByteArray());
+	}
+	
+	// ------------------------------------------------------------------------
+	// Inner ops
+	// ------------------------------------------------------------------------
+	private static Reply line (char ctlByte, String line) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(line.length() + 3);
+		writeLine(out, ctlByte, line);
+		return new Reply(out.toByteArray());
+	}
+	private static void writeLine (ByteArrayOutputStream out, char ctlByte, String line) {
+		out.write(ctlByte);
+		byte[] b = line.getBytes();
+		out.write(b, 0, b.length);
+		out.write(CRLF, 0, CRLF.length);
+	}
+	private static void writeBulk (ByteArrayOutputStream out, byte[] data) {
+		if(null == data) {
+			writeLine(out, '$', "-1");
+			return;
+		}
+		writeLine(out, '$', Integer.toString(data.length));
+		out.write(data, 0, data.length);
+		out.write(CRLF, 0, CRLF.length);
+	}
+}
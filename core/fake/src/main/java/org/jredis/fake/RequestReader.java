@@ -0,0 +1,210 @@
+/*
+ *   Copyright 2009 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+
+package org.jredis.fake;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.jredis.protocol.Command;
+import org.jredis.protocol.Command.RequestType;
+
+/**
+ * Incremental parser of client requests.  Understands both the inline (and
+ * inline with trailing bulk data) and the multi-bulk request formats.  Whether an
+ * inline request carries bulk data is determined by the {@link RequestType} of the
+ * {@link Command}, exactly as the client side protocol handler writes it.
+ * 
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, Apr 27, 2010
+ * @since   alpha.0
+ * 
+ */
+final class RequestReader {
+	// ------------------------------------------------------------------------
+	// Consts
+	// ------------------------------------------------------------------------
+	/** Requests types that are written with trailing bulk data */
+	private static final EnumSet<RequestType> BULK_REQUEST_TYPES = EnumSet.of(
+		RequestType.VALUE,
+		RequestType.KEY_VALUE,
+		RequestType.KEY_IDX_VALUE,
+		RequestType.KEY_KEY_VALUE,
+		RequestType.KEY_CNT_VALUE
+	);
+	/** 
+	 * Command by protocol name -- the $OPTS variants share the name (and request
+	 * line format) of the base command.
+	 */
+	private static final Map<String, Command> commands = new HashMap<String, Command>();
+	static {
+		for(Command cmd : Command.values()){
+			String name = new String(cmd.bytes);
+			if(!commands.containsKey(name)) commands.put(name, cmd);
+		}
+	}
+	/** Max length of a request line */
+	static final int MAX_LINE_LENGTH = 1024 * 64;
+	
+	private RequestReader () {}
+	
+	// ------------------------------------------------------------------------
+	// Inner Type
+	// ------------------------------------------------------------------------
+	/**
+	 * A parsed request.
+	 */
+	static final class Invocation {
+		/** command name as sent (upper cased) */
+		final String	name;
+		/** the command -- null if not known */
+		final Command	cmd;
+		/** the arguments -- not including the command name */
+		final byte[][]	args;
+		Invocation (String name, Command cmd, byte[][] args){
+			this.name = name;
+			this.cmd = cmd;
+			this.args = args;
+		}
+	}
+	/** raised on protocol errors -- connection is closed */
+	@SuppressWarnings("serial")
+	static final class ProtocolError extends Exception {
+		ProtocolError (String message) { super(message); }
+	}
+	
+	// ------------------------------------------------------------------------
+	// Interface
+	// ------------------------------------------------------------------------
+	/**
+	 * @param name protocol name of the command (case sensitive).
+	 * @return the {@link Command} or null if not recognized.
+	 */
+	static Command getCommand (String name) {
+		return commands.get(name);
+	}
+	
+	/**
+	 * Reads the next complete request from the buffer.  If the buffer does not
+	 * yet have the complete request, its position is left unchanged.
+	 * @param buffer in read mode
+	 * @return the request, or null if not yet fully buffered. 
+	 * @throws ProtocolError
+	 */
+	static Invocation read (ByteBuffer buffer) throws ProtocolError {
+		int start = buffer.position();
+		Invocation invocation = null;
+		if(buffer.hasRemaining()) {
+			invocation = buffer.get(start) == '*' ? readMultiBulk(buffer) : readInline(buffer);
+		}
+		if(null == invocation) buffer.position(start);
+		return invocation;
+	}
+	
+	// ------------------------------------------------------------------------
+	// Inner ops
+	// ------------------------------------------------------------------------
+	private static Invocation readInline (ByteBuffer buffer) throws ProtocolError {
+		String line = readLine(buffer);
+		if(null == line) return null;
+		
+		List<String> tokens = new ArrayList<String>();
+		for(String token : line.split(" ")) 
+			if(token.length() > 0) tokens.add(token);
+		if(tokens.isEmpty()) 
+			return new Invocation("", null, new byte[0][]);
+		
+		String name = tokens.get(0).toUpperCase();
+		Command cmd = commands.get(name);
+		int argcnt = tokens.size() - 1;
+		byte[] bulkdata = null;
+		if(null != cmd && BULK_REQUEST_TYPES.contains(cmd.requestType)){
+			if(argcnt == 0) throw new ProtocolError("missing bulk length for " + name);
+			int len = parseLength(tokens.get(argcnt));
+			if(buffer.remaining() < len + 2) return null;
+			bulkdata = readBulkData(buffer, len);
+			// the bulk data replaces the length token
+			argcnt--;
+		}
+		byte[][] args = new byte[argcnt + (bulkdata != null ? 1 : 0)][];
+		for(int i=0; i<argcnt; i++) args[i] = tokens.get(i+1).getBytes();
+		if(bulkdata != null) args[argcnt] = bulkdata;
+		
+		return new Invocation(name, cmd, args);
+	}
+	
+	private static Invocation readMultiBulk (ByteBuffer buffer) throws ProtocolError {
+		buffer.get(); // '*'
+		String countLine = readLine(buffer);
+		if(null == countLine) return null;
+		int count = parseLength(countLine);
+		if(count == 0) throw new ProtocolError("empty multi bulk request");
+		
+		byte[][] items = new byte[count][];
+		for(int i=0; i<count; i++){
+			if(!buffer.hasRemaining()) return null;
+			if(buffer.get() != '$') throw new ProtocolError("expecting '$'");
+			String lenLine = readLine(buffer);
+			if(null == lenLine) return null;
+			int len = parseLength(lenLine);
+			if(buffer.remaining() < len + 2) return null;
+			items[i] = readBulkData(buffer, len);
+		}
+		String name = new String(items[0]).toUpperCase();
+		byte[][] args = new byte[count-1][];
+		System.arraycopy(items, 1, args, 0, args.length);
+		
+		return new Invocation(name, commands.get(name), args);
+	}
+	
+	/** @return the line (sans CRLF) or null if not terminated yet */
+	private static String readLine (ByteBuffer buffer) throws ProtocolError {
+		int start = buffer.position();
+		for(int p = start; p < buffer.limit(); p++){
+			if(buffer.get(p) == '\n') {
+				int end = p > start && buffer.get(p-1) == '\r' ? p - 1 : p;
+				byte[] line = new byte[end - start];
+				buffer.get(line);
+				buffer.position(p + 1);
+				return new String(line);
+			}
+			if(p - start > MAX_LINE_LENGTH) throw new ProtocolError("request line too long");
+		}
+		return null;
+	}
+	
+	private static byte[] readBulkData (ByteBuffer buffer, int len) throws ProtocolError {
+		byte[] data = new byte[len];
+		buffer.get(data);
+		if(buffer.get() != '\r' || buffer.get() != '\n') throw new ProtocolError("bulk data not terminated by CRLF");
+		return data;
+	}
+	
+	private static int parseLength (String s) throws ProtocolError {
+		try {
+			int len = Integer.parseInt(s.trim());
+			if(len < 0) throw new ProtocolError("invalid length " + s);
+			return len;
+		}
+		catch (NumberFormatException e) {
+			throw new ProtocolError("invalid length " + s);
+		}
+	}
+}
@@ -0,0 +1,110 @@
+/*
+ *   Copyright 2009 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+
+package org.jredis.fake;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import org.jredis.fake.RequestReader.Invocation;
+import org.jredis.protocol.Command;
+
+/**
+ * Per client connection state of the {@link FakeRedisServer}.
+ * 
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, Apr 27, 2010
+ * @since   alpha.0
+ * 
+ */
+final class Session {
+	// ------------------------------------------------------------------------
+	// Inner Type
+	// ------------------------------------------------------------------------
+	/** A reply that can not be sent before its due time (per injected latency) */
+	static final class PendingReply {
+		final ByteBuffer	data;
+		final long			dueNanos;
+		/** close the connection after sending */
+		final boolean		close;
+		PendingReply (byte[] data, long dueNanos, boolean close){
+			this.data = ByteBuffer.wrap(data);
+			this.dueNanos = dueNanos;
+			this.close = close;
+		}
+	}
+	
+	/** A blocking pop waiting for an item, or its timeout */
+	static final class Blocked {
+		final Command		cmd;
+		final byte[][]		args;
+		/** {@link System#nanoTime()} deadline, or 0 if none */
+		final long			deadlineNanos;
+		Blocked (Command cmd, byte[][] args, long deadlineNanos){
+			this.cmd = cmd;
+			this.args = args;
+			this.deadlineNanos = deadlineNanos;
+		}
+	}
+	
+	// ------------------------------------------------------------------------
+	// Properties
+	// ------------------------------------------------------------------------
+	final SocketChannel		channel;
+	final SelectionKey		key;
+	
+	/** request buffer -- kept in read mode between reads */
+	ByteBuffer				input = ByteBuffer.allocate(1024 * 16);
+	
+	/** replies in request order */
+	final LinkedList<PendingReply>	replies = new LinkedList<PendingReply>();
+	
+	/** SELECTed db */
+	int 					db = 0;
+	boolean					authenticated;
+	/** the commands queued in the open MULTI block, or null if none */
+	List<Invocation>		transaction;
+	/** subscribed channels -- the session is in pub/sub mode if subscribed to any channels or patterns */
+	final Set<Bytes>		channels = new HashSet<Bytes>();
+	/** subscribed channel patterns */
+	final Set<Bytes>		patterns = new HashSet<Bytes>();
+	/** the blocking pop the session is blocked on, or null -- subsequent requests are not processed until it is served */
+	Blocked					blocked;
+	/** set when the connection is to be closed once pending replies are written */
+	boolean					closing;
+	
+	Session (SocketChannel channel, SelectionKey key, boolean authenticated) {
+		this.channel = channel;
+		this.key = key;
+		this.authenticated = authenticated;
+		input.flip();
+	}
+	
+	/** @return true if subscribed to any channels or patterns */
+	boolean isSubscribed () {
+		return !channels.isEmpty() || !patterns.isEmpty();
+	}
+	
+	/** @return due time of the last queued reply, or 0 if none */
+	long lastDueNanos () {
+		return replies.isEmpty() ? 0 : replies.getLast().dueNanos;
+	}
+}
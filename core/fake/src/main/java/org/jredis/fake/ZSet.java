@@ -0,0 +1,114 @@
+/*
+ *   Copyright 2009 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+
+package org.jredis.fake;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * In-memory sorted set: a member to score map and a (score, member) ordered index.
+ * 
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, Apr 27, 2010
+ * @since   alpha.0
+ * 
+ */
+final class ZSet {
+	// ------------------------------------------------------------------------
+	// Inner Type
+	// ------------------------------------------------------------------------
+	static final class Entry implements Comparable<Entry> {
+		final Bytes  member;
+		final double score;
+		Entry (Bytes member, double score){
+			this.member = member;
+			this.score = score;
+		}
+//		@Override
+		public int compareTo (Entry o) {
+			int c = Double.compare(score, o.score);
+			return c != 0 ? c : member.compareTo(o.member);
+		}
+	}
+	
+	// ------------------------------------------------------------------------
+	// Properties
+	// ------------------------------------------------------------------------
+	private final Map<Bytes, Double>	scores = new HashMap<Bytes, Double>();
+	private final TreeSet<Entry>		index = new TreeSet<Entry>();
+	
+	// ------------------------------------------------------------------------
+	// Interface
+	// ------------------------------------------------------------------------
+	/** @return true if member was added, false if its score was updated */
+	boolean add (Bytes member, double score) {
+		Double prev = scores.put(member, score);
+		if(prev != null) index.remove(new Entry(member, prev));
+		index.add(new Entry(member, score));
+		return prev == null;
+	}
+	
+	boolean remove (Bytes member) {
+		Double prev = scores.remove(member);
+		if(prev == null) return false;
+		index.remove(new Entry(member, prev));
+		return true;
+	}
+	
+	Double score (Bytes member) {
+		return scores.get(member);
+	}
+	
+	int size () {
+		return scores.size();
+	}
+	
+	/** @return entries in ascending (score, member) order */
+	List<Entry> entries () {
+		return new ArrayList<Entry>(index);
+	}
+	
+	/** @return entries with scores in the range, in ascending order */
+	List<Entry> range (double min, boolean minExclusive, double max, boolean maxExclusive) {
+		List<Entry> list = new ArrayList<Entry>();
+		for(Entry e : index.tailSet(new Entry(new Bytes(new byte[0]), min))){
+			if(e.score > max || (maxExclusive && e.score == max)) break;
+			if(minExclusive && e.score == min) continue;
+			list.add(e);
+		}
+		return list;
+	}
+	
+	/** @return number of entries removed */
+	int removeRange (double min, boolean minExclusive, double max, boolean maxExclusive) {
+		int cnt = 0;
+		for(Entry e : range(min, minExclusive, max, maxExclusive)){
+			remove(e.member);
+			cnt++;
+		}
+		return cnt;
+	}
+	
+	Iterator<Bytes> members () {
+		return scores.keySet().iterator();
+	}
+}
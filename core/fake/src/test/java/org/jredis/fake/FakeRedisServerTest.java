@@ -0,0 +1,256 @@
+/*
+ *   Copyright 2009 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+
+package org.jredis.fake;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.TimeUnit;
+import org.jredis.protocol.Command;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Protocol level tests of the {@link FakeRedisServer}.  (The client test suites can be
+ * run against the server as well -- see <code>jredis.test.fake</code>.)
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, Apr 27, 2010
+ * @since   alpha.0
+ * 
+ */
+@Test(suiteName="fake-server-tests")
+public class FakeRedisServerTest {
+	
+	private FakeRedisServer server;
+	
+	@BeforeMethod
+	public void startServer () throws IOException {
+		server = new FakeRedisServer().start();
+	}
+	@AfterMethod
+	public void stopServer () {
+		server.stop();
+	}
+	
+	// ------------------------------------------------------------------------
+	// Tests
+	// ------------------------------------------------------------------------
+	@Test
+	public void testInlineAndBulkRequests () throws IOException {
+		Socket socket = connect(server);
+		try {
+			assertEquals(call(socket, "PING\r\n"), "+PONG\r\n");
+			assertEquals(call(socket, "SET foo 5\r\nhello\r\n"), "+OK\r\n");
+			assertEquals(call(socket, "GET foo\r\n"), "$5\r\nhello\r\n");
+			assertEquals(call(socket, "GET nosuchkey\r\n"), "$-1\r\n");
+			assertEquals(call(socket, "INCRBY counter 10\r\n"), ":10\r\n");
+			assertEquals(call(socket, "SADD set 1\r\na\r\n"), ":1\r\n");
+			assertEquals(call(socket, "SADD set 1\r\na\r\n"), ":0\r\n");
+			assertEquals(call(socket, "TYPE set\r\n"), "+set\r\n");
+			assertEquals(call(socket, "INCR foo\r\n"), "-ERR value is not an integer\r\n");
+			assertEquals(call(socket, "LLEN foo\r\n"), "-" + CommandProcessor.ERR_WRONG_TYPE + "\r\n");
+			assertTrue(call(socket, "NOSUCHCOMMAND\r\n").startsWith("-ERR unknown command"));
+		}
+		finally { socket.close(); }
+	}
+	
+	@Test
+	public void testMultiBulkAndPipelinedRequests () throws IOException {
+		Socket socket = connect(server);
+		try {
+			assertEquals(call(socket, "*5\r\n$4\r\nMSET\r\n$1\r\na\r\n$1\r\n1\r\n$1\r\nb\r\n$1\r\n2\r\n"), "+OK\r\n");
+			// all at once, with the bulk data split across writes
+			OutputStream out = socket.getOutputStream();
+			out.write("MGET a b c\r\nECHO 5\r\nhel".getBytes());
+			out.flush();
+			out.write("lo\r\nZADD z 2.5 1\r\nm\r\nZSCORE z 1\r\nm\r\n".getBytes());
+			out.flush();
+			assertEquals(read(socket, "*3\r\n$1\r\n1\r\n$1\r\n2\r\n$-1\r\n$5\r\nhello\r\n:1\r\n$3\r\n2.5\r\n".length()), 
+					"*3\r\n$1\r\n1\r\n$1\r\n2\r\n$-1\r\n$5\r\nhello\r\n:1\r\n$3\r\n2.5\r\n");
+		}
+		finally { socket.close(); }
+	}
+	
+	@Test
+	public void testAuth () throws IOException {
+		server.setPassword("secret");
+		Socket socket = connect(server);
+		try {
+			assertEquals(call(socket, "PING\r\n"), "-" + CommandProcessor.ERR_AUTH_REQUIRED + "\r\n");
+			assertEquals(call(socket, "AUTH wrong\r\n"), "-ERR invalid password\r\n");
+			assertEquals(call(socket, "AUTH secret\r\n"), "+OK\r\n");
+			assertEquals(call(socket, "PING\r\n"), "+PONG\r\n");
+		}
+		finally { socket.close(); }
+	}
+	
+	@Test
+	public void testSelectAndMultipleInstances () throws IOException {
+		FakeRedisServer other = new FakeRedisServer().start();
+		Socket socket = connect(server);
+		Socket otherSocket = connect(other);
+		try {
+			assertTrue(server.getPort() != other.getPort(), "expecting distinct ephemeral ports");
+			assertEquals(call(socket, "SET key 1\r\na\r\n"), "+OK\r\n");
+			assertEquals(call(otherSocket, "EXISTS key\r\n"), ":0\r\n");
+			assertEquals(call(socket, "SELECT 1\r\n"), "+OK\r\n");
+			assertEquals(call(socket, "EXISTS key\r\n"), ":0\r\n");
+			assertEquals(call(socket, "SELECT 0\r\n"), "+OK\r\n");
+			assertEquals(call(socket, "DBSIZE\r\n"), ":1\r\n");
+			assertEquals(server.getClientCount(), 1);
+		}
+		finally { 
+			socket.close(); 
+			otherSocket.close();
+			other.stop();
+		}
+	}
+	
+	@Test
+	public void testLatency () throws IOException {
+		server.setLatency(Command.GET, 200, TimeUnit.MILLISECONDS);
+		Socket socket = connect(server);
+		try {
+			long start = System.currentTimeMillis();
+			assertEquals(call(socket, "GET foo\r\n"), "$-1\r\n");
+			assertTrue(System.currentTimeMillis() - start >= 200, "GET response should have been delayed");
+			
+			// a pipelined request after a delayed request is not answered before it
+			OutputStream out = socket.getOutputStream();
+			out.write("GET foo\r\nPING\r\n".getBytes());
+			out.flush();
+			assertEquals(read(socket, 5 + 7), "$-1\r\n+PONG\r\n");
+			
+			server.reset();
+			start = System.currentTimeMillis();
+			assertEquals(call(socket, "GET foo\r\n"), "$-1\r\n");
+			assertTrue(System.currentTimeMillis() - start < 200, "latency should have been reset");
+		}
+		finally { socket.close(); }
+	}
+	
+	@Test
+	public void testFaultInjection () throws IOException {
+		server.injectFault(Command.SET, Fault.ERROR, 1);
+		server.injectFault(Command.GET, Fault.NO_RESPONSE, 1);
+		server.injectFault(Command.DEL, Fault.DISCONNECT, 1);
+		Socket socket = connect(server);
+		try {
+			assertTrue(call(socket, "SET foo 1\r\na\r\n").startsWith("-ERR injected fault"));
+			assertEquals(call(socket, "EXISTS foo\r\n"), ":0\r\n");
+			
+			socket.setSoTimeout(300);
+			socket.getOutputStream().write("GET foo\r\n".getBytes());
+			try {
+				socket.getInputStream().read();
+				fail("expecting no response");
+			}
+			catch (SocketTimeoutException expected) { }
+			
+			socket.setSoTimeout(2000);
+			socket.getOutputStream().write("DEL foo\r\n".getBytes());
+			assertEquals(socket.getInputStream().read(), -1, "expecting the connection to be closed");
+		}
+		finally { socket.close(); }
+		
+		boolean didRaiseError = false;
+		try {
+			server.injectFault(Command.PING, Fault.ERROR, 0);
+		}
+		catch (IllegalArgumentException e) { didRaiseError = true; }
+		assertTrue(didRaiseError, "expecting an IllegalArgumentException for zero probability");
+	}
+	
+	@Test
+	public void testGlobPattern () {
+		assertTrue(GlobPattern.matches("*".getBytes(), "anything".getBytes()));
+		assertTrue(GlobPattern.matches("foo*".getBytes(), "foobar".getBytes()));
+		assertTrue(GlobPattern.matches("f?o".getBytes(), "fao".getBytes()));
+		assertTrue(GlobPattern.matches("h[ae]llo".getBytes(), "hello".getBytes()));
+		assertTrue(GlobPattern.matches("h[^e]llo".getBytes(), "hallo".getBytes()));
+		assertTrue(GlobPattern.matches("k[a-c]y".getBytes(), "kby".getBytes()));
+		assertTrue(GlobPattern.matches("a\\*b".getBytes(), "a*b".getBytes()));
+		assertFalse(GlobPattern.matches("a\\*b".getBytes(), "axb".getBytes()));
+		assertFalse(GlobPattern.matches("foo*".getBytes(), "fo".getBytes()));
+		assertFalse(GlobPattern.matches("h[^e]llo".getBytes(), "hello".getBytes()));
+	}
+	
+	// ------------------------------------------------------------------------
+	// Helpers
+	// ------------------------------------------------------------------------
+	private static Socket connect (FakeRedisServer server) throws IOException {
+		Socket socket = new Socket("127.0.0.1", server.getPort());
+		socket.setSoTimeout(5000);
+		return socket;
+	}
+	
+	/** sends the request and reads the (single) response */
+	private static String call (Socket socket, String request) throws IOException {
+		OutputStream out = socket.getOutputStream();
+		out.write(request.getBytes());
+		out.flush();
+		return readResponse(socket.getInputStream());
+	}
+	
+	private static String read (Socket socket, int len) throws IOException {
+		InputStream in = socket.getInputStream();
+		byte[] b = new byte[len];
+		int off = 0;
+		while(off < len) {
+			int n = in.read(b, off, len - off);
+			if(n == -1) throw new IOException("EOF");
+			off += n;
+		}
+		return new String(b);
+	}
+	
+	private static String readResponse (InputStream in) throws IOException {
+		ByteArrayOutputStream buff = new ByteArrayOutputStream();
+		String line = readLine(in, buff);
+		if(line.charAt(0) == '$') {
+			int len = Integer.parseInt(line.substring(1, line.length()-2));
+			for(int i=0; len >= 0 && i<len+2; i++) buff.write(in.read());
+		}
+		else if(line.charAt(0) == '*') {
+			int cnt = Integer.parseInt(line.substring(1, line.length()-2));
+			for(int i=0; i<cnt; i++) buff.write(readResponse(in).getBytes());
+		}
+		return buff.toString();
+	}
+	
+	private static String readLine (InputStream in, ByteArrayOutputStream buff) throws IOException {
+		ByteArrayOutputStream line = new ByteArrayOutputStream();
+		int c;
+		while((c = in.read()) != -1){
+			line.write(c);
+			if(c == '\n') break;
+		}
+		if(c == -1) throw new IOException("EOF");
+		buff.write(line.toByteArray());
+		return line.toString();
+	}
+}
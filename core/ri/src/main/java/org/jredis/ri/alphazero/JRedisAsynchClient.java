@@ -16,14 +16,19 @@
 
 package org.jredis.ri.alphazero;
 
+import java.util.List;
 import java.util.concurrent.Future;
 import org.jredis.ClientRuntimeException;
 import org.jredis.ProviderException;
-import org.jredis.connector.Connection;
 import org.jredis.connector.ConnectionSpec;
 import org.jredis.protocol.Command;
 import org.jredis.protocol.Response;
+import org.jredis.protocol.ResponseDecoder;
+import org.jredis.protocol.ResponseStatus;
 import org.jredis.ri.alphazero.connection.AsynchConnection;
+import org.jredis.ri.alphazero.connection.BlockingLane;
+import org.jredis.ri.alphazero.connection.ConnectionBase;
+import org.jredis.ri.alphazero.connection.RequestStats;
 
 /**
  * [TODO: document me!]
@@ -40,7 +45,10 @@ public class JRedisAsynchClient extends JRedisFutureSupport {
 	// ------------------------------------------------------------------------
 
 	/**  */
-	final private Connection	connection;
+	final private ConnectionBase	connection;
+	
+	/** services the blocking requests, so that they do not stall the connection */
+	final private BlockingLane		blockingLane;
 
 	// ------------------------------------------------------------------------
 	// Construct and initialize
@@ -53,6 +61,7 @@ public class JRedisAsynchClient extends JRedisFutureSupport {
 		// note: using a shared connection mod
 		connectionSpec.isReliable(true);
 		connection = new AsynchConnection(connectionSpec, true);
+		blockingLane = new BlockingLane(connectionSpec);
 	}
 	
 	// ------------------------------------------------------------------------
@@ -66,4 +75,61 @@ public class JRedisAsynchClient extends JRedisFutureSupport {
 	protected  Future<Response> queueRequest (Command cmd, byte[]...args) throws ClientRuntimeException, ProviderException {
 		return connection.queueRequest(cmd, args);
 	}
+	
+	/**
+	 * Delegates to the connection, which decodes the response on completion.
+	 * @see org.jredis.ri.alphazero.JRedisFutureSupport#queueRequest(org.jredis.protocol.ResponseDecoder, org.jredis.protocol.Command, byte[][])
+	 */
+	@Override
+	protected <T> Future<T> queueRequest (ResponseDecoder<T> decoder, Command cmd, byte[]...args) throws ClientRuntimeException, ProviderException {
+		return connection.queueRequest(decoder, cmd, args);
+	}
+	
+	/**
+	 * Delegates to the connection -- responses to subsequent requests are processed once the stream completes.
+	 * @see org.jredis.ri.alphazero.JRedisFutureSupport#queueStreamingRequest(org.jredis.protocol.ResponseDecoder, org.jredis.protocol.Command, byte[][])
+	 */
+	@Override
+	protected <T> Future<T> queueStreamingRequest (ResponseDecoder<T> decoder, Command cmd, byte[]...args) throws ClientRuntimeException, ProviderException {
+		return connection.queueStreamingRequest(decoder, cmd, args);
+	}
+	
+	/**
+	 * Blocking requests are serviced by dedicated connections, and do not stall the requests queued after them.
+	 * @see org.jredis.ri.alphazero.JRedisFutureSupport#queueBlockingRequest(org.jredis.protocol.ResponseDecoder, org.jredis.protocol.Command, long, byte[][])
+	 */
+	@Override
+	protected <T> Future<T> queueBlockingRequest (ResponseDecoder<T> decoder, Command cmd, long timeout, byte[]...args) throws ClientRuntimeException, ProviderException {
+		return blockingLane.queueRequest(decoder, cmd, timeout, args);
+	}
+	
+	/**
+	 * Also closes the connections of blocking requests.
+	 * @see org.jredis.ri.alphazero.JRedisFutureSupport#quit()
+	 */
+	@Override
+	public Future<ResponseStatus> quit () {
+		blockingLane.close();
+		return super.quit();
+	}
+	
+	/**
+	 * Delegates to the connection, which writes the transaction block in one go.
+	 * @see org.jredis.ri.alphazero.JRedisFutureSupport#queueTransaction(org.jredis.protocol.ResponseDecoder, java.util.List, java.util.List)
+	 */
+	@Override
+	protected <T> Future<T> queueTransaction (ResponseDecoder<T> decoder, List<Command> cmds, List<byte[][]> args) throws ClientRuntimeException, ProviderException {
+		return connection.queueTransaction(decoder, cmds, args);
+	}
+	
+	// ------------------------------------------------------------------------
+	// public interface
+	// ------------------------------------------------------------------------
+	/**
+	 * @return the counters of the abnormal outcomes (e.g. timeouts) of the requests of this client.
+	 * @see ConnectionSpec#setRequestTimeout(int)
+	 */
+	public RequestStats getRequestStats () {
+		return connection.getRequestStats();
+	}
 }
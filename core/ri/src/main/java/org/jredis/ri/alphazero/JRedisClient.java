@@ -17,6 +17,9 @@
 package org.jredis.ri.alphazero;
 
 import java.net.UnknownHostException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.List;
 import org.jredis.ClientRuntimeException;
 import org.jredis.JRedis;
 import org.jredis.ProviderException;
@@ -24,8 +27,12 @@ import org.jredis.Redis;
 import org.jredis.RedisException;
 import org.jredis.connector.Connection;
 import org.jredis.connector.ConnectionSpec;
+import org.jredis.protocol.BulkTransferResponse;
 import org.jredis.protocol.Command;
 import org.jredis.protocol.Response;
+import org.jredis.protocol.StreamingMultiBulkResponse;
+import org.jredis.protocol.TransactionResponse;
+import org.jredis.ri.alphazero.connection.ConnectionBase;
 import org.jredis.ri.alphazero.connection.DefaultConnectionSpec;
 import org.jredis.ri.alphazero.support.Assert;
 
@@ -155,6 +162,55 @@ public class JRedisClient extends SynchJRedisBase  {
 		return connection.serviceRequest(cmd, args);
 	}
 	
+	@Override
+	protected StreamingMultiBulkResponse serviceStreamingRequest(Command cmd, byte[]... args)
+			throws RedisException, ClientRuntimeException, ProviderException 
+	{
+		if(!(connection instanceof ConnectionBase))
+			return super.serviceStreamingRequest(cmd, args);
+		return ((ConnectionBase) connection).serviceStreamingRequest(cmd, args);
+	}
+	
+	@Override
+	protected Response serviceRequest(Command cmd, ReadableByteChannel value, long length, byte[]... args)
+			throws RedisException, ClientRuntimeException, ProviderException 
+	{
+		if(!(connection instanceof ConnectionBase))
+			return super.serviceRequest(cmd, value, length, args);
+		return ((ConnectionBase) connection).serviceRequest(cmd, value, length, args);
+	}
+	
+	@Override
+	protected BulkTransferResponse serviceTransferRequest(Command cmd, WritableByteChannel sink, byte[]... args)
+			throws RedisException, ClientRuntimeException, ProviderException 
+	{
+		if(!(connection instanceof ConnectionBase))
+			return super.serviceTransferRequest(cmd, sink, args);
+		return ((ConnectionBase) connection).serviceTransferRequest(cmd, sink, args);
+	}
+	
+	/**
+	 * The client's connection is blocked for the duration of the request.
+	 * @see org.jredis.ri.alphazero.JRedisSupport#serviceBlockingRequest(org.jredis.protocol.Command, long, byte[][])
+	 */
+	@Override
+	protected Response serviceBlockingRequest(Command cmd, long timeout, byte[]... args)
+			throws RedisException, ClientRuntimeException, ProviderException 
+	{
+		if(!(connection instanceof ConnectionBase))
+			return super.serviceBlockingRequest(cmd, timeout, args);
+		return ((ConnectionBase) connection).serviceBlockingRequest(cmd, timeout, args);
+	}
+	
+	@Override
+	protected TransactionResponse serviceTransaction(List<Command> cmds, List<byte[][]> args)
+			throws RedisException, ClientRuntimeException, ProviderException 
+	{
+		if(!(connection instanceof ConnectionBase))
+			return super.serviceTransaction(cmds, args);
+		return ((ConnectionBase) connection).serviceTransaction(cmds, args);
+	}
+	
 
 	// TODO: what's the use of this?
 	@Override
@@ -32,18 +32,26 @@ import java.util.concurrent.TimeoutException;
 import org.jredis.ClientRuntimeException;
 import org.jredis.JRedisFuture;
 import org.jredis.KeyValueSet;
+import org.jredis.NotSupportedException;
 import org.jredis.ObjectInfo;
 import org.jredis.ProviderException;
 import org.jredis.RedisType;
+import org.jredis.ResultStream;
 import org.jredis.Sort;
+import org.jredis.Transaction;
+import org.jredis.ZSetEntries;
 import org.jredis.ZSetEntry;
 import org.jredis.connector.Connection;
 import org.jredis.protocol.BulkResponse;
 import org.jredis.protocol.Command;
 import org.jredis.protocol.MultiBulkResponse;
 import org.jredis.protocol.Response;
+import org.jredis.protocol.ResponseDecoder;
 import org.jredis.protocol.ResponseStatus;
+import org.jredis.protocol.StreamingMultiBulkResponse;
+import org.jredis.protocol.TransactionResponse;
 import org.jredis.protocol.ValueResponse;
+import org.jredis.ri.alphazero.connection.BlockingLane;
 import org.jredis.ri.alphazero.semantics.DefaultKeyCodec;
 import org.jredis.ri.alphazero.support.Convert;
 import org.jredis.ri.alphazero.support.DefaultCodec;
@@ -93,6 +101,80 @@ public abstract class JRedisFutureSupport implements JRedisFuture {
 	 * @throws ProviderException
 	 */
 	abstract protected  Future<Response> queueRequest (Command cmd, byte[]...args) throws ClientRuntimeException, ProviderException; 
+	
+	/**
+	 * Queues the request for a result of type <code>T</code>, per the decoder.  All the interface methods
+	 * use this method.  
+	 * <p>
+	 * This implementation adapts the {@link Future} {@link Response} of {@link JRedisFutureSupport#queueRequest(Command, byte[]...)}
+	 * using a {@link FutureResult}.  Extensions using connections that support decoding of responses should 
+	 * override and delegate to the connection, which will save an allocation and the conversion of the response 
+	 * on each get.
+	 * 
+	 * @param decoder
+	 * @param cmd
+	 * @param args
+	 * @return
+	 * @throws ClientRuntimeException
+	 * @throws ProviderException
+	 */
+	protected <T> Future<T> queueRequest (ResponseDecoder<T> decoder, Command cmd, byte[]...args) throws ClientRuntimeException, ProviderException {
+		return new FutureResult<T>(queueRequest(cmd, args), decoder);
+	}
+	
+	/**
+	 * Optional.  Queues a multi-bulk request for a {@link StreamingMultiBulkResponse}, decoded per the 
+	 * decoder, used by the streaming methods of the interface, e.g. {@link JRedisFuture#lrangeStream(String, long, long)}.
+	 * <p>
+	 * This implementation throws a {@link NotSupportedException}.
+	 * 
+	 * @param decoder
+	 * @param cmd
+	 * @param args
+	 * @return
+	 * @throws ClientRuntimeException
+	 * @throws ProviderException
+	 */
+	protected <T> Future<T> queueStreamingRequest (ResponseDecoder<T> decoder, Command cmd, byte[]...args) throws ClientRuntimeException, ProviderException {
+		throw new NotSupportedException ("Streaming responses are not supported by " + getClass().getSimpleName());
+	}
+	
+	/**
+	 * Optional.  Queues the request of a {@link Command#isBlocking()} command for a result of type <code>T</code>, 
+	 * per the decoder, used by the blocking pop methods of the interface, e.g. {@link JRedisFuture#blpop(long, String...)}.
+	 * The request must not block the requests queued after it, e.g. by using a {@link BlockingLane}.
+	 * <p>
+	 * This implementation throws a {@link NotSupportedException}.
+	 * 
+	 * @param decoder
+	 * @param cmd
+	 * @param timeout the command timeout, in seconds -- 0 blocks indefinitely
+	 * @param args the request arguments, including the timeout
+	 * @return
+	 * @throws ClientRuntimeException
+	 * @throws ProviderException
+	 */
+	protected <T> Future<T> queueBlockingRequest (ResponseDecoder<T> decoder, Command cmd, long timeout, byte[]...args) throws ClientRuntimeException, ProviderException {
+		throw new NotSupportedException ("Blocking requests are not supported by " + getClass().getSimpleName());
+	}
+	
+	/**
+	 * Optional.  Queues a transaction block for a result of type <code>T</code>, per the decoder, used by the 
+	 * {@link Transaction}s of {@link JRedisFuture#multi()}.  The MULTI, commands, and EXEC must be written
+	 * in one go on the same connection.
+	 * <p>
+	 * This implementation throws a {@link NotSupportedException}.
+	 * 
+	 * @param decoder
+	 * @param cmds
+	 * @param args the arguments of each command
+	 * @return
+	 * @throws ClientRuntimeException
+	 * @throws ProviderException
+	 */
+	protected <T> Future<T> queueTransaction (ResponseDecoder<T> decoder, List<Command> cmds, List<byte[][]> args) throws ClientRuntimeException, ProviderException {
+		throw new NotSupportedException ("Transactions are not supported by " + getClass().getSimpleName());
+	}
 	// ------------------------------------------------------------------------
 	// INTERFACE
 	// ================================================================ Redis
@@ -109,28 +191,27 @@ public abstract class JRedisFutureSupport implements JRedisFuture {
 	
 	
 	//	@Override
-	public FutureStatus bgsave() {
-		return new FutureStatus(this.queueRequest(Command.BGSAVE));
+	public Future<ResponseStatus> bgsave() {
+		return this.queueRequest(STATUS, Command.BGSAVE);
 	}
 	
 	//	@Override
-	public FutureString bgrewriteaof() {
-		Future<Response> futureResponse = this.queueRequest(Command.BGREWRITEAOF);
-		return new FutureString(futureResponse);
+	public Future<String> bgrewriteaof() {
+		return this.queueRequest(STRING, Command.BGREWRITEAOF);
 	}
 	
 	//	@Override
-	public FutureStatus ping() {
-		return new FutureStatus(this.queueRequest(Command.PING));
+	public Future<ResponseStatus> ping() {
+		return this.queueRequest(STATUS, Command.PING);
 	}
 	
 	//	@Override
-	public FutureStatus flushall() {
-		return new FutureStatus(this.queueRequest(Command.FLUSHALL));
+	public Future<ResponseStatus> flushall() {
+		return this.queueRequest(STATUS, Command.FLUSHALL);
 	}
 	//	@Override
-	public FutureStatus flushdb() {
-		return new FutureStatus(this.queueRequest(Command.FLUSHDB));
+	public Future<ResponseStatus> flushdb() {
+		return this.queueRequest(STATUS, Command.FLUSHDB);
 	}
 	////	@Override
 	//	public FutureStatus select(int index) {
@@ -147,14 +228,14 @@ public abstract class JRedisFutureSupport implements JRedisFuture {
 		if((portbytes = Convert.toBytes(port)) == null) 
 			throw new IllegalArgumentException ("invalid port => ["+port+"]");
 		
-		return new FutureStatus(this.queueRequest(Command.SLAVEOF, hostbytes, portbytes));
+		return this.queueRequest(STATUS, Command.SLAVEOF, hostbytes, portbytes);
 	}
 	public Future<ResponseStatus>  slaveofnone() {
-		return new FutureStatus(this.queueRequest(Command.SLAVEOF, "no".getBytes(), "one".getBytes()));
+		return this.queueRequest(STATUS, Command.SLAVEOF, "no".getBytes(), "one".getBytes());
 	}
 	
 	//	@Override
-	public FutureStatus rename(String oldkey, String newkey) {
+	public Future<ResponseStatus> rename(String oldkey, String newkey) {
 		byte[] oldkeydata = null;
 		if((oldkeydata = getKeyBytes(oldkey)) == null) 
 			throw new IllegalArgumentException ("invalid key => ["+oldkey+"]");
@@ -163,7 +244,7 @@ public abstract class JRedisFutureSupport implements JRedisFuture {
 		if((newkeydata = getKeyBytes(newkey)) == null) 
 			throw new IllegalArgumentException ("invalid key => ["+newkey+"]");
 		
-		return new FutureStatus(this.queueRequest(Command.RENAME, oldkeydata, newkeydata));
+		return this.queueRequest(STATUS, Command.RENAME, oldkeydata, newkeydata);
 	}
 	
 	//	@Override
@@ -176,10 +257,9 @@ public abstract class JRedisFutureSupport implements JRedisFuture {
 		if((newkeydata = getKeyBytes(newkey)) == null) 
 			throw new IllegalArgumentException ("invalid key => ["+newkey+"]");
 		
-		Future<Response> futureResponse = this.queueRequest(Command.RENAMENX, oldkeydata, newkeydata);
-		return new FutureBoolean(futureResponse);
+		return this.queueRequest(BOOLEAN, Command.RENAMENX, oldkeydata, newkeydata);
 	}
-	public FutureStatus rpush(String key, byte[] value)  {
+	public Future<ResponseStatus> rpush(String key, byte[] value)  {
 		byte[] keybytes = null;
 		if((keybytes = getKeyBytes(key)) == null) 
 			throw new IllegalArgumentException ("invalid key => ["+key+"]");
@@ -187,11 +267,11 @@ public abstract class JRedisFutureSupport implements JRedisFuture {
 		if(value == null) 
 			throw new IllegalArgumentException ("null value");
 		
-		return new FutureStatus(this.queueRequest(Command.RPUSH, keybytes, value));
+		return this.queueRequest(STATUS, Command.RPUSH, keybytes, value);
 	}
 	
 	//	@Override
-	public FutureByteArray rpoplpush (String srcList, String destList)  {
+	public Future<byte[]> rpoplpush (String srcList, String destList)  {
 		byte[] srckeybytes = null;
 		if((srckeybytes = getKeyBytes(srcList)) == null) 
 			throw new IllegalArgumentException ("invalid src key => ["+srcList+"]");
@@ -199,20 +279,45 @@ public abstract class JRedisFutureSupport implements JRedisFuture {
 		if((destkeybytes = getKeyBytes(destList)) == null) 
 			throw new IllegalArgumentException ("invalid dest key => ["+destList+"]");
 		
-		Future<Response> futureResponse = this.queueRequest(Command.RPOPLPUSH, srckeybytes, destkeybytes);
-		return new FutureByteArray(futureResponse);
+		return this.queueRequest(BYTE_ARRAY, Command.RPOPLPUSH, srckeybytes, destkeybytes);
+	}
+	//	@Override
+	public Future<List<byte[]>> blpop (long timeout, String... listKeys) {
+		return this.queueBlockingRequest(BYTE_ARRAY_LIST, Command.BLPOP, timeout, blockingPopArgs(timeout, listKeys));
+	}
+	//	@Override
+	public Future<List<byte[]>> brpop (long timeout, String... listKeys) {
+		return this.queueBlockingRequest(BYTE_ARRAY_LIST, Command.BRPOP, timeout, blockingPopArgs(timeout, listKeys));
+	}
+	//	@Override
+	public Future<byte[]> brpoplpush (String srcList, String destList, long timeout) {
+		return this.queueBlockingRequest(BYTE_ARRAY, Command.BRPOPLPUSH, timeout, blockingPopArgs(timeout, srcList, destList));
+	}
+	/** @return the args of a blocking pop: the keys followed by the timeout */
+	private byte[][] blockingPopArgs (long timeout, String... listKeys) {
+		if(timeout < 0)
+			throw new IllegalArgumentException ("invalid timeout => ["+timeout+"]");
+		if(null == listKeys || listKeys.length == 0)
+			throw new IllegalArgumentException ("no list keys");
+		byte[][] args = new byte[listKeys.length + 1][];
+		for(int i=0; i<listKeys.length; i++) {
+			if((args[i] = getKeyBytes(listKeys[i])) == null) 
+				throw new IllegalArgumentException ("invalid key => ["+listKeys[i]+"]");
+		}
+		args[listKeys.length] = Convert.toBytes(timeout);
+		return args;
 	}
 	//	@Override
-	public FutureStatus rpush(String key, String value) {
+	public Future<ResponseStatus> rpush(String key, String value) {
 		//		rpush(key, DefaultCodec.encode(value));
 		return rpush(key, DefaultCodec.encode(value));
 	}
 	//	@Override
-	public FutureStatus rpush(String key, Number value) {
+	public Future<ResponseStatus> rpush(String key, Number value) {
 		return rpush(key, String.valueOf(value).getBytes());
 	}
 	//	@Override
-	public <T extends Serializable> FutureStatus rpush (String key, T value)
+	public <T extends Serializable> Future<ResponseStatus> rpush (String key, T value)
 	{
 		return rpush(key, DefaultCodec.encode(value));
 	}
@@ -224,8 +329,7 @@ public abstract class JRedisFutureSupport implements JRedisFuture {
 		if((keybytes = getKeyBytes(key)) == null) 
 			throw new IllegalArgumentException ("invalid key => ["+key+"]");
 		
-		Future<Response> futureResponse = this.queueRequest(Command.SADD, keybytes, member);
-		return new FutureBoolean(futureResponse);
+		return this.queueRequest(BOOLEAN, Command.SADD, keybytes, member);
 	}
 	//	@Override
 	public Future<Boolean> sadd (String key, String value) {
@@ -248,8 +352,7 @@ public abstract class JRedisFutureSupport implements JRedisFuture {
 		if((keybytes = getKeyBytes(key)) == null) 
 			throw new IllegalArgumentException ("invalid key => ["+key+"]");
 		
-		Future<Response> futureResponse = this.queueRequest(Command.ZADD, keybytes,  Convert.toBytes(score), member);
-		return new FutureBoolean(futureResponse);
+		return this.queueRequest(BOOLEAN, Command.ZADD, keybytes,  Convert.toBytes(score), member);
 	}
 	//	@Override
 	public Future<Boolean> zadd (String key, double score, String value) {
@@ -272,8 +375,7 @@ public abstract class JRedisFutureSupport implements JRedisFuture {
 		if((keybytes = getKeyBytes(key)) == null) 
 			throw new IllegalArgumentException ("invalid key => ["+key+"]");
 		
-		Future<Response> futureResponse = this.queueRequest(Command.ZINCRBY, keybytes,  Convert.toBytes(score), member);
-		return new FutureDouble(futureResponse);
+		return this.queueRequest(DOUBLE, Command.ZINCRBY, keybytes,  Convert.toBytes(score), member);
 	}
 	//	@Override
 	public Future<Double> zincrby (String key, double score, String value) {
@@ -290,31 +392,31 @@ public abstract class JRedisFutureSupport implements JRedisFuture {
 	}
 	
 	//	@Override
-	public FutureStatus save() 
+	public Future<ResponseStatus> save() 
 	{
-		return new FutureStatus(this.queueRequest(Command.SAVE));
+		return this.queueRequest(STATUS, Command.SAVE);
 	}
 	
 	// -------- set 
 	
 	//	@Override
-	public FutureStatus set(String key, byte[] value) {
+	public Future<ResponseStatus> set(String key, byte[] value) {
 		byte[] keybytes = null;
 		if((keybytes = getKeyBytes(key)) == null) 
 			throw new IllegalArgumentException ("invalid key => ["+key+"]");
 		
-		return new FutureStatus(this.queueRequest(Command.SET, keybytes, value));
+		return this.queueRequest(STATUS, Command.SET, keybytes, value);
 	}
 	//	@Override
-	public FutureStatus set(String key, String value) {
+	public Future<ResponseStatus> set(String key, String value) {
 		return set(key, DefaultCodec.encode(value));
 	}
 	//	@Override
-	public FutureStatus set(String key, Number value) {
+	public Future<ResponseStatus> set(String key, Number value) {
 		return set(key, String.valueOf(value).getBytes());
 	}
 	//	@Override
-	public <T extends Serializable> FutureStatus set (String key, T value)
+	public <T extends Serializable> Future<ResponseStatus> set (String key, T value)
 	{
 		return set(key, DefaultCodec.encode(value));
 	}
@@ -325,8 +427,7 @@ public abstract class JRedisFutureSupport implements JRedisFuture {
 		if((keybytes = getKeyBytes(key)) == null) 
 			throw new IllegalArgumentException ("invalid key => ["+key+"]");
 		
-		Future<Response> futureResponse = this.queueRequest(Command.GETSET, keybytes, value);
-		return new FutureByteArray(futureResponse);
+		return this.queueRequest(BYTE_ARRAY, Command.GETSET, keybytes, value);
 	}
 	//	@Override
 	public Future<byte[]> getset(String key, String value) {
@@ -349,8 +450,7 @@ public abstract class JRedisFutureSupport implements JRedisFuture {
 		if((keybytes = getKeyBytes(key)) == null) 
 			throw new IllegalArgumentException ("invalid key => ["+key+"]");
 		
-		Future<Response> futureResponse = this.queueRequest(Command.SETNX, keybytes, value);
-		return new FutureBoolean(futureResponse);
+		return this.queueRequest(BOOLEAN, Command.SETNX, keybytes, value);
 	}
 	//	@Override
 	public Future<Boolean> setnx(String key, String value) {
@@ -371,8 +471,7 @@ public abstract class JRedisFutureSupport implements JRedisFuture {
 		if((keybytes = getKeyBytes(key)) == null) 
 			throw new IllegalArgumentException ("invalid key => ["+key+"]");
 		
-		Future<Response> futureResponse = this.queueRequest(Command.SISMEMBER, keybytes, member);
-		return new FutureBoolean(futureResponse);
+		return this.queueRequest(BOOLEAN, Command.SISMEMBER, keybytes, member);
 	}
 	
 	//	@Override
@@ -399,8 +498,7 @@ public abstract class JRedisFutureSupport implements JRedisFuture {
 		if((destKeyBytes = getKeyBytes(destKey)) == null) 
 			throw new IllegalArgumentException ("invalid key => ["+destKey+"]");
 		
-		Future<Response> futureResponse = this.queueRequest(Command.SMOVE, srcKeyBytes, destKeyBytes, member);
-		return new FutureBoolean(futureResponse);
+		return this.queueRequest(BOOLEAN, Command.SMOVE, srcKeyBytes, destKeyBytes, member);
 	}
 	public Future<Boolean> smove (String srcKey, String destKey, String stringValue) {
 		return smove (srcKey, destKey, DefaultCodec.encode(stringValue));
@@ -423,8 +521,7 @@ public abstract class JRedisFutureSupport implements JRedisFuture {
 		if((keybytes = getKeyBytes(key)) == null) 
 			throw new IllegalArgumentException ("invalid key => ["+key+"]");
 		
-		Future<Response> futureResponse = this.queueRequest(Command.INCR, keybytes);
-		return new FutureLong (futureResponse);
+		return this.queueRequest(LONG, Command.INCR, keybytes);
 	}
 	
 	//	@Override
@@ -433,8 +530,7 @@ public abstract class JRedisFutureSupport implements JRedisFuture {
 		if((keybytes = getKeyBytes(key)) == null) 
 			throw new IllegalArgumentException ("invalid key => ["+key+"]");
 		
-		Future<Response> futureResponse = this.queueRequest(Command.INCRBY, keybytes, Convert.toBytes(delta));
-		return new FutureLong (futureResponse);
+		return this.queueRequest(LONG, Command.INCRBY, keybytes, Convert.toBytes(delta));
 	}
 	
 	//	@Override
@@ -443,8 +539,7 @@ public abstract class JRedisFutureSupport implements JRedisFuture {
 		if((keybytes = getKeyBytes(key)) == null) 
 			throw new IllegalArgumentException ("invalid key => ["+key+"]");
 		
-		Future<Response> futureResponse = this.queueRequest(Command.DECR, keybytes);
-		return new FutureLong (futureResponse);
+		return this.queueRequest(LONG, Command.DECR, keybytes);
 	}
 	
 	//	@Override
@@ -453,8 +548,7 @@ public abstract class JRedisFutureSupport implements JRedisFuture {
 		if((keybytes = getKeyBytes(key)) == null) 
 			throw new IllegalArgumentException ("invalid key => ["+key+"]");
 		
-		Future<Response> futureResponse = this.queueRequest(Command.DECRBY, keybytes, Convert.toBytes(delta));
-		return new FutureLong (futureResponse);
+		return this.queueRequest(LONG, Command.DECRBY, keybytes, Convert.toBytes(delta));
 	}
 	
 	//	@Override
@@ -463,8 +557,7 @@ public abstract class JRedisFutureSupport implements JRedisFuture {
 		if((keybytes = getKeyBytes(key)) == null) 
 			throw new IllegalArgumentException ("invalid key => ["+key+"]");
 		
-		Future<Response> futureResponse = this.queueRequest(Command.LLEN, keybytes);
-		return new FutureLong (futureResponse);
+		return this.queueRequest(LONG, Command.LLEN, keybytes);
 	}
 	
 	//	@Override
@@ -473,8 +566,7 @@ public abstract class JRedisFutureSupport implements JRedisFuture {
 		if((keybytes = getKeyBytes(key)) == null) 
 			throw new IllegalArgumentException ("invalid key => ["+key+"]");
 		
-		Future<Response> futureResponse = this.queueRequest(Command.SCARD, keybytes);
-		return new FutureLong (futureResponse);
+		return this.queueRequest(LONG, Command.SCARD, keybytes);
 	}
 	
 	//	@Override
@@ -483,8 +575,7 @@ public abstract class JRedisFutureSupport implements JRedisFuture {
 		if((keybytes = getKeyBytes(key)) == null) 
 			throw new IllegalArgumentException ("invalid key => ["+key+"]");
 		
-		Future<Response> futureResponse = this.queueRequest(Command.ZCARD, keybytes);
-		return new FutureLong (futureResponse);
+		return this.queueRequest(LONG, Command.ZCARD, keybytes);
 	}
 	
 	//	@Override
@@ -496,7 +587,7 @@ public abstract class JRedisFutureSupport implements JRedisFuture {
 		byte[] minScoreBytes = Convert.toBytes(minScore);
 		byte[] maxScoreBytes = Convert.toBytes(maxScore);
 		
-		return new FutureLong(this.queueRequest(Command.ZCOUNT, keybytes, minScoreBytes, maxScoreBytes));
+		return this.queueRequest(LONG, Command.ZCOUNT, keybytes, minScoreBytes, maxScoreBytes);
 	}
 	
 	public Future<byte[]> srandmember (String key) {
@@ -504,8 +595,7 @@ public abstract class JRedisFutureSupport implements JRedisFuture {
 		if((keybytes = getKeyBytes(key)) == null) 
 			throw new IllegalArgumentException ("invalid key => ["+key+"]");
 		
-		Future<Response> futureResponse = this.queueRequest(Command.SRANDMEMBER, keybytes);
-		return new FutureByteArray (futureResponse);
+		return this.queueRequest(BYTE_ARRAY, Command.SRANDMEMBER, keybytes);
 	}
 	
 	public Future<byte[]> spop (String key) {
@@ -513,21 +603,110 @@ public abstract class JRedisFutureSupport implements JRedisFuture {
 		if((keybytes = getKeyBytes(key)) == null) 
 			throw new IllegalArgumentException ("invalid key => ["+key+"]");
 		
-		Future<Response> futureResponse = this.queueRequest(Command.SPOP, keybytes);
-		return new FutureByteArray (futureResponse);
+		return this.queueRequest(BYTE_ARRAY, Command.SPOP, keybytes);
+	}
+	
+	//	@Override
+	public Future<Boolean> hset(String key, String field, byte[] value) 
+	{
+		byte[] keybytes = null;
+		if((keybytes = getKeyBytes(key)) == null) 
+			throw new IllegalArgumentException ("invalid key => ["+key+"]");
+		
+		return this.queueRequest(BOOLEAN, Command.HSET, keybytes, JRedisSupport.getFieldBytes(field), value);
+	}
+	//	@Override
+	public Future<Boolean> hset (String key, String field, String value) {
+		return hset (key, field, DefaultCodec.encode(value));
+	}
+	//	@Override
+	public Future<Boolean> hset (String key, String field, Number value) {
+		return hset (key, field, String.valueOf(value).getBytes());
+	}
+	//	@Override
+	public <T extends Serializable> Future<Boolean> hset (String key, String field, T value)
+	{
+		return hset (key, field, DefaultCodec.encode(value));
+	}
+	
+	//	@Override
+	public Future<byte[]> hget (String key, String field) {
+		byte[] keybytes = null;
+		if((keybytes = getKeyBytes(key)) == null) 
+			throw new IllegalArgumentException ("invalid key => ["+key+"]");
+		
+		return this.queueRequest(BYTE_ARRAY, Command.HGET, keybytes, JRedisSupport.getFieldBytes(field));
+	}
+	
+	//	@Override
+	public Future<ResponseStatus> hmset (String key, Map<String, byte[]> fieldValueMap) {
+		byte[] keybytes = null;
+		if((keybytes = getKeyBytes(key)) == null) 
+			throw new IllegalArgumentException ("invalid key => ["+key+"]");
+		if(null == fieldValueMap || fieldValueMap.isEmpty())
+			throw new IllegalArgumentException ("no fields specified");
+		
+		byte[][] args = new byte[fieldValueMap.size()*2 + 1][];
+		int i = 0;
+		args[i++] = keybytes;
+		for (Entry<String, byte[]> e : fieldValueMap.entrySet()){
+			args[i++] = JRedisSupport.getFieldBytes(e.getKey());
+			args[i++] = e.getValue();
+		}
+		return this.queueRequest(STATUS, Command.HMSET, args);
+	}
+	
+	//	@Override
+	public Future<List<byte[]>> hmget (String key, String...fields) {
+		byte[] keybytes = null;
+		if((keybytes = getKeyBytes(key)) == null) 
+			throw new IllegalArgumentException ("invalid key => ["+key+"]");
+		if(null == fields || fields.length == 0)
+			throw new IllegalArgumentException ("no fields specified");
+		
+		byte[][] args = new byte[fields.length + 1][];
+		args[0] = keybytes;
+		for(int i=0; i<fields.length; i++)
+			args[i+1] = JRedisSupport.getFieldBytes(fields[i]);
+		return this.queueRequest(BYTE_ARRAY_LIST, Command.HMGET, args);
+	}
+	
+	//	@Override
+	public Future<Map<String, byte[]>> hgetall (String key) {
+		byte[] keybytes = null;
+		if((keybytes = getKeyBytes(key)) == null) 
+			throw new IllegalArgumentException ("invalid key => ["+key+"]");
+		
+		return this.queueRequest(HASH, Command.HGETALL, keybytes);
+	}
+	
+	//	@Override
+	public Future<Long> hincrby (String key, String field, long delta) {
+		byte[] keybytes = null;
+		if((keybytes = getKeyBytes(key)) == null) 
+			throw new IllegalArgumentException ("invalid key => ["+key+"]");
+		
+		return this.queueRequest(LONG, Command.HINCRBY, keybytes, JRedisSupport.getFieldBytes(field), Convert.toBytes(delta));
+	}
+	
+	//	@Override
+	public Future<Boolean> hdel (String key, String field) {
+		byte[] keybytes = null;
+		if((keybytes = getKeyBytes(key)) == null) 
+			throw new IllegalArgumentException ("invalid key => ["+key+"]");
+		
+		return this.queueRequest(BOOLEAN, Command.HDEL, keybytes, JRedisSupport.getFieldBytes(field));
 	}
 	
 	/* ------------------------------- commands returning long value --------- */
 	
 	//	@Override
 	public Future<Long> dbsize() {
-		Future<Response> futureResponse = this.queueRequest(Command.DBSIZE);
-		return new FutureLong (futureResponse);
+		return this.queueRequest(LONG, Command.DBSIZE);
 	}
 	//	@Override
 	public Future<Long> lastsave() {
-		Future<Response> futureResponse = this.queueRequest(Command.LASTSAVE);
-		return new FutureLong (futureResponse);
+		return this.queueRequest(LONG, Command.LASTSAVE);
 	}
 	
 	/* ------------------------------- commands returning byte[] --------- */
@@ -538,8 +717,7 @@ public abstract class JRedisFutureSupport implements JRedisFuture {
 		if((keybytes = getKeyBytes(key)) == null) 
 			throw new IllegalArgumentException ("invalid key => ["+key+"]");
 		
-		Future<Response> futureResponse = this.queueRequest(Command.GET, keybytes);
-		return new FutureByteArray(futureResponse);
+		return this.queueRequest(BYTE_ARRAY, Command.GET, keybytes);
 	}
 	
 	//	@Override
@@ -548,8 +726,7 @@ public abstract class JRedisFutureSupport implements JRedisFuture {
 		if((keybytes = getKeyBytes(key)) == null) 
 			throw new IllegalArgumentException ("invalid key => ["+key+"]");
 		
-		Future<Response> futureResponse = this.queueRequest(Command.LINDEX, keybytes, Convert.toBytes(index));
-		return new FutureByteArray(futureResponse);
+		return this.queueRequest(BYTE_ARRAY, Command.LINDEX, keybytes, Convert.toBytes(index));
 	}
 	//	@Override
 	public Future<byte[]> lpop(String key) {
@@ -557,8 +734,7 @@ public abstract class JRedisFutureSupport implements JRedisFuture {
 		if((keybytes = getKeyBytes(key)) == null) 
 			throw new IllegalArgumentException ("invalid key => ["+key+"]");
 		
-		Future<Response> futureResponse = this.queueRequest(Command.LPOP, keybytes);
-		return new FutureByteArray(futureResponse);
+		return this.queueRequest(BYTE_ARRAY, Command.LPOP, keybytes);
 	}
 	
 	//	@Override
@@ -567,8 +743,7 @@ public abstract class JRedisFutureSupport implements JRedisFuture {
 		if((keybytes = getKeyBytes(key)) == null) 
 			throw new IllegalArgumentException ("invalid key => ["+key+"]");
 		
-		Future<Response> futureResponse = this.queueRequest(Command.RPOP, keybytes);
-		return new FutureByteArray(futureResponse);
+		return this.queueRequest(BYTE_ARRAY, Command.RPOP, keybytes);
 	}
 	
 	
@@ -576,8 +751,7 @@ public abstract class JRedisFutureSupport implements JRedisFuture {
 	
 	//	@Override
 	public Future<String> randomkey() {
-		Future<Response> futureResponse = this.queueRequest(Command.RANDOMKEY);
-		return new FutureString(futureResponse);
+		return this.queueRequest(STRING, Command.RANDOMKEY);
 	}
 	//	@Override
 	public Future<RedisType> type(String key) {
@@ -585,21 +759,21 @@ public abstract class JRedisFutureSupport implements JRedisFuture {
 		if(key.length() == 0)
 			throw new IllegalArgumentException ("invalid zero length key => ["+key+"]");
 		
-		return new FutureRedisType(this.queueRequest(Command.TYPE, keybytes));
+		return this.queueRequest(REDIS_TYPE, Command.TYPE, keybytes);
 	}
 	public Future<ObjectInfo> debug (String key) {
 		byte[] keybytes = getKeyBytes(key);
 		if(key.length() == 0)
 			throw new IllegalArgumentException ("invalid zero length key => ["+key+"]");
 		
-		return new FutureObjectInfo (this.queueRequest(Command.DEBUG, "OBJECT".getBytes(), keybytes));
+		return this.queueRequest(OBJECT_INFO, Command.DEBUG, "OBJECT".getBytes(), keybytes);
 	}
 	
 	/* ------------------------------- commands returning Maps --------- */
 	
 	//	@Override
 	public Future<Map<String, String>> info() {
-		return new FutureInfo(this.queueRequest(Command.INFO));
+		return this.queueRequest(INFO, Command.INFO);
 	}
 	
 	
@@ -618,15 +792,14 @@ public abstract class JRedisFutureSupport implements JRedisFuture {
 			
 			keybytes[i++] = keydata;
 		}
-		return new FutureByteArrayList(this.queueRequest(Command.MGET, keybytes));
+		return this.queueRequest(BYTE_ARRAY_LIST, Command.MGET, keybytes);
 	}
 	
 	/* MSETs */
-	private FutureStatus mset(byte[][] mappings){
-		Future<Response> futureResponse = this.queueRequest(Command.MSET, mappings);
-		return new FutureStatus(futureResponse);
+	private Future<ResponseStatus> mset(byte[][] mappings){
+		return this.queueRequest(STATUS, Command.MSET, mappings);
 	}
-	public FutureStatus mset(Map<String, byte[]> keyValueMap){
+	public Future<ResponseStatus> mset(Map<String, byte[]> keyValueMap){
 		KeyCodec codec = DefaultKeyCodec.provider();
 		byte[][] mappings = new byte[keyValueMap.size()*2][];
 		int i = 0;
@@ -637,25 +810,24 @@ public abstract class JRedisFutureSupport implements JRedisFuture {
 		return mset(mappings);
 	}
 	
-	public FutureStatus mset(KeyValueSet.ByteArrays keyValueMap){
+	public Future<ResponseStatus> mset(KeyValueSet.ByteArrays keyValueMap){
 		return mset(keyValueMap.getMappings());
 	}
-	public FutureStatus mset(KeyValueSet.Strings keyValueMap){
+	public Future<ResponseStatus> mset(KeyValueSet.Strings keyValueMap){
 		return mset(keyValueMap.getMappings());
 	}
 	
-	public FutureStatus mset(KeyValueSet.Numbers keyValueMap){
+	public Future<ResponseStatus> mset(KeyValueSet.Numbers keyValueMap){
 		return mset(keyValueMap.getMappings());
 	}
 	
-	public <T extends Serializable> FutureStatus mset(KeyValueSet.Objects<T> keyValueMap){
+	public <T extends Serializable> Future<ResponseStatus> mset(KeyValueSet.Objects<T> keyValueMap){
 		return mset(keyValueMap.getMappings());
 	}
 	
 	/* MSETNXs */
 	private Future<Boolean> msetnx(byte[][] mappings){
-		Future<Response> futureResponse = this.queueRequest(Command.MSETNX, mappings);
-		return new FutureBoolean(futureResponse);
+		return this.queueRequest(BOOLEAN, Command.MSETNX, mappings);
 	}
 	public Future<Boolean> msetnx(Map<String, byte[]> keyValueMap){
 		KeyCodec codec = DefaultKeyCodec.provider();
@@ -690,7 +862,15 @@ public abstract class JRedisFutureSupport implements JRedisFuture {
 		if((keydata = getKeyBytes(key)) == null) 
 			throw new IllegalArgumentException ("null key.");
 		
-		return new FutureByteArrayList(this.queueRequest(Command.SMEMBERS, keydata));
+		return this.queueRequest(BYTE_ARRAY_LIST, Command.SMEMBERS, keydata);
+	}
+	//	@Override
+	public Future<ResultStream<byte[]>> smembersStream(String key) {
+		byte[] keydata = null;
+		if((keydata = getKeyBytes(key)) == null) 
+			throw new IllegalArgumentException ("null key.");
+		
+		return this.queueStreamingRequest(BYTE_ARRAY_STREAM, Command.SMEMBERS, keydata);
 	}
 	//	@Override
 	public Future<List<String>> keys() {
@@ -703,8 +883,7 @@ public abstract class JRedisFutureSupport implements JRedisFuture {
 		if((keydata = getKeyBytes(pattern)) == null) 
 			throw new IllegalArgumentException ("null key.");
 		
-		Future<Response> futureResponse = this.queueRequest(Command.KEYS, keydata);
-		return new FutureKeyList(futureResponse);
+		return this.queueRequest(KEY_LIST, Command.KEYS, keydata);
 	}
 	
 	//	@Override
@@ -716,7 +895,19 @@ public abstract class JRedisFutureSupport implements JRedisFuture {
 		byte[] fromBytes = Convert.toBytes(from);
 		byte[] toBytes = Convert.toBytes(to);
 		
-		return new FutureByteArrayList(this.queueRequest(Command.LRANGE, keybytes, fromBytes, toBytes));
+		return this.queueRequest(BYTE_ARRAY_LIST, Command.LRANGE, keybytes, fromBytes, toBytes);
+	}
+	
+	//	@Override
+	public Future<ResultStream<byte[]>> lrangeStream(String key, long from, long to) {
+		byte[] keybytes = null;
+		if((keybytes = getKeyBytes(key)) == null) 
+			throw new IllegalArgumentException ("invalid key => ["+key+"]");
+		
+		byte[] fromBytes = Convert.toBytes(from);
+		byte[] toBytes = Convert.toBytes(to);
+		
+		return this.queueStreamingRequest(BYTE_ARRAY_STREAM, Command.LRANGE, keybytes, fromBytes, toBytes);
 	}
 	
 	//	@Override
@@ -728,7 +919,19 @@ public abstract class JRedisFutureSupport implements JRedisFuture {
 		byte[] fromBytes = Convert.toBytes(from);
 		byte[] toBytes = Convert.toBytes(to);
 		
-		return new FutureByteArrayList(this.queueRequest(Command.ZRANGE, keybytes, fromBytes, toBytes));
+		return this.queueRequest(BYTE_ARRAY_LIST, Command.ZRANGE, keybytes, fromBytes, toBytes);
+	}
+	
+	//	@Override
+	public Future<ResultStream<byte[]>> zrangeStream(String key, long from, long to) {
+		byte[] keybytes = null;
+		if((keybytes = getKeyBytes(key)) == null) 
+			throw new IllegalArgumentException ("invalid key => ["+key+"]");
+		
+		byte[] fromBytes = Convert.toBytes(from);
+		byte[] toBytes = Convert.toBytes(to);
+		
+		return this.queueStreamingRequest(BYTE_ARRAY_STREAM, Command.ZRANGE, keybytes, fromBytes, toBytes);
 	}
 	
 	//	@Override
@@ -740,7 +943,7 @@ public abstract class JRedisFutureSupport implements JRedisFuture {
 		byte[] fromBytes = Convert.toBytes(from);
 		byte[] toBytes = Convert.toBytes(to);
 		
-		return new FutureZSetList(this.queueRequest(Command.ZRANGE$OPTS, keybytes, fromBytes, toBytes, Command.Options.WITHSCORES.bytes));
+		return this.queueRequest(ZSET_LIST, Command.ZRANGE$OPTS, keybytes, fromBytes, toBytes, Command.Options.WITHSCORES.bytes);
 	}
 	
 	//	@Override
@@ -752,7 +955,31 @@ public abstract class JRedisFutureSupport implements JRedisFuture {
 		byte[] fromBytes = Convert.toBytes(from);
 		byte[] toBytes = Convert.toBytes(to);
 		
-		return new FutureZSetList(this.queueRequest(Command.ZREVRANGE$OPTS, keybytes, fromBytes, toBytes, Command.Options.WITHSCORES.bytes));
+		return this.queueRequest(ZSET_LIST, Command.ZREVRANGE$OPTS, keybytes, fromBytes, toBytes, Command.Options.WITHSCORES.bytes);
+	}
+	
+	//	@Override
+	public Future<ZSetEntries> zrangeEntries(String key, long from, long to) {
+		byte[] keybytes = null;
+		if((keybytes = getKeyBytes(key)) == null) 
+			throw new IllegalArgumentException ("invalid key => ["+key+"]");
+		
+		byte[] fromBytes = Convert.toBytes(from);
+		byte[] toBytes = Convert.toBytes(to);
+		
+		return this.queueRequest(ZSET_ENTRIES, Command.ZRANGE$OPTS, keybytes, fromBytes, toBytes, Command.Options.WITHSCORES.bytes);
+	}
+	
+	//	@Override
+	public Future<ZSetEntries> zrevrangeEntries(String key, long from, long to) {
+		byte[] keybytes = null;
+		if((keybytes = getKeyBytes(key)) == null) 
+			throw new IllegalArgumentException ("invalid key => ["+key+"]");
+		
+		byte[] fromBytes = Convert.toBytes(from);
+		byte[] toBytes = Convert.toBytes(to);
+		
+		return this.queueRequest(ZSET_ENTRIES, Command.ZREVRANGE$OPTS, keybytes, fromBytes, toBytes, Command.Options.WITHSCORES.bytes);
 	}
 	
 	//	@Override
@@ -764,7 +991,7 @@ public abstract class JRedisFutureSupport implements JRedisFuture {
 		byte[] minScoreBytes = Convert.toBytes(minScore);
 		byte[] maxScoreBytes = Convert.toBytes(maxScore);
 		
-		return new FutureByteArrayList(this.queueRequest(Command.ZRANGEBYSCORE, keybytes, minScoreBytes, maxScoreBytes));
+		return this.queueRequest(BYTE_ARRAY_LIST, Command.ZRANGEBYSCORE, keybytes, minScoreBytes, maxScoreBytes);
 	}
 	
 	//	@Override
@@ -776,7 +1003,19 @@ public abstract class JRedisFutureSupport implements JRedisFuture {
 		byte[] minScoreBytes = Convert.toBytes(minScore);
 		byte[] maxScoreBytes = Convert.toBytes(maxScore);
 		
-		return new FutureZSetList(this.queueRequest(Command.ZRANGEBYSCORE$OPTS, keybytes, minScoreBytes, maxScoreBytes, Command.Options.WITHSCORES.bytes));
+		return this.queueRequest(ZSET_LIST, Command.ZRANGEBYSCORE$OPTS, keybytes, minScoreBytes, maxScoreBytes, Command.Options.WITHSCORES.bytes);
+	}
+	
+	//	@Override
+	public Future<ZSetEntries> zrangebyscoreEntries(String key, double minScore, double maxScore) {
+		byte[] keybytes = null;
+		if((keybytes = getKeyBytes(key)) == null) 
+			throw new IllegalArgumentException ("invalid key => ["+key+"]");
+		
+		byte[] minScoreBytes = Convert.toBytes(minScore);
+		byte[] maxScoreBytes = Convert.toBytes(maxScore);
+		
+		return this.queueRequest(ZSET_ENTRIES, Command.ZRANGEBYSCORE$OPTS, keybytes, minScoreBytes, maxScoreBytes, Command.Options.WITHSCORES.bytes);
 	}
 	
 	//	@Override
@@ -788,7 +1027,7 @@ public abstract class JRedisFutureSupport implements JRedisFuture {
 		byte[] minScoreBytes = Convert.toBytes(minScore);
 		byte[] maxScoreBytes = Convert.toBytes(maxScore);
 		
-		return new FutureLong(this.queueRequest(Command.ZREMRANGEBYSCORE, keybytes, minScoreBytes, maxScoreBytes));
+		return this.queueRequest(LONG, Command.ZREMRANGEBYSCORE, keybytes, minScoreBytes, maxScoreBytes);
 	}
 	
 	//	@Override
@@ -800,7 +1039,7 @@ public abstract class JRedisFutureSupport implements JRedisFuture {
 		byte[] fromBytes = Convert.toBytes(from);
 		byte[] toBytes = Convert.toBytes(to);
 		
-		return new FutureByteArrayList(this.queueRequest(Command.ZREVRANGE, keybytes, fromBytes, toBytes));
+		return this.queueRequest(BYTE_ARRAY_LIST, Command.ZREVRANGE, keybytes, fromBytes, toBytes);
 	}
 	
 	//	@Override
@@ -812,21 +1051,80 @@ public abstract class JRedisFutureSupport implements JRedisFuture {
 		final JRedisFutureSupport client = this;
 		Sort sortQuery = new SortSupport (key, keybytes) {
 			//	@Override 
-			protected Future<List<byte[]>> execAsynchSort(byte[] keyBytes, byte[] sortSpecBytes) {
-				return new FutureByteArrayList(client.queueRequest(Command.SORT, keyBytes, sortSpecBytes));
+			protected Future<List<byte[]>> execAsynchSort(byte[][] args) {
+				return client.queueRequest(BYTE_ARRAY_LIST, Command.SORT, args);
+			}
+			//	@Override 
+			protected Future<Long> execAsynchSortStore(byte[][] args) {
+				return client.queueRequest(LONG, Command.SORT$STORE, args);
 			}
-			protected List<byte[]> execSort(byte[] keyBytes, byte[] sortSpecBytes) {
+			protected List<byte[]> execSort(byte[][] args) {
 				throw new IllegalStateException("JRedisFuture does not support synchronous sort.");
 			}
+			protected long execSortStore(byte[][] args) {
+				throw new IllegalStateException("JRedisFuture does not support synchronous sort.");
+			}
+			protected SortSupport newSort(String key) {
+				return (SortSupport) client.sort(key);
+			}
+			protected byte[] getKeyBytes(String key) throws IllegalArgumentException {
+				byte[] keybytes = null;
+				if((keybytes = client.getKeyBytes(key)) == null) 
+					throw new IllegalArgumentException ("invalid key => ["+key+"]");
+				return keybytes;
+			}
 		};
 		return sortQuery;
 	}
 	
+//	@Override
+	public Transaction multi() {
+		final JRedisFutureSupport client = this;
+		Transaction transaction = new TransactionSupport () {
+			@Override
+			protected <T> Future<T> execAsynchTransaction (ResponseDecoder<T> decoder, List<Command> cmds, List<byte[][]> args) {
+				return client.queueTransaction(decoder, cmds, args);
+			}
+			@Override
+			protected TransactionResponse execTransaction (List<Command> cmds, List<byte[][]> args) {
+				throw new IllegalStateException("JRedisFuture does not support synchronous transactions.");
+			}
+		};
+		return transaction;
+	}
+	
+	/* ------------------------------- publish/subscribe --------- */
+	
+	//	@Override
+	public Future<Long> publish(String channel, byte[] message) {
+		byte[] channelbytes = null;
+		if((channelbytes = getKeyBytes(channel)) == null) 
+			throw new IllegalArgumentException ("invalid channel => ["+channel+"]");
+		
+		if(message == null) 
+			throw new IllegalArgumentException ("null message");
+		
+		return this.queueRequest(LONG, Command.PUBLISH, channelbytes, message);
+	}
+	//	@Override
+	public Future<Long> publish(String channel, String message) {
+		return publish(channel, DefaultCodec.encode(message));
+	}
+	//	@Override
+	public Future<Long> publish(String channel, Number message) {
+		return publish(channel, String.valueOf(message).getBytes());
+	}
+	//	@Override
+	public <T extends Serializable> Future<Long> publish (String channel, T message)
+	{
+		return publish(channel, DefaultCodec.encode(message));
+	}
+	
 	/* ------------------------------- commands that don't get a response --------- */
 	
 	//	@Override
-	public FutureStatus quit()  {
-		return new FutureStatus(this.queueRequest(Command.QUIT));
+	public Future<ResponseStatus> quit()  {
+		return this.queueRequest(STATUS, Command.QUIT);
 	}
 	//	@Override
 	public Future<List<byte[]>> sinter(String set1, String... sets) {
@@ -842,7 +1140,7 @@ public abstract class JRedisFutureSupport implements JRedisFuture {
 			keybytes[i++] = keydata;
 		}
 		
-		return new FutureByteArrayList(this.queueRequest(Command.SINTER, keybytes));
+		return this.queueRequest(BYTE_ARRAY_LIST, Command.SINTER, keybytes);
 	}
 	
 	//	@Override
@@ -859,7 +1157,7 @@ public abstract class JRedisFutureSupport implements JRedisFuture {
 			keybytes[i++] = keydata;
 		}
 		
-		return new FutureByteArrayList(this.queueRequest(Command.SUNION, keybytes));
+		return this.queueRequest(BYTE_ARRAY_LIST, Command.SUNION, keybytes);
 	}
 	
 	//	@Override
@@ -875,11 +1173,11 @@ public abstract class JRedisFutureSupport implements JRedisFuture {
 				throw new IllegalArgumentException ("invalid key => ["+k+"]");
 			keybytes[i++] = keydata;
 		}
-		return new FutureByteArrayList(this.queueRequest(Command.SDIFF, keybytes));
+		return this.queueRequest(BYTE_ARRAY_LIST, Command.SDIFF, keybytes);
 	}
 	
 	//	@Override
-	public FutureStatus sinterstore(String dest, String... sets) {
+	public Future<ResponseStatus> sinterstore(String dest, String... sets) {
 		byte[] keydata = null;
 		if((keydata = getKeyBytes(dest)) == null) 
 			throw new IllegalArgumentException ("invalid key => ["+dest+"]");
@@ -894,11 +1192,11 @@ public abstract class JRedisFutureSupport implements JRedisFuture {
 			setbytes[i++] = setdata;
 		}
 		
-		return new FutureStatus(this.queueRequest(Command.SINTERSTORE, setbytes));
+		return this.queueRequest(STATUS, Command.SINTERSTORE, setbytes);
 	}
 	
 	//	@Override
-	public FutureStatus sunionstore(String dest, String... sets) {
+	public Future<ResponseStatus> sunionstore(String dest, String... sets) {
 		byte[] keydata = null;
 		if((keydata = getKeyBytes(dest)) == null) 
 			throw new IllegalArgumentException ("invalid key => ["+dest+"]");
@@ -913,11 +1211,11 @@ public abstract class JRedisFutureSupport implements JRedisFuture {
 			setbytes[i++] = setdata;
 		}
 		
-		return new FutureStatus(this.queueRequest(Command.SUNIONSTORE, setbytes));
+		return this.queueRequest(STATUS, Command.SUNIONSTORE, setbytes);
 	}
 	
 	//	@Override
-	public FutureStatus sdiffstore(String dest, String... sets) {
+	public Future<ResponseStatus> sdiffstore(String dest, String... sets) {
 		byte[] keydata = null;
 		if((keydata = getKeyBytes(dest)) == null) 
 			throw new IllegalArgumentException ("invalid key => ["+dest+"]");
@@ -932,7 +1230,7 @@ public abstract class JRedisFutureSupport implements JRedisFuture {
 			setbytes[i++] = setdata;
 		}
 		
-		return new FutureStatus(this.queueRequest(Command.SDIFFSTORE, setbytes));
+		return this.queueRequest(STATUS, Command.SDIFFSTORE, setbytes);
 	}
 	
 	//	@Override
@@ -948,8 +1246,7 @@ public abstract class JRedisFutureSupport implements JRedisFuture {
 			keybytes[i++] = keydata;
 		}
 		
-		Future<Response> futureResponse = this.queueRequest(Command.DEL, keybytes);
-		return new FutureLong(futureResponse);
+		return this.queueRequest(LONG, Command.DEL, keybytes);
 	}
 	
 	
@@ -959,13 +1256,12 @@ public abstract class JRedisFutureSupport implements JRedisFuture {
 		if((keybytes = getKeyBytes(key)) == null) 
 			throw new IllegalArgumentException ("invalid key => ["+key+"]");
 		
-		Future<Response> futureResponse = this.queueRequest(Command.EXISTS, keybytes);
-		return new FutureBoolean(futureResponse);
+		return this.queueRequest(BOOLEAN, Command.EXISTS, keybytes);
 	}
 	
 	
 	//	@Override
-	public FutureStatus lpush(String key, byte[] value) {
+	public Future<ResponseStatus> lpush(String key, byte[] value) {
 		byte[] keybytes = null;
 		if((keybytes = getKeyBytes(key)) == null) 
 			throw new IllegalArgumentException ("invalid key => ["+key+"]");
@@ -974,18 +1270,18 @@ public abstract class JRedisFutureSupport implements JRedisFuture {
 			throw new IllegalArgumentException ("null value");
 		
 		
-		return new FutureStatus(this.queueRequest(Command.LPUSH, keybytes, value));
+		return this.queueRequest(STATUS, Command.LPUSH, keybytes, value);
 	}
 	//	@Override
-	public FutureStatus lpush(String key, String value) {
+	public Future<ResponseStatus> lpush(String key, String value) {
 		return lpush(key, DefaultCodec.encode(value));
 	}
 	//	@Override
-	public FutureStatus lpush(String key, Number value) {
+	public Future<ResponseStatus> lpush(String key, Number value) {
 		return lpush(key, String.valueOf(value).getBytes());
 	}
 	//	@Override
-	public <T extends Serializable> FutureStatus lpush (String key, T value)
+	public <T extends Serializable> Future<ResponseStatus> lpush (String key, T value)
 	{
 		return lpush(key, DefaultCodec.encode(value));
 	}
@@ -1003,8 +1299,7 @@ public abstract class JRedisFutureSupport implements JRedisFuture {
 		if(msg == null) 
 			throw new IllegalArgumentException ("invalid value for echo => ["+msg+"]");
 		
-		Future<Response> futureResponse = this.queueRequest(Command.ECHO, msg);
-		return new FutureByteArray(futureResponse);
+		return this.queueRequest(BYTE_ARRAY, Command.ECHO, msg);
 		
 	}
 	public Future<byte[]> echo (String msg) {
@@ -1026,8 +1321,7 @@ public abstract class JRedisFutureSupport implements JRedisFuture {
 		
 		byte[] countBytes = Convert.toBytes(count);
 		
-		Future<Response> futureResponse = this.queueRequest(Command.LREM, keybytes, value, countBytes);
-		return new FutureLong(futureResponse);
+		return this.queueRequest(LONG, Command.LREM, keybytes, value, countBytes);
 	}
 	//	@Override
 	public Future<Long> lrem (String listKey, String value, int count){
@@ -1045,24 +1339,24 @@ public abstract class JRedisFutureSupport implements JRedisFuture {
 	
 	
 	//	@Override
-	public FutureStatus lset(String key, long index, byte[] value) {
+	public Future<ResponseStatus> lset(String key, long index, byte[] value) {
 		byte[] keybytes = null;
 		if((keybytes = getKeyBytes(key)) == null) 
 			throw new IllegalArgumentException ("invalid key => ["+key+"]");
 		
 		byte[] indexBytes = Convert.toBytes(index);
-		return new FutureStatus(this.queueRequest(Command.LSET, keybytes, indexBytes, value));
+		return this.queueRequest(STATUS, Command.LSET, keybytes, indexBytes, value);
 	}
 	//	@Override
-	public FutureStatus lset (String key, long index, String value) {
+	public Future<ResponseStatus> lset (String key, long index, String value) {
 		return lset (key, index, DefaultCodec.encode(value));
 	}
 	//	@Override
-	public FutureStatus lset (String key, long index, Number numberValue){
+	public Future<ResponseStatus> lset (String key, long index, Number numberValue){
 		return lset (key, index, String.valueOf(numberValue).getBytes());
 	}
 	//	@Override
-	public <T extends Serializable> FutureStatus lset (String key, long index, T object){
+	public <T extends Serializable> Future<ResponseStatus> lset (String key, long index, T object){
 		return lset (key, index, DefaultCodec.encode(object));
 	}
 	
@@ -1072,8 +1366,7 @@ public abstract class JRedisFutureSupport implements JRedisFuture {
 		if((keybytes = getKeyBytes(key)) == null) 
 			throw new IllegalArgumentException ("invalid key => ["+key+"]");
 		
-		Future<Response> futureResponse = this.queueRequest(Command.MOVE, keybytes, Convert.toBytes(dbIndex));
-		return new FutureBoolean(futureResponse);
+		return this.queueRequest(BOOLEAN, Command.MOVE, keybytes, Convert.toBytes(dbIndex));
 	}
 	
 	
@@ -1083,8 +1376,7 @@ public abstract class JRedisFutureSupport implements JRedisFuture {
 		if((keybytes = getKeyBytes(key)) == null) 
 			throw new IllegalArgumentException ("invalid key => ["+key+"]");
 		
-		Future<Response> futureResponse = this.queueRequest(Command.SREM, keybytes, member);
-		return new FutureBoolean(futureResponse);
+		return this.queueRequest(BOOLEAN, Command.SREM, keybytes, member);
 	}
 	//	@Override
 	public Future<Boolean> srem (String key, String value) {
@@ -1106,8 +1398,7 @@ public abstract class JRedisFutureSupport implements JRedisFuture {
 		if((keybytes = getKeyBytes(key)) == null) 
 			throw new IllegalArgumentException ("invalid key => ["+key+"]");
 		
-		Future<Response> futureResponse = this.queueRequest(Command.ZREM, keybytes, member);
-		return new FutureBoolean(futureResponse);
+		return this.queueRequest(BOOLEAN, Command.ZREM, keybytes, member);
 	}
 	//	@Override
 	public Future<Boolean> zrem (String key, String value) {
@@ -1130,8 +1421,7 @@ public abstract class JRedisFutureSupport implements JRedisFuture {
 		if((keybytes = getKeyBytes(key)) == null) 
 			throw new IllegalArgumentException ("invalid key => ["+key+"]");
 		
-		Future<Response> futureResponse = this.queueRequest(Command.ZSCORE, keybytes, member);
-		return new FutureDouble(futureResponse);
+		return this.queueRequest(DOUBLE, Command.ZSCORE, keybytes, member);
 	}
 	//	@Override
 	public Future<Double> zscore (String key, String value) {
@@ -1149,14 +1439,14 @@ public abstract class JRedisFutureSupport implements JRedisFuture {
 	
 	
 	//	@Override
-	public FutureStatus ltrim(String key, long keepFrom, long keepTo) {
+	public Future<ResponseStatus> ltrim(String key, long keepFrom, long keepTo) {
 		byte[] keybytes = null;
 		if((keybytes = getKeyBytes(key)) == null) 
 			throw new IllegalArgumentException ("invalid key => ["+key+"]");
 		
 		byte[] fromBytes = Convert.toBytes(keepFrom);
 		byte[] toBytes = Convert.toBytes(keepTo);
-		return new FutureStatus(this.queueRequest(Command.LTRIM, keybytes, fromBytes, toBytes));
+		return this.queueRequest(STATUS, Command.LTRIM, keybytes, fromBytes, toBytes);
 	}
 	
 	//	@Override
@@ -1167,8 +1457,7 @@ public abstract class JRedisFutureSupport implements JRedisFuture {
 		
 		byte[] ttlbytes = Convert.toBytes(ttlseconds);
 		
-		Future<Response> futureResponse = this.queueRequest(Command.EXPIRE, keybytes, ttlbytes);
-		return new FutureBoolean(futureResponse);
+		return this.queueRequest(BOOLEAN, Command.EXPIRE, keybytes, ttlbytes);
 	}
 	
 	//	@Override
@@ -1180,8 +1469,7 @@ public abstract class JRedisFutureSupport implements JRedisFuture {
 		long expiretime = TimeUnit.SECONDS.convert(epochtime, TimeUnit.MILLISECONDS);
 		byte[] expiretimeBytes = Convert.toBytes(expiretime);
 		
-		Future<Response> futureResponse = this.queueRequest(Command.EXPIREAT, keybytes, expiretimeBytes);
-		return new FutureBoolean(futureResponse);
+		return this.queueRequest(BOOLEAN, Command.EXPIREAT, keybytes, expiretimeBytes);
 	}
 	
 	//	@Override
@@ -1190,8 +1478,7 @@ public abstract class JRedisFutureSupport implements JRedisFuture {
 		if((keybytes = getKeyBytes(key)) == null) 
 			throw new IllegalArgumentException ("invalid key => ["+key+"]");
 		
-		Future<Response> futureResponse = this.queueRequest(Command.TTL, keybytes);
-		return new FutureLong(futureResponse);
+		return this.queueRequest(LONG, Command.TTL, keybytes);
 	}
 	
 	// TODO: integrate using KeyCodec and a CodecManager at client spec and init time.
@@ -1229,9 +1516,18 @@ public abstract class JRedisFutureSupport implements JRedisFuture {
 	// Inner classes : support for Future<x> return types
 	// ------------------------------------------------------------------------
 	
-	public static class FutureResultBase {
+	/**
+	 * Adapts a {@link Future} {@link Response} to a {@link Future} result using a decoder.  Used by
+	 * {@link JRedisFutureSupport#queueRequest(ResponseDecoder, Command, byte[]...)} for connections
+	 * that do not support decoding on their own.  The response is decoded on each call to get.
+	 */
+	public static class FutureResult<T> implements Future<T> {
 		final protected Future<Response> pendingRequest;
-		protected FutureResultBase(Future<Response> pendingRequest){ this.pendingRequest = pendingRequest;}
+		final protected ResponseDecoder<T> decoder;
+		protected FutureResult(Future<Response> pendingRequest, ResponseDecoder<T> decoder){ 
+			this.pendingRequest = pendingRequest;
+			this.decoder = decoder;
+		}
 		public boolean cancel (boolean mayInterruptIfRunning) {
 	        return pendingRequest.cancel(mayInterruptIfRunning);
         }
@@ -1241,182 +1537,81 @@ public abstract class JRedisFutureSupport implements JRedisFuture {
         public boolean isDone () {
 	        return pendingRequest.isDone();
         }
-	}
-	public static class FutureStatus extends FutureResultBase implements Future<ResponseStatus>  {
-		
-        protected FutureStatus (Future<Response> pendingRequest) { super(pendingRequest); }
-        public ResponseStatus get () throws InterruptedException, ExecutionException {
-			//        	StatusResponse statusResponse = (StatusResponse) pendingRequest.get();  // HANDLE VIRTUALS HERE
-			//        	return statusResponse.getStatus();
-        	return pendingRequest.get().getStatus();
-        }
-		
-        public ResponseStatus get (long timeout, TimeUnit unit)
-		throws InterruptedException, ExecutionException, TimeoutException 
-        {
-			//        	StatusResponse statusResponse = (StatusResponse) pendingRequest.get(timeout, unit);
-			//        	return statusResponse.getStatus();
-        	return pendingRequest.get(timeout, unit).getStatus();
-        }
-        
-	}
-	public static class FutureBoolean extends FutureResultBase implements Future<Boolean>{
-		
-        protected FutureBoolean (Future<Response> pendingRequest) { super(pendingRequest); }
-		
-        public Boolean get () throws InterruptedException, ExecutionException {
-        	ValueResponse valResp = (ValueResponse) pendingRequest.get();
-        	return valResp.getBooleanValue();
-        }
-		
-        public Boolean get (long timeout, TimeUnit unit)
-		throws InterruptedException, ExecutionException, TimeoutException 
-        {
-        	ValueResponse valResp = (ValueResponse) pendingRequest.get(timeout, unit);
-        	return valResp.getBooleanValue();
-        }
-	}
-	public static class FutureString extends FutureResultBase implements Future<String>{
-		
-        protected FutureString (Future<Response> pendingRequest) { super(pendingRequest); }
-		
-        public String get () throws InterruptedException, ExecutionException {
-        	ValueResponse valResp = (ValueResponse) pendingRequest.get();
-        	return valResp.getStringValue();
-        }
-		
-        public String get (long timeout, TimeUnit unit)
-		throws InterruptedException, ExecutionException, TimeoutException 
-        {
-        	ValueResponse valResp = (ValueResponse) pendingRequest.get(timeout, unit);
-        	return valResp.getStringValue();
-        }
-	}
-	public static class FutureRedisType extends FutureResultBase implements Future<RedisType>{
-		
-        protected FutureRedisType (Future<Response> pendingRequest) { super(pendingRequest); }
-		
-        private final RedisType getRedisType(ValueResponse resp){
-			String stringValue = resp.getStringValue();
-			return RedisType.valueOf(stringValue);
-        }
-        public RedisType get () throws InterruptedException, ExecutionException {
-        	ValueResponse valResp = (ValueResponse) pendingRequest.get();
-        	return getRedisType(valResp);
+        public T get () throws InterruptedException, ExecutionException {
+        	return decoder.decode(pendingRequest.get());
         }
-		
-        public RedisType get (long timeout, TimeUnit unit)
+        public T get (long timeout, TimeUnit unit)
 		throws InterruptedException, ExecutionException, TimeoutException 
         {
-        	ValueResponse valResp = (ValueResponse) pendingRequest.get(timeout, unit);
-        	return getRedisType(valResp);
-        }
-	}
-	public static class FutureObjectInfo extends FutureResultBase implements Future<ObjectInfo>{
-		
-        protected FutureObjectInfo (Future<Response> pendingRequest) { super(pendingRequest); }
-		
-        private final ObjectInfo getObjectInfo(ValueResponse resp){
-			String stringValue = resp.getStringValue();
-			return ObjectInfo.valueOf(stringValue);
-        }
-        public ObjectInfo get () throws InterruptedException, ExecutionException {
-        	ValueResponse valResp = (ValueResponse) pendingRequest.get();
-        	return getObjectInfo(valResp);
-        }
-		
-        public ObjectInfo get (long timeout, TimeUnit unit)
-		throws InterruptedException, ExecutionException, TimeoutException 
-        {
-        	ValueResponse valResp = (ValueResponse) pendingRequest.get(timeout, unit);
-        	return getObjectInfo(valResp);
+        	return decoder.decode(pendingRequest.get(timeout, unit));
         }
 	}
 	
-	public static class FutureLong extends FutureResultBase implements Future<Long>{
-		
-        protected FutureLong (Future<Response> pendingRequest) { super(pendingRequest); }
-		
-        public Long get () throws InterruptedException, ExecutionException {
-        	ValueResponse valResp = (ValueResponse) pendingRequest.get();
-        	return valResp.getLongValue();
-        }
-		
-        public Long get (long timeout, TimeUnit unit)
-		throws InterruptedException, ExecutionException, TimeoutException 
-        {
-        	ValueResponse valResp = (ValueResponse) pendingRequest.get(timeout, unit);
-        	return valResp.getLongValue();
-        }
-	}
-	public static class FutureDouble extends FutureResultBase implements Future<Double>{
-		
-        protected FutureDouble (Future<Response> pendingRequest) { super(pendingRequest); }
-		
-        public Double get () throws InterruptedException, ExecutionException {
-        	BulkResponse bulkResp = (BulkResponse) pendingRequest.get();
-        	if(bulkResp.getBulkData() != null)
-        		return Convert.toDouble(bulkResp.getBulkData());
-        	return null;
-        }
-		
-        public Double get (long timeout, TimeUnit unit)
-		throws InterruptedException, ExecutionException, TimeoutException 
-        {
-        	BulkResponse bulkResp = (BulkResponse) pendingRequest.get(timeout, unit);
-        	if(bulkResp.getBulkData() != null)
-        		return Convert.toDouble(bulkResp.getBulkData());
+	/*
+	 * Response decoders of the result types.  
+	 */
+	
+	static final ResponseDecoder<ResponseStatus> STATUS = new ResponseDecoder<ResponseStatus>() {
+		public ResponseStatus decode (Response response) {
+        	return response.getStatus();
+		}
+	};
+	static final ResponseDecoder<Boolean> BOOLEAN = new ResponseDecoder<Boolean>() {
+		public Boolean decode (Response response) {
+        	return ((ValueResponse) response).getBooleanValue();
+		}
+	};
+	static final ResponseDecoder<String> STRING = new ResponseDecoder<String>() {
+		public String decode (Response response) {
+        	return ((ValueResponse) response).getStringValue();
+		}
+	};
+	static final ResponseDecoder<RedisType> REDIS_TYPE = new ResponseDecoder<RedisType>() {
+		public RedisType decode (Response response) {
+        	return RedisType.forReply(((ValueResponse) response).getStringValue());
+		}
+	};
+	static final ResponseDecoder<ObjectInfo> OBJECT_INFO = new ResponseDecoder<ObjectInfo>() {
+		public ObjectInfo decode (Response response) {
+        	return ObjectInfo.valueOf(((ValueResponse) response).getStringValue());
+		}
+	};
+	static final ResponseDecoder<Long> LONG = new ResponseDecoder<Long>() {
+		public Long decode (Response response) {
+        	return ((ValueResponse) response).getLongValue();
+		}
+	};
+	static final ResponseDecoder<Double> DOUBLE = new ResponseDecoder<Double>() {
+		public Double decode (Response response) {
+			byte[] bulkdata = ((BulkResponse) response).getBulkData();
+        	if(bulkdata != null)
+        		return Convert.toDouble(bulkdata);
         	return null;
-        }
-	}
-	public static class FutureByteArray extends FutureResultBase implements Future<byte[]>{
-		
-        protected FutureByteArray (Future<Response> pendingRequest) { super(pendingRequest); }
-		
-        public byte[] get () throws InterruptedException, ExecutionException {
-        	BulkResponse resp = (BulkResponse) pendingRequest.get();
-        	return resp.getBulkData();
-        }
-		
-        public byte[] get (long timeout, TimeUnit unit)
-		throws InterruptedException, ExecutionException, TimeoutException 
-        {
-        	BulkResponse resp = (BulkResponse) pendingRequest.get(timeout, unit);
-        	return resp.getBulkData();
-        }
-	}
-	public static class FutureByteArrayList extends FutureResultBase implements Future<List<byte[]>>{
-		
-        protected FutureByteArrayList (Future<Response> pendingRequest) { super(pendingRequest); }
-		
-        public List<byte[]> get () throws InterruptedException, ExecutionException {
-        	MultiBulkResponse resp = (MultiBulkResponse) pendingRequest.get();
-        	return resp.getMultiBulkData();
-        }
-		
-        public List<byte[]> get (long timeout, TimeUnit unit)
-		throws InterruptedException, ExecutionException, TimeoutException 
-        {
-        	MultiBulkResponse resp = (MultiBulkResponse) pendingRequest.get(timeout, unit);
-        	return resp.getMultiBulkData();
-        }
-	}
-	public static class FutureZSetList extends FutureResultBase implements Future<List<ZSetEntry>>{
-		
-        protected FutureZSetList (Future<Response> pendingRequest) { super(pendingRequest); }
-		
-        public List<ZSetEntry> get () throws InterruptedException, ExecutionException {
-        	MultiBulkResponse resp = (MultiBulkResponse) pendingRequest.get();
-        	return convert(resp.getMultiBulkData());
-        }
-		
-        public List<ZSetEntry> get (long timeout, TimeUnit unit)
-		throws InterruptedException, ExecutionException, TimeoutException 
-        {
-        	MultiBulkResponse resp = (MultiBulkResponse) pendingRequest.get(timeout, unit);
-        	return convert(resp.getMultiBulkData());
-        }
-        private static final List<ZSetEntry> convert (List<byte[]> mbulkdata) {
+		}
+	};
+	static final ResponseDecoder<byte[]> BYTE_ARRAY = new ResponseDecoder<byte[]>() {
+		public byte[] decode (Response response) {
+        	return ((BulkResponse) response).getBulkData();
+		}
+	};
+	static final ResponseDecoder<List<byte[]>> BYTE_ARRAY_LIST = new ResponseDecoder<List<byte[]>>() {
+		public List<byte[]> decode (Response response) {
+        	return ((MultiBulkResponse) response).getMultiBulkData();
+		}
+	};
+	static final ResponseDecoder<Map<String, byte[]>> HASH = new ResponseDecoder<Map<String, byte[]>>() {
+		public Map<String, byte[]> decode (Response response) {
+        	return JRedisSupport.toHash(((MultiBulkResponse) response).getMultiBulkData());
+		}
+	};
+	static final ResponseDecoder<ResultStream<byte[]>> BYTE_ARRAY_STREAM = new ResponseDecoder<ResultStream<byte[]>>() {
+		public ResultStream<byte[]> decode (Response response) {
+			return ((StreamingMultiBulkResponse) response).getMultiBulkStream();
+		}
+	};
+	static final ResponseDecoder<List<ZSetEntry>> ZSET_LIST = new ResponseDecoder<List<ZSetEntry>>() {
+		public List<ZSetEntry> decode (Response response) {
+			List<byte[]> mbulkdata = ((MultiBulkResponse) response).getMultiBulkData();
         	List<ZSetEntry> zset = null;
         	if(mbulkdata.size() > 0){
         		zset = new ArrayList<ZSetEntry>(mbulkdata.size()/2);
@@ -1425,38 +1620,26 @@ public abstract class JRedisFutureSupport implements JRedisFuture {
         		}
         	}
         	return zset;
-        }
-	}
-	public static class FutureKeyList extends FutureResultBase implements Future<List<String>>{
-		
-        protected FutureKeyList (Future<Response> pendingRequest) { super(pendingRequest); }
-		
-        private List<String>  getResultList (BulkResponse resp) {
-    		StringTokenizer tokenizer = new StringTokenizer(new String(resp.getBulkData()), " ");
+		}
+	};
+	static final ResponseDecoder<ZSetEntries> ZSET_ENTRIES = new ResponseDecoder<ZSetEntries>() {
+		public ZSetEntries decode (Response response) {
+			return ZSetEntriesImpl.newEntries(((MultiBulkResponse) response).getMultiBulkData());
+		}
+	};
+	static final ResponseDecoder<List<String>> KEY_LIST = new ResponseDecoder<List<String>>() {
+		public List<String> decode (Response response) {
+    		StringTokenizer tokenizer = new StringTokenizer(new String(((BulkResponse) response).getBulkData()), " ");
     		List<String>  list = new ArrayList <String>(12);
     		while (tokenizer.hasMoreTokens()){
     			list.add(tokenizer.nextToken());
     		}
     		return list;
-        }
-        public List<String> get () throws InterruptedException, ExecutionException {
-        	BulkResponse resp = (BulkResponse) pendingRequest.get();
-        	return getResultList(resp);
-        }
-		
-        public List<String> get (long timeout, TimeUnit unit)
-		throws InterruptedException, ExecutionException, TimeoutException 
-        {
-        	BulkResponse resp = (BulkResponse) pendingRequest.get(timeout, unit);
-        	return getResultList(resp);
-        }
-	}
-	public static class FutureInfo extends FutureResultBase implements Future<Map<String, String>>{
-		
-        protected FutureInfo (Future<Response> pendingRequest) { super(pendingRequest); }
-		
-        private Map<String, String>  getResultMap (BulkResponse resp) {
-    		StringTokenizer tokenizer = new StringTokenizer(new String(resp.getBulkData()), "\r\n");
+		}
+	};
+	static final ResponseDecoder<Map<String, String>> INFO = new ResponseDecoder<Map<String, String>>() {
+		public Map<String, String> decode (Response response) {
+    		StringTokenizer tokenizer = new StringTokenizer(new String(((BulkResponse) response).getBulkData()), "\r\n");
     		Map<String, String>  infomap = new HashMap<String, String>(12);
     		while (tokenizer.hasMoreTokens()){
     			String info = tokenizer.nextToken();
@@ -1466,17 +1649,6 @@ public abstract class JRedisFutureSupport implements JRedisFuture {
     			infomap.put(key, value);
     		}
     		return infomap;
-        }
-        public Map<String, String> get () throws InterruptedException, ExecutionException {
-        	BulkResponse resp = (BulkResponse) pendingRequest.get();
-        	return getResultMap(resp);
-        }
-		
-        public Map<String, String> get (long timeout, TimeUnit unit)
-		throws InterruptedException, ExecutionException, TimeoutException 
-        {
-        	BulkResponse resp = (BulkResponse) pendingRequest.get(timeout, unit);
-        	return getResultMap(resp);
-        }
-	}
-}
\ No newline at end of file
+		}
+	};
+}
@@ -16,6 +16,7 @@
 
 package org.jredis.ri.alphazero;
 
+import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
@@ -26,11 +27,15 @@ import org.jredis.JRedisFuture;
 import org.jredis.ProviderException;
 import org.jredis.Redis;
 import org.jredis.RedisException;
-import org.jredis.connector.Connection;
 import org.jredis.connector.ConnectionSpec;
 import org.jredis.protocol.Command;
 import org.jredis.protocol.Response;
+import org.jredis.protocol.ResponseDecoder;
+import org.jredis.protocol.ResponseStatus;
 import org.jredis.ri.alphazero.connection.AsynchPipelineConnection;
+import org.jredis.ri.alphazero.connection.BlockingLane;
+import org.jredis.ri.alphazero.connection.ConnectionBase;
+import org.jredis.ri.alphazero.connection.RequestStats;
 
 /**
  * Asynchronous Redis client implementing {@link JRedisFuture} and using 
@@ -52,7 +57,10 @@ public class JRedisPipeline extends JRedisFutureSupport {
 	// ------------------------------------------------------------------------
 
 	/**  */
-	final private Connection	connection;
+	final private ConnectionBase	connection;
+	
+	/** services the blocking requests, so that they do not stall the pipeline */
+	final private BlockingLane		blockingLane;
 
 	// ------------------------------------------------------------------------
 	// Construct and initialize
@@ -64,6 +72,7 @@ public class JRedisPipeline extends JRedisFutureSupport {
 	public JRedisPipeline (ConnectionSpec connectionSpec) {
 		// note: using a non shared connection mod
 		connection = new AsynchPipelineConnection(connectionSpec);
+		blockingLane = new BlockingLane(connectionSpec);
 	}
 	
 	// ------------------------------------------------------------------------
@@ -78,9 +87,63 @@ public class JRedisPipeline extends JRedisFutureSupport {
 		return connection.queueRequest(cmd, args);
 	}
 	
+	/**
+	 * Delegates to the connection, which decodes the response on completion.
+	 * @see org.jredis.ri.alphazero.JRedisFutureSupport#queueRequest(org.jredis.protocol.ResponseDecoder, org.jredis.protocol.Command, byte[][])
+	 */
+	@Override
+	protected <T> Future<T> queueRequest (ResponseDecoder<T> decoder, Command cmd, byte[]...args) throws ClientRuntimeException, ProviderException {
+		return connection.queueRequest(decoder, cmd, args);
+	}
+	
+	/**
+	 * Delegates to the connection -- responses to subsequent requests are processed once the stream completes.
+	 * @see org.jredis.ri.alphazero.JRedisFutureSupport#queueStreamingRequest(org.jredis.protocol.ResponseDecoder, org.jredis.protocol.Command, byte[][])
+	 */
+	@Override
+	protected <T> Future<T> queueStreamingRequest (ResponseDecoder<T> decoder, Command cmd, byte[]...args) throws ClientRuntimeException, ProviderException {
+		return connection.queueStreamingRequest(decoder, cmd, args);
+	}
+	
+	/**
+	 * Blocking requests are serviced by dedicated connections, and do not stall the requests queued after them.
+	 * @see org.jredis.ri.alphazero.JRedisFutureSupport#queueBlockingRequest(org.jredis.protocol.ResponseDecoder, org.jredis.protocol.Command, long, byte[][])
+	 */
+	@Override
+	protected <T> Future<T> queueBlockingRequest (ResponseDecoder<T> decoder, Command cmd, long timeout, byte[]...args) throws ClientRuntimeException, ProviderException {
+		return blockingLane.queueRequest(decoder, cmd, timeout, args);
+	}
+	
+	/**
+	 * Also closes the connections of blocking requests.
+	 * @see org.jredis.ri.alphazero.JRedisFutureSupport#quit()
+	 */
+	@Override
+	public Future<ResponseStatus> quit () {
+		blockingLane.close();
+		return super.quit();
+	}
+	
+	/**
+	 * Delegates to the connection, which writes the transaction block in one go.
+	 * @see org.jredis.ri.alphazero.JRedisFutureSupport#queueTransaction(org.jredis.protocol.ResponseDecoder, java.util.List, java.util.List)
+	 */
+	@Override
+	protected <T> Future<T> queueTransaction (ResponseDecoder<T> decoder, List<Command> cmds, List<byte[][]> args) throws ClientRuntimeException, ProviderException {
+		return connection.queueTransaction(decoder, cmds, args);
+	}
+	
 	// ------------------------------------------------------------------------
 	// public interface
 	// ------------------------------------------------------------------------
+	/**
+	 * @return the counters of the abnormal outcomes (e.g. timeouts) of the requests of this pipeline.
+	 * @see ConnectionSpec#setRequestTimeout(int)
+	 */
+	public RequestStats getRequestStats () {
+		return connection.getRequestStats();
+	}
+	
 	/**
 	 * Provides a synchronous semantics interface ({@link JRedis}) to this pipeline.
 	 * Note that this is <b>not a thread-safe mechanism</b>.  If you need a pipeline
@@ -110,6 +173,10 @@ public class JRedisPipeline extends JRedisFutureSupport {
                 	else throw new ClientRuntimeException("Exception in pipeline exec of requested command", cause);
                 }
                 return response;
+            }
+			@Override
+            protected Response serviceBlockingRequest (Command cmd, long timeout, byte[]... args) throws RedisException, ClientRuntimeException, ProviderException {
+				return blockingLane.serviceRequest(cmd, timeout, args);
             }
 		};
 	}
@@ -144,6 +211,10 @@ public class JRedisPipeline extends JRedisFutureSupport {
                 	else throw new ClientRuntimeException("Exception in pipeline exec of requested command", cause);
                 }
                 return response;
+            }
+			@Override
+            protected Response serviceBlockingRequest (Command cmd, long timeout, byte[]... args) throws RedisException, ClientRuntimeException, ProviderException {
+				return blockingLane.serviceRequest(cmd, timeout, args);
             }
 		};
 	}
@@ -16,6 +16,7 @@
 
 package org.jredis.ri.alphazero;
 
+import java.util.List;
 import org.jredis.ClientRuntimeException;
 import org.jredis.JRedis;
 import org.jredis.ProviderException;
@@ -24,7 +25,12 @@ import org.jredis.connector.Connection;
 import org.jredis.connector.ConnectionSpec;
 import org.jredis.protocol.Command;
 import org.jredis.protocol.Response;
+import org.jredis.protocol.StreamingMultiBulkResponse;
+import org.jredis.protocol.TransactionResponse;
+import org.jredis.ri.alphazero.connection.BlockingLane;
+import org.jredis.ri.alphazero.connection.ConnectionBase;
 import org.jredis.ri.alphazero.connection.DefaultConnectionSpec;
+import org.jredis.ri.alphazero.connection.RequestCoalescer;
 import org.jredis.ri.alphazero.connection.SynchPipelineConnection;
 
 /**
@@ -51,7 +57,20 @@ public class JRedisPipelineService extends SynchJRedisBase {
 	@SuppressWarnings("unused")
     private final ConnectionSpec 	connectionSpec;
 	
-	private final Connection connection;
+	private final ConnectionBase connection;
+	
+	/** services the blocking requests, so that they do not stall the pipeline */
+	private final BlockingLane blockingLane;
+	
+	/** coalesces the identical read requests in flight, if enabled */
+	private final RequestCoalescer coalescer = new RequestCoalescer();
+	
+	/** services the (coalesced) requests on the pipeline */
+	private final RequestCoalescer.Service pipelineService = new RequestCoalescer.Service() {
+		public Response service (Command cmd, byte[]... args) throws RedisException {
+			return connection.serviceRequest(cmd, args);
+		}
+	};
 
 	// ------------------------------------------------------------------------
 	// Construct and initialize
@@ -75,6 +94,14 @@ public class JRedisPipelineService extends SynchJRedisBase {
 		this.connectionSpec = connectionSpec;
 		connectionSpec.isShared(true);
 		connection = new SynchPipelineConnection(connectionSpec);
+		blockingLane = new BlockingLane(connectionSpec);
+	}
+	
+	/**
+	 * @return the {@link RequestCoalescer} of the service -- disabled unless enabled by the user.
+	 */
+	public RequestCoalescer getRequestCoalescer () {
+		return coalescer;
 	}
 	
 	// ------------------------------------------------------------------------
@@ -88,12 +115,59 @@ public class JRedisPipelineService extends SynchJRedisBase {
 		throw new RuntimeException("who called me?");
 	}
 
-	/* (non-Javadoc)
+	/**
+	 * Identical read requests in flight are coalesced, if enabled.
 	 * @see org.jredis.ri.alphazero.JRedisSupport#serviceRequest(org.jredis.protocol.Command, byte[][])
+	 * @see JRedisPipelineService#getRequestCoalescer()
 	 */
 	@Override
 	protected Response serviceRequest (Command cmd, byte[]... args) throws RedisException, ClientRuntimeException, ProviderException {
-		return connection.serviceRequest(cmd, args);
+		return coalescer.serviceRequest(pipelineService, cmd, args);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.jredis.ri.alphazero.JRedisSupport#serviceStreamingRequest(org.jredis.protocol.Command, byte[][])
+	 */
+	@Override
+	protected StreamingMultiBulkResponse serviceStreamingRequest (Command cmd, byte[]... args) throws RedisException, ClientRuntimeException, ProviderException {
+		return connection.serviceStreamingRequest(cmd, args);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.jredis.ri.alphazero.JRedisSupport#serviceTransaction(java.util.List, java.util.List)
+	 */
+	@Override
+	protected TransactionResponse serviceTransaction (List<Command> cmds, List<byte[][]> args) throws RedisException, ClientRuntimeException, ProviderException {
+		try {
+			return connection.serviceTransaction(cmds, args);
+		}
+		finally {
+			coalescer.onCompleted(Command.EXEC);
+		}
+	}
+
+	/**
+	 * Blocking requests are serviced by dedicated connections, and do not stall the pipeline.
+	 * @see org.jredis.ri.alphazero.JRedisSupport#serviceBlockingRequest(org.jredis.protocol.Command, long, byte[][])
+	 */
+	@Override
+	protected Response serviceBlockingRequest (Command cmd, long timeout, byte[]... args) throws RedisException, ClientRuntimeException, ProviderException {
+		try {
+			return blockingLane.serviceRequest(cmd, timeout, args);
+		}
+		finally {
+			coalescer.onCompleted(cmd);
+		}
+	}
+
+	/**
+	 * Also closes the connections of blocking requests.
+	 * @see org.jredis.ri.alphazero.JRedisSupport#quit()
+	 */
+	@Override
+	public void quit () {
+		blockingLane.close();
+		super.quit();
 	}
 
 	/* (non-Javadoc)
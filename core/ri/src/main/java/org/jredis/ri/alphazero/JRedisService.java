@@ -16,18 +16,38 @@
 
 package org.jredis.ri.alphazero;
 
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import org.jredis.ClientRuntimeException;
 import org.jredis.JRedis;
+import org.jredis.NotSupportedException;
 import org.jredis.ProviderException;
 import org.jredis.RedisException;
 import org.jredis.connector.Connection;
 import org.jredis.connector.ConnectionSpec;
+import org.jredis.connector.RequestTrace;
+import org.jredis.protocol.BulkTransferResponse;
 import org.jredis.protocol.Command;
 import org.jredis.protocol.Response;
+import org.jredis.protocol.StreamingMultiBulkResponse;
+import org.jredis.protocol.TransactionResponse;
+import org.jredis.ri.alphazero.connection.BlockingLane;
+import org.jredis.ri.alphazero.connection.CircuitBreaker;
+import org.jredis.ri.alphazero.connection.CircuitOpenException;
+import org.jredis.ri.alphazero.connection.ConnectionBase;
 import org.jredis.ri.alphazero.connection.DefaultConnectionSpec;
+import org.jredis.ri.alphazero.connection.RequestCoalescer;
+import org.jredis.ri.alphazero.protocol.SynchProtocol.SynchMultiBulkStreamResponse;
 import org.jredis.ri.alphazero.support.Assert;
 import org.jredis.ri.alphazero.support.Log;
+import org.jredis.ri.alphazero.support.Parallel;
 
 /**
  * This class utilizes a (configurable) number of {@link Connection}s in a pool
@@ -38,6 +58,19 @@ import org.jredis.ri.alphazero.support.Log;
  * the number of service requests being processed reaches that limit, then any further calls will block until
  * a connection becomes available.  
  * <p>
+ * The pooled connections are established in parallel on construction.  Alternatively, the service may be 
+ * created with a minimum connection count (see {@link JRedisService#JRedisService(ConnectionSpec, int, int)}), 
+ * in which case only the first connection is established on construction, the rest of the minimum are 
+ * established in the background (see {@link JRedisService#awaitReady(long, TimeUnit)}), and the remaining
+ * connections on demand.
+ * <p>
+ * The pooled connections share a {@link CircuitBreaker}.  If the server stops responding, requests
+ * fail fast with a {@link CircuitOpenException} (instead of blocking on the pool behind requests waiting 
+ * on the socket timeout) until the server is found responsive again.  See {@link JRedisService#getCircuitBreaker()}.
+ * <p>
+ * Identical read requests of concurrent callers may (optionally) be coalesced, so that hot keys are
+ * read once per flight.  See {@link JRedisService#getRequestCoalescer()}.
+ * <p>
  *
  * @author  Joubin Houshyar (alphazero@sensesay.net)
  * @version alpha.0, Apr 21, 2009
@@ -61,13 +94,31 @@ public class JRedisService extends SynchJRedisBase {
 	private Semaphore   			connPoolAccess;
 	/** in use flag for the connections */
 	private boolean 				connInUse[];
-	/** the connections */
-	private Connection 				conns[];
+	/** the connections -- null until established */
+	private AtomicReferenceArray<Connection>	conns;
+	/** guards the establishment of the connections */
+	private Object					connLocks[];
+	/** counted down as connections are established, until the min connection count is reached */
+	private CountDownLatch			ready;
 	
 	/** connection spec shared by all connections in pool */
 	private final ConnectionSpec 	connectionSpec;
 	/** number of connections in pool */
 	private final int				connCount;
+	/** number of connections established before the service is ready */
+	private final int				minConnCount;
+	/** tracks the health of the server for all connections in pool */
+	private CircuitBreaker			breaker;
+	/** services the blocking requests, outside of the pool */
+	private BlockingLane			blockingLane;
+	/** coalesces the identical read requests in flight, if enabled */
+	private final RequestCoalescer	coalescer = new RequestCoalescer();
+	/** services the (coalesced) requests */
+	private final RequestCoalescer.Service tracedService = new RequestCoalescer.Service() {
+		public Response service (Command cmd, byte[]... args) throws RedisException {
+			return serviceTracedRequest(cmd, args);
+		}
+	};
 
 	// ------------------------------------------------------------------------
 	// Construct and initialize
@@ -92,6 +143,7 @@ public class JRedisService extends SynchJRedisBase {
 		byte[] credentials = password != null ? password.getBytes() : null;
 		connectionSpec = DefaultConnectionSpec.newSpec(host, port, database, credentials);
 		connCount = connectionCount;
+		minConnCount = connectionCount;
 		initialize();
 	}
 	
@@ -100,35 +152,98 @@ public class JRedisService extends SynchJRedisBase {
 	 * @param connectionCount
 	 */
 	public JRedisService (ConnectionSpec connectionSpec, int connectionCount) {
+		this(connectionSpec, connectionCount, connectionCount);
+	}
+	
+	/**
+	 * Creates a service that establishes its connections lazily.  The first connection is established
+	 * on construction and the rest of the minimum in the background.  The remaining connections of the 
+	 * pool are established on demand.
+	 * @param connectionSpec
+	 * @param connectionCount max number of connections in the pool
+	 * @param minConnectionCount number of connections established before the service is ready.  If 
+	 * equal to the connectionCount, all connections are established on construction.
+	 * @see JRedisService#awaitReady(long, TimeUnit)
+	 */
+	public JRedisService (ConnectionSpec connectionSpec, int connectionCount, int minConnectionCount) {
+		if(minConnectionCount < 1 || minConnectionCount > connectionCount)
+			throw new IllegalArgumentException("minConnectionCount must be in [1, " + connectionCount + "]: " + minConnectionCount);
+		
 		this.connectionSpec = connectionSpec;
 		// regardless of user spec, service has to assume shared connections
 		connectionSpec.isShared(true);
 		connCount = connectionCount;
+		minConnCount = minConnectionCount;
 		
 		initialize();
 	}
 	
 	/**
-	 * Initialize the connection pool using the connection spec.
+	 * Initialize the connection pool using the connection spec.  The connections
+	 * are established in parallel.
 	 */
 	private final void initialize () {
 		connPoolAccess = new Semaphore(connCount);
-		conns = new Connection[connCount];
+		conns = new AtomicReferenceArray<Connection>(connCount);
 		connInUse = new boolean [connCount];
-		Connection conn = null;
+		connLocks = new Object [connCount];
+		for(int i=0; i< connCount;i++)
+			connLocks[i] = new Object();
+		ready = new CountDownLatch(minConnCount);
 		connectionSpec.isReliable(true);
-		for(int i=0; i< connCount;i++) {
-			try {
-				conn = Assert.notNull(createSynchConnection(connectionSpec, true, RedisVersion.current_revision), "Connection " + i, ClientRuntimeException.class);
-				conns[i] = conn;
-				connInUse[i] = false;
-			} 
-			catch (Exception e) {
-				// TODO: remove this stacktrace
-				e.printStackTrace();
-				throw new ClientRuntimeException("Could not create connection for service", e);
-			}		
+		
+		if(minConnCount == connCount) {
+			List<Callable<Connection>> tasks = new ArrayList<Callable<Connection>>(connCount);
+			for(int i=0; i< connCount;i++)
+				tasks.add(newConnectTask(i));
+			Parallel.invokeAll("jredis-service-connect", tasks);
+		}
+		else {
+			// the first connection is established immediately to fail fast on bad specs
+			getConnection(0);
+			List<Runnable> tasks = new ArrayList<Runnable>(minConnCount);
+			for(int i=1; i< minConnCount;i++) {
+				final int idx = i;
+				tasks.add(new Runnable() {
+					public void run () { getConnection(idx); }
+				});
+			}
+			Parallel.execute("jredis-service-warmup", tasks);
 		}
+		breaker = new CircuitBreaker(conns.get(0));
+		blockingLane = new BlockingLane(connectionSpec);
+	}
+	
+	/**
+	 * @return the {@link CircuitBreaker} of the pool, e.g. for listening to its events.
+	 */
+	public CircuitBreaker getCircuitBreaker () {
+		return breaker;
+	}
+	
+	/**
+	 * @return the {@link RequestCoalescer} of the service -- disabled unless enabled by the user.
+	 */
+	public RequestCoalescer getRequestCoalescer () {
+		return coalescer;
+	}
+	
+	/**
+	 * @return true if the min connection count of the pool has been established
+	 */
+	public boolean isReady () {
+		return ready.getCount() == 0;
+	}
+	
+	/**
+	 * Waits for the establishment of the min connection count of the pool.
+	 * @param timeout
+	 * @param unit
+	 * @return true if ready, false if timed out
+	 * @throws InterruptedException
+	 */
+	public boolean awaitReady (long timeout, TimeUnit unit) throws InterruptedException {
+		return ready.await(timeout, unit);
 	}
 
 	// ------------------------------------------------------------------------
@@ -143,51 +258,64 @@ public class JRedisService extends SynchJRedisBase {
 	}
 
 	
-	/* (non-Javadoc)
+	/**
+	 * Identical read requests in flight are coalesced, if enabled.
 	 * @see org.jredis.ri.alphazero.JRedisSupport#serviceRequest(org.jredis.protocol.Command, byte[][])
+	 * @see JRedisService#getRequestCoalescer()
 	 */
 	@Override
 	protected Response serviceRequest(Command cmd, byte[]... args)
 			throws RedisException, ClientRuntimeException, ProviderException 
+	{
+		return coalescer.serviceRequest(tracedService, cmd, args);
+	}
+	
+	/** The request is traced from before the wait for a pooled connection, if sampled. */
+	private Response serviceTracedRequest(Command cmd, byte[]... args)
+			throws RedisException, ClientRuntimeException, ProviderException 
+	{
+		RequestTrace trace = ConnectionBase.beginTrace(connectionSpec, cmd);
+		if(trace == null)
+			return servicePooledRequest(cmd, args);
+		
+		Throwable fault = null;
+		try {
+			return servicePooledRequest(cmd, args);
+		}
+		catch (RedisException e) { fault = e; throw e; }
+		catch (RuntimeException e) { fault = e; throw e; }
+		finally {
+			ConnectionBase.endTrace(connectionSpec, trace, fault);
+		}
+	}
+	
+	private Response servicePooledRequest(Command cmd, byte[]... args)
+			throws RedisException, ClientRuntimeException, ProviderException 
 	{
 		Response response = null;
 		
+		// fail fast if the server is not healthy
+		breaker.verifyAllowRequest();
+		
 		try {
-			// we're using a counting semaphore to remain within
-			// bounds of the connection count
-			// if more than cnt requests are being serviced, we block here
-			connPoolAccess.acquire();
-			
-			int i = 0;
+			int i = acquireConnection();
 			try {
-				// bare bones connection pool - mark the first available
-				// connection as inUse and then use it
-				// this is faster than using the synch collections of JDK and sufficient
-				synchronized(connInUse){	// Note: could use finer grained sync on conns[i] in loop instead ..
-					for(; i<connInUse.length;i++){
-						if(connInUse[i]==false) {
-							connInUse[i] = true;
-							break;
-						}
-					}
+				long start = System.nanoTime();
+				try {
+					response = getConnection(i).serviceRequest(cmd, args);
+				}
+				catch (RedisException e) {
+					breaker.onSuccess(System.nanoTime() - start);
+					throw e;
 				}
-				
-				// This shouldn't happen -- but lets make sure, hey?
-				if(i>=connCount) 
-					throw new ProviderException("BUG: JRedisService connection pool manager - index exceeds bounds!");
-				
-				response = conns[i].serviceRequest(cmd, args);
+				catch (ClientRuntimeException e) {
+					breaker.onFailure(e);
+					throw e;
+				}
+				breaker.onSuccess(System.nanoTime() - start);
 			}
 			finally {
-				// return the connection to the pool
-				synchronized(connInUse){
-					if(connInUse[i] != true) 
-						throw new ProviderException("BUG: JRedisService connection pool manager - connection should have been marked in use!");
-					connInUse[i] = false;
-				}
-				
-				// release the bounds sem.
-				connPoolAccess.release();
+				releaseConnection(i);
 			}
 		} 
 		catch (InterruptedException e) {
@@ -200,6 +328,278 @@ public class JRedisService extends SynchJRedisBase {
 		}
 		return response;
 	}
+	
+	/**
+	 * The connection servicing the request remains out of the pool until the stream completes.
+	 * @see org.jredis.ri.alphazero.JRedisSupport#serviceStreamingRequest(org.jredis.protocol.Command, byte[][])
+	 */
+	@Override
+	protected StreamingMultiBulkResponse serviceStreamingRequest(Command cmd, byte[]... args)
+			throws RedisException, ClientRuntimeException, ProviderException 
+	{
+		breaker.verifyAllowRequest();
+		
+		final int i;
+		try {
+			i = acquireConnection();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ClientRuntimeException("Interrupted while waiting for a connection for " + cmd.code, e);
+		}
+		
+		Connection conn = null;
+		try {
+			conn = getConnection(i);
+		}
+		catch (ClientRuntimeException e) {
+			breaker.onFailure(e);
+			releaseConnection(i);
+			throw e;
+		}
+		if(!(conn instanceof ConnectionBase)) {
+			releaseConnection(i);
+			return super.serviceStreamingRequest(cmd, args);
+		}
+		
+		StreamingMultiBulkResponse response = null;
+		long start = System.nanoTime();
+		try {
+			response = ((ConnectionBase) conn).serviceStreamingRequest(cmd, args);
+			breaker.onSuccess(System.nanoTime() - start);
+		}
+		catch (RedisException e) {
+			breaker.onSuccess(System.nanoTime() - start);
+			releaseConnection(i);
+			throw e;
+		}
+		catch (ClientRuntimeException e) {
+			breaker.onFailure(e);
+			releaseConnection(i);
+			throw e;
+		}
+		catch (RuntimeException e) {
+			releaseConnection(i);
+			throw e;
+		}
+		
+		if(response instanceof SynchMultiBulkStreamResponse) {
+			((SynchMultiBulkStreamResponse) response).addCompletionHook(new Runnable() {
+				public void run () { releaseConnection(i); }
+			});
+		}
+		else {
+			releaseConnection(i);
+		}
+		return response;
+	}
+	
+	/* (non-Javadoc)
+	 * @see org.jredis.ri.alphazero.JRedisSupport#serviceRequest(org.jredis.protocol.Command, java.nio.channels.ReadableByteChannel, long, byte[][])
+	 */
+	@Override
+	protected Response serviceRequest(final Command cmd, final ReadableByteChannel value, final long length, final byte[]... args)
+			throws RedisException, ClientRuntimeException, ProviderException 
+	{
+		return servicePooled (cmd, new PooledRequest<Response>() {
+			public Response service (ConnectionBase conn) throws RedisException {
+				return conn.serviceRequest(cmd, value, length, args);
+			}
+		});
+	}
+	
+	/* (non-Javadoc)
+	 * @see org.jredis.ri.alphazero.JRedisSupport#serviceTransferRequest(org.jredis.protocol.Command, java.nio.channels.WritableByteChannel, byte[][])
+	 */
+	@Override
+	protected BulkTransferResponse serviceTransferRequest(final Command cmd, final WritableByteChannel sink, final byte[]... args)
+			throws RedisException, ClientRuntimeException, ProviderException 
+	{
+		return servicePooled (cmd, new PooledRequest<BulkTransferResponse>() {
+			public BulkTransferResponse service (ConnectionBase conn) throws RedisException {
+				return conn.serviceTransferRequest(cmd, sink, args);
+			}
+		});
+	}
+	
+	/**
+	 * Blocking requests are serviced by dedicated connections, and do not hold a connection of the pool.
+	 * @see org.jredis.ri.alphazero.JRedisSupport#serviceBlockingRequest(org.jredis.protocol.Command, long, byte[][])
+	 */
+	@Override
+	protected Response serviceBlockingRequest(Command cmd, long timeout, byte[]... args)
+			throws RedisException, ClientRuntimeException, ProviderException 
+	{
+		breaker.verifyAllowRequest();
+		try {
+			return blockingLane.serviceRequest(cmd, timeout, args);
+		}
+		finally {
+			coalescer.onCompleted(cmd);
+		}
+	}
+	
+	/**
+	 * Also shuts down the circuit breaker, so that its probes do not reconnect, and closes the 
+	 * connections of blocking requests.
+	 * @see org.jredis.ri.alphazero.JRedisSupport#quit()
+	 */
+	@Override
+	public void quit () {
+		breaker.shutdown();
+		blockingLane.close();
+		super.quit();
+	}
+	
+	/**
+	 * The transaction is serviced by one pooled connection.
+	 * @see org.jredis.ri.alphazero.JRedisSupport#serviceTransaction(java.util.List, java.util.List)
+	 */
+	@Override
+	protected TransactionResponse serviceTransaction(final List<Command> cmds, final List<byte[][]> args)
+			throws RedisException, ClientRuntimeException, ProviderException 
+	{
+		return servicePooled (Command.EXEC, new PooledRequest<TransactionResponse>() {
+			public TransactionResponse service (ConnectionBase conn) throws RedisException {
+				return conn.serviceTransaction(cmds, args);
+			}
+		});
+	}
+	
+	// ------------------------------------------------------------------------
+	// Inner ops
+	// ------------------------------------------------------------------------
+	/** a request serviced by one of the (optional) methods of {@link ConnectionBase} */
+	private interface PooledRequest<T> {
+		T service (ConnectionBase conn) throws RedisException;
+	}
+	
+	/**
+	 * Services the request with a pooled connection, with the same accounting as 
+	 * {@link JRedisService#serviceRequest(Command, byte[]...)}.  Writes are noted by the {@link RequestCoalescer}.
+	 */
+	private final <T> T servicePooled (Command cmd, PooledRequest<T> request) throws RedisException {
+		RequestTrace trace = ConnectionBase.beginTrace(connectionSpec, cmd);
+		Throwable fault = null;
+		try {
+			return servicePooledRequest(cmd, request);
+		}
+		catch (RedisException e) { fault = e; throw e; }
+		catch (RuntimeException e) { fault = e; throw e; }
+		finally {
+			ConnectionBase.endTrace(connectionSpec, trace, fault);
+			coalescer.onCompleted(cmd);
+		}
+	}
+	
+	private final <T> T servicePooledRequest (Command cmd, PooledRequest<T> request) throws RedisException {
+		breaker.verifyAllowRequest();
+		
+		int i;
+		try {
+			i = acquireConnection();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ClientRuntimeException("Interrupted while waiting for a connection for " + cmd.code, e);
+		}
+		try {
+			long start = System.nanoTime();
+			T response = null;
+			try {
+				Connection conn = getConnection(i);
+				if(!(conn instanceof ConnectionBase))
+					throw new NotSupportedException (cmd.code + " requests of this kind are not supported by " + conn.getClass().getSimpleName());
+				response = request.service((ConnectionBase) conn);
+			}
+			catch (RedisException e) {
+				breaker.onSuccess(System.nanoTime() - start);
+				throw e;
+			}
+			catch (ClientRuntimeException e) {
+				breaker.onFailure(e);
+				throw e;
+			}
+			breaker.onSuccess(System.nanoTime() - start);
+			return response;
+		}
+		finally {
+			releaseConnection(i);
+		}
+	}
+	
+	/**
+	 * @param i index of the connection
+	 * @return the connection, established if not already
+	 * @throws ClientRuntimeException if the connection could not be established
+	 */
+	private final Connection getConnection (int i) throws ClientRuntimeException {
+		Connection conn = conns.get(i);
+		if(conn != null) return conn;
+		
+		synchronized (connLocks[i]) {
+			conn = conns.get(i);
+			if(conn == null) {
+				conn = Assert.notNull(createSynchConnection(connectionSpec, true, RedisVersion.current_revision), "Connection " + i, ClientRuntimeException.class);
+				conns.set(i, conn);
+				ready.countDown();
+			}
+		}
+		return conn;
+	}
+	
+	private final Callable<Connection> newConnectTask (final int i) {
+		return new Callable<Connection>() {
+			public Connection call () { return getConnection(i); }
+		};
+	}
+	
+	/**
+	 * Takes the first available connection out of the pool, blocking if all are in use.
+	 * @return the index of the connection
+	 * @throws InterruptedException
+	 */
+	private final int acquireConnection () throws InterruptedException {
+		// we're using a counting semaphore to remain within
+		// bounds of the connection count
+		// if more than cnt requests are being serviced, we block here
+		connPoolAccess.acquire();
+		
+		// bare bones connection pool - mark the first available
+		// connection as inUse and then use it
+		// this is faster than using the synch collections of JDK and sufficient
+		int i = 0;
+		synchronized(connInUse){	// Note: could use finer grained sync on conns[i] in loop instead ..
+			for(; i<connInUse.length;i++){
+				if(connInUse[i]==false) {
+					connInUse[i] = true;
+					break;
+				}
+			}
+		}
+		
+		// This shouldn't happen -- but lets make sure, hey?
+		if(i>=connCount) {
+			connPoolAccess.release();
+			throw new ProviderException("BUG: JRedisService connection pool manager - index exceeds bounds!");
+		}
+		return i;
+	}
+	
+	/**
+	 * Returns the connection to the pool.
+	 * @param i index of the connection
+	 */
+	private final void releaseConnection (int i) {
+		synchronized(connInUse){
+			if(connInUse[i] != true) 
+				throw new ProviderException("BUG: JRedisService connection pool manager - connection should have been marked in use!");
+			connInUse[i] = false;
+		}
+		
+		// release the bounds sem.
+		connPoolAccess.release();
+	}
 	// ------------------------------------------------------------------------
 	// Interface
 	// =========================================================== Resource<T>
@@ -0,0 +1,151 @@
+/*
+ *   Copyright 2009 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+
+package org.jredis.ri.alphazero;
+
+import java.util.Set;
+import org.jredis.ClientRuntimeException;
+import org.jredis.Subscriber;
+import org.jredis.connector.ConnectionSpec;
+import org.jredis.protocol.Command;
+import org.jredis.ri.alphazero.connection.DefaultConnectionSpec;
+import org.jredis.ri.alphazero.connection.SubscriberConnection;
+
+/**
+ * A {@link Subscriber} using a dedicated {@link SubscriberConnection}.  The messages are 
+ * delivered to the listeners by the connection's dispatch threads -- see 
+ * {@link SubscriberConnection#SubscriberConnection(ConnectionSpec, int, int)}.
+ * <p>
+ * This class is thread-safe.  
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @since   alpha.0
+ * 
+ */
+public class JRedisSubscriber implements Subscriber {
+	
+	// ------------------------------------------------------------------------
+	// Properties
+	// ------------------------------------------------------------------------
+	private final SubscriberConnection	connection;
+	
+	// ------------------------------------------------------------------------
+	// Construct and initialize
+	// ------------------------------------------------------------------------
+	/**
+	 * Connects immediately.
+	 * @param connectionSpec
+	 * @throws ClientRuntimeException
+	 */
+	public JRedisSubscriber (ConnectionSpec connectionSpec) throws ClientRuntimeException {
+		this(connectionSpec, SubscriberConnection.DEFAULT_DISPATCH_THREADS, SubscriberConnection.DEFAULT_DISPATCH_QUEUE_SIZE);
+	}
+	
+	/**
+	 * Connects immediately.
+	 * @param connectionSpec
+	 * @param dispatchThreads number of threads delivering the messages -- messages are delivered 
+	 * in order only if 1.
+	 * @param dispatchQueueSize max number of messages received but not yet delivered
+	 * @throws ClientRuntimeException
+	 */
+	public JRedisSubscriber (ConnectionSpec connectionSpec, int dispatchThreads, int dispatchQueueSize) throws ClientRuntimeException {
+		connection = new SubscriberConnection(connectionSpec, dispatchThreads, dispatchQueueSize);
+	}
+	
+	/**
+	 * @param host redis server's host
+	 * @param port redis server's port
+	 * @param password to use for AUTHentication (can be null)
+	 * @param database database to select on connect
+	 * @throws ClientRuntimeException
+	 */
+	public JRedisSubscriber (String host, int port, String password, int database) throws ClientRuntimeException {
+		this(DefaultConnectionSpec.newSpec(host, port, database, null != password ? password.getBytes() : null));
+	}
+	
+	// ------------------------------------------------------------------------
+	// Interface: Subscriber
+	// ------------------------------------------------------------------------
+	/* (non-Javadoc) @see org.jredis.Subscriber#subscribe(java.lang.String[]) */
+//	@Override
+	public void subscribe (String... channels) throws ClientRuntimeException {
+		connection.serviceSubscription(Command.SUBSCRIBE, checkNames(channels, false));
+	}
+
+	/* (non-Javadoc) @see org.jredis.Subscriber#unsubscribe(java.lang.String[]) */
+//	@Override
+	public void unsubscribe (String... channels) throws ClientRuntimeException {
+		connection.serviceSubscription(Command.UNSUBSCRIBE, checkNames(channels, true));
+	}
+
+	/* (non-Javadoc) @see org.jredis.Subscriber#psubscribe(java.lang.String[]) */
+//	@Override
+	public void psubscribe (String... patterns) throws ClientRuntimeException {
+		connection.serviceSubscription(Command.PSUBSCRIBE, checkNames(patterns, false));
+	}
+
+	/* (non-Javadoc) @see org.jredis.Subscriber#punsubscribe(java.lang.String[]) */
+//	@Override
+	public void punsubscribe (String... patterns) throws ClientRuntimeException {
+		connection.serviceSubscription(Command.PUNSUBSCRIBE, checkNames(patterns, true));
+	}
+
+	/* (non-Javadoc) @see org.jredis.Subscriber#getChannels() */
+//	@Override
+	public Set<String> getChannels () {
+		return connection.getChannels();
+	}
+
+	/* (non-Javadoc) @see org.jredis.Subscriber#getPatterns() */
+//	@Override
+	public Set<String> getPatterns () {
+		return connection.getPatterns();
+	}
+
+	/* (non-Javadoc) @see org.jredis.Subscriber#addListener(org.jredis.Subscriber.Listener) */
+//	@Override
+	public boolean addListener (Listener listener) {
+		return connection.addMessageListener(listener);
+	}
+
+	/* (non-Javadoc) @see org.jredis.Subscriber#removeListener(org.jredis.Subscriber.Listener) */
+//	@Override
+	public boolean removeListener (Listener listener) {
+		return connection.removeMessageListener(listener);
+	}
+
+	/* (non-Javadoc) @see org.jredis.Subscriber#quit() */
+//	@Override
+	public void quit () {
+		connection.quit();
+	}
+	
+	// ------------------------------------------------------------------------
+	// Inner ops
+	// ------------------------------------------------------------------------
+	/** channel and pattern names are sent inline, as are keys */
+	private static String[] checkNames (String[] names, boolean allowNone) {
+		if(null == names || (names.length == 0 && !allowNone))
+			throw new IllegalArgumentException ("no channels or patterns specified");
+		for(String name : names) {
+			if(null == name || name.length() == 0 || name.indexOf(' ') >= 0 || name.indexOf('\r') >= 0 || name.indexOf('\n') >= 0)
+				throw new IllegalArgumentException ("invalid channel or pattern => ["+name+"]");
+		}
+		return names;
+	}
+}
@@ -16,10 +16,16 @@
 
 package org.jredis.ri.alphazero;
 
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.Serializable;
 import java.io.UnsupportedEncodingException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.StringTokenizer;
@@ -30,21 +36,32 @@ import java.util.concurrent.TimeUnit;
 import org.jredis.ClientRuntimeException;
 import org.jredis.JRedis;
 import org.jredis.KeyValueSet;
+import org.jredis.NotSupportedException;
 import org.jredis.ObjectInfo;
 import org.jredis.ProviderException;
 import org.jredis.RedisException;
 import org.jredis.RedisType;
+import org.jredis.ResultStream;
 import org.jredis.Sort;
+import org.jredis.Transaction;
+import org.jredis.ZSetEntries;
 import org.jredis.ZSetEntry;
 import org.jredis.connector.Connection;
 import org.jredis.protocol.BulkResponse;
+import org.jredis.protocol.BulkTransferResponse;
 import org.jredis.protocol.Command;
 import org.jredis.protocol.MultiBulkResponse;
 import org.jredis.protocol.Response;
+import org.jredis.protocol.ResponseDecoder;
+import org.jredis.protocol.StreamingMultiBulkResponse;
+import org.jredis.protocol.TransactionResponse;
 import org.jredis.protocol.ValueResponse;
+import org.jredis.ri.alphazero.connection.BlockingLane;
 import org.jredis.ri.alphazero.semantics.DefaultKeyCodec;
+import org.jredis.ri.alphazero.support.Assert;
 import org.jredis.ri.alphazero.support.Convert;
 import org.jredis.ri.alphazero.support.DefaultCodec;
+import org.jredis.ri.alphazero.support.KeyScanner;
 import org.jredis.ri.alphazero.support.SortSupport;
 import org.jredis.semantics.KeyCodec;
 
@@ -92,6 +109,97 @@ public abstract class JRedisSupport implements JRedis {
 	 * @throws ProviderException
 	 */
 	protected abstract Response serviceRequest (Command cmd, byte[]...args) throws RedisException, ClientRuntimeException, ProviderException; 
+	
+	/**
+	 * Optional.  Services a multi-bulk request with a {@link StreamingMultiBulkResponse}, used by
+	 * the streaming methods of the interface, e.g. {@link JRedis#lrangeStream(String, long, long)}.
+	 * The (connection of the) response must remain reserved for the stream until it completes.
+	 * <p>
+	 * This implementation throws a {@link NotSupportedException}.
+	 * 
+	 * @param cmd
+	 * @param args
+	 * @return
+	 * @throws RedisException
+	 * @throws ClientRuntimeException
+	 * @throws ProviderException
+	 */
+	protected StreamingMultiBulkResponse serviceStreamingRequest (Command cmd, byte[]...args) throws RedisException, ClientRuntimeException, ProviderException {
+		throw new NotSupportedException ("Streaming responses are not supported by " + getClass().getSimpleName());
+	}
+	
+	/**
+	 * Optional.  Services a key value request with the value transferred from the channel, used by
+	 * the streaming set methods of the interface, e.g. {@link JRedis#set(String, InputStream, long)}.
+	 * <p>
+	 * This implementation throws a {@link NotSupportedException}.
+	 * 
+	 * @param cmd
+	 * @param value
+	 * @param length
+	 * @param args the request arguments, excluding the value
+	 * @return
+	 * @throws RedisException
+	 * @throws ClientRuntimeException
+	 * @throws ProviderException
+	 */
+	protected Response serviceRequest (Command cmd, ReadableByteChannel value, long length, byte[]...args) throws RedisException, ClientRuntimeException, ProviderException {
+		throw new NotSupportedException ("Value transfers are not supported by " + getClass().getSimpleName());
+	}
+	
+	/**
+	 * Optional.  Services a bulk request with the bulk data transferred to the channel, used by
+	 * the streaming get methods of the interface, e.g. {@link JRedis#get(String, OutputStream)}.
+	 * <p>
+	 * This implementation throws a {@link NotSupportedException}.
+	 * 
+	 * @param cmd
+	 * @param sink
+	 * @param args
+	 * @return
+	 * @throws RedisException
+	 * @throws ClientRuntimeException
+	 * @throws ProviderException
+	 */
+	protected BulkTransferResponse serviceTransferRequest (Command cmd, WritableByteChannel sink, byte[]...args) throws RedisException, ClientRuntimeException, ProviderException {
+		throw new NotSupportedException ("Bulk transfers are not supported by " + getClass().getSimpleName());
+	}
+	
+	/**
+	 * Optional.  Services the request of a {@link Command#isBlocking()} command, used by the blocking
+	 * pop methods of the interface, e.g. {@link JRedis#blpop(long, String...)}.  Extensions using shared 
+	 * connections must service the request on a dedicated connection, e.g. using a {@link BlockingLane}.
+	 * <p>
+	 * This implementation throws a {@link NotSupportedException}.
+	 * 
+	 * @param cmd
+	 * @param timeout the command timeout, in seconds -- 0 blocks indefinitely
+	 * @param args the request arguments, including the timeout
+	 * @return
+	 * @throws RedisException
+	 * @throws ClientRuntimeException
+	 * @throws ProviderException
+	 */
+	protected Response serviceBlockingRequest (Command cmd, long timeout, byte[]...args) throws RedisException, ClientRuntimeException, ProviderException {
+		throw new NotSupportedException ("Blocking requests are not supported by " + getClass().getSimpleName());
+	}
+	
+	/**
+	 * Optional.  Services a transaction block, used by the {@link Transaction}s of {@link JRedis#multi()}. 
+	 * The MULTI, commands, and EXEC must be serviced by the same connection.
+	 * <p>
+	 * This implementation throws a {@link NotSupportedException}.
+	 * 
+	 * @param cmds
+	 * @param args the arguments of each command
+	 * @return
+	 * @throws RedisException if the transaction was not executed
+	 * @throws ClientRuntimeException
+	 * @throws ProviderException
+	 */
+	protected TransactionResponse serviceTransaction (List<Command> cmds, List<byte[][]> args) throws RedisException, ClientRuntimeException, ProviderException {
+		throw new NotSupportedException ("Transactions are not supported by " + getClass().getSimpleName());
+	}
 	// ------------------------------------------------------------------------
 	// INTERFACE
 	// ================================================================ Redis
@@ -235,6 +343,58 @@ public abstract class JRedisSupport implements JRedis {
 		
 	}
 	
+//	@Override
+	public List<byte[]> blpop(long timeout, String... listKeys) throws RedisException {
+		return blockingPop(Command.BLPOP, timeout, listKeys);
+	}
+
+//	@Override
+	public List<byte[]> brpop(long timeout, String... listKeys) throws RedisException {
+		return blockingPop(Command.BRPOP, timeout, listKeys);
+	}
+	
+	private List<byte[]> blockingPop(Command cmd, long timeout, String... listKeys) throws RedisException {
+		byte[][] args = blockingPopArgs(timeout, listKeys);
+		List<byte[]> multiBulkData= null;
+		try {
+			MultiBulkResponse response = (MultiBulkResponse) this.serviceBlockingRequest(cmd, timeout, args);
+			multiBulkData = response.getMultiBulkData();
+		}
+		catch (ClassCastException e){
+			throw new ProviderException("Expecting a MultiBulkResponse here => " + e.getLocalizedMessage(), e);
+		}
+		return multiBulkData;
+	}
+
+//	@Override
+	public byte[] brpoplpush(String srcList, String destList, long timeout) throws RedisException {
+		byte[][] args = blockingPopArgs(timeout, srcList, destList);
+		byte[] bulkData= null;
+		try {
+			BulkResponse response = (BulkResponse) this.serviceBlockingRequest(Command.BRPOPLPUSH, timeout, args);
+			bulkData = response.getBulkData();
+		}
+		catch (ClassCastException e){
+			throw new ProviderException("Expecting a BulkResponse here => " + e.getLocalizedMessage(), e);
+		}
+		return bulkData;
+	}
+	
+	/** @return the args of a blocking pop: the keys followed by the timeout */
+	private byte[][] blockingPopArgs (long timeout, String... listKeys) {
+		if(timeout < 0)
+			throw new IllegalArgumentException ("invalid timeout => ["+timeout+"]");
+		if(null == listKeys || listKeys.length == 0)
+			throw new IllegalArgumentException ("no list keys");
+		byte[][] args = new byte[listKeys.length + 1][];
+		for(int i=0; i<listKeys.length; i++) {
+			if((args[i] = getKeyBytes(listKeys[i])) == null) 
+				throw new IllegalArgumentException ("invalid key => ["+listKeys[i]+"]");
+		}
+		args[listKeys.length] = Convert.toBytes(timeout);
+		return args;
+	}
+	
 //	@Override
 	public void rpush(String key, byte[] value) 
 	throws RedisException 
@@ -391,6 +551,18 @@ public abstract class JRedisSupport implements JRedis {
 	{
 		set(key, DefaultCodec.encode(value));
 	}
+//	@Override
+	public void set (String key, InputStream value, long length) throws RedisException {
+		set(key, Channels.newChannel(Assert.notNull(value, "value stream", IllegalArgumentException.class)), length);
+	}
+//	@Override
+	public void set (String key, ReadableByteChannel value, long length) throws RedisException {
+		byte[] keybytes = null;
+		if((keybytes = getKeyBytes(key)) == null) 
+			throw new IllegalArgumentException ("invalid key => ["+key+"]");
+
+		this.serviceRequest(Command.SET, value, length, keybytes);
+	}
 	
 //	@Override
 	public byte[] getset(String key, byte[] value) throws RedisException {
@@ -780,6 +952,176 @@ public abstract class JRedisSupport implements JRedis {
 		return bulkData;
 	}
 
+//	@Override
+	public boolean hset(String key, String field, byte[] value) 
+	throws RedisException 
+	{
+		byte[] keybytes = null;
+		if((keybytes = getKeyBytes(key)) == null) 
+			throw new IllegalArgumentException ("invalid key => ["+key+"]");
+
+		/* boolean ValueRespose */
+		boolean res = false;
+		try {
+			ValueResponse valResponse = (ValueResponse) this.serviceRequest(Command.HSET, keybytes, getFieldBytes(field), value);
+			res = valResponse.getBooleanValue();
+		}
+		catch (ClassCastException e){
+			throw new ProviderException("Expecting a ValueResponse here => " + e.getLocalizedMessage(), e);
+		}
+		return res;
+	}
+//	@Override
+	public boolean hset (String key, String field, String value) throws RedisException {
+		return hset (key, field, DefaultCodec.encode(value));
+	}
+//	@Override
+	public boolean hset (String key, String field, Number value) throws RedisException {
+		return hset (key, field, String.valueOf(value).getBytes());
+	}
+//	@Override
+	public <T extends Serializable> boolean hset (String key, String field, T value) throws RedisException
+	{
+		return hset (key, field, DefaultCodec.encode(value));
+	}
+
+//	@Override
+	public byte[] hget (String key, String field) throws RedisException {
+		byte[] keybytes = null;
+		if((keybytes = getKeyBytes(key)) == null) 
+			throw new IllegalArgumentException ("invalid key => ["+key+"]");
+
+		byte[] bulkData= null;
+		try {
+			BulkResponse response = (BulkResponse) this.serviceRequest(Command.HGET, keybytes, getFieldBytes(field));
+			bulkData = response.getBulkData();
+		}
+		catch (ClassCastException e){
+			throw new ProviderException("Expecting a BulkResponse here => " + e.getLocalizedMessage(), e);
+		}
+		return bulkData;
+	}
+
+//	@Override
+	public void hmset (String key, Map<String, byte[]> fieldValueMap) throws RedisException {
+		this.serviceRequest(Command.HMSET, hmsetArgs(key, fieldValueMap));
+	}
+
+//	@Override
+	public List<byte[]> hmget (String key, String...fields) throws RedisException {
+		List<byte[]> multiBulkData= null;
+		try {
+			MultiBulkResponse MultiBulkResponse = (MultiBulkResponse) this.serviceRequest(Command.HMGET, hmgetArgs(key, fields));
+			multiBulkData = MultiBulkResponse.getMultiBulkData();
+		}
+		catch (ClassCastException e){
+			throw new ProviderException("Expecting a MultiBulkResponse here => " + e.getLocalizedMessage(), e);
+		}
+		return multiBulkData;
+	}
+
+//	@Override
+	public Map<String, byte[]> hgetall (String key) throws RedisException {
+		byte[] keybytes = null;
+		if((keybytes = getKeyBytes(key)) == null) 
+			throw new IllegalArgumentException ("invalid key => ["+key+"]");
+
+		List<byte[]> multiBulkData= null;
+		try {
+			MultiBulkResponse MultiBulkResponse = (MultiBulkResponse) this.serviceRequest(Command.HGETALL, keybytes);
+			multiBulkData = MultiBulkResponse.getMultiBulkData();
+		}
+		catch (ClassCastException e){
+			throw new ProviderException("Expecting a MultiBulkResponse here => " + e.getLocalizedMessage(), e);
+		}
+		return toHash(multiBulkData);
+	}
+
+//	@Override
+	public long hincrby (String key, String field, long delta) throws RedisException {
+		byte[] keybytes = null;
+		if((keybytes = getKeyBytes(key)) == null) 
+			throw new IllegalArgumentException ("invalid key => ["+key+"]");
+
+		/* ValueRespose */
+		long value = Long.MIN_VALUE;
+		try {
+			ValueResponse valResponse = (ValueResponse) this.serviceRequest(Command.HINCRBY, keybytes, getFieldBytes(field), Convert.toBytes(delta));
+			value = valResponse.getLongValue();
+		}
+		catch (ClassCastException e){
+			throw new ProviderException("Expecting a ValueResponse here => " + e.getLocalizedMessage(), e);
+		}
+		return value;
+	}
+
+//	@Override
+	public boolean hdel (String key, String field) throws RedisException {
+		byte[] keybytes = null;
+		if((keybytes = getKeyBytes(key)) == null) 
+			throw new IllegalArgumentException ("invalid key => ["+key+"]");
+
+		/* boolean ValueRespose */
+		boolean res = false;
+		try {
+			ValueResponse valResponse = (ValueResponse) this.serviceRequest(Command.HDEL, keybytes, getFieldBytes(field));
+			res = valResponse.getBooleanValue();
+		}
+		catch (ClassCastException e){
+			throw new ProviderException("Expecting a ValueResponse here => " + e.getLocalizedMessage(), e);
+		}
+		return res;
+	}
+	
+	/** @return the (UTF-8) bytes of the hash field name */
+	static byte[] getFieldBytes (String field) {
+		if(null == field || field.length() == 0)
+			throw new IllegalArgumentException ("invalid field => ["+field+"]");
+		return DefaultCodec.encode(field);
+	}
+	
+	/** @return the args of HMSET: the key followed by the field value pairs */
+	private byte[][] hmsetArgs (String key, Map<String, byte[]> fieldValueMap) {
+		byte[] keybytes = null;
+		if((keybytes = getKeyBytes(key)) == null) 
+			throw new IllegalArgumentException ("invalid key => ["+key+"]");
+		if(null == fieldValueMap || fieldValueMap.isEmpty())
+			throw new IllegalArgumentException ("no fields specified");
+		
+		byte[][] args = new byte[fieldValueMap.size()*2 + 1][];
+		int i = 0;
+		args[i++] = keybytes;
+		for (Entry<String, byte[]> e : fieldValueMap.entrySet()){
+			args[i++] = getFieldBytes(e.getKey());
+			args[i++] = e.getValue();
+		}
+		return args;
+	}
+	
+	/** @return the args of HMGET: the key followed by the fields */
+	private byte[][] hmgetArgs (String key, String...fields) {
+		byte[] keybytes = null;
+		if((keybytes = getKeyBytes(key)) == null) 
+			throw new IllegalArgumentException ("invalid key => ["+key+"]");
+		if(null == fields || fields.length == 0)
+			throw new IllegalArgumentException ("no fields specified");
+		
+		byte[][] args = new byte[fields.length + 1][];
+		args[0] = keybytes;
+		for(int i=0; i<fields.length; i++)
+			args[i+1] = getFieldBytes(fields[i]);
+		return args;
+	}
+	
+	/** @return the hash per the (field, value) sequence of the HGETALL response */
+	static Map<String, byte[]> toHash (List<byte[]> fieldsAndValues) {
+		Map<String, byte[]> hash = new HashMap<String, byte[]>();
+		if(null == fieldsAndValues) return hash;
+		for(int i=0; i<fieldsAndValues.size()-1; i+=2)
+			hash.put(DefaultCodec.toStr(fieldsAndValues.get(i)), fieldsAndValues.get(i+1));
+		return hash;
+	}
+
 	/* ------------------------------- commands returning long value --------- */
 
 //	@Override
@@ -825,6 +1167,18 @@ public abstract class JRedisSupport implements JRedis {
 		}
 		return bulkData;
 	}
+//	@Override
+	public long get (String key, OutputStream out) throws RedisException {
+		return get(key, Channels.newChannel(Assert.notNull(out, "output stream", IllegalArgumentException.class)));
+	}
+//	@Override
+	public long get (String key, WritableByteChannel out) throws RedisException {
+		byte[] keybytes = null;
+		if((keybytes = getKeyBytes(key)) == null) 
+			throw new IllegalArgumentException ("invalid key => ["+key+"]");
+
+		return this.serviceTransferRequest(Command.GET, out, keybytes).getTransferLength();
+	}
 
 //	@Override
 	public byte[] lindex(String key, long index) throws RedisException {
@@ -903,7 +1257,7 @@ public abstract class JRedisSupport implements JRedis {
 		try {
 			ValueResponse valResponse = (ValueResponse) this.serviceRequest(Command.TYPE, keybytes);
 			String stringValue = valResponse.getStringValue();
-			type = RedisType.valueOf(stringValue);
+			type = RedisType.forReply(stringValue);
 		}
 		catch (ClassCastException e){
 			throw new ProviderException("Expecting a ValueResponse here => " + e.getLocalizedMessage(), e);
@@ -1004,6 +1358,14 @@ public abstract class JRedisSupport implements JRedis {
 		}
 		return multiBulkData;
 	}
+//	@Override
+	public ResultStream<byte[]> smembersStream(String key) throws RedisException {
+		byte[] keydata = null;
+		if((keydata = getKeyBytes(key)) == null) 
+			throw new RedisException (Command.SMEMBERS, "ERR Invalid key.");
+
+		return this.serviceStreamingRequest(Command.SMEMBERS, keydata).getMultiBulkStream();
+	}
 //	@Override
 	public List<String> keys() throws RedisException {
 		return this.keys("*");
@@ -1033,6 +1395,20 @@ public abstract class JRedisSupport implements JRedis {
 		return keyList;
 	}
 
+//	@Override
+	public Iterator<String> scan(String pattern, int count) {
+		return new KeyScanner(pattern, count) {
+			protected List<byte[]> scan (byte[]... args) throws RedisException {
+				try {
+					return ((MultiBulkResponse) JRedisSupport.this.serviceRequest(Command.SCAN, args)).getMultiBulkData();
+				}
+				catch (ClassCastException e){
+					throw new ProviderException("Expecting a MultiBulkResponse here => " + e.getLocalizedMessage(), e);
+				}
+			}
+		};
+	}
+
 //	@Override
 	public List<byte[]> lrange(String key, long from, long to) throws RedisException {
 		byte[] keybytes = null;
@@ -1053,6 +1429,18 @@ public abstract class JRedisSupport implements JRedis {
 		return multiBulkData;
 	}
 
+//	@Override
+	public ResultStream<byte[]> lrangeStream(String key, long from, long to) throws RedisException {
+		byte[] keybytes = null;
+		if((keybytes = getKeyBytes(key)) == null) 
+			throw new IllegalArgumentException ("invalid key => ["+key+"]");
+
+		byte[] fromBytes = Convert.toBytes(from);
+		byte[] toBytes = Convert.toBytes(to);
+
+		return this.serviceStreamingRequest(Command.LRANGE, keybytes, fromBytes, toBytes).getMultiBulkStream();
+	}
+
 //	@Override
 	public List<byte[]> zrangebyscore (String key, double minScore, double maxScore) throws RedisException {
 		byte[] keybytes = null;
@@ -1099,6 +1487,26 @@ public abstract class JRedisSupport implements JRedis {
 		return list;
 	}
 
+//	@Override
+	public ZSetEntries zrangebyscoreEntries(String key, double minScore, double maxScore) throws RedisException {
+		byte[] keybytes = null;
+		if((keybytes = getKeyBytes(key)) == null) 
+			throw new IllegalArgumentException ("invalid key => ["+key+"]");
+
+		byte[] fromBytes = Convert.toBytes(minScore);
+		byte[] toBytes = Convert.toBytes(maxScore);
+
+		ZSetEntries entries = null;
+		try {
+			MultiBulkResponse multiBulkResponse = (MultiBulkResponse) this.serviceRequest(Command.ZRANGEBYSCORE$OPTS, keybytes, fromBytes, toBytes, Command.Options.WITHSCORES.bytes);
+			entries = ZSetEntriesImpl.newEntries(multiBulkResponse.getMultiBulkData());
+		}
+		catch (ClassCastException e){
+			throw new ProviderException("Expecting a MultiBulkResponse here => " + e.getLocalizedMessage(), e);
+		}
+		return entries;
+	}
+
 //	@Override
 	public long zremrangebyscore (String key, double minScore, double maxScore) throws RedisException {
 		byte[] keybytes = null;
@@ -1139,6 +1547,18 @@ public abstract class JRedisSupport implements JRedis {
 		return multiBulkData;
 	}
 
+//	@Override
+	public ResultStream<byte[]> zrangeStream(String key, long from, long to) throws RedisException {
+		byte[] keybytes = null;
+		if((keybytes = getKeyBytes(key)) == null) 
+			throw new IllegalArgumentException ("invalid key => ["+key+"]");
+
+		byte[] fromBytes = Convert.toBytes(from);
+		byte[] toBytes = Convert.toBytes(to);
+
+		return this.serviceStreamingRequest(Command.ZRANGE, keybytes, fromBytes, toBytes).getMultiBulkStream();
+	}
+
 //	@Override
 	public List<byte[]> zrevrange(String key, long from, long to) throws RedisException {
 		byte[] keybytes = null;
@@ -1211,7 +1631,46 @@ public abstract class JRedisSupport implements JRedis {
 		return list;
 	}
 
-	// TODO: NOTIMPLEMENTED:
+//	@Override
+	public ZSetEntries zrangeEntries(String key, long from, long to) throws RedisException {
+		byte[] keybytes = null;
+		if((keybytes = getKeyBytes(key)) == null) 
+			throw new IllegalArgumentException ("invalid key => ["+key+"]");
+
+		byte[] fromBytes = Convert.toBytes(from);
+		byte[] toBytes = Convert.toBytes(to);
+
+		ZSetEntries entries = null;
+		try {
+			MultiBulkResponse multiBulkResponse = (MultiBulkResponse) this.serviceRequest(Command.ZRANGE$OPTS, keybytes, fromBytes, toBytes, Command.Options.WITHSCORES.bytes);
+			entries = ZSetEntriesImpl.newEntries(multiBulkResponse.getMultiBulkData());
+		}
+		catch (ClassCastException e){
+			throw new ProviderException("Expecting a MultiBulkResponse here => " + e.getLocalizedMessage(), e);
+		}
+		return entries;
+	}
+
+//	@Override
+	public ZSetEntries zrevrangeEntries(String key, long from, long to) throws RedisException {
+		byte[] keybytes = null;
+		if((keybytes = getKeyBytes(key)) == null) 
+			throw new IllegalArgumentException ("invalid key => ["+key+"]");
+
+		byte[] fromBytes = Convert.toBytes(from);
+		byte[] toBytes = Convert.toBytes(to);
+
+		ZSetEntries entries = null;
+		try {
+			MultiBulkResponse multiBulkResponse = (MultiBulkResponse) this.serviceRequest(Command.ZREVRANGE$OPTS, keybytes, fromBytes, toBytes, Command.Options.WITHSCORES.bytes);
+			entries = ZSetEntriesImpl.newEntries(multiBulkResponse.getMultiBulkData());
+		}
+		catch (ClassCastException e){
+			throw new ProviderException("Expecting a MultiBulkResponse here => " + e.getLocalizedMessage(), e);
+		}
+		return entries;
+	}
+
 //	@Override
 	public Sort sort(final String key) {
 		byte[] keybytes = null;
@@ -1221,12 +1680,12 @@ public abstract class JRedisSupport implements JRedis {
 		final JRedisSupport client = this;
 		Sort sortQuery = new SortSupport (key, keybytes) {
 		//	@Override 
-			protected List<byte[]> execSort(byte[] keyBytes, byte[] sortSpecBytes) 
+			protected List<byte[]> execSort(byte[][] args) 
 			throws IllegalStateException, RedisException {
 				
 				List<byte[]> multiBulkData= null;
 				try {
-					MultiBulkResponse MultiBulkResponse = (MultiBulkResponse) client.serviceRequest(Command.SORT, keyBytes, sortSpecBytes);
+					MultiBulkResponse MultiBulkResponse = (MultiBulkResponse) client.serviceRequest(Command.SORT, args);
 					multiBulkData = MultiBulkResponse.getMultiBulkData();
 				}
 				catch (ClassCastException e){
@@ -1235,14 +1694,99 @@ public abstract class JRedisSupport implements JRedis {
 				return multiBulkData;
 			}
 
+		//	@Override 
+			protected long execSortStore(byte[][] args) 
+			throws IllegalStateException, RedisException {
+				
+				long value = 0;
+				try {
+					ValueResponse valResponse = (ValueResponse) client.serviceRequest(Command.SORT$STORE, args);
+					value = valResponse.getLongValue();
+				}
+				catch (ClassCastException e){
+					throw new ProviderException("Expecting a ValueResponse here => " + e.getLocalizedMessage(), e);
+				}
+				return value;
+			}
+
+			@Override
+	        protected Future<List<byte[]>> execAsynchSort (byte[][] args) {
+				throw new IllegalStateException("JRedis does not support asynchronous sort.");
+	        }
+
 			@Override
-	        protected Future<List<byte[]>> execAsynchSort (byte[] keyBytes, byte[] sortSpecBytes) {
+	        protected Future<Long> execAsynchSortStore (byte[][] args) {
 				throw new IllegalStateException("JRedis does not support asynchronous sort.");
 	        }
+
+			@Override
+	        protected SortSupport newSort (String key) {
+		        return (SortSupport) client.sort(key);
+	        }
+
+			@Override
+	        protected byte[] getKeyBytes (String key) throws IllegalArgumentException {
+				byte[] keybytes = null;
+				if((keybytes = client.getKeyBytes(key)) == null) 
+					throw new IllegalArgumentException ("invalid key => ["+key+"]");
+		        return keybytes;
+	        }
 		};
 		return sortQuery;
 	}
 
+//	@Override
+	public Transaction multi() {
+		final JRedisSupport client = this;
+		Transaction transaction = new TransactionSupport () {
+			@Override
+			protected TransactionResponse execTransaction (List<Command> cmds, List<byte[][]> args) 
+			throws IllegalStateException, RedisException {
+				return client.serviceTransaction(cmds, args);
+			}
+			@Override
+			protected <T> Future<T> execAsynchTransaction (ResponseDecoder<T> decoder, List<Command> cmds, List<byte[][]> args) {
+				throw new IllegalStateException("JRedis does not support asynchronous transactions.");
+			}
+		};
+		return transaction;
+	}
+
+	/* ------------------------------- publish/subscribe --------- */
+
+//	@Override
+	public long publish(String channel, byte[] message) throws RedisException {
+		byte[] channelbytes = null;
+		if((channelbytes = getKeyBytes(channel)) == null) 
+			throw new IllegalArgumentException ("invalid channel => ["+channel+"]");
+		
+		if(message == null) 
+			throw new IllegalArgumentException ("null message");
+		
+		long value = Long.MIN_VALUE;
+		try {
+			ValueResponse valResponse = (ValueResponse) this.serviceRequest(Command.PUBLISH, channelbytes, message);
+			value = valResponse.getLongValue();
+		}
+		catch (ClassCastException e){
+			throw new ProviderException("Expecting a ValueResponse here => " + e.getLocalizedMessage(), e);
+		}
+		return value;
+	}
+//	@Override
+	public long publish(String channel, String message) throws RedisException {
+		return publish(channel, DefaultCodec.encode(message));
+	}
+//	@Override
+	public long publish(String channel, Number message) throws RedisException {
+		return publish(channel, String.valueOf(message).getBytes());
+	}
+//	@Override
+	public <T extends Serializable> long publish (String channel, T message) throws RedisException
+	{
+		return publish(channel, DefaultCodec.encode(message));
+	}
+
 	/* ------------------------------- commands that don't get a response --------- */
 
 //	@Override
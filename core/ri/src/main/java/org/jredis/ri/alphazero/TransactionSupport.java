@@ -0,0 +1,290 @@
+/*
+ *   Copyright 2009 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.jredis.ri.alphazero;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.jredis.ClientRuntimeException;
+import org.jredis.ProviderException;
+import org.jredis.RedisException;
+import org.jredis.Transaction;
+import org.jredis.protocol.Command;
+import org.jredis.protocol.Response;
+import org.jredis.protocol.ResponseDecoder;
+import org.jredis.protocol.TransactionResponse;
+import org.jredis.ri.alphazero.connection.PendingRequest;
+
+/**
+ * Support for {@link Transaction}s of the clients.  The requests of the (inherited) {@link JRedisFutureSupport}
+ * methods are queued, along with their decoders, and the {@link Future} results of the commands are resolved
+ * from the (decoded) results of the transaction once it has been executed, per the extension points.
+ * 
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @since   alpha.0
+ * @see JRedisSupport#multi()
+ * @see JRedisFutureSupport#multi()
+ */
+public abstract class TransactionSupport extends JRedisFutureSupport implements Transaction {
+	
+	// ------------------------------------------------------------------------
+	// Properties
+	// ------------------------------------------------------------------------
+	/** the queued commands */
+	private final List<Command>					cmds = new ArrayList<Command>();
+	/** the arguments of the queued commands */
+	private final List<byte[][]>				args = new ArrayList<byte[][]>();
+	/** the decoders of the queued commands' responses */
+	private final List<ResponseDecoder<?>>		decoders = new ArrayList<ResponseDecoder<?>>();
+	
+	/** the results of the executed transaction -- null while queuing. guarded by this */
+	private Future<List<Object>>	outcome;
+	/** guarded by this */
+	private boolean					discarded;
+	
+	/** decodes the responses of the commands to their results */
+	private final ResponseDecoder<List<Object>> resultDecoder = new ResponseDecoder<List<Object>>() {
+		public List<Object> decode (Response response) {
+			List<Response> responses = ((TransactionResponse) response).getResponses();
+			List<Object> results = new ArrayList<Object>(responses.size());
+			for(int i=0; i<responses.size(); i++){
+				Response r = responses.get(i);
+				if(r.isError())
+					results.add(new RedisException(cmds.get(i), r.getStatus().message()));
+				else
+					results.add(decoders.get(i).decode(r));
+			}
+			return results;
+		}
+	};
+	
+	// ------------------------------------------------------------------------
+	// Extension point(s)
+	// ------------------------------------------------------------------------
+	/**
+	 * Services the transaction synchronously.
+	 * @param cmds
+	 * @param args the arguments of each command
+	 * @return the (read) response
+	 * @throws IllegalStateException if not supported by the client
+	 * @throws RedisException if the transaction was not executed
+	 */
+	protected abstract TransactionResponse execTransaction (List<Command> cmds, List<byte[][]> args) throws IllegalStateException, RedisException;
+	
+	/**
+	 * Queues the transaction for a result of type <code>T</code>, per the decoder.
+	 * @param decoder
+	 * @param cmds
+	 * @param args the arguments of each command
+	 * @return the {@link Future} result
+	 * @throws IllegalStateException if not supported by the client
+	 */
+	protected abstract <T> Future<T> execAsynchTransaction (ResponseDecoder<T> decoder, List<Command> cmds, List<byte[][]> args) throws IllegalStateException;
+	
+	// ------------------------------------------------------------------------
+	// Super overrides
+	// ------------------------------------------------------------------------
+	/**
+	 * Queues the command in the transaction.
+	 * @see org.jredis.ri.alphazero.JRedisFutureSupport#queueRequest(org.jredis.protocol.ResponseDecoder, org.jredis.protocol.Command, byte[][])
+	 */
+	@Override
+	protected synchronized <T> Future<T> queueRequest (ResponseDecoder<T> decoder, Command cmd, byte[]... args) throws ClientRuntimeException, ProviderException {
+		if(cmd.responseType == Command.ResponseType.VIRTUAL)
+			throw new IllegalArgumentException (cmd.code + " can not be queued in a transaction");
+		assertQueuing();
+		
+		cmds.add(cmd);
+		this.args.add(args);
+		decoders.add(decoder);
+		return new QueuedResult<T>(cmds.size() - 1);
+	}
+	
+	/* (non-Javadoc) @see org.jredis.ri.alphazero.JRedisFutureSupport#queueRequest(org.jredis.protocol.Command, byte[][]) */
+	@Override
+	protected Future<Response> queueRequest (Command cmd, byte[]... args) throws ClientRuntimeException, ProviderException {
+		return queueRequest(PendingRequest.RESPONSE, cmd, args);
+	}
+	
+	/**
+	 * Queues the command in the transaction -- as with Redis, blocking commands do not block when executed
+	 * in a transaction.
+	 * @see org.jredis.ri.alphazero.JRedisFutureSupport#queueBlockingRequest(org.jredis.protocol.ResponseDecoder, org.jredis.protocol.Command, long, byte[][])
+	 */
+	@Override
+	protected <T> Future<T> queueBlockingRequest (ResponseDecoder<T> decoder, Command cmd, long timeout, byte[]... args) throws ClientRuntimeException, ProviderException {
+		return queueRequest(decoder, cmd, args);
+	}
+	
+	/**
+	 * Transactions can not be nested.
+	 * @see org.jredis.ri.alphazero.JRedisFutureSupport#multi()
+	 */
+	@Override
+	public Transaction multi () {
+		throw new IllegalStateException ("Transactions can not be nested.");
+	}
+	
+	// ------------------------------------------------------------------------
+	// Interface
+	// ============================================================ Transaction
+	// ------------------------------------------------------------------------
+	
+	/**
+	 * The transaction is serviced by the calling thread.
+	 * @see org.jredis.Transaction#exec()
+	 */
+//	@Override
+	public List<Object> exec () throws IllegalStateException, RedisException {
+		assertQueuing();
+		List<Object> results = null;
+		try {
+			TransactionResponse response = execTransaction(cmds, args);
+			try {
+				results = resultDecoder.decode(response);
+			}
+			catch (RuntimeException e) {
+				throw new ProviderException("Failed to decode the response to " + Command.EXEC.name(), e);
+			}
+		}
+		catch (RedisException e) {
+			executed(completed(null, e));
+			throw e;
+		}
+		catch (ClientRuntimeException e) {
+			executed(completed(null, e));
+			throw e;
+		}
+		executed(completed(results, null));
+		return results;
+	}
+	
+	/* (non-Javadoc) @see org.jredis.Transaction#execAsynch() */
+//	@Override
+	public Future<List<Object>> execAsynch () throws IllegalStateException {
+		synchronized (this) {
+			assertQueuing();
+			Future<List<Object>> results = execAsynchTransaction(resultDecoder, cmds, args);
+			executed(results);
+			return results;
+		}
+	}
+	
+	/* (non-Javadoc) @see org.jredis.Transaction#discard() */
+//	@Override
+	public synchronized void discard () throws IllegalStateException {
+		assertQueuing();
+		discarded = true;
+		notifyAll();
+	}
+	
+	// ------------------------------------------------------------------------
+	// Inner ops
+	// ------------------------------------------------------------------------
+	private synchronized void assertQueuing () throws IllegalStateException {
+		if(outcome != null) throw new IllegalStateException ("Transaction has already been executed.");
+		if(discarded) throw new IllegalStateException ("Transaction has been discarded.");
+	}
+	
+	/** transitions to executed, with the results of the transaction yet to be resolved */
+	private synchronized void executed (Future<List<Object>> results) {
+		assertQueuing();
+		outcome = results;
+		notifyAll();
+	}
+	
+	/** 
+	 * Blocks until the transaction has been executed or discarded, no longer than the timeout.
+	 * @param nanos the timeout, or a negative value to wait indefinitely
+	 * @return the results of the executed transaction, or null on timeout 
+	 */
+	private synchronized Future<List<Object>> awaitExec (long nanos) throws InterruptedException {
+		long deadline = System.nanoTime() + nanos;
+		while(outcome == null && !discarded) {
+			if(nanos < 0)
+				wait();
+			else if((nanos = deadline - System.nanoTime()) > 0)
+				TimeUnit.NANOSECONDS.timedWait(this, nanos);
+			else
+				return null;
+		}
+		if(discarded) throw new CancellationException ("Transaction was discarded.");
+		return outcome;
+	}
+	
+	/** @return the (done) future of the results or the fault of a synchronously executed transaction */
+	private static Future<List<Object>> completed (final List<Object> results, final Exception fault) {
+		FutureTask<List<Object>> task = new FutureTask<List<Object>>(new Callable<List<Object>>() {
+			public List<Object> call () throws Exception {
+				if(fault != null) throw fault;
+				return results;
+			}
+		});
+		task.run();
+		return task;
+	}
+	
+	private synchronized boolean isDiscarded () { return discarded; }
+	private synchronized Future<List<Object>> getOutcome () { return outcome; }
+	
+	// ------------------------------------------------------------------------
+	// Inner Class
+	// ------------------------------------------------------------------------
+	/**
+	 * The {@link Future} result of a queued command -- resolved from the results of the transaction.
+	 */
+	private final class QueuedResult<T> implements Future<T> {
+		/** index of the command in the transaction */
+		private final int index;
+		QueuedResult (int index) {
+			this.index = index;
+		}
+		/** Commands of a transaction can not be canceled individually. */
+		public boolean cancel (boolean mayInterruptIfRunning) {
+			return false;
+		}
+		public boolean isCancelled () {
+			return isDiscarded();
+		}
+		public boolean isDone () {
+			Future<List<Object>> results = getOutcome();
+			return isDiscarded() || (results != null && results.isDone());
+		}
+		public T get () throws InterruptedException, ExecutionException {
+			return resultOf(awaitExec(-1).get());
+		}
+		public T get (long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+			long deadline = System.nanoTime() + unit.toNanos(timeout);
+			Future<List<Object>> results = awaitExec(unit.toNanos(timeout));
+			if(results == null) throw new TimeoutException();
+			return resultOf(results.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+		}
+		@SuppressWarnings("unchecked")
+		private T resultOf (List<Object> results) throws ExecutionException {
+			Object result = results.get(index);
+			if(result instanceof RedisException)
+				throw new ExecutionException("Redis Exception on ["+cmds.get(index).name()+"] " + ((RedisException) result).getMessage(), (RedisException) result);
+			return (T) result;
+		}
+	}
+}
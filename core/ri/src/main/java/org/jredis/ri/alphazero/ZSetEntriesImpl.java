@@ -0,0 +1,78 @@
+/*
+ *   Copyright 2009 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.jredis.ri.alphazero;
+
+import java.util.List;
+import org.jredis.ZSetEntries;
+import org.jredis.ri.alphazero.support.Convert;
+
+/**
+ * Scores are parsed (once) from their bytes with {@link Convert#toDouble(byte[])} on construction.
+ * 
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, May 20, 2010
+ * @since   alpha.0
+ * @see ZSetEntries
+ */
+
+final class ZSetEntriesImpl implements ZSetEntries {
+	
+	static final ZSetEntries EMPTY = new ZSetEntriesImpl(new byte[0][], new double[0]);
+	
+	private final byte[][] values;
+	private final double[] scores;
+	
+	private ZSetEntriesImpl (byte[][] values, double[] scores) {
+		this.values = values;
+		this.scores = scores;
+	}
+	
+	/**
+	 * @param valuesAndScores the (value, score) sequence of a WITHSCORES reply -- may be null
+	 * @return the entries
+	 */
+	static ZSetEntries newEntries (List<byte[]> valuesAndScores) {
+		if(null == valuesAndScores || valuesAndScores.size() < 2) 
+			return EMPTY;
+		
+		int cnt = valuesAndScores.size() / 2;
+		byte[][] values = new byte[cnt][];
+		double[] scores = new double[cnt];
+		int i = 0;
+		for(byte[] bytes : valuesAndScores) {
+			if((i & 1) == 0) values[i>>1] = bytes;
+			else scores[i>>1] = Convert.toDouble(bytes);
+			if(++i == cnt*2) break;
+		}
+		return new ZSetEntriesImpl(values, scores);
+	}
+	
+	/* (non-Javadoc) @see org.jredis.ZSetEntries#size() */
+	public int size () { return values.length; }
+	
+	/* (non-Javadoc) @see org.jredis.ZSetEntries#getValue(int) */
+	public byte[] getValue (int i) { return values[i]; }
+	
+	/* (non-Javadoc) @see org.jredis.ZSetEntries#getScore(int) */
+	public double getScore (int i) { return scores[i]; }
+	
+	/* (non-Javadoc) @see org.jredis.ZSetEntries#getValues() */
+	public byte[][] getValues () { return values; }
+	
+	/* (non-Javadoc) @see org.jredis.ZSetEntries#getScores() */
+	public double[] getScores () { return scores; }
+}
@@ -17,6 +17,7 @@
 package org.jredis.ri.alphazero.connection;
 
 import java.io.InputStream;
+import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Future;
@@ -26,14 +27,16 @@ import org.jredis.ProviderException;
 import org.jredis.connector.Connection;
 import org.jredis.connector.ConnectionSpec;
 import org.jredis.connector.NotConnectedException;
+import org.jredis.connector.RequestTracer.Stage;
 import org.jredis.connector.ConnectionSpec.SocketProperty;
 import org.jredis.protocol.Command;
 import org.jredis.protocol.Protocol;
 import org.jredis.protocol.Request;
 import org.jredis.protocol.Response;
+import org.jredis.protocol.ResponseDecoder;
+import org.jredis.protocol.StreamingMultiBulkResponse;
 import org.jredis.ri.alphazero.protocol.ConcurrentSynchProtocol;
 import org.jredis.ri.alphazero.protocol.VirtualResponse;
-import org.jredis.ri.alphazero.support.Assert;
 import org.jredis.ri.alphazero.support.FastBufferedInputStream;
 import org.jredis.ri.alphazero.support.Log;
 
@@ -57,7 +60,7 @@ public class AsynchConnection extends ConnectionBase implements Connection {
 	private Thread 					processerThread;
 
 	/**  */
-	private BlockingQueue<PendingRequest>	pendingQueue;
+	private BlockingQueue<PendingRequest<?>>	pendingQueue;
 	
 	// ------------------------------------------------------------------------
 	// Constructors
@@ -82,7 +85,7 @@ public class AsynchConnection extends ConnectionBase implements Connection {
     	
 //    	serviceLock = new Object();
     	
-    	pendingQueue = new LinkedBlockingQueue<PendingRequest>();
+    	pendingQueue = new LinkedBlockingQueue<PendingRequest<?>>();
     	processor = new RequestProcessor();
     	processerThread = new Thread(processor, "request-processor");
     	processerThread.start();
@@ -129,15 +132,64 @@ public class AsynchConnection extends ConnectionBase implements Connection {
     @Override
     public Future<Response> queueRequest (Command cmd, byte[]... args)
     	throws ClientRuntimeException, ProviderException 
+    {
+		return queueRequest(PendingRequest.RESPONSE, cmd, args);
+    }
+    
+	/* (non-Javadoc)
+     * @see org.jredis.ri.alphazero.connection.ConnectionBase#queueRequest(org.jredis.protocol.ResponseDecoder, org.jredis.protocol.Command, byte[][])
+     */
+    @Override
+    public <T> Future<T> queueRequest (ResponseDecoder<T> decoder, Command cmd, byte[]... args)
+    	throws ClientRuntimeException, ProviderException 
+    {
+		if(!isConnected()) 
+			throw new NotConnectedException ("Not connected!");
+		
+		PendingRequest<T> pending = newPendingRequest(decoder, cmd, args);
+		pendingQueue.add(pending);
+		return pending;
+    }
+    
+	/* (non-Javadoc)
+     * @see org.jredis.ri.alphazero.connection.ConnectionBase#queueStreamingRequest(org.jredis.protocol.ResponseDecoder, org.jredis.protocol.Command, byte[][])
+     */
+    @Override
+    public <T> Future<T> queueStreamingRequest (ResponseDecoder<T> decoder, Command cmd, byte[]... args)
+    	throws ClientRuntimeException, ProviderException 
     {
 		if(!isConnected()) 
 			throw new NotConnectedException ("Not connected!");
 		
-		PendingRequest pending = new PendingRequest(cmd, args);
+		PendingRequest<T> pending = init(new PendingRequest<T>(decoder, true, cmd, args));
 		pendingQueue.add(pending);
 		return pending;
     }
     
+	/* (non-Javadoc)
+     * @see org.jredis.ri.alphazero.connection.ConnectionBase#queueTransaction(org.jredis.protocol.ResponseDecoder, java.util.List, java.util.List)
+     */
+    @Override
+    public <T> Future<T> queueTransaction (ResponseDecoder<T> decoder, List<Command> cmds, List<byte[][]> args)
+    	throws ClientRuntimeException, ProviderException 
+    {
+		if(!isConnected()) 
+			throw new NotConnectedException ("Not connected!");
+		
+		PendingRequest<T> pending = init(new PendingRequest<T>(decoder, cmds, args));
+		pendingQueue.add(pending);
+		return pending;
+    }
+    
+    private <T> PendingRequest<T> newPendingRequest (ResponseDecoder<T> decoder, Command cmd, byte[]... args) {
+		return init(new PendingRequest<T>(decoder, cmd, args));
+    }
+    
+    private <T> PendingRequest<T> init (PendingRequest<T> pending) {
+		pending.bind(this, newRequestDeadline(), newTrace(pending.getCommand()));
+		return pending;
+    }
+    
 	// ------------------------------------------------------------------------
 	// Inner Class
 	// ------------------------------------------------------------------------
@@ -157,21 +209,41 @@ public class AsynchConnection extends ConnectionBase implements Connection {
 
         public void run () {
 			Log.log("AsynchConnection processor thread <%s> started.", Thread.currentThread().getName());
-        	PendingRequest pending = null;
+        	PendingRequest<?> pending = null;
         	while(true){
 				try {
 	                pending = pendingQueue.take();
 					try {
-//						System.out.format("%s\n", pending.cmd.code);
-						Request request = Assert.notNull(protocol.createRequest (pending.cmd, pending.args), "request object from handler", ProviderException.class);
+						// requests are sent by this processor, so expired or canceled requests are simply dropped
+						if(pending.isDone() && pending.getCommand() != Command.QUIT) {
+							onResponseDiscarded(pending);
+							continue;
+						}
+//						System.out.format("%s\n", pending.getCommand().code);
+						Request request = newRequest(pending);
 						request.write(getOutputStream());
+						trace(pending.getTrace(), Stage.WRITTEN);
 						
-						pending.response = protocol.createResponse(pending.cmd);
-						pending.response.read(getInputStream());
+						Response response = newResponse(pending);
+						traceFirstByte(pending.getTrace());
+						response.read(getInputStream());
 						
-						pending.completion.signal();
-						if(pending.response.getStatus().isError()) {
-							Log.error ("(Asynch) Error response for " + pending.cmd.code + " => " + pending.response.getStatus().message());
+						if(!pending.setResponse(response)) {
+							// expired or canceled while in flight -- the response is read and discarded
+							onResponseDiscarded(pending);
+							if(pending.isStreaming() && !response.isError())
+								((StreamingMultiBulkResponse) response).getMultiBulkStream().close();
+						}
+						else if(response.getStatus().isError()) {
+							Log.error ("(Asynch) Error response for " + pending.getCommand().code + " => " + response.getStatus().message());
+						}
+						else if(pending.isStreaming()) {
+							// the consumer reads the rest of the response off the input stream
+							ClientRuntimeException fault = awaitStreamCompletion(response);
+							if(fault != null) {
+								Log.problem ("streaming response faulted => " + fault.getLocalizedMessage());
+								reconnect();
+							}
 						}
 					}
 					catch (ProviderException bug){
@@ -195,7 +267,7 @@ public class AsynchConnection extends ConnectionBase implements Connection {
 					// redis (1.00) simply shutsdown connection even if pending responses
 					// are expected, so quit is NOT sent.  we simply close connection on this
 					// end. 
-					if(pending.cmd == Command.QUIT) {
+					if(pending.getCommand() == Command.QUIT) {
 						AsynchConnection.this.disconnect();
 						break;
 					}
@@ -0,0 +1,247 @@
+/*
+ *   Copyright 2009 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+
+package org.jredis.ri.alphazero.connection;
+
+import java.util.LinkedList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.jredis.ClientRuntimeException;
+import org.jredis.ProviderException;
+import org.jredis.RedisException;
+import org.jredis.connector.ConnectionSpec;
+import org.jredis.protocol.Command;
+import org.jredis.protocol.Response;
+import org.jredis.protocol.ResponseDecoder;
+import org.jredis.ri.alphazero.support.Log;
+
+/**
+ * Services the requests of {@link Command#isBlocking()} commands (e.g. BLPOP) on dedicated
+ * {@link SynchConnection}s, so that a blocked request neither stalls the requests pipelined
+ * after it nor holds a connection of a pool.
+ * <p>
+ * Each blocked request has a connection of its own.  Connections are established on demand,
+ * and up to the max idle count are retained for subsequent requests.  Queued requests are 
+ * serviced by (daemon) threads of the lane, created on demand.
+ * <p>
+ * Note that a request blocked on the server can not be interrupted: canceling its {@link Future}
+ * does not release the connection until the command's timeout elapses.
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, May 18, 2010
+ * @since   alpha.0
+ * 
+ */
+public final class BlockingLane {
+	
+	// ------------------------------------------------------------------------
+	// Consts
+	// ------------------------------------------------------------------------
+	/** Default value: 2 */
+	public static final int DEFAULT_MAX_IDLE = 2;
+	
+	// ------------------------------------------------------------------------
+	// Properties
+	// ------------------------------------------------------------------------
+	/** spec of the lane's connections */
+	private final ConnectionSpec 	spec;
+	
+	/** max number of idle connections retained */
+	private final int				maxIdle;
+	
+	/** idle connections, most recently used first -- guarded by this */
+	private final LinkedList<SynchConnection>	idle = new LinkedList<SynchConnection>();
+	
+	/** number of connections open, idle or not */
+	private final AtomicInteger		connectionCnt = new AtomicInteger();
+	
+	/** services the queued requests -- created on first use, guarded by this */
+	private ExecutorService			executor;
+	
+	/** guarded by this */
+	private boolean					closed = false;
+	
+	// ------------------------------------------------------------------------
+	// Constructor(s)
+	// ------------------------------------------------------------------------
+	/**
+	 * @param spec
+	 */
+	public BlockingLane (ConnectionSpec spec) {
+		this(spec, DEFAULT_MAX_IDLE);
+	}
+	
+	/**
+	 * No connections are established on construction.
+	 * @param spec
+	 * @param maxIdle max number of idle connections retained
+	 */
+	public BlockingLane (ConnectionSpec spec, int maxIdle) {
+		if(maxIdle < 0)
+			throw new IllegalArgumentException ("maxIdle: " + maxIdle);
+		this.spec = spec;
+		this.maxIdle = maxIdle;
+	}
+	
+	// ------------------------------------------------------------------------
+	// Interface
+	// ------------------------------------------------------------------------
+	/**
+	 * Services the request on a dedicated connection, blocking the caller until the response is read.
+	 * @param cmd a {@link Command#isBlocking()} command
+	 * @param timeout the command timeout, in seconds -- 0 blocks indefinitely
+	 * @param args the request arguments, including the timeout
+	 * @return the (read) response
+	 * @throws RedisException
+	 * @throws ClientRuntimeException if the lane is closed, or on connection faults
+	 * @see ConnectionBase#serviceBlockingRequest(Command, long, byte[]...)
+	 */
+	public Response serviceRequest (Command cmd, long timeout, byte[]... args) 
+		throws RedisException, ClientRuntimeException, ProviderException 
+	{
+		if(!cmd.isBlocking())
+			throw new IllegalArgumentException (cmd.code + " is not a blocking command");
+		
+		SynchConnection conn = acquire();
+		boolean reusable = false;
+		try {
+			Response response = conn.serviceBlockingRequest(cmd, timeout, args);
+			reusable = true;
+			return response;
+		}
+		catch (RedisException e) {
+			reusable = true;
+			throw e;
+		}
+		catch (ConnectionResetException e) {
+			// the connection was re-established
+			reusable = true;
+			throw e;
+		}
+		finally {
+			release(conn, reusable);
+		}
+	}
+	
+	/**
+	 * Services the request on a dedicated connection, using a thread of the lane.
+	 * @param decoder
+	 * @param cmd a {@link Command#isBlocking()} command
+	 * @param timeout the command timeout, in seconds -- 0 blocks indefinitely
+	 * @param args the request arguments, including the timeout
+	 * @return the {@link Future} result -- errors are the cause of its {@link java.util.concurrent.ExecutionException}
+	 * @throws ClientRuntimeException if the lane is closed
+	 */
+	public <T> Future<T> queueRequest (final ResponseDecoder<T> decoder, final Command cmd, final long timeout, final byte[]... args) 
+		throws ClientRuntimeException, ProviderException 
+	{
+		if(!cmd.isBlocking())
+			throw new IllegalArgumentException (cmd.code + " is not a blocking command");
+		
+		FutureTask<T> task = new FutureTask<T>(new Callable<T>() {
+			public T call () throws RedisException {
+				return decoder.decode(serviceRequest(cmd, timeout, args));
+			}
+		});
+		executor().execute(task);
+		return task;
+	}
+	
+	/**
+	 * Closes the idle connections, and those in use as their requests complete.  
+	 * Subsequent requests raise a {@link ClientRuntimeException}.
+	 */
+	public void close () {
+		LinkedList<SynchConnection> closing;
+		synchronized (this) {
+			if(closed) return;
+			closed = true;
+			if(null != executor) executor.shutdown();
+			closing = new LinkedList<SynchConnection>(idle);
+			idle.clear();
+		}
+		for(SynchConnection conn : closing)
+			close(conn);
+	}
+	
+	/** @return the number of connections open, in use or idle */
+	public int getConnectionCount () {
+		return connectionCnt.get();
+	}
+	
+	/** @return the number of idle connections */
+	public synchronized int getIdleCount () {
+		return idle.size();
+	}
+	
+	// ------------------------------------------------------------------------
+	// Inner ops
+	// ------------------------------------------------------------------------
+	/** @return an idle connection, or a new connection if none are idle */
+	private SynchConnection acquire () throws ClientRuntimeException {
+		synchronized (this) {
+			if(closed) throw new ClientRuntimeException ("Blocking lane is closed");
+			if(!idle.isEmpty()) return idle.removeFirst();
+		}
+		SynchConnection conn = new SynchConnection(spec, false);
+		connectionCnt.incrementAndGet();
+		return conn;
+	}
+	
+	/** retains the connection if reusable and there is room, else closes it */
+	private void release (SynchConnection conn, boolean reusable) {
+		synchronized (this) {
+			if(reusable && !closed && idle.size() < maxIdle) {
+				idle.addFirst(conn);
+				return;
+			}
+		}
+		close(conn);
+	}
+	
+	private void close (SynchConnection conn) {
+		connectionCnt.decrementAndGet();
+		try {
+			conn.serviceRequest(Command.QUIT);
+		}
+		catch (RedisException e) { 
+			Log.problem("Blocking lane: error on QUIT => " + e.getLocalizedMessage());
+		}
+		catch (ClientRuntimeException e) { /* not connected */ }
+	}
+	
+	/** @return the executor of the queued requests */
+	private synchronized ExecutorService executor () {
+		if(closed) throw new ClientRuntimeException ("Blocking lane is closed");
+		if(null == executor) {
+			executor = Executors.newCachedThreadPool(new ThreadFactory() {
+				final AtomicInteger cnt = new AtomicInteger();
+				public Thread newThread (Runnable r) {
+					Thread t = new Thread(r, "blocking-lane-" + cnt.incrementAndGet());
+					t.setDaemon(true);
+					return t;
+				}
+			});
+		}
+		return executor;
+	}
+}
@@ -0,0 +1,316 @@
+/*
+ *   Copyright 2009 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.jredis.ri.alphazero.connection;
+
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.jredis.ClientRuntimeException;
+import org.jredis.ProviderException;
+import org.jredis.RedisException;
+import org.jredis.connector.Connection;
+import org.jredis.connector.Connection.Event;
+import org.jredis.protocol.Command;
+import org.jredis.ri.alphazero.support.Log;
+
+/**
+ * Tracks the health of the server of a {@link Connection} (or a pool of connections to the
+ * same server) and fails requests fast when the server is not healthy.
+ * <p>
+ * The breaker is fed the outcome of each request by the user of the connection: 
+ * {@link CircuitBreaker#onSuccess(long)} with the response time, or, {@link CircuitBreaker#onFailure(ClientRuntimeException)}
+ * for connection faults.  Responses slower than the slow call threshold count as failures.  
+ * <p>
+ * After <i>failureThreshold</i> consecutive failures the breaker opens, and {@link CircuitBreaker#allowRequest()}
+ * returns false until the server is found healthy again.  While open, a demon thread probes the server
+ * (with a PING) every <i>openPeriod</i>, during which time the breaker is half-open.  A successful 
+ * probe closes the breaker.  The owner of the breaker must {@link CircuitBreaker#shutdown()} it when done 
+ * with the connection, so that the probes do not re-establish the connection.
+ * <p>
+ * Listeners are notified of {@link Connection.Event.Type#CIRCUIT_OPENED} and {@link Connection.Event.Type#CIRCUIT_CLOSED}
+ * events with the breaker's connection as the event source.
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, Apr 14, 2010
+ * @since   alpha.0
+ * 
+ */
+
+public class CircuitBreaker {
+
+	// ------------------------------------------------------------------------
+	// Consts
+	// ------------------------------------------------------------------------
+	/** Default value: 5 */
+	public static final int 	DEFAULT_FAILURE_THRESHOLD = 5;
+	/** Default value: 1000 msecs */
+	public static final long 	DEFAULT_SLOW_CALL_MSECS = 1000;
+	/** Default value: 1000 msecs */
+	public static final long 	DEFAULT_OPEN_PERIOD_MSECS = 1000;
+	
+	/** Breaker states */
+	public enum State {
+		/** requests are allowed */
+		CLOSED,
+		/** requests fail fast */
+		OPEN,
+		/** requests fail fast while the server is probed */
+		HALF_OPEN
+	}
+
+	// ------------------------------------------------------------------------
+	// Properties
+	// ------------------------------------------------------------------------
+	/** the probed connection and the source of the breaker's events */
+	final private Connection				conn;
+	/**  */
+	final private int 						failureThreshold;
+	/**  */
+	final private long 						slowCallNanos;
+	/**  */
+	final private long 						openPeriod;
+	/**  */
+	final private AtomicReference<State>	state = new AtomicReference<State>(State.CLOSED);
+	/** consecutive failure count */
+	final private AtomicInteger				failures = new AtomicInteger(0);
+	/** notified from the probe thread as well */
+	final private Set<Connection.Listener>	listeners = new CopyOnWriteArraySet<Connection.Listener>();
+	/** the probe thread, while the breaker is not closed -- guarded by this */
+	private Prober							prober;
+	/** no probes, and no state changes by a probe in progress, once shutdown */
+	private volatile boolean				shutdown;
+
+	// ------------------------------------------------------------------------
+	// Constructors
+	// ------------------------------------------------------------------------
+	/**
+	 * Breaker with default thresholds. 
+	 * @param conn the connection that is probed while the breaker is open.
+	 */
+	public CircuitBreaker (Connection conn) {
+		this(conn, DEFAULT_FAILURE_THRESHOLD, DEFAULT_SLOW_CALL_MSECS, DEFAULT_OPEN_PERIOD_MSECS);
+	}
+	
+	/**
+	 * @param conn the connection that is probed while the breaker is open.
+	 * @param failureThreshold number of consecutive failures that open the breaker
+	 * @param slowCallMsecs response times greater than this are counted as failures
+	 * @param openPeriodMsecs interval between the probes of the server while open
+	 */
+	public CircuitBreaker (Connection conn, int failureThreshold, long slowCallMsecs, long openPeriodMsecs) {
+		if(null == conn) throw new IllegalArgumentException("null connection");
+		if(failureThreshold < 1) throw new IllegalArgumentException("failureThreshold must be positive: " + failureThreshold);
+		if(slowCallMsecs < 1) throw new IllegalArgumentException("slowCallMsecs must be positive: " + slowCallMsecs);
+		if(openPeriodMsecs < 1) throw new IllegalArgumentException("openPeriodMsecs must be positive: " + openPeriodMsecs);
+		
+		this.conn = conn;
+		this.failureThreshold = failureThreshold;
+		this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(slowCallMsecs);
+		this.openPeriod = openPeriodMsecs;
+	}
+	
+	// ------------------------------------------------------------------------
+	// Interface
+	// ------------------------------------------------------------------------
+	/** @return the connection associated with this breaker */
+	public Connection getConnection () { return conn; }
+	
+	/** @return the current state of the breaker */
+	public State getState () { return state.get(); }
+	
+	/** @return true if the breaker is closed. */
+	public boolean allowRequest () {
+		return state.get() == State.CLOSED;
+	}
+	
+	/**
+	 * Convenience method for fail fast.
+	 * @throws CircuitOpenException if the breaker is not closed.
+	 */
+	public void verifyAllowRequest () throws CircuitOpenException {
+		if(state.get() != State.CLOSED)
+			throw new CircuitOpenException("circuit " + state.get().name() + " for " + conn);
+	}
+	
+	/**
+	 * @param nanos response time of the request.
+	 */
+	public void onSuccess (long nanos) {
+		if(nanos > slowCallNanos) {
+			onFailure(String.format("response time of %d msecs exceeds slow call threshold", TimeUnit.NANOSECONDS.toMillis(nanos)));
+			return;
+		}
+		if(failures.get() != 0) 
+			failures.set(0);
+	}
+	
+	/**
+	 * Counts the exception as a failure if it indicates a fault of the server or the connection
+	 * (per {@link CircuitBreaker#isFault(Throwable)}.)
+	 * @param e the exception raised by the connection 
+	 */
+	public void onFailure (ClientRuntimeException e) {
+		if(isFault(e))
+			onFailure(e.getLocalizedMessage());
+	}
+	
+	/**
+	 * {@link RedisException}s are responses of a healthy server, {@link ProviderException}s are 
+	 * bugs, and {@link CircuitOpenException}s are this breaker's own doing.  Everything else is 
+	 * a fault.
+	 * @param e
+	 * @return true if the exception indicates a fault.
+	 */
+	public static boolean isFault (Throwable e) {
+		return e instanceof ClientRuntimeException 
+			&& !(e instanceof ProviderException) 
+			&& !(e instanceof CircuitOpenException);
+	}
+	
+	/**
+	 * Stops the probing of the server.  A probe in progress is not waited on, and its outcome is 
+	 * ignored.  The breaker still tracks the outcome of requests, but no longer closes once opened.  
+	 * Call before closing the connection.
+	 */
+	public synchronized void shutdown () {
+		if(shutdown) return;
+		shutdown = true;
+		if(null != prober) {
+			prober.interrupt();
+			prober = null;
+		}
+	}
+	
+	// ------------------------------------------------------------------------
+	// Event management
+	
+	/**
+	 * @param listener notified of the breaker's state changes
+	 * @return
+	 */
+	public boolean addListener (Connection.Listener listener) {
+		return listeners.add(listener);
+	}
+	/**
+	 * @param listener
+	 * @return
+	 */
+	public boolean removeListener (Connection.Listener listener) {
+		return listeners.remove(listener);
+	}
+	
+	// ------------------------------------------------------------------------
+	// Inner ops
+	// ------------------------------------------------------------------------
+	private final void onFailure (String info) {
+		if(failures.incrementAndGet() >= failureThreshold && state.compareAndSet(State.CLOSED, State.OPEN)){
+			Log.problem(String.format("Circuit opened for %s after %d consecutive failures -- last: %s", conn, failures.get(), info));
+			notifyListeners(new Event(conn, Event.Type.CIRCUIT_OPENED, info));
+			startProber();
+		}
+	}
+	
+	private final synchronized void startProber () {
+		if(shutdown) return;
+		prober = new Prober();
+		prober.start();
+	}
+	
+	private final void notifyListeners (Event e) {
+		for(Connection.Listener l : listeners)
+			l.onEvent(e);
+	}
+	
+	/**
+	 * PINGs the connection, reconnecting it if necessary.
+	 * @throws ClientRuntimeException if the server is not healthy.
+	 */
+	private final void probe () throws ClientRuntimeException {
+		if(conn instanceof ConnectionBase) {
+			((ConnectionBase) conn).probe();
+			return;
+		}
+		try {
+			switch (conn.getModality()) {
+			case Synchronous:
+				conn.serviceRequest(Command.PING);
+				break;
+			case Asynchronous:
+				conn.queueRequest(Command.PING).get(openPeriod, TimeUnit.MILLISECONDS);
+				break;
+			}
+		}
+		catch (RedisException e) { /* server is responsive */ }
+		catch (ClientRuntimeException e) { throw e; }
+		catch (Exception e) {
+			throw new ClientRuntimeException("probe failed", e);
+		}
+	}
+	
+	// ------------------------------------------------------------------------
+	// Inner Types
+	// ------------------------------------------------------------------------
+	/**
+	 * Probes the server every open period until healthy and then closes the breaker.
+	 * One per breaker and only while the breaker is not closed.  The probe, a blocking PING or 
+	 * reconnect, does not hold the breaker's lock, so that {@link CircuitBreaker#shutdown()} does 
+	 * not wait on it.  The state of a breaker that is shutdown is not changed by the probe.
+	 */
+	private final class Prober extends Thread {
+		Prober () {
+			super("[" + conn + "] circuit breaker probe");
+			setDaemon(true);
+		}
+		@Override
+		public void run () {
+			while(true){
+				try {
+					Thread.sleep(openPeriod);
+				}
+				catch (InterruptedException e) { /* shutdown or probe sooner */ }
+				
+				if(shutdown) return;
+				state.set(CircuitBreaker.State.HALF_OPEN);
+				long start = System.nanoTime();
+				boolean healthy;
+				try {
+					probe();
+					healthy = System.nanoTime() - start <= slowCallNanos;
+				}
+				catch (RuntimeException e) {
+					healthy = false;
+				}
+				
+				synchronized (CircuitBreaker.this) {
+					if(shutdown) return;
+					if(!healthy){
+						state.set(CircuitBreaker.State.OPEN);
+						continue;
+					}
+					failures.set(0);
+					state.set(CircuitBreaker.State.CLOSED);
+					prober = null;
+				}
+				Log.log("Circuit closed for %s", conn);
+				notifyListeners(new Event(conn, Event.Type.CIRCUIT_CLOSED));
+				return;
+			}
+		}
+	}
+}
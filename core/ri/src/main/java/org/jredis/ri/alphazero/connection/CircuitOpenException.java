@@ -0,0 +1,44 @@
+/*
+ *   Copyright 2009 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.jredis.ri.alphazero.connection;
+
+import org.jredis.connector.Connection;
+import org.jredis.ri.alphazero._specification;
+
+/**
+ * Thrown (without any I/O) for requests to a {@link Connection} whose {@link CircuitBreaker} 
+ * is not closed.  The request was <b>not</b> sent to the server, and may be retried after
+ * a {@link Connection.Event.Type#CIRCUIT_CLOSED} event.
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, Apr 14, 2010
+ * @since   alpha.0
+ * 
+ */
+
+public class CircuitOpenException extends ConnectionException {
+
+	/**  */
+	private static final long serialVersionUID = _specification.Version.major;
+
+	/**
+	 * @param msg
+	 */
+	public CircuitOpenException(String msg) {
+		super(msg);
+	}
+}
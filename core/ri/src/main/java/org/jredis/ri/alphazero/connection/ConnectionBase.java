@@ -29,23 +29,40 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.InetSocketAddress;
 import java.net.Socket;
+import java.net.SocketException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.util.Formatter;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import org.jredis.ClientRuntimeException;
 import org.jredis.NotSupportedException;
 import org.jredis.ProviderException;
 import org.jredis.RedisException;
 import org.jredis.connector.Connection;
 import org.jredis.connector.ConnectionSpec;
+import org.jredis.connector.NotConnectedException;
+import org.jredis.connector.RequestTrace;
+import org.jredis.connector.RequestTracer;
+import org.jredis.connector.RequestTracer.Stage;
 import org.jredis.connector.Connection.Event.Type;
+import org.jredis.protocol.BulkTransferResponse;
 import org.jredis.protocol.Command;
 import org.jredis.protocol.Protocol;
+import org.jredis.protocol.Request;
 import org.jredis.protocol.Response;
+import org.jredis.protocol.ResponseDecoder;
+import org.jredis.protocol.Command.ResponseType;
+import org.jredis.protocol.StreamingMultiBulkResponse;
+import org.jredis.protocol.TransactionResponse;
 import org.jredis.ri.alphazero.protocol.SynchProtocol;
 import org.jredis.ri.alphazero.protocol.ConcurrentSynchProtocol;
+import org.jredis.ri.alphazero.protocol.SynchProtocol.SynchMultiBulkStreamResponse;
 import org.jredis.ri.alphazero.support.Assert;
 import org.jredis.ri.alphazero.support.Convert;
 import org.jredis.ri.alphazero.support.FastBufferedInputStream;
@@ -90,6 +107,9 @@ public abstract class ConnectionBase implements Connection {
 
 	/** Connector Listeners */
 	final private Set<Connection.Listener> listeners = new HashSet<Connection.Listener>();
+	
+	/** counters of the abnormal outcomes of (asynchronous) requests */
+	final private RequestStats requestStats = new RequestStats();
 
 	// ------------------------------------------------------------------------
 	// Internal use fields
@@ -180,6 +200,332 @@ public abstract class ConnectionBase implements Connection {
 				"Object , Command, byte[]...) is not supported.");
 	}
 	
+	/**
+	 * Optional.  Asynchronous connections may support queuing requests with a {@link ResponseDecoder}, 
+	 * in which case the returned {@link Future} is resolved with the decoded result.
+	 * @param decoder
+	 * @param cmd
+	 * @param args
+	 * @return the {@link Future} result.
+	 * @throws ClientRuntimeException
+	 * @throws ProviderException
+	 * @see Connection#queueRequest(Command, byte[]...)
+	 */
+	public <T> Future<T> queueRequest(ResponseDecoder<T> decoder, Command cmd, byte[]... args) 
+		throws ClientRuntimeException, ProviderException 
+	{
+		throw new NotSupportedException (
+				"Response.queueRequest(ResponseDecoder<T> decoder, " +
+				"Command, byte[]...) is not supported.");
+	}
+	
+	/**
+	 * Optional.  Synchronous connections may support servicing multi-bulk requests with a 
+	 * {@link StreamingMultiBulkResponse}, in which case the connection is reserved for the
+	 * response's stream until it completes.
+	 * @param cmd
+	 * @param args
+	 * @return the (read) response -- the stream elements are yet to be read.
+	 * @throws RedisException
+	 * @throws ClientRuntimeException
+	 * @throws ProviderException
+	 * @see Protocol#createStreamingResponse(Command)
+	 */
+	public StreamingMultiBulkResponse serviceStreamingRequest(Command cmd, byte[]... args) 
+		throws RedisException, ClientRuntimeException, ProviderException 
+	{
+		throw new NotSupportedException (
+				"Response.serviceStreamingRequest(Command, " +
+				"byte[]...) is not supported.");
+	}
+	
+	/**
+	 * Optional.  Asynchronous connections may support queuing multi-bulk requests with a 
+	 * {@link StreamingMultiBulkResponse}, decoded per the decoder.  The future result is 
+	 * resolved once the reply header has been read, and responses to subsequent requests 
+	 * are not processed until the response's stream completes.
+	 * @param decoder
+	 * @param cmd
+	 * @param args
+	 * @return the {@link Future} result.
+	 * @throws ClientRuntimeException
+	 * @throws ProviderException
+	 * @see Protocol#createStreamingResponse(Command)
+	 */
+	public <T> Future<T> queueStreamingRequest(ResponseDecoder<T> decoder, Command cmd, byte[]... args) 
+		throws ClientRuntimeException, ProviderException 
+	{
+		throw new NotSupportedException (
+				"Response.queueStreamingRequest(ResponseDecoder<T> decoder, " +
+				"Command, byte[]...) is not supported.");
+	}
+	
+	/**
+	 * Optional.  Synchronous connections may support key value requests with the value 
+	 * transferred from a channel as the request is written.
+	 * @param cmd
+	 * @param value
+	 * @param length
+	 * @param args the request arguments, excluding the value
+	 * @return the (read) response.
+	 * @throws RedisException
+	 * @throws ClientRuntimeException
+	 * @throws ProviderException
+	 * @see Protocol#createRequest(Command, ReadableByteChannel, long, byte[]...)
+	 */
+	public Response serviceRequest(Command cmd, ReadableByteChannel value, long length, byte[]... args) 
+		throws RedisException, ClientRuntimeException, ProviderException 
+	{
+		throw new NotSupportedException (
+				"Response.serviceRequest(Command, ReadableByteChannel, " +
+				"long, byte[]...) is not supported.");
+	}
+	
+	/**
+	 * Optional.  Synchronous connections may support bulk requests with the bulk data 
+	 * transferred to a channel as the response is read.
+	 * @param cmd
+	 * @param sink
+	 * @param args
+	 * @return the (read) response.
+	 * @throws RedisException
+	 * @throws ClientRuntimeException
+	 * @throws ProviderException
+	 * @see Protocol#createTransferResponse(Command, WritableByteChannel)
+	 */
+	public BulkTransferResponse serviceTransferRequest(Command cmd, WritableByteChannel sink, byte[]... args) 
+		throws RedisException, ClientRuntimeException, ProviderException 
+	{
+		throw new NotSupportedException (
+				"Response.serviceTransferRequest(Command, WritableByteChannel, " +
+				"byte[]...) is not supported.");
+	}
+	
+	/**
+	 * Optional.  Synchronous connections may support servicing transaction blocks, with the 
+	 * MULTI, commands, and EXEC written in one go.
+	 * @param cmds
+	 * @param args the arguments of each command
+	 * @return the (read) response.
+	 * @throws RedisException if the transaction was not executed
+	 * @throws ClientRuntimeException
+	 * @throws ProviderException
+	 * @see Protocol#createTransactionRequest(List, List)
+	 */
+	public TransactionResponse serviceTransaction(List<Command> cmds, List<byte[][]> args) 
+		throws RedisException, ClientRuntimeException, ProviderException 
+	{
+		throw new NotSupportedException (
+				"Response.serviceTransaction(List<Command>, " +
+				"List<byte[][]>) is not supported.");
+	}
+	
+	/**
+	 * Optional.  Asynchronous connections may support queuing transaction blocks, with the 
+	 * {@link TransactionResponse} decoded per the decoder.
+	 * @param decoder
+	 * @param cmds
+	 * @param args the arguments of each command
+	 * @return the {@link Future} result.
+	 * @throws ClientRuntimeException
+	 * @throws ProviderException
+	 * @see Protocol#createTransactionRequest(List, List)
+	 */
+	public <T> Future<T> queueTransaction(ResponseDecoder<T> decoder, List<Command> cmds, List<byte[][]> args) 
+		throws ClientRuntimeException, ProviderException 
+	{
+		throw new NotSupportedException (
+				"Response.queueTransaction(ResponseDecoder<T> decoder, " +
+				"List<Command>, List<byte[][]>) is not supported.");
+	}
+	
+	/**
+	 * Optional.  Synchronous connections may support servicing requests of {@link Command#isBlocking()} 
+	 * commands, in which case the read timeout of the connection is extended by the command timeout 
+	 * for the duration of the request.
+	 * @param cmd
+	 * @param timeout the command timeout, in seconds -- 0 blocks indefinitely
+	 * @param args the request arguments, including the timeout
+	 * @return the (read) response.
+	 * @throws RedisException
+	 * @throws ClientRuntimeException
+	 * @throws ProviderException
+	 */
+	public Response serviceBlockingRequest(Command cmd, long timeout, byte[]... args) 
+		throws RedisException, ClientRuntimeException, ProviderException 
+	{
+		throw new NotSupportedException (
+				"Response.serviceBlockingRequest(Command, long, " +
+				"byte[]...) is not supported.");
+	}
+	
+	/**
+	 * @return the counters of the abnormal outcomes (e.g. timeouts) of the connection's requests.
+	 */
+	public final RequestStats getRequestStats () {
+		return requestStats;
+	}
+	
+	// ------------------------------------------------------------------------
+	// Pending request support
+	// ------------------------------------------------------------------------
+	/**
+	 * @return the deadline of a request queued now, per {@link ConnectionSpec#getRequestTimeout()},
+	 * or 0 if requests do not expire.
+	 */
+	protected final long newRequestDeadline () {
+		int timeout = spec.getRequestTimeout();
+		if(timeout <= 0) return 0;
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+		return deadline != 0 ? deadline : 1;
+	}
+	
+	/** Called on expiry of a pending request.  Extensions must call super. */
+	void onRequestExpired (PendingRequest<?> request) {
+		requestStats.timeouts.incrementAndGet();
+	}
+	
+	/** Called on cancellation of a pending request. */
+	final void onRequestCancelled (PendingRequest<?> request) {
+		requestStats.cancellations.incrementAndGet();
+	}
+	
+	/** Called when the response to an expired or canceled request is discarded, or never requested. */
+	final void onResponseDiscarded (PendingRequest<?> request) {
+		requestStats.discards.incrementAndGet();
+	}
+	
+	/** @return the request of the pending request, per the protocol */
+	final Request newRequest (PendingRequest<?> pending) {
+		return Assert.notNull(pending.newRequest(protocol), "request object from handler", ProviderException.class);
+	}
+	
+	/** @return the response of the pending request, per the protocol -- yet to be read */
+	final Response newResponse (PendingRequest<?> pending) {
+		return pending.newResponse(protocol);
+	}
+	
+	/**
+	 * Blocks until the (read) streaming response has been exhausted or closed by its consumer.
+	 * @param response a response created by {@link Protocol#createStreamingResponse(Command)}
+	 * @return the fault that completed the stream, if any
+	 */
+	protected static ClientRuntimeException awaitStreamCompletion (Response response) {
+		if(!(response instanceof SynchMultiBulkStreamResponse)) 
+			throw new ProviderException ("BUG: expecting a SynchMultiBulkStreamResponse but got " + response.getClass().getName());
+		return ((SynchMultiBulkStreamResponse) response).awaitCompletion();
+	}
+	
+	// ------------------------------------------------------------------------
+	// Request tracing support
+	// ------------------------------------------------------------------------
+	/** trace of the synchronous request being issued by the thread, if begun ahead of its connection */
+	private static final ThreadLocal<RequestTrace> issuingTrace = new ThreadLocal<RequestTrace>();
+	
+	/**
+	 * Begins the trace of a synchronous request, if sampled, ahead of obtaining its connection (e.g. from 
+	 * a pool) so that the wait for the connection is attributed to the request.  The trace is continued by 
+	 * the {@link SynchConnection} servicing the request on the calling thread.  
+	 * <p>
+	 * Callers must end the trace with {@link ConnectionBase#endTrace(ConnectionSpec, RequestTrace, Throwable)}.
+	 * @param spec
+	 * @param cmd
+	 * @return the trace, or null if the request is not traced
+	 */
+	public static RequestTrace beginTrace (ConnectionSpec spec, Command cmd) {
+		RequestTrace trace = newTrace(spec.getRequestTracer(), cmd);
+		if(trace != null) issuingTrace.set(trace);
+		return trace;
+	}
+	
+	/**
+	 * Ends the trace begun by {@link ConnectionBase#beginTrace(ConnectionSpec, Command)}.  If the request
+	 * was not serviced by a connection, the trace is completed with the fault.
+	 * @param spec
+	 * @param trace may be null
+	 * @param fault the cause of the failure of the request, if any
+	 */
+	public static void endTrace (ConnectionSpec spec, RequestTrace trace, Throwable fault) {
+		if(trace == null || issuingTrace.get() != trace) return;
+		issuingTrace.remove();
+		trace.setFault(fault);
+		trace(spec.getRequestTracer(), trace, Stage.COMPLETED);
+	}
+	
+	/** @return the trace of a request issued now, with its {@link Stage#ENQUEUED} stage marked, or null if not sampled */
+	protected final RequestTrace newTrace (Command cmd) {
+		return newTrace(spec.getRequestTracer(), cmd);
+	}
+	
+	/** 
+	 * @return the trace begun ahead of the (synchronous) request issued by the current thread, or 
+	 * the trace of a request issued now, or null if not sampled
+	 */
+	protected final RequestTrace continueTrace (Command cmd) {
+		RequestTracer tracer = spec.getRequestTracer();
+		if(tracer == null) return null;
+		RequestTrace trace = issuingTrace.get();
+		if(trace != null) {
+			issuingTrace.remove();
+			return trace;
+		}
+		return newTrace(tracer, cmd);
+	}
+	
+	/** Marks and reports the stage of the request, if traced */
+	protected final void trace (RequestTrace trace, Stage stage) {
+		if(trace != null) trace(spec.getRequestTracer(), trace, stage);
+	}
+	
+	/** 
+	 * Marks and reports the {@link Stage#FIRST_BYTE} stage of the request, if traced, once its response is 
+	 * available to read.  Virtual responses (e.g. to QUIT) are not read off the connection, and are not waited for.
+	 */
+	protected final void traceFirstByte (RequestTrace trace) throws ClientRuntimeException {
+		if(trace == null) return;
+		InputStream in = getInputStream();
+		if(in instanceof FastBufferedInputStream && trace.getCommand().responseType != ResponseType.VIRTUAL) {
+			try {
+				((FastBufferedInputStream) in).await();
+			}
+			catch (IOException e) {
+				throw new ClientRuntimeException ("IOException awaiting the response to " + trace.getCommand().code, e);
+			}
+		}
+		trace(trace, Stage.FIRST_BYTE);
+	}
+	
+	/** Marks and reports the completion of the request, if traced */
+	protected final void traceCompleted (RequestTrace trace, Throwable fault) {
+		if(trace == null) return;
+		trace.setFault(fault);
+		trace(trace, Stage.COMPLETED);
+	}
+	
+	private static RequestTrace newTrace (RequestTracer tracer, Command cmd) {
+		if(tracer == null) return null;
+		RequestTrace trace = null;
+		try {
+			trace = tracer.newTrace(cmd);
+		}
+		catch (RuntimeException e) {
+			Log.problem("Request tracer failed to sample " + cmd.code + " => " + e.getLocalizedMessage());
+		}
+		if(trace != null) trace(tracer, trace, Stage.ENQUEUED);
+		return trace;
+	}
+	
+	private static void trace (RequestTracer tracer, RequestTrace trace, Stage stage) {
+		if(tracer == null) return;
+		trace.mark(stage);
+		try {
+			tracer.onStage(trace, stage);
+		}
+		catch (RuntimeException e) {
+			Log.problem("Request tracer failed on " + stage + " of " + trace.getCommand().code + " => " + e.getLocalizedMessage());
+		}
+	}
+	
 	// ------------------------------------------------------------------------
 	// Event management
 
@@ -334,6 +680,39 @@ public abstract class ConnectionBase implements Connection {
  		if(raiseEx) throw new ClientRuntimeException(fault);
 	}
 
+	/**
+	 * Checks the liveness of the server with a PING, re-establishing the connection
+	 * first if it was dropped (e.g. on exhausting its reconnect attempts).  Used by
+	 * the {@link CircuitBreaker} probes.
+	 * @throws ClientRuntimeException if the server is not reachable or not responsive
+	 */
+	final void probe () throws ClientRuntimeException {
+		try {
+			switch (getModality()){
+			case Synchronous:
+				synchronized (this) {
+					if(!isConnected()) connect();
+				}
+				serviceRequest(Command.PING);
+				break;
+			case Asynchronous:
+				queueRequest(Command.PING).get(spec.getSocketProperty(SO_TIMEOUT), TimeUnit.MILLISECONDS);
+				break;
+			}
+		}
+		catch (RedisException e) { /* server is responsive */ }
+		catch (ExecutionException e) {
+			if(!(e.getCause() instanceof RedisException))
+				throw new ClientRuntimeException("probe failed", e);
+		}
+		catch (InterruptedException e) {
+			throw new ClientRuntimeException("interrupted while probing", e);
+		}
+		catch (TimeoutException e) {
+			throw new ClientRuntimeException("probe timed out", e);
+		}
+	}
+	
 	/**
 	 * @throws IOException
 	 * @throws IllegalStateException
@@ -390,6 +769,21 @@ public abstract class ConnectionBase implements Connection {
 //		Log.log("RedisConnection - disconnected");
 	}
 	
+	/**
+	 * Sets the read timeout of the connected socket, e.g. for the duration of a blocking request.
+	 * @param timeout in millisecs -- 0 for none
+	 * @throws ClientRuntimeException if not connected or on socket errors
+	 */
+	protected final void setReadTimeout (int timeout) throws ClientRuntimeException {
+		if(!isConnected()) throw new NotConnectedException ("Not connected!");
+		try {
+			socket.setSoTimeout(timeout);
+		}
+		catch (SocketException e) {
+			throw new ClientRuntimeException("Failed to set the socket read timeout", e);
+		}
+	}
+	
 	/**
 	 * Instantiates a new {@link Socket}, sets its properties and flags using the {@link ConnectionBase#spec}
 	 * and finally connects to the {@link ConnectionBase#socketAddress}.
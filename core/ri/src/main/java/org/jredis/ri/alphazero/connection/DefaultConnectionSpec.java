@@ -27,6 +27,8 @@ import org.jredis.ri.alphazero.support.Assert;
  * <p>
  * Socket timeout is {@link DefaultConnectionSpec#DEFAULT_READ_TIMEOUT_MSEC}
  * <p>
+ * Requests do not expire, per {@link DefaultConnectionSpec#DEFAULT_REQUEST_TIMEOUT_MSEC}.
+ * <p>
  * No codecs and/or compression classes are defined.
  *   
  * @author  Joubin Houshyar (alphazero@sensesay.net)
@@ -50,6 +52,9 @@ public class DefaultConnectionSpec extends ConnectionSpec.RefImpl {
 	/** defaults to 1 second (the min on Redis) */
 	static final int DEFAULT_HEARTBEAT_SEC = 1;
 	
+	/** defaults to 0 -- no request deadlines */
+	static final int DEFAULT_REQUEST_TIMEOUT_MSEC = 0;
+	
 	/** higher priority pref is bandwidth */
 	private static final int DEFAULT_SO_PREF_BANDWIDTH = 0;
 	/** second priority pref is latency */
@@ -113,6 +118,7 @@ public class DefaultConnectionSpec extends ConnectionSpec.RefImpl {
     	isShared(DEFAULT_IS_SHARED);
     	isPipeline(DEFAULT_IS_PIPELINE);
     	setHeartbeat(DEFAULT_HEARTBEAT_SEC);
+    	setRequestTimeout(DEFAULT_REQUEST_TIMEOUT_MSEC);
     }
 	// ------------------------------------------------------------------------
 	// Static methods
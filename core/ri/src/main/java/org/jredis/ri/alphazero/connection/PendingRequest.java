@@ -1,5 +1,7 @@
 package org.jredis.ri.alphazero.connection;
 
+import java.util.List;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
@@ -7,68 +9,200 @@ import java.util.concurrent.TimeoutException;
 import org.jredis.ClientRuntimeException;
 import org.jredis.ProviderException;
 import org.jredis.RedisException;
+import org.jredis.connector.RequestTrace;
 import org.jredis.protocol.Command;
+import org.jredis.protocol.Protocol;
 import org.jredis.protocol.Request;
 import org.jredis.protocol.Response;
-import org.jredis.ri.alphazero.support.Signal;
+import org.jredis.protocol.ResponseDecoder;
 
 /**
- * An implementation of {@link Future} for parameteric <code>T</code> type {@link Response}
+ * An implementation of {@link Future} for parameteric <code>T</code> type result
  * used for processing of pipelined responses from the server.
  * <p>
- * Note that this implementation does NOT support canceling of {@link Request}s.
- * 
+ * The (non-error) {@link Response} is converted to the result by the request's {@link ResponseDecoder}
+ * on completion, i.e. once and on the response processing thread, so that the pending request is the
+ * only object the caller needs.  Completion is signalled using the request's own monitor.
+ * <p>
+ * A request may have a deadline, after which it fails fast with a {@link RequestTimeoutException},
+ * and may be canceled.  In either case the request has (likely) been sent, so its response is still 
+ * read by the response processor, but discarded.
+ *
  * @author  Joubin Houshyar (alphazero@sensesay.net)
  * @version alpha.0, Sep 7, 2009
  * @since   alpha.0
- * 
+ *
  */
-public final class PendingRequest implements Future<Response> {
+public final class PendingRequest<T> implements Future<T> {
+
+	// ------------------------------------------------------------------------
+	// Consts
+	// ------------------------------------------------------------------------
+	/** Decoder for requests that are resolved with the {@link Response} itself */
+	public static final ResponseDecoder<Response> RESPONSE = new ResponseDecoder<Response>() {
+		public Response decode (Response response) { return response; }
+	};
 
 	// ------------------------------------------------------------------------
 	// Properties
 	// ------------------------------------------------------------------------
-	/** Used to signal completion of the request */
-//	final private BooleanLatch completion = new BooleanLatch();
-	final Signal completion = new Signal();
+	/** completion flag -- waiters wait on this object's monitor */
+	private volatile boolean done = false;
 
 	/** the aysnchronous {@link Request} */
-    final Request	request;
+    final private Request	request;
 
 	/** awaited response */
-	Response response;
+	private Response response;
+
+	/** result per decoder -- null if error response */
+	private T result;
+
+	/** response to result conversion */
+	final private ResponseDecoder<T> decoder;
 
 	/** Pending command */
-	final Command cmd;
+	final private Command cmd;
 
 	/** true if response processor encountered exceptions */
 	private boolean excepted = false;
-	
+
 	/** if {@link PendingRequest#excepted} is true, this will be set to the cause. */
 	private ClientRuntimeException cre = null;
+
+	/** the arguments of the command -- retained so that the request can be re-issued */
+	final private byte[][] args;
+	
+	/** the commands of a transaction request, or null */
+	final private List<Command> transaction;
+	
+	/** the arguments of the commands of a transaction request */
+	final private List<byte[][]> transactionArgs;
 	
-	final byte[][] args;
+	/** if true, the response is a streaming response */
+	final private boolean streaming;
+	
+	/** {@link System#nanoTime()} deadline, or 0 if none -- see {@link PendingRequest#bind(ConnectionBase, long, RequestTrace)} */
+	private long deadline = 0;
+	
+	/** connection notified of expiry and cancellation, if not null -- see {@link PendingRequest#bind(ConnectionBase, long, RequestTrace)} */
+	private ConnectionBase connection;
+	
+	/** trace of the request, if sampled -- see {@link PendingRequest#bind(ConnectionBase, long, RequestTrace)} */
+	private RequestTrace trace;
+	
+	/** generation of the (pipeline) connection the request was last sent on */
+	private int generation;
+	
+	/** true if canceled by the caller */
+	private volatile boolean cancelled = false;
 	// ------------------------------------------------------------------------
 	// constructor(s)
 	// ------------------------------------------------------------------------
-	public PendingRequest(Request request, Command cmd){
+	public PendingRequest(Request request, Command cmd, ResponseDecoder<T> decoder){
 		this.request = request;
 		this.cmd = cmd;
 		this.args = null;
+		this.transaction = null;
+		this.transactionArgs = null;
+		this.streaming = false;
+		this.decoder = decoder;
+	}
+
+	public PendingRequest(ResponseDecoder<T> decoder, Command cmd, byte[]... args){
+		this(decoder, false, cmd, args);
 	}
 	
-	public PendingRequest(Command cmd, byte[]... args){
+	/**
+	 * @param decoder
+	 * @param streaming if true, the response is a streaming response
+	 * @param cmd
+	 * @param args
+	 */
+	public PendingRequest(ResponseDecoder<T> decoder, boolean streaming, Command cmd, byte[]... args){
 		this.request = null;
 		this.cmd = cmd;
 		this.args = args;
+		this.transaction = null;
+		this.transactionArgs = null;
+		this.streaming = streaming;
+		this.decoder = decoder;
 	}
 	
+	/**
+	 * A transaction request, pending the response to its {@link Command#EXEC}.
+	 * @param decoder
+	 * @param cmds
+	 * @param args the arguments of each command
+	 */
+	public PendingRequest(ResponseDecoder<T> decoder, List<Command> cmds, List<byte[][]> args){
+		this.request = null;
+		this.cmd = Command.EXEC;
+		this.args = null;
+		this.transaction = cmds;
+		this.transactionArgs = args;
+		this.streaming = false;
+		this.decoder = decoder;
+	}
+
 	// ------------------------------------------------------------------------
 	// package scoped methods used by request processors
 	// ------------------------------------------------------------------------
 	final Command getCommand () {
 		return cmd;
 	}
+	
+	/** @return true if the response is a streaming response */
+	final boolean isStreaming () {
+		return streaming;
+	}
+	
+	/** @return the trace of the request, or null if not sampled (or not yet queued) */
+	final RequestTrace getTrace () {
+		return trace;
+	}
+	
+	/** @return the {@link System#nanoTime()} deadline, or 0 if none */
+	final long getDeadline () {
+		return deadline;
+	}
+	
+	/** @return the generation of the (pipeline) connection the request was last sent on */
+	final int getGeneration () {
+		return generation;
+	}
+	
+	/** @param generation of the (pipeline) connection the request is (re-)sent on */
+	final void setGeneration (int generation) {
+		this.generation = generation;
+	}
+	
+	/**
+	 * Binds the request to the connection that queues it.  Called once, before the request is 
+	 * queued, so that the response processor sees the bound values.
+	 * @param connection notified of expiry and cancellation, if not null
+	 * @param deadline {@link System#nanoTime()} deadline, or 0 if none
+	 * @param trace of the request, if sampled
+	 */
+	final void bind (ConnectionBase connection, long deadline, RequestTrace trace) {
+		this.connection = connection;
+		this.deadline = deadline;
+		this.trace = trace;
+	}
+	
+	/** @return the request, per the protocol */
+	final Request newRequest (Protocol protocol) {
+		if(transaction != null)
+			return protocol.createTransactionRequest (transaction, transactionArgs);
+		return protocol.createRequest (cmd, args);
+	}
+	
+	/** @return the response, per the protocol -- yet to be read */
+	final Response newResponse (Protocol protocol) {
+		if(transaction != null)
+			return protocol.createTransactionResponse (transaction);
+		return streaming ? protocol.createStreamingResponse(cmd) : protocol.createResponse(cmd);
+	}
 
 //	/**  @return request */
 //	final Request getRequest () { return request; }
@@ -76,35 +210,64 @@ public final class PendingRequest implements Future<Response> {
 	/**
 	 * Signals completion without error.
 	 * <p>
-	 * Sets the response, which also signals the completion of this {@link Future} 
+	 * Sets the response and decodes the result, which also signals the completion of this {@link Future}
 	 * object.  When this method is invoked, a call to {@link PendingRequest#get()}
-	 * will immediately return with the response.
+	 * will immediately return with the result.
 	 * @param response
+	 * @return false if the request had already completed (e.g. expired or canceled) and the response was discarded
 	 */
-	final void setResponse(Response response){
-		this.response = response;
-		this.completion.signal();
+	final boolean setResponse(Response response){
+		if(done) return false;
+		
+		T decoded = null;
+		ClientRuntimeException fault = null;
+		if(response != null && !response.isError()) {
+			try {
+				decoded = decoder.decode(response);
+			}
+			catch (RuntimeException e) {
+				fault = new ProviderException("Failed to decode the response to " + cmd.name(), e);
+			}
+		}
+		return complete(response, decoded, fault);
 	}
 
 	/**
 	 * Signals completion with error -- response will be null
 	 * @param cre
+	 * @return false if the request had already completed
 	 */
-	final void setCRE (ClientRuntimeException cre){
-		this.cre = cre;
-		excepted = true;
-		setResponse(null);
-//		this.completion.signal();
+	final boolean setCRE (ClientRuntimeException cre){
+		return complete(null, null, cre);
 	}
 	
+	/**
+	 * Fails the request with a {@link RequestTimeoutException}, if not already completed.
+	 * @return false if the request had already completed
+	 */
+	final boolean expire () {
+		if(!complete(null, null, new RequestTimeoutException(cmd.name() + " request expired before its response was read")))
+			return false;
+		if(connection != null) connection.onRequestExpired(this);
+		return true;
+	}
 	
+	/** @return true if the request has a deadline that has passed */
+	final boolean isOverdue (long now) {
+		return deadline != 0 && now - deadline >= 0;
+	}
+
+
 	/**
-	 * Determines if a completed request encountered errors and will throw an {@link ExecutionException} wrapping 
+	 * Determines if a completed request encountered errors and will throw an {@link ExecutionException} wrapping
 	 * the original cause.  Called by the {@link PendingRequest#get} methods.
 	 * @throws ExecutionException
 	 */
-	private final void checkStatus () throws ExecutionException 
+	private final void checkStatus () throws ExecutionException
 	{
+		if(cancelled)
+			throw new CancellationException (cmd.name() + " request was canceled");
+		
 		// check for runtime or provider exceptions
 		if(excepted) {
 			if(cre != null) {
@@ -122,51 +285,125 @@ public final class PendingRequest implements Future<Response> {
 			throw new ExecutionException("Redis Exception on ["+cmd.name()+"] " + response.getStatus().message(), new RedisException(cmd, response.getStatus().message()));
 	}
 
+	/** 
+	 * Sets the outcome and signals completion -- only the first outcome of the request is set.
+	 * @return false if the request had already completed 
+	 */
+	private final boolean complete (Response response, T result, ClientRuntimeException cre) {
+		synchronized (this) {
+			if(done) return false;
+			
+			this.response = response;
+			this.result = result;
+			if(cre != null) {
+				this.cre = cre;
+				excepted = true;
+			}
+			done = true;
+			notifyAll();
+		}
+		if(trace != null && connection != null) {
+			Throwable fault = cre;
+			if(fault == null && response != null && response.isError())
+				fault = new RedisException(cmd, response.getStatus().message());
+			connection.traceCompleted(trace, fault);
+		}
+		return true;
+	}
+
+	private final synchronized void await () throws InterruptedException {
+		while(!done)
+			wait();
+	}
+
+	/** @return false if timed out */
+	private final synchronized boolean await (long timeout, TimeUnit unit) throws InterruptedException {
+		long remaining = unit.toNanos(timeout);
+		long deadline = System.nanoTime() + remaining;
+		while(!done && remaining > 0) {
+			TimeUnit.NANOSECONDS.timedWait(this, remaining);
+			remaining = deadline - System.nanoTime();
+		}
+		return done;
+	}
+
 	// ------------------------------------------------------------------------
-	// Interface: Future<Response>
+	// Interface: Future<T>
 	// ------------------------------------------------------------------------
-	
-	/* (non-Javadoc) @see java.util.concurrent.Future#get() */
+
+	/** 
+	 * Waits no later than the deadline, if any.
+	 * @see java.util.concurrent.Future#get() 
+	 */
 	//        @Override
-	public Response get () throws InterruptedException, ExecutionException {
-		completion.await();
+	public T get () throws InterruptedException, ExecutionException {
+		if(!done) {
+			if(deadline == 0) 
+				await();
+			else if(!await(deadline - System.nanoTime(), TimeUnit.NANOSECONDS))
+				expire();
+		}
 
 		checkStatus();
-		return response;
+		return result;
 	}
 
-	/* (non-Javadoc) @see java.util.concurrent.Future#get(long, java.util.concurrent.TimeUnit) */
+	/** 
+	 * Waits no later than the deadline, if any, in which case the request expires.
+	 * @see java.util.concurrent.Future#get(long, java.util.concurrent.TimeUnit) 
+	 */
 	//        @Override
-	public Response get (long timeout, TimeUnit unit)
-	throws InterruptedException, ExecutionException, TimeoutException 
+	public T get (long timeout, TimeUnit unit)
+	throws InterruptedException, ExecutionException, TimeoutException
 	{
-		if(!completion.await(timeout, unit))
-			throw new TimeoutException();
-		
+		if(!done) {
+			long nanos = unit.toNanos(timeout);
+			boolean expires = deadline != 0 && deadline - System.nanoTime() <= nanos;
+			if(expires) 
+				nanos = deadline - System.nanoTime();
+			if(!await(nanos, TimeUnit.NANOSECONDS)) {
+				if(!expires) throw new TimeoutException();
+				expire();
+			}
+		}
+
 		checkStatus();
-		return response;
+		return result;
 	}
 
-	/**  
-	 * Pipeline does not support canceling of requests -- will always return false.
-	 * @see java.util.concurrent.Future#cancel(boolean) 
+	/**
+	 * Cancels the request if it has not completed.  The request is not withdrawn: if it 
+	 * has been sent its response is discarded when read.
+	 * @see java.util.concurrent.Future#cancel(boolean)
 	 */
 	//        @Override
-	public boolean cancel (boolean mayInterruptIfRunning) { return false; }
+	public boolean cancel (boolean mayInterruptIfRunning) {
+		synchronized (this) {
+			if(done) return false;
+			cancelled = true;
+			done = true;
+			notifyAll();
+		}
+		if(connection != null) {
+			connection.onRequestCancelled(this);
+			if(trace != null) connection.traceCompleted(trace, new CancellationException (cmd.name() + " request was canceled"));
+		}
+		return true;
+	}
 
-	/**  
-	 * Pipeline does not support canceling of requests -- will always return false.
-	 * @see PendingRequest#cancel(boolean)
-	 * @see java.util.concurrent.Future#isCancelled()
-	 */
+	/* (non-Javadoc) @see java.util.concurrent.Future#isCancelled() */
 	//        @Override
-	public boolean isCancelled () { return false; }
+	public boolean isCancelled () { return cancelled; }
 
 
+	/**
+	 * An overdue request is expired (and done) when checked.
+	 * @see java.util.concurrent.Future#isDone()
+	 */
 	//        @Override
-	public boolean isDone () { 
-//		return completion.isSignalled();
-		
-		return completion.isSignalled(); 
+	public boolean isDone () {
+		if(!done && isOverdue(System.nanoTime()))
+			expire();
+		return done;
 	}
-}
\ No newline at end of file
+}
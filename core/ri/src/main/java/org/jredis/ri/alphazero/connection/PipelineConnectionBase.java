@@ -16,27 +16,35 @@
 
 package org.jredis.ri.alphazero.connection;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Queue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import org.jredis.ClientRuntimeException;
 import org.jredis.ProviderException;
 import org.jredis.connector.Connection;
 import org.jredis.connector.ConnectionSpec;
 import org.jredis.connector.NotConnectedException;
+import org.jredis.connector.RequestTrace;
+import org.jredis.connector.RequestTracer.Stage;
 import org.jredis.connector.ConnectionSpec.SocketProperty;
 import org.jredis.protocol.Command;
 import org.jredis.protocol.Protocol;
 import org.jredis.protocol.Request;
 import org.jredis.protocol.Response;
+import org.jredis.protocol.ResponseDecoder;
+import org.jredis.protocol.StreamingMultiBulkResponse;
+import org.jredis.protocol.TransactionResponse;
 import org.jredis.ri.alphazero.protocol.ConcurrentSynchProtocol;
 import org.jredis.ri.alphazero.protocol.VirtualResponse;
-import org.jredis.ri.alphazero.support.Assert;
 import org.jredis.ri.alphazero.support.FastBufferedInputStream;
 import org.jredis.ri.alphazero.support.Log;
 
@@ -59,6 +67,15 @@ import org.jredis.ri.alphazero.support.Log;
 
 public abstract class PipelineConnectionBase extends ConnectionBase {
 
+	// ------------------------------------------------------------------------
+	// Consts
+	// ------------------------------------------------------------------------
+	/** initial delay between attempts to re-establish a faulted connection -- doubled per failed attempt */
+	static final long RECONNECT_BACKOFF_MSEC = 10;
+	
+	/** max delay between attempts to re-establish a faulted connection */
+	static final long RECONNECT_BACKOFF_MAX_MSEC = 1000;
+	
 	// ------------------------------------------------------------------------
 	// Properties
 	// ------------------------------------------------------------------------
@@ -69,7 +86,7 @@ public abstract class PipelineConnectionBase extends ConnectionBase {
 	private Thread 					respHandlerThread;
 
 	/**  */
-	private BlockingQueue<PendingRequest>	pendingResponseQueue;
+	private BlockingQueue<PendingRequest<?>>	pendingResponseQueue;
 
 	/** synchronization object used to serialize request queuing  */
 	private Object					serviceLock = new Object();
@@ -85,6 +102,21 @@ public abstract class PipelineConnectionBase extends ConnectionBase {
 	
 	/** counted down on notifyConnect */
 	private CountDownLatch		    connectionEstablished;
+	
+	/** 
+	 * incremented when the connection is recycled: pending requests of previous generations
+	 * were sent on the recycled socket and will not be responded to
+	 */
+	private volatile int			generation;
+	
+	/** the request whose response is being read by the response handler, if any */
+	private volatile PendingRequest<?>	inflight;
+	
+	/** true while the response handler waits for the completion of a streaming response */
+	private volatile boolean		streamOpen;
+	
+	/** true while the response handler is re-establishing a faulted connection -- requests wait for it */
+	private volatile boolean		recovering;
 
 	// ------------------------------------------------------------------------
 	// Constructor(s)
@@ -115,7 +147,7 @@ public abstract class PipelineConnectionBase extends ConnectionBase {
     	isActive = new AtomicBoolean(false);
     	connectionEstablished = new CountDownLatch(1);
     	
-    	pendingResponseQueue = new LinkedBlockingQueue<PendingRequest>();
+    	pendingResponseQueue = new LinkedBlockingQueue<PendingRequest<?>>();
     	respHandler = new ResponseHandler();
     	respHandlerThread = new Thread(respHandler, "response-handler");
     	respHandlerThread.start();
@@ -172,6 +204,10 @@ public abstract class PipelineConnectionBase extends ConnectionBase {
      * <p>
      * Other item of note is that once a QUIT request has been queued, no further
      * requests are accepted and a ClientRuntimeException is thrown.
+     * <p>
+     * A fault writing the request to the socket is not raised: the request is queued 
+     * nonetheless and is re-issued or failed on recovery of the connection, as are the 
+     * requests queued before it.
      * 
      * @see org.jredis.ri.alphazero.connection.ConnectionBase#queueRequest(org.jredis.protocol.Command, byte[][])
      */
@@ -179,31 +215,281 @@ public abstract class PipelineConnectionBase extends ConnectionBase {
     public final Future<Response> queueRequest (Command cmd, byte[]... args) 
     	throws ClientRuntimeException, ProviderException 
     {
-		if(!isConnected()) 
+		return queueRequest(PendingRequest.RESPONSE, cmd, args);
+    }
+    
+    /**
+     * Pipelines the request, per {@link PipelineConnectionBase#queueRequest(Command, byte[]...)}, with the 
+     * response decoded to the result by the response handler.
+     * @see org.jredis.ri.alphazero.connection.ConnectionBase#queueRequest(org.jredis.protocol.ResponseDecoder, org.jredis.protocol.Command, byte[][])
+     */
+    @Override
+    public final <T> Future<T> queueRequest (ResponseDecoder<T> decoder, Command cmd, byte[]... args) 
+    	throws ClientRuntimeException, ProviderException 
+    {
+		return queue(decoder, false, cmd, args);
+    }
+    
+    /**
+     * Pipelines the request, per {@link PipelineConnectionBase#queueRequest(ResponseDecoder, Command, byte[]...)}, 
+     * with a streaming response.  The response handler resolves the future once the reply header has been 
+     * read and then waits for the completion of the stream before processing the next response.
+     * @see org.jredis.ri.alphazero.connection.ConnectionBase#queueStreamingRequest(org.jredis.protocol.ResponseDecoder, org.jredis.protocol.Command, byte[][])
+     */
+    @Override
+    public final <T> Future<T> queueStreamingRequest (ResponseDecoder<T> decoder, Command cmd, byte[]... args) 
+    	throws ClientRuntimeException, ProviderException 
+    {
+		return queue(decoder, true, cmd, args);
+    }
+    
+    /**
+     * Pipelines the transaction block, per {@link PipelineConnectionBase#queueRequest(Command, byte[]...)}, 
+     * with the {@link TransactionResponse} decoded to the result by the response handler.  The block is
+     * written in one go, so requests of other threads are not interleaved with its commands.
+     * @see org.jredis.ri.alphazero.connection.ConnectionBase#queueTransaction(org.jredis.protocol.ResponseDecoder, java.util.List, java.util.List)
+     */
+    @Override
+    public final <T> Future<T> queueTransaction (ResponseDecoder<T> decoder, List<Command> cmds, List<byte[][]> args) 
+    	throws ClientRuntimeException, ProviderException 
+    {
+		return queue(new PendingRequest<T>(decoder, cmds, args));
+    }
+    
+    private final <T> Future<T> queue (ResponseDecoder<T> decoder, boolean streaming, Command cmd, byte[]... args) 
+    	throws ClientRuntimeException, ProviderException 
+    {
+		// args are retained so the request can be re-issued on recovery
+		return queue(new PendingRequest<T>(decoder, streaming, cmd, args));
+    }
+    
+    private final <T> Future<T> queue (PendingRequest<T> pendingResponse) 
+    	throws ClientRuntimeException, ProviderException 
+    {
+		Command cmd = pendingResponse.getCommand();
+		if(!isConnected() && !recovering) 
 			throw new NotConnectedException ("Not connected!");
 		
-		PendingRequest pendingResponse = null;
-		synchronized (serviceLock) {
-			if(pendingQuit) 
-				throw new ClientRuntimeException("Pipeline shutting down: Quit in progess; no further requests are accepted.");
+		RequestTrace trace = newTrace(cmd);
+		try {
+			checkStalled();
 			
-			Request request = Assert.notNull(protocol.createRequest (cmd, args), "request object from handler", ProviderException.class);
-			
-			if(cmd != Command.QUIT)
-				request.write(getOutputStream());
-			else {
-				pendingQuit = true;
-				isActive.set(false);
-//				heartbeat.exit();
-			}
+			synchronized (serviceLock) {
+				if(pendingQuit) 
+					throw new ClientRuntimeException("Pipeline shutting down: Quit in progess; no further requests are accepted.");
+				if(!isConnected()) 
+					throw new NotConnectedException ("Not connected!");
+				
+				long deadline = newRequestDeadline();
+				Request request = newRequest(pendingResponse);
+				
+				if(cmd != Command.QUIT) {
+					try {
+						request.write(getOutputStream());
+						trace(trace, Stage.WRITTEN);
+					}
+					catch (ClientRuntimeException e) {
+						if(!isWriteFault(e) || Thread.currentThread() == respHandlerThread) 
+							throw e;
+						// queued as if written: the response handler faults on the broken socket and 
+						// recovers, and the request is then re-issued or failed per its command
+						Log.problem("Pipeline <" + this + "> faulted writing " + cmd.code + ": " + e.getMessage());
+					}
+				}
+				else {
+					pendingQuit = true;
+					isActive.set(false);
+//					heartbeat.exit();
+				}
+				
+				pendingResponse.bind(this, deadline, trace);
+				pendingResponse.setGeneration(generation);
 				
-			pendingResponse = new PendingRequest(request, cmd);
-			pendingResponseQueue.add(pendingResponse);
+				if(Thread.currentThread() == respHandlerThread) {
+					// connection initialization (AUTH, SELECT) on recovery: the handler can not wait on itself
+					Response response = newResponse(pendingResponse);
+					traceFirstByte(trace);
+					response.read(getInputStream());
+					pendingResponse.setResponse(response);
+				}
+				else {
+					pendingResponseQueue.add(pendingResponse);
+				}
+			}
+		}
+		catch (RuntimeException e) {
+			// the trace of a request that was not queued is completed here
+			if(pendingResponse.getTrace() == null) traceCompleted(trace, e);
+			throw e;
 		}
 		return pendingResponse;
     }
+    
+    /**
+     * @return true if the write failed on the socket, i.e. the connection is faulted, as opposed to a
+     * bug or a fault of the request itself. 
+     */
+    private static boolean isWriteFault (ClientRuntimeException e) {
+    	return !(e instanceof ProviderException) && e.getCause() instanceof IOException;
+    }
+    
+    /**
+     * Checks for a stall on expiry of requests.
+     */
+    @Override
+    void onRequestExpired (PendingRequest<?> request) {
+    	super.onRequestExpired(request);
+    	checkStalled();
+    }
+    
+    /**
+     * Recycles the connection if the oldest pending request is past its deadline by more than
+     * the request timeout, i.e. the pipeline is stalled on its response.  Stalls on the consumption 
+     * of streaming responses are by design and are not checked.
+     */
+    private void checkStalled () {
+    	PendingRequest<?> oldest = inflight;
+    	if(oldest == null) oldest = pendingResponseQueue.peek();
+    	if(oldest == null || oldest.getDeadline() == 0 || streamOpen || recovering) 
+    		return;
+    	
+    	if(System.nanoTime() - oldest.getDeadline() > TimeUnit.MILLISECONDS.toNanos(spec.getRequestTimeout()))
+    		recycle(oldest.getGeneration());
+    }
+    
+    /**
+     * Replaces the socket of the connection, failing all pending requests with a 
+     * {@link RequestTimeoutException}.  Requests are not accepted while recycling.
+     * @param stalledGeneration the generation of the stalled request -- the connection is only
+     * recycled once per generation.
+     */
+    private void recycle (int stalledGeneration) {
+    	synchronized (serviceLock) {
+    		if(stalledGeneration != generation || pendingQuit || !isConnected()) 
+    			return;
+    		
+    		Log.problem("Pipeline <" + this + "> is stalled on the response to its oldest request -- recycling the connection.");
+    		getRequestStats().recycles.incrementAndGet();
+    		
+    		// the response handler fails the request it may be reading on the recycled socket
+    		generation++;
+    		disconnect();
+    		
+    		PendingRequest<?> pending = null;
+    		while((pending = pendingResponseQueue.poll()) != null)
+    			isRecycled(pending);
+    		
+    		try {
+    			connect();
+    		}
+    		catch (ClientRuntimeException e) {
+    			Log.problem("Pipeline <" + this + "> failed to reconnect after recycling: " + e.getMessage());
+    		}
+    	}
+    }
 
-    private void onResponseHandlerError (ClientRuntimeException cre, PendingRequest request) {
+    /**
+     * Fails the request if it was sent on a recycled socket.
+     * @return true if the request was sent on a recycled socket
+     */
+    private boolean isRecycled (PendingRequest<?> pending) {
+    	if(pending.getGeneration() == generation) 
+    		return false;
+    	pending.setCRE(new RequestTimeoutException("Pipeline connection was recycled before the response was read"));
+    	return true;
+    }
+    
+    /**
+     * Re-establishes the connection after a fault reading the response to the given request.  Requests 
+     * are not accepted (they wait) while recovering.  The pending requests that are still awaiting their 
+     * response are re-issued, in order, if their {@link Command#isReplayable() command is replayable}, i.e. 
+     * reads, and are otherwise failed with a {@link ConnectionResetException}, as it can not be determined if 
+     * the server processed them.  Writes are not re-issued, even if idempotent, as the server may have since 
+     * processed the writes of other clients.
+     * <p>
+     * Reconnect is attempted per the spec's {@link ConnectionSpec#getReconnectCnt() reconnect count}, with an 
+     * exponential backoff between attempts.  Called by the response handler.
+     * 
+     * @param cre the fault
+     * @param failed the request whose response was being read
+     * @return true if the connection was re-established, false if the pipeline is closing or the reconnect 
+     * attempts were exhausted
+     */
+    private boolean recover (ClientRuntimeException cre, PendingRequest<?> failed) {
+    	synchronized (serviceLock) {
+    		if(pendingQuit || !isConnected())
+    			return false;
+    		
+    		Log.problem("Pipeline <" + this + "> faulted: " + cre.getMessage() + " -- reconnecting.");
+    		recovering = true;
+    		try {
+    			List<PendingRequest<?>> pendings = new ArrayList<PendingRequest<?>>();
+    			pendings.add(failed);
+    			pendingResponseQueue.drainTo(pendings);
+    			generation++;
+    			
+    			long backoff = RECONNECT_BACKOFF_MSEC;
+    			int attempts = 0;
+    			boolean reconnected = false;
+    			while(!reconnected) {
+    				try {
+    					if(isConnected()) disconnect();
+    					connect();
+    					replay(pendings);
+    					reconnected = true;
+    				}
+    				catch (RuntimeException e) {
+    					pendingResponseQueue.clear();  // only holds the replayed requests
+    					Log.error("while attempting pipeline reconnect: " + e.getMessage());
+    					if(++attempts >= spec.getReconnectCnt()) 
+    						break;
+    					try {
+    						Thread.sleep(backoff);
+    					}
+    					catch (InterruptedException ie) {
+    						break;
+    					}
+    					backoff = Math.min(backoff * 2, RECONNECT_BACKOFF_MAX_MSEC);
+    				}
+    			}
+    			
+    			if(!reconnected) {
+    				for(PendingRequest<?> pending : pendings)
+    					pending.setCRE(cre);
+    				if(isConnected()) disconnect();
+    				return false;
+    			}
+    			getRequestStats().reconnects.incrementAndGet();
+    			Log.log("Pipeline <%s> reconnected after %d failed attempts", this, attempts);
+    			return true;
+    		}
+    		finally {
+    			recovering = false;
+    		}
+    	}
+    }
+    
+    /**
+     * Re-issues the replayable requests on the (re-established) connection and fails the rest.  Expired
+     * and canceled requests are dropped.
+     */
+    private void replay (List<PendingRequest<?>> pendings) {
+    	for(PendingRequest<?> pending : pendings) {
+    		if(pending.isDone())
+    			continue;
+    		if(!pending.getCommand().isReplayable()) {
+    			pending.setCRE(new ConnectionResetException("Connection re-established but " + pending.getCommand().code + " request may not have been processed"));
+    			continue;
+    		}
+    		Request request = newRequest(pending);
+    		request.write(getOutputStream());
+    		pending.setGeneration(generation);
+    		pendingResponseQueue.add(pending);
+    		getRequestStats().replays.incrementAndGet();
+    	}
+    }
+    
+    private void onResponseHandlerError (ClientRuntimeException cre, PendingRequest<?> request) {
     	Log.error("Pipeline response handler encountered an error: " + cre.getMessage());
     	
     	// signal fault
@@ -212,21 +498,15 @@ public abstract class PipelineConnectionBase extends ConnectionBase {
     	// set execution error for future object
     	request.setCRE(cre);
     	
-		// BEST:
-		// 1 - block the request phase
-		// 2 - try reconnect
-		// 3-ok: 		reconnected, resume processing
-		// 2-not ok: 	close shop, and set all pendings to error
-    	
-		// for now .. flush the remaining pending resposes from queue
+		// not recoverable: flush the remaining pending resposes from queue
     	// with execution error
     	//
-		PendingRequest pending = null;
+		PendingRequest<?> pending = null;
 		while(true){
 			try {
 				pending = pendingResponseQueue.remove();
 				pending.setCRE(cre);
-				Log.log("set pending %s response to error with CRE", pending.cmd);
+				Log.log("set pending %s response to error with CRE", pending.getCommand());
 			}
 			catch (NoSuchElementException empty){ break; }
 		}
@@ -271,58 +551,82 @@ public abstract class PipelineConnectionBase extends ConnectionBase {
     	 * <p>
     	 * TODO: not entirely clear what is the best way to handle exceptions.
     	 * <p>
-    	 * TODO: socket Reconnect in the context of pipelining is non-trivial, and maybe
-    	 * not even practically possible.  (e.g. request n is sent but pipe breaks on
-    	 * some m (m!=n) response.  non trivial.  Perhaps its best to assume broken connection
-    	 * means faulted server, specially given the fact that a pipeline has a heartbeat
-    	 * so the issue can not be timeout.
+    	 * On faults reading a response the connection is re-established and the replayable
+    	 * pending requests re-issued -- see {@link PipelineConnectionBase#recover(ClientRuntimeException, PendingRequest)}.
+    	 * The thread stops if that fails.
     	 */
 //        @Override
         public void run () {
 			Log.log("Pipeline <%s> thread for <%s> started.", Thread.currentThread().getName(), PipelineConnectionBase.this);
-        	PendingRequest pending = null;
+        	PendingRequest<?> pending = null;
         	while(true){
         		Response response = null;
 				try {
 	                pending = pendingResponseQueue.take();
+	                inflight = pending;
 					try {
-						response = protocol.createResponse(pending.cmd);
+						if(isRecycled(pending)) 
+							continue;  // sent on a recycled socket -- there is no response to read
+						response = newResponse(pending);
+						traceFirstByte(pending.getTrace());
 						response.read(getInputStream());
-						pending.response = response;
-						pending.completion.signal();
-						if(response.getStatus().isError()) {
-							Log.error ("(Asynch) Error response for " + pending.cmd.code + " => " + response.getStatus().message());
+						inflight = null;
+						if(!pending.setResponse(response)) {
+							// expired or canceled -- the response is read (to keep in synch) and discarded
+							onResponseDiscarded(pending);
+							if(pending.isStreaming() && !response.isError())
+								((StreamingMultiBulkResponse) response).getMultiBulkStream().close();
+						}
+						else if(response.getStatus().isError()) {
+							Log.error ("(Asynch) Error response for " + pending.getCommand().code + " => " + response.getStatus().message());
+						}
+						else if(pending.isStreaming()) {
+							// the consumer reads the rest of the response off the input stream
+							streamOpen = true;
+							ClientRuntimeException fault = null;
+							try {
+								fault = awaitStreamCompletion(response);
+							}
+							finally {
+								streamOpen = false;
+							}
+							if(fault != null) throw fault;
 						}
 
 					}
 					
-					// this exception handling as of now is basically broken and fairly useless
-					// really, what we want is making a distinction between bugs and runtime problems
-					// and in case of connection issues, signal the retry mechanism.
-					// in the interim, all incoming requests must be rejected (e.g. PipelineReconnecting ...)
-					// and all remaining pending responses must be set to error.
-					// major TODO
+					// bugs stop the pipeline; connection faults are recovered from, if possible,
+					// with the requests in flight re-issued or failed
+					
+					// errors reading the response to a request sent on a recycled socket are expected
 					
 					catch (ProviderException bug){
+						if(isRecycled(pending)) continue;
 						Log.bug ("ProviderException: " + bug.getMessage());
 						onResponseHandlerError(bug, pending);
 						break;
 					}
 					catch (ClientRuntimeException cre) {
+						if(isRecycled(pending)) continue;
+						if(recover(cre, pending)) continue;
 						Log.problem ("ClientRuntimeException: " + cre.getMessage());
 						onResponseHandlerError(cre, pending);
 						break;
 					}
 					catch (RuntimeException e){
+						if(isRecycled(pending)) continue;
 						Log.problem ("Unexpected (and not handled) RuntimeException: " + e.getMessage());
 						onResponseHandlerError(new ClientRuntimeException("Unexpected (and not handled) RuntimeException", e), pending);
 						break;
 					}
+					finally {
+						inflight = null;
+					}
 					
 					// redis (1.00) simply shutsdown connection even if pending responses
 					// are expected, so quit is NOT sent.  we simply close connection on this
 					// end. 
-					if(pending.cmd == Command.QUIT) {
+					if(pending.getCommand() == Command.QUIT) {
 						PipelineConnectionBase.this.disconnect();
 						break;
 					}
@@ -0,0 +1,235 @@
+/*
+ *   Copyright 2009 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+
+package org.jredis.ri.alphazero.connection;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import org.jredis.ClientRuntimeException;
+import org.jredis.ProviderException;
+import org.jredis.RedisException;
+import org.jredis.protocol.Command;
+import org.jredis.protocol.Response;
+
+/**
+ * Single-flight coalescing of identical read requests: a {@link Command#isReadOnly()} request 
+ * issued while an identical request (same command and argument bytes) is in flight is not sent, 
+ * and is instead completed with the response (or error) of the in-flight request.  Used by clients 
+ * shared by many threads, e.g. the {@link org.jredis.ri.alphazero.JRedisService}, to spare the 
+ * server (and the pool) the stampede of requests for hot keys.
+ * <p>
+ * A request never joins a flight that may have been sent before a write (any request that is not 
+ * read only) serviced by the same client completed.  Writes are counted on completion, so the reads
+ * of a thread always observe the writes it has made.  The non-deterministic reads, e.g. 
+ * {@link Command#RANDOMKEY}, and the {@link Command#isBlocking()} commands are not coalesced.
+ * <p>
+ * Note that coalesced callers share the same {@link Response}, i.e. the same value byte[]s and lists:
+ * these must be treated as read only.  Coalescing is disabled on construction.
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, May 20, 2010
+ * @since   alpha.0
+ * 
+ */
+public final class RequestCoalescer {
+	
+	// ------------------------------------------------------------------------
+	// Inner types
+	// ------------------------------------------------------------------------
+	/** the delegate that sends the request and reads its response */
+	public interface Service {
+		Response service (Command cmd, byte[]... args) throws RedisException, ClientRuntimeException, ProviderException;
+	}
+	
+	// ------------------------------------------------------------------------
+	// Properties
+	// ------------------------------------------------------------------------
+	/** the in-flight requests, by command and args */
+	private final ConcurrentMap<RequestKey, Flight>	flights = new ConcurrentHashMap<RequestKey, Flight>();
+	
+	/** count of the completed writes, while enabled */
+	private final AtomicLong		writeEpoch = new AtomicLong();
+	
+	/** count of the requests completed by the flight of another */
+	private final AtomicLong		coalescedCnt = new AtomicLong();
+	
+	private volatile boolean		enabled = false;
+	
+	// ------------------------------------------------------------------------
+	// Interface
+	// ------------------------------------------------------------------------
+	/**
+	 * Services the request, joining the in-flight identical request if any and coalescing is enabled.
+	 * @param service sends the request, if not joining a flight
+	 * @param cmd
+	 * @param args
+	 * @return the response -- shared with the callers of the flight
+	 * @throws RedisException
+	 * @throws ClientRuntimeException if interrupted while waiting for the response of the flight
+	 */
+	public Response serviceRequest (Service service, Command cmd, byte[]... args) 
+		throws RedisException, ClientRuntimeException, ProviderException 
+	{
+		if(!enabled || !isCoalescable(cmd)) {
+			try {
+				return service.service(cmd, args);
+			}
+			finally {
+				onCompleted(cmd);
+			}
+		}
+		
+		RequestKey key = new RequestKey(cmd, args);
+		long epoch = writeEpoch.get();
+		for(;;){
+			Flight flight = flights.get(key);
+			if(flight != null && flight.epoch >= epoch) {
+				coalescedCnt.incrementAndGet();
+				return flight.await();
+			}
+			Flight mine = new Flight(epoch);
+			boolean leading = flight == null ? flights.putIfAbsent(key, mine) == null : flights.replace(key, flight, mine);
+			if(leading)
+				return mine.service(service, key);
+		}
+	}
+	
+	/**
+	 * Notes the completion of a request serviced without this coalescer, e.g. a transaction.  
+	 * Required for all such writes. 
+	 * @param cmd
+	 */
+	public void onCompleted (Command cmd) {
+		if(enabled && !cmd.isReadOnly())
+			writeEpoch.incrementAndGet();
+	}
+	
+	/**
+	 * Coalescing is disabled on construction.
+	 * @param enabled
+	 */
+	public void setEnabled (boolean enabled) {
+		this.enabled = enabled;
+	}
+	
+	/** @return true if coalescing is enabled */
+	public boolean isEnabled () {
+		return enabled;
+	}
+	
+	/** @return the number of requests that were completed by the flight of an identical request */
+	public long getCoalescedCount () {
+		return coalescedCnt.get();
+	}
+	
+	/** @return the number of requests in flight that may be joined */
+	public int getFlightCount () {
+		return flights.size();
+	}
+	
+	/**
+	 * @param cmd
+	 * @return true if the requests of the command are coalesced, when enabled
+	 */
+	public static boolean isCoalescable (Command cmd) {
+		return cmd.isReadOnly() && !cmd.isBlocking() && cmd != Command.RANDOMKEY && cmd != Command.SRANDMEMBER;
+	}
+	
+	// ------------------------------------------------------------------------
+	// Inner ops
+	// ------------------------------------------------------------------------
+	/** a request (and its waiters) in flight */
+	private final class Flight {
+		/** the write epoch of the client when the flight was created */
+		final long				epoch;
+		final CountDownLatch	done = new CountDownLatch(1);
+		Response				response;
+		Throwable				fault;
+		
+		Flight (long epoch) {
+			this.epoch = epoch;
+		}
+		
+		/** services the request as the leader of the flight, and completes the flight */
+		Response service (Service service, RequestKey key) throws RedisException {
+			boolean completed = false;
+			try {
+				response = service.service(key.cmd, key.args);
+				completed = true;
+				return response;
+			}
+			catch (RedisException e) { fault = e; throw e; }
+			catch (RuntimeException e) { fault = e; throw e; }
+			catch (Error e) { fault = e; throw e; }
+			finally {
+				if(!completed && fault == null)
+					fault = new ProviderException("Bug -- coalesced " + key.cmd.code + " request completed without a response or cause");
+				flights.remove(key, this);
+				done.countDown();
+			}
+		}
+		
+		/** @return the response of the flight, or throws its fault */
+		Response await () throws RedisException {
+			try {
+				done.await();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new ClientRuntimeException("Interrupted while waiting for a coalesced response", e);
+			}
+			if(fault == null) return response;
+			if(fault instanceof RedisException) throw (RedisException) fault;
+			if(fault instanceof RuntimeException) throw (RuntimeException) fault;
+			throw (Error) fault;
+		}
+	}
+	
+	/** command and args, compared by content */
+	private static final class RequestKey {
+		final Command	cmd;
+		final byte[][]	args;
+		final int		hash;
+		
+		RequestKey (Command cmd, byte[][] args) {
+			this.cmd = cmd;
+			this.args = args;
+			int h = cmd.hashCode();
+			if(args != null) 
+				for(byte[] arg : args) h = 31 * h + Arrays.hashCode(arg);
+			this.hash = h;
+		}
+		@Override
+		public int hashCode () { return hash; }
+		
+		@Override
+		public boolean equals (Object o) {
+			if(this == o) return true;
+			if(!(o instanceof RequestKey)) return false;
+			RequestKey other = (RequestKey) o;
+			if(hash != other.hash || cmd != other.cmd) return false;
+			if(args == null || other.args == null) return args == other.args;
+			if(args.length != other.args.length) return false;
+			for(int i=0; i<args.length; i++)
+				if(!Arrays.equals(args[i], other.args[i])) return false;
+			return true;
+		}
+	}
+}
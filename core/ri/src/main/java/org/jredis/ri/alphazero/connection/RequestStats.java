@@ -0,0 +1,61 @@
+/*
+ *   Copyright 2009 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.jredis.ri.alphazero.connection;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters of the abnormal outcomes of a connection's (asynchronous) requests.
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, Apr 18, 2010
+ * @since   alpha.0
+ * @see ConnectionBase#getRequestStats()
+ */
+public final class RequestStats {
+	
+	final AtomicLong timeouts = new AtomicLong();
+	final AtomicLong cancellations = new AtomicLong();
+	final AtomicLong discards = new AtomicLong();
+	final AtomicLong recycles = new AtomicLong();
+	final AtomicLong reconnects = new AtomicLong();
+	final AtomicLong replays = new AtomicLong();
+
+	/** @return number of requests that expired before their response was read */
+	public long getTimeouts () { return timeouts.get(); }
+	
+	/** @return number of requests canceled before their response was read */
+	public long getCancellations () { return cancellations.get(); }
+	
+	/** @return number of (late) responses that were read and discarded, or never requested, for expired or canceled requests */
+	public long getDiscards () { return discards.get(); }
+	
+	/** @return number of times the connection was recycled as its oldest pending request was stalled */
+	public long getRecycles () { return recycles.get(); }
+	
+	/** @return number of times the connection was re-established after a fault */
+	public long getReconnects () { return reconnects.get(); }
+	
+	/** @return number of (replayable) requests that were re-issued on re-established connections */
+	public long getReplays () { return replays.get(); }
+	
+	@Override
+	public String toString () {
+		return String.format("timeouts: %d, cancellations: %d, discards: %d, recycles: %d, reconnects: %d, replays: %d", 
+				getTimeouts(), getCancellations(), getDiscards(), getRecycles(), getReconnects(), getReplays());
+	}
+}
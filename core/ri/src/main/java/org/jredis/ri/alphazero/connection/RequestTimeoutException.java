@@ -0,0 +1,43 @@
+/*
+ *   Copyright 2009 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.jredis.ri.alphazero.connection;
+
+import org.jredis.ClientRuntimeException;
+import org.jredis.ri.alphazero._specification;
+
+/**
+ * Raised for requests that did not complete by their deadline.  The request may well have 
+ * been processed by the server: its (late) response is discarded.
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, Apr 18, 2010
+ * @since   alpha.0
+ * @see org.jredis.connector.ConnectionSpec#getRequestTimeout()
+ */
+
+public class RequestTimeoutException extends ClientRuntimeException {
+
+	/**  */
+	private static final long serialVersionUID = _specification.Version.major;
+
+	/**
+	 * @param msg
+	 */
+	public RequestTimeoutException(String msg) {
+		super(msg);
+	}
+}
@@ -0,0 +1,511 @@
+/*
+ *   Copyright 2009 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+
+package org.jredis.ri.alphazero.connection;
+
+import static org.jredis.connector.ConnectionSpec.SocketProperty.SO_TIMEOUT;
+import static org.jredis.ri.alphazero.support.DefaultCodec.toStr;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.SocketTimeoutException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.jredis.ClientRuntimeException;
+import org.jredis.NotSupportedException;
+import org.jredis.ProviderException;
+import org.jredis.RedisException;
+import org.jredis.Subscriber;
+import org.jredis.connector.Connection;
+import org.jredis.connector.ConnectionSpec;
+import org.jredis.connector.NotConnectedException;
+import org.jredis.protocol.Command;
+import org.jredis.protocol.MultiBulkResponse;
+import org.jredis.protocol.Protocol;
+import org.jredis.protocol.Request;
+import org.jredis.protocol.Response;
+import org.jredis.ri.alphazero.protocol.ConcurrentSynchProtocol;
+import org.jredis.ri.alphazero.support.Assert;
+import org.jredis.ri.alphazero.support.DefaultCodec;
+import org.jredis.ri.alphazero.support.FastBufferedInputStream;
+import org.jredis.ri.alphazero.support.Log;
+
+/**
+ * A connection dedicated to pub/sub subscriptions.  The (un)subscribe requests are written by the
+ * calling threads, and the replies to them, as well as the messages pushed by the server, are read by
+ * the connection's reader thread -- there is no request/response pairing.  Messages are dispatched to
+ * the {@link Subscriber.Listener}s by a bounded executor: should the listeners fall behind, the reader 
+ * waits for room in the dispatch queue (and the server buffers the messages that are yet to be read).  
+ * With a single dispatch thread (the default), messages are delivered in the order published.
+ * <p>
+ * Faults reading from the server are recovered from by re-establishing the connection and re-issuing 
+ * the subscriptions.  The messages published in the interim are lost.
+ * <p>
+ * The connection is initialized (AUTH, SELECT) synchronously.  Other requests are not supported.
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @since   alpha.0
+ * 
+ */
+public class SubscriberConnection extends ConnectionBase {
+
+	// ------------------------------------------------------------------------
+	// Consts
+	// ------------------------------------------------------------------------
+	/** default number of threads delivering messages to the listeners */
+	public static final int DEFAULT_DISPATCH_THREADS = 1;
+	
+	/** default capacity of the queue of received messages that are yet to be delivered */
+	public static final int DEFAULT_DISPATCH_QUEUE_SIZE = 1024;
+	
+	// ------------------------------------------------------------------------
+	// Properties
+	// ------------------------------------------------------------------------
+	/** message listeners */
+	private final List<Subscriber.Listener>	messageListeners = new CopyOnWriteArrayList<Subscriber.Listener>();
+	
+	/** the requested subscriptions -- re-issued on reconnect.  Guarded by this. */
+	private final Set<String>		channels = new HashSet<String>();
+	private final Set<String>		patterns = new HashSet<String>();
+	
+	/** the subscriptions confirmed by the server.  Guarded by this, which is notified on changes. */
+	private final Set<String>		subscribedChannels = new HashSet<String>();
+	private final Set<String>		subscribedPatterns = new HashSet<String>();
+	
+	/** serializes the (un)subscribe requests, which wait for their confirmation */
+	private final Object			requestLock = new Object();
+	
+	/** delivers the messages to the listeners */
+	private final ThreadPoolExecutor	dispatcher;
+	
+	/** reads the replies and messages pushed by the server */
+	private final Thread			reader;
+	
+	/** set on quit, or when the connection could not be re-established */
+	private volatile boolean		closed = false;
+	
+	// ------------------------------------------------------------------------
+	// Constructor(s)
+	// ------------------------------------------------------------------------
+	/**
+	 * Connects, with the default dispatch parameters.
+	 * @param spec
+	 * @throws ClientRuntimeException
+	 */
+	public SubscriberConnection (ConnectionSpec spec) throws ClientRuntimeException {
+		this(spec, DEFAULT_DISPATCH_THREADS, DEFAULT_DISPATCH_QUEUE_SIZE);
+	}
+	
+	/**
+	 * Connects and starts the reader thread.
+	 * @param spec
+	 * @param dispatchThreads number of threads delivering the messages -- messages are delivered 
+	 * in order only if 1.
+	 * @param dispatchQueueSize max number of messages received but not yet delivered
+	 * @throws ClientRuntimeException
+	 */
+	public SubscriberConnection (ConnectionSpec spec, int dispatchThreads, int dispatchQueueSize) throws ClientRuntimeException {
+		super(spec, false);
+		if(dispatchThreads < 1)
+			throw new IllegalArgumentException ("dispatchThreads: " + dispatchThreads);
+		if(dispatchQueueSize < 1)
+			throw new IllegalArgumentException ("dispatchQueueSize: " + dispatchQueueSize);
+		
+		dispatcher = new ThreadPoolExecutor(dispatchThreads, dispatchThreads, 0, TimeUnit.MILLISECONDS, 
+				new ArrayBlockingQueue<Runnable>(dispatchQueueSize), 
+				new ThreadFactory() {
+					final AtomicInteger cnt = new AtomicInteger();
+					public Thread newThread (Runnable r) {
+						Thread t = new Thread(r, "subscriber-dispatcher-" + cnt.incrementAndGet());
+						t.setDaemon(true);
+						return t;
+					}
+				},
+				new RejectedExecutionHandler() {
+					/** the reader waits for room in the queue */
+					public void rejectedExecution (Runnable r, ThreadPoolExecutor executor) {
+						if(executor.isShutdown()) return;
+						try {
+							executor.getQueue().put(r);
+						}
+						catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+						}
+					}
+				});
+		
+		connect();
+		reader = new Thread(new Reader(), "subscriber-reader");
+		reader.setDaemon(true);
+		reader.start();
+	}
+	
+	// ------------------------------------------------------------------------
+	// Extension
+	// ------------------------------------------------------------------------
+	/**
+	 * No heartbeat: PING is not allowed on a subscribed connection, and faults are noted by
+	 * the reader.
+	 * @see org.jredis.ri.alphazero.connection.ConnectionBase#initializeComponents()
+	 */
+	@Override
+	protected void initializeComponents () {
+		setProtocolHandler (Assert.notNull (newProtocolHandler(), "the delegate protocol handler", ClientRuntimeException.class));
+	}
+	
+	/**
+	 * Requests are written by the calling threads and responses read by the reader.
+	 * @see org.jredis.ri.alphazero.connection.ConnectionBase#newProtocolHandler()
+	 */
+	@Override
+	protected Protocol newProtocolHandler () {
+		return new ConcurrentSynchProtocol();
+	}
+	
+	/**
+	 * Just make sure its a {@link FastBufferedInputStream}, as the reader waits for messages on it.
+	 */
+	@Override
+	protected InputStream newInputStream (InputStream socketInputStream) {
+		InputStream in = super.newInputStream(socketInputStream);
+		if(!(in instanceof FastBufferedInputStream))
+			in = new FastBufferedInputStream (in, spec.getSocketProperty(ConnectionSpec.SocketProperty.SO_RCVBUF));
+		return in;
+	}
+	
+	// ------------------------------------------------------------------------
+	// Interface: Connection
+	// ------------------------------------------------------------------------
+	/* (non-Javadoc) @see org.jredis.connector.Connection#getModality() */
+//	@Override
+	public final Modality getModality () {
+		return Connection.Modality.Synchronous;
+	}
+	
+	/**
+	 * Only supported for the initialization of the connection (AUTH and SELECT), which is done before
+	 * any subscriptions are (re-)issued and so while the reader is not reading.
+	 * @see org.jredis.ri.alphazero.connection.ConnectionBase#serviceRequest(org.jredis.protocol.Command, byte[][])
+	 */
+	@Override
+	public synchronized Response serviceRequest (Command cmd, byte[]... args) throws RedisException {
+		if(cmd != Command.AUTH && cmd != Command.SELECT)
+			throw new NotSupportedException (cmd.code + " is not supported by subscriber connections");
+		
+		Response response = null;
+		try {
+			write(cmd, args);
+			response = Assert.notNull(protocol.createResponse(cmd), "response object from handler", ProviderException.class);
+			response.read(getInputStream());
+		}
+		catch (ClientRuntimeException cre) {
+			Log.problem ("serviceRequest() -- ClientRuntimeException  => " + cre.getLocalizedMessage());
+			disconnect();
+			throw cre;
+		}
+		if(response.isError())
+			throw new RedisException(cmd, response.getStatus().message());
+		return response;
+	}
+	
+	// ------------------------------------------------------------------------
+	// Interface: subscriptions
+	// ------------------------------------------------------------------------
+	/**
+	 * Issues the (un)subscribe request and waits for its confirmation, no longer than the read timeout 
+	 * of the connection spec.
+	 * @param cmd one of {@link Command#SUBSCRIBE}, {@link Command#UNSUBSCRIBE}, {@link Command#PSUBSCRIBE},
+	 * and {@link Command#PUNSUBSCRIBE}.
+	 * @param names the channels or patterns -- all subscribed if none are given for unsubscribe requests.
+	 * @throws ClientRuntimeException if not confirmed in time, or the connection is closed.
+	 */
+	public void serviceSubscription (Command cmd, String... names) throws ClientRuntimeException {
+		boolean subscribe = cmd == Command.SUBSCRIBE || cmd == Command.PSUBSCRIBE;
+		if(!subscribe && cmd != Command.UNSUBSCRIBE && cmd != Command.PUNSUBSCRIBE)
+			throw new IllegalArgumentException (cmd.code + " is not a subscription command");
+		if(subscribe && names.length == 0)
+			throw new IllegalArgumentException ("no channels or patterns to subscribe to");
+		
+		boolean channel = cmd == Command.SUBSCRIBE || cmd == Command.UNSUBSCRIBE;
+		Set<String> requested = channel ? channels : patterns;
+		Set<String> confirmed = channel ? subscribedChannels : subscribedPatterns;
+		Collection<String> awaited = Arrays.asList(names);
+		
+		synchronized (requestLock) {
+			synchronized (this) {
+				assertOpen();
+				if(subscribe) 
+					requested.addAll(awaited);
+				else if(names.length == 0) 
+					requested.clear();
+				else 
+					requested.removeAll(awaited);
+				write(cmd, toBytes(awaited));
+				
+				int timeout = spec.getSocketProperty(SO_TIMEOUT);
+				long remaining = TimeUnit.MILLISECONDS.toNanos(timeout);
+				long deadline = System.nanoTime() + remaining;
+				while(!isConfirmed(subscribe, confirmed, awaited)){
+					assertOpen();
+					if(timeout > 0 && remaining <= 0)
+						throw new ClientRuntimeException ("Timed out waiting for the confirmation of " + cmd.code + " " + awaited);
+					try {
+						if(timeout > 0) TimeUnit.NANOSECONDS.timedWait(this, remaining);
+						else wait();
+					}
+					catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						throw new ClientRuntimeException ("Interrupted while waiting for the confirmation of " + cmd.code, e);
+					}
+					remaining = deadline - System.nanoTime();
+				}
+			}
+		}
+	}
+	
+	/** @return the subscribed channels -- a copy */
+	public synchronized Set<String> getChannels () {
+		return new HashSet<String>(subscribedChannels);
+	}
+	
+	/** @return the subscribed patterns -- a copy */
+	public synchronized Set<String> getPatterns () {
+		return new HashSet<String>(subscribedPatterns);
+	}
+	
+	public boolean addMessageListener (Subscriber.Listener listener) {
+		return messageListeners.add(Assert.notNull(listener, "listener", IllegalArgumentException.class));
+	}
+	
+	public boolean removeMessageListener (Subscriber.Listener listener) {
+		return messageListeners.remove(listener);
+	}
+	
+	/**
+	 * Closes the connection.  The messages already received are delivered.
+	 */
+	public void quit () {
+		synchronized (this) {
+			if(closed) return;
+			closed = true;
+			notifyAll();
+			if(isConnected()) disconnect();
+		}
+		dispatcher.shutdown();
+	}
+	
+	/** @return true if not quit and the connection has not been lost */
+	public boolean isOpen () {
+		return !closed;
+	}
+	
+	// ------------------------------------------------------------------------
+	// Inner ops
+	// ------------------------------------------------------------------------
+	private void assertOpen () throws ClientRuntimeException {
+		if(closed) throw new NotConnectedException ("Subscriber connection is closed");
+	}
+	
+	/** Called with the lock held. */
+	private void write (Command cmd, byte[]... args) {
+		if(!isConnected()) throw new NotConnectedException ("Not connected!");
+		Request request = Assert.notNull(protocol.createRequest (cmd, args), "request object from handler", ProviderException.class);
+		request.write(getOutputStream());
+	}
+	
+	private static byte[][] toBytes (Collection<String> names) {
+		byte[][] bytes = new byte[names.size()][];
+		int i = 0;
+		for(String name : names)
+			bytes[i++] = DefaultCodec.encode(name);
+		return bytes;
+	}
+	
+	/** Called with the lock held. */
+	private static boolean isConfirmed (boolean subscribe, Set<String> confirmed, Collection<String> names) {
+		if(subscribe) return confirmed.containsAll(names);
+		if(names.isEmpty()) return confirmed.isEmpty();
+		for(String name : names)
+			if(confirmed.contains(name)) return false;
+		return true;
+	}
+	
+	/**
+	 * Waits for the next message (or reply) from the server.  Read timeouts are expected while
+	 * there are no messages, and are ignored.
+	 * @return false if the connection was closed 
+	 */
+	private boolean awaitPush () throws ClientRuntimeException {
+		FastBufferedInputStream in = (FastBufferedInputStream) getInputStream();
+		while(true) {
+			try {
+				return in.await();
+			}
+			catch (SocketTimeoutException idle) { 
+				if(closed) return false;
+			}
+			catch (IOException e) {
+				throw new ClientRuntimeException ("IOException waiting for messages", e);
+			}
+		}
+	}
+	
+	/** Processes a message or subscription reply -- called by the reader. */
+	private void onPush (List<byte[]> data) {
+		String kind = toStr(data.get(0));
+		if("message".equals(kind)) 
+			dispatch(toStr(data.get(1)), null, data.get(2));
+		else if("pmessage".equals(kind))
+			dispatch(toStr(data.get(2)), toStr(data.get(1)), data.get(3));
+		else if("subscribe".equals(kind))
+			onSubscription(subscribedChannels, data.get(1), true);
+		else if("unsubscribe".equals(kind))
+			onSubscription(subscribedChannels, data.get(1), false);
+		else if("psubscribe".equals(kind))
+			onSubscription(subscribedPatterns, data.get(1), true);
+		else if("punsubscribe".equals(kind))
+			onSubscription(subscribedPatterns, data.get(1), false);
+		else
+			Log.error ("Subscriber <" + this + "> ignoring unexpected push of kind " + kind);
+	}
+	
+	private synchronized void onSubscription (Set<String> confirmed, byte[] name, boolean subscribed) {
+		if(null != name) {
+			if(subscribed) confirmed.add(toStr(name));
+			else confirmed.remove(toStr(name));
+		}
+		notifyAll();
+	}
+	
+	private void dispatch (final String channel, final String pattern, final byte[] message) {
+		if(messageListeners.isEmpty()) 
+			return;
+		dispatcher.execute(new Runnable() {
+			public void run () {
+				for(Subscriber.Listener listener : messageListeners) {
+					try {
+						listener.onMessage(channel, pattern, message);
+					}
+					catch (RuntimeException e) {
+						Log.error ("Subscriber listener failed on message of channel " + channel + " => " + e.getLocalizedMessage());
+					}
+				}
+			}
+		});
+	}
+	
+	/**
+	 * Re-establishes the connection and re-issues the subscriptions, with an exponential backoff between
+	 * attempts, per the spec's {@link ConnectionSpec#getReconnectCnt() reconnect count}.  Called by the 
+	 * reader.
+	 * @return true if the connection was re-established, false if closed 
+	 */
+	private synchronized boolean recover (ClientRuntimeException cre) {
+		if(closed) return false;
+		
+		Log.problem("Subscriber <" + this + "> faulted: " + cre.getMessage() + " -- reconnecting.");
+		subscribedChannels.clear();
+		subscribedPatterns.clear();
+		long backoff = PipelineConnectionBase.RECONNECT_BACKOFF_MSEC;
+		int attempts = 0;
+		while(!closed) {
+			try {
+				if(isConnected()) disconnect();
+				connect();
+				if(!channels.isEmpty()) write(Command.SUBSCRIBE, toBytes(channels));
+				if(!patterns.isEmpty()) write(Command.PSUBSCRIBE, toBytes(patterns));
+				getRequestStats().reconnects.incrementAndGet();
+				Log.log("Subscriber <%s> reconnected after %d failed attempts", this, attempts);
+				return true;
+			}
+			catch (RuntimeException e) {
+				Log.error("while attempting subscriber reconnect: " + e.getMessage());
+				if(++attempts >= spec.getReconnectCnt()) 
+					break;
+				try {
+					wait(backoff);
+				}
+				catch (InterruptedException ie) {
+					break;
+				}
+				backoff = Math.min(backoff * 2, PipelineConnectionBase.RECONNECT_BACKOFF_MAX_MSEC);
+			}
+		}
+		closed = true;
+		notifyAll();
+		if(isConnected()) disconnect();
+		return false;
+	}
+	
+	// ------------------------------------------------------------------------
+	// Inner Class
+	// ------------------------------------------------------------------------
+	/**
+	 * Reads the subscription replies and the messages pushed by the server, until the 
+	 * connection is closed.
+	 */
+	private final class Reader implements Runnable {
+//		@Override
+		public void run () {
+			Log.log("Subscriber <%s> thread for <%s> started.", Thread.currentThread().getName(), SubscriberConnection.this);
+			while(!closed) {
+				try {
+					if(!awaitPush()) {
+						if(closed) break;
+						throw new ClientRuntimeException ("Connection closed by the server");
+					}
+					Response response = Assert.notNull(protocol.createResponse(Command.SUBSCRIBE), "response object from handler", ProviderException.class);
+					response.read(getInputStream());
+					if(response.isError()) {
+						Log.error ("Subscriber <" + SubscriberConnection.this + "> error response => " + response.getStatus().message());
+						continue;
+					}
+					onPush(((MultiBulkResponse) response).getMultiBulkData());
+				}
+				catch (ProviderException bug) {
+					if(closed) break;
+					Log.bug ("ProviderException: " + bug.getMessage());
+					onConnectionFault(bug.getMessage(), false);
+					quit();
+				}
+				catch (ClientRuntimeException cre) {
+					if(closed) break;
+					if(!recover(cre)) {
+						onConnectionFault(cre.getMessage(), false);
+						dispatcher.shutdown();
+					}
+				}
+				catch (RuntimeException e) {
+					if(closed) break;
+					Log.bug ("Unexpected RuntimeException: " + e.getMessage());
+					onConnectionFault(e.getMessage(), false);
+					quit();
+				}
+			}
+			Log.log("Subscriber <%s> thread for <%s> stopped.", Thread.currentThread().getName(), SubscriberConnection.this);
+		}
+	}
+}
@@ -16,18 +16,28 @@
 
 package org.jredis.ri.alphazero.connection;
 
+import static org.jredis.connector.ConnectionSpec.SocketProperty.SO_TIMEOUT;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.List;
 import org.jredis.ClientRuntimeException;
 import org.jredis.ProviderException;
 import org.jredis.RedisException;
 import org.jredis.connector.Connection;
 import org.jredis.connector.ConnectionSpec;
 import org.jredis.connector.NotConnectedException;
+import org.jredis.connector.RequestTrace;
+import org.jredis.connector.RequestTracer.Stage;
+import org.jredis.protocol.BulkTransferResponse;
 import org.jredis.protocol.Command;
 import org.jredis.protocol.Protocol;
 import org.jredis.protocol.Request;
 import org.jredis.protocol.Response;
 import org.jredis.protocol.ResponseStatus;
+import org.jredis.protocol.StreamingMultiBulkResponse;
+import org.jredis.protocol.TransactionResponse;
 import org.jredis.ri.alphazero.RedisVersion;
+import org.jredis.ri.alphazero.protocol.SynchProtocol.SynchMultiBulkStreamResponse;
 import org.jredis.ri.alphazero.support.Assert;
 import org.jredis.ri.alphazero.support.Log;
 
@@ -45,7 +55,11 @@ public class SynchConnection extends ConnectionBase implements Connection {
 	// ------------------------------------------------------------------------
 	// Properties
 	// ------------------------------------------------------------------------
+	/** the open (streaming) response, if any -- the connection is reserved for it until it completes */
+	private SynchMultiBulkStreamResponse	stream;
 	
+	/** the thread that obtained the open stream */
+	private Thread							streamOwner;
 	
 	// ------------------------------------------------------------------------
 	// Constructors
@@ -118,23 +132,157 @@ public class SynchConnection extends ConnectionBase implements Connection {
 	public synchronized Response serviceRequest (Command cmd, byte[]... args) 
 		throws RedisException
 	{
+		return service (cmd, false, args);
+	}
+	
+	/**
+	 * The connection is reserved for the response's stream until it completes: requests
+	 * from other threads (e.g. the heartbeat) wait, and a request from the thread that 
+	 * obtained the stream discards its remainder.
+	 * @see org.jredis.ri.alphazero.connection.ConnectionBase#serviceStreamingRequest(org.jredis.protocol.Command, byte[][])
+	 */
+	@Override
+	public synchronized StreamingMultiBulkResponse serviceStreamingRequest (Command cmd, byte[]... args) 
+		throws RedisException
+	{
+		SynchMultiBulkStreamResponse response = (SynchMultiBulkStreamResponse) service (cmd, true, args);
+		if(!response.isCompleted()) {
+			stream = response;
+			streamOwner = Thread.currentThread();
+			response.addCompletionHook(new Runnable() {
+				public void run () {
+					synchronized (SynchConnection.this) { SynchConnection.this.notifyAll(); }
+				}
+			});
+		}
+		return response;
+	}
+	
+	/* (non-Javadoc)
+	 * @see org.jredis.ri.alphazero.connection.ConnectionBase#serviceRequest(org.jredis.protocol.Command, java.nio.channels.ReadableByteChannel, long, byte[][])
+	 */
+	@Override
+	public synchronized Response serviceRequest (Command cmd, ReadableByteChannel value, long length, byte[]... args) 
+		throws RedisException
+	{
+		awaitStream();
+		return service (cmd, protocol.createRequest (cmd, value, length, args), null);
+	}
+	
+	/* (non-Javadoc)
+	 * @see org.jredis.ri.alphazero.connection.ConnectionBase#serviceTransferRequest(org.jredis.protocol.Command, java.nio.channels.WritableByteChannel, byte[][])
+	 */
+	@Override
+	public synchronized BulkTransferResponse serviceTransferRequest (Command cmd, WritableByteChannel sink, byte[]... args) 
+		throws RedisException
+	{
+		awaitStream();
+		return (BulkTransferResponse) service (cmd, null, protocol.createTransferResponse (cmd, sink), args);
+	}
+	
+	/* (non-Javadoc)
+	 * @see org.jredis.ri.alphazero.connection.ConnectionBase#serviceTransaction(java.util.List, java.util.List)
+	 */
+	@Override
+	public synchronized TransactionResponse serviceTransaction (List<Command> cmds, List<byte[][]> args) 
+		throws RedisException
+	{
+		awaitStream();
+		return (TransactionResponse) service (Command.EXEC, protocol.createTransactionRequest (cmds, args), protocol.createTransactionResponse (cmds));
+	}
+	
+	/**
+	 * The read timeout of the connection is extended by the command timeout, or disabled if the command 
+	 * blocks indefinitely, and restored on completion.
+	 * @see org.jredis.ri.alphazero.connection.ConnectionBase#serviceBlockingRequest(org.jredis.protocol.Command, long, byte[][])
+	 */
+	@Override
+	public synchronized Response serviceBlockingRequest (Command cmd, long timeout, byte[]... args) 
+		throws RedisException
+	{
+		awaitStream();
+		if(!isConnected()) throw new NotConnectedException ("Not connected!");
 		
+		int readTimeout = spec.getSocketProperty(SO_TIMEOUT);
+		if(readTimeout > 0)
+			setReadTimeout(timeout > 0 ? (int) Math.min(Integer.MAX_VALUE, readTimeout + timeout * 1000) : 0);
+		try {
+			return service (cmd, null, null, args);
+		}
+		finally {
+			// a reset connection has a new socket
+			if(readTimeout > 0 && isConnected()) setReadTimeout(readTimeout);
+		}
+	}
+	
+	// ------------------------------------------------------------------------
+	// Inner ops
+	// ------------------------------------------------------------------------
+	/**
+	 * Waits for the completion of the open stream, if any.  Called with the lock held.
+	 */
+	private void awaitStream () {
+		while(stream != null) {
+			if(stream.isCompleted()) {
+				ClientRuntimeException fault = stream.getFault();
+				stream = null;
+				streamOwner = null;
+				if(fault != null) {
+					Log.problem ("streaming response faulted => " + fault.getLocalizedMessage());
+					reconnect();
+				}
+			}
+			else if(streamOwner == Thread.currentThread()) {
+				try {
+					stream.close();
+				}
+				catch (ClientRuntimeException faulted) { /* noted by the stream */ }
+			}
+			else {
+				try {
+					wait();
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new ClientRuntimeException ("Interrupted while waiting for the completion of the connection's open stream", e);
+				}
+			}
+		}
+	}
+	
+	private Response service (Command cmd, boolean streaming, byte[]... args) 
+		throws RedisException
+	{
+		awaitStream();
+		return service (cmd, null, streaming ? protocol.createStreamingResponse(cmd) : null, args);
+	}
+	
+	/**
+	 * Writes the request and reads the response, creating either per the protocol if not
+	 * provided.  Called with the lock held and no open stream.
+	 */
+	private Response service (Command cmd, Request request, Response response, byte[]... args) 
+		throws RedisException
+	{
 		if(!isConnected()) throw new NotConnectedException ("Not connected!");
 		
-		Request  		request = null;
-		Response		response = null;
+		RequestTrace trace = continueTrace(cmd);
 		ResponseStatus  status = null;
 		
 		try {
 			// 1 - Request
 			//				Log.log("RedisConnection - requesting ..." + cmd.code);
 			
-			request = Assert.notNull(protocol.createRequest (cmd, args), "request object from handler", ProviderException.class);
+			if(request == null)
+				request = Assert.notNull(protocol.createRequest (cmd, args), "request object from handler", ProviderException.class);
 			request.write(super.getOutputStream());
+			trace(trace, Stage.WRITTEN);
 
 			// 2 - response
 			//				Log.log("RedisConnection - read response ..." + cmd.code);
-			response = Assert.notNull(protocol.createResponse(cmd), "response object from handler", ProviderException.class);
+			if(response == null)
+				response = Assert.notNull(protocol.createResponse(cmd), "response object from handler", ProviderException.class);
+			traceFirstByte(trace);
 			response.read(super.getInputStream());
 
 			//				break;
@@ -143,10 +291,12 @@ public class SynchConnection extends ConnectionBase implements Connection {
 			Log.bug ("serviceRequest() -- ProviderException: " + bug.getLocalizedMessage());
 			Log.log ("serviceRequest() -- closing connection ...");
 			disconnect();
+			traceCompleted(trace, bug);
 			throw bug;
 		}
 		catch (ClientRuntimeException cre) {
 			Log.problem ("serviceRequest() -- ClientRuntimeException  => " + cre.getLocalizedMessage());
+			traceCompleted(trace, cre);
 			reconnect();
 			
 			throw new ConnectionResetException ("Connection re-established but last request not processed:  " + cre.getLocalizedMessage());
@@ -157,6 +307,7 @@ public class SynchConnection extends ConnectionBase implements Connection {
 
 			Log.log ("serviceRequest() -- closing connection ...");
 			disconnect();
+			traceCompleted(trace, e);
 
 			throw new ClientRuntimeException("unexpected runtime exeption: " + e.getLocalizedMessage(), e);
 		}
@@ -166,9 +317,12 @@ public class SynchConnection extends ConnectionBase implements Connection {
 		status = Assert.notNull (response.getStatus(), "status from response object", ProviderException.class);
 		if(status.isError()) {
 			Log.error ("Error response for " + cmd.code + " => " + status.message());
-			throw new RedisException(cmd, status.message());
+			RedisException error = new RedisException(cmd, status.message());
+			traceCompleted(trace, error);
+			throw error;
 		}
-		else if(status.code() == ResponseStatus.Code.CIAO) {
+		traceCompleted(trace, null);
+		if(status.code() == ResponseStatus.Code.CIAO) {
 			// normal for quit and shutdown commands.  we disconnect too.
 			disconnect();
 		}
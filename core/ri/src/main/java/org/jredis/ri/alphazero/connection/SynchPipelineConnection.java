@@ -16,6 +16,7 @@
 
 package org.jredis.ri.alphazero.connection;
 
+import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import org.jredis.ClientRuntimeException;
@@ -25,6 +26,8 @@ import org.jredis.connector.ConnectionSpec;
 import org.jredis.protocol.Command;
 import org.jredis.protocol.Response;
 import org.jredis.protocol.ResponseStatus;
+import org.jredis.protocol.StreamingMultiBulkResponse;
+import org.jredis.protocol.TransactionResponse;
 import org.jredis.ri.alphazero.support.Assert;
 import org.jredis.ri.alphazero.support.Log;
 
@@ -72,6 +75,42 @@ public class SynchPipelineConnection extends PipelineConnectionBase {
     	//
     	Future<Response> pendingResponse = queueRequest(cmd, args);
     	
+    	return awaitResponse(cmd, pendingResponse);
+    }
+    
+	/* (non-Javadoc)
+     * @see org.jredis.ri.alphazero.connection.ConnectionBase#serviceStreamingRequest(org.jredis.protocol.Command, byte[][])
+     */
+    @Override
+    public StreamingMultiBulkResponse serviceStreamingRequest (Command cmd, byte[]... args)
+            throws RedisException, ClientRuntimeException, ProviderException 
+    {
+    	Future<Response> pendingResponse = queueStreamingRequest(PendingRequest.RESPONSE, cmd, args);
+    	
+    	return (StreamingMultiBulkResponse) awaitResponse(cmd, pendingResponse);
+    }
+    
+	/* (non-Javadoc)
+     * @see org.jredis.ri.alphazero.connection.ConnectionBase#serviceTransaction(java.util.List, java.util.List)
+     */
+    @Override
+    public TransactionResponse serviceTransaction (List<Command> cmds, List<byte[][]> args)
+            throws RedisException, ClientRuntimeException, ProviderException 
+    {
+    	Future<Response> pendingResponse = queueTransaction(PendingRequest.RESPONSE, cmds, args);
+    	
+    	return (TransactionResponse) awaitResponse(Command.EXEC, pendingResponse);
+    }
+    
+    // ------------------------------------------------------------------------
+    // Inner ops
+    // ------------------------------------------------------------------------
+    /**
+     * Blocks on the pending response and checks its status.
+     */
+    private Response awaitResponse (Command cmd, Future<Response> pendingResponse)
+            throws RedisException, ClientRuntimeException, ProviderException 
+    {
     	// wait for response
     	//
     	Response response;
@@ -87,6 +126,9 @@ public class SynchPipelineConnection extends PipelineConnectionBase {
         	if(e.getCause() instanceof RedisException) {
         		throw (RedisException) e.getCause();
         	}
+        	else if(e.getCause() instanceof RequestTimeoutException) {
+        		throw (RequestTimeoutException) e.getCause();
+        	}
         	else {
 		        e.printStackTrace();
 		        throw new ProviderException("on pendingResponse.get()", e);
@@ -21,15 +21,23 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.List;
 
 import org.jredis.ClientRuntimeException;
 import org.jredis.NotSupportedException;
 import org.jredis.ProviderException;
+import org.jredis.protocol.BulkTransferResponse;
 import org.jredis.protocol.Command;
 import org.jredis.protocol.Protocol;
 import org.jredis.protocol.Request;
 import org.jredis.protocol.Response;
 import org.jredis.protocol.ResponseStatus;
+import org.jredis.protocol.StreamingMultiBulkResponse;
 import org.jredis.ri.alphazero.support.Assert;
 import org.jredis.ri.alphazero.support.Convert;
 import org.jredis.ri.alphazero.support.Log;
@@ -60,6 +68,9 @@ public abstract class ProtocolBase implements Protocol {
 	public static final byte	NUM_BYTE 	= (byte) 58; // :
 	public static final byte	ASCII_ZERO	= (byte) 48; // 0
 	
+	/** initial size of the (dedicated) buffer of transaction requests */
+	protected static final int	PREFERRED_TRANSACTION_BUFFER_SIZE = 1024;
+	
 	// ------------------------------------------------------------------------
 	// Protocol Revision specific consts
 	// ------------------------------------------------------------------------
@@ -84,7 +95,39 @@ public abstract class ProtocolBase implements Protocol {
 	public Request createRequest(Command cmd, byte[]... args) throws ProviderException, IllegalArgumentException {
 		
 		ByteArrayOutputStream buffer = createRequestBufffer (cmd);
-
+		writeRequest (buffer, cmd, args);
+		return createRequest(buffer);
+	}
+	
+	/**
+	 * The transaction block is written to a dedicated buffer, as the requests of a (non-concurrent)
+	 * protocol share theirs.
+	 * @see org.jredis.protocol.Protocol#createTransactionRequest(java.util.List, java.util.List)
+	 */
+	public Request createTransactionRequest (List<Command> cmds, List<byte[][]> args) throws ProviderException, IllegalArgumentException {
+		if(cmds.size() != args.size())
+			throw new IllegalArgumentException ("expecting the args of each of the " + cmds.size() + " commands but got " + args.size());
+		for(Command cmd : cmds){
+			if(cmd.responseType == Command.ResponseType.VIRTUAL || cmd == Command.MULTI || cmd == Command.EXEC || cmd == Command.DISCARD)
+				throw new IllegalArgumentException (cmd.code + " can not be queued in a transaction");
+		}
+		
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream(PREFERRED_TRANSACTION_BUFFER_SIZE);
+		writeRequest (buffer, Command.MULTI);
+		for(int i=0; i<cmds.size(); i++)
+			writeRequest (buffer, cmds.get(i), args.get(i));
+		writeRequest (buffer, Command.EXEC);
+		return new StreamBufferRequest(buffer);
+	}
+	
+	/**
+	 * Writes the request for the command to the buffer, per the command's {@link Command.RequestType}.
+	 * @param buffer
+	 * @param cmd
+	 * @param args
+	 * @throws ProviderException
+	 */
+	protected final void writeRequest (ByteArrayOutputStream buffer, Command cmd, byte[]... args) throws ProviderException {
 		try {
 			switch (cmd.requestType) {
 			case NO_ARG:
@@ -110,7 +153,7 @@ public abstract class ProtocolBase implements Protocol {
 				// -------------------
 				buffer.write(cmd.bytes);
 				buffer.write(SPACE);
-				buffer.write(Convert.toBytes(value.length));
+				Convert.writeTo(buffer, value.length);
 				buffer.write(CRLF);
 				buffer.write(value);
 				buffer.write(CRLF);
@@ -167,7 +210,7 @@ public abstract class ProtocolBase implements Protocol {
 				buffer.write(SPACE);
 				buffer.write(Assert.notNull(args[0], "key arg", ProviderException.class));
 				buffer.write(SPACE);
-				buffer.write(Convert.toBytes(value.length));
+				Convert.writeTo(buffer, value.length);
 				buffer.write(CRLF);
 				buffer.write(value);
 				buffer.write(CRLF);
@@ -186,7 +229,7 @@ public abstract class ProtocolBase implements Protocol {
 				buffer.write(SPACE);
 				buffer.write(Assert.notNull(args[1], "index arg", ProviderException.class));
 				buffer.write(SPACE);
-				buffer.write(Convert.toBytes(value.length));
+				Convert.writeTo(buffer, value.length);
 				buffer.write(CRLF);
 				buffer.write(value);
 				buffer.write(CRLF);
@@ -204,7 +247,7 @@ public abstract class ProtocolBase implements Protocol {
 				buffer.write(SPACE);
 				buffer.write(Assert.notNull(args[2], "count arg", ProviderException.class));
 				buffer.write(SPACE);
-				buffer.write(Convert.toBytes(value.length));
+				Convert.writeTo(buffer, value.length);
 				buffer.write(CRLF);
 				buffer.write(value);
 				buffer.write(CRLF);
@@ -231,39 +274,17 @@ public abstract class ProtocolBase implements Protocol {
 				Assert.isTrue(args.length%2==0, "args length should be an even number and expected to be seq of tuple {key, value}", ProviderException.class);
 				Assert.isTrue(cmd == Command.MSET || cmd == Command.MSETNX, "Only MSET/NX bulk commands are supported", NotSupportedException.class);
 
-				byte[] setCmdLenBytes = Convert.toBytes(cmd.bytes.length);
-				byte[] bulkSetLineCntBytes = Convert.toBytes(args.length+1);
-
-				buffer.write(COUNT_BYTE);
-				buffer.write(bulkSetLineCntBytes);
-				buffer.write(CRLF);
-
-				buffer.write(SIZE_BYTE);
-				buffer.write(setCmdLenBytes);
-				buffer.write(CRLF);
-				buffer.write(cmd.bytes);
-				buffer.write(CRLF);
+				writeMultiBulk(buffer, cmd, args);
+				break;
 				
-				for(int s=0; s<args.length; s+=2){
-					buffer.write(SIZE_BYTE);
-					buffer.write(Convert.toBytes(args[s].length));
-					buffer.write(CRLF);
-					buffer.write(args[s]);
-					buffer.write(CRLF);
-					
-					buffer.write(SIZE_BYTE);
-					if(null != args[s+1]) {
-						buffer.write(Convert.toBytes(args[s+1].length));
-						buffer.write(CRLF);
-						buffer.write(args[s+1]);
-						buffer.write(CRLF);
-					}
-					else {
-						buffer.write(ASCII_ZERO);
-						buffer.write(CRLF);
-						buffer.write(CRLF);
-					}
-				}
+			case KEY_BULK_ARGS:
+				Assert.isTrue(args.length > 0, "key arg expected", ProviderException.class);
+				Assert.notNull(args[0], "key arg", ProviderException.class);
+				writeMultiBulk(buffer, cmd, args);
+				break;
+				
+			case BULK_ARGS:
+				writeMultiBulk(buffer, cmd, args);
 				break;
 			
 			}
@@ -271,7 +292,69 @@ public abstract class ProtocolBase implements Protocol {
 		catch (Exception e) {
 			throw new ProviderException("Problem writing to the buffer" + e.getLocalizedMessage());
 		}
-		return createRequest(buffer);
+	}
+	
+	/**
+	 * Writes the command and all its args as bulk data, in the multi-bulk request format.  A null
+	 * arg is written as a zero length bulk.
+	 * @param buffer
+	 * @param cmd
+	 * @param args
+	 * @throws IOException
+	 */
+	private static void writeMultiBulk (ByteArrayOutputStream buffer, Command cmd, byte[]... args) throws IOException {
+		buffer.write(COUNT_BYTE);
+		Convert.writeTo(buffer, args.length+1);
+		buffer.write(CRLF);
+
+		buffer.write(SIZE_BYTE);
+		Convert.writeTo(buffer, cmd.bytes.length);
+		buffer.write(CRLF);
+		buffer.write(cmd.bytes);
+		buffer.write(CRLF);
+		
+		for(byte[] arg : args){
+			buffer.write(SIZE_BYTE);
+			if(null != arg) {
+				Convert.writeTo(buffer, arg.length);
+				buffer.write(CRLF);
+				buffer.write(arg);
+				buffer.write(CRLF);
+			}
+			else {
+				buffer.write(ASCII_ZERO);
+				buffer.write(CRLF);
+				buffer.write(CRLF);
+			}
+		}
+	}
+	
+	/**
+	 * Only the request line is buffered (in a dedicated buffer) -- the value is transferred from 
+	 * the channel when the request is written.
+	 * @see org.jredis.protocol.Protocol#createRequest(org.jredis.protocol.Command, java.nio.channels.ReadableByteChannel, long, byte[][])
+	 */
+	public Request createRequest (Command cmd, ReadableByteChannel value, long length, byte[]... args) throws ProviderException, IllegalArgumentException {
+		if(cmd.requestType != Command.RequestType.KEY_VALUE)
+			throw new IllegalArgumentException ("Value transfer is only supported for key value requests -- " + cmd.code + " is " + cmd.requestType.name());
+		Assert.notNull(value, "value channel", IllegalArgumentException.class);
+		if(length < 0)
+			throw new IllegalArgumentException ("negative value length: " + length);
+		
+		byte[] key = Assert.notNull(args[0], "key arg", ProviderException.class);
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream(cmd.bytes.length + key.length + 24);
+		try {
+			buffer.write(cmd.bytes);
+			buffer.write(SPACE);
+			buffer.write(key);
+			buffer.write(SPACE);
+			Convert.writeTo(buffer, length);
+			buffer.write(CRLF);
+		}
+		catch (IOException e) {
+			throw new ProviderException("Problem writing to the buffer" + e.getLocalizedMessage());
+		}
+		return new ValueTransferRequest(buffer, value, length);
 	}
 	
 //	@Override
@@ -310,6 +393,27 @@ public abstract class ProtocolBase implements Protocol {
 	
 	}
 
+	/* (non-Javadoc)
+	 * @see org.jredis.protocol.Protocol#createStreamingResponse(org.jredis.protocol.Command)
+	 */
+	public StreamingMultiBulkResponse createStreamingResponse (Command cmd) throws ProviderException, IllegalArgumentException {
+		if(cmd.responseType != Command.ResponseType.MULTI_BULK)
+			throw new IllegalArgumentException ("Streaming response is only supported for multi-bulk replies -- " + cmd.code + " is " + cmd.responseType.name());
+		
+		return createMultiBulkStreamResponse (cmd);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.jredis.protocol.Protocol#createTransferResponse(org.jredis.protocol.Command, java.nio.channels.WritableByteChannel)
+	 */
+	public BulkTransferResponse createTransferResponse (Command cmd, WritableByteChannel sink) throws ProviderException, IllegalArgumentException {
+		if(cmd.responseType != Command.ResponseType.BULK)
+			throw new IllegalArgumentException ("Transfer response is only supported for bulk replies -- " + cmd.code + " is " + cmd.responseType.name());
+		Assert.notNull(sink, "transfer sink", IllegalArgumentException.class);
+		
+		return createBulkTransferResponse (cmd, sink);
+	}
+
 
 	// ------------------------------------------------------------------------
 	// Extension Points
@@ -318,7 +422,9 @@ public abstract class ProtocolBase implements Protocol {
 	protected abstract ByteArrayOutputStream createRequestBufffer(Command cmd);
 	protected abstract Request createRequest (ByteArrayOutputStream buffer);
 	protected abstract Response createMultiBulkResponse(Command cmd) ;
+	protected abstract StreamingMultiBulkResponse createMultiBulkStreamResponse(Command cmd) ;
 	protected abstract Response createBulkResponse(Command cmd) ;
+	protected abstract BulkTransferResponse createBulkTransferResponse(Command cmd, WritableByteChannel sink) ;
 	protected abstract Response createNumberResponse(Command cmd /*, boolean bigNum*/) ;
 	protected abstract Response createBooleanResponse(Command cmd) ;
 	protected abstract Response createStringResponse(Command cmd) ;
@@ -387,4 +493,75 @@ public abstract class ProtocolBase implements Protocol {
 			}
 		}
 	}
+	
+	// ------------------------------------------------------------------------
+	// Inner Type
+	// =============================================================== Request
+	// ------------------------------------------------------------------------
+	/**
+	 * A {@link Request} that writes its buffered request line and then transfers its value from a 
+	 * (blocking) channel, in chunks of at most {@link ValueTransferRequest#CHUNK_SIZE} bytes.  
+	 * {@link FileChannel} values are transferred using {@link FileChannel#transferTo(long, long, WritableByteChannel)}.
+	 * <p>
+	 * A source that ends prematurely leaves a partial request on the wire, so it is raised as a
+	 * {@link ClientRuntimeException}, and the connection must be reset.
+	 */
+	public static class ValueTransferRequest implements Request {
+		/** max bytes copied per read from a non-file channel */
+		public static final int CHUNK_SIZE = 64 * 1024;
+		
+		final ByteArrayOutputStream header;
+		final ReadableByteChannel value;
+		final long length;
+		
+		public ValueTransferRequest (ByteArrayOutputStream header, ReadableByteChannel value, long length) {
+			this.header = header;
+			this.value = value;
+			this.length = length;
+		}
+		
+//		@Override
+		public void read(InputStream in) throws ClientRuntimeException, ProviderException {
+			throw new ProviderException("Request.read is not supported by this class!");
+		}
+
+		/**
+		 * Writes the request line, the value, and the trailing CRLF to the output stream and flushes it.
+		 */
+//		@Override
+		public void write(OutputStream out) throws ClientRuntimeException, ProviderException {
+			long transferred = 0;
+			try {
+				header.writeTo(out);
+				if(value instanceof FileChannel) {
+					FileChannel file = (FileChannel) value;
+					WritableByteChannel target = Channels.newChannel(out);
+					long position = file.position();
+					long n;
+					while(transferred < length && (n = file.transferTo(position + transferred, length - transferred, target)) > 0)
+						transferred += n;
+					file.position(position + transferred);
+				}
+				else {
+					ByteBuffer chunk = ByteBuffer.allocate((int) Math.min(length, CHUNK_SIZE));
+					int n;
+					while(transferred < length) {
+						chunk.clear();
+						if(length - transferred < chunk.capacity()) chunk.limit((int) (length - transferred));
+						if((n = value.read(chunk)) == -1) break;
+						out.write(chunk.array(), 0, n);
+						transferred += n;
+					}
+				}
+				if(transferred < length)
+					throw new ClientRuntimeException ("value channel ended after " + transferred + " of " + length + " bytes");
+				out.write(CRLF);
+				out.flush();
+			}
+			catch (IOException e) { 
+				Log.error("ValueTransferRequest.write(): IOException after " + transferred + " value bytes: " + e.getLocalizedMessage());
+				throw new ClientRuntimeException ("value transfer io exception", e);
+			}
+		}
+	}
 }
@@ -21,11 +21,17 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 import java.util.ArrayList;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.NoSuchElementException;
 import org.jredis.ClientRuntimeException;
 import org.jredis.ProviderException;
+import org.jredis.ResultStream;
 import org.jredis.protocol.BulkResponse;
+import org.jredis.protocol.BulkTransferResponse;
 import org.jredis.protocol.Command;
 import org.jredis.protocol.MultiBulkResponse;
 import org.jredis.protocol.Protocol;
@@ -33,6 +39,8 @@ import org.jredis.protocol.Request;
 import org.jredis.protocol.Response;
 import org.jredis.protocol.ResponseStatus;
 import org.jredis.protocol.StatusResponse;
+import org.jredis.protocol.StreamingMultiBulkResponse;
+import org.jredis.protocol.TransactionResponse;
 import org.jredis.protocol.ValueResponse;
 import org.jredis.ri.alphazero.connection.ConnectionResetException;
 import org.jredis.ri.alphazero.connection.UnexpectedEOFException;
@@ -170,6 +178,30 @@ public class SynchProtocol extends ProtocolBase {
 		return cache_synchMultiBulkResponse;
 	}
 	
+	/**
+	 * Streaming responses are never cached, as they outlive the call that reads them.
+	 */
+	@Override
+	protected StreamingMultiBulkResponse createMultiBulkStreamResponse(Command cmd) {
+		return new SynchMultiBulkStreamResponse (new byte[PREFERRED_LINE_BUFFER_SIZE], cmd);
+	}
+	
+	/**
+	 * Transfer responses are not cached, as they are bound to their sink.
+	 */
+	@Override
+	protected BulkTransferResponse createBulkTransferResponse(Command cmd, WritableByteChannel sink) {
+		return new SynchBulkTransferResponse (new byte[PREFERRED_LINE_BUFFER_SIZE], cmd, sink);
+	}
+	
+	/**
+	 * Transaction responses are not cached, as they hold the responses of their commands.
+	 * @see org.jredis.protocol.Protocol#createTransactionResponse(java.util.List)
+	 */
+	public TransactionResponse createTransactionResponse (List<Command> cmds) {
+		return new SynchTransactionResponse (new byte[PREFERRED_LINE_BUFFER_SIZE], cmds);
+	}
+	
 	// ------------------------------------------------------------------------
 	// Inner Type
 	// ========================================================================
@@ -407,7 +439,9 @@ public class SynchProtocol extends ProtocolBase {
 				return -2;
 			}
 			if(buffer[0] != ctlByte) {
-				throw new ProviderException ("Bug?  Expecting status code for size/count");
+				// blocking commands reply with a nil multi-bulk on timeout, regardless of their reply type
+				boolean nil = cmd.isBlocking() && buffer[0] == COUNT_BYTE && Convert.toInt (buffer, 1, offset-3) == -1;
+				if(!nil) throw new ProviderException ("Bug?  Expecting status code for size/count");
 			}
 			status = ResponseStatus.STATUS_OK;
 			return Convert.toInt (buffer, 1, offset-3);
@@ -509,6 +543,78 @@ public class SynchProtocol extends ProtocolBase {
 	// Inner Type
 	// ============================================================ Response(s)
 	// ------------------------------------------------------------------------
+	/**
+	 * Bulk response that writes the bulk data to its sink as it is read, in chunks of
+	 * at most {@link SynchBulkTransferResponse#CHUNK_SIZE} bytes.
+	 * <p>
+	 * A sink error leaves the remainder of the reply on the wire, so it is raised as a 
+	 * {@link ClientRuntimeException}, and the connection must be reset.
+	 */
+	public class SynchBulkTransferResponse extends SynchMultiLineResponseBase implements BulkTransferResponse {
+		/** max bytes copied per write to the sink */
+		public static final int CHUNK_SIZE = 64 * 1024;
+		
+		/**  */
+		final WritableByteChannel sink;
+		/** -1 for nil replies */
+		long length = -1;
+		
+		public SynchBulkTransferResponse(byte[] buff, Command cmd, WritableByteChannel sink) {
+			super (buff, cmd, Type.Bulk);
+			this.sink = sink;
+		}
+		
+//		@Override
+		public long getTransferLength () {
+			assertResponseRead();
+			return length;
+		}
+		
+//		@Override
+		public void read(InputStream in) throws ClientRuntimeException, ProviderException {
+			if(didRead) return;
+
+			int size = readControlLine (in, true, SIZE_BYTE);
+
+			if(!status.isError() && size >= 0){
+				long transferred = 0;
+				try {
+					ByteBuffer chunk = ByteBuffer.allocate(Math.min(Math.max(size, 1), CHUNK_SIZE));
+					byte[] bytes = chunk.array();
+					int readcnt;
+					while(transferred < size){
+						if((readcnt = in.read (bytes, 0, (int) Math.min(bytes.length, size - transferred))) == -1) 
+							throw new ClientRuntimeException("IO - read returned -1 -- problem");
+						chunk.clear();
+						chunk.limit(readcnt);
+						while(chunk.hasRemaining())
+							sink.write(chunk);
+						transferred += readcnt;
+					}
+					for(int i=0; i<CRLF_LEN; i++){
+						if (in.read() == -1)
+							throw new ClientRuntimeException ("read got EOF (-1) while consuming the " +(i+1)+ "-th byte of CRLF bytes!");
+					}
+				}
+				catch (IOException problem) {
+					throw new ClientRuntimeException ("Problem: transferring the bulk data bytes after " + transferred + " of " + size + " bytes", problem);
+				}
+				length = size;
+			}
+			didRead = true;
+			return;
+		}
+	}
+	
+	// ------------------------------------------------------------------------
+	// Inner Type
+	// ============================================================ Response(s)
+	// ------------------------------------------------------------------------
+	/**
+	 * Integer elements (as sent in pub/sub replies) are read as the bytes of their decimal digits, and
+	 * the elements of nested multi-bulks (e.g. the keys of a SCAN reply) are read in line -- the data
+	 * is a flattened list of the elements.
+	 */
 	public class SynchMultiBulkResponse extends SynchMultiLineResponseBase implements MultiBulkResponse {
 
 		/**  */
@@ -548,7 +654,23 @@ public class SynchProtocol extends ProtocolBase {
 				try {
 					int size = -1;
 					for(int i=0;i<count; i++){
-						size = readControlLine(in, false, SIZE_BYTE);
+						seekToCRLF(in);
+						if(buffer[0] == NUM_BYTE) {
+							// integer element, e.g. the subscription count of pub/sub replies
+							byte[] digits = new byte[offset-3];
+							System.arraycopy(buffer, 1, digits, 0, digits.length);
+							datalist.add (digits);
+							continue;
+						}
+						if(buffer[0] == COUNT_BYTE) {
+							// nested multi-bulk: its elements follow
+							int nested = Convert.toInt (buffer, 1, offset-3);
+							if(nested > 0) count += nested;
+							continue;
+						}
+						if(buffer[0] != SIZE_BYTE)
+							throw new ProviderException ("Bug?  Expecting status code for size/count");
+						size = Convert.toInt (buffer, 1, offset-3);
 
 						if(size >= 0)
 							datalist.add (super.readBulkData(in, size));
@@ -570,4 +692,275 @@ public class SynchProtocol extends ProtocolBase {
 			return;
 		}
 	}
+	// ------------------------------------------------------------------------
+	// Inner Type
+	// ============================================================ Response(s)
+	// ------------------------------------------------------------------------
+	/**
+	 * Reads the replies to a transaction block: the MULTI status, the QUEUED status (or error) of each
+	 * command, and the EXEC multi-bulk, the elements of which are read by a response of the type
+	 * of their command.  Should MULTI be rejected, the commands' replies are (their immediate) 
+	 * responses and the response is an error.
+	 * <p>
+	 * The responses of the commands share the line buffer of the transaction response, as they are 
+	 * decoded when read.
+	 */
+	public class SynchTransactionResponse extends SynchMultiLineResponseBase implements TransactionResponse {
+		
+		/**  */
+		final List<Command>	cmds;
+		/**  */
+		List<Response>		responses;
+		
+		public SynchTransactionResponse(byte[] buff, List<Command> cmds) {
+			super (buff, Command.EXEC, Type.MultiBulk);
+			this.cmds = cmds;
+		}
+		
+//		@Override
+		public List<Response> getResponses() {
+			assertResponseRead();
+			return responses;
+		}
+		
+//		@Override
+		public void read(InputStream in) throws ClientRuntimeException, ProviderException {
+			if(didRead) return;
+			
+			Response multi = newStatusResponse(Command.MULTI);
+			multi.read(in);
+			
+			Response[] rejected = new Response[cmds.size()];
+			int queued = 0;
+			for(int i=0; i<cmds.size(); i++){
+				Response reply = multi.isError() ? newResponse(cmds.get(i)) : newStatusResponse(cmds.get(i));
+				reply.read(in);
+				if(reply.isError()) 
+					rejected[i] = reply;
+				else 
+					queued++;
+			}
+			
+			int count = super.readControlLine (in, true, COUNT_BYTE);
+			if(multi.isError()) {
+				isError = true;
+				status = multi.getStatus();
+				didRead = true;
+				return;
+			}
+			if(status.isError()) 
+				return;
+			if(count < 0) {
+				isError = true;
+				status = new ResponseStatus(ResponseStatus.Code.ERROR, "transaction was aborted");
+				didRead = true;
+				return;
+			}
+			if(count != queued)
+				throw new ProviderException ("Bug? Expecting " + queued + " EXEC replies but got " + count);
+			
+			responses = new ArrayList<Response>(cmds.size());
+			for(int i=0; i<cmds.size(); i++){
+				Response response = rejected[i];
+				if(response == null) {
+					response = newResponse(cmds.get(i));
+					response.read(in);
+				}
+				responses.add(response);
+			}
+			didRead = true;
+		}
+		
+		private Response newStatusResponse (Command cmd) {
+			return new SynchLineResponse (buffer, cmd, ValueType.STATUS);
+		}
+		
+		/** @return a (non-cached) response per the command's response type */
+		private Response newResponse (Command cmd) {
+			switch (cmd.responseType){
+				case BOOLEAN:
+					return new SynchLineResponse (buffer, cmd, ValueType.BOOLEAN);
+				case NUMBER:
+					return new SynchLineResponse (buffer, cmd, ValueType.NUMBER64);
+				case STATUS:
+					return new SynchLineResponse (buffer, cmd, ValueType.STATUS);
+				case STRING:
+					return new SynchLineResponse (buffer, cmd, ValueType.STRING);
+				case BULK:
+					return new SynchBulkResponse (buffer, cmd);
+				case MULTI_BULK:
+					return new SynchMultiBulkResponse (buffer, cmd);
+				default:
+					throw new ProviderException ("Bug? " + cmd.code + " can not be queued in a transaction");
+			}
+		}
+	}
+	// ------------------------------------------------------------------------
+	// Inner Type
+	// ============================================================ Response(s)
+	// ------------------------------------------------------------------------
+	/**
+	 * A multi-bulk response that only reads the reply header in {@link SynchMultiBulkStreamResponse#read(InputStream)}.
+	 * The elements are read, on demand, by the thread iterating the stream.
+	 * <p>
+	 * The connection that read the response must not read from the input stream until
+	 * the stream has completed -- see {@link SynchMultiBulkStreamResponse#awaitCompletion()} 
+	 * and {@link SynchMultiBulkStreamResponse#addCompletionHook(Runnable)}.
+	 *
+	 * @author  Joubin Houshyar (alphazero@sensesay.net)
+	 * @since   alpha.0
+	 */
+	public class SynchMultiBulkStreamResponse extends SynchMultiLineResponseBase implements StreamingMultiBulkResponse, ResultStream<byte[]> {
+		
+		private InputStream		in;
+		private int				count = 0;
+		private int				remaining = 0;
+		
+		/** guards the completion state */
+		private final Object	completionLock = new Object();
+		private boolean			completed = false;
+		private ClientRuntimeException fault = null;
+		private List<Runnable>	completionHooks = null;
+		
+		public SynchMultiBulkStreamResponse(byte[] buff, Command cmd) {
+			super (buff, cmd, Type.MultiBulk);
+		}
+		
+//		@Override
+		public void read(InputStream in) throws ClientRuntimeException, ProviderException {
+			if(didRead) return;
+			
+			int cnt = super.readControlLine (in, true, COUNT_BYTE);
+			this.in = in;
+			if(!status.isError() && cnt > 0)
+				count = remaining = cnt;
+			
+			didRead = true;
+			if(remaining == 0) complete();
+		}
+		
+//		@Override
+		public ResultStream<byte[]> getMultiBulkStream() {
+			assertResponseRead();
+			return this;
+		}
+		
+		// ------------------------------------------------------------------------
+		// Interface: ResultStream
+		// ------------------------------------------------------------------------
+		
+//		@Override
+		public int size() { return count; }
+
+//		@Override
+		public boolean hasNext() { return remaining > 0; }
+
+//		@Override
+		public byte[] next() throws ClientRuntimeException {
+			if(remaining == 0) throw new NoSuchElementException("stream of " + cmd.code + " response is exhausted");
+			return readElement();
+		}
+
+//		@Override
+		public void remove() {
+			throw new UnsupportedOperationException("ResultStream does not support remove");
+		}
+
+//		@Override
+		public void close() throws ClientRuntimeException {
+			while(remaining > 0) readElement();
+		}
+		
+		// ------------------------------------------------------------------------
+		// Connection side
+		// ------------------------------------------------------------------------
+		
+		/** @return true if the stream has been exhausted, closed, or faulted */
+		public boolean isCompleted () {
+			synchronized (completionLock) { return completed; }
+		}
+		
+		/**
+		 * Blocks (uninterruptibly) until the stream has completed.
+		 * @return the fault that completed the stream, if any -- the connection must be
+		 * considered broken if not null.
+		 */
+		public ClientRuntimeException awaitCompletion () {
+			boolean interrupted = false;
+			synchronized (completionLock) {
+				while(!completed){
+					try {
+						completionLock.wait();
+					}
+					catch (InterruptedException e) { interrupted = true; }
+				}
+			}
+			if(interrupted) Thread.currentThread().interrupt();
+			return fault;
+		}
+		
+		/** @return the fault that completed the stream, if any */
+		public ClientRuntimeException getFault () {
+			synchronized (completionLock) { return fault; }
+		}
+		
+		/**
+		 * Adds a hook to run on completion of the stream, on the completing thread.  If
+		 * the stream has already completed the hook is run immediately.
+		 * @param hook
+		 */
+		public void addCompletionHook (Runnable hook) {
+			synchronized (completionLock) {
+				if(!completed) {
+					if(completionHooks == null) completionHooks = new LinkedList<Runnable>();
+					completionHooks.add(hook);
+					return;
+				}
+			}
+			hook.run();
+		}
+		
+		// ------------------------------------------------------------------------
+		// Inner ops
+		// ------------------------------------------------------------------------
+		private byte[] readElement () throws ClientRuntimeException {
+			byte[] data = null;
+			try {
+				int size = readControlLine(in, false, SIZE_BYTE);
+				if(size >= 0)
+					data = super.readBulkData(in, size);
+			}
+			catch (IOException problem) {
+				throw onFault (new ClientRuntimeException ("Problem: reading the multibulk stream data bytes", problem));
+			}
+			catch (ClientRuntimeException problem) {
+				throw onFault (problem);
+			}
+			catch (RuntimeException bug) {
+				throw onFault (new ProviderException ("Bug: reading the multibulk stream data bytes.", bug));
+			}
+			if(--remaining == 0) complete();
+			return data;
+		}
+		
+		private ClientRuntimeException onFault (ClientRuntimeException cre) {
+			remaining = 0;
+			synchronized (completionLock) { fault = cre; }
+			complete();
+			return cre;
+		}
+		
+		private void complete () {
+			List<Runnable> hooks = null;
+			synchronized (completionLock) {
+				if(completed) return;
+				completed = true;
+				completionLock.notifyAll();
+				hooks = completionHooks;
+				completionHooks = null;
+			}
+			if(hooks != null) 
+				for(Runnable hook : hooks) hook.run();
+		}
+	}
 }
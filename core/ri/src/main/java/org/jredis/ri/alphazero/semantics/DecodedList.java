@@ -0,0 +1,116 @@
+/*
+ *   Copyright 2009 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.jredis.ri.alphazero.semantics;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.jredis.Codec;
+
+/**
+ * A read-only view of a list of (raw) values that decodes each element on first access, 
+ * and caches the decoded element.  Elements that are never accessed are never decoded: e.g. 
+ * rendering 10 elements of an LRANGE of 1,000 decodes 10.  Null values are null elements.
+ * <p>
+ * Decoded lists are not thread-safe.
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, May 20, 2010
+ * @since   alpha.0
+ * 
+ */
+public final class DecodedList<T> extends AbstractList<T> implements RandomAccess {
+	
+	/** marks the elements that are yet to be decoded */
+	private static final Object UNDECODED = new Object();
+	
+	/** the raw values */
+	private final List<byte[]>	values;
+	private final Codec<T>		codec;
+	
+	/** the decoded elements, by index -- {@link DecodedList#UNDECODED} if not yet decoded */
+	private final Object[]		decoded;
+	
+	/**
+	 * @param values the raw values -- expected to be {@link RandomAccess}
+	 * @param codec
+	 */
+	public DecodedList (List<byte[]> values, Codec<T> codec) {
+		this.values = values;
+		this.codec = codec;
+		this.decoded = new Object[values.size()];
+		java.util.Arrays.fill(decoded, UNDECODED);
+	}
+	
+	/**
+	 * @param future the future (raw) values, e.g. of a {@link org.jredis.JRedisFuture} request
+	 * @param codec
+	 * @return the {@link Future} decoded list of the values
+	 */
+	public static <T> Future<List<T>> decode (final Future<List<byte[]>> future, final Codec<T> codec) {
+		return new Future<List<T>>() {
+			public boolean cancel (boolean mayInterruptIfRunning) { return future.cancel(mayInterruptIfRunning); }
+			public boolean isCancelled () { return future.isCancelled(); }
+			public boolean isDone () { return future.isDone(); }
+			public List<T> get () throws InterruptedException, ExecutionException {
+				return decoded(future.get(), codec);
+			}
+			public List<T> get (long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+				return decoded(future.get(timeout, unit), codec);
+			}
+		};
+	}
+	
+	/** @return the decoded list of the values, or null if values is null */
+	static <T> List<T> decoded (List<byte[]> values, Codec<T> codec) {
+		return null != values ? new DecodedList<T>(values, codec) : null;
+	}
+	
+	/**
+	 * Decodes the element if not already decoded.
+	 * @see java.util.AbstractList#get(int)
+	 */
+	@SuppressWarnings("unchecked")
+	@Override
+	public T get (int index) {
+		Object element = decoded[index];
+		if(element == UNDECODED) {
+			byte[] value = values.get(index);
+			element = null != value ? codec.decode(value) : null;
+			decoded[index] = element;
+		}
+		return (T) element;
+	}
+	
+	/* (non-Javadoc) @see java.util.AbstractCollection#size() */
+	@Override
+	public int size () {
+		return decoded.length;
+	}
+	
+	/** @return the number of elements decoded so far */
+	public int getDecodedCount () {
+		int cnt = 0;
+		for(Object element : decoded)
+			if(element != UNDECODED) cnt++;
+		return cnt;
+	}
+}
@@ -0,0 +1,370 @@
+/*
+ *   Copyright 2009 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.jredis.ri.alphazero.semantics;
+
+import java.io.Serializable;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.jredis.ClientRuntimeException;
+import org.jredis.Codec;
+import org.jredis.JRedis;
+import org.jredis.RedisException;
+import org.jredis.ri.alphazero.support.DefaultCodec;
+
+/**
+ * Maps the fields of a bean of type <code>T</code> to the fields of a Redis hash, each
+ * field (en/de)coded by its own {@link Codec}.  As each bean field is a hash field, a subset of
+ * the fields of a bean can be saved or loaded, and only the bytes of those fields are moved.
+ * <p>
+ * The mapped fields are the (declared and inherited) non-static, non-transient fields of the type.
+ * The default codecs encode numbers, booleans and characters as their decimal (string)
+ * representation -- so that (integral) fields can be incremented with HINCRBY -- strings as UTF-8,
+ * enums by name, byte[] as is, and any other {@link Serializable} field is serialized.  A
+ * codec must be set for fields of any other type before the mapper is used.
+ * <p>
+ * Null fields are not written: saving a null field deletes the hash field, and absent hash fields are
+ * loaded as null, or (for primitive fields) left as is.
+ * <p>
+ * The type must have a no-arg constructor (of any visibility) to be loaded with {@link HashMapper#load(JRedis, String)}.
+ * A mapper is thread-safe once its codecs have been set.
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, May 20, 2010
+ * @since   alpha.0
+ *
+ */
+
+public class HashMapper<T> {
+	// ------------------------------------------------------------------------
+	// Properties
+	// ------------------------------------------------------------------------
+	/** the mapped type */
+	private final Class<T> type;
+
+	/** the mapped fields by name, in declaration order */
+	private final Map<String, Binding> bindings = new LinkedHashMap<String, Binding>();
+
+	// ------------------------------------------------------------------------
+	// Constructor
+	// ------------------------------------------------------------------------
+	/**
+	 * @param type the bean type
+	 */
+	public HashMapper (Class<T> type) {
+		if(null == type) throw new IllegalArgumentException("null type");
+		this.type = type;
+
+		List<Class<?>> hierarchy = new ArrayList<Class<?>>();
+		for(Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass())
+			hierarchy.add(0, c);
+		for(Class<?> c : hierarchy){
+			for(Field field : c.getDeclaredFields()){
+				int modifiers = field.getModifiers();
+				if(Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isSynthetic())
+					continue;
+				if(bindings.containsKey(field.getName()))
+					throw new IllegalArgumentException ("field => ["+field.getName()+"] of " + c.getName() + " hides a field of the same name");
+				field.setAccessible(true);
+				bindings.put(field.getName(), new Binding(field, defaultCodec(field.getType())));
+			}
+		}
+	}
+
+	// ------------------------------------------------------------------------
+	// Interface
+	// ------------------------------------------------------------------------
+	/**
+	 * Sets the codec of the field.
+	 * @param field name of the bean field
+	 * @param codec must support the type of the field
+	 * @return this mapper
+	 */
+	public HashMapper<T> setCodec (String field, Codec<?> codec) {
+		Binding binding = getBinding(field);
+		if(null == codec || !codec.supports(boxed(binding.field.getType())))
+			throw new IllegalArgumentException ("codec does not support the type of field => ["+field+"]");
+		binding.codec = codec;
+		return this;
+	}
+
+	/** @return the names of the mapped fields */
+	public Set<String> getFields () {
+		return Collections.unmodifiableSet(bindings.keySet());
+	}
+
+	/**
+	 * @param bean
+	 * @return the encoded (non-null) fields of the bean
+	 */
+	public Map<String, byte[]> toHash (T bean) {
+		return toHash (bean, bindings.keySet().toArray(new String[bindings.size()]));
+	}
+
+	/**
+	 * @param bean
+	 * @param fields
+	 * @return the encoded (non-null) values of the specified fields of the bean
+	 */
+	public Map<String, byte[]> toHash (T bean, String...fields) {
+		if(null == bean) throw new IllegalArgumentException("null bean");
+		Map<String, byte[]> hash = new HashMap<String, byte[]>(fields.length);
+		for(String field : fields){
+			byte[] value = getBinding(field).encode(bean);
+			if(null != value) hash.put(field, value);
+		}
+		return hash;
+	}
+
+	/**
+	 * @param hash fields and values, e.g. per {@link JRedis#hgetall(String)}
+	 * @return a new bean with the fields of the hash, or null if the hash is empty
+	 */
+	public T fromHash (Map<String, byte[]> hash) {
+		if(null == hash || hash.isEmpty()) return null;
+		return fromHash (newInstance(), hash);
+	}
+
+	/**
+	 * Sets the fields of the bean per the hash -- fields of the hash that are not mapped are ignored.
+	 * @param bean
+	 * @param hash
+	 * @return the bean
+	 */
+	public T fromHash (T bean, Map<String, byte[]> hash) {
+		if(null == bean) throw new IllegalArgumentException("null bean");
+		for(Binding binding : bindings.values()){
+			binding.decode(bean, hash.get(binding.field.getName()));
+		}
+		return bean;
+	}
+
+	/**
+	 * Saves all the fields of the bean: the non-null fields are set with a single HMSET, and the
+	 * hash fields of null bean fields are deleted.
+	 * @param redis
+	 * @param key of the hash
+	 * @param bean
+	 * @throws RedisException
+	 */
+	public void save (JRedis redis, String key, T bean) throws RedisException {
+		save (redis, key, bean, bindings.keySet().toArray(new String[bindings.size()]));
+	}
+
+	/**
+	 * Saves the specified fields of the bean -- all other fields of the hash are left as is.
+	 * @param redis
+	 * @param key of the hash
+	 * @param bean
+	 * @param fields names of the bean fields to save
+	 * @throws RedisException
+	 */
+	public void save (JRedis redis, String key, T bean, String...fields) throws RedisException {
+		Map<String, byte[]> hash = toHash(bean, fields);
+		if(!hash.isEmpty())
+			redis.hmset(key, hash);
+		for(String field : fields){
+			if(!hash.containsKey(field))
+				redis.hdel(key, field);
+		}
+	}
+
+	/**
+	 * Loads all the fields of the hash.
+	 * @param redis
+	 * @param key of the hash
+	 * @return a new bean, or null if the hash does not exist
+	 * @throws RedisException
+	 */
+	public T load (JRedis redis, String key) throws RedisException {
+		return fromHash (redis.hgetall(key));
+	}
+
+	/**
+	 * Loads the specified fields of the hash, with a single HMGET, into the bean.
+	 * @param redis
+	 * @param key of the hash
+	 * @param bean
+	 * @param fields names of the bean fields to load
+	 * @return the bean
+	 * @throws RedisException
+	 */
+	public T load (JRedis redis, String key, T bean, String...fields) throws RedisException {
+		if(null == bean) throw new IllegalArgumentException("null bean");
+		List<Binding> loaded = new ArrayList<Binding>(fields.length);
+		for(String field : fields)
+			loaded.add(getBinding(field));
+
+		List<byte[]> values = redis.hmget(key, fields);
+		for(int i=0; i<loaded.size(); i++)
+			loaded.get(i).decode(bean, values.get(i));
+		return bean;
+	}
+
+	// ------------------------------------------------------------------------
+	// Inner ops
+	// ------------------------------------------------------------------------
+	private Binding getBinding (String field) {
+		Binding binding = bindings.get(field);
+		if(null == binding)
+			throw new IllegalArgumentException ("field => ["+field+"] is not a field of " + type.getName());
+		return binding;
+	}
+
+	private T newInstance () {
+		try {
+			Constructor<T> constructor = type.getDeclaredConstructor();
+			constructor.setAccessible(true);
+			return constructor.newInstance();
+		}
+		catch (Exception e) {
+			throw new ClientRuntimeException("Failed to instantiate " + type.getName(), e);
+		}
+	}
+
+	/** @return the boxed type of a primitive type, or the type */
+	private static Class<?> boxed (Class<?> type) {
+		if(!type.isPrimitive()) return type;
+		if(type == int.class) return Integer.class;
+		if(type == long.class) return Long.class;
+		if(type == short.class) return Short.class;
+		if(type == byte.class) return Byte.class;
+		if(type == double.class) return Double.class;
+		if(type == float.class) return Float.class;
+		if(type == boolean.class) return Boolean.class;
+		return Character.class;
+	}
+
+	/** @return the default codec for the type, or null if none */
+	private static Codec<?> defaultCodec (Class<?> type) {
+		Class<?> boxed = boxed(type);
+		if(boxed == String.class) return STRING_CODEC;
+		if(boxed == byte[].class) return BYTES_CODEC;
+		if(Number.class.isAssignableFrom(boxed) || boxed == Boolean.class || boxed == Character.class) {
+			ValueCodec codec = new ValueCodec(boxed);
+			return codec.isSupported() ? codec : SERIALIZABLE_CODEC;
+		}
+		if(boxed.isEnum()) return enumCodec(boxed);
+		if(Serializable.class.isAssignableFrom(boxed)) return SERIALIZABLE_CODEC;
+		return null;
+	}
+	
+	/** @return the codec of the enum type */
+	@SuppressWarnings("unchecked")
+	private static <E extends Enum<E>> Codec<E> enumCodec (Class<?> type) {
+		return new EnumCodec<E>((Class<E>) type);
+	}
+
+	// ------------------------------------------------------------------------
+	// Inner types
+	// ------------------------------------------------------------------------
+	/** a bean field and its codec */
+	private final class Binding {
+		final Field field;
+		Codec<?> codec;
+		Binding (Field field, Codec<?> codec) {
+			this.field = field;
+			this.codec = codec;
+		}
+		@SuppressWarnings("unchecked")
+		private Codec<Object> codec () {
+			if(null == codec)
+				throw new IllegalArgumentException ("no codec for field => ["+field.getName()+"] of type " + field.getType().getName());
+			return (Codec<Object>) codec;
+		}
+		/** @return the encoded value of the field, or null if the field is null */
+		byte[] encode (T bean) {
+			Codec<Object> codec = codec();
+			Object value;
+			try {
+				value = field.get(bean);
+			}
+			catch (IllegalAccessException e) {
+				throw new ClientRuntimeException("Failed to get field " + field.getName(), e);
+			}
+			return null != value ? codec.encode(value) : null;
+		}
+		/** sets the field to the decoded value -- primitive fields are left as is if value is null */
+		void decode (T bean, byte[] value) {
+			Codec<Object> codec = codec();
+			if(null == value && field.getType().isPrimitive()) return;
+			try {
+				field.set(bean, null != value ? codec.decode(value) : null);
+			}
+			catch (IllegalAccessException e) {
+				throw new ClientRuntimeException("Failed to set field " + field.getName(), e);
+			}
+		}
+	}
+
+	private static final Codec<String> STRING_CODEC = new Codec<String>() {
+		public String decode (byte[] bytes) { return DefaultCodec.toStr(bytes); }
+		public byte[] encode (String value) { return DefaultCodec.encode(value); }
+		public boolean supports (Class<?> type) { return type == String.class; }
+	};
+
+	private static final Codec<byte[]> BYTES_CODEC = new Codec<byte[]>() {
+		public byte[] decode (byte[] bytes) { return bytes; }
+		public byte[] encode (byte[] value) { return value; }
+		public boolean supports (Class<?> type) { return type == byte[].class; }
+	};
+
+	private static final Codec<Serializable> SERIALIZABLE_CODEC = new Codec<Serializable>() {
+		public Serializable decode (byte[] bytes) { return DefaultCodec.decode(bytes); }
+		public byte[] encode (Serializable value) { return DefaultCodec.encode(value); }
+		public boolean supports (Class<?> type) { return Serializable.class.isAssignableFrom(type); }
+	};
+
+	/** numbers, booleans, and characters -- as their string representation */
+	private static final class ValueCodec implements Codec<Object> {
+		private final Class<?> type;
+		ValueCodec (Class<?> type) { this.type = type; }
+		boolean isSupported () {
+			return type == Integer.class || type == Long.class || type == Short.class || type == Byte.class
+				|| type == Double.class || type == Float.class || type == Boolean.class || type == Character.class;
+		}
+		public Object decode (byte[] bytes) {
+			String s = DefaultCodec.toStr(bytes);
+			if(type == Integer.class) return Integer.valueOf(s);
+			if(type == Long.class) return Long.valueOf(s);
+			if(type == Short.class) return Short.valueOf(s);
+			if(type == Byte.class) return Byte.valueOf(s);
+			if(type == Double.class) return Double.valueOf(s);
+			if(type == Float.class) return Float.valueOf(s);
+			if(type == Boolean.class) return Boolean.valueOf(s);
+			if(s.length() != 1) throw new IllegalArgumentException ("invalid character value => ["+s+"]");
+			return s.charAt(0);
+		}
+		public byte[] encode (Object value) { return DefaultCodec.encode(String.valueOf(value)); }
+		public boolean supports (Class<?> type) { return this.type == type; }
+	}
+
+	private static final class EnumCodec<E extends Enum<E>> implements Codec<E> {
+		private final Class<E> type;
+		EnumCodec (Class<E> type) { this.type = type; }
+		public E decode (byte[] bytes) { return Enum.valueOf(type, DefaultCodec.toStr(bytes)); }
+		public byte[] encode (E value) { return DefaultCodec.encode(value.name()); }
+		public boolean supports (Class<?> type) { return this.type == type; }
+	}
+}
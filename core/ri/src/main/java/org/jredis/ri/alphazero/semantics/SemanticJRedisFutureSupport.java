@@ -0,0 +1,385 @@
+/*
+ *   Copyright 2009 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+
+package org.jredis.ri.alphazero.semantics;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.jredis.ClientRuntimeException;
+import org.jredis.Codec;
+import org.jredis.JRedisFuture;
+import org.jredis.RedisType;
+import org.jredis.protocol.ResponseStatus;
+import org.jredis.semantics.BasicCodecManager;
+import org.jredis.semantics.CodecManager;
+import org.jredis.semantics.SemanticJRedisFuture;
+import org.jredis.semantics.SemanticSort;
+
+/**
+ * A {@link SemanticJRedisFuture} over a {@link JRedisFuture}, (en/de)coding the values of type <code>T</code>
+ * with the {@link Codec} registered for the type.  As with {@link SemanticJRedisSupport}, the codec is looked 
+ * up on each request (and a missing codec is raised on the request), and list results are {@link DecodedList}s.
+ * <p>
+ * Results are decoded on {@link Future#get()}, on the caller's thread, and not by the response handler of the
+ * underlying pipeline.
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, May 20, 2010
+ * @since   alpha.0
+ * 
+ */
+
+public class SemanticJRedisFutureSupport<T> implements SemanticJRedisFuture<T> {
+	// ------------------------------------------------------------------------
+	// Properties
+	// ------------------------------------------------------------------------
+	/** the underlying client */
+	private final JRedisFuture		redis;
+	
+	/** the semantic type */
+	private final Class<T>			type;
+	
+	private final CodecManager		codecManager;
+	
+	// ------------------------------------------------------------------------
+	// Constructor(s)
+	// ------------------------------------------------------------------------
+	/**
+	 * Uses a {@link BasicCodecManager}.  If the type is {@link String}, a {@link DefaultStringCodec} 
+	 * is registered.
+	 * @param redis
+	 * @param type
+	 */
+	@SuppressWarnings("unchecked")
+	public SemanticJRedisFutureSupport (JRedisFuture redis, Class<T> type) {
+		this(redis, type, new BasicCodecManager());
+		if(type.equals(String.class))
+			codecManager.register((Codec<T>) new DefaultStringCodec(), type);
+	}
+	
+	/**
+	 * @param redis
+	 * @param type
+	 * @param codecManager
+	 */
+	public SemanticJRedisFutureSupport (JRedisFuture redis, Class<T> type, CodecManager codecManager) {
+		if(null == redis) throw new IllegalArgumentException("null redis");
+		if(null == type) throw new IllegalArgumentException("null type");
+		if(null == codecManager) throw new IllegalArgumentException("null codecManager");
+		this.redis = redis;
+		this.type = type;
+		this.codecManager = codecManager;
+	}
+	
+	// ------------------------------------------------------------------------
+	// Inner ops
+	// ------------------------------------------------------------------------
+	/** @return the codec of the semantic type */
+	private final Codec<T> codec () throws ClientRuntimeException {
+		return SemanticSortSupport.codec(codecManager, type);
+	}
+	
+	private final byte[] encode (T value) throws ClientRuntimeException {
+		if(null == value) throw new IllegalArgumentException("null value");
+		return codec().encode(value);
+	}
+	
+	private final Future<T> decode (Future<byte[]> future) throws ClientRuntimeException {
+		return new DecodedValue<T>(future, codec());
+	}
+	
+	private final Future<List<T>> decodeList (Future<List<byte[]>> future) throws ClientRuntimeException {
+		return DecodedList.decode(future, codec());
+	}
+	
+	// ------------------------------------------------------------------------
+	// Interface: CodecManager
+	// ------------------------------------------------------------------------
+	/* (non-Javadoc) @see org.jredis.semantics.CodecManager#getCodec(java.lang.Class) */
+//	@Override
+	public <C> Codec<C> getCodec (Class<C> type) {
+		return codecManager.getCodec(type);
+	}
+	
+	/* (non-Javadoc) @see org.jredis.semantics.CodecManager#register(org.jredis.Codec, java.lang.Class) */
+//	@Override
+	public <C> boolean register (Codec<C> code, Class<C> type) {
+		return codecManager.register(code, type);
+	}
+	
+	// ------------------------------------------------------------------------
+	// Interface: SemanticJRedisFuture
+	// ------------------------------------------------------------------------
+	
+//	@Override
+	public Future<ResponseStatus> ping () {
+		return redis.ping();
+	}
+	
+//	@Override
+	public Future<ResponseStatus> quit () {
+		return redis.quit();
+	}
+	
+//	@Override
+	public Future<ResponseStatus> set (String key, T value) {
+		return redis.set(key, encode(value));
+	}
+	
+//	@Override
+	public Future<Boolean> setnx (String key, T value) {
+		return redis.setnx(key, encode(value));
+	}
+	
+//	@Override
+	public Future<T> get (String key) {
+		return decode(redis.get(key));
+	}
+	
+//	@Override
+	public Future<List<T>> mget (String key, String... moreKeys) {
+		String[] keys = new String[1 + moreKeys.length];
+		keys[0] = key;
+		System.arraycopy(moreKeys, 0, keys, 1, moreKeys.length);
+		return decodeList(redis.mget(keys));
+	}
+	
+//	@Override
+	public Future<Long> incr (String key) {
+		return redis.incr(key);
+	}
+	
+//	@Override
+	public Future<Long> incrby (String key, int delta) {
+		return redis.incrby(key, delta);
+	}
+	
+//	@Override
+	public Future<Long> decr (String key) {
+		return redis.decr(key);
+	}
+	
+//	@Override
+	public Future<Long> decrby (String key, int delta) {
+		return redis.decrby(key, delta);
+	}
+	
+//	@Override
+	public Future<Boolean> exists (String key) {
+		return redis.exists(key);
+	}
+	
+//	@Override
+	public Future<Long> del (String key) {
+		return redis.del(key);
+	}
+	
+//	@Override
+	public Future<RedisType> type (String key) {
+		return redis.type(key);
+	}
+	
+//	@Override
+	public Future<List<String>> keys () {
+		return redis.keys();
+	}
+	
+//	@Override
+	public Future<List<String>> keys (String pattern) {
+		return redis.keys(pattern);
+	}
+	
+//	@Override
+	public Future<String> randomkey () {
+		return redis.randomkey();
+	}
+	
+//	@Override
+	public Future<ResponseStatus> rename (String oldkey, String newkey) {
+		return redis.rename(oldkey, newkey);
+	}
+	
+//	@Override
+	public Future<Boolean> renamenx (String oldkey, String brandnewkey) {
+		return redis.renamenx(oldkey, brandnewkey);
+	}
+	
+//	@Override
+	public Future<Long> dbsize () {
+		return redis.dbsize();
+	}
+	
+//	@Override
+	public Future<Boolean> expire (String key, int ttlseconds) {
+		return redis.expire(key, ttlseconds);
+	}
+	
+//	@Override
+	public Future<ResponseStatus> rpush (String listkey, T value) {
+		return redis.rpush(listkey, encode(value));
+	}
+	
+//	@Override
+	public Future<ResponseStatus> lpush (String listkey, T value) {
+		return redis.lpush(listkey, encode(value));
+	}
+	
+//	@Override
+	public Future<ResponseStatus> lset (String key, long index, T value) {
+		return redis.lset(key, index, encode(value));
+	}
+	
+//	@Override
+	public Future<Long> lrem (String listKey, T value, int count) {
+		return redis.lrem(listKey, encode(value), count);
+	}
+	
+//	@Override
+	public Future<Long> llen (String listkey) {
+		return redis.llen(listkey);
+	}
+	
+//	@Override
+	public Future<List<T>> lrange (String listkey, long from, long to) {
+		return decodeList(redis.lrange(listkey, from, to));
+	}
+	
+//	@Override
+	public Future<ResponseStatus> ltrim (String listkey, long keepFrom, long keepTo) {
+		return redis.ltrim(listkey, keepFrom, keepTo);
+	}
+	
+//	@Override
+	public Future<T> lindex (String listkey, long index) {
+		return decode(redis.lindex(listkey, index));
+	}
+	
+//	@Override
+	public Future<T> lpop (String listKey) {
+		return decode(redis.lpop(listKey));
+	}
+	
+//	@Override
+	public Future<T> rpop (String listKey) {
+		return decode(redis.rpop(listKey));
+	}
+	
+//	@Override
+	public Future<Boolean> sadd (String setkey, T member) {
+		return redis.sadd(setkey, encode(member));
+	}
+	
+//	@Override
+	public Future<Boolean> srem (String setKey, T member) {
+		return redis.srem(setKey, encode(member));
+	}
+	
+//	@Override
+	public Future<Boolean> sismember (String setKey, T member) {
+		return redis.sismember(setKey, encode(member));
+	}
+	
+//	@Override
+	public Future<Long> scard (String setKey) {
+		return redis.scard(setKey);
+	}
+	
+//	@Override
+	public Future<List<T>> sinter (String set1, String... sets) {
+		return decodeList(redis.sinter(set1, sets));
+	}
+	
+//	@Override
+	public Future<ResponseStatus> sinterstore (String destSetKey, String... sets) {
+		return redis.sinterstore(destSetKey, sets);
+	}
+	
+//	@Override
+	public Future<List<T>> smembers (String setkey) {
+		return decodeList(redis.smembers(setkey));
+	}
+	
+//	@Override
+	public Future<ResponseStatus> flushdb () {
+		return redis.flushdb();
+	}
+	
+//	@Override
+	public Future<ResponseStatus> flushall () {
+		return redis.flushall();
+	}
+	
+//	@Override
+	public Future<Boolean> move (String key, int dbIndex) {
+		return redis.move(key, dbIndex);
+	}
+	
+//	@Override
+	public SemanticSort<T> sort (String key) {
+		return new SemanticSortSupport<T>(redis.sort(key), codecManager, type);
+	}
+	
+//	@Override
+	public Future<ResponseStatus> save () {
+		return redis.save();
+	}
+	
+//	@Override
+	public Future<ResponseStatus> bgsave () {
+		return redis.bgsave();
+	}
+	
+//	@Override
+	public Future<Long> lastsave () {
+		return redis.lastsave();
+	}
+	
+//	@Override
+	public Future<Map<String, String>> info () {
+		return redis.info();
+	}
+	
+	// ------------------------------------------------------------------------
+	// Inner Types
+	// ------------------------------------------------------------------------
+	/** the future value, decoded on get -- nil (null) values are null */
+	private static final class DecodedValue<T> implements Future<T> {
+		private final Future<byte[]>	future;
+		private final Codec<T>			codec;
+		
+		DecodedValue (Future<byte[]> future, Codec<T> codec) {
+			this.future = future;
+			this.codec = codec;
+		}
+		public boolean cancel (boolean mayInterruptIfRunning) { return future.cancel(mayInterruptIfRunning); }
+		public boolean isCancelled () { return future.isCancelled(); }
+		public boolean isDone () { return future.isDone(); }
+		public T get () throws InterruptedException, ExecutionException {
+			return decode(future.get());
+		}
+		public T get (long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+			return decode(future.get(timeout, unit));
+		}
+		private T decode (byte[] bytes) {
+			return null != bytes ? codec.decode(bytes) : null;
+		}
+	}
+}
@@ -0,0 +1,359 @@
+/*
+ *   Copyright 2009 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.jredis.ri.alphazero.semantics;
+
+import java.util.List;
+import java.util.Map;
+import org.jredis.ClientRuntimeException;
+import org.jredis.Codec;
+import org.jredis.JRedis;
+import org.jredis.RedisException;
+import org.jredis.RedisType;
+import org.jredis.semantics.BasicCodecManager;
+import org.jredis.semantics.CodecManager;
+import org.jredis.semantics.SemanticJRedis;
+import org.jredis.semantics.SemanticSort;
+
+/**
+ * A {@link SemanticJRedis} over a {@link JRedis}, (en/de)coding the values of type <code>T</code>
+ * with the {@link Codec} registered for the type.  The codec is looked up on each request, so it
+ * may be registered after construction, but must be registered before the first request.
+ * <p>
+ * List results are {@link DecodedList}s: elements are decoded on first access, so that only the 
+ * elements of a (large) result that are actually used are decoded.
+ * <p>
+ * The thread-safety of the semantic client is that of its {@link JRedis}, but its list 
+ * results are not thread-safe.
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, May 20, 2010
+ * @since   alpha.0
+ * 
+ */
+
+public class SemanticJRedisSupport<T> implements SemanticJRedis<T> {
+	// ------------------------------------------------------------------------
+	// Properties
+	// ------------------------------------------------------------------------
+	/** the underlying client */
+	private final JRedis			redis;
+	
+	/** the semantic type */
+	private final Class<T>			type;
+	
+	private final CodecManager		codecManager;
+	
+	// ------------------------------------------------------------------------
+	// Constructor(s)
+	// ------------------------------------------------------------------------
+	/**
+	 * Uses a {@link BasicCodecManager}.  If the type is {@link String}, a {@link DefaultStringCodec} 
+	 * is registered.
+	 * @param redis
+	 * @param type
+	 */
+	@SuppressWarnings("unchecked")
+	public SemanticJRedisSupport (JRedis redis, Class<T> type) {
+		this(redis, type, new BasicCodecManager());
+		if(type.equals(String.class))
+			codecManager.register((Codec<T>) new DefaultStringCodec(), type);
+	}
+	
+	/**
+	 * @param redis
+	 * @param type
+	 * @param codecManager
+	 */
+	public SemanticJRedisSupport (JRedis redis, Class<T> type, CodecManager codecManager) {
+		if(null == redis) throw new IllegalArgumentException("null redis");
+		if(null == type) throw new IllegalArgumentException("null type");
+		if(null == codecManager) throw new IllegalArgumentException("null codecManager");
+		this.redis = redis;
+		this.type = type;
+		this.codecManager = codecManager;
+	}
+	
+	// ------------------------------------------------------------------------
+	// Inner ops
+	// ------------------------------------------------------------------------
+	/** @return the codec of the semantic type */
+	private final Codec<T> codec () throws ClientRuntimeException {
+		return SemanticSortSupport.codec(codecManager, type);
+	}
+	
+	private final byte[] encode (T value) throws ClientRuntimeException {
+		if(null == value) throw new IllegalArgumentException("null value");
+		return codec().encode(value);
+	}
+	
+	/** the codec is resolved even if bytes is null, so that a missing codec is raised regardless of the data */
+	private final T decode (byte[] bytes) throws ClientRuntimeException {
+		Codec<T> codec = codec();
+		return null != bytes ? codec.decode(bytes) : null;
+	}
+	
+	private final List<T> decode (List<byte[]> values) throws ClientRuntimeException {
+		return DecodedList.decoded(values, codec());
+	}
+	
+	// ------------------------------------------------------------------------
+	// Interface: CodecManager
+	// ------------------------------------------------------------------------
+	/* (non-Javadoc) @see org.jredis.semantics.CodecManager#getCodec(java.lang.Class) */
+//	@Override
+	public <C> Codec<C> getCodec (Class<C> type) {
+		return codecManager.getCodec(type);
+	}
+	
+	/* (non-Javadoc) @see org.jredis.semantics.CodecManager#register(org.jredis.Codec, java.lang.Class) */
+//	@Override
+	public <C> boolean register (Codec<C> code, Class<C> type) {
+		return codecManager.register(code, type);
+	}
+	
+	// ------------------------------------------------------------------------
+	// Interface: SemanticJRedis
+	// ------------------------------------------------------------------------
+	
+//	@Override
+	public JRedis ping () throws RedisException {
+		return redis.ping();
+	}
+	
+//	@Override
+	public void quit () {
+		redis.quit();
+	}
+	
+//	@Override
+	public void set (String key, T value) throws RedisException {
+		redis.set(key, encode(value));
+	}
+	
+//	@Override
+	public boolean setnx (String key, T value) throws RedisException {
+		return redis.setnx(key, encode(value));
+	}
+	
+//	@Override
+	public T get (String key) throws RedisException {
+		return decode(redis.get(key));
+	}
+	
+//	@Override
+	public List<T> mget (String key, String... moreKeys) throws RedisException {
+		String[] keys = new String[1 + moreKeys.length];
+		keys[0] = key;
+		System.arraycopy(moreKeys, 0, keys, 1, moreKeys.length);
+		return decode(redis.mget(keys));
+	}
+	
+//	@Override
+	public long incr (String key) throws RedisException {
+		return redis.incr(key);
+	}
+	
+//	@Override
+	public long incrby (String key, int delta) throws RedisException {
+		return redis.incrby(key, delta);
+	}
+	
+//	@Override
+	public long decr (String key) throws RedisException {
+		return redis.decr(key);
+	}
+	
+//	@Override
+	public long decrby (String key, int delta) throws RedisException {
+		return redis.decrby(key, delta);
+	}
+	
+//	@Override
+	public boolean exists (String key) throws RedisException {
+		return redis.exists(key);
+	}
+	
+//	@Override
+	public boolean del (String key) throws RedisException {
+		return redis.del(key) > 0;
+	}
+	
+//	@Override
+	public RedisType type (String key) throws RedisException {
+		return redis.type(key);
+	}
+	
+//	@Override
+	public List<String> keys () throws RedisException {
+		return redis.keys();
+	}
+	
+//	@Override
+	public List<String> keys (String pattern) throws RedisException {
+		return redis.keys(pattern);
+	}
+	
+//	@Override
+	public String randomkey () throws RedisException {
+		return redis.randomkey();
+	}
+	
+//	@Override
+	public void rename (String oldkey, String newkey) throws RedisException {
+		redis.rename(oldkey, newkey);
+	}
+	
+//	@Override
+	public boolean renamenx (String oldkey, String brandnewkey) throws RedisException {
+		return redis.renamenx(oldkey, brandnewkey);
+	}
+	
+//	@Override
+	public long dbsize () throws RedisException {
+		return redis.dbsize();
+	}
+	
+//	@Override
+	public boolean expire (String key, int ttlseconds) throws RedisException {
+		return redis.expire(key, ttlseconds);
+	}
+	
+//	@Override
+	public void rpush (String listkey, T value) throws RedisException {
+		redis.rpush(listkey, encode(value));
+	}
+	
+//	@Override
+	public void lpush (String listkey, T value) throws RedisException {
+		redis.lpush(listkey, encode(value));
+	}
+	
+//	@Override
+	public void lset (String key, int index, T value) throws RedisException {
+		redis.lset(key, index, encode(value));
+	}
+	
+//	@Override
+	public long lrem (String listKey, T value, int count) throws RedisException {
+		return redis.lrem(listKey, encode(value), count);
+	}
+	
+//	@Override
+	public long llen (String listkey) throws RedisException {
+		return redis.llen(listkey);
+	}
+	
+//	@Override
+	public List<T> lrange (String listkey, int from, int to) throws RedisException {
+		return decode(redis.lrange(listkey, from, to));
+	}
+	
+//	@Override
+	public void ltrim (String listkey, int keepFrom, int keepTo) throws RedisException {
+		redis.ltrim(listkey, keepFrom, keepTo);
+	}
+	
+//	@Override
+	public T lindex (String listkey, int index) throws RedisException {
+		return decode(redis.lindex(listkey, index));
+	}
+	
+//	@Override
+	public T lpop (String listKey) throws RedisException {
+		return decode(redis.lpop(listKey));
+	}
+	
+//	@Override
+	public T rpop (String listKey) throws RedisException {
+		return decode(redis.rpop(listKey));
+	}
+	
+//	@Override
+	public boolean sadd (String setkey, T member) throws RedisException {
+		return redis.sadd(setkey, encode(member));
+	}
+	
+//	@Override
+	public boolean srem (String setKey, T member) throws RedisException {
+		return redis.srem(setKey, encode(member));
+	}
+	
+//	@Override
+	public boolean sismember (String setKey, T member) throws RedisException {
+		return redis.sismember(setKey, encode(member));
+	}
+	
+//	@Override
+	public long scard (String setKey) throws RedisException {
+		return redis.scard(setKey);
+	}
+	
+//	@Override
+	public List<T> sinter (String set1, String... sets) throws RedisException {
+		return decode(redis.sinter(set1, sets));
+	}
+	
+//	@Override
+	public void sinterstore (String destSetKey, String... sets) throws RedisException {
+		redis.sinterstore(destSetKey, sets);
+	}
+	
+//	@Override
+	public List<T> smembers (String setkey) throws RedisException {
+		return decode(redis.smembers(setkey));
+	}
+	
+//	@Override
+	public JRedis flushdb () throws RedisException {
+		return redis.flushdb();
+	}
+	
+//	@Override
+	public JRedis flushall () throws RedisException {
+		return redis.flushall();
+	}
+	
+//	@Override
+	public boolean move (String key, int dbIndex) throws RedisException {
+		return redis.move(key, dbIndex);
+	}
+	
+//	@Override
+	public SemanticSort<T> sort (String key) {
+		return new SemanticSortSupport<T>(redis.sort(key), codecManager, type);
+	}
+	
+//	@Override
+	public void save () throws RedisException {
+		redis.save();
+	}
+	
+//	@Override
+	public void bgsave () throws RedisException {
+		redis.bgsave();
+	}
+	
+//	@Override
+	public long lastsave () throws RedisException {
+		return redis.lastsave();
+	}
+	
+//	@Override
+	public Map<String, String> info () throws RedisException {
+		return redis.info();
+	}
+}
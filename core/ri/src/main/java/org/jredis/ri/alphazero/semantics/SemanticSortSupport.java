@@ -0,0 +1,88 @@
+/*
+ *   Copyright 2009 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+
+package org.jredis.ri.alphazero.semantics;
+
+import java.util.List;
+import java.util.concurrent.Future;
+import org.jredis.ClientRuntimeException;
+import org.jredis.Codec;
+import org.jredis.RedisException;
+import org.jredis.Sort;
+import org.jredis.semantics.CodecManager;
+import org.jredis.semantics.SemanticSort;
+
+/**
+ * A {@link SemanticSort} over the {@link Sort} of the underlying client, decoding its results 
+ * with the codec registered for the semantic type.  Used by the semantic clients.
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, May 20, 2010
+ * @since   alpha.0
+ * 
+ */
+final class SemanticSortSupport<T> implements SemanticSort<T> {
+	
+	private final Sort 			sort;
+	private final CodecManager	codecManager;
+	private final Class<T>		type;
+	
+	SemanticSortSupport (Sort sort, CodecManager codecManager, Class<T> type) {
+		this.sort = sort;
+		this.codecManager = codecManager;
+		this.type = type;
+	}
+	
+	/**
+	 * @return the codec registered for the type
+	 * @throws ClientRuntimeException if no codec is registered for the type
+	 */
+	static <T> Codec<T> codec (CodecManager codecManager, Class<T> type) throws ClientRuntimeException {
+		Codec<T> codec = codecManager.getCodec(type);
+		if(null == codec)
+			throw new ClientRuntimeException ("no codec registered for " + type.getName());
+		return codec;
+	}
+	
+	public SemanticSort<T> BY (String pattern) { sort.BY(pattern); return this; }
+	public SemanticSort<T> GET (String pattern) { sort.GET(pattern); return this; }
+	public SemanticSort<T> LIMIT (long from, long count) { sort.LIMIT(from, count); return this; }
+	public SemanticSort<T> DESC () { sort.DESC(); return this; }
+	public SemanticSort<T> ALPHA () { sort.ALPHA(); return this; }
+	public SemanticSort<T> STORE (String destKey) { sort.STORE(destKey); return this; }
+	public SemanticSort<T> forKey (String key) { return new SemanticSortSupport<T>(sort.forKey(key), codecManager, type); }
+	
+	public List<T> execDecoded () throws IllegalStateException, RedisException {
+		Codec<T> codec = codec(codecManager, type);
+		return DecodedList.decoded(sort.exec(), codec);
+	}
+	public Future<List<T>> execDecodedAsynch () {
+		return DecodedList.decode(sort.execAsynch(), codec(codecManager, type));
+	}
+	public List<byte[]> exec () throws IllegalStateException, RedisException {
+		return sort.exec();
+	}
+	public Future<List<byte[]>> execAsynch () {
+		return sort.execAsynch();
+	}
+	public long execStore () throws IllegalStateException, RedisException {
+		return sort.execStore();
+	}
+	public Future<Long> execStoreAsynch () throws IllegalStateException {
+		return sort.execStoreAsynch();
+	}
+}
@@ -16,6 +16,8 @@
 
 package org.jredis.ri.alphazero.support;
 
+import java.io.IOException;
+import java.io.OutputStream;
 
 /**
  * Perhaps a silly hack, but proven to speed things up.
@@ -38,17 +40,31 @@ public class Convert {
 	private static final byte       BYTE_PLUS = (byte) '+';
 	private static final byte	    BYTE_ZERO = (byte) '0';
 	private static final byte	    BYTE_NINE = (byte) '9';
+	private static final byte	    BYTE_DOT = (byte) '.';
 
 	private static final int	MAX_POSITIVE_32_BIT_DIGITS	= 10;
 	private static final int	MAX_POSITIVE_64_BIT_DIGITS	= 19;
 	
+	/** 
+	 * significands up to this many digits are exactly representable as doubles 
+	 * (i.e. less than 2^53) 
+	 */
+	private static final int	MAX_EXACT_DOUBLE_DIGITS	= 15;
+	/** doubles with magnitudes less than this are written using long digits if integral */
+	private static final double	MAX_EXACT_DOUBLE_INTEGRAL = 9007199254740992d; // 2^53
+	/** exact powers of ten representable as doubles */
+	private static final double[] POW10 = {
+		1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 
+		1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+	};
+
 	/**
 	 * A few hundred Ks/classloader  Speed things up considerably in the long run as far
 	 * as int to byte[] conversions are concerned.  
 	 * Reduce the constant to adjust memory consumption as required.
 	 */
 	static {
-		for(int i=0; i<INT_P_65535; i++) Integer.toString(i).getBytes();
+		for(int i=0; i<=INT_P_65535; i++) i2b_65535[i] = digits(i);
 	}
 	
 	// ------------------------------------------------------------------------
@@ -60,9 +76,9 @@ public class Convert {
 	 * should be called getNumberBytes, or perhaps getHumanReadableBytes()  
 	 * Ex:  444 => "444".getBytes() => new byte[3]={52, 52, 52}
 	 * 
-	 * If representation is not in our cache or too high (larger than Convert#INT_P_65535 )
-	 * then it will return whatever we would get from {@link Convert#toBytes(int)} which is
-	 * using JDK libs for the same.  
+	 * If representation is not in our cache (negative or larger than Convert#INT_P_65535 )
+	 * then the digits are written directly into a new array of the exact size.  Note that the
+	 * cached arrays are shared and must not be modified.
 	 * 
 	 * The whole point here is to be faster since we need to convert numbers to the byte array 
 	 * of their string representation a lot in JRedis for the protocol and to cut out the 
@@ -74,42 +90,54 @@ public class Convert {
 	 * @return
 	 */ 
 	public static final byte[] toBytes(int i){
-		byte[] data = null;
-		boolean negative=false;
-		if(i >= INT_N_65535 && i <= INT_P_65535) {
-			if(i < 0) {
-				negative = true;
-				i = 0 - i;
-			}
-			if(null == i2b_65535[i]){
-				i2b_65535[i] = Integer.toString(i).getBytes();
-			}
-			data = i2b_65535[i];
-			if(negative) data = getSignedNumberBytes(data, negative);
-		}
-		else {
-			data = Integer.toString(i).getBytes();
-		}
-		if(null == data) throw new RuntimeException("null for i=" + i + " and cache is: " + i2b_65535[i]);
-		return data;
+		if(i >= 0 && i <= INT_P_65535) 
+			return i2b_65535[i];
+		return digits(i);
 	}
 	/**
-	 * Will delegate to {@link Convert#getBytes(int)} if the 'long' number is actually
-	 * within the range of our int cache, otherwise it will return the bytes using std
-	 * JDK mechanisms.
+	 * Will return the cached bytes if the 'long' number is actually within the
+	 * (non-negative) range of our int cache, otherwise it will write the digits 
+	 * directly into an exactly sized array.
 	 * @param lnum
 	 * @return
 	 */
 	public static final byte[] toBytes(long lnum){
-		if(lnum >= INT_N_65535 && lnum <= INT_P_65535) 
-			return toBytes((int)lnum);
-		
-		return Long.toString(lnum).getBytes();
+		if(lnum >= 0 && lnum <= INT_P_65535) 
+			return i2b_65535[(int) lnum];
+		return digits(lnum);
 	}
 	
+	/**
+	 * Integral doubles (which is what most sorted set scores are) within the exactly
+	 * representable range are written as long digits, e.g. 2.0 => "2", without 
+	 * going through {@link Double#toString(double)}.  Everything else uses the JDK representation,
+	 * which strtod on the server side understands.
+	 * @param dnum
+	 * @return
+	 */
 	public static final byte[] toBytes(double dnum){
+		if(dnum == (long) dnum && dnum > -MAX_EXACT_DOUBLE_INTEGRAL && dnum < MAX_EXACT_DOUBLE_INTEGRAL)
+			return toBytes((long) dnum);
 		return Double.toString(dnum).getBytes();
 	}
+	
+	/**
+	 * Writes the ASCII decimal digits of the number directly to the stream -- typically a 
+	 * request buffer -- without an intermediate {@link String}.
+	 * @param out
+	 * @param lnum
+	 * @throws IOException
+	 */
+	public static final void writeTo(OutputStream out, long lnum) throws IOException {
+		if(lnum >= 0 && lnum <= INT_P_65535) {
+			out.write(i2b_65535[(int) lnum]);
+			return;
+		}
+		byte[] buff = new byte[MAX_POSITIVE_64_BIT_DIGITS+1];
+		int off = getDigits(lnum, buff, buff.length);
+		out.write(buff, off, buff.length - off);
+	}
+	
 	/**
 	 * Converts the byte[]s of the ASCII representation of a decimal number to an int.  
 	 * 
@@ -210,37 +238,165 @@ public class Convert {
 	}
 	
 	/**
-	 * TODO: optimize.
-	 * @param potentiallySignedBytes
+	 * @param stringRepOfDoublePrecisionBytes
 	 * @return
 	 * @throws IllegalArgumentException
+	 * @see Convert#toDouble(byte[], int, int)
 	 */
 	public static final double toDouble (byte[] stringRepOfDoublePrecisionBytes) throws IllegalArgumentException
 	{
-		double dnum = 0;
 		if(null == stringRepOfDoublePrecisionBytes) throw new IllegalArgumentException ("null input");
+		return toDouble(stringRepOfDoublePrecisionBytes, 0, stringRepOfDoublePrecisionBytes.length);
+	}
+	
+	/**
+	 * Parses the ASCII representation of a decimal number, e.g. "-12.75" or "1.5e-3", directly 
+	 * from the buffer.  Numbers with up to {@link Convert#MAX_EXACT_DOUBLE_DIGITS} significant digits 
+	 * and a small decimal exponent (which covers anything Redis sends back for scores) are computed
+	 * exactly with a single multiplication or division.  "inf" and "nan" (as sent by Redis) are
+	 * also recognized.  Everything else is handed to {@link Double#parseDouble(String)}.
+	 *  
+	 * @param buff
+	 * @param offset
+	 * @param len
+	 * @return
+	 * @throws IllegalArgumentException if not a number
+	 */
+	public static final double toDouble (byte[] buff, int offset, int len) throws IllegalArgumentException
+	{
+		if(null == buff) throw new IllegalArgumentException ("null input");
+		if(len <= 0 || offset < 0 || offset + len > buff.length) throw new IllegalArgumentException ("invalid offset " + offset + " and len " + len + " for buffer length of " + buff.length);
+		
+		final int end = offset + len;
+		int p = offset;
+		boolean negative = false;
+		if(buff[p]==BYTE_MINUS || buff[p]==BYTE_PLUS){
+			negative = buff[p]==BYTE_MINUS;
+			p++;
+		}
+		if(p < end && (buff[p] | 0x20) == 'i') {
+			if(isIgnoreCase(buff, p, end, "inf") || isIgnoreCase(buff, p, end, "infinity"))
+				return negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+			throw new IllegalArgumentException("That's not a number!");
+		}
+		if(p < end && (buff[p] | 0x20) == 'n') {
+			if(isIgnoreCase(buff, p, end, "nan"))
+				return Double.NaN;
+			throw new IllegalArgumentException("That's not a number!");
+		}
+		
+		long significand = 0;
+		int  sigDigits = 0;
+		int  scale = 0;
+		int  digits = 0;
+		boolean exact = true;
+		boolean fraction = false;
+		for(; p < end; p++){
+			byte b = buff[p];
+			if(b >= BYTE_ZERO && b <= BYTE_NINE){
+				digits++;
+				if(significand == 0 && b == BYTE_ZERO) {
+					if(fraction) scale--;
+					continue;
+				}
+				if(++sigDigits > MAX_EXACT_DOUBLE_DIGITS) {
+					exact = false;
+					continue;
+				}
+				significand = significand*10 + b - BYTE_ZERO;
+				if(fraction) scale--;
+			}
+			else if(b == BYTE_DOT && !fraction) {
+				fraction = true;
+			}
+			else break;
+		}
+		if(digits == 0) throw new IllegalArgumentException("That's not a number!");
+		
+		if(p < end) {
+			if((buff[p] | 0x20) != 'e') throw new IllegalArgumentException("That's not a number!  byte value: " + buff[p]);
+			p++;
+			boolean negexp = false;
+			if(p < end && (buff[p]==BYTE_MINUS || buff[p]==BYTE_PLUS)){
+				negexp = buff[p]==BYTE_MINUS;
+				p++;
+			}
+			if(p == end) throw new IllegalArgumentException("That's not a number!");
+			int exp = 0;
+			for(; p < end; p++){
+				byte b = buff[p];
+				if(b < BYTE_ZERO || b > BYTE_NINE) throw new IllegalArgumentException("That's not a number!  byte value: " + b);
+				if(exp < 100000) exp = exp*10 + b - BYTE_ZERO;
+			}
+			scale += negexp ? -exp : exp;
+		}
+		
+		if(significand == 0 && exact)
+			return negative ? -0.0d : 0.0d;
+		
+		if(exact && scale >= -22 && scale <= 22) {
+			double dnum = significand;
+			if(scale < 0) dnum /= POW10[-scale];
+			else dnum *= POW10[scale];
+			return negative ? -dnum : dnum;
+		}
+		
+		// the (rare) slow path for precision beyond what the above can do exactly
 		try {
-			dnum = Double.parseDouble(new String(stringRepOfDoublePrecisionBytes));
+			return Double.parseDouble(new String(buff, offset, len));
 		}
-		catch (Exception e){
-			throw new IllegalArgumentException("", e);
+		catch (NumberFormatException e){
+			throw new IllegalArgumentException("That's not a number!", e);
 		}
-		return dnum;
 	}
 	
 	// ------------------------------------------------------------------------
 	// Inner ops
 	// ------------------------------------------------------------------------
 	/**
-	 * @param unsigned
-	 * @param negative
-	 * @return
+	 * @param lnum
+	 * @return the exactly sized array of the ASCII digits of the number
 	 */
-	private static final byte[] getSignedNumberBytes(byte[] unsigned, boolean negative){
-		int unsigned_length = unsigned.length;
-		byte[] data = new byte[unsigned_length+1];
-		data [0] = negative ? BYTE_MINUS : BYTE_PLUS;
-		System.arraycopy(unsigned, 0, data, 1, unsigned_length);
+	private static final byte[] digits(long lnum){
+		byte[] data = new byte[getDigitCount(lnum)];
+		getDigits(lnum, data, data.length);
 		return data;
 	}
+	
+	/**
+	 * @param lnum
+	 * @return number of bytes in the ASCII representation of the number, including the sign
+	 */
+	private static final int getDigitCount(long lnum){
+		int cnt = lnum < 0 ? 2 : 1;
+		for(long n = lnum / 10; n != 0; n /= 10) cnt++;
+		return cnt;
+	}
+	
+	/**
+	 * Writes the digits (and sign) of the number backwards, ending at (exclusive) index <code>end</code>.
+	 * @param lnum
+	 * @param buff
+	 * @param end
+	 * @return the index of the first byte written
+	 */
+	private static final int getDigits(long lnum, byte[] buff, int end){
+		int p = end;
+		// work with the negative to cover Long.MIN_VALUE
+		long n = lnum < 0 ? lnum : -lnum;
+		do {
+			long q = n / 10;
+			buff[--p] = (byte) (BYTE_ZERO + (q*10 - n));
+			n = q;
+		} while (n != 0);
+		if(lnum < 0) buff[--p] = BYTE_MINUS;
+		return p;
+	}
+	
+	private static final boolean isIgnoreCase(byte[] buff, int offset, int end, String s){
+		if(end - offset != s.length()) return false;
+		for(int i=0; i<s.length(); i++)
+			if((buff[offset+i] | 0x20) != s.charAt(i)) return false;
+		return true;
+	}
 }
@@ -125,6 +125,34 @@ public class DefaultCodec {
 		for(byte[] b : bytearray) list.add(Convert.toDouble(b));
 		return list;
 	}
+
+	/**
+	 * Unboxed alternative to {@link DefaultCodec#toLong(List)}: the values are parsed directly
+	 * from their bytes into the array.
+	 * @param bytearray the values -- nil (null) values are not numbers
+	 * @return the values as a long[]
+	 * @throws IllegalArgumentException if any value is not a number
+	 */
+	public static final long[] toLongArray(List<byte[]> bytearray){
+		long[] values = new long[bytearray.size()];
+		int i = 0;
+		for(byte[] b : bytearray) values[i++] = Convert.toLong(b);
+		return values;
+	}
+
+	/**
+	 * Unboxed alternative to {@link DefaultCodec#toDouble(List)}: the values are parsed directly
+	 * from their bytes into the array.
+	 * @param bytearray the values -- nil (null) values are not numbers
+	 * @return the values as a double[]
+	 * @throws IllegalArgumentException if any value is not a number
+	 */
+	public static final double[] toDoubleArray(List<byte[]> bytearray){
+		double[] values = new double[bytearray.size()];
+		int i = 0;
+		for(byte[] b : bytearray) values[i++] = Convert.toDouble(b);
+		return values;
+	}
 	/**
      * @param bs
      * @return
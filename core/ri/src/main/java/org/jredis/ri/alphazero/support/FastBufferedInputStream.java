@@ -137,6 +137,16 @@ public final class FastBufferedInputStream extends java.io.InputStream {
 		return len;
 	}
 	
+	/**
+	 * Blocks until data is available to read, without consuming it.  On a read timeout of the 
+	 * underlying stream the exception is raised and no data is lost, so the call can be retried.
+	 * @return false if the end of the underlying stream was reached
+	 * @throws IOException thrown by the underlying stream
+	 */
+	public boolean await () throws IOException {
+		return buffer.length - offset > 0 || getMoreBytes(1) != -1;
+	}
+	
 	/** 
 	 * @return the length of data available without making call
 	 * to the underlying stream.
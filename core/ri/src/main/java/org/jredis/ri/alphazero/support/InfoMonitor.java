@@ -0,0 +1,260 @@
+/*
+ *   Copyright 2009 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.jredis.ri.alphazero.support;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.jredis.ClientRuntimeException;
+import org.jredis.ProviderException;
+import org.jredis.RedisException;
+import org.jredis.RedisInfo;
+import org.jredis.connector.Connection;
+import org.jredis.connector.Connection.Modality;
+import org.jredis.protocol.BulkResponse;
+import org.jredis.protocol.Command;
+import org.jredis.protocol.Response;
+
+/**
+ * Polls the INFO of the server of a connection at a fixed interval, on a (daemon) thread of its own, 
+ * and publishes each {@link InfoSnapshot} and the one before it to its {@link Listener}s, so that 
+ * the rates of change of the server's counters -- commands processed, memory used, connections 
+ * received -- can be correlated with the latencies observed by the client in the same process.
+ * <p>
+ * The INFO requests are serviced by the connection like any other request.  For a cluster, 
+ * use a monitor per node, e.g. {@link InfoMonitor#monitor(List, long, TimeUnit)}.
+ * <p>
+ * Failed polls are logged, and the monitor keeps polling.  Listeners are called on the polling thread.
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, May 20, 2010
+ * @since   alpha.0
+ * 
+ */
+public class InfoMonitor {
+	
+	// ------------------------------------------------------------------------
+	// Inner Types
+	// ------------------------------------------------------------------------
+	/** Notified of each snapshot */
+	public interface Listener {
+		/**
+		 * @param monitor
+		 * @param current the snapshot just polled
+		 * @param previous the snapshot before it, or null if none
+		 */
+		public void onInfo (InfoMonitor monitor, InfoSnapshot current, InfoSnapshot previous);
+	}
+	
+	// ------------------------------------------------------------------------
+	// Properties
+	// ------------------------------------------------------------------------
+	private static final AtomicInteger monitorCnt = new AtomicInteger();
+	
+	/** connection to the monitored server */
+	private final Connection	conn;
+	
+	/** poll interval, in millisecs */
+	private final long			interval;
+	
+	private final List<Listener> listeners = new CopyOnWriteArrayList<Listener>();
+	
+	/** guarded by this */
+	private InfoSnapshot		latest;
+	/** guarded by this */
+	private InfoSnapshot		previous;
+	
+	/** the polling thread, if started -- guarded by this */
+	private Thread				poller;
+	
+	// ------------------------------------------------------------------------
+	// Constructor
+	// ------------------------------------------------------------------------
+	/**
+	 * The monitor does not poll until started.
+	 * @param conn connection to the monitored server
+	 * @param interval poll interval
+	 * @param unit of the interval
+	 */
+	public InfoMonitor (Connection conn, long interval, TimeUnit unit) {
+		if(null == conn) throw new IllegalArgumentException("null connection");
+		if(interval <= 0) throw new IllegalArgumentException("invalid interval => ["+interval+"]");
+		this.conn = conn;
+		this.interval = Math.max(unit.toMillis(interval), 1);
+	}
+	
+	// ------------------------------------------------------------------------
+	// Interface
+	// ------------------------------------------------------------------------
+	public void addListener (Listener listener) {
+		listeners.add(listener);
+	}
+	
+	public void removeListener (Listener listener) {
+		listeners.remove(listener);
+	}
+	
+	/**
+	 * Starts polling, if not already polling.
+	 * @return this monitor
+	 */
+	public synchronized InfoMonitor start () {
+		if(null != poller) return this;
+		poller = new Thread("info-monitor-" + monitorCnt.incrementAndGet()) {
+			public void run () {
+				while (!isInterrupted()) {
+					try {
+						poll();
+					}
+					catch (RedisException e) {
+						Log.problem("InfoMonitor: INFO error => " + e.getLocalizedMessage());
+					}
+					catch (ClientRuntimeException e) {
+						if(isInterrupted()) break;
+						Log.problem("InfoMonitor: INFO failed => " + e.getLocalizedMessage());
+					}
+					try {
+						sleep(interval);
+					}
+					catch (InterruptedException e) { break; }
+				}
+			}
+		};
+		poller.setDaemon(true);
+		poller.start();
+		return this;
+	}
+	
+	/** Stops polling.  The connection is not closed. */
+	public synchronized void stop () {
+		if(null == poller) return;
+		poller.interrupt();
+		poller = null;
+	}
+	
+	/**
+	 * Polls the server now, and notifies the listeners.
+	 * @return the snapshot
+	 * @throws RedisException
+	 * @throws ClientRuntimeException
+	 */
+	public InfoSnapshot poll () throws RedisException, ClientRuntimeException {
+		Response response = null;
+		if(conn.getModality() == Modality.Asynchronous) {
+			try {
+				response = conn.queueRequest(Command.INFO).get();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new ClientRuntimeException("interrupted while awaiting INFO", e);
+			}
+			catch (ExecutionException e) {
+				if(e.getCause() instanceof RedisException) throw (RedisException) e.getCause();
+				if(e.getCause() instanceof ClientRuntimeException) throw (ClientRuntimeException) e.getCause();
+				throw new ProviderException("INFO failed", e.getCause());
+			}
+		}
+		else {
+			response = conn.serviceRequest(Command.INFO);
+		}
+		
+		InfoSnapshot current;
+		try {
+			current = new InfoSnapshot(((BulkResponse) response).getBulkData(), System.nanoTime());
+		}
+		catch (ClassCastException e){
+			throw new ProviderException("Expecting a BulkResponse here => " + e.getLocalizedMessage(), e);
+		}
+		
+		InfoSnapshot before;
+		synchronized (this) {
+			before = latest;
+			previous = latest;
+			latest = current;
+		}
+		for(Listener listener : listeners) {
+			try {
+				listener.onInfo(this, current, before);
+			}
+			catch (RuntimeException e) {
+				Log.problem("InfoMonitor: listener failed => " + e.getLocalizedMessage());
+			}
+		}
+		return current;
+	}
+	
+	/** @return the most recent snapshot, or null if none */
+	public synchronized InfoSnapshot getLatest () {
+		return latest;
+	}
+	
+	/** @return the snapshot before the most recent, or null if none */
+	public synchronized InfoSnapshot getPrevious () {
+		return previous;
+	}
+	
+	/**
+	 * @param field an integral field
+	 * @return the per second rate of change of the field between the two most recent snapshots, 
+	 * or {@link Double#NaN} if there are fewer than two
+	 * @see InfoSnapshot#getRate(RedisInfo, InfoSnapshot)
+	 */
+	public double getRate (RedisInfo field) {
+		InfoSnapshot current, before;
+		synchronized (this) {
+			current = latest;
+			before = previous;
+		}
+		if(null == before) return Double.NaN;
+		return current.getRate(field, before);
+	}
+	
+	/** @return commands processed per second, per {@link InfoMonitor#getRate(RedisInfo)} */
+	public double getCommandRate () {
+		return getRate(RedisInfo.total_commands_processed);
+	}
+	
+	/** @return growth of used memory, in bytes per second, per {@link InfoMonitor#getRate(RedisInfo)} */
+	public double getMemoryGrowthRate () {
+		return getRate(RedisInfo.used_memory);
+	}
+	
+	/** @return connections received per second, per {@link InfoMonitor#getRate(RedisInfo)} */
+	public double getConnectionRate () {
+		return getRate(RedisInfo.total_connections_received);
+	}
+	
+	// ------------------------------------------------------------------------
+	// Static factories
+	// ------------------------------------------------------------------------
+	/**
+	 * Starts a monitor for each of the connections, e.g. those of each node of a cluster.
+	 * @param connections
+	 * @param interval poll interval
+	 * @param unit of the interval
+	 * @return the (started) monitors, in the order of the connections
+	 */
+	public static List<InfoMonitor> monitor (List<Connection> connections, long interval, TimeUnit unit) {
+		List<InfoMonitor> monitors = new ArrayList<InfoMonitor>(connections.size());
+		for(Connection conn : connections)
+			monitors.add(new InfoMonitor(conn, interval, unit).start());
+		return monitors;
+	}
+}
@@ -0,0 +1,184 @@
+/*
+ *   Copyright 2009 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.jredis.ri.alphazero.support;
+
+import java.util.Arrays;
+import org.jredis.RedisInfo;
+
+/**
+ * A typed view of an INFO reply, keyed by {@link RedisInfo}.  The reply is indexed once, without 
+ * intermediate Strings: numeric fields are parsed directly from the reply bytes when accessed, and
+ * Strings are only created for the (non-numeric) fields that are requested as such.  Lines that are 
+ * not <code>field:value</code> pairs of a {@link RedisInfo} field (e.g. section headers and the 
+ * per db keyspace lines) are ignored.
+ * <p>
+ * Snapshots are immutable.
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, May 20, 2010
+ * @since   alpha.0
+ * @see InfoMonitor
+ */
+public final class InfoSnapshot {
+	
+	// ------------------------------------------------------------------------
+	// Consts
+	// ------------------------------------------------------------------------
+	/** the field names, by {@link RedisInfo#ordinal()} */
+	private static final byte[][] FIELDS;
+	static {
+		RedisInfo[] fields = RedisInfo.values();
+		FIELDS = new byte[fields.length][];
+		for(RedisInfo field : fields)
+			FIELDS[field.ordinal()] = DefaultCodec.encode(field.name());
+	}
+	private static final double NANOS_PER_SEC = 1000000000.0;
+	
+	// ------------------------------------------------------------------------
+	// Properties
+	// ------------------------------------------------------------------------
+	/** the INFO reply */
+	private final byte[]	info;
+	
+	/** offset of the value of each field in the reply, by {@link RedisInfo#ordinal()} -- -1 if absent */
+	private final int[]		offsets;
+	
+	/** length of the value of each field, by {@link RedisInfo#ordinal()} */
+	private final int[]		lengths;
+	
+	/** {@link System#nanoTime()} of the reply */
+	private final long		timestamp;
+	
+	// ------------------------------------------------------------------------
+	// Constructor
+	// ------------------------------------------------------------------------
+	/**
+	 * @param info the bulk data of an INFO reply
+	 * @param timestamp {@link System#nanoTime()} of the reply
+	 */
+	public InfoSnapshot (byte[] info, long timestamp) {
+		if(null == info) throw new IllegalArgumentException("null info");
+		this.info = info;
+		this.timestamp = timestamp;
+		this.offsets = new int[FIELDS.length];
+		this.lengths = new int[FIELDS.length];
+		Arrays.fill(offsets, -1);
+		
+		int eol;
+		for(int p = 0; p < info.length; p = eol + 1) {
+			eol = p;
+			int colon = -1;
+			while(eol < info.length && info[eol] != '\r' && info[eol] != '\n') {
+				if(colon == -1 && info[eol] == ':') colon = eol;
+				eol++;
+			}
+			if(colon <= p || info[p] == '#') continue;
+			int field = fieldOf(p, colon - p);
+			if(field != -1) {
+				offsets[field] = colon + 1;
+				lengths[field] = eol - colon - 1;
+			}
+		}
+	}
+	
+	// ------------------------------------------------------------------------
+	// Interface
+	// ------------------------------------------------------------------------
+	/** @return {@link System#nanoTime()} of the reply */
+	public long getTimestamp () {
+		return timestamp;
+	}
+	
+	/** @return true if the reply has the field */
+	public boolean has (RedisInfo field) {
+		return offsets[field.ordinal()] != -1;
+	}
+	
+	/**
+	 * @param field
+	 * @return the value of the field, or null if the reply does not have it
+	 */
+	public String getString (RedisInfo field) {
+		int i = field.ordinal();
+		return offsets[i] != -1 ? new String(info, offsets[i], lengths[i]) : null;
+	}
+	
+	/**
+	 * @param field
+	 * @return the integral value of the field
+	 * @throws IllegalArgumentException if the reply does not have the field, or it is not an integer
+	 */
+	public long getLong (RedisInfo field) throws IllegalArgumentException {
+		int i = checkedOrdinal(field);
+		return Convert.toLong(info, offsets[i], lengths[i]);
+	}
+	
+	/**
+	 * @param field
+	 * @return the numeric value of the field
+	 * @throws IllegalArgumentException if the reply does not have the field, or it is not a number
+	 */
+	public double getDouble (RedisInfo field) throws IllegalArgumentException {
+		int i = checkedOrdinal(field);
+		return Convert.toDouble(info, offsets[i], lengths[i]);
+	}
+	
+	/**
+	 * @param field an integral field, e.g. {@link RedisInfo#used_memory}
+	 * @param since an earlier snapshot of the same server
+	 * @return the change of the value of the field since the earlier snapshot -- note that counters 
+	 * are reset when the server is restarted
+	 * @throws IllegalArgumentException if either reply does not have the field, or it is not an integer
+	 */
+	public long getDelta (RedisInfo field, InfoSnapshot since) throws IllegalArgumentException {
+		return getLong(field) - since.getLong(field);
+	}
+	
+	/**
+	 * @param field an integral field, e.g. {@link RedisInfo#total_commands_processed}
+	 * @param since an earlier snapshot of the same server
+	 * @return the per second rate of change of the field since the earlier snapshot, or {@link Double#NaN}
+	 * if the snapshots are simultaneous
+	 * @throws IllegalArgumentException if either reply does not have the field, or it is not an integer
+	 */
+	public double getRate (RedisInfo field, InfoSnapshot since) throws IllegalArgumentException {
+		long elapsed = timestamp - since.timestamp;
+		if(elapsed <= 0) return Double.NaN;
+		return getDelta(field, since) * NANOS_PER_SEC / elapsed;
+	}
+	
+	// ------------------------------------------------------------------------
+	// Inner ops
+	// ------------------------------------------------------------------------
+	/** @return the ordinal of the field named by the bytes, or -1 if none */
+	private int fieldOf (int offset, int len) {
+		for(int i = 0; i < FIELDS.length; i++) {
+			byte[] name = FIELDS[i];
+			if(name.length != len || name[0] != info[offset]) continue;
+			int j = 1;
+			while(j < len && name[j] == info[offset + j]) j++;
+			if(j == len) return i;
+		}
+		return -1;
+	}
+	
+	private int checkedOrdinal (RedisInfo field) throws IllegalArgumentException {
+		int i = field.ordinal();
+		if(offsets[i] == -1) throw new IllegalArgumentException ("INFO has no " + field.name());
+		return i;
+	}
+}
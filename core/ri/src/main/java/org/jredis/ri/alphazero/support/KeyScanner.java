@@ -0,0 +1,190 @@
+/*
+ *   Copyright 2009 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+
+package org.jredis.ri.alphazero.support;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import org.jredis.ClientRuntimeException;
+import org.jredis.ProviderException;
+import org.jredis.RedisException;
+import org.jredis.connector.Connection;
+import org.jredis.protocol.Command;
+import org.jredis.protocol.MultiBulkResponse;
+
+/**
+ * Lazy iteration of the keys of a db using the cursor based {@link Command#SCAN}.  Each request 
+ * returns a batch of (about) <code>count</code> keys, so unlike {@link Command#KEYS} the server is
+ * never blocked for the duration of a full scan of the key space, nor is the client required to 
+ * hold all the keys at once.  The next batch is requested when the current batch is exhausted.
+ * <p>
+ * Per SCAN semantics, all keys that exist for the duration of the iteration are returned, but a
+ * key may be returned more than once, and keys added or removed during the iteration may or may
+ * not be returned.  Keys are decoded as UTF-8.
+ * <p>
+ * Errors are raised by {@link KeyScanner#hasNext()} and {@link KeyScanner#next()} as {@link ClientRuntimeException}s -- 
+ * the cause of an error response is the {@link RedisException}.  Not thread-safe.
+ * 
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, May 21, 2010
+ * @since   alpha.0
+ * 
+ */
+public abstract class KeyScanner implements Iterator<String> {
+	
+	// ------------------------------------------------------------------------
+	// Consts
+	// ------------------------------------------------------------------------
+	/** default number of keys requested per SCAN */
+	public static final int DEFAULT_COUNT = 100;
+	
+	private static final byte[] START = {'0'};
+	private static final byte[] MATCH = "MATCH".getBytes();
+	private static final byte[] COUNT = "COUNT".getBytes();
+	
+	// ------------------------------------------------------------------------
+	// Properties
+	// ------------------------------------------------------------------------
+	/** null if all keys */
+	private final byte[] pattern;
+	private final byte[] count;
+	/** cursor of the next request -- null once the scan is complete */
+	private byte[] cursor = START;
+	/** keys of the current batch */
+	private Iterator<byte[]> batch = Collections.<byte[]>emptyList().iterator();
+
+	// ------------------------------------------------------------------------
+	// Constructor
+	// ------------------------------------------------------------------------
+	/**
+	 * @param pattern glob-style pattern of the keys, or null for all keys
+	 * @param count number of keys (hint) requested per SCAN
+	 */
+	protected KeyScanner (String pattern, int count) {
+		if(count < 1) throw new IllegalArgumentException ("invalid count => ["+count+"]");
+		this.pattern = null != pattern ? DefaultCodec.encode(pattern) : null;
+		this.count = Convert.toBytes(count);
+	}
+	
+	// ------------------------------------------------------------------------
+	// Extension point
+	// ------------------------------------------------------------------------
+	/**
+	 * Services the SCAN request.
+	 * @param args of the request
+	 * @return the multi-bulk data of the response: the next cursor followed by the keys
+	 * @throws RedisException
+	 */
+	protected abstract List<byte[]> scan (byte[]...args) throws RedisException;
+	
+	// ------------------------------------------------------------------------
+	// Interface: Iterator
+	// ------------------------------------------------------------------------
+	/* (non-Javadoc) @see java.util.Iterator#hasNext() */
+//	@Override
+	public boolean hasNext () throws ClientRuntimeException {
+		while(!batch.hasNext() && null != cursor)
+			nextBatch();
+		return batch.hasNext();
+	}
+
+	/* (non-Javadoc) @see java.util.Iterator#next() */
+//	@Override
+	public String next () throws ClientRuntimeException {
+		if(!hasNext()) throw new NoSuchElementException();
+		return DefaultCodec.toStr(batch.next());
+	}
+
+	/** Not supported. */
+//	@Override
+	public void remove () {
+		throw new UnsupportedOperationException("remove is not supported");
+	}
+	
+	// ------------------------------------------------------------------------
+	// Static factories
+	// ------------------------------------------------------------------------
+	/**
+	 * @param connection
+	 * @param pattern glob-style pattern of the keys, or null for all keys
+	 * @param count number of keys (hint) requested per SCAN
+	 * @return an iterator of the keys of the db of the connection
+	 */
+	public static KeyScanner scan (final Connection connection, String pattern, int count) {
+		return new KeyScanner(pattern, count) {
+			protected List<byte[]> scan (byte[]... args) throws RedisException {
+				try {
+					return ((MultiBulkResponse) connection.serviceRequest(Command.SCAN, args)).getMultiBulkData();
+				}
+				catch (ClassCastException e){
+					throw new ProviderException("Expecting a MultiBulkResponse here => " + e.getLocalizedMessage(), e);
+				}
+			}
+		};
+	}
+	
+	/**
+	 * Scans the dbs of the connections, in order, e.g. those of each node of a cluster.
+	 * @param connections
+	 * @param pattern glob-style pattern of the keys, or null for all keys
+	 * @param count number of keys (hint) requested per SCAN
+	 * @return an iterator of the keys of the dbs of the connections
+	 */
+	public static Iterator<String> scan (final List<Connection> connections, final String pattern, final int count) {
+		if(count < 1) throw new IllegalArgumentException ("invalid count => ["+count+"]");
+		return new Iterator<String>() {
+			private final Iterator<Connection> next = connections.iterator();
+			private Iterator<String> current = Collections.<String>emptyList().iterator();
+			public boolean hasNext () {
+				while(!current.hasNext() && next.hasNext())
+					current = scan(next.next(), pattern, count);
+				return current.hasNext();
+			}
+			public String next () {
+				if(!hasNext()) throw new NoSuchElementException();
+				return current.next();
+			}
+			public void remove () {
+				throw new UnsupportedOperationException("remove is not supported");
+			}
+		};
+	}
+	
+	// ------------------------------------------------------------------------
+	// Inner ops
+	// ------------------------------------------------------------------------
+	private void nextBatch () {
+		byte[][] args = null != pattern ? 
+				new byte[][]{cursor, MATCH, pattern, COUNT, count} :
+				new byte[][]{cursor, COUNT, count};
+		List<byte[]> data;
+		try {
+			data = scan(args);
+		}
+		catch (RedisException e) {
+			throw new ClientRuntimeException("SCAN failed => " + e.getLocalizedMessage(), e);
+		}
+		if(null == data || data.isEmpty())
+			throw new ProviderException("SCAN response has no cursor");
+		
+		cursor = data.get(0);
+		if(cursor.length == 1 && cursor[0] == '0') cursor = null;
+		batch = data.subList(1, data.size()).iterator();
+	}
+}
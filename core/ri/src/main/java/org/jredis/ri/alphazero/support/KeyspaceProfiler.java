@@ -0,0 +1,352 @@
+/*
+ *   Copyright 2009 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.jredis.ri.alphazero.support;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Formatter;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+import org.jredis.ClientRuntimeException;
+import org.jredis.JRedisFuture;
+import org.jredis.ObjectInfo;
+import org.jredis.ProviderException;
+import org.jredis.RedisException;
+import org.jredis.RedisType;
+
+/**
+ * Estimates the memory used by the groups of keys of a db -- e.g. "session:#" or "user:#:friends" --
+ * by sampling random keys, without ever listing the keys of the db.  Each sampled key is grouped per
+ * the (first) matching group rule, or else by its key with the runs of digits replaced by "#", and 
+ * sized by the serialized length reported by DEBUG OBJECT.  The totals of the db are extrapolated from 
+ * the samples and the DBSIZE, with 95% confidence bounds.
+ * <p>
+ * The samples are requested in batches over a {@link JRedisFuture} (e.g. a {@link org.jredis.ri.alphazero.JRedisPipeline}):
+ * a batch of RANDOMKEYs, followed by the TYPE, TTL and DEBUG OBJECT of each key, i.e. two round trips 
+ * per batch.  Keys are sampled with replacement.  Keys that are deleted while sampled are not counted, 
+ * and keys that can not be sized (e.g. the server does not report the serialized length or the DEBUG 
+ * command is disabled) are counted, but not sized.
+ * <p>
+ * Note that serialized lengths underestimate the memory used, as they exclude the overhead of the 
+ * server's data structures, so the sizes are best compared relative to each other.
+ * <p>
+ * Not thread-safe.
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, May 20, 2010
+ * @since   alpha.0
+ * 
+ */
+public class KeyspaceProfiler {
+	
+	// ------------------------------------------------------------------------
+	// Consts
+	// ------------------------------------------------------------------------
+	/** default number of keys sampled per batch */
+	public static final int DEFAULT_BATCH_SIZE = 100;
+	
+	/** z of the 95% confidence bounds */
+	private static final double Z_95 = 1.96;
+	
+	private static final Pattern DIGITS = Pattern.compile("[0-9]+");
+	
+	// ------------------------------------------------------------------------
+	// Properties
+	// ------------------------------------------------------------------------
+	private final JRedisFuture redis;
+	
+	/** group rules by name, in order */
+	private final Map<String, Pattern> groups = new LinkedHashMap<String, Pattern>();
+	
+	private int batchSize = DEFAULT_BATCH_SIZE;
+	
+	// ------------------------------------------------------------------------
+	// Constructor
+	// ------------------------------------------------------------------------
+	/**
+	 * @param redis a pipelined client of the profiled db
+	 */
+	public KeyspaceProfiler (JRedisFuture redis) {
+		if(null == redis) throw new IllegalArgumentException("null redis");
+		this.redis = redis;
+	}
+	
+	// ------------------------------------------------------------------------
+	// Interface
+	// ------------------------------------------------------------------------
+	/**
+	 * Adds a group rule.  Keys are grouped by the first rule that matches the (whole) key.
+	 * @param name of the group
+	 * @param regex pattern of the keys of the group
+	 * @return this profiler
+	 */
+	public KeyspaceProfiler addGroup (String name, String regex) {
+		if(null == name) throw new IllegalArgumentException("null name");
+		groups.put(name, Pattern.compile(regex));
+		return this;
+	}
+	
+	/**
+	 * @param batchSize number of keys sampled per batch
+	 * @return this profiler
+	 */
+	public KeyspaceProfiler setBatchSize (int batchSize) {
+		if(batchSize < 1) throw new IllegalArgumentException("invalid batchSize => ["+batchSize+"]");
+		this.batchSize = batchSize;
+		return this;
+	}
+	
+	/**
+	 * Samples the keys of the db.
+	 * @param sampleCnt number of keys sampled
+	 * @return the profile of the db
+	 * @throws RedisException
+	 * @throws ClientRuntimeException
+	 */
+	public Profile profile (int sampleCnt) throws RedisException, ClientRuntimeException {
+		if(sampleCnt < 1) throw new IllegalArgumentException("invalid sampleCnt => ["+sampleCnt+"]");
+		
+		long dbsize = get(redis.dbsize()).longValue();
+		Profile profile = new Profile(dbsize);
+		if(dbsize == 0) return profile;
+		
+		List<Future<String>> keys = new ArrayList<Future<String>>(batchSize);
+		for(int sampled = 0; sampled < sampleCnt; sampled += keys.size()){
+			keys.clear();
+			for(int i = sampled; i < sampleCnt && keys.size() < batchSize; i++)
+				keys.add(redis.randomkey());
+			
+			List<Sample> samples = new ArrayList<Sample>(keys.size());
+			for(Future<String> fKey : keys) {
+				String key = get(fKey);
+				if(null == key || key.length() == 0) continue;
+				samples.add(new Sample(key, redis.type(key), redis.ttl(key), redis.debug(key)));
+			}
+			for(Sample sample : samples) {
+				RedisType type = get(sample.type);
+				if(type == RedisType.NONE) continue;
+				long ttl = get(sample.ttl).longValue();
+				ObjectInfo info = null;
+				try {
+					info = get(sample.info);
+				}
+				catch (RedisException e) { /* not sized */ }
+				catch (ProviderException e) { /* not sized */ }
+				long size = null != info ? info.getSerializedLength() : -1;
+				String encoding = null != info ? info.getEncodingName() : "?";
+				profile.add(groupOf(sample.key), type.name() + "/" + encoding, size, ttl >= 0);
+			}
+		}
+		return profile;
+	}
+	
+	// ------------------------------------------------------------------------
+	// Inner ops
+	// ------------------------------------------------------------------------
+	/** @return the name of the group of the key */
+	String groupOf (String key) {
+		for(Map.Entry<String, Pattern> group : groups.entrySet())
+			if(group.getValue().matcher(key).matches()) return group.getKey();
+		return DIGITS.matcher(key).replaceAll("#");
+	}
+	
+	/** @return the result, raising the errors of the request */
+	private static <T> T get (Future<T> future) throws RedisException, ClientRuntimeException {
+		try {
+			return future.get();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ClientRuntimeException("interrupted while profiling", e);
+		}
+		catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if(cause instanceof RedisException) throw (RedisException) cause;
+			if(cause instanceof ClientRuntimeException) throw (ClientRuntimeException) cause;
+			throw new ProviderException("profiling request failed", cause);
+		}
+	}
+	
+	// ------------------------------------------------------------------------
+	// Inner Types
+	// ------------------------------------------------------------------------
+	/** the pending requests of a sampled key */
+	private static final class Sample {
+		final String key;
+		final Future<RedisType> type;
+		final Future<Long> ttl;
+		final Future<ObjectInfo> info;
+		Sample (String key, Future<RedisType> type, Future<Long> ttl, Future<ObjectInfo> info) {
+			this.key = key;
+			this.type = type;
+			this.ttl = ttl;
+			this.info = info;
+		}
+	}
+	
+	/**
+	 * The estimated key count and size of a group of keys (or of a type and encoding), extrapolated
+	 * from the samples.  Bounds are the half-widths of the 95% confidence intervals.
+	 */
+	public static final class Estimate {
+		private final String name;
+		private final int sampleCnt;
+		private final int volatileCnt;
+		private final double keyCount;
+		private final double keyCountBound;
+		private final double size;
+		private final double sizeBound;
+		
+		Estimate (String name, Tally tally, long dbsize, int samples, int sizedSamples) {
+			this.name = name;
+			this.sampleCnt = tally.cnt;
+			this.volatileCnt = tally.volatileCnt;
+			double p = (double) tally.cnt / samples;
+			this.keyCount = dbsize * p;
+			this.keyCountBound = Z_95 * dbsize * Math.sqrt(p * (1 - p) / samples);
+			if(sizedSamples > 0) {
+				double mean = tally.sum / sizedSamples;
+				this.size = dbsize * mean;
+				if(sizedSamples > 1) {
+					double variance = (tally.sumOfSquares / sizedSamples - mean * mean) * sizedSamples / (sizedSamples - 1);
+					this.sizeBound = Z_95 * dbsize * Math.sqrt(Math.max(variance, 0) / sizedSamples);
+				}
+				else this.sizeBound = Double.NaN;
+			}
+			else {
+				this.size = Double.NaN;
+				this.sizeBound = Double.NaN;
+			}
+		}
+		/** @return the name of the group, or the type/encoding, e.g. "list/ziplist" */
+		public String getName () { return name; }
+		/** @return the number of sampled keys of the group */
+		public int getSampleCount () { return sampleCnt; }
+		/** @return the fraction of the sampled keys of the group that have an expiry */
+		public double getVolatileRatio () { return sampleCnt > 0 ? (double) volatileCnt / sampleCnt : 0; }
+		/** @return the estimated number of keys of the group */
+		public double getKeyCount () { return keyCount; }
+		/** @return the bound of the estimated number of keys */
+		public double getKeyCountBound () { return keyCountBound; }
+		/** @return the estimated total (serialized) size of the group, in bytes, or {@link Double#NaN} if no keys were sized */
+		public double getSize () { return size; }
+		/** @return the bound of the estimated size, or {@link Double#NaN} if fewer than two keys were sized */
+		public double getSizeBound () { return sizeBound; }
+		
+		@Override
+		public String toString () {
+			return new Formatter().format("%s: keys %.0f (+/- %.0f) size %.0f (+/- %.0f) bytes, %d samples", 
+					name, keyCount, keyCountBound, size, sizeBound, sampleCnt).toString();
+		}
+	}
+	
+	/** running sums of the samples of a group */
+	private static final class Tally {
+		int cnt;
+		int volatileCnt;
+		double sum;
+		double sumOfSquares;
+		void add (long size, boolean isVolatile) {
+			cnt++;
+			if(isVolatile) volatileCnt++;
+			if(size >= 0) {
+				sum += size;
+				sumOfSquares += (double) size * size;
+			}
+		}
+	}
+	
+	/** The profile of a db: the estimates of its groups and of its types and encodings. */
+	public static final class Profile {
+		private final long dbsize;
+		private int sampleCnt = 0;
+		private int sizedCnt = 0;
+		private final Map<String, Tally> groups = new HashMap<String, Tally>();
+		private final Map<String, Tally> encodings = new HashMap<String, Tally>();
+		
+		Profile (long dbsize) {
+			this.dbsize = dbsize;
+		}
+		
+		void add (String group, String encoding, long size, boolean isVolatile) {
+			sampleCnt++;
+			if(size >= 0) sizedCnt++;
+			tally(groups, group).add(size, isVolatile);
+			tally(encodings, encoding).add(size, isVolatile);
+		}
+		
+		private static Tally tally (Map<String, Tally> tallies, String name) {
+			Tally tally = tallies.get(name);
+			if(null == tally) tallies.put(name, tally = new Tally());
+			return tally;
+		}
+		
+		/** @return the DBSIZE of the db */
+		public long getDbSize () { return dbsize; }
+		/** @return the number of (existing) keys sampled */
+		public int getSampleCount () { return sampleCnt; }
+		/** @return the number of keys sampled that could not be sized */
+		public int getUnsizedCount () { return sampleCnt - sizedCnt; }
+		
+		/** @return the estimates of the groups, largest first */
+		public List<Estimate> getGroups () { return estimates(groups); }
+		
+		/** @return the estimates of the type/encodings, e.g. "list/ziplist", largest first */
+		public List<Estimate> getEncodings () { return estimates(encodings); }
+		
+		/**
+		 * @param n
+		 * @return the (up to) n largest groups
+		 */
+		public List<Estimate> top (int n) {
+			List<Estimate> estimates = getGroups();
+			return estimates.subList(0, Math.min(n, estimates.size()));
+		}
+		
+		private List<Estimate> estimates (Map<String, Tally> tallies) {
+			List<Estimate> estimates = new ArrayList<Estimate>(tallies.size());
+			for(Map.Entry<String, Tally> e : tallies.entrySet())
+				estimates.add(new Estimate(e.getKey(), e.getValue(), dbsize, sampleCnt, sizedCnt));
+			Collections.sort(estimates, LARGEST_FIRST);
+			return estimates;
+		}
+		
+		@Override
+		public String toString () {
+			StringBuilder report = new StringBuilder();
+			report.append("dbsize: ").append(dbsize).append(" samples: ").append(sampleCnt).append(" unsized: ").append(getUnsizedCount());
+			for(Estimate estimate : getGroups())
+				report.append("\n  ").append(estimate);
+			return report.toString();
+		}
+	}
+	
+	/** by size, then by key count */
+	private static final Comparator<Estimate> LARGEST_FIRST = new Comparator<Estimate>() {
+		public int compare (Estimate e1, Estimate e2) {
+			int c = Double.compare(sizeOf(e2), sizeOf(e1));
+			return c != 0 ? c : Double.compare(e2.keyCount, e1.keyCount);
+		}
+		private double sizeOf (Estimate e) { return Double.isNaN(e.size) ? -1 : e.size; }
+	};
+}
@@ -0,0 +1,125 @@
+/*
+ *   Copyright 2009 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.jredis.ri.alphazero.support;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.jredis.ClientRuntimeException;
+
+/**
+ * Runs (blocking) tasks, such as establishing connections, in parallel on short lived 
+ * daemon threads.
+ * 
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, Apr 20, 2010
+ * @since   alpha.0
+ * 
+ */
+public final class Parallel {
+	
+	// ------------------------------------------------------------------------
+	// Consts
+	// ------------------------------------------------------------------------
+	/** max number of threads used per invocation */
+	public static final int MAX_THREADS = 16;
+	
+	// ------------------------------------------------------------------------
+	// Constructor
+	// ------------------------------------------------------------------------
+	private Parallel () {}
+	
+	// ------------------------------------------------------------------------
+	// Public API
+	// ------------------------------------------------------------------------
+	/**
+	 * Runs the tasks in parallel and waits for their completion.
+	 * @param <T>
+	 * @param name used for naming the threads
+	 * @param tasks
+	 * @return the results of the tasks, in order
+	 * @throws ClientRuntimeException if any of the tasks failed (with the first failure as is, if a 
+	 * {@link ClientRuntimeException}) or the calling thread was interrupted.
+	 */
+	public static <T> List<T> invokeAll (String name, List<Callable<T>> tasks) throws ClientRuntimeException {
+		List<T> results = new ArrayList<T>(tasks.size());
+		if(tasks.isEmpty()) return results;
+		
+		ExecutorService executor = newExecutor(name, tasks.size());
+		try {
+			for(Future<T> future : executor.invokeAll(tasks))
+				results.add(future.get());
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ClientRuntimeException("Interrupted while waiting for " + name + " tasks", e);
+		}
+		catch (ExecutionException e) {
+			if(e.getCause() instanceof ClientRuntimeException)
+				throw (ClientRuntimeException) e.getCause();
+			throw new ClientRuntimeException(name + " task failed", e.getCause());
+		}
+		finally {
+			executor.shutdownNow();
+		}
+		return results;
+	}
+	
+	/**
+	 * Runs the tasks in parallel in the background.  Failures are logged.
+	 * @param name used for naming the threads
+	 * @param tasks
+	 */
+	public static void execute (final String name, List<? extends Runnable> tasks) {
+		if(tasks.isEmpty()) return;
+		
+		ExecutorService executor = newExecutor(name, tasks.size());
+		for(final Runnable task : tasks) {
+			executor.execute(new Runnable() {
+				public void run () {
+					try {
+						task.run();
+					}
+					catch (RuntimeException e) {
+						Log.problem(name + " task failed: " + e.getMessage());
+					}
+				}
+			});
+		}
+		executor.shutdown();
+	}
+	
+	// ------------------------------------------------------------------------
+	// Inner ops
+	// ------------------------------------------------------------------------
+	private static ExecutorService newExecutor (final String name, int taskCnt) {
+		return Executors.newFixedThreadPool(Math.min(taskCnt, MAX_THREADS), new ThreadFactory() {
+			final AtomicInteger cnt = new AtomicInteger();
+			public Thread newThread (Runnable r) {
+				Thread t = new Thread(r, name + "-" + cnt.incrementAndGet());
+				t.setDaemon(true);
+				return t;
+			}
+		});
+	}
+}
@@ -0,0 +1,89 @@
+/*
+ *   Copyright 2009-2010 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.jredis.ri.alphazero.support;
+
+import java.util.concurrent.atomic.AtomicLong;
+import org.jredis.connector.RequestTrace;
+import org.jredis.connector.RequestTracer;
+import org.jredis.protocol.Command;
+
+/**
+ * Base for {@link RequestTracer}s that trace one of every <i>n</i> requests, where <i>n</i> is the
+ * (adjustable) sampling interval.  Sampling can be turned off, in which case requests are not traced.
+ * <p>
+ * The traces carry the context set by the caller on the issuing thread, if any, per 
+ * {@link SamplingRequestTracer#setContext(Object)}: 
+ * <p><code><pre>
+ * SamplingRequestTracer.setContext(requestId);
+ * try {
+ *     redis.get(key);
+ * }
+ * finally {
+ *     SamplingRequestTracer.setContext(null);
+ * }
+ * </pre></code>
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, May 20, 2010
+ * @since   alpha.0
+ * 
+ */
+public abstract class SamplingRequestTracer implements RequestTracer {
+	
+	/** context of the requests issued by the thread */
+	private static final ThreadLocal<Object> context = new ThreadLocal<Object>();
+	
+	/** requests issued */
+	private final AtomicLong	requestCnt = new AtomicLong();
+	
+	/** sampling interval -- 0 if sampling is off */
+	private volatile int		interval;
+	
+	/**
+	 * @param interval one of every interval requests is traced -- 1 traces all requests, and 0 none.
+	 */
+	protected SamplingRequestTracer (int interval) {
+		setInterval(interval);
+	}
+	
+	/**
+	 * Sets the context of the requests subsequently issued by the calling thread.
+	 * @param ctx the context, e.g. a correlation id, or null to clear it
+	 */
+	public static void setContext (Object ctx) {
+		if(ctx != null) context.set(ctx);
+		else context.remove();
+	}
+	
+	/** @return the sampling interval -- 0 if sampling is off */
+	public int getInterval () { return interval; }
+	
+	/** @param interval one of every interval requests is traced -- 1 traces all requests, and 0 none. */
+	public void setInterval (int interval) {
+		if(interval < 0) throw new IllegalArgumentException ("interval: " + interval);
+		this.interval = interval;
+	}
+	
+	/* (non-Javadoc) @see org.jredis.connector.RequestTracer#newTrace(org.jredis.protocol.Command) */
+//	@Override
+	public final RequestTrace newTrace (Command cmd) {
+		int n = interval;
+		if(n == 0 || (n > 1 && requestCnt.incrementAndGet() % n != 0))
+			return null;
+		return new RequestTrace(cmd, context.get());
+	}
+}
@@ -16,6 +16,7 @@
 
 package org.jredis.ri.alphazero.support;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Future;
 
@@ -24,7 +25,11 @@ import org.jredis.RedisException;
 import org.jredis.Sort;
 import org.jredis.protocol.Command;
 
-
+/**
+ * Compiles the sort specification into the (binary) arguments of the SORT request, in the 
+ * order expected by the protocol.  The specification is compiled once, on first execution or 
+ * after a clause has changed, and is shared by the sorts obtained via {@link Sort#forKey(String)}.
+ */
 public abstract class SortSupport implements Sort {
 	protected final String key;
 	protected final byte[] keyBytes;
@@ -33,39 +38,125 @@ public abstract class SortSupport implements Sort {
 		this.key = key;
 		this.keyBytes = validatedKeyBytes;
 	}
-	private static final String NO_OP_SPEC = "";
-	private String alphaSpec = NO_OP_SPEC;
-	private String sortSpec = NO_OP_SPEC;
-	private String getSpec = NO_OP_SPEC;
-	private String bySpec = NO_OP_SPEC;
-	private String limitSpec = NO_OP_SPEC;
 	
-	public Sort ALPHA() {  alphaSpec = String.format("%s ", Command.Options.ALPHA.name()); return this; }
-	public Sort DESC() { sortSpec = String.format("%s ", Command.Options.DESC.name()); return this;}
-	public Sort BY(String pattern) { bySpec = String.format("%s %s ", Command.Options.BY.name(), pattern); return this; }
-	public Sort GET(String pattern) { getSpec = String.format("%s %s ", Command.Options.GET.name(), pattern); return this; }
+	// ------------------------------------------------------------------------
+	// Specification
+	// ------------------------------------------------------------------------
+	private byte[] byPattern;
+	private byte[] getPattern;
+	private byte[] limitFrom;
+	private byte[] limitCount;
+	private boolean desc;
+	private boolean alpha;
+	private byte[] storeKeyBytes;
+	
+	/** compiled specification -- null if a clause has changed since last compiled */
+	private byte[][] spec;
+	
+	/** request args: key and the compiled specification */
+	private byte[][] args;
+	
+	public Sort ALPHA() { alpha = true; return changed(); }
+	public Sort DESC() { desc = true; return changed(); }
+	public Sort BY(String pattern) { byPattern = toBytes(pattern, "BY pattern"); return changed(); }
+	public Sort GET(String pattern) { getPattern = toBytes(pattern, "GET pattern"); return changed(); }
 	public Sort LIMIT(long from, long count) {
 		if(from < 0) throw new ClientRuntimeException("from in LIMIT clause: " + from);
-		if(count <= 0) throw new ClientRuntimeException("count in LIMIT clause: " + from);
-		limitSpec = String.format("%s %d %d ", Command.Options.LIMIT.name(), from, count);
-		return this;
+		if(count <= 0) throw new ClientRuntimeException("count in LIMIT clause: " + count);
+		limitFrom = Convert.toBytes(from);
+		limitCount = Convert.toBytes(count);
+		return changed();
 	}
-	private final byte[] getSortSpec() {
-		StringBuilder spec = new StringBuilder()
-			.append(bySpec)
-			.append(limitSpec)
-			.append(getSpec)
-			.append(sortSpec)
-			.append(alphaSpec);
-		return spec.toString().getBytes();
+	public Sort STORE(String destKey) { 
+		storeKeyBytes = getKeyBytes(destKey); 
+		return changed(); 
 	}
+	public Sort forKey(String key) {
+		SortSupport sort = newSort(key);
+		sort.byPattern = byPattern;
+		sort.getPattern = getPattern;
+		sort.limitFrom = limitFrom;
+		sort.limitCount = limitCount;
+		sort.desc = desc;
+		sort.alpha = alpha;
+		sort.storeKeyBytes = storeKeyBytes;
+		sort.spec = compiledSpec();
+		return sort;
+	}
+	
+	// ------------------------------------------------------------------------
+	// Execution
+	// ------------------------------------------------------------------------
 	public List<byte[]> exec() throws IllegalStateException, RedisException {
-		System.out.format("sort spec: [%S]\n", new String(getSortSpec()));
-		return execSort (keyBytes, getSortSpec());
+		return execSort (requestArgs(false));
 	}
 	public Future<List<byte[]>> execAsynch() {
-		return execAsynchSort (keyBytes, getSortSpec());
+		return execAsynchSort (requestArgs(false));
+	}
+	public long execStore() throws IllegalStateException, RedisException {
+		return execSortStore (requestArgs(true));
+	}
+	public Future<Long> execStoreAsynch() {
+		return execAsynchSortStore (requestArgs(true));
+	}
+	
+	/**
+	 * @param args key and the sort specification -- {@link Command#SORT} args
+	 */
+	protected abstract List<byte[]> execSort (byte[][] args) throws IllegalStateException, RedisException;
+	protected abstract Future<List<byte[]>> execAsynchSort (byte[][] args);
+	/**
+	 * @param args key and the sort specification, including STORE -- {@link Command#SORT$STORE} args
+	 */
+	protected abstract long execSortStore (byte[][] args) throws IllegalStateException, RedisException;
+	protected abstract Future<Long> execAsynchSortStore (byte[][] args);
+	
+	/** @return a new (unspecified) sort of the key */
+	protected abstract SortSupport newSort (String key);
+	
+	/** @return the validated key bytes -- for the STORE clause */
+	protected abstract byte[] getKeyBytes (String key) throws IllegalArgumentException;
+	
+	// ------------------------------------------------------------------------
+	// Inner ops
+	// ------------------------------------------------------------------------
+	private Sort changed () {
+		spec = null;
+		args = null;
+		return this;
+	}
+	
+	private byte[][] requestArgs (boolean store) throws IllegalStateException {
+		if(store != (null != storeKeyBytes))
+			throw new IllegalStateException(store ? "STORE clause not specified -- use exec()" : "STORE clause specified -- use execStore()");
+		
+		if(null == args) {
+			byte[][] compiled = compiledSpec();
+			byte[][] request = new byte[compiled.length + 1][];
+			request[0] = keyBytes;
+			System.arraycopy(compiled, 0, request, 1, compiled.length);
+			args = request;
+		}
+		return args;
+	}
+	
+	/** @return the specification, per protocol: [BY pattern] [LIMIT from count] [GET pattern] [DESC] [ALPHA] [STORE dstkey] */
+	private byte[][] compiledSpec () {
+		if(null == spec) {
+			List<byte[]> compiled = new ArrayList<byte[]>(11);
+			if(null != byPattern) { compiled.add(Command.Options.BY.bytes); compiled.add(byPattern); }
+			if(null != limitFrom) { compiled.add(Command.Options.LIMIT.bytes); compiled.add(limitFrom); compiled.add(limitCount); }
+			if(null != getPattern) { compiled.add(Command.Options.GET.bytes); compiled.add(getPattern); }
+			if(desc) compiled.add(Command.Options.DESC.bytes);
+			if(alpha) compiled.add(Command.Options.ALPHA.bytes);
+			if(null != storeKeyBytes) { compiled.add(Command.Options.STORE.bytes); compiled.add(storeKeyBytes); }
+			spec = compiled.toArray(new byte[compiled.size()][]);
+		}
+		return spec;
+	}
+	
+	private static byte[] toBytes (String pattern, String what) {
+		Assert.notNull(pattern, what, ClientRuntimeException.class);
+		return pattern.getBytes();
 	}
-	protected abstract List<byte[]> execSort (byte[] keyBytes, byte[] sortSpecBytes) throws IllegalStateException, RedisException;
-	protected abstract Future<List<byte[]>> execAsynchSort (byte[] keyBytes, byte[] sortSpecBytes);
-}
\ No newline at end of file
+}
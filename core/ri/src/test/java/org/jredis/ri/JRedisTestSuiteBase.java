@@ -17,13 +17,16 @@
 package org.jredis.ri;
 
 import static org.testng.Assert.fail;
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Random;
 import java.util.Set;
+import org.jredis.fake.FakeRedisServer;
 import org.jredis.ri.alphazero.support.Log;
+import org.testng.annotations.AfterSuite;
 import org.testng.annotations.BeforeSuite;
 import org.testng.annotations.Parameters;
 
@@ -37,6 +40,10 @@ import org.testng.annotations.Parameters;
  * values in master pom as required.
  * <p>
  * [Note: as of now, these are defined in the master pom.]
+ * <p>
+ * If the system property <code>jredis.test.fake</code> is <code>true</code>, the suite
+ * is run against an in-process {@link FakeRedisServer} listening on the test port, so
+ * no redis server is required.
  * 
  * @author  Joubin Houshyar (alphazero@sensesay.net)
  * @version alpha.0, Apr 17, 2009
@@ -69,6 +76,9 @@ public abstract class JRedisTestSuiteBase<T> extends ProviderTestBase<T>{
 	protected int	expire_secs = 1;
 	protected long	expire_wait_millisecs = 1;
 
+	/** in-process server used if <code>jredis.test.fake</code> is set -- shared by the suite */
+	private static FakeRedisServer fakeServer;
+
 	protected final Random random = new Random(System.currentTimeMillis());
 
 	// we'll uses these for values 
@@ -181,8 +191,35 @@ public abstract class JRedisTestSuiteBase<T> extends ProviderTestBase<T>{
 
 		Log.log("Suite parameters initialized <suiteParametersInit>");
 
+		if(Boolean.getBoolean("jredis.test.fake")) 
+			startFakeServer();
+		
 		setupTestSuiteData();
 	}	
+	
+	@AfterSuite
+	public void suiteFakeServerStop () {
+		synchronized (JRedisTestSuiteBase.class) {
+			if(null != fakeServer) {
+				fakeServer.stop();
+				fakeServer = null;
+				Log.log("TEST-SUITE-END: fake redis server stopped");
+			}
+		}
+	}
+	
+	private final void startFakeServer () {
+		synchronized (JRedisTestSuiteBase.class) {
+			if(null != fakeServer) return;
+			try {
+				fakeServer = new FakeRedisServer(port).setPassword(password).start();
+				Log.log("TEST-SUITE-INIT: fake redis server started on port %d", port);
+			}
+			catch (IOException e) {
+				fail("failed to start the fake redis server on port " + port, e);
+			}
+		}
+	}
 
 	// ------------------------------------------------------------------------
 	// Test data setup methods
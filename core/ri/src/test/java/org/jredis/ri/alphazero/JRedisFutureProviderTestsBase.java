@@ -24,13 +24,22 @@ import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import org.jredis.ClientRuntimeException;
 import org.jredis.JRedisFuture;
+import org.jredis.NotSupportedException;
 import org.jredis.ObjectInfo;
 import org.jredis.RedisException;
+import org.jredis.ResultStream;
+import org.jredis.Sort;
+import org.jredis.Transaction;
+import org.jredis.ZSetEntries;
 import org.jredis.ZSetEntry;
 import org.jredis.protocol.Command;
 import org.jredis.protocol.ResponseStatus;
@@ -624,6 +633,45 @@ public abstract class JRedisFutureProviderTestsBase extends JRedisTestSuiteBase<
 		catch (ClientRuntimeException e) {  fail(cmd + " Runtime ERROR => " + e.getLocalizedMessage(), e);  }
 	}
 
+	@Test
+	public void testZrangeEntries() throws InterruptedException{
+		cmd = Command.ZRANGE$OPTS.code + " | " + Command.ZRANGEBYSCORE$OPTS.code + " entries";
+		Log.log("TEST: %s command", cmd);
+
+		try {
+			provider.flushdb();
+			String setkey = keys.get(0);
+			List<Future<Boolean>> expectedOKResponses = new ArrayList<Future<Boolean>>();
+			for(int i=0;i<MEDIUM_CNT; i++)
+				expectedOKResponses.add (provider.zadd(setkey, i, dataList.get(i)));
+			
+			Future<ZSetEntries> frEntries = provider.zrangeEntries(setkey, 0, SMALL_CNT-1); 
+			Future<ZSetEntries> frRevEntries = provider.zrevrangeEntries(setkey, 0, 0); 
+			Future<ZSetEntries> frScoreEntries = provider.zrangebyscoreEntries(setkey, 0, SMALL_CNT-1); 
+			
+			try {
+				for(Future<Boolean> resp : expectedOKResponses)
+					assertTrue (resp.get().booleanValue(), "zadd of random element should have been true");
+				
+				ZSetEntries entries = frEntries.get();
+				ZSetEntries scoreEntries = frScoreEntries.get();
+				assertEquals(entries.size(), SMALL_CNT, "size of entries");
+				assertEquals(scoreEntries.size(), SMALL_CNT, "size of entries");
+				for(int i=0;i<SMALL_CNT; i++){
+					assertEquals(entries.getValue(i), dataList.get(i), "value of entry");
+					assertEquals(entries.getScore(i), (double)i, "score of entry");
+					assertEquals(scoreEntries.getScores()[i], (double)i, "score of entry");
+				}
+				assertEquals(frRevEntries.get().getScore(0), (double)(MEDIUM_CNT-1), "score of last entry");
+			}
+			catch(ExecutionException e){
+				Throwable cause = e.getCause();
+				fail(cmd + " ERROR => " + cause.getLocalizedMessage(), e); 
+			}
+		} 
+		catch (ClientRuntimeException e) {  fail(cmd + " Runtime ERROR => " + e.getLocalizedMessage(), e);  }
+	}
+
 	@Test
 	public void testZrevrangeWithscoresStringByteArray() throws InterruptedException{
 		cmd = Command.ZREVRANGE$OPTS.code + " byte[] | " + Command.ZSCORE.code + " byte[]";
@@ -794,6 +842,49 @@ public abstract class JRedisFutureProviderTestsBase extends JRedisTestSuiteBase<
 		assertDidRaiseRuntimeError(invalidLimitSpec2, RuntimeException.class);	
 	}
 	
+	@Test
+	public void testSortStore() throws InterruptedException{
+		cmd = Command.SORT.code + " | STORE";
+		Log.log("TEST: %s command", cmd);
+
+		final String listkey = "list-key";
+		final String listkey2 = "list-key-2";
+		final String destkey = "sorted-list-key";
+		try {
+			provider.flushdb();
+			
+			for(int i=0; i<SMALL_CNT; i++){
+				provider.rpush(listkey, stringList.get(i));
+				provider.rpush(listkey2, stringList.get(SMALL_CNT-1-i));
+			}
+			
+			Sort sort = provider.sort(listkey).ALPHA().DESC();
+			Future<List<byte[]>> sortResp = sort.execAsynch();
+			Future<Long> storeResp = sort.forKey(listkey2).STORE(destkey).execStoreAsynch();
+			Future<List<byte[]>> storedResp = provider.lrange(destkey, 0, -1);
+			
+			try {
+				List<String> sorted = toStr(sortResp.get());
+				assertEquals(sorted.size(), SMALL_CNT, "expecting sort results of size SMALL_CNT");
+				assertEquals(storeResp.get().longValue(), SMALL_CNT, "expecting SMALL_CNT stored elements");
+				assertEquals(toStr(storedResp.get()), sorted, "stored results should be the sorted elements");
+			}
+			catch(ExecutionException e){
+				Throwable cause = e.getCause();
+				fail(cmd + " ERROR => " + cause.getLocalizedMessage(), e); 
+			}
+		} 
+		catch (ClientRuntimeException e) {  fail(cmd + " Runtime ERROR => " + e.getLocalizedMessage(), e);  }
+		
+		// STORE sorts are executed with execStoreAsynch
+		Runnable execAsynch = new Runnable() {
+			public void run() {
+				provider.sort(listkey).ALPHA().STORE(destkey).execAsynch();
+			}
+		};
+		assertDidRaiseRuntimeError(execAsynch, IllegalStateException.class);	
+	}
+	
 	@Test
 	public void testLsetStringIntByteArray() throws InterruptedException {
 		cmd = Command.LSET.code + " byte[] | " + Command.LLEN;
@@ -942,6 +1033,124 @@ public abstract class JRedisFutureProviderTestsBase extends JRedisTestSuiteBase<
 		catch (ClientRuntimeException e) {  fail(cmd + " Runtime ERROR => " + e.getLocalizedMessage(), e);  }
 	}
 	
+	@Test
+	public void testLrangeStream() throws InterruptedException {
+		cmd = Command.LRANGE.code + " (stream)";
+		Log.log("TEST: %s command", cmd);
+		try {
+			provider.flushdb();
+			
+			String listkey = keys.get(0);
+			for(int i=0; i<MEDIUM_CNT; i++)
+				provider.rpush(listkey, dataList.get(i));
+			
+			// requests queued behind the stream complete once it is consumed
+			Future<ResultStream<byte[]>> streamResp = provider.lrangeStream(listkey, 0, -1);
+			Future<Long> llenResp = provider.llen(listkey);
+			Future<ResultStream<byte[]>> closedStreamResp = provider.lrangeStream(listkey, 0, -1);
+			Future<Long> llenResp2 = provider.llen(listkey);
+			Future<ResultStream<byte[]>> emptyStreamResp = provider.smembersStream(keys.get(1));
+
+			try {
+				ResultStream<byte[]> stream = streamResp.get();
+				assertEquals (stream.size(), MEDIUM_CNT, "stream size should be MEDIUM_CNT");
+				int i = 0;
+				while(stream.hasNext()){
+					assertEquals(stream.next(), dataList.get(i), "nth streamed item should be the same as nth dataitem, where n is " + i);
+					i++;
+				}
+				assertEquals (i, MEDIUM_CNT, "should have streamed MEDIUM_CNT items");
+				assertEquals (llenResp.get().longValue(), MEDIUM_CNT, "list length should be MEDIUM_CNT");
+				
+				stream = closedStreamResp.get();
+				assertEquals(stream.next(), dataList.get(0), "first streamed item should be the first dataitem");
+				stream.close();
+				assertFalse (stream.hasNext(), "closed stream should have no more items");
+				assertEquals (llenResp2.get().longValue(), MEDIUM_CNT, "list length should be MEDIUM_CNT");
+				
+				stream = emptyStreamResp.get();
+				assertEquals (stream.size(), 0, "stream of non-existent key should be empty");
+				assertFalse (stream.hasNext(), "stream of non-existent key should be empty");
+			}
+			catch(ExecutionException e){
+				Throwable cause = e.getCause();
+				fail(cmd + " ERROR => " + cause.getLocalizedMessage(), e); 
+			}
+		} 
+		catch (ClientRuntimeException e) {  fail(cmd + " Runtime ERROR => " + e.getLocalizedMessage(), e);  }
+	}
+	
+	@Test
+	public void testMultiExec() throws InterruptedException {
+		cmd = Command.MULTI.code + " | " + Command.EXEC.code;
+		Log.log("TEST: %s command", cmd);
+		try {
+			provider.flushdb();
+			provider.set(keys.get(1), dataList.get(0));
+			
+			// requests queued around the transaction are not part of it
+			Future<Long> before = provider.incr(keys.get(0));
+			Transaction tx = provider.multi();
+			Future<Long> incr = tx.incr(keys.get(0));
+			Future<byte[]> get = tx.get(keys.get(1));
+			Future<ResponseStatus> badPush = tx.lpush(keys.get(1), dataList.get(1));
+			Future<Boolean> exists = tx.exists(keys.get(2));
+			Future<Long> interleaved = provider.incr(keys.get(0));
+
+			try {
+				assertEquals (before.get().longValue(), 1, "request before the transaction");
+				assertEquals (interleaved.get().longValue(), 2, "request queued before exec should be executed first");
+				assertFalse (incr.isDone(), "queued command should not be done before exec");
+				
+				Future<List<Object>> execResp;
+				try {
+					execResp = tx.execAsynch();
+				}
+				catch (NotSupportedException e) {
+					Log.log("TEST: %s is not supported by %s -- skipped", cmd, provider.getClass().getSimpleName());
+					return;
+				}
+				Future<Long> after = provider.incr(keys.get(0));
+				
+				List<Object> results = execResp.get();
+				assertEquals (results.size(), 4, "one result per queued command");
+				assertEquals (results.get(0), 3L, "incr result");
+				assertEquals ((byte[]) results.get(1), dataList.get(0), "get result");
+				assertTrue (results.get(2) instanceof RedisException, "rejected command result should be its RedisException");
+				assertEquals (results.get(3), Boolean.FALSE, "exists result");
+				assertEquals (incr.get().longValue(), 3, "incr result");
+				assertEquals (get.get(), dataList.get(0), "get result");
+				assertFalse (exists.get(), "exists result");
+				boolean expectedError = false;
+				try {
+					badPush.get();
+				}
+				catch (ExecutionException e) { expectedError = e.getCause() instanceof RedisException; }
+				assertTrue(expectedError, "rejected command should raise its RedisException");
+				assertEquals (after.get().longValue(), 4, "request after the transaction");
+				
+				expectedError = false;
+				try {
+					tx.execAsynch();
+				}
+				catch (IllegalStateException e) { expectedError = true; }
+				assertTrue(expectedError, "should have raised an exception for a repeated exec");
+				
+				// discarded transactions are never sent
+				Transaction discarded = provider.multi();
+				Future<Long> discardedIncr = discarded.incr(keys.get(0));
+				discarded.discard();
+				assertTrue (discardedIncr.isCancelled(), "discarded command should be canceled");
+				assertEquals (provider.incr(keys.get(0)).get().longValue(), 5, "discarded transaction should not be applied");
+			}
+			catch(ExecutionException e){
+				Throwable cause = e.getCause();
+				fail(cmd + " ERROR => " + cause.getLocalizedMessage(), e); 
+			}
+		} 
+		catch (ClientRuntimeException e) {  fail(cmd + " Runtime ERROR => " + e.getLocalizedMessage(), e);  }
+	}
+	
 	@Test
 	public void testRpop() throws InterruptedException {
 		cmd = Command.RPOP.code ;
@@ -1161,6 +1370,112 @@ public abstract class JRedisFutureProviderTestsBase extends JRedisTestSuiteBase<
 		catch (ClientRuntimeException e) {  fail(cmd + " Runtime ERROR => " + e.getLocalizedMessage(), e);  }
 	}
 
+	@Test
+	public void testBlpopBrpop() throws InterruptedException {
+		cmd = Command.BLPOP.code + " | " + Command.BRPOP.code;
+		Log.log("TEST: %s command", cmd);
+		try {
+			provider.flushdb();
+
+			String listkey = this.keys.get(0);
+			String otherkey = this.keys.get(1);
+			Future<ResponseStatus> rpushResp = null;
+			for(int i=0; i<SMALL_CNT; i++){
+				rpushResp = provider.rpush(listkey, dataList.get(i));
+			}
+			
+			try {
+				// the pops are not pipelined: the pushes must complete before they are sent
+				rpushResp.get();
+				Future<List<byte[]>> blpopResp = provider.blpop(1, otherkey, listkey);
+				Future<List<byte[]>> brpopResp = provider.brpop(1, listkey);
+				Future<List<byte[]>> timedoutResp = provider.blpop(1, otherkey);
+				
+				assertEquals(toStr(blpopResp.get().get(0)), listkey, "BLPOP should return the key of the first non-empty list");
+				assertEquals(blpopResp.get().get(1), dataList.get(0), "BLPOP should pop the head of the list");
+				assertEquals(brpopResp.get().get(1), dataList.get(SMALL_CNT-1), "BRPOP should pop the tail of the list");
+				assertNull(timedoutResp.get(), "BLPOP should return null on timeout");
+			}
+			catch(ExecutionException e){
+				Throwable cause = e.getCause();
+				fail(cmd + " ERROR => " + cause.getLocalizedMessage(), e); 
+			}
+		} 
+		catch (ClientRuntimeException e) {  fail(cmd + " Runtime ERROR => " + e.getLocalizedMessage(), e);  }
+	}
+
+	@Test
+	public void testBlpopDoesNotStallPipeline() throws InterruptedException {
+		cmd = Command.BLPOP.code + " | " + Command.RPUSH.code;
+		Log.log("TEST: %s command", cmd);
+		try {
+			String listkey = this.keys.get(0);
+			try {
+				// the pop is not pipelined: the flush must complete before it is sent
+				provider.flushdb().get();
+				Future<List<byte[]>> blpopResp = provider.blpop(0, listkey);
+				
+				// requests queued after the blocked request are serviced
+				provider.ping().get(2, TimeUnit.SECONDS);
+				assertFalse(blpopResp.isDone(), "BLPOP should block until the list has an item");
+				provider.rpush(listkey, dataList.get(0)).get();
+				assertEquals(blpopResp.get(2, TimeUnit.SECONDS).get(1), dataList.get(0), "BLPOP should pop the pushed item");
+			}
+			catch(ExecutionException e){
+				Throwable cause = e.getCause();
+				fail(cmd + " ERROR => " + cause.getLocalizedMessage(), e); 
+			}
+			catch(TimeoutException e){
+				fail(cmd + " blocked request stalled the pipeline", e); 
+			}
+		} 
+		catch (ClientRuntimeException e) {  fail(cmd + " Runtime ERROR => " + e.getLocalizedMessage(), e);  }
+	}
+
+	@Test
+	public void testHashes() throws InterruptedException {
+		cmd = Command.HSET.code + " | " + Command.HMSET.code + " | " + Command.HGETALL.code + " | " + Command.HINCRBY.code;
+		Log.log("TEST: %s command", cmd);
+		try {
+			provider.flushdb();
+
+			String hashkey = this.keys.get(0);
+			Map<String, byte[]> hash = new HashMap<String, byte[]>();
+			for(int i=1; i<SMALL_CNT; i++){
+				hash.put(stringList.get(i), dataList.get(i));
+			}
+			Future<Boolean> hsetResp = provider.hset(hashkey, stringList.get(0), dataList.get(0));
+			Future<Boolean> hsetAgainResp = provider.hset(hashkey, stringList.get(0), dataList.get(0));
+			Future<ResponseStatus> hmsetResp = provider.hmset(hashkey, hash);
+			Future<byte[]> hgetResp = provider.hget(hashkey, stringList.get(1));
+			Future<List<byte[]>> hmgetResp = provider.hmget(hashkey, stringList.get(0), "no-such-field");
+			Future<Map<String, byte[]>> hgetallResp = provider.hgetall(hashkey);
+			Future<Long> hincrbyResp = provider.hincrby(hashkey, "counter", 5);
+			Future<Boolean> hdelResp = provider.hdel(hashkey, "counter");
+			Future<Boolean> hdelAgainResp = provider.hdel(hashkey, "counter");
+			try {
+				assertTrue(hsetResp.get(), "HSET of a new field should return true");
+				assertFalse(hsetAgainResp.get(), "HSET of an existing field should return false");
+				assertFalse(hmsetResp.get().isError(), "HMSET status");
+				assertEquals(hgetResp.get(), dataList.get(1), "data and HGET value are not equal");
+				assertEquals(hmgetResp.get().get(0), dataList.get(0), "data and HMGET value are not equal");
+				assertNull(hmgetResp.get().get(1), "HMGET of a non-existent field should be null");
+				assertEquals(hgetallResp.get().size(), SMALL_CNT, "HGETALL should return all the fields");
+				for(int i=0; i<SMALL_CNT; i++){
+					assertEquals(hgetallResp.get().get(stringList.get(i)), dataList.get(i), "data and HGETALL value are not equal");
+				}
+				assertEquals(hincrbyResp.get().longValue(), 5, "HINCRBY of a new field");
+				assertTrue(hdelResp.get(), "HDEL of an existing field should return true");
+				assertFalse(hdelAgainResp.get(), "HDEL of a deleted field should return false");
+			}
+			catch(ExecutionException e){
+				Throwable cause = e.getCause();
+				fail(cmd + " ERROR => " + cause.getLocalizedMessage(), e); 
+			}
+		} 
+		catch (ClientRuntimeException e) {  fail(cmd + " Runtime ERROR => " + e.getLocalizedMessage(), e);  }
+	}
+
 	@Test
 	public void testRpushStringByteArray() throws InterruptedException {
 		cmd = Command.RPUSH.code + " byte[] | " + Command.LLEN + " | " + Command.LRANGE;
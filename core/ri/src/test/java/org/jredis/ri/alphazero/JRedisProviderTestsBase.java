@@ -25,15 +25,36 @@ import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import org.jredis.ClientRuntimeException;
 import org.jredis.JRedis;
+import org.jredis.NotSupportedException;
 import org.jredis.ObjectInfo;
 import org.jredis.RedisException;
 import org.jredis.RedisInfo;
 import org.jredis.RedisType;
+import org.jredis.ResultStream;
+import org.jredis.Sort;
+import org.jredis.Transaction;
+import org.jredis.ZSetEntries;
 import org.jredis.ZSetEntry;
 import org.jredis.protocol.Command;
+import org.jredis.protocol.ResponseStatus;
 import org.jredis.ri.JRedisTestSuiteBase;
 import org.jredis.ri.alphazero.support.DefaultCodec;
 import org.jredis.ri.alphazero.support.Log;
@@ -475,6 +496,149 @@ public abstract class JRedisProviderTestsBase extends JRedisTestSuiteBase <JRedi
 		catch (RedisException e) { fail(cmd + " ERROR => " + e.getLocalizedMessage(), e); }
 	}
 
+	/**
+	 * Test method for {@link org.jredis.ri.alphazero.JRedisSupport#set(java.lang.String, java.io.InputStream, long)}
+	 * and {@link org.jredis.ri.alphazero.JRedisSupport#get(java.lang.String, java.io.OutputStream)}, and their
+	 * channel variants.  Transfers are optional and skipped if not supported by the provider.
+	 */
+	@Test
+	public void testSetAndGetTransfer() {
+		cmd = Command.SET.code + " | " + Command.GET.code + " (transfer)";
+		Log.log("TEST: %s command", cmd);
+		try {
+			provider.flushdb();
+			
+			// a value that spans multiple transfer chunks
+			byte[] value = new byte[3 * 64 * 1024 + 17];
+			new Random(value.length).nextBytes(value);
+			try {
+				provider.set(keys.get(0), new ByteArrayInputStream(value), value.length);
+			}
+			catch (NotSupportedException e) {
+				Log.log("TEST: %s is not supported by %s -- skipped", cmd, provider.getClass().getSimpleName());
+				return;
+			}
+			assertEquals(provider.get(keys.get(0)), value, "streamed set and get results");
+			
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			assertEquals(provider.get(keys.get(0), out), value.length, "transfer length should be the value length");
+			assertEquals(out.toByteArray(), value, "set and streamed get results");
+			
+			// file channels
+			File file = File.createTempFile("jredis-test", ".value");
+			file.deleteOnExit();
+			FileOutputStream fileOut = new FileOutputStream(file);
+			assertEquals(provider.get(keys.get(0), fileOut.getChannel()), value.length, "transfer length should be the value length");
+			fileOut.close();
+			assertEquals(file.length(), (long) value.length, "file length should be the value length");
+			
+			int offset = 17;
+			FileInputStream fileIn = new FileInputStream(file);
+			FileChannel channel = fileIn.getChannel();
+			channel.position(offset);
+			provider.set(keys.get(1), channel, value.length - offset);
+			assertEquals(channel.position(), (long) value.length, "channel position should be advanced by the transfer length");
+			fileIn.close();
+			byte[] tail = new byte[value.length - offset];
+			System.arraycopy(value, offset, tail, 0, tail.length);
+			assertEquals(provider.get(keys.get(1)), tail, "file channel set and get results");
+			file.delete();
+			
+			// nil
+			out.reset();
+			assertEquals(provider.get(keys.get(2), out), -1, "transfer length for non-existent key should be -1");
+			assertEquals(out.size(), 0, "nothing should be transferred for non-existent key");
+			
+			// source ending prematurely
+			boolean expectedError = false;
+			try {
+				provider.set(keys.get(3), new ByteArrayInputStream(value, 0, 10), 20);
+			}
+			catch (ClientRuntimeException e) { expectedError = true; }
+			assertTrue(expectedError, "should have raised an exception for a source shorter than the length");
+			assertFalse(provider.exists(keys.get(3)), "key should not be set by the failed transfer");
+			assertEquals(provider.get(keys.get(0)), value, "connection should be usable after the failed transfer");
+		} 
+		catch (RedisException e) { fail(cmd + " ERROR => " + e.getLocalizedMessage(), e); }
+		catch (IOException e) { fail(cmd + " IO ERROR => " + e.getLocalizedMessage(), e); }
+	}
+	
+	/**
+	 * Test method for {@link org.jredis.ri.alphazero.JRedisSupport#multi()}.  Transactions are optional
+	 * and skipped if not supported by the provider.
+	 */
+	@Test
+	public void testMultiExec() {
+		cmd = Command.MULTI.code + " | " + Command.EXEC.code;
+		Log.log("TEST: %s command", cmd);
+		try {
+			provider.flushdb();
+			provider.set(keys.get(1), dataList.get(0));
+			
+			Transaction tx = provider.multi();
+			Future<Long> incr = tx.incr(keys.get(0));
+			Future<Long> incrby = tx.incrby(keys.get(0), 10);
+			Future<byte[]> get = tx.get(keys.get(1));
+			Future<ResponseStatus> badPush = tx.lpush(keys.get(1), dataList.get(1));
+			Future<Boolean> exists = tx.exists(keys.get(2));
+			assertFalse(incr.isDone(), "queued command should not be done before exec");
+			
+			List<Object> results = null;
+			try {
+				results = tx.exec();
+			}
+			catch (NotSupportedException e) {
+				Log.log("TEST: %s is not supported by %s -- skipped", cmd, provider.getClass().getSimpleName());
+				return;
+			}
+			assertEquals(results.size(), 5, "one result per queued command");
+			assertEquals(results.get(0), 1L, "incr result");
+			assertEquals(results.get(1), 11L, "incrby result");
+			assertEquals((byte[]) results.get(2), dataList.get(0), "get result");
+			assertTrue(results.get(3) instanceof RedisException, "rejected command result should be its RedisException");
+			assertEquals(results.get(4), Boolean.FALSE, "exists result");
+			
+			assertTrue(incr.isDone(), "queued command should be done after exec");
+			assertEquals(incr.get().longValue(), 1);
+			assertEquals(incrby.get().longValue(), 11);
+			assertEquals(get.get(), dataList.get(0));
+			assertFalse(exists.get());
+			boolean expectedError = false;
+			try {
+				badPush.get();
+			}
+			catch (ExecutionException e) { expectedError = e.getCause() instanceof RedisException; }
+			assertTrue(expectedError, "rejected command should raise its RedisException");
+			assertEquals(toLong(provider.get(keys.get(0))).longValue(), 11, "transaction should have been applied");
+			
+			expectedError = false;
+			try {
+				tx.exec();
+			}
+			catch (IllegalStateException e) { expectedError = true; }
+			assertTrue(expectedError, "should have raised an exception for a repeated exec");
+			
+			// discarded transactions are never sent
+			Transaction discarded = provider.multi();
+			Future<Long> discardedIncr = discarded.incr(keys.get(0));
+			discarded.discard();
+			assertTrue(discardedIncr.isCancelled(), "discarded command should be canceled");
+			expectedError = false;
+			try {
+				discarded.exec();
+			}
+			catch (IllegalStateException e) { expectedError = true; }
+			assertTrue(expectedError, "should have raised an exception for exec after discard");
+			assertEquals(toLong(provider.get(keys.get(0))).longValue(), 11, "discarded transaction should not be applied");
+			
+			// empty
+			assertEquals(provider.multi().exec().size(), 0, "empty transaction results");
+		} 
+		catch (RedisException e) { fail(cmd + " ERROR => " + e.getLocalizedMessage(), e); }
+		catch (InterruptedException e) { fail(cmd + " INTERRUPTED => " + e.getLocalizedMessage(), e); }
+		catch (ExecutionException e) { fail(cmd + " EXECUTION ERROR => " + e.getLocalizedMessage(), e); }
+	}
+
 	
 	
 	/**
@@ -921,6 +1085,152 @@ public abstract class JRedisProviderTestsBase extends JRedisTestSuiteBase <JRedi
 		catch (RedisException e) { fail(cmd + " ERROR => " + e.getLocalizedMessage(), e); }
 	}
 
+	@Test
+	public void testBlpopBrpop() {
+		cmd = Command.BLPOP.code + " | " + Command.BRPOP.code;
+		Log.log("TEST: %s command", cmd);
+		try {
+			provider.flushdb();
+
+			String listkey = this.keys.get(0);
+			String otherkey = this.keys.get(1);
+			for(int i=0; i<SMALL_CNT; i++){
+				provider.rpush(listkey, dataList.get(i));
+			}
+			
+			List<byte[]> popped = provider.blpop(1, otherkey, listkey);
+			assertEquals(popped.size(), 2, "BLPOP should return the key and the item");
+			assertEquals(toStr(popped.get(0)), listkey, "BLPOP should return the key of the first non-empty list");
+			assertEquals(popped.get(1), dataList.get(0), "BLPOP should pop the head of the list");
+			
+			popped = provider.brpop(1, listkey);
+			assertEquals(popped.get(1), dataList.get(SMALL_CNT-1), "BRPOP should pop the tail of the list");
+			assertTrue(provider.llen(listkey)==SMALL_CNT-2, "LLEN after BLPOP and BRPOP is wrong");
+			
+			// empty lists
+			long start = System.currentTimeMillis();
+			assertNull(provider.blpop(1, otherkey), "BLPOP should return null on timeout");
+			assertTrue(System.currentTimeMillis() - start >= 900, "BLPOP should block until timed out");
+			
+			boolean expected = false;
+			try {
+				provider.blpop(-1, listkey);
+			}
+			catch(IllegalArgumentException e) { expected = true; }
+			assertTrue(expected, "expecting exception for negative timeout");
+		} 
+		catch (RedisException e) { fail(cmd + " ERROR => " + e.getLocalizedMessage(), e); }
+	}
+
+	@Test
+	public void testBrpoplpush() {
+		cmd = Command.BRPOPLPUSH.code;
+		Log.log("TEST: %s command", cmd);
+		try {
+			provider.flushdb();
+
+			String listkey = this.keys.get(0);
+			String destkey = this.keys.get(1);
+			for(int i=0; i<SMALL_CNT; i++){
+				provider.lpush(listkey, stringList.get(i));
+			}
+			for(int i=0; i<SMALL_CNT; i++){
+				assertEquals(toStr(provider.brpoplpush(listkey, destkey, 1)), stringList.get(i), "BRPOPLPUSH didn't work as expected");
+			}
+			assertTrue(provider.llen(destkey)==SMALL_CNT, "LLEN after BRPOPLPUSH sequence is wrong");
+			assertNull(provider.brpoplpush(listkey, destkey, 1), "BRPOPLPUSH should return null on timeout");
+		} 
+		catch (RedisException e) { fail(cmd + " ERROR => " + e.getLocalizedMessage(), e); }
+	}
+
+	@Test
+	public void testHsetHgetHdel() {
+		cmd = Command.HSET.code + " | " + Command.HGET.code + " | " + Command.HDEL.code;
+		Log.log("TEST: %s command", cmd);
+		try {
+			provider.flushdb();
+
+			String hashkey = this.keys.get(0);
+			for(int i=0; i<SMALL_CNT; i++){
+				assertTrue(provider.hset(hashkey, stringList.get(i), dataList.get(i)), "HSET of a new field should return true");
+			}
+			assertFalse(provider.hset(hashkey, stringList.get(0), dataList.get(1)), "HSET of an existing field should return false");
+			assertEquals(provider.hget(hashkey, stringList.get(0)), dataList.get(1), "HGET should return the updated value");
+			for(int i=1; i<SMALL_CNT; i++){
+				assertEquals(provider.hget(hashkey, stringList.get(i)), dataList.get(i), "data and HGET value are not equal");
+			}
+			assertEquals(provider.type(hashkey), RedisType.hash, "TYPE of a hash");
+			
+			provider.hset(hashkey, "string", "foo");
+			provider.hset(hashkey, "number", 222);
+			provider.hset(hashkey, "object", objectList.get(0));
+			assertEquals(toStr(provider.hget(hashkey, "string")), "foo", "String HSET");
+			assertEquals(toLong(provider.hget(hashkey, "number")).longValue(), 222, "Number HSET");
+			assertTrue(objectList.get(0).equals(decode(provider.hget(hashkey, "object"))), "Serializable HSET");
+			
+			assertNull(provider.hget(hashkey, "no-such-field"), "HGET of a non-existent field should return null");
+			assertNull(provider.hget(keys.get(1), "field"), "HGET of a non-existent hash should return null");
+			
+			assertTrue(provider.hdel(hashkey, stringList.get(0)), "HDEL of an existing field should return true");
+			assertFalse(provider.hdel(hashkey, stringList.get(0)), "HDEL of a deleted field should return false");
+			assertNull(provider.hget(hashkey, stringList.get(0)), "HGET of a deleted field should return null");
+		} 
+		catch (RedisException e) { fail(cmd + " ERROR => " + e.getLocalizedMessage(), e); }
+	}
+
+	@Test
+	public void testHmsetHmgetHgetall() {
+		cmd = Command.HMSET.code + " | " + Command.HMGET.code + " | " + Command.HGETALL.code;
+		Log.log("TEST: %s command", cmd);
+		try {
+			provider.flushdb();
+
+			String hashkey = this.keys.get(0);
+			Map<String, byte[]> hash = new HashMap<String, byte[]>();
+			for(int i=0; i<SMALL_CNT; i++){
+				hash.put(stringList.get(i), dataList.get(i));
+			}
+			provider.hmset(hashkey, hash);
+			
+			List<byte[]> values = provider.hmget(hashkey, stringList.get(1), "no-such-field", stringList.get(0));
+			assertEquals(values.size(), 3, "HMGET should return a value per field");
+			assertEquals(values.get(0), dataList.get(1), "data and HMGET value are not equal");
+			assertNull(values.get(1), "HMGET of a non-existent field should be null");
+			assertEquals(values.get(2), dataList.get(0), "data and HMGET value are not equal");
+			
+			Map<String, byte[]> all = provider.hgetall(hashkey);
+			assertEquals(all.size(), SMALL_CNT, "HGETALL should return all the fields");
+			for(int i=0; i<SMALL_CNT; i++){
+				assertEquals(all.get(stringList.get(i)), dataList.get(i), "data and HGETALL value are not equal");
+			}
+			assertTrue(provider.hgetall(keys.get(1)).isEmpty(), "HGETALL of a non-existent hash should be empty");
+		} 
+		catch (RedisException e) { fail(cmd + " ERROR => " + e.getLocalizedMessage(), e); }
+	}
+
+	@Test
+	public void testHincrby() {
+		cmd = Command.HINCRBY.code;
+		Log.log("TEST: %s command", cmd);
+		try {
+			provider.flushdb();
+
+			String hashkey = this.keys.get(0);
+			assertEquals(provider.hincrby(hashkey, "counter", 10), 10, "HINCRBY of a new field");
+			assertEquals(provider.hincrby(hashkey, "counter", -3), 7, "HINCRBY of an existing field");
+			assertEquals(toLong(provider.hget(hashkey, "counter")).longValue(), 7, "HGET after HINCRBY");
+			
+			boolean expectedError = false;
+			try {
+				provider.set(keys.get(1), "string");
+				provider.hincrby(keys.get(1), "counter", 1);
+			}
+			catch (RedisException e) { expectedError = true; }
+			assertTrue(expectedError, "HINCRBY of a non-hash key should raise a RedisException");
+		} 
+		catch (RedisException e) { fail(cmd + " ERROR => " + e.getLocalizedMessage(), e); }
+	}
+
 	/**
 	 * Test method for {@link org.jredis.ri.alphazero.JRedisSupport#rpush(java.lang.String, java.lang.String)}.
 	 */
@@ -1261,6 +1571,54 @@ public abstract class JRedisProviderTestsBase extends JRedisTestSuiteBase <JRedi
 		} 
 		catch (RedisException e) { fail(cmd + " ERROR => " + e.getLocalizedMessage(), e); }
 	}
+
+	@Test
+	public void testLrangeStream() {
+		cmd = Command.LRANGE.code + " (stream)";
+		Log.log("TEST: %s command", cmd);
+		try {
+			provider.flushdb();
+			
+			String listkey = keys.get(0);
+			for(int i=0; i<MEDIUM_CNT; i++)
+				provider.rpush(listkey, dataList.get(i));
+			
+			// fully consumed stream
+			ResultStream<byte[]> stream = provider.lrangeStream(listkey, 0, -1);
+			assertEquals (stream.size(), MEDIUM_CNT, "stream size should be MEDIUM_CNT");
+			int i = 0;
+			while(stream.hasNext()){
+				assertEquals(stream.next(), dataList.get(i), "nth streamed item should be the same as nth dataitem, where n is " + i);
+				i++;
+			}
+			assertEquals (i, MEDIUM_CNT, "should have streamed MEDIUM_CNT items");
+			stream.close();
+			assertEquals (provider.llen(listkey), MEDIUM_CNT, "connection should be usable after the stream completes");
+			
+			// stream closed before it is consumed
+			stream = provider.lrangeStream(listkey, 0, -1);
+			assertEquals(stream.next(), dataList.get(0), "first streamed item should be the first dataitem");
+			stream.close();
+			assertFalse (stream.hasNext(), "closed stream should have no more items");
+			assertEquals (provider.llen(listkey), MEDIUM_CNT, "connection should be usable after the stream is closed");
+			
+			// empty stream
+			stream = provider.smembersStream(keys.get(1));
+			assertEquals (stream.size(), 0, "stream of non-existent key should be empty");
+			assertFalse (stream.hasNext(), "stream of non-existent key should be empty");
+			
+			// errors are raised on the request and not the stream
+			provider.set(keys.get(2), dataList.get(0));
+			boolean expectedError = false;
+			try {
+				provider.lrangeStream(keys.get(2), 0, -1);
+			}
+			catch (RedisException e) { expectedError = true; }
+			assertTrue(expectedError, "should have raised an exception for lrangeStream on a string value");
+			assertEquals (provider.llen(listkey), MEDIUM_CNT, "connection should be usable after the error");
+		} 
+		catch (RedisException e) { fail(cmd + " ERROR => " + e.getLocalizedMessage(), e); }
+	}
 	
 
 	/**
@@ -1659,6 +2017,55 @@ public abstract class JRedisProviderTestsBase extends JRedisTestSuiteBase <JRedi
 		};
 		assertDidRaiseRuntimeError(invalidLimitSpec2, RuntimeException.class);
 	}
+	
+	/**
+	 * Test method for {@link org.jredis.Sort#STORE(String)} and {@link org.jredis.Sort#forKey(String)}.
+	 */
+	@Test
+	public void testSortStore() {
+		cmd = Command.SORT.code + " | STORE";
+		Log.log("TEST: %s command", cmd);
+		
+		final String listkey = "list-key";
+		final String listkey2 = "list-key-2";
+		final String destkey = "sorted-list-key";
+		try {
+			provider.flushdb();
+			
+			for(int i=0; i<SMALL_CNT; i++){
+				provider.rpush(listkey, stringList.get(i));
+				provider.rpush(listkey2, stringList.get(SMALL_CNT-1-i));
+			}
+			
+			final Sort sort = provider.sort(listkey).ALPHA().DESC();
+			List<String> sorted = toStr(sort.exec());
+			assertEquals(sorted.size(), SMALL_CNT, "expecting sort results of size SMALL_CNT");
+			
+			// reuse the spec for another key, storing the results
+			assertEquals(sort.forKey(listkey2).STORE(destkey).execStore(), SMALL_CNT, "expecting SMALL_CNT stored elements");
+			assertEquals(toStr(provider.lrange(destkey, 0, -1)), sorted, "stored results should be the sorted elements");
+			
+			// the original sort is not affected
+			assertEquals(toStr(sort.exec()), sorted, "repeated sort should have the same results");
+		} 
+		catch (RedisException e) { fail(cmd + " ERROR => " + e.getLocalizedMessage(), e); }
+		
+		// STORE sorts are executed with execStore and others with exec
+		Runnable execStore = new Runnable() {
+			public void run() {
+				try { provider.sort(listkey).ALPHA().execStore(); }
+				catch (RedisException e) { throw new RuntimeException ("", e); }
+			}
+		};
+		assertDidRaiseRuntimeError(execStore, IllegalStateException.class);
+		Runnable exec = new Runnable() {
+			public void run() {
+				try { provider.sort(listkey).ALPHA().STORE(destkey).exec(); }
+				catch (RedisException e) { throw new RuntimeException ("", e); }
+			}
+		};
+		assertDidRaiseRuntimeError(exec, IllegalStateException.class);
+	}
 
 	
 	/**************** SORTED SET COMMANDS ******************************/
@@ -1787,6 +2194,40 @@ public abstract class JRedisProviderTestsBase extends JRedisTestSuiteBase <JRedi
 		catch (RedisException e) { fail(cmd + " ERROR => " + e.getLocalizedMessage(), e); }
 	}
 	
+	@Test
+	public void testZrangeEntries() {
+		cmd = Command.ZRANGE$OPTS.code + " | " + Command.ZREVRANGE$OPTS.code + " | " + Command.ZRANGEBYSCORE$OPTS.code + " entries";
+		Log.log("TEST: %s command", cmd);
+		try {
+			provider.flushdb();
+			
+			String setkey = keys.get(0);
+			assertEquals(provider.zrangeEntries(setkey, 0, -1).size(), 0, "entries of a non-existent set");
+			for(int i=0;i<MEDIUM_CNT; i++)
+				assertTrue(provider.zadd(setkey, i + 0.5, dataList.get(i)), "zadd of random element should be true");
+			
+			ZSetEntries entries = provider.zrangeEntries(setkey, 0, SMALL_CNT-1);
+			assertEquals(entries.size(), SMALL_CNT, "size of entries");
+			assertEquals(entries.getScores().length, SMALL_CNT, "length of scores");
+			for(int i=0;i<SMALL_CNT; i++){
+				assertEquals(entries.getValue(i), dataList.get(i), "value of entry");
+				assertEquals(entries.getScore(i), i + 0.5, "score of entry");
+			}
+			
+			entries = provider.zrevrangeEntries(setkey, 0, SMALL_CNT-1);
+			for(int i=0;i<SMALL_CNT; i++){
+				assertEquals(entries.getValue(i), dataList.get(MEDIUM_CNT-1-i), "value of entry");
+				assertEquals(entries.getScore(i), MEDIUM_CNT-1-i + 0.5, "score of entry");
+			}
+			
+			entries = provider.zrangebyscoreEntries(setkey, 0, SMALL_CNT);
+			assertEquals(entries.size(), SMALL_CNT, "size of entries");
+			for(int i=0;i<SMALL_CNT; i++)
+				assertEquals(entries.getScores()[i], i + 0.5, "score of entry");
+		} 
+		catch (RedisException e) { fail(cmd + " ERROR => " + e.getLocalizedMessage(), e); }
+	}
+	
 	@Test
 	public void testZrangebyscoreWithscoresStringByteArray() {
 		cmd = Command.ZRANGEBYSCORE$OPTS.code + " byte[]";
@@ -2798,6 +3239,39 @@ public abstract class JRedisProviderTestsBase extends JRedisTestSuiteBase <JRedi
 		} 
 		catch (RedisException e) { fail(cmd + " ERROR => " + e.getLocalizedMessage(), e); }
 	}
+
+	@Test
+	public void testScan() {
+		cmd = Command.SCAN.code;
+		Log.log("TEST: %s command", cmd);
+		try {
+			provider.flushdb();
+			
+			Map<String, byte[]> mappings = new HashMap<String, byte[]>();
+			for (int i=0; i<MEDIUM_CNT; i++)
+				mappings.put("scan:" + i, dataList.get(i));
+			provider.mset(mappings);
+			for (int i=0; i<SMALL_CNT; i++)
+				provider.set(patternList.get(i), dataList.get(i));
+
+			Set<String> scanned = new HashSet<String>();
+			for(Iterator<String> it = provider.scan(null, 7); it.hasNext();)
+				scanned.add(it.next());
+			assertEquals(scanned.size(), MEDIUM_CNT + SMALL_CNT, "SCAN should return all the keys");
+			assertTrue(scanned.containsAll(mappings.keySet()), "SCAN should return all the keys");
+			
+			scanned.clear();
+			for(Iterator<String> it = provider.scan("*"+patternA+"*", 5); it.hasNext();)
+				scanned.add(it.next());
+			assertEquals(scanned.size(), SMALL_CNT, "SCAN MATCH should return only the matching keys");
+			for(int i=0; i<SMALL_CNT; i++) 
+				assertTrue(scanned.contains(patternList.get(i)), "should contain " + patternList.get(i));
+			
+			provider.flushdb();
+			assertFalse(provider.scan(null, 10).hasNext(), "SCAN of an empty db");
+		} 
+		catch (RedisException e) { fail(cmd + " ERROR => " + e.getLocalizedMessage(), e); }
+	}
 //	/**
 //	 * Test method for {@link org.jredis.ri.alphazero.JRedisSupport#shutdown()}.
 //	 */
@@ -16,7 +16,14 @@
 
 package org.jredis.ri.alphazero;
 
-import static org.testng.Assert.fail;
+import static org.testng.Assert.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import org.jredis.ClientRuntimeException;
 import org.jredis.JRedis;
 import org.jredis.connector.ConnectionSpec;
@@ -95,6 +102,49 @@ public class JRedisServiceTest extends ConcurrentJRedisProviderTestsBase {
 	 * completed.
 	 */
 	// ------------------------------------------------------------------------
+	@Test
+	public void testLazyConnections () throws Exception {
+		Log.log("TEST: JRedisService with lazily established connections");
+		ConnectionSpec connectionSpec = DefaultConnectionSpec.newSpec(this.host, this.port, this.db2, this.password.getBytes());
+		
+		boolean didRaiseError = false;
+		try {
+			new JRedisService(connectionSpec, 2, 3);
+		}
+		catch (IllegalArgumentException e) { didRaiseError = true; }
+		assertTrue(didRaiseError, "min connection count can not exceed the connection count");
+		
+		JRedisService eager = new JRedisService(connectionSpec, 3);
+		assertTrue(eager.isReady(), "all connections are established on construction");
+		eager.quit();
+		
+		final JRedisService service = new JRedisService(connectionSpec, 4, 2);
+		assertTrue(service.awaitReady(5, TimeUnit.SECONDS), "min connections should have been established");
+		assertTrue(service.isReady());
+		
+		// concurrent requests use (and establish) the rest of the connections
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Callable<Long>> tasks = new ArrayList<Callable<Long>>();
+			for(int i=0; i<4; i++) {
+				final String key = keys.get(i);
+				tasks.add(new Callable<Long>() {
+					public Long call () throws Exception {
+						service.del(key);
+						for(int j=0; j<SMALL_CNT; j++) service.incr(key);
+						return service.incr(key);
+					}
+				});
+			}
+			for(Future<Long> result : executor.invokeAll(tasks))
+				assertEquals(result.get().longValue(), SMALL_CNT + 1, "incr value");
+		}
+		finally {
+			executor.shutdown();
+			service.quit();
+		}
+	}
+	
 	/**
 	 * Test method for {@link org.jredis.ri.alphazero.JRedisSupport#auth(java.lang.String)}.
 	 */
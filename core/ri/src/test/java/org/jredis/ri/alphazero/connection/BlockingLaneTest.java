@@ -0,0 +1,160 @@
+/*
+ *   Copyright 2009 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+
+package org.jredis.ri.alphazero.connection;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.jredis.ClientRuntimeException;
+import org.jredis.JRedis;
+import org.jredis.RedisException;
+import org.jredis.connector.ConnectionSpec;
+import org.jredis.fake.FakeRedisServer;
+import org.jredis.protocol.Command;
+import org.jredis.protocol.MultiBulkResponse;
+import org.jredis.ri.alphazero.JRedisPipelineService;
+import org.jredis.ri.alphazero.JRedisService;
+import org.jredis.ri.alphazero.support.Log;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import static org.jredis.ri.alphazero.support.DefaultCodec.toStr;
+import static org.testng.Assert.*;
+
+/**
+ * Tests that blocking requests are serviced on dedicated connections against an in-process 
+ * {@link FakeRedisServer}.
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @since   alpha.0
+ * 
+ */
+@Test(suiteName="core-ri-connection")
+public class BlockingLaneTest {
+
+	private FakeRedisServer server;
+	private ConnectionSpec spec;
+	private ExecutorService consumers;
+	
+	@BeforeClass
+	public void startServer () throws Exception {
+		server = new FakeRedisServer().start();
+		spec = DefaultConnectionSpec.newSpec("127.0.0.1", server.getPort(), 0, null);
+		consumers = Executors.newCachedThreadPool();
+	}
+	
+	@AfterClass
+	public void stopServer () {
+		consumers.shutdownNow();
+		server.stop();
+	}
+	
+	@Test
+	public void testServiceDoesNotHoldPoolConnection () throws Exception {
+		Log.log("Testing a blocked request does not hold a connection of the pool of JRedisService");
+		JRedisService service = new JRedisService(spec, 1);
+		try {
+			assertConsumerNotBlockingProducer(service, "service-queue");
+		}
+		finally {
+			service.quit();
+		}
+	}
+	
+	@Test
+	public void testPipelineServiceNotStalled () throws Exception {
+		Log.log("Testing a blocked request does not stall the pipeline of JRedisPipelineService");
+		JRedisPipelineService service = new JRedisPipelineService(spec);
+		try {
+			assertConsumerNotBlockingProducer(service, "pipeline-queue");
+		}
+		finally {
+			service.quit();
+		}
+	}
+	
+	@Test
+	public void testConnections () throws Exception {
+		Log.log("Testing the blocking lane retains up to the max idle connections");
+		final BlockingLane lane = new BlockingLane(spec, 1);
+		JRedis producer = new JRedisService(spec, 1);
+		try {
+			assertEquals(lane.getConnectionCount(), 0, "connections are established on demand");
+			
+			Callable<List<byte[]>> consumer = new Callable<List<byte[]>>() {
+				public List<byte[]> call () throws Exception {
+					MultiBulkResponse response = (MultiBulkResponse) lane.serviceRequest(Command.BLPOP, 0, "jobs".getBytes(), "0".getBytes());
+					return response.getMultiBulkData();
+				}
+			};
+			Future<List<byte[]>> first = consumers.submit(consumer);
+			Future<List<byte[]>> second = consumers.submit(consumer);
+			
+			long deadline = System.currentTimeMillis() + 2000;
+			while(lane.getConnectionCount() < 2 && System.currentTimeMillis() < deadline)
+				Thread.sleep(10);
+			assertEquals(lane.getConnectionCount(), 2, "each blocked request has a connection");
+			
+			producer.rpush("jobs", "a");
+			producer.rpush("jobs", "b");
+			assertEquals(toStr(first.get(2, TimeUnit.SECONDS).get(0)), "jobs");
+			assertEquals(toStr(second.get(2, TimeUnit.SECONDS).get(0)), "jobs");
+			assertEquals(lane.getIdleCount(), 1, "max idle connections retained");
+			assertEquals(lane.getConnectionCount(), 1, "excess connections closed");
+			
+			lane.close();
+			assertEquals(lane.getConnectionCount(), 0, "idle connections closed");
+			boolean didRaiseError = false;
+			try {
+				lane.serviceRequest(Command.BLPOP, 1, "jobs".getBytes(), "1".getBytes());
+			}
+			catch (ClientRuntimeException e) { didRaiseError = true; }
+			assertTrue(didRaiseError, "should not service requests once closed");
+		}
+		finally {
+			lane.close();
+			producer.quit();
+		}
+	}
+	
+	/** consumer blocks on an empty list while the producer's requests are serviced, then pops the produced item */
+	private void assertConsumerNotBlockingProducer (final JRedis provider, final String queue) throws Exception {
+		provider.del(queue);
+		Future<List<byte[]>> consumed = consumers.submit(new Callable<List<byte[]>>() {
+			public List<byte[]> call () throws RedisException {
+				return provider.blpop(0, queue);
+			}
+		});
+		Thread.sleep(100);
+		long start = System.currentTimeMillis();
+		for(int i=0; i<10; i++){
+			provider.set("key-" + i, i);
+			assertEquals(toStr(provider.get("key-" + i)), String.valueOf(i));
+		}
+		assertTrue(System.currentTimeMillis() - start < 1000, "requests should not wait for the blocked request");
+		assertFalse(consumed.isDone(), "consumer should be blocked until the list has an item");
+		
+		provider.rpush(queue, "job");
+		List<byte[]> popped = consumed.get(2, TimeUnit.SECONDS);
+		assertEquals(toStr(popped.get(0)), queue);
+		assertEquals(toStr(popped.get(1)), "job");
+	}
+}
@@ -0,0 +1,189 @@
+/*
+ *   Copyright 2009 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.jredis.ri.alphazero.connection;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+import org.jredis.ClientRuntimeException;
+import org.jredis.ProviderException;
+import org.jredis.connector.Connection;
+import org.jredis.connector.ConnectionSpec;
+import org.jredis.protocol.Command;
+import org.jredis.protocol.Response;
+import org.jredis.ri.alphazero.support.Log;
+import org.testng.annotations.Test;
+import static org.testng.Assert.*;
+
+/**
+ * Tests the {@link CircuitBreaker} state machine.  No server is required: the
+ * probes are serviced by a stub connection.
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, Apr 14, 2010
+ * @since   alpha.0
+ * 
+ */
+@Test(suiteName="core-ri-connection")
+public class CircuitBreakerTest {
+
+	@Test
+	public void testTripOnFailures () {
+		Log.log("Testing CircuitBreaker opens on consecutive failures");
+		ProbedConnection conn = new ProbedConnection();
+		CircuitBreaker breaker = new CircuitBreaker(conn, 3, 1000, 60000);
+		Recorder events = new Recorder();
+		breaker.addListener(events);
+		
+		breaker.onFailure(new ConnectionResetException("test"));
+		breaker.onFailure(new ConnectionResetException("test"));
+		breaker.onSuccess(1000);
+		breaker.onFailure(new ConnectionResetException("test"));
+		breaker.onFailure(new ConnectionResetException("test"));
+		assertTrue(breaker.allowRequest(), "failures are consecutive");
+		
+		breaker.onFailure(new ProviderException("bug"));
+		assertTrue(breaker.allowRequest(), "provider exceptions are not faults");
+		
+		breaker.onFailure(new ConnectionResetException("test"));
+		assertFalse(breaker.allowRequest(), "breaker should be open");
+		assertEquals(breaker.getState(), CircuitBreaker.State.OPEN);
+		assertEquals(events.types.size(), 1, "expecting one event");
+		assertEquals(events.types.get(0), Connection.Event.Type.CIRCUIT_OPENED);
+		
+		boolean didRaiseError = false;
+		try {
+			breaker.verifyAllowRequest();
+		}
+		catch (CircuitOpenException e) { didRaiseError = true; }
+		assertTrue(didRaiseError, "expecting CircuitOpenException");
+	}
+	
+	@Test
+	public void testTripOnSlowCalls () {
+		Log.log("Testing CircuitBreaker opens on slow calls");
+		CircuitBreaker breaker = new CircuitBreaker(new ProbedConnection(), 2, 10, 60000);
+		breaker.onSuccess(9000000L);
+		breaker.onSuccess(11000000L);
+		assertTrue(breaker.allowRequest(), "one slow call should not open the breaker");
+		breaker.onSuccess(11000000L);
+		assertFalse(breaker.allowRequest(), "consecutive slow calls should open the breaker");
+	}
+	
+	@Test
+	public void testProbeAndClose () throws InterruptedException {
+		Log.log("Testing CircuitBreaker half-open probes");
+		ProbedConnection conn = new ProbedConnection();
+		conn.healthy = false;
+		CircuitBreaker breaker = new CircuitBreaker(conn, 1, 1000, 20);
+		Recorder events = new Recorder();
+		breaker.addListener(events);
+		
+		breaker.onFailure(new ConnectionResetException("test"));
+		assertFalse(breaker.allowRequest(), "breaker should be open");
+		
+		Thread.sleep(200);
+		assertTrue(conn.probes > 1, "server should have been probed in the background");
+		assertFalse(breaker.allowRequest(), "breaker should remain open while probes fail");
+		
+		conn.healthy = true;
+		for(int i=0; i<100 && !breaker.allowRequest(); i++)
+			Thread.sleep(10);
+		assertTrue(breaker.allowRequest(), "breaker should close on successful probe");
+		assertEquals(events.types.size(), 2, "expecting open and close events");
+		assertEquals(events.types.get(1), Connection.Event.Type.CIRCUIT_CLOSED);
+		
+		int probes = conn.probes;
+		Thread.sleep(100);
+		assertEquals(conn.probes, probes, "no probes expected once closed");
+	}
+	
+	@Test
+	public void testShutdownStopsProbes () throws InterruptedException {
+		Log.log("Testing CircuitBreaker shutdown stops the probes");
+		ProbedConnection conn = new ProbedConnection();
+		conn.healthy = false;
+		CircuitBreaker breaker = new CircuitBreaker(conn, 1, 1000, 20);
+		
+		breaker.onFailure(new ConnectionResetException("test"));
+		Thread.sleep(100);
+		assertTrue(conn.probes > 0, "server should have been probed in the background");
+		
+		breaker.shutdown();
+		int probes = conn.probes;
+		conn.healthy = true;
+		Thread.sleep(100);
+		assertEquals(conn.probes, probes, "no probes expected once the breaker is shutdown");
+		assertFalse(breaker.allowRequest(), "a breaker that is shutdown does not close the circuit");
+		
+		CircuitBreaker shutdown = new CircuitBreaker(conn, 1, 1000, 20);
+		shutdown.shutdown();
+		shutdown.onFailure(new ConnectionResetException("test"));
+		Thread.sleep(100);
+		assertEquals(conn.probes, probes, "no probes expected for failures after shutdown");
+	}
+	
+	@Test
+	public void testShutdownDuringProbe () throws InterruptedException {
+		Log.log("Testing CircuitBreaker shutdown does not wait on a probe in progress");
+		ProbedConnection conn = new ProbedConnection();
+		conn.probeMsecs = 1000;
+		CircuitBreaker breaker = new CircuitBreaker(conn, 1, 5000, 20);
+		
+		breaker.onFailure(new ConnectionResetException("test"));
+		for(int i=0; i<100 && conn.probes == 0; i++)
+			Thread.sleep(10);
+		assertEquals(breaker.getState(), CircuitBreaker.State.HALF_OPEN, "expecting a probe in progress");
+		
+		long start = System.currentTimeMillis();
+		breaker.shutdown();
+		assertTrue(System.currentTimeMillis() - start < 500, "shutdown should not wait on the probe");
+		
+		Thread.sleep(1200);
+		assertFalse(breaker.allowRequest(), "the probe should not close the circuit of a breaker that is shutdown");
+	}
+	
+	// ------------------------------------------------------------------------
+	// helpers
+	// ------------------------------------------------------------------------
+	/** Records event types */
+	private static class Recorder implements Connection.Listener {
+		final List<Connection.Event.Type> types = new CopyOnWriteArrayList<Connection.Event.Type>();
+		public void onEvent (Connection.Event event) { types.add(event.getType()); }
+	}
+	
+	/** Services PINGs if healthy. */
+	private static class ProbedConnection implements Connection {
+		volatile boolean healthy = true;
+		volatile int probes = 0;
+		volatile long probeMsecs = 0;
+		public ConnectionSpec getSpec () { return DefaultConnectionSpec.newSpec(); }
+		public Modality getModality () { return Modality.Synchronous; }
+		public Response serviceRequest (Command cmd, byte[]... args) { 
+			probes++;
+			if(probeMsecs > 0) {
+				try { Thread.sleep(probeMsecs); }
+				catch (InterruptedException e) { /* keep probing */ }
+			}
+			if(!healthy) throw new ClientRuntimeException("unhealthy");
+			return null; 
+		}
+		public Future<Response> queueRequest (Command cmd, byte[]... args) { throw new UnsupportedOperationException(); }
+		public boolean addListener (Listener connListener) { return false; }
+		public boolean removeListener (Listener connListener) { return false; }
+	}
+}
@@ -0,0 +1,194 @@
+/*
+ *   Copyright 2009 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.jredis.ri.alphazero.connection;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.jredis.ProviderException;
+import org.jredis.RedisException;
+import org.jredis.protocol.Command;
+import org.jredis.protocol.Response;
+import org.jredis.protocol.ResponseDecoder;
+import org.jredis.protocol.ValueResponse;
+import org.jredis.ri.alphazero.protocol.SynchProtocol;
+import org.jredis.ri.alphazero.support.Log;
+import org.testng.annotations.Test;
+import static org.testng.Assert.*;
+
+/**
+ * Tests the completion and decoding of {@link PendingRequest}s.  No server is required:
+ * responses are read from byte arrays.
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, Apr 15, 2010
+ * @since   alpha.0
+ * 
+ */
+@Test(suiteName="core-ri-connection")
+public class PendingRequestTest {
+
+	/** counts its invocations */
+	private static class LongDecoder implements ResponseDecoder<Long> {
+		volatile int cnt = 0;
+		public Long decode (Response response) {
+			cnt++;
+			return ((ValueResponse) response).getLongValue();
+		}
+	}
+
+	@Test
+	public void testDecodeOnCompletion () throws InterruptedException, ExecutionException, TimeoutException {
+		Log.log("Testing PendingRequest decodes the response once on completion");
+		LongDecoder decoder = new LongDecoder();
+		final PendingRequest<Long> pending = new PendingRequest<Long>(null, Command.INCR, decoder);
+		assertFalse(pending.isDone());
+		
+		Thread responder = new Thread() {
+			@Override public void run() {
+				pending.setResponse(readResponse(Command.INCR, ":42\r\n"));
+			}
+		};
+		responder.start();
+		
+		assertEquals(pending.get().longValue(), 42L);
+		assertEquals(pending.get(1, TimeUnit.MILLISECONDS).longValue(), 42L);
+		assertTrue(pending.isDone());
+		assertEquals(decoder.cnt, 1, "response should be decoded exactly once");
+		responder.join();
+	}
+	
+	@Test
+	public void testErrorResponse () throws InterruptedException {
+		Log.log("Testing PendingRequest with error response");
+		LongDecoder decoder = new LongDecoder();
+		PendingRequest<Long> pending = new PendingRequest<Long>(null, Command.INCR, decoder);
+		pending.setResponse(readResponse(Command.INCR, "-ERR value is not an integer\r\n"));
+		
+		try {
+			pending.get();
+			fail("expecting ExecutionException");
+		}
+		catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof RedisException, "cause should be a RedisException");
+		}
+		assertEquals(decoder.cnt, 0, "error responses should not be decoded");
+	}
+	
+	@Test
+	public void testDecoderFailure () throws InterruptedException {
+		Log.log("Testing PendingRequest with a failing decoder");
+		PendingRequest<Long> pending = new PendingRequest<Long>(null, Command.INCR, new ResponseDecoder<Long>() {
+			public Long decode (Response response) { throw new ClassCastException("test"); }
+		});
+		pending.setResponse(readResponse(Command.INCR, ":1\r\n"));
+		try {
+			pending.get();
+			fail("expecting ExecutionException");
+		}
+		catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof ProviderException, "cause should be a ProviderException");
+		}
+	}
+	
+	@Test
+	public void testTimeout () throws InterruptedException, ExecutionException {
+		Log.log("Testing PendingRequest get with timeout");
+		PendingRequest<Response> pending = new PendingRequest<Response>(null, Command.PING, PendingRequest.RESPONSE);
+		long start = System.nanoTime();
+		try {
+			pending.get(50, TimeUnit.MILLISECONDS);
+			fail("expecting TimeoutException");
+		}
+		catch (TimeoutException e) { }
+		assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50), "should have waited for the timeout");
+	}
+	
+	@Test
+	public void testCancel () throws InterruptedException, ExecutionException {
+		Log.log("Testing PendingRequest cancellation");
+		LongDecoder decoder = new LongDecoder();
+		PendingRequest<Long> pending = new PendingRequest<Long>(null, Command.INCR, decoder);
+		assertTrue(pending.cancel(false), "pending request should be cancelable");
+		assertTrue(pending.isCancelled());
+		assertTrue(pending.isDone());
+		assertFalse(pending.cancel(false), "request is already canceled");
+		assertFalse(pending.setResponse(readResponse(Command.INCR, ":1\r\n")), "response should be discarded");
+		assertEquals(decoder.cnt, 0, "discarded responses should not be decoded");
+		
+		boolean didRaiseError = false;
+		try {
+			pending.get();
+		}
+		catch (CancellationException e) { didRaiseError = true; }
+		assertTrue(didRaiseError, "expecting CancellationException");
+		
+		PendingRequest<Long> completed = new PendingRequest<Long>(null, Command.INCR, decoder);
+		assertTrue(completed.setResponse(readResponse(Command.INCR, ":1\r\n")));
+		assertFalse(completed.cancel(false), "completed requests can not be canceled");
+		assertFalse(completed.isCancelled());
+	}
+	
+	@Test
+	public void testDeadline () throws InterruptedException, TimeoutException {
+		Log.log("Testing PendingRequest expiry on deadline");
+		PendingRequest<Response> pending = new PendingRequest<Response>(null, Command.PING, PendingRequest.RESPONSE);
+		pending.bind(null, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(50), null);
+		assertFalse(pending.isDone());
+		try {
+			pending.get(1, TimeUnit.MILLISECONDS);
+			fail("expecting TimeoutException before the deadline");
+		}
+		catch (TimeoutException e) { assertFalse(pending.isDone()); }
+		catch (ExecutionException e) { fail("request should not expire before its deadline"); }
+		
+		long start = System.nanoTime();
+		try {
+			pending.get(10, TimeUnit.SECONDS);
+			fail("expecting ExecutionException");
+		}
+		catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof RequestTimeoutException, "cause should be a RequestTimeoutException");
+		}
+		assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5), "should have expired on the deadline");
+		assertTrue(pending.isDone());
+		assertFalse(pending.isCancelled());
+		assertFalse(pending.setResponse(readResponse(Command.PING, "+PONG\r\n")), "response should be discarded");
+		
+		PendingRequest<Response> overdue = new PendingRequest<Response>(null, Command.PING, PendingRequest.RESPONSE);
+		overdue.bind(null, System.nanoTime() - 1, null);
+		assertTrue(overdue.isDone(), "overdue requests expire when checked");
+		try {
+			overdue.get();
+			fail("expecting ExecutionException");
+		}
+		catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof RequestTimeoutException, "cause should be a RequestTimeoutException");
+		}
+	}
+	
+	// ------------------------------------------------------------------------
+	// helpers
+	// ------------------------------------------------------------------------
+	private static Response readResponse (Command cmd, String data) {
+		Response response = new SynchProtocol().createResponse(cmd);
+		response.read(new ByteArrayInputStream(data.getBytes()));
+		return response;
+	}
+}
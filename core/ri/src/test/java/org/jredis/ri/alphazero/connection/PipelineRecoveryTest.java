@@ -0,0 +1,165 @@
+/*
+ *   Copyright 2009 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.jredis.ri.alphazero.connection;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import org.jredis.ClientRuntimeException;
+import org.jredis.connector.ConnectionSpec;
+import org.jredis.fake.FakeRedisServer;
+import org.jredis.fake.Fault;
+import org.jredis.protocol.Command;
+import org.jredis.protocol.ResponseStatus;
+import org.jredis.ri.alphazero.JRedisPipeline;
+import org.jredis.ri.alphazero.support.Log;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import static org.testng.Assert.*;
+
+/**
+ * Tests the recovery of pipelined connections from connection faults against an in-process 
+ * {@link FakeRedisServer} with injected faults.
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, Apr 19, 2010
+ * @since   alpha.0
+ * 
+ */
+@Test(suiteName="core-ri-connection")
+public class PipelineRecoveryTest {
+
+	private FakeRedisServer server;
+	private JRedisPipeline pipeline;
+	
+	@BeforeClass
+	public void startServer () throws Exception {
+		server = new FakeRedisServer().start();
+		ConnectionSpec spec = DefaultConnectionSpec.newSpec("127.0.0.1", server.getPort(), 0, null);
+		pipeline = new JRedisPipeline(spec);
+	}
+	
+	@AfterClass
+	public void stopServer () {
+		try {
+			pipeline.quit();
+		}
+		catch (ClientRuntimeException e) { /* pipeline may be down per testReconnectFailure */ }
+		finally {
+			server.stop();
+		}
+	}
+	
+	@Test
+	public void testReconnectAndReplay () throws Exception {
+		Log.log("Testing pipeline reconnects and re-issues read requests on faults");
+		RequestStats stats = pipeline.getRequestStats();
+		long reconnects = stats.getReconnects();
+		long replays = stats.getReplays();
+		
+		pipeline.set("recovery-key", "before").get();
+		server.injectFault(Command.INCR, Fault.DISCONNECT, 1.0);
+		
+		Future<byte[]> before = pipeline.get("recovery-key");
+		Future<Long> faulted = pipeline.incr("recovery-counter");
+		Future<ResponseStatus> set = pipeline.set("recovery-key", "after");
+		Future<byte[]> after = pipeline.get("recovery-key");
+		
+		try {
+			faulted.get();
+			fail("expecting ExecutionException");
+		}
+		catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof ConnectionResetException, "cause should be a ConnectionResetException but was " + e.getCause());
+		}
+		try {
+			set.get();
+			fail("expecting ExecutionException");
+		}
+		catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof ConnectionResetException, "writes are not replayed, even if idempotent");
+		}
+		assertEquals(new String(before.get()), "before");
+		assertEquals(new String(after.get()), "before", "GET should have been re-issued, and SET not");
+		
+		assertEquals(stats.getReconnects(), reconnects + 1, "expecting one reconnect");
+		assertTrue(stats.getReplays() >= replays + 1, "expecting GET to be replayed");
+		
+		server.reset();
+		assertEquals(pipeline.incr("recovery-counter").get().longValue(), 1L, "faulted INCR should not have been processed");
+		assertFalse(pipeline.ping().get().isError(), "pipeline should be in service after recovery");
+	}
+	
+	@Test(dependsOnMethods="testReconnectAndReplay")
+	public void testWriteFaults () throws Exception {
+		Log.log("Testing faults writing pipelined requests are recovered from");
+		RequestStats stats = pipeline.getRequestStats();
+		long reconnects = stats.getReconnects();
+		
+		pipeline.set("recovery-key", "before").get();
+		server.injectFault(Command.INCR, Fault.DISCONNECT, 1.0);
+		
+		// the requests written on the closed socket, until the fault is read, must not raise errors
+		Future<Long> faulted = pipeline.incr("recovery-counter");
+		List<Future<byte[]>> gets = new ArrayList<Future<byte[]>>();
+		for(int i=0; i<1000; i++)
+			gets.add(pipeline.get("recovery-key"));
+		
+		try {
+			faulted.get();
+			fail("expecting ExecutionException");
+		}
+		catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof ConnectionResetException, "cause should be a ConnectionResetException but was " + e.getCause());
+		}
+		for(Future<byte[]> get : gets)
+			assertEquals(new String(get.get()), "before", "GET should have been re-issued");
+		assertTrue(stats.getReconnects() >= reconnects + 1, "expecting a reconnect");
+		server.reset();
+	}
+	
+	@Test(dependsOnMethods="testWriteFaults")
+	public void testReconnectFailure () throws Exception {
+		Log.log("Testing pending requests fail if the pipeline can not reconnect");
+		server.injectFault(Command.INCR, Fault.DISCONNECT, 1.0);
+		Future<Long> faulted = pipeline.incr("recovery-counter");
+		Future<byte[]> pending = pipeline.get("recovery-key");
+		server.stop();
+		
+		try {
+			faulted.get();
+			fail("expecting ExecutionException");
+		}
+		catch (ExecutionException e) { }
+		try {
+			pending.get();
+			fail("expecting ExecutionException");
+		}
+		catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof ClientRuntimeException, "cause should be a ClientRuntimeException");
+		}
+		
+		boolean didRaiseError = false;
+		try {
+			pipeline.ping();
+		}
+		catch (ClientRuntimeException e) { didRaiseError = true; }
+		assertTrue(didRaiseError, "pipeline should not accept requests once it failed to reconnect");
+	}
+}
@@ -0,0 +1,202 @@
+/*
+ *   Copyright 2009 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.jredis.ri.alphazero.connection;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.jredis.RedisException;
+import org.jredis.protocol.Command;
+import org.jredis.protocol.Response;
+import org.jredis.ri.alphazero.protocol.SynchProtocol;
+import org.jredis.ri.alphazero.support.Log;
+import org.testng.annotations.Test;
+import static org.testng.Assert.*;
+
+/**
+ * Tests the single-flight coalescing of the {@link RequestCoalescer}.  No server is required:
+ * requests are serviced by a stub that holds the reads until released.
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, May 20, 2010
+ * @since   alpha.0
+ * 
+ */
+@Test(suiteName="core-ri-connection")
+public class RequestCoalescerTest {
+
+	@Test
+	public void testCoalescing () throws Exception {
+		Log.log("Testing RequestCoalescer joins identical reads in flight");
+		RequestCoalescer coalescer = new RequestCoalescer();
+		coalescer.setEnabled(true);
+		GatedService service = new GatedService();
+		
+		List<Caller> callers = new ArrayList<Caller>();
+		callers.add(new Caller(coalescer, service, Command.GET, "hot"));
+		await(service.reads, 1);
+		for(int i=0; i<5; i++)
+			callers.add(new Caller(coalescer, service, Command.GET, "hot"));
+		await(coalescer, 5);
+		callers.add(new Caller(coalescer, service, Command.GET, "cold"));
+		await(service.reads, 2);
+		
+		service.gate.countDown();
+		for(Caller caller : callers) caller.join();
+		
+		assertEquals(service.reads.get(), 2, "expecting one read per key");
+		assertEquals(coalescer.getCoalescedCount(), 5);
+		assertEquals(coalescer.getFlightCount(), 0, "flights should be removed on completion");
+		for(int i=1; i<6; i++)
+			assertSame(callers.get(i).response, callers.get(0).response, "expecting the response of the flight");
+		assertNotSame(callers.get(6).response, callers.get(0).response);
+	}
+	
+	@Test
+	public void testWritesAreObserved () throws Exception {
+		Log.log("Testing RequestCoalescer does not join flights that precede a write");
+		RequestCoalescer coalescer = new RequestCoalescer();
+		coalescer.setEnabled(true);
+		final GatedService service = new GatedService();
+		
+		Caller stale = new Caller(coalescer, service, Command.GET, "hot");
+		await(service.reads, 1);
+		Caller writer = new Caller(coalescer, service, Command.SET, "hot", Command.GET);
+		await(service.reads, 2);
+		Caller reader = new Caller(coalescer, service, Command.GET, "hot");
+		await(coalescer, 1);
+		
+		service.gate.countDown();
+		stale.join(); writer.join(); reader.join();
+		
+		assertEquals(service.writes.get(), 1);
+		assertEquals(service.reads.get(), 2, "read after the write must not join the earlier flight");
+		assertEquals(coalescer.getCoalescedCount(), 1);
+		assertSame(reader.response, writer.response, "expecting the flight after the write");
+		assertNotSame(stale.response, writer.response);
+	}
+	
+	@Test
+	public void testFaultsAndExclusions () throws Exception {
+		Log.log("Testing RequestCoalescer shares faults, and does not coalesce excluded requests");
+		RequestCoalescer coalescer = new RequestCoalescer();
+		coalescer.setEnabled(true);
+		GatedService service = new GatedService();
+		service.fail = true;
+		
+		Caller leader = new Caller(coalescer, service, Command.GET, "hot");
+		await(service.reads, 1);
+		Caller follower = new Caller(coalescer, service, Command.GET, "hot");
+		await(coalescer, 1);
+		Caller random = new Caller(coalescer, service, Command.RANDOMKEY, null);
+		await(service.reads, 2);
+		
+		service.gate.countDown();
+		leader.join(); follower.join(); random.join();
+		
+		assertNotNull(leader.fault);
+		assertSame(follower.fault, leader.fault, "expecting the fault of the flight");
+		assertEquals(coalescer.getCoalescedCount(), 1, "RANDOMKEY is not coalesced");
+		
+		coalescer.setEnabled(false);
+		service.fail = false;
+		for(int i=0; i<3; i++) 
+			new Caller(coalescer, service, Command.GET, "hot").join();
+		assertEquals(service.reads.get(), 5, "disabled coalescer should service all requests");
+	}
+	
+	// ------------------------------------------------------------------------
+	// Helpers
+	// ------------------------------------------------------------------------
+	/** holds the reads until the gate is opened, and services the writes immediately */
+	private static class GatedService implements RequestCoalescer.Service {
+		final CountDownLatch gate = new CountDownLatch(1);
+		final AtomicInteger reads = new AtomicInteger();
+		final AtomicInteger writes = new AtomicInteger();
+		volatile boolean fail = false;
+		
+		public Response service (Command cmd, byte[]... args) throws RedisException {
+			if(!cmd.isReadOnly()) {
+				writes.incrementAndGet();
+				return readResponse(cmd, "+OK\r\n");
+			}
+			reads.incrementAndGet();
+			try {
+				gate.await();
+			}
+			catch (InterruptedException e) { throw new RuntimeException(e); }
+			if(fail) throw new RedisException(cmd, "ERR test");
+			return readResponse(cmd, "$5\r\nvalue\r\n");
+		}
+	}
+	
+	/** issues a request (and an optional subsequent read of the key) on a thread of its own */
+	private static class Caller extends Thread {
+		final RequestCoalescer coalescer; 
+		final RequestCoalescer.Service service;
+		final Command cmd;
+		final String key;
+		final Command then;
+		volatile Response response;
+		volatile Exception fault;
+		
+		Caller (RequestCoalescer coalescer, RequestCoalescer.Service service, Command cmd, String key) {
+			this(coalescer, service, cmd, key, null);
+		}
+		Caller (RequestCoalescer coalescer, RequestCoalescer.Service service, Command cmd, String key, Command then) {
+			this.coalescer = coalescer;
+			this.service = service;
+			this.cmd = cmd;
+			this.key = key;
+			this.then = then;
+			setDaemon(true);
+			start();
+		}
+		@Override
+		public void run () {
+			try {
+				byte[][] args = key == null ? new byte[0][] : new byte[][]{ key.getBytes() };
+				response = coalescer.serviceRequest(service, cmd, args);
+				if(then != null)
+					response = coalescer.serviceRequest(service, then, args);
+			}
+			catch (Exception e) { fault = e; }
+		}
+	}
+	
+	private static void await (AtomicInteger cnt, int expected) throws InterruptedException {
+		for(int i=0; cnt.get() < expected; i++) {
+			assertTrue(i < 500, "timed out waiting for " + expected + " requests");
+			Thread.sleep(10);
+		}
+	}
+	
+	private static void await (RequestCoalescer coalescer, int expected) throws InterruptedException {
+		for(int i=0; coalescer.getCoalescedCount() < expected; i++) {
+			assertTrue(i < 500, "timed out waiting for " + expected + " coalesced requests");
+			Thread.sleep(10);
+		}
+	}
+	
+	private static Response readResponse (Command cmd, String data) {
+		Response response = new SynchProtocol().createResponse(cmd);
+		response.read(new ByteArrayInputStream(data.getBytes()));
+		return response;
+	}
+}
@@ -0,0 +1,141 @@
+/*
+ *   Copyright 2009 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.jredis.ri.alphazero.connection;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.jredis.connector.ConnectionSpec;
+import org.jredis.fake.FakeRedisServer;
+import org.jredis.fake.Fault;
+import org.jredis.protocol.Command;
+import org.jredis.ri.alphazero.JRedisPipeline;
+import org.jredis.ri.alphazero.support.Log;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import static org.testng.Assert.*;
+
+/**
+ * Tests request deadlines of pipelined connections against an in-process {@link FakeRedisServer}
+ * with injected latency and faults.
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, Apr 18, 2010
+ * @since   alpha.0
+ * 
+ */
+@Test(suiteName="core-ri-connection")
+public class RequestTimeoutTest {
+
+	/** request timeout of the pipeline under test */
+	private static final int TIMEOUT_MSEC = 100;
+	
+	private FakeRedisServer server;
+	private JRedisPipeline pipeline;
+	
+	@BeforeClass
+	public void startServer () throws Exception {
+		server = new FakeRedisServer().start();
+		ConnectionSpec spec = DefaultConnectionSpec.newSpec("127.0.0.1", server.getPort(), 0, null);
+		spec.setRequestTimeout(TIMEOUT_MSEC);
+		pipeline = new JRedisPipeline(spec);
+	}
+	
+	@AfterClass
+	public void stopServer () {
+		try {
+			pipeline.quit();
+		}
+		finally {
+			server.stop();
+		}
+	}
+	
+	@BeforeMethod
+	public void resetServer () {
+		server.reset();
+	}
+	
+	@Test
+	public void testExpiredResponseDiscarded () throws Exception {
+		Log.log("Testing pipelined requests expire and their late responses are discarded");
+		RequestStats stats = pipeline.getRequestStats();
+		long timeouts = stats.getTimeouts();
+		long discards = stats.getDiscards();
+		
+		server.setLatency(Command.GET, TIMEOUT_MSEC * 3 / 2, TimeUnit.MILLISECONDS);
+		Future<byte[]> slow = pipeline.get("slow-key");
+		assertExpired(slow);
+		assertEquals(stats.getTimeouts(), timeouts + 1, "expecting one timeout");
+		
+		server.reset();
+		assertFalse(pipeline.ping().get().isError(), "pipeline should be in sync after discard");
+		assertEquals(stats.getDiscards(), discards + 1, "late response should have been discarded");
+		assertEquals(stats.getRecycles(), 0, "connection should not be recycled");
+	}
+	
+	@Test
+	public void testCancel () throws Exception {
+		Log.log("Testing canceled pipelined requests");
+		RequestStats stats = pipeline.getRequestStats();
+		long cancellations = stats.getCancellations();
+		
+		server.setLatency(Command.GET, TIMEOUT_MSEC / 2, TimeUnit.MILLISECONDS);
+		Future<byte[]> canceled = pipeline.get("canceled-key");
+		assertTrue(canceled.cancel(true));
+		assertTrue(canceled.isCancelled());
+		assertEquals(stats.getCancellations(), cancellations + 1, "expecting one cancellation");
+		
+		server.reset();
+		assertFalse(pipeline.ping().get().isError(), "pipeline should be in sync after cancel");
+	}
+	
+	@Test(dependsOnMethods={"testExpiredResponseDiscarded", "testCancel"})
+	public void testStalledConnectionRecycled () throws Exception {
+		Log.log("Testing pipelined connection is recycled when stalled");
+		RequestStats stats = pipeline.getRequestStats();
+		long recycles = stats.getRecycles();
+		
+		server.injectFault(Command.GET, Fault.NO_RESPONSE, 1.0);
+		Future<byte[]> stuck = pipeline.get("stuck-key");
+		assertExpired(stuck);
+		server.reset();
+		
+		// the stall is detected by the next request, once overdue by the request timeout
+		Thread.sleep(TIMEOUT_MSEC * 2);
+		assertFalse(pipeline.ping().get().isError(), "recycled connection should service requests");
+		assertEquals(stats.getRecycles(), recycles + 1, "connection should have been recycled once");
+	}
+	
+	// ------------------------------------------------------------------------
+	// helpers
+	// ------------------------------------------------------------------------
+	private static void assertExpired (Future<?> future) throws InterruptedException {
+		long start = System.nanoTime();
+		try {
+			future.get();
+			fail("expecting ExecutionException");
+		}
+		catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof RequestTimeoutException, "cause should be a RequestTimeoutException");
+		}
+		long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		assertTrue(elapsed < TIMEOUT_MSEC * 10, "request should fail on its deadline but took " + elapsed + " msecs");
+	}
+}
@@ -0,0 +1,211 @@
+/*
+ *   Copyright 2009 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.jredis.ri.alphazero.connection;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import org.jredis.RedisException;
+import org.jredis.connector.ConnectionSpec;
+import org.jredis.connector.RequestTrace;
+import org.jredis.connector.RequestTracer.Stage;
+import org.jredis.fake.FakeRedisServer;
+import org.jredis.protocol.Command;
+import org.jredis.ri.alphazero.JRedisPipeline;
+import org.jredis.ri.alphazero.JRedisService;
+import org.jredis.ri.alphazero.support.Log;
+import org.jredis.ri.alphazero.support.SamplingRequestTracer;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import static org.testng.Assert.*;
+
+/**
+ * Tests the tracing of the request lifecycle stages against an in-process {@link FakeRedisServer}.
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, May 20, 2010
+ * @since   alpha.0
+ * 
+ */
+@Test(suiteName="core-ri-connection")
+public class RequestTracerTest {
+
+	private FakeRedisServer server;
+	
+	@BeforeClass
+	public void startServer () throws Exception {
+		server = new FakeRedisServer().start();
+	}
+	
+	@AfterClass
+	public void stopServer () {
+		server.stop();
+	}
+	
+	@Test
+	public void testPipelineTrace () throws Exception {
+		Log.log("Testing the stages of traced pipelined requests");
+		ConnectionSpec spec = DefaultConnectionSpec.newSpec("127.0.0.1", server.getPort(), 0, null);
+		JRedisPipeline pipeline = new JRedisPipeline(spec);
+		Recorder tracer = new Recorder(1);
+		spec.setRequestTracer(tracer);
+		try {
+			SamplingRequestTracer.setContext("pipeline");
+			Future<?> set = pipeline.set("trace-key", "not-a-number");
+			Future<byte[]> get = pipeline.get("trace-key");
+			Future<Long> incr = pipeline.incr("trace-key");
+			SamplingRequestTracer.setContext(null);
+			
+			set.get();
+			assertEquals(new String(get.get()), "not-a-number");
+			try {
+				incr.get();
+				fail("expecting ExecutionException");
+			}
+			catch (ExecutionException e) { }
+			
+			List<RequestTrace> traces = tracer.await("pipeline", 3);
+			assertEquals(traces.size(), 3, "expecting 3 traced requests");
+			for(RequestTrace trace : traces)
+				assertStages(tracer, trace);
+			
+			assertNull(traceOf(traces, Command.GET).getFault(), "GET should complete without fault");
+			assertTrue(traceOf(traces, Command.INCR).getFault() instanceof RedisException, "INCR fault should be the error response");
+		}
+		finally {
+			SamplingRequestTracer.setContext(null);
+			pipeline.quit();
+		}
+	}
+	
+	@Test
+	public void testServiceTrace () throws Exception {
+		Log.log("Testing the stages of traced pooled requests");
+		ConnectionSpec spec = DefaultConnectionSpec.newSpec("127.0.0.1", server.getPort(), 0, null);
+		JRedisService service = new JRedisService(spec, 2);
+		Recorder tracer = new Recorder(1);
+		spec.setRequestTracer(tracer);
+		try {
+			SamplingRequestTracer.setContext("service");
+			service.set("trace-key", "value");
+			assertEquals(new String(service.get("trace-key")), "value");
+			SamplingRequestTracer.setContext(null);
+			
+			List<RequestTrace> traces = tracer.await("service", 2);
+			assertEquals(traces.size(), 2, "expecting 2 traced requests");
+			for(RequestTrace trace : traces)
+				assertStages(tracer, trace);
+		}
+		finally {
+			SamplingRequestTracer.setContext(null);
+			service.quit();
+		}
+	}
+	
+	@Test
+	public void testSampling () throws Exception {
+		Log.log("Testing requests are traced per the sampling interval");
+		ConnectionSpec spec = DefaultConnectionSpec.newSpec("127.0.0.1", server.getPort(), 0, null);
+		JRedisPipeline pipeline = new JRedisPipeline(spec);
+		Recorder tracer = new Recorder(0);
+		spec.setRequestTracer(tracer);
+		try {
+			SamplingRequestTracer.setContext("sampled");
+			for(int i=0; i<9; i++) pipeline.incr("sampled-counter");
+			pipeline.get("sampled-counter").get();
+			assertEquals(tracer.await("sampled", 1).size(), 0, "sampling is off");
+			
+			tracer.setInterval(3);
+			for(int i=0; i<9; i++) pipeline.incr("sampled-counter").get();
+			assertEquals(tracer.await("sampled", 3).size(), 3, "expecting one of every 3 requests to be traced");
+		}
+		finally {
+			SamplingRequestTracer.setContext(null);
+			pipeline.quit();
+		}
+	}
+	
+	// ------------------------------------------------------------------------
+	// Inner ops
+	// ------------------------------------------------------------------------
+	
+	/** asserts the stages of the trace were reported in order, with non-decreasing times */
+	private static void assertStages (Recorder tracer, RequestTrace trace) {
+		Stage[] stages = Stage.values();
+		List<Stage> reported = tracer.stages.get(trace);
+		assertEquals(reported.size(), stages.length, trace.getCommand() + " stages: " + reported);
+		for(int i=0; i<stages.length; i++) {
+			assertEquals(reported.get(i), stages[i], trace.getCommand() + " stages: " + reported);
+			if(i > 0) 
+				assertTrue(trace.getElapsed(stages[i-1], stages[i]) >= 0, trace.getCommand() + " " + stages[i] + " before " + stages[i-1]);
+		}
+	}
+	
+	private static RequestTrace traceOf (List<RequestTrace> traces, Command cmd) {
+		for(RequestTrace trace : traces)
+			if(trace.getCommand() == cmd) return trace;
+		fail("no trace for " + cmd);
+		return null;
+	}
+	
+	// ------------------------------------------------------------------------
+	// Inner types
+	// ------------------------------------------------------------------------
+	
+	/** records the reported stages of the traces */
+	static class Recorder extends SamplingRequestTracer {
+		final Map<RequestTrace, List<Stage>> stages = new ConcurrentHashMap<RequestTrace, List<Stage>>();
+		final List<RequestTrace> completed = new ArrayList<RequestTrace>();
+		
+		Recorder (int interval) { super(interval); }
+		
+		public void onStage (RequestTrace trace, Stage stage) {
+			List<Stage> reported = stages.get(trace);
+			if(reported == null) {
+				reported = new ArrayList<Stage>();
+				stages.put(trace, reported);
+			}
+			reported.add(stage);
+			if(stage == Stage.COMPLETED) {
+				synchronized (completed) {
+					completed.add(trace);
+					completed.notifyAll();
+				}
+			}
+		}
+		
+		/** @return the completed traces of the context, once cnt have completed or a second has elapsed */
+		List<RequestTrace> await (Object context, int cnt) throws InterruptedException {
+			long deadline = System.currentTimeMillis() + 1000;
+			synchronized (completed) {
+				while(true) {
+					List<RequestTrace> traces = new ArrayList<RequestTrace>();
+					for(RequestTrace trace : completed)
+						if(context.equals(trace.getContext())) traces.add(trace);
+					long remaining = deadline - System.currentTimeMillis();
+					if(traces.size() >= cnt || remaining <= 0) 
+						return traces;
+					completed.wait(remaining);
+				}
+			}
+		}
+	}
+}
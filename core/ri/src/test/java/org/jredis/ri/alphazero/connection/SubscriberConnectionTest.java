@@ -0,0 +1,221 @@
+/*
+ *   Copyright 2009 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+
+package org.jredis.ri.alphazero.connection;
+
+import java.net.ServerSocket;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.jredis.ClientRuntimeException;
+import org.jredis.JRedis;
+import org.jredis.RedisException;
+import org.jredis.Subscriber;
+import org.jredis.connector.ConnectionSpec;
+import org.jredis.fake.FakeRedisServer;
+import org.jredis.protocol.Command;
+import org.jredis.ri.alphazero.JRedisClient;
+import org.jredis.ri.alphazero.JRedisPipeline;
+import org.jredis.ri.alphazero.JRedisSubscriber;
+import org.jredis.ri.alphazero.support.Log;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import static org.testng.Assert.*;
+
+/**
+ * Tests the delivery of published messages to subscriber connections against an in-process 
+ * {@link FakeRedisServer}.
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @since   alpha.0
+ * 
+ */
+@Test(suiteName="core-ri-connection")
+public class SubscriberConnectionTest {
+
+	/** max wait for a message */
+	private static final long WAIT_MSEC = 2000;
+	
+	private FakeRedisServer server;
+	private ConnectionSpec spec;
+	
+	/** a received message */
+	private static final class Received {
+		final String channel;
+		final String pattern;
+		final String message;
+		Received (String channel, String pattern, byte[] message) {
+			this.channel = channel;
+			this.pattern = pattern;
+			this.message = new String(message);
+		}
+	}
+	
+	/** queues the received messages */
+	private static final class Inbox implements Subscriber.Listener {
+		final BlockingQueue<Received> messages = new LinkedBlockingQueue<Received>();
+		public void onMessage (String channel, String pattern, byte[] message) {
+			messages.add(new Received(channel, pattern, message));
+		}
+		Received next () throws InterruptedException {
+			Received received = messages.poll(WAIT_MSEC, TimeUnit.MILLISECONDS);
+			assertNotNull(received, "expecting a message");
+			return received;
+		}
+	}
+	
+	@BeforeClass
+	public void startServer () throws Exception {
+		// a fixed port, so that the server can be restarted
+		ServerSocket socket = new ServerSocket(0);
+		int port = socket.getLocalPort();
+		socket.close();
+		server = new FakeRedisServer(port).start();
+		spec = DefaultConnectionSpec.newSpec("127.0.0.1", port, 0, null);
+		spec.setReconnectCnt(10);
+	}
+	
+	@AfterClass
+	public void stopServer () {
+		server.stop();
+	}
+	
+	@Test
+	public void testSubscribeAndPublish () throws Exception {
+		Log.log("Testing messages published to subscribed channels and patterns are delivered");
+		Subscriber subscriber = new JRedisSubscriber(spec);
+		JRedis publisher = new JRedisClient(spec);
+		try {
+			Inbox inbox = new Inbox();
+			subscriber.addListener(inbox);
+			subscriber.subscribe("news", "weather");
+			subscriber.psubscribe("alerts.*");
+			assertEquals(subscriber.getChannels(), new HashSet<String>(Arrays.asList("news", "weather")));
+			assertEquals(subscriber.getPatterns(), new HashSet<String>(Arrays.asList("alerts.*")));
+			
+			assertEquals(publisher.publish("news", "extra"), 1L, "one subscriber");
+			assertEquals(publisher.publish("alerts.fire", "evacuate"), 1L, "one subscriber");
+			assertEquals(publisher.publish("weather", 42), 1L, "one subscriber");
+			assertEquals(publisher.publish("sports", "score"), 0L, "no subscribers");
+			
+			Received received = inbox.next();
+			assertEquals(received.channel, "news");
+			assertNull(received.pattern, "channel subscriptions have no pattern");
+			assertEquals(received.message, "extra");
+			received = inbox.next();
+			assertEquals(received.channel, "alerts.fire");
+			assertEquals(received.pattern, "alerts.*");
+			assertEquals(received.message, "evacuate");
+			received = inbox.next();
+			assertEquals(received.channel, "weather");
+			assertEquals(received.message, "42");
+			
+			subscriber.unsubscribe("news");
+			assertEquals(subscriber.getChannels(), new HashSet<String>(Arrays.asList("weather")));
+			assertEquals(publisher.publish("news", "extra"), 0L, "unsubscribed");
+			
+			subscriber.unsubscribe();
+			subscriber.punsubscribe();
+			assertTrue(subscriber.getChannels().isEmpty(), "unsubscribed from all channels");
+			assertTrue(subscriber.getPatterns().isEmpty(), "unsubscribed from all patterns");
+			assertEquals(publisher.publish("alerts.fire", "evacuate"), 0L, "unsubscribed");
+			assertTrue(inbox.messages.isEmpty(), "no messages expected");
+		}
+		finally {
+			subscriber.quit();
+			publisher.quit();
+		}
+		
+		boolean didRaiseError = false;
+		try {
+			subscriber.subscribe("news");
+		}
+		catch (ClientRuntimeException e) { didRaiseError = true; }
+		assertTrue(didRaiseError, "should not subscribe once quit");
+	}
+	
+	@Test
+	public void testSlowListener () throws Exception {
+		Log.log("Testing messages are delivered in order to slow listeners through a bounded queue");
+		final int cnt = 50;
+		Subscriber subscriber = new JRedisSubscriber(spec, 1, 2);
+		JRedisPipeline publisher = new JRedisPipeline(spec);
+		try {
+			final Inbox inbox = new Inbox();
+			subscriber.addListener(new Subscriber.Listener() {
+				public void onMessage (String channel, String pattern, byte[] message) {
+					try {
+						Thread.sleep(2);
+					}
+					catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+					inbox.onMessage(channel, pattern, message);
+				}
+			});
+			subscriber.subscribe("work");
+			for(int i=0; i<cnt; i++)
+				publisher.publish("work", i);
+			assertEquals(publisher.publish("work", cnt).get().longValue(), 1L, "one subscriber");
+			for(int i=0; i<=cnt; i++)
+				assertEquals(inbox.next().message, String.valueOf(i), "messages should be delivered in order");
+		}
+		finally {
+			subscriber.quit();
+			publisher.quit();
+		}
+	}
+	
+	@Test(dependsOnMethods={"testSubscribeAndPublish", "testSlowListener"})
+	public void testResubscribeOnReconnect () throws Exception {
+		Log.log("Testing subscriptions are re-issued when the subscriber connection is re-established");
+		SubscriberConnection subscriber = new SubscriberConnection(spec);
+		try {
+			Inbox inbox = new Inbox();
+			subscriber.addMessageListener(inbox);
+			subscriber.serviceSubscription(Command.SUBSCRIBE, "news");
+			subscriber.serviceSubscription(Command.PSUBSCRIBE, "alerts.*");
+			long reconnects = subscriber.getRequestStats().getReconnects();
+			
+			server.stop();
+			server.start();
+			long deadline = System.currentTimeMillis() + WAIT_MSEC;
+			while(subscriber.getPatterns().isEmpty() && System.currentTimeMillis() < deadline)
+				Thread.sleep(10);
+			assertTrue(subscriber.isOpen(), "subscriber should have reconnected");
+			assertEquals(subscriber.getRequestStats().getReconnects(), reconnects + 1, "expecting one reconnect");
+			assertEquals(subscriber.getChannels(), new HashSet<String>(Arrays.asList("news")));
+			assertEquals(subscriber.getPatterns(), new HashSet<String>(Arrays.asList("alerts.*")));
+			
+			JRedis publisher = new JRedisClient(spec);
+			try {
+				assertEquals(publisher.publish("news", "extra"), 1L, "one subscriber");
+				assertEquals(publisher.publish("alerts.flood", "run"), 1L, "one subscriber");
+			}
+			finally {
+				publisher.quit();
+			}
+			assertEquals(inbox.next().message, "extra");
+			assertEquals(inbox.next().message, "run");
+		}
+		catch (RedisException e) { fail("publish ERROR => " + e.getLocalizedMessage(), e); }
+		finally {
+			subscriber.quit();
+		}
+	}
+}
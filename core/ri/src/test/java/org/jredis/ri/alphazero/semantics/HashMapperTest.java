@@ -0,0 +1,228 @@
+/*
+ *   Copyright 2009 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+
+package org.jredis.ri.alphazero.semantics;
+
+import java.io.Serializable;
+import java.util.Map;
+import org.jredis.Codec;
+import org.jredis.JRedis;
+import org.jredis.RedisException;
+import org.jredis.connector.ConnectionSpec;
+import org.jredis.fake.FakeRedisServer;
+import org.jredis.ri.alphazero.JRedisClient;
+import org.jredis.ri.alphazero.connection.DefaultConnectionSpec;
+import org.jredis.ri.alphazero.support.Log;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import static org.jredis.ri.alphazero.support.DefaultCodec.toStr;
+import static org.testng.Assert.*;
+
+/**
+ * Tests the {@link HashMapper} against an in-process {@link FakeRedisServer}.
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @since   alpha.0
+ * 
+ */
+@Test(suiteName="core-ri-semantics")
+public class HashMapperTest {
+
+	private FakeRedisServer server;
+	private JRedis redis;
+	
+	@BeforeClass
+	public void startServer () throws Exception {
+		server = new FakeRedisServer().start();
+		ConnectionSpec spec = DefaultConnectionSpec.newSpec("127.0.0.1", server.getPort(), 0, null);
+		redis = new JRedisClient(spec);
+	}
+	
+	@AfterClass
+	public void stopServer () {
+		try { redis.quit(); }
+		finally { server.stop(); }
+	}
+	
+	@Test
+	public void testSaveLoad () throws RedisException {
+		Log.log("Testing HashMapper save and load of all fields");
+		redis.flushdb();
+		HashMapper<Account> mapper = newMapper();
+		assertTrue(mapper.getFields().contains("id"), "inherited fields are mapped");
+		assertFalse(mapper.getFields().contains("session"), "transient fields are not mapped");
+		
+		Account account = Account.newAccount();
+		mapper.save(redis, "account:1", account);
+		assertEquals(toStr(redis.hget("account:1", "balance")), "100", "numbers are encoded as decimals");
+		assertNull(redis.hget("account:1", "nickname"), "null fields are not written");
+		
+		Account loaded = mapper.load(redis, "account:1");
+		assertEquals(loaded, account, "loaded bean");
+		assertNull(mapper.load(redis, "account:2"), "load of a non-existent hash");
+		
+		account.name = null;
+		mapper.save(redis, "account:1", account);
+		assertNull(redis.hget("account:1", "name"), "saving a null field deletes the hash field");
+	}
+	
+	@Test
+	public void testPartialSaveLoad () throws RedisException {
+		Log.log("Testing HashMapper save and load of specified fields");
+		redis.flushdb();
+		HashMapper<Account> mapper = newMapper();
+		Account account = Account.newAccount();
+		mapper.save(redis, "account:1", account);
+		
+		// the (decimal) field can be updated in place
+		redis.hincrby("account:1", "balance", 50);
+		account.name = "not saved";
+		account.status = Status.CLOSED;
+		mapper.save(redis, "account:1", account, "status");
+		
+		Map<String, byte[]> hash = redis.hgetall("account:1");
+		assertEquals(toStr(hash.get("name")), "alphazero", "fields not specified are not saved");
+		assertEquals(toStr(hash.get("status")), "CLOSED", "enums are encoded by name");
+		
+		Account partial = mapper.load(redis, "account:1", new Account(), "balance", "status");
+		assertEquals(partial.balance, 150, "loaded field");
+		assertEquals(partial.status, Status.CLOSED, "loaded field");
+		assertNull(partial.name, "fields not specified are not loaded");
+		
+		boolean expectedError = false;
+		try { mapper.load(redis, "account:1", new Account(), "no-such-field"); }
+		catch (IllegalArgumentException e) { expectedError = true; }
+		assertTrue(expectedError, "loading a field that is not mapped should raise an IllegalArgumentException");
+	}
+	
+	@Test
+	public void testFieldCodec () throws RedisException {
+		Log.log("Testing HashMapper per field codec");
+		redis.flushdb();
+		HashMapper<Account> mapper = new HashMapper<Account>(Account.class);
+		
+		boolean expectedError = false;
+		try { mapper.toHash(Account.newAccount()); }
+		catch (IllegalArgumentException e) { expectedError = true; }
+		assertTrue(expectedError, "a field with no (default) codec should raise an IllegalArgumentException");
+		
+		expectedError = false;
+		try { mapper.setCodec("balance", new GZipCompressedStringCodec()); }
+		catch (IllegalArgumentException e) { expectedError = true; }
+		assertTrue(expectedError, "a codec that does not support the field type should raise an IllegalArgumentException");
+		
+		mapper.setCodec("location", new LocationCodec());
+		Account account = Account.newAccount();
+		mapper.save(redis, "account:1", account);
+		assertEquals(toStr(redis.hget("account:1", "location")), "1.5,-2.0", "field codec encoding");
+		assertEquals(mapper.load(redis, "account:1"), account, "loaded bean");
+	}
+	
+	@Test
+	public void testInvalidValues () throws RedisException {
+		Log.log("Testing HashMapper load of invalid field values");
+		redis.flushdb();
+		HashMapper<Account> mapper = newMapper();
+		Account account = Account.newAccount();
+		mapper.save(redis, "account:1", account);
+		assertEquals(mapper.load(redis, "account:1", new Account(), "grade").grade, 'A', "loaded character field");
+		
+		redis.hset("account:1", "grade", new byte[0]);
+		boolean expectedError = false;
+		try { mapper.load(redis, "account:1", new Account(), "grade"); }
+		catch (IllegalArgumentException e) { expectedError = true; }
+		assertTrue(expectedError, "loading an empty character should raise an IllegalArgumentException");
+		
+		redis.hset("account:1", "status", "NO_SUCH_STATUS");
+		expectedError = false;
+		try { mapper.load(redis, "account:1", new Account(), "status"); }
+		catch (IllegalArgumentException e) { expectedError = true; }
+		assertTrue(expectedError, "loading an unknown enum constant should raise an IllegalArgumentException");
+	}
+	
+	private static HashMapper<Account> newMapper () {
+		return new HashMapper<Account>(Account.class).setCodec("location", new LocationCodec());
+	}
+	
+	// ------------------------------------------------------------------------
+	// Inner types
+	// ------------------------------------------------------------------------
+	public enum Status { OPEN, CLOSED }
+	
+	public static class Entity {
+		long id;
+	}
+	
+	public static class Account extends Entity {
+		String name;
+		String nickname;
+		int balance;
+		boolean active;
+		char grade;
+		Status status;
+		byte[] token;
+		Location location;
+		transient Object session;
+		
+		static Account newAccount () {
+			Account account = new Account();
+			account.id = 1;
+			account.name = "alphazero";
+			account.balance = 100;
+			account.active = true;
+			account.grade = 'A';
+			account.status = Status.OPEN;
+			account.token = new byte[]{1, 2, 3};
+			account.location = new Location(1.5, -2.0);
+			account.session = new Object();
+			return account;
+		}
+		@Override
+		public boolean equals (Object o) {
+			if(!(o instanceof Account)) return false;
+			Account a = (Account) o;
+			return id == a.id && eq(name, a.name) && eq(nickname, a.nickname) && balance == a.balance 
+				&& active == a.active && grade == a.grade && status == a.status && java.util.Arrays.equals(token, a.token)
+				&& eq(location, a.location);
+		}
+		@Override
+		public int hashCode () { return (int) id; }
+		private static boolean eq (Object a, Object b) { return a == null ? b == null : a.equals(b); }
+	}
+	
+	/** not {@link Serializable} */
+	public static class Location {
+		final double lat, lng;
+		Location (double lat, double lng) { this.lat = lat; this.lng = lng; }
+		@Override
+		public boolean equals (Object o) {
+			return o instanceof Location && ((Location) o).lat == lat && ((Location) o).lng == lng;
+		}
+		@Override
+		public int hashCode () { return (int) (lat * 31 + lng); }
+	}
+	
+	public static class LocationCodec implements Codec<Location> {
+		public Location decode (byte[] bytes) {
+			String[] latlng = toStr(bytes).split(",");
+			return new Location(Double.parseDouble(latlng[0]), Double.parseDouble(latlng[1]));
+		}
+		public byte[] encode (Location location) { return (location.lat + "," + location.lng).getBytes(); }
+		public boolean supports (Class<?> type) { return type == Location.class; }
+	}
+}
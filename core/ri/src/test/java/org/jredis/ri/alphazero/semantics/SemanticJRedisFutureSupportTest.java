@@ -0,0 +1,119 @@
+/*
+ *   Copyright 2009 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+
+package org.jredis.ri.alphazero.semantics;
+
+import java.util.List;
+import java.util.concurrent.Future;
+import org.jredis.ClientRuntimeException;
+import org.jredis.connector.ConnectionSpec;
+import org.jredis.fake.FakeRedisServer;
+import org.jredis.ri.alphazero.JRedisPipeline;
+import org.jredis.ri.alphazero.connection.DefaultConnectionSpec;
+import org.jredis.ri.alphazero.semantics.SemanticJRedisSupportTest.CountingCodec;
+import org.jredis.ri.alphazero.support.Log;
+import org.jredis.semantics.SemanticJRedisFuture;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import static org.testng.Assert.*;
+
+/**
+ * Tests the {@link SemanticJRedisFutureSupport} against an in-process {@link FakeRedisServer}.
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, May 20, 2010
+ * @since   alpha.0
+ * 
+ */
+@Test(suiteName="core-ri-semantics")
+public class SemanticJRedisFutureSupportTest {
+
+	private FakeRedisServer server;
+	private JRedisPipeline redis;
+	
+	@BeforeClass
+	public void startServer () throws Exception {
+		server = new FakeRedisServer().start();
+		ConnectionSpec spec = DefaultConnectionSpec.newSpec("127.0.0.1", server.getPort(), 0, null);
+		redis = new JRedisPipeline(spec);
+	}
+	
+	@AfterClass
+	public void stopServer () {
+		try { redis.quit(); }
+		finally { server.stop(); }
+	}
+	
+	@Test
+	public void testTypedAccess () throws Exception {
+		Log.log("Testing SemanticJRedisFutureSupport typed access");
+		redis.flushdb().get();
+		SemanticJRedisFuture<String> semantic = new SemanticJRedisFutureSupport<String>(redis, String.class);
+		semantic.set("foo", "bar");
+		Future<String> value = semantic.get("foo");
+		Future<String> missing = semantic.get("no-such-key");
+		Future<List<String>> values = semantic.mget("foo", "no-such-key");
+		
+		assertEquals(value.get(), "bar");
+		assertNull(missing.get(), "get of a non-existent key");
+		assertEquals(values.get().size(), 2);
+		assertEquals(values.get().get(0), "bar");
+		assertNull(values.get().get(1), "null values are null elements");
+		
+		semantic.rpush("list", "a");
+		semantic.rpush("list", "b");
+		assertEquals(semantic.lpop("list").get(), "a");
+		assertEquals(semantic.lindex("list", 0).get(), "b");
+		assertEquals(semantic.del("foo").get().longValue(), 1L);
+	}
+	
+	@Test
+	public void testLazyDecoding () throws Exception {
+		Log.log("Testing SemanticJRedisFutureSupport lazy decoding of list results");
+		redis.flushdb().get();
+		CountingCodec codec = new CountingCodec();
+		SemanticJRedisFuture<Integer> semantic = new SemanticJRedisFutureSupport<Integer>(redis, Integer.class);
+		assertTrue(semantic.register(codec, Integer.class));
+		
+		for(int i=0; i<100; i++)
+			semantic.rpush("list", i);
+		
+		List<Integer> range = semantic.lrange("list", 0, -1).get();
+		assertEquals(range.size(), 100);
+		assertEquals(codec.decodeCnt.get(), 0, "nothing is decoded until accessed");
+		for(int i=0; i<10; i++)
+			assertEquals(range.get(i).intValue(), i);
+		assertEquals(codec.decodeCnt.get(), 10, "only accessed elements are decoded");
+		
+		List<Integer> sorted = semantic.sort("list").DESC().LIMIT(0, 5).execDecodedAsynch().get();
+		assertEquals(sorted.size(), 5);
+		assertEquals(sorted.get(0).intValue(), 99);
+	}
+	
+	@Test
+	public void testNoCodec () {
+		Log.log("Testing SemanticJRedisFutureSupport with no registered codec");
+		SemanticJRedisFuture<Long> semantic = new SemanticJRedisFutureSupport<Long>(redis, Long.class);
+		boolean didRaiseError = false;
+		try {
+			semantic.get("no-such-key");
+		}
+		catch (ClientRuntimeException e) { didRaiseError = true; }
+		assertTrue(didRaiseError, "missing codec should be raised on the request");
+	}
+}
@@ -0,0 +1,129 @@
+/*
+ *   Copyright 2009 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.jredis.ri.alphazero.semantics;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.jredis.Codec;
+import org.jredis.JRedis;
+import org.jredis.RedisException;
+import org.jredis.connector.ConnectionSpec;
+import org.jredis.fake.FakeRedisServer;
+import org.jredis.ri.alphazero.JRedisClient;
+import org.jredis.ri.alphazero.connection.DefaultConnectionSpec;
+import org.jredis.ri.alphazero.support.Log;
+import org.jredis.semantics.SemanticJRedis;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import static org.testng.Assert.*;
+
+/**
+ * Tests the {@link SemanticJRedisSupport} and its {@link DecodedList} results against 
+ * an in-process {@link FakeRedisServer}.
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @since   alpha.0
+ * 
+ */
+@Test(suiteName="core-ri-semantics")
+public class SemanticJRedisSupportTest {
+
+	private FakeRedisServer server;
+	private JRedis redis;
+	
+	@BeforeClass
+	public void startServer () throws Exception {
+		server = new FakeRedisServer().start();
+		ConnectionSpec spec = DefaultConnectionSpec.newSpec("127.0.0.1", server.getPort(), 0, null);
+		redis = new JRedisClient(spec);
+	}
+	
+	@AfterClass
+	public void stopServer () {
+		try { redis.quit(); }
+		finally { server.stop(); }
+	}
+	
+	@Test
+	public void testTypedAccess () throws RedisException {
+		Log.log("Testing SemanticJRedisSupport typed access");
+		redis.flushdb();
+		SemanticJRedis<String> semantic = new SemanticJRedisSupport<String>(redis, String.class);
+		semantic.set("foo", "bar");
+		assertEquals(semantic.get("foo"), "bar");
+		assertNull(semantic.get("no-such-key"), "get of a non-existent key");
+		
+		List<String> values = semantic.mget("foo", "no-such-key");
+		assertEquals(values.size(), 2);
+		assertEquals(values.get(0), "bar");
+		assertNull(values.get(1), "null values are null elements");
+		
+		assertTrue(semantic.sadd("set", "a"));
+		assertTrue(semantic.smembers("set").contains("a"));
+		assertTrue(semantic.del("foo"));
+		assertFalse(semantic.del("foo"), "del of a non-existent key");
+	}
+	
+	@Test
+	public void testLazyDecoding () throws RedisException {
+		Log.log("Testing SemanticJRedisSupport lazy decoding of list results");
+		redis.flushdb();
+		CountingCodec codec = new CountingCodec();
+		SemanticJRedis<Integer> semantic = new SemanticJRedisSupport<Integer>(redis, Integer.class);
+		assertTrue(semantic.register(codec, Integer.class));
+		
+		for(int i=0; i<100; i++)
+			semantic.rpush("list", i);
+		
+		List<Integer> range = semantic.lrange("list", 0, -1);
+		assertEquals(range.size(), 100);
+		assertEquals(codec.decodeCnt.get(), 0, "nothing is decoded until accessed");
+		
+		for(int i=0; i<10; i++)
+			assertEquals(range.get(i).intValue(), i);
+		assertEquals(range.get(0).intValue(), 0);
+		assertEquals(codec.decodeCnt.get(), 10, "only accessed elements are decoded, and only once");
+		assertEquals(((DecodedList<Integer>) range).getDecodedCount(), 10);
+		
+		List<Integer> sorted = semantic.sort("list").DESC().LIMIT(0, 5).execDecoded();
+		assertEquals(sorted.size(), 5);
+		assertEquals(sorted.get(0).intValue(), 99);
+	}
+	
+	@Test(expectedExceptions=org.jredis.ClientRuntimeException.class)
+	public void testNoCodec () throws RedisException {
+		Log.log("Testing SemanticJRedisSupport with no registered codec");
+		// raised even if the key does not exist, i.e. regardless of the data
+		new SemanticJRedisSupport<Long>(redis, Long.class).get("no-such-key");
+	}
+	
+	/** decimal codec for integers that counts its decodes */
+	static final class CountingCodec implements Codec<Integer> {
+		final AtomicInteger decodeCnt = new AtomicInteger();
+		public Integer decode (byte[] bytes) {
+			decodeCnt.incrementAndGet();
+			return Integer.valueOf(new String(bytes));
+		}
+		public byte[] encode (Integer value) {
+			return value.toString().getBytes();
+		}
+		public boolean supports (Class<?> type) {
+			return type.equals(Integer.class);
+		}
+	}
+}
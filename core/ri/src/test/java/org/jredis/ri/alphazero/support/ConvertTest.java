@@ -34,6 +34,9 @@ package org.jredis.ri.alphazero.support;
 
 
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
 import org.testng.annotations.Test;
 import static org.testng.Assert.*;
 
@@ -287,4 +290,74 @@ public class ConvertTest {
 				assertEquals( data[j], javadata[j], "for <"+i+"> byte @ ["+j+"]");
 		}		
 	}
+
+	@Test
+	public void testLongAndDoubleToBytes() {
+		Log.log("Testing long and double to bytes conversion ...");
+		long[] longs = {0, 1, -1, 9, 10, -10, Convert.INT_P_65535, Convert.INT_P_65535+1, Integer.MAX_VALUE, 
+				Integer.MIN_VALUE, 1234567890123456L, -1234567890123456L, Long.MAX_VALUE, Long.MIN_VALUE};
+		for(long n : longs)
+			assertEquals(new String(Convert.toBytes(n)), Long.toString(n), "for <"+n+">");
+
+		// integral doubles are written as long digits
+		assertEquals(new String(Convert.toBytes(2.0d)), "2");
+		assertEquals(new String(Convert.toBytes(-65536.0d)), "-65536");
+		assertEquals(new String(Convert.toBytes(1e15)), "1000000000000000");
+		// and everything else must round-trip
+		double[] doubles = {0.5, -12.75, 0.1, 1.0/3, 1e300, -1e-300, 9007199254740993.0d, Double.MAX_VALUE, Double.MIN_VALUE};
+		for(double d : doubles)
+			assertEquals(Double.parseDouble(new String(Convert.toBytes(d))), d, "for <"+d+">");
+	}
+	
+	@Test
+	public void testWriteTo() throws IOException {
+		Log.log("Testing writing number digits to streams ...");
+		long[] longs = {0, 7, Convert.INT_P_65535, Convert.INT_P_65535+1, -1, Long.MAX_VALUE, Long.MIN_VALUE};
+		for(long n : longs){
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			out.write('$');
+			Convert.writeTo(out, n);
+			assertEquals(out.toString(), "$" + n, "for <"+n+">");
+		}
+	}
+	
+	@Test
+	public void testToDouble() {
+		Log.log("Testing bytes to double conversion ...");
+		String[] reps = {"0", "-0", "+0", "1", "-1", "0.5", "-12.75", "0.1", "0.05", "3.14159", "00012.500", ".5", "5.", 
+				"123456789012345", "1234567890.12345", "0.333333333333333", "1e3", "1.5E-3", "-2.5e+10", "1e22", "1e-22",
+				"0.1000000000000000055511151231257827", "9007199254740993", "1e300", "4.9e-324", "1.7976931348623157E308",
+				"12345678901234567890", "0.30000000000000004"};
+		for(String rep : reps){
+			double expected = Double.parseDouble(rep);
+			double actual = Convert.toDouble(rep.getBytes());
+			assertEquals(Double.doubleToLongBits(actual), Double.doubleToLongBits(expected), "for <"+rep+">");
+		}
+		
+		// redis representations of special values
+		assertEquals(Convert.toDouble("inf".getBytes()), Double.POSITIVE_INFINITY);
+		assertEquals(Convert.toDouble("-inf".getBytes()), Double.NEGATIVE_INFINITY);
+		assertEquals(Convert.toDouble("+Infinity".getBytes()), Double.POSITIVE_INFINITY);
+		assertTrue(Double.isNaN(Convert.toDouble("nan".getBytes())));
+		
+		// offsets
+		byte[] data = "$-1.25\r\n".getBytes();
+		assertEquals(Convert.toDouble(data, 1, 5), -1.25d);
+		
+		// round trip
+		Random random = new Random(1);
+		for(int i=0; i<10000; i++) {
+			double d = (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(20) - 10);
+			assertEquals(Convert.toDouble(Convert.toBytes(d)), d);
+		}
+		
+		// garbage
+		String[] garbage = {"", "-", ".", "2be?", "1.2.3", "1e", "1e+", "infinite", "nano", "--1"};
+		for(String rep : garbage){
+			boolean inputChecking = false;
+			try { Convert.toDouble(rep.getBytes()); }
+			catch (IllegalArgumentException e){ inputChecking = true; }
+			finally { assertTrue(inputChecking, "for <"+rep+">"); }
+		}
+	}
 }
@@ -0,0 +1,130 @@
+/*
+ *   Copyright 2009 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.jredis.ri.alphazero.support;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.jredis.RedisException;
+import org.jredis.RedisInfo;
+import org.jredis.connector.Connection;
+import org.jredis.fake.FakeRedisServer;
+import org.jredis.protocol.Command;
+import org.jredis.ri.alphazero.connection.DefaultConnectionSpec;
+import org.jredis.ri.alphazero.connection.SynchConnection;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import static org.testng.Assert.*;
+
+/**
+ * Tests {@link InfoSnapshot} and {@link InfoMonitor}, the latter against an in-process {@link FakeRedisServer}.
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @since   alpha.0
+ * 
+ */
+@Test(suiteName="support-tests")
+public class InfoMonitorTest {
+
+	private FakeRedisServer server;
+	private Connection connection;
+	
+	@BeforeClass
+	public void startServer () throws Exception {
+		server = new FakeRedisServer().start();
+		connection = new SynchConnection(DefaultConnectionSpec.newSpec("127.0.0.1", server.getPort(), 0, null), false);
+	}
+	
+	@AfterClass
+	public void stopServer () throws RedisException {
+		try { connection.serviceRequest(Command.QUIT); }
+		finally { server.stop(); }
+	}
+	
+	@Test
+	public void testSnapshot () {
+		Log.log("Testing InfoSnapshot typed access");
+		String info = "# Server\r\nredis_version:2.0.0\r\nused_memory:1024\r\nused_memory_human:1.00K\r\n\r\n# Keyspace\r\ndb0:keys=1,expires=0\r\nrole:master";
+		InfoSnapshot snapshot = new InfoSnapshot(info.getBytes(), 0);
+		assertEquals(snapshot.getString(RedisInfo.redis_version), "2.0.0");
+		assertEquals(snapshot.getLong(RedisInfo.used_memory), 1024);
+		assertEquals(snapshot.getDouble(RedisInfo.used_memory), 1024.0);
+		assertEquals(snapshot.getString(RedisInfo.role), "master", "last line need not be terminated");
+		assertFalse(snapshot.has(RedisInfo.connected_clients));
+		assertNull(snapshot.getString(RedisInfo.connected_clients));
+		try {
+			snapshot.getLong(RedisInfo.connected_clients);
+			fail("getLong of an absent field");
+		}
+		catch (IllegalArgumentException expected) { }
+		try {
+			snapshot.getLong(RedisInfo.used_memory_human);
+			fail("getLong of a non-numeric field");
+		}
+		catch (IllegalArgumentException expected) { }
+		
+		InfoSnapshot later = new InfoSnapshot("used_memory:3072\r\n".getBytes(), 2000000000L);
+		assertEquals(later.getDelta(RedisInfo.used_memory, snapshot), 2048);
+		assertEquals(later.getRate(RedisInfo.used_memory, snapshot), 1024.0);
+	}
+	
+	@Test
+	public void testPoll () throws RedisException, InterruptedException {
+		Log.log("Testing InfoMonitor poll and rates");
+		InfoMonitor monitor = new InfoMonitor(connection, 1, TimeUnit.SECONDS);
+		final AtomicInteger withPrevious = new AtomicInteger();
+		monitor.addListener(new InfoMonitor.Listener() {
+			public void onInfo (InfoMonitor m, InfoSnapshot current, InfoSnapshot previous) {
+				if(null != previous) withPrevious.incrementAndGet();
+			}
+		});
+		
+		InfoSnapshot first = monitor.poll();
+		assertTrue(Double.isNaN(monitor.getCommandRate()), "no rate for a single snapshot");
+		for(int i=0; i<100; i++)
+			connection.serviceRequest(Command.PING);
+		Thread.sleep(20);
+		InfoSnapshot second = monitor.poll();
+		
+		assertSame(monitor.getPrevious(), first);
+		assertSame(monitor.getLatest(), second);
+		assertTrue(second.getDelta(RedisInfo.total_commands_processed, first) >= 100, "commands processed between polls");
+		assertTrue(monitor.getCommandRate() > 0, "command rate");
+		assertEquals(withPrevious.get(), 1, "listener notified of the previous snapshot");
+	}
+	
+	@Test
+	public void testStartStop () throws InterruptedException {
+		Log.log("Testing InfoMonitor polling thread");
+		InfoMonitor monitor = new InfoMonitor(connection, 10, TimeUnit.MILLISECONDS);
+		final CountDownLatch polls = new CountDownLatch(3);
+		monitor.addListener(new InfoMonitor.Listener() {
+			public void onInfo (InfoMonitor m, InfoSnapshot current, InfoSnapshot previous) {
+				polls.countDown();
+			}
+		});
+		monitor.start();
+		try {
+			assertTrue(polls.await(5, TimeUnit.SECONDS), "monitor polls at its interval");
+		}
+		finally {
+			monitor.stop();
+		}
+		assertTrue(monitor.getConnectionRate() >= 0, "connection rate");
+	}
+}
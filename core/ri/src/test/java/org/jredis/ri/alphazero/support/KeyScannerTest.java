@@ -0,0 +1,118 @@
+/*
+ *   Copyright 2009 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+
+package org.jredis.ri.alphazero.support;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import org.jredis.RedisException;
+import org.jredis.connector.Connection;
+import org.jredis.fake.FakeRedisServer;
+import org.jredis.protocol.Command;
+import org.jredis.ri.alphazero.connection.DefaultConnectionSpec;
+import org.jredis.ri.alphazero.connection.SynchConnection;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import static org.testng.Assert.*;
+
+/**
+ * Tests {@link KeyScanner} against in-process {@link FakeRedisServer}s.
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @since   alpha.0
+ * 
+ */
+@Test(suiteName="support-tests")
+public class KeyScannerTest {
+
+	private List<FakeRedisServer> servers = new ArrayList<FakeRedisServer>();
+	private List<Connection> connections = new ArrayList<Connection>();
+	
+	@BeforeClass
+	public void startServers () throws Exception {
+		for(int i=0; i<2; i++){
+			FakeRedisServer server = new FakeRedisServer().start();
+			servers.add(server);
+			connections.add(new SynchConnection(DefaultConnectionSpec.newSpec("127.0.0.1", server.getPort(), 0, null), false));
+		}
+	}
+	
+	@AfterClass
+	public void stopServers () throws RedisException {
+		for(Connection conn : connections)
+			conn.serviceRequest(Command.QUIT);
+		for(FakeRedisServer server : servers)
+			server.stop();
+	}
+	
+	@Test
+	public void testScanNodes () throws RedisException {
+		Log.log("Testing KeyScanner scan of the keys of multiple nodes");
+		Set<String> expected = new HashSet<String>();
+		for(int n=0; n<connections.size(); n++){
+			connections.get(n).serviceRequest(Command.FLUSHDB);
+			for(int i=0; i<50; i++){
+				// keys are not delimited by spaces, as are those of KEYS
+				String key = "node-" + n + ":" + (i % 2 == 0 ? i : " " + i);
+				set(connections.get(n), key);
+				expected.add(key);
+			}
+		}
+		
+		Set<String> scanned = new HashSet<String>();
+		for(Iterator<String> it = KeyScanner.scan(connections, null, 7); it.hasNext();)
+			assertTrue(scanned.add(it.next()), "keys should be returned once");
+		assertEquals(scanned, expected, "keys of all the nodes");
+		
+		scanned.clear();
+		for(Iterator<String> it = KeyScanner.scan(connections, "node-1:1*", 7); it.hasNext();)
+			scanned.add(it.next());
+		assertEquals(scanned.size(), 5, "keys matching the pattern");
+	}
+	
+	@Test
+	public void testScanWhileModified () throws RedisException {
+		Log.log("Testing KeyScanner returns the keys that exist for the duration of the scan");
+		Connection conn = connections.get(0);
+		conn.serviceRequest(Command.FLUSHDB);
+		for(int i=0; i<100; i++)
+			set(conn, "stable:" + i);
+		
+		Set<String> scanned = new HashSet<String>();
+		KeyScanner scanner = KeyScanner.scan(conn, null, 10);
+		for(int i=0; scanner.hasNext(); i++){
+			scanned.add(scanner.next());
+			if(i < 50) set(conn, "added:" + i);
+		}
+		for(int i=0; i<100; i++)
+			assertTrue(scanned.contains("stable:" + i), "keys that exist for the duration of the scan should be returned");
+		
+		boolean expectedError = false;
+		try { KeyScanner.scan(conn, null, 0); }
+		catch (IllegalArgumentException e) { expectedError = true; }
+		assertTrue(expectedError, "invalid count should raise an IllegalArgumentException");
+	}
+	
+	/** keys are set with (multi-bulk) MSET, as they may include spaces */
+	private static void set (Connection conn, String key) throws RedisException {
+		conn.serviceRequest(Command.MSET, key.getBytes(), key.getBytes());
+	}
+}
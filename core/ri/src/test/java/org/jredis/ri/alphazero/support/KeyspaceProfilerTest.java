@@ -0,0 +1,159 @@
+/*
+ *   Copyright 2009 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.jredis.ri.alphazero.support;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.Future;
+import org.jredis.JRedisFuture;
+import org.jredis.ObjectInfo;
+import org.jredis.RedisType;
+import org.jredis.connector.ConnectionSpec;
+import org.jredis.fake.FakeRedisServer;
+import org.jredis.ri.alphazero.JRedisPipeline;
+import org.jredis.ri.alphazero.connection.DefaultConnectionSpec;
+import org.jredis.ri.alphazero.support.KeyspaceProfiler.Estimate;
+import org.jredis.ri.alphazero.support.KeyspaceProfiler.Profile;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import static org.testng.Assert.*;
+
+/**
+ * Tests {@link KeyspaceProfiler} against an in-process {@link FakeRedisServer}.
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @since   alpha.0
+ * 
+ */
+@Test(suiteName="support-tests")
+public class KeyspaceProfilerTest {
+
+	private FakeRedisServer server;
+	private JRedisPipeline pipeline;
+	
+	@BeforeClass
+	public void startServer () throws Exception {
+		server = new FakeRedisServer().start();
+		ConnectionSpec spec = DefaultConnectionSpec.newSpec("127.0.0.1", server.getPort(), 0, null);
+		pipeline = new JRedisPipeline(spec);
+		
+		byte[] large = new byte[100];
+		byte[] small = new byte[10];
+		byte[] element = new byte[20];
+		Future<?> last = null;
+		for(int i=0; i<300; i++)
+			pipeline.set("user:" + i, large);
+		for(int i=0; i<100; i++){
+			pipeline.set("session:" + i, small);
+			pipeline.expire("session:" + i, 3600);
+		}
+		for(int i=0; i<50; i++)
+			for(int j=0; j<10; j++)
+				last = pipeline.rpush("feed:" + i + ":items", element);
+		last.get();
+	}
+	
+	@AfterClass
+	public void stopServer () {
+		try { pipeline.quit(); }
+		finally { server.stop(); }
+	}
+	
+	@Test
+	public void testObjectInfo () {
+		Log.log("Testing ObjectInfo parsing of the DEBUG OBJECT formats");
+		ObjectInfo info = ObjectInfo.valueOf("Key at:0x100d60 refcount:1, value at:0x100d70 refcount:2 encoding:0");
+		assertEquals(info.getKeyAddress(), "0x100d60");
+		assertEquals(info.getValueRefCount(), 2);
+		assertEquals(info.getEncodingName(), "raw");
+		assertEquals(info.getSerializedLength(), -1);
+		
+		info = ObjectInfo.valueOf("Value at:0x7f00 refcount:1 encoding:ziplist serializedlength:29 lru:1234 lru_seconds_idle:3");
+		assertNull(info.getKeyAddress());
+		assertEquals(info.getValueAddress(), "0x7f00");
+		assertEquals(info.getEncodingName(), "ziplist");
+		assertEquals(info.getEncoding(), 5);
+		assertEquals(info.getSerializedLength(), 29);
+	}
+	
+	@Test
+	public void testProfile () throws Exception {
+		Log.log("Testing KeyspaceProfiler estimates");
+		KeyspaceProfiler profiler = new KeyspaceProfiler(pipeline).addGroup("feeds", "feed:.*");
+		Profile profile = profiler.profile(2000);
+		Log.log("%s", profile);
+		
+		assertEquals(profile.getDbSize(), 450);
+		assertEquals(profile.getSampleCount(), 2000);
+		assertEquals(profile.getUnsizedCount(), 0);
+		
+		List<Estimate> top = profile.top(2);
+		assertEquals(top.size(), 2);
+		assertEquals(top.get(0).getName(), "user:#", "largest group");
+		assertEquals(top.get(1).getName(), "feeds", "second largest group, per the group rule");
+		
+		for(Estimate estimate : profile.getGroups()) {
+			double keys = estimate.getName().equals("user:#") ? 300 : estimate.getName().equals("feeds") ? 50 : 100;
+			double size = estimate.getName().equals("user:#") ? 30000 : estimate.getName().equals("feeds") ? 10000 : 1000;
+			assertEquals(estimate.getKeyCount(), keys, 3 * estimate.getKeyCountBound(), "key count of " + estimate.getName());
+			assertEquals(estimate.getSize(), size, 3 * estimate.getSizeBound(), "size of " + estimate.getName());
+			assertEquals(estimate.getVolatileRatio(), estimate.getName().equals("session:#") ? 1.0 : 0.0, "volatile ratio of " + estimate.getName());
+		}
+		assertEquals(profile.getEncodings().get(0).getName(), "string/raw");
+	}
+	
+	@Test
+	public void testVanishingKeys () throws Exception {
+		Log.log("Testing KeyspaceProfiler drops the samples of keys deleted mid-batch");
+		ConnectionSpec spec = DefaultConnectionSpec.newSpec("127.0.0.1", server.getPort(), 1, null);
+		final JRedisPipeline db1 = new JRedisPipeline(spec);
+		try {
+			Future<?> last = null;
+			for(int i=0; i<10; i++){
+				db1.set("kept:" + i, new byte[10]);
+				last = db1.set("gone:" + i, new byte[10]);
+			}
+			last.get();
+			
+			/* deletes the gone:# keys between their RANDOMKEY and their TYPE */
+			JRedisFuture vanishing = (JRedisFuture) Proxy.newProxyInstance(JRedisFuture.class.getClassLoader(), new Class<?>[]{JRedisFuture.class}, new InvocationHandler() {
+				public Object invoke (Object proxy, Method method, Object[] args) throws Throwable {
+					if(method.getName().equals("type") && ((String) args[0]).startsWith("gone:"))
+						db1.del((String) args[0]).get();
+					try {
+						return method.invoke(db1, args);
+					}
+					catch (InvocationTargetException e) { throw e.getCause(); }
+				}
+			});
+			assertEquals(db1.type("no-such-key").get(), RedisType.NONE);
+			
+			Profile profile = new KeyspaceProfiler(vanishing).setBatchSize(100).profile(100);
+			Log.log("%s", profile);
+			assertEquals(profile.getDbSize(), 20);
+			assertTrue(profile.getSampleCount() < 100, "samples of deleted keys are dropped");
+			assertTrue(profile.getSampleCount() > 0, "samples of kept keys are counted");
+			assertEquals(profile.getGroups().size(), 1);
+			assertEquals(profile.getGroups().get(0).getName(), "kept:#");
+		}
+		finally { db1.quit(); }
+	}
+}
@@ -21,6 +21,7 @@ import java.util.Set;
 import org.jredis.ClientRuntimeException;
 import org.jredis.NotSupportedException;
 import org.jredis.ProviderException;
+import org.jredis.cluster.support.HashTags;
 
 /**
  * Represent (a potentially active) model of a cluster.  
@@ -78,6 +79,9 @@ public interface ClusterModel {
 	/**
 	 * Maps the given key to a specified node of the cluster, by returning its
 	 * {@link ClusterNodeSpec}.
+	 * <p>
+	 * If {@link ClusterSpec#getHashTagging()} is true, keys with identical hash
+	 * tags (per {@link HashTags}) must be mapped to the same node.
 	 * @param key
 	 * @return
 	 */
@@ -183,6 +187,8 @@ public interface ClusterModel {
 		final private Set<Listener> listeners = new HashSet<Listener>();
 		/**  */
 		final protected Object configLock = new Object();	
+		/** per {@link ClusterSpec#getHashTagging()} at instantiation of the model */
+		final private boolean hashTagging;
 
 
 		// --------------------------------------------------------------------
@@ -218,6 +224,7 @@ public interface ClusterModel {
 				throw new IllegalArgumentException("clusterSpec has no ClusterNodeSpecs and this model can not be reconfigured.");
 			
 			this.clusterSpec = clusterSpec;
+			this.hashTagging = clusterSpec.getHashTagging();
 			initialize();
 		}
 
@@ -256,6 +263,15 @@ public interface ClusterModel {
 			}
 		}
 
+		/**
+		 * Maps the key's hash tag (if any and if hash tagging is enabled for the cluster) or 
+		 * otherwise the key itself, using {@link Support#getNodeForHashKey(byte[])}.
+		 * @see org.jredis.cluster.ClusterModel#getNodeForKey(byte[]) 
+		 */
+		final public ClusterNodeSpec getNodeForKey (byte[] key) {
+			return getNodeForHashKey(hashTagging ? HashTags.getHashKey(key) : key);
+		}
+
 		/* (non-Javadoc) @see org.jredis.cluster.ClusterModel#getSpec() */
 		final public ClusterSpec getSpec () {
 			return clusterSpec;
@@ -283,6 +299,12 @@ public interface ClusterModel {
 		// --------------------------------------------------------------------
 		// Extension Points
 		// --------------------------------------------------------------------
+		/**
+		 * The meat of the model: maps the hash key to a node.
+		 * @param hashKey the key, or its hash tag, per {@link ClusterModel#getNodeForKey(byte[])}
+		 * @return the node the hash key is mapped to
+		 */
+		abstract protected ClusterNodeSpec getNodeForHashKey(byte[] hashKey);
 		/**
 		 * @param newNode
 		 * @return
@@ -16,6 +16,10 @@
 
 package org.jredis.cluster;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 import org.jredis.connector.ConnectionSpec;
 
@@ -61,6 +65,31 @@ public interface ClusterNodeSpec {
 	 */
 	public String getKeyForReplicationInstance (int rangeReplicationIndex);
 	
+	/**
+	 * The relative capacity of this node in the cluster.  Cluster models that
+	 * distribute the key space (such as Consistent Hashing) are expected to assign
+	 * each node a share of the key space proportional to its weight relative to the
+	 * total weight of all nodes in the cluster.  
+	 * <p>
+	 * Weight is not part of the identity of the node and is not considered 
+	 * in {@link Object#equals(Object)}.
+	 * @return the (positive) weight of this node.  
+	 */
+	public int getWeight ();
+	
+	/**
+	 * A node is a master server, as specified by {@link ClusterNodeSpec#getConnectionSpec()}, and
+	 * optionally, a set of replicas (slaves) of the master.  Replicas do not own any share of the
+	 * key space and may only be used to service read-only requests for keys mapped to this node.
+	 * <p>
+	 * Replicas are not part of the identity of the node and are not considered 
+	 * in {@link Object#equals(Object)}.
+	 * @return the (unmodifiable) list of {@link ConnectionSpec}s of the replicas of this node. 
+	 * Empty if the node has no replicas.
+	 * @see ReplicaRoutingPolicy
+	 */
+	public List<ConnectionSpec> getReplicaSpecs ();
+	
 	// ------------------------------------------------------------------------
 	// Reference Implementation 
 	// ------------------------------------------------------------------------
@@ -83,19 +112,59 @@ public interface ClusterNodeSpec {
 		/** Cluster wide unique identifier */
 		final protected String id;
 		
+		/** relative capacity of this node */
+		final protected int weight;
+		
+		/** {@link ConnectionSpec}s of the replicas of this node */
+		final protected List<ConnectionSpec> replicaSpecs;
+		
+		/** default weight of a node is 1 */
+		public static final int DEFAULT_WEIGHT = 1;
+		
 		// ------------------------------------------------------------------------
 		// Constructor(s)
 		// ------------------------------------------------------------------------
 		
 		/**
+		 * Instantiates a node spec with {@link Support#DEFAULT_WEIGHT}.
 		 * @param connSpec
 		 * @throws IllegalArgumentException 
 		 */
 		public Support(ConnectionSpec connSpec){
+			this(connSpec, DEFAULT_WEIGHT);
+		}
+		
+		/**
+		 * @param connSpec
+		 * @param weight relative capacity of the node; must be positive.
+		 * @throws IllegalArgumentException 
+		 */
+		public Support(ConnectionSpec connSpec, int weight){
+			this(connSpec, weight, null);
+		}
+		
+		/**
+		 * @param connSpec of the master server of the node
+		 * @param weight relative capacity of the node; must be positive.
+		 * @param replicaSpecs {@link ConnectionSpec}s of the replicas of the master.  May be null.
+		 * @throws IllegalArgumentException 
+		 */
+		public Support(ConnectionSpec connSpec, int weight, Collection<ConnectionSpec> replicaSpecs){
 			if(null == connSpec)
 				throw new IllegalArgumentException("ConnectionSpec is null");
+			if(weight < 1)
+				throw new IllegalArgumentException("weight must be a positive number: " + weight);
+			
+			List<ConnectionSpec> replicas = new ArrayList<ConnectionSpec>();
+			if(null != replicaSpecs) {
+				if(replicaSpecs.contains(null)) 
+					throw new IllegalArgumentException("replica ConnectionSpecs include a null member");
+				replicas.addAll(replicaSpecs);
+			}
 			
 			this.connSpec = connSpec;
+			this.weight = weight;
+			this.replicaSpecs = Collections.unmodifiableList(replicas);
 			this.id = generateId();
 		}
 		// ------------------------------------------------------------------------
@@ -110,6 +179,14 @@ public interface ClusterNodeSpec {
 //        @Override
         final public String getId () { return this.id;}
         
+		/* (non-Javadoc) @see org.jredis.cluster.ClusterNodeSpec#getWeight() */
+//        @Override
+        final public int getWeight () { return this.weight;}
+        
+		/* (non-Javadoc) @see org.jredis.cluster.ClusterNodeSpec#getReplicaSpecs() */
+//        @Override
+        final public List<ConnectionSpec> getReplicaSpecs () { return this.replicaSpecs;}
+        
 		// ------------------------------------------------------------------------
 		// Identity
 		// ------------------------------------------------------------------------
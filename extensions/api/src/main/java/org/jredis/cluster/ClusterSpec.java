@@ -46,6 +46,35 @@ public interface ClusterSpec {
 	public ClusterType getType ();
 	public ClusterSpec setType (ClusterType clusterType);
 	
+	/**
+	 * @return the policy for routing read-only requests to the replicas of the cluster nodes.
+	 * @see ClusterNodeSpec#getReplicaSpecs()
+	 */
+	public ReplicaRoutingPolicy getReplicaRoutingPolicy ();
+	
+	/**
+	 * @param policy
+	 * @return this {@link ClusterSpec}
+	 * @throws IllegalArgumentException if policy is null
+	 */
+	public ClusterSpec setReplicaRoutingPolicy (ReplicaRoutingPolicy policy);
+	
+	/**
+	 * @return true if keys are mapped to nodes using their hash tags, if any.
+	 * @see org.jredis.cluster.support.HashTags
+	 */
+	public boolean getHashTagging ();
+	
+	/**
+	 * Enables (or disables) mapping keys to nodes by their hash tags, so that keys 
+	 * sharing a tag are stored on the same node.  Must be set before the
+	 * {@link ClusterModel} for this spec is instantiated.  Disabled by default.
+	 * @param flag
+	 * @return this {@link ClusterSpec}
+	 * @see org.jredis.cluster.support.HashTags
+	 */
+	public ClusterSpec setHashTagging (boolean flag);
+	
 	// ------------------------------------------------------------------------
 	// Membership
 	// ------------------------------------------------------------------------
@@ -98,6 +127,12 @@ public interface ClusterSpec {
 //		final protected ClusterModel distributionStrategy;
 		private ClusterType type;
 		
+		/** read-only requests are serviced by masters unless specified otherwise */
+		private ReplicaRoutingPolicy replicaRoutingPolicy = ReplicaRoutingPolicy.MASTER_ONLY;
+		
+		/** keys are mapped by all their bytes unless specified otherwise */
+		private boolean hashTagging = false;
+		
 		/**  */
 		final protected Set<ClusterNodeSpec> nodeSpecs = new HashSet<ClusterNodeSpec>();
 		
@@ -114,6 +149,16 @@ public interface ClusterSpec {
 		public ClusterType getType() { return type; }
 		public ClusterSpec setType(ClusterType type) { this.type = type; return this; }
 		
+		public ReplicaRoutingPolicy getReplicaRoutingPolicy () { return replicaRoutingPolicy; }
+		public ClusterSpec setReplicaRoutingPolicy (ReplicaRoutingPolicy policy) {
+			if(null == policy) throw new IllegalArgumentException("null policy");
+			this.replicaRoutingPolicy = policy; 
+			return this; 
+		}
+		
+		public boolean getHashTagging () { return hashTagging; }
+		public ClusterSpec setHashTagging (boolean flag) { this.hashTagging = flag; return this; }
+		
 		/* (non-Javadoc) @see org.jredis.cluster.ClusterSpec#addAll(java.util.List) */
 //      @Override
         public boolean addAll (Collection<ClusterNodeSpec> nodes) {
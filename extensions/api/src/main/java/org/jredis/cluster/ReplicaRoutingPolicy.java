@@ -0,0 +1,41 @@
+/*
+ *   Copyright 2009-2010 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.jredis.cluster;
+
+import org.jredis.protocol.Command;
+
+/**
+ * Policies for routing read-only {@link Command}s (per {@link Command#isReadOnly()}) 
+ * to the replicas of a cluster node.  Write commands are always serviced by the
+ * master of the node, and nodes without replicas service all requests by their master.
+ * <p>
+ * Note that replication in Redis is asynchronous and reads serviced by replicas 
+ * may not reflect the most recent writes to the master.
+ *
+ * @see ClusterNodeSpec#getReplicaSpecs()
+ * @see ClusterSpec#getReplicaRoutingPolicy()
+ */
+public enum ReplicaRoutingPolicy {
+	/** all requests are serviced by the master; replicas are not used, even if the master is out */
+	MASTER_ONLY,
+	/** read-only requests are distributed over the replicas in turn */
+	ROUND_ROBIN,
+	/** read-only requests are serviced by the replica with the lowest observed response time */
+	LEAST_LATENCY,
+	/** read-only requests are serviced by replicas on the local host if any, otherwise in turn by all replicas */
+	LOCAL_FIRST
+}
@@ -17,6 +17,7 @@
 package org.jredis.cluster.connector;
 
 import java.util.Collection;
+import java.util.List;
 import org.jredis.NotSupportedException;
 import org.jredis.cluster.ClusterModel;
 import org.jredis.cluster.ClusterNodeSpec;
@@ -83,4 +84,13 @@ public interface ClusterConnection extends Connection{
 	 * @return the set of {@link Command}s supported by this {@link ClusterConnection}
 	 */
 	public Collection<Command> getSupportedCommands ();
+	
+	/**
+	 * Commands that are not supported by the cluster as they are serviced per node, such as 
+	 * SCAN, can be issued to each node using these connections.
+	 * @param cmd the command to be issued 
+	 * @return a connection to each node of the cluster -- to the master or a replica of the node, per 
+	 * the routing of the command.
+	 */
+	public List<Connection> getNodeConnections (Command cmd);
 }
@@ -0,0 +1,99 @@
+/*
+ *   Copyright 2009-2010 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.jredis.cluster.support;
+
+import org.jredis.cluster.ClusterModel;
+import org.jredis.cluster.ClusterSpec;
+
+/**
+ * Key hash tags allow applications to co-locate related keys on the same node
+ * of a cluster.  If a key contains a <code>{</code> followed by a <code>}</code> with 
+ * at least one byte in between, only the bytes between the first <code>{</code> and the 
+ * first <code>}</code> following it (the tag) are used to map the key to a node.
+ * <p>
+ * ex: <code>user:{42}:profile</code> and <code>user:{42}:friends</code> are both mapped
+ * using the tag <code>42</code> and are guaranteed to be stored on the same node.
+ * Keys without a (non-empty) tag are mapped using all their bytes.
+ * 
+ * @see ClusterSpec#getHashTagging()
+ * @see ClusterModel#getNodeForKey(byte[])
+ */
+public final class HashTags {
+
+	private HashTags () {}
+	
+	/**
+	 * @param key
+	 * @return the bytes of the key that are hashed to map the key to a node.  This
+	 * is the key itself (not a copy) if it has no hash tag.
+	 */
+	public static byte[] getHashKey (byte[] key) {
+		int start = tagStart(key);
+		if(start < 0) return key;
+		
+		int len = tagEnd(key, start) - start;
+		byte[] tag = new byte[len];
+		System.arraycopy(key, start, tag, 0, len);
+		return tag;
+	}
+	
+	/**
+	 * Checks if the two keys are hashed identically, without allocating the hash keys.
+	 * @param key1
+	 * @param key2
+	 * @return true if the hash keys of key1 and key2 are identical.
+	 * @see HashTags#getHashKey(byte[])
+	 */
+	public static boolean haveSameHashKey (byte[] key1, byte[] key2) {
+		int start1 = tagStart(key1);
+		int start2 = tagStart(key2);
+		int end1 = start1 < 0 ? key1.length : tagEnd(key1, start1);
+		int end2 = start2 < 0 ? key2.length : tagEnd(key2, start2);
+		if(start1 < 0) start1 = 0;
+		if(start2 < 0) start2 = 0;
+		
+		if(end1 - start1 != end2 - start2) return false;
+		for(int i=start1, j=start2; i<end1; i++, j++)
+			if(key1[i] != key2[j]) return false;
+		return true;
+	}
+	
+	/**
+	 * @param key
+	 * @return the offset of the first byte of the (non-empty) tag, or -1 if key has no tag.
+	 */
+	private static int tagStart (byte[] key) {
+		for(int i=0; i<key.length; i++){
+			if(key[i] == '{'){
+				int end = tagEnd(key, i+1);
+				return end > i+1 && end < key.length ? i+1 : -1;
+			}
+		}
+		return -1;
+	}
+	
+	/**
+	 * @param key
+	 * @param start
+	 * @return the offset of the first '}' from start, or key.length if none.
+	 */
+	private static int tagEnd (byte[] key, int start) {
+		int i = start;
+		while(i < key.length && key[i] != '}') i++;
+		return i;
+	}
+}
@@ -17,6 +17,7 @@
 package org.jredis.ri.cluster;
 
 import java.net.Socket;
+import java.util.Collection;
 import java.util.Formatter;
 import org.jredis.cluster.ClusterNodeSpec;
 import org.jredis.connector.ConnectionSpec;
@@ -51,6 +52,27 @@ public class DefaultClusterNodeSpec extends ClusterNodeSpec.Support implements C
 	public DefaultClusterNodeSpec(ConnectionSpec connSpec){
 		super(connSpec);
 	}
+	
+	/**
+	 * @param connSpec
+	 * @param weight relative capacity of the node
+	 * @throws IllegalArgumentException 
+	 * @see ClusterNodeSpec#getWeight()
+	 */
+	public DefaultClusterNodeSpec(ConnectionSpec connSpec, int weight){
+		super(connSpec, weight);
+	}
+	
+	/**
+	 * @param connSpec of the master server of the node
+	 * @param weight relative capacity of the node
+	 * @param replicaSpecs of the replicas (slaves) of the master
+	 * @throws IllegalArgumentException 
+	 * @see ClusterNodeSpec#getReplicaSpecs()
+	 */
+	public DefaultClusterNodeSpec(ConnectionSpec connSpec, int weight, Collection<ConnectionSpec> replicaSpecs){
+		super(connSpec, weight, replicaSpecs);
+	}
 	// ------------------------------------------------------------------------
 	// Interface
 	// ------------------------------------------------------------------------
@@ -17,13 +17,18 @@
 package org.jredis.ri.cluster.connection;
 
 import static org.jredis.ri.alphazero.support.Assert.*;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.Future;
+import java.util.concurrent.CopyOnWriteArraySet;
 
 import org.jredis.ClientRuntimeException;
 import org.jredis.NotSupportedException;
@@ -32,11 +37,21 @@ import org.jredis.RedisException;
 import org.jredis.cluster.ClusterModel;
 import org.jredis.cluster.ClusterNodeSpec;
 import org.jredis.cluster.ClusterSpec;
+import org.jredis.cluster.ReplicaRoutingPolicy;
 import org.jredis.cluster.connector.ClusterConnection;
+import org.jredis.cluster.support.HashTags;
 import org.jredis.connector.Connection;
 import org.jredis.connector.ConnectionSpec;
 import org.jredis.protocol.Command;
 import org.jredis.protocol.Response;
+import org.jredis.protocol.ResponseDecoder;
+import org.jredis.ri.alphazero.connection.BlockingLane;
+import org.jredis.ri.alphazero.connection.CircuitBreaker;
+import org.jredis.ri.alphazero.connection.ConnectionBase;
+import org.jredis.ri.alphazero.connection.PendingRequest;
+import org.jredis.ri.alphazero.support.Convert;
+import org.jredis.ri.alphazero.support.Log;
+import org.jredis.ri.alphazero.support.Parallel;
 
 /**
  * [TODO: document me!]
@@ -55,10 +70,12 @@ abstract public class ClusterConnectionBase implements ClusterConnection, Connec
 	final protected ClusterModel model;
 	/**  */
 	final private Set<Command> supportedCmds = new HashSet<Command>();
-	/**  */
-	final private Map<String, Connection> connections = new HashMap<String, Connection>();
-	/** Connector Listeners */
-	final private Set<Connection.Listener> listeners = new HashSet<Connection.Listener>();
+	/** connections of the nodes (master and replicas) keyed by node id */
+	final private Map<String, ReplicaSet> connections = new HashMap<String, ReplicaSet>();
+	/** services the {@link Command#isBlocking()} requests of the nodes, keyed by node id */
+	final private Map<String, BlockingLane> blockingLanes = new HashMap<String, BlockingLane>();
+	/** Connector Listeners -- notified from circuit breaker probe threads as well */
+	final private Set<Connection.Listener> listeners = new CopyOnWriteArraySet<Connection.Listener>();
 
 	// ------------------------------------------------------------------------
 	// Constructor
@@ -125,12 +142,38 @@ abstract public class ClusterConnectionBase implements ClusterConnection, Connec
 		return supportedCmds.contains(cmd);
 	}
 	
+	/* (non-Javadoc) @see org.jredis.cluster.connector.ClusterConnection#getNodeConnections(org.jredis.protocol.Command) */
+	public List<Connection> getNodeConnections (Command cmd) {
+		ReplicaRoutingPolicy policy = model.getSpec().getReplicaRoutingPolicy();
+		List<Connection> nodeConnections = new ArrayList<Connection>(connections.size());
+		for(ClusterNodeSpec nodeSpec : model.getSpec().getNodeSpecs())
+			nodeConnections.add(connections.get(nodeSpec.getId()).getConnectionFor(cmd, policy));
+		return nodeConnections;
+	}
+	
 	/* (non-Javadoc) @see org.jredis.connector.Connection#queueRequest(org.jredis.protocol.Command, byte[][]) */
 	public Future<Response> queueRequest (Command cmd, byte[]... args)
 	        throws ClientRuntimeException, ProviderException 
     {
 		byte[] key = verifyAndGetKeyForRequest(cmd, args);
-		return getConnectionForKey(key).queueRequest(cmd, args);
+		ReplicaSet node = getReplicaSetForKey(key);
+		if(cmd.isBlocking()){
+			node.getCircuitBreaker(node.getMaster()).verifyAllowRequest();
+			return getBlockingLaneForKey(key).queueRequest(PendingRequest.RESPONSE, cmd, getBlockingTimeout(args), args);
+		}
+		Connection conn = node.getConnectionFor(cmd, model.getSpec().getReplicaRoutingPolicy());
+		CircuitBreaker breaker = node.getCircuitBreaker(conn);
+		breaker.verifyAllowRequest();
+		try {
+			// the response times are measured on the thread that reads the response
+			if(conn instanceof ConnectionBase)
+				return ((ConnectionBase) conn).queueRequest(new ResponseTimer(node, conn, breaker), cmd, args);
+			return conn.queueRequest(cmd, args);
+		}
+		catch (ClientRuntimeException e) {
+			breaker.onFailure(e);
+			throw e;
+		}
 	}
 
 	/* (non-Javadoc) @see org.jredis.connector.Connection#serviceRequest(org.jredis.protocol.Command, byte[][]) */
@@ -138,7 +181,62 @@ abstract public class ClusterConnectionBase implements ClusterConnection, Connec
 	        throws RedisException, ClientRuntimeException, ProviderException
     {
 		byte[] key = verifyAndGetKeyForRequest(cmd, args);
-		return getConnectionForKey(key).serviceRequest(cmd, args);
+		ReplicaSet node = getReplicaSetForKey(key);
+		if(cmd.isBlocking()){
+			node.getCircuitBreaker(node.getMaster()).verifyAllowRequest();
+			return getBlockingLaneForKey(key).serviceRequest(cmd, getBlockingTimeout(args), args);
+		}
+		Connection conn = node.getConnectionFor(cmd, model.getSpec().getReplicaRoutingPolicy());
+		CircuitBreaker breaker = node.getCircuitBreaker(conn);
+		
+		// fail fast if the node is not healthy
+		breaker.verifyAllowRequest();
+		
+		long start = System.nanoTime();
+		Response response = null;
+		try {
+			response = conn.serviceRequest(cmd, args);
+		}
+		catch (RedisException e) {
+			breaker.onSuccess(System.nanoTime() - start);
+			throw e;
+		}
+		catch (ClientRuntimeException e) {
+			breaker.onFailure(e);
+			throw e;
+		}
+		
+		// replica response times inform least latency routing
+		long delta = System.nanoTime() - start;
+		breaker.onSuccess(delta);
+		node.onResponseTime(conn, delta);
+		return response;
+	}
+	
+	/**
+	 * Shuts down the circuit breakers of the nodes, so that their probes do not reconnect, and then 
+	 * QUITs the connections to the masters and replicas of the nodes.  The connections of the
+	 * blocking requests are closed as well.
+	 */
+	public void quit () {
+		for(ReplicaSet node : connections.values())
+			node.shutdownCircuitBreakers();
+		for(BlockingLane lane : blockingLanes.values())
+			lane.close();
+		for(ReplicaSet node : connections.values()){
+			for(Connection conn : node.getConnections()){
+				try {
+					if(conn.getModality() == Connection.Modality.Synchronous)
+						conn.serviceRequest(Command.QUIT);
+					else
+						conn.queueRequest(Command.QUIT);
+				}
+				catch (RedisException e) {
+					Log.problem("Cluster connection: error on QUIT => " + e.getLocalizedMessage());
+				}
+				catch (ClientRuntimeException e) { /* not connected */ }
+			}
+		}
 	}
 	// ------------------------------------------------------------------------
 	// Event management
@@ -157,27 +255,15 @@ abstract public class ClusterConnectionBase implements ClusterConnection, Connec
 	// Interface
 	// =================================================== Connection.Listener
 	/*
-	 * TODO: monitor all connections and deal with faults
+	 * Events of the node connections and their circuit breakers are propagated
+	 * to the listeners of the cluster connection, with the node connection as 
+	 * the source of the event.
 	 */
 	// ------------------------------------------------------------------------
 
 	public void onEvent(Connection.Event event) {
-		Connection conn = event.getSource();
-		if(!connections.containsKey(conn)){
-			throw new ProviderException("ClusterConnection receiving events for unrelated connection!");
-		}
-		
-		// TODO: deal with it!
-		Connection.Event.Type type = event.getType();
-		switch (type) {
-		case DISCONNECTED:
-			break;
-		case CONNECTED:
-			break;
-		case FAULTED:
-			break;
-		}
-		throw new ProviderException("[BUG] lazy programmer -- TODOs here!");
+		for(Connection.Listener l : listeners)
+			l.onEvent(event);
 	}
 
 	// ------------------------------------------------------------------------
@@ -189,8 +275,49 @@ abstract public class ClusterConnectionBase implements ClusterConnection, Connec
 		notNull(args, "[BUG]: args for request is null!", ProviderException.class);
 		isTrue(args.length > 0, "[BUG]: expecting at least 1 arg for the request (and a key at that)", ProviderException.class);
 		isTrue(supports(cmd), cmd.name() + " is not supported", NotSupportedException.class);
-		return args[0];
 		
+		// all keys of multi-key requests must map to the same node
+		byte[] key = args[0];
+		int keyCnt = getKeyCount(cmd, args);
+		if(keyCnt > 1) {
+			ClusterNodeSpec node = null;
+			boolean hashTagging = model.getSpec().getHashTagging();
+			for(int i=1; i<keyCnt; i++){
+				if(hashTagging && HashTags.haveSameHashKey(key, args[i]))
+					continue;
+				if(node == null)
+					node = model.getNodeForKey(key);
+				if(!node.equals(model.getNodeForKey(args[i])))
+					throw new ClientRuntimeException(cmd.name() + " keys span multiple cluster nodes -- consider using hash tagged keys");
+			}
+		}
+		// as must the destination of SORT ... STORE, which is its last arg
+		if(cmd == Command.SORT$STORE) {
+			byte[] destKey = args[args.length-1];
+			if(!(model.getSpec().getHashTagging() && HashTags.haveSameHashKey(key, destKey))
+				&& !model.getNodeForKey(key).equals(model.getNodeForKey(destKey)))
+				throw new ClientRuntimeException(cmd.name() + " STORE key maps to another cluster node than the sorted key -- consider using hash tagged keys");
+		}
+		return key;
+	}
+	/**
+	 * @param cmd
+	 * @param args
+	 * @return the number of leading args of the request that are keys
+	 */
+	final private static int getKeyCount(Command cmd, byte[]...args) {
+		switch (cmd.requestType){
+		case MULTI_KEY:
+			// the last arg of the blocking pops is the timeout
+			return cmd.isBlocking() ? args.length - 1 : args.length;
+		case KEY_KEY:
+		case KEY_KEY_VALUE:
+			if(cmd == Command.DEBUG || cmd == Command.SLAVEOF)
+				return 1;
+			return Math.min(2, args.length);
+		default:
+			return 1;
+		}
 	}
 	final protected void initialize () throws ClientRuntimeException, ProviderException {
 		mapSupportedCommands();
@@ -198,19 +325,59 @@ abstract public class ClusterConnectionBase implements ClusterConnection, Connec
 		initializeComponents();
 	}
 
+	/**
+	 * Establishes the connections to the masters and replicas of all nodes in parallel.
+	 */
 	final private void initializeConnections () throws ClientRuntimeException, ProviderException {
-		for(ClusterNodeSpec nodeSpec : model.getSpec().getNodeSpecs()){
-			Connection conn = null;
-			if(getModality() == Connection.Modality.Synchronous){
-				conn = notNull(createSynchConnection(nodeSpec), "", ProviderException.class);
-			}
-			else {
-				conn = notNull(createAsynchConnection(nodeSpec), "", ProviderException.class);
+		List<ClusterNodeSpec> nodeSpecs = new ArrayList<ClusterNodeSpec>(model.getSpec().getNodeSpecs());
+		List<Callable<Connection>> tasks = new ArrayList<Callable<Connection>>();
+		for(ClusterNodeSpec nodeSpec : nodeSpecs){
+			tasks.add(newConnectTask(nodeSpec.getConnectionSpec()));
+			for(ConnectionSpec replicaSpec : nodeSpec.getReplicaSpecs())
+				tasks.add(newConnectTask(replicaSpec));
+		}
+		Iterator<Connection> conns = Parallel.invokeAll("jredis-cluster-connect", tasks).iterator();
+		
+		for(ClusterNodeSpec nodeSpec : nodeSpecs){
+			Connection master = conns.next();
+			List<Connection> replicas = new ArrayList<Connection>(nodeSpec.getReplicaSpecs().size());
+			for(int i=0; i<nodeSpec.getReplicaSpecs().size(); i++){
+				replicas.add(conns.next());
 			}
-			connections.put(nodeSpec.getId(), conn);
-			// TODO: add set as listener to connection
+			ReplicaSet replicaSet = new ReplicaSet(master, replicas);
+			replicaSet.addCircuitBreakerListener(this);
+			master.addListener(this);
+			for(Connection replica : replicas)
+				replica.addListener(this);
+			connections.put(nodeSpec.getId(), replicaSet);
+			blockingLanes.put(nodeSpec.getId(), new BlockingLane(nodeSpec.getConnectionSpec()));
+		}
+	}
+	
+	/**
+	 * @param args of a {@link Command#isBlocking()} request
+	 * @return the timeout of the request, in seconds -- its last arg
+	 */
+	final private static long getBlockingTimeout(byte[]...args) {
+		try {
+			return Convert.toLong(args[args.length-1]);
+		}
+		catch (IllegalArgumentException e) {
+			throw new ClientRuntimeException("invalid timeout => [" + new String(args[args.length-1]) + "]", e);
 		}
 	}
+	final private Callable<Connection> newConnectTask (final ConnectionSpec connSpec) {
+		return new Callable<Connection>() {
+			public Connection call () { return newConnection(connSpec); }
+		};
+	}
+	
+	final private Connection newConnection (ConnectionSpec connSpec) throws ClientRuntimeException, ProviderException {
+		if(getModality() == Connection.Modality.Synchronous){
+			return notNull(createSynchConnection(connSpec), "synchronous connection for " + connSpec.getAddress(), ProviderException.class);
+		}
+		return notNull(createAsynchConnection(connSpec), "asynchronous connection for " + connSpec.getAddress(), ProviderException.class);
+	}
 	/**
 	 * Default implementation simply includes all {@link Command}s with {@link Command.RequestType}s
 	 * that include key params in the request.
@@ -223,6 +390,7 @@ abstract public class ClusterConnectionBase implements ClusterConnection, Connec
 			
 			// -- NOT SUPPORTED --
 			case BULK_SET:
+			case BULK_ARGS:
 			case NO_ARG:
 			case VALUE:
 				if(!affirmLackOfSupportFor(cmd))
@@ -241,6 +409,7 @@ abstract public class ClusterConnectionBase implements ClusterConnection, Connec
 			case KEY_SPEC:
 			case KEY_VALUE:
 			case MULTI_KEY:
+			case KEY_BULK_ARGS:
 				if(affirmSupportFor(cmd))
 					supportedCmds.add(cmd);
 				break;
@@ -248,7 +417,35 @@ abstract public class ClusterConnectionBase implements ClusterConnection, Connec
 		}
 	}
 
+	/**
+	 * @param key
+	 * @return the connection to the master of the node that the key maps to
+	 */
 	final protected Connection getConnectionForKey(byte[] key){
+		return getReplicaSetForKey(key).getMaster();
+	}
+	
+	/**
+	 * @param cmd
+	 * @param key
+	 * @return the connection to the master or a replica of the node that the key maps to, per 
+	 * the cluster's {@link ReplicaRoutingPolicy}.
+	 */
+	final protected Connection getConnectionForRequest(Command cmd, byte[] key){
+		return getReplicaSetForKey(key).getConnectionFor(cmd, model.getSpec().getReplicaRoutingPolicy());
+	}
+	
+	/**
+	 * Blocking requests are serviced on dedicated connections to the master of the node that the 
+	 * key maps to, so that they do not stall the requests sharing the node's connections.
+	 * @param key
+	 * @return the {@link BlockingLane} of the node that the key maps to
+	 */
+	final protected BlockingLane getBlockingLaneForKey(byte[] key){
+		return blockingLanes.get(model.getNodeForKey(key).getId());
+	}
+	
+	final protected ReplicaSet getReplicaSetForKey(byte[] key){
 		ClusterNodeSpec nodeSpec = model.getNodeForKey(key);
 		String nodeId = nodeSpec.getId();
 		
@@ -280,20 +477,48 @@ abstract public class ClusterConnectionBase implements ClusterConnection, Connec
     protected boolean affirmLackOfSupportFor (Command cmd) {return true; }
 
 	/**
-     * @param nodeSpec
+	 * The response times of the requests queued on connections that extend {@link ConnectionBase}
+	 * (and support queuing with a {@link ResponseDecoder}) are reported to their node, e.g. for 
+	 * {@link ReplicaRoutingPolicy#LEAST_LATENCY} routing.  Those of other connections are not.
+     * @param connSpec of a node's master or replica
      * @return
      */
-    protected Connection createAsynchConnection (ClusterNodeSpec nodeSpec) {
+    protected Connection createAsynchConnection (ConnectionSpec connSpec) {
     	throw new ProviderException("Not implemented in the abstract base!");
     }
 
 	/**
-     * @param nodeSpec
+     * @param connSpec of a node's master or replica
      * @return
      */
-    protected Connection createSynchConnection (ClusterNodeSpec nodeSpec) {
+    protected Connection createSynchConnection (ConnectionSpec connSpec) {
     	throw new ProviderException("Not implemented in the abstract base!");
     }
 
 
+	// ------------------------------------------------------------------------
+	// Inner Types
+	// ------------------------------------------------------------------------
+	/**
+	 * Reports the response time of a queued request to its node when the (non-error) response 
+	 * is read, as {@link ClusterConnectionBase#serviceRequest(Command, byte[]...)} does for 
+	 * synchronous requests.  One per request.
+	 */
+	final private static class ResponseTimer implements ResponseDecoder<Response> {
+		final private ReplicaSet node;
+		final private Connection conn;
+		final private CircuitBreaker breaker;
+		final private long start = System.nanoTime();
+		ResponseTimer (ReplicaSet node, Connection conn, CircuitBreaker breaker) {
+			this.node = node;
+			this.conn = conn;
+			this.breaker = breaker;
+		}
+		public Response decode (Response response) {
+			long delta = System.nanoTime() - start;
+			breaker.onSuccess(delta);
+			node.onResponseTime(conn, delta);
+			return response;
+		}
+	}
 }
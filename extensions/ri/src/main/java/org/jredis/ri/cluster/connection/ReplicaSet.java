@@ -0,0 +1,258 @@
+/*
+ *   Copyright 2009-2010 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.jredis.ri.cluster.connection;
+
+import java.net.InetAddress;
+import java.net.NetworkInterface;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.jredis.cluster.ClusterNodeSpec;
+import org.jredis.cluster.ReplicaRoutingPolicy;
+import org.jredis.connector.Connection;
+import org.jredis.protocol.Command;
+import org.jredis.ri.alphazero.connection.CircuitBreaker;
+
+/**
+ * The {@link Connection}s to a cluster node: the connection to the master and
+ * (optionally) the connections to its replicas, per {@link ClusterNodeSpec#getReplicaSpecs()}.
+ * <p>
+ * Write requests are always serviced by the master.  Read-only requests (per 
+ * {@link Command#isReadOnly()}) are routed to a replica per the {@link ReplicaRoutingPolicy}.
+ * <p>
+ * For {@link ReplicaRoutingPolicy#LEAST_LATENCY} routing, the response times of the replicas
+ * must be reported via {@link ReplicaSet#onResponseTime(Connection, long)}.  An exponentially 
+ * weighted moving average of these is maintained for each replica.  Every 
+ * {@link ReplicaSet#LATENCY_PROBE_PERIOD}th request is routed in turn to keep the averages of 
+ * the slower replicas current.
+ * <p>
+ * Each connection has a {@link CircuitBreaker}, which must be fed the outcome of the requests 
+ * (see {@link ReplicaSet#getCircuitBreaker(Connection)}).  Read-only requests are not routed to 
+ * replicas with open breakers, and fall back on the master if all replicas are out.  Requests are
+ * never routed to a replica under {@link ReplicaRoutingPolicy#MASTER_ONLY}, so these fail fast
+ * (with a {@link org.jredis.ri.alphazero.connection.CircuitOpenException}) if the master's breaker is open.
+ */
+public class ReplicaSet {
+
+	// ------------------------------------------------------------------------
+	// Consts
+	// ------------------------------------------------------------------------
+	/** every n-th read-only request is routed round robin under least latency policy */
+	public static final int LATENCY_PROBE_PERIOD = 16;
+	
+	// ------------------------------------------------------------------------
+	// Properties
+	// ------------------------------------------------------------------------
+	/**  */
+	final private Connection master;
+	/**  */
+	final private Connection[] replicas;
+	/** indices of the replicas on the local host */
+	final private int[] localReplicas;
+	/** moving average of response time (nanos) of the replicas - 0 if not yet measured */
+	final private AtomicLongArray latency;
+	/** round robin sequence */
+	final private AtomicInteger sequence = new AtomicInteger(0);
+	/**  */
+	final private CircuitBreaker masterBreaker;
+	/** breakers of the replicas (by index) */
+	final private CircuitBreaker[] replicaBreakers;
+
+	// ------------------------------------------------------------------------
+	// Constructor
+	// ------------------------------------------------------------------------
+	/**
+	 * @param master connection to the master of the node
+	 * @param replicas connections to the replicas of the master.  May be empty.
+	 */
+	public ReplicaSet (Connection master, List<Connection> replicas) {
+		if(null == master) throw new IllegalArgumentException("null master connection");
+		if(null == replicas) throw new IllegalArgumentException("null replica connections");
+		
+		this.master = master;
+		this.replicas = replicas.toArray(new Connection[replicas.size()]);
+		this.latency = new AtomicLongArray(this.replicas.length);
+		
+		this.masterBreaker = new CircuitBreaker(master);
+		this.replicaBreakers = new CircuitBreaker[this.replicas.length];
+		for(int i=0; i<this.replicas.length; i++)
+			replicaBreakers[i] = new CircuitBreaker(this.replicas[i]);
+		
+		List<Integer> local = new ArrayList<Integer>();
+		for(int i=0; i<this.replicas.length; i++){
+			if(isLocalAddress(this.replicas[i].getSpec().getAddress()))
+				local.add(i);
+		}
+		localReplicas = new int[local.size()];
+		for(int i=0; i<localReplicas.length; i++)
+			localReplicas[i] = local.get(i);
+	}
+	
+	// ------------------------------------------------------------------------
+	// Interface
+	// ------------------------------------------------------------------------
+	/** @return the connection to the master of the node */
+	public Connection getMaster () { return master; }
+	
+	/** @return the number of replicas of the node */
+	public int getReplicaCount () { return replicas.length; }
+	
+	/**
+	 * @param cmd
+	 * @param policy
+	 * @return the {@link Connection} to use for the command -- always the master for writes and
+	 * under {@link ReplicaRoutingPolicy#MASTER_ONLY}, even if its breaker is open.
+	 */
+	public Connection getConnectionFor (Command cmd, ReplicaRoutingPolicy policy) {
+		if(replicas.length == 0 || !cmd.isReadOnly() || policy == ReplicaRoutingPolicy.MASTER_ONLY) 
+			return master;
+		
+		int idx;
+		switch (policy){
+			case ROUND_ROBIN:
+				idx = nextIndex(replicas.length);
+				break;
+			case LEAST_LATENCY:
+				idx = leastLatencyIndex();
+				break;
+			case LOCAL_FIRST:
+				if(localReplicas.length > 0)
+					idx = localReplicas[nextIndex(localReplicas.length)];
+				else
+					idx = nextIndex(replicas.length);
+				break;
+			default:
+				return master;
+		}
+		if(replicaBreakers[idx].allowRequest()) 
+			return replicas[idx];
+		
+		// chosen replica is out -- try the others, then the master
+		idx = availableReplicaIndex(idx+1);
+		return idx == -1 ? master : replicas[idx];
+	}
+	
+	/**
+	 * @param conn the master or a replica of this set
+	 * @return the {@link CircuitBreaker} of the connection, or null if not a connection of this set.
+	 */
+	public CircuitBreaker getCircuitBreaker (Connection conn) {
+		if(conn == master) 
+			return masterBreaker;
+		for(int i=0; i<replicas.length; i++){
+			if(replicas[i] == conn) 
+				return replicaBreakers[i];
+		}
+		return null;
+	}
+	
+	/**
+	 * Shuts down the {@link CircuitBreaker}s of all the connections of this set, so that their probes
+	 * do not reconnect the connections.
+	 * @see CircuitBreaker#shutdown()
+	 */
+	public void shutdownCircuitBreakers () {
+		masterBreaker.shutdown();
+		for(CircuitBreaker breaker : replicaBreakers)
+			breaker.shutdown();
+	}
+	
+	/**
+	 * @return the connections of this set: the master, followed by the replicas
+	 */
+	public List<Connection> getConnections () {
+		List<Connection> conns = new ArrayList<Connection>(replicas.length + 1);
+		conns.add(master);
+		for(Connection replica : replicas)
+			conns.add(replica);
+		return conns;
+	}
+	
+	/**
+	 * Adds the listener to the {@link CircuitBreaker}s of all the connections of this set.
+	 * @param listener
+	 */
+	public void addCircuitBreakerListener (Connection.Listener listener) {
+		masterBreaker.addListener(listener);
+		for(CircuitBreaker breaker : replicaBreakers)
+			breaker.addListener(listener);
+	}
+	
+	/**
+	 * Updates the moving average of the response time of the replica. 
+	 * Samples for connections that are not replicas of this set are ignored.
+	 * @param conn
+	 * @param nanos
+	 */
+	public void onResponseTime (Connection conn, long nanos) {
+		for(int i=0; i<replicas.length; i++){
+			if(replicas[i] == conn) {
+				long avg = latency.get(i);
+				latency.set(i, avg == 0 ? Math.max(nanos, 1) : avg + (nanos - avg)/8);
+				return;
+			}
+		}
+	}
+	
+	/**
+	 * @param address
+	 * @return true if the address is a loopback address or an address of a local network interface.
+	 */
+	public static boolean isLocalAddress (InetAddress address) {
+		if(address.isLoopbackAddress() || address.isAnyLocalAddress()) 
+			return true;
+		try {
+			return NetworkInterface.getByInetAddress(address) != null;
+		}
+		catch (SocketException e) {
+			return false;
+		}
+	}
+	
+	// ------------------------------------------------------------------------
+	// Inner ops
+	// ------------------------------------------------------------------------
+	private final int nextIndex (int n) {
+		return (sequence.getAndIncrement() & Integer.MAX_VALUE) % n;
+	}
+	
+	/** @return index of first replica (circularly) from index with a closed breaker, or -1 if none */
+	private final int availableReplicaIndex (int from) {
+		for(int i=0; i<replicas.length; i++){
+			int idx = (from + i) % replicas.length;
+			if(replicaBreakers[idx].allowRequest())
+				return idx;
+		}
+		return -1;
+	}
+	
+	private final int leastLatencyIndex () {
+		int seq = sequence.getAndIncrement() & Integer.MAX_VALUE;
+		if(seq % LATENCY_PROBE_PERIOD == 0)
+			return (seq / LATENCY_PROBE_PERIOD) % replicas.length;
+		
+		int idx = 0;
+		long min = Long.MAX_VALUE;
+		for(int i=0; i<replicas.length; i++){
+			long avg = latency.get(i);
+			if(avg < min) { min = avg; idx = i; }
+		}
+		return idx;
+	}
+}
@@ -21,8 +21,8 @@ import org.jredis.ClientRuntimeException;
 import org.jredis.NotSupportedException;
 import org.jredis.ProviderException;
 import org.jredis.cluster.ClusterModel;
-import org.jredis.cluster.ClusterNodeSpec;
 import org.jredis.connector.Connection;
+import org.jredis.connector.ConnectionSpec;
 import org.jredis.protocol.Command;
 import org.jredis.protocol.Response;
 import org.jredis.ri.alphazero.connection.SynchConnection;
@@ -90,12 +90,12 @@ public class SynchClusterConnection extends ClusterConnectionBase {
 	// Super overrides
 	// ------------------------------------------------------------------------
 	/**
-     * @param nodeSpec
+     * @param connSpec
      * @return
      */
-    protected Connection createSynchConnection (ClusterNodeSpec nodeSpec) {
+    protected Connection createSynchConnection (ConnectionSpec connSpec) {
     	Connection conn = null;
-    	conn = new SynchConnection(nodeSpec.getConnectionSpec(), true);
+    	conn = new SynchConnection(connSpec, true);
     	return conn;
     }
 }
@@ -16,13 +16,14 @@
 
 package org.jredis.ri.cluster.model;
 
+import java.util.Arrays;
 import org.jredis.cluster.ClusterNodeSpec;
 import org.jredis.cluster.ClusterSpec;
 import org.jredis.cluster.model.StaticHashCluster;
 import org.jredis.cluster.support.HashAlgorithm;
 
 /**
- * As barebones as it gets. Uses the key's hashCode() (that is {@link byte[]#hashCode()})
+ * As barebones as it gets. Uses the hash code of the key's content (that is {@link Arrays#hashCode(byte[])})
  * to compute a node index, using a basic hashcode % nodeCnt as the index to the nodes list.
  * @author  joubin (alphazero@sensesay.net)
  * @date    Mar 30, 2010
@@ -51,13 +52,14 @@ public class BasicStaticHashCluster extends StaticHashCluster.Support implements
     	// TDOO: get this from the clusterspec
 	    return new HashAlgorithm() {
 			public long hash (byte[] kb) {
-	            return kb.hashCode();
+	            return Arrays.hashCode(kb) & 0x7FFFFFFF;
             }
 	    };
     }
 
-	/* (non-Javadoc) @see org.jredis.cluster.ClusterModel#getNodeForKey(byte[]) */
-    public ClusterNodeSpec getNodeForKey (byte[] key) {
+	/* (non-Javadoc) @see org.jredis.cluster.ClusterModel.Support#getNodeForHashKey(byte[]) */
+    @Override
+    protected ClusterNodeSpec getNodeForHashKey (byte[] key) {
 	    int nodeIdx = (int) (hashAlgo.hash(key)%nodeCnt);
 	    return nodes[nodeIdx];
     }
@@ -60,8 +60,9 @@ public class KetamaClusterModel extends ConsistentHashCluster.Support implements
 	// Interface
 	// ------------------------------------------------------------------------
     
-	/* (non-Javadoc) @see org.jredis.cluster.ClusterModel#getNodeForKey(byte[]) */
-	public ClusterNodeSpec getNodeForKey (byte[] key) {
+	/* (non-Javadoc) @see org.jredis.cluster.ClusterModel.Support#getNodeForHashKey(byte[]) */
+	@Override
+	protected ClusterNodeSpec getNodeForHashKey (byte[] key) {
 		long hash = hashAlgo.hash(key);
 		final ClusterNodeSpec rv;
 		if(!nodeMap.containsKey(hash)) {
@@ -101,6 +102,9 @@ public class KetamaClusterModel extends ConsistentHashCluster.Support implements
 	 * Per original paper on consistent hashing, the replication count of any given bucket is
 	 * k*log(C), where C is the number of buckets (i.e. nodes).  We're using {@link KetamaNodeMapper#DEFAULT_REPLICATION_CONST}
 	 * as k.
+	 * <p>
+	 * This is the replication count of a node of average weight.  Each node's actual
+	 * replication count is scaled by its {@link ClusterNodeSpec#getWeight()}.
 	 * 
      * @param nodeCnt number of server nodes ("buckets" per original paper) in the Ketama cluster
      * @return
@@ -130,12 +134,19 @@ public class KetamaClusterModel extends ConsistentHashCluster.Support implements
 	{		
 		try {
 			Set<ClusterNodeSpec> 	nodes = clusterSpec.getNodeSpecs();
+			long totalWeight = 0;
 			for(ClusterNodeSpec node : nodes) {
-				mapNode(node);
+				totalWeight += node.getWeight();
 			}
-			if(nodeMap.size() != (nodeReplicationCnt/4) * nodes.size() * 4) {
-				Log.error("nodeMap size: " + nodeMap.size() + " | expected: " + nodeReplicationCnt * nodes.size());
-				throw new ProviderException ("[BUG]: expecting node map size to be multiple of replication count * cluster node count");
+			int expectedSize = 0;
+			for(ClusterNodeSpec node : nodes) {
+				int nodeReplications = weightedReplicationCount(node, nodes.size(), totalWeight);
+				mapNode(node, nodeReplications);
+				expectedSize += (nodeReplications/4) * 4;
+			}
+			if(nodeMap.size() != expectedSize) {
+				Log.error("nodeMap size: " + nodeMap.size() + " | expected: " + expectedSize);
+				throw new ProviderException ("[BUG]: expecting node map size to be the sum of the weighted replication count of the cluster nodes");
 			}
 		}
 		catch (ClassCastException e) {
@@ -143,9 +154,27 @@ public class KetamaClusterModel extends ConsistentHashCluster.Support implements
 		}
 	}
 
-	private boolean mapNode(ClusterNodeSpec node){
+	/**
+	 * Scales the (uniform) {@link ConsistentHashCluster.Support#nodeReplicationCnt} by the node's
+	 * weight relative to the average weight of the cluster nodes, so that the share of the ring
+	 * (and thus the key space) owned by a node is proportional to its {@link ClusterNodeSpec#getWeight()}.
+	 * If all nodes have identical weights, the result is simply the nodeReplicationCnt.
+	 * <p>
+	 * As Ketama maps 4 points per digest, a node is always given at least 4 points on the ring.
+	 * 
+	 * @param node
+	 * @param nodeCnt number of nodes in the cluster
+	 * @param totalWeight sum of weights of all nodes in the cluster
+	 * @return the number of virtual nodes (points on the ring) for the node
+	 */
+	private int weightedReplicationCount (ClusterNodeSpec node, int nodeCnt, long totalWeight) {
+		long cnt = ((long) nodeReplicationCnt * node.getWeight() * nodeCnt) / totalWeight;
+		return (int) Math.max(cnt, 4);
+	}
+
+	private boolean mapNode(ClusterNodeSpec node, int nodeReplications){
 		// Dustin says: "Ketama does some special work with md5 where it reuses chunks."
-		for(int i=0; i<nodeReplicationCnt / 4; i++) {
+		for(int i=0; i<nodeReplications / 4; i++) {
 			byte[] digest;
 			digest = CryptoHashUtils.computeMd5(node.getKeyForReplicationInstance(i));
 			for(int h=0;h<4;h++) {
@@ -195,6 +195,31 @@ public abstract class ClusterModelProviderTestBase extends RefImplTestSuiteBase<
 		model.addNode(new DefaultClusterNodeSpec(DefaultConnectionSpec.newSpec().setPort(9999)));
 	}
 	@Test
+	public void testHashTagRouting (){
+		Log.log("test mapping of hash tagged keys");
+		
+		ClusterSpec spec = newClusterSpec();
+		spec.setHashTagging(true);
+		ClusterModel model = newClusterModel(spec);
+		
+		// keys with the same tag must map to the same node, whatever the rest of the key
+		//
+		Map<ClusterNodeSpec, Long> distribution = new HashMap<ClusterNodeSpec, Long>();
+		for(int i=0; i<data.SMALL_CNT; i++){
+			ClusterNodeSpec node = model.getNodeForKey(("user:{" + i + "}:profile").getBytes());
+			assertEquals(model.getNodeForKey(("user:{" + i + "}:friends").getBytes()), node, "keys with same tag must map to same node");
+			assertEquals(model.getNodeForKey(("{" + i + "}").getBytes()), node, "keys with same tag must map to same node");
+			assertEquals(model.getNodeForKey(String.valueOf(i).getBytes()), node, "tagged key must map to the same node as its tag");
+			distribution.put(node, Long.valueOf(i));
+		}
+		assertTrue(distribution.size() > 1, "distinct tags should still be distributed across nodes");
+		
+		// empty tags are not tags
+		//
+		byte[] key = "user:{}:profile".getBytes();
+		assertEquals(model.getNodeForKey(key), newClusterModel(newClusterSpec()).getNodeForKey(key), "key with empty tag should be mapped by the whole key");
+	}
+	@Test
 	public void testKeyDistribution (){
 		long keycnt = data.MEDIUM_CNT;
 		Log.log("test key distribution with " + keycnt + " keys");
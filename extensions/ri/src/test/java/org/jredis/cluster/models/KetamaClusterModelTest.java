@@ -16,6 +16,8 @@
 
 package org.jredis.cluster.models;
 
+import java.util.HashMap;
+import java.util.Map;
 import org.jredis.cluster.ClusterModel;
 import org.jredis.cluster.ClusterNodeSpec;
 import org.jredis.cluster.ClusterSpec;
@@ -85,4 +87,41 @@ public class KetamaClusterModelTest extends ConsistentHashClusterProviderTestBas
     	Log.log("Foo test for KetamaClusterModel");
     	assertTrue(true);
     }
+    
+    /**
+     * Nodes with weights 1, 2, 4 and 8 (think 16GB to 128GB boxes) are expected to
+     * be assigned a share of the keys proportional to their weight.  Keys are not
+     * random so the results are repeatable.
+     */
+    @Test
+    public void testWeightedKeyDistribution () {
+    	int keycnt = 100000;
+    	int[] weights = {1, 2, 4, 8, 1, 2, 4, 8};
+    	Log.log("test weighted key distribution with %d keys", keycnt);
+    	
+		ClusterSpec spec = new DefaultClusterSpec();
+		int totalWeight = 0;
+		for(int i=0; i<weights.length; i++){
+			ClusterNodeSpec node = new DefaultClusterNodeSpec(DefaultConnectionSpec.newSpec("localhost", 6379+i, 0, null), weights[i]);
+			spec.addNode(node);
+			totalWeight += weights[i];
+		}
+		ClusterModel model = newClusterModel(spec);
+		
+		Map<ClusterNodeSpec, Integer> distribution = new HashMap<ClusterNodeSpec, Integer>();
+		for(int i=0; i<keycnt; i++){
+			ClusterNodeSpec nodeSpec = model.getNodeForKey(("user:" + i + ":profile").getBytes());
+			Integer cnt = distribution.get(nodeSpec);
+			distribution.put(nodeSpec, cnt == null ? 1 : cnt + 1);
+		}
+		
+		for(ClusterNodeSpec node : spec.getNodeSpecs()){
+			Integer cnt = distribution.get(node);
+			assertNotNull(cnt, "No node should have zero keys assigned to it");
+			double expected = (double) keycnt * node.getWeight() / totalWeight;
+			double ratio = cnt / expected;
+			Log.log("node %s (weight %d) -- expected: %d actual: %d (%.2f)", node, node.getWeight(), (long) expected, cnt, ratio);
+			assertTrue(ratio > 0.75 && ratio < 1.25, "key share of node " + node + " should be proportional to its weight");
+		}
+    }
 }
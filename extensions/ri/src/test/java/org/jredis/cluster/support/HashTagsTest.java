@@ -0,0 +1,73 @@
+/*
+ *   Copyright 2009-2010 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.jredis.cluster.support;
+
+import static org.testng.Assert.*;
+import org.jredis.ri.alphazero.support.Log;
+import org.testng.annotations.Test;
+
+/**
+ * Tests {@link HashTags}.
+ *
+ * @author  joubin (alphazero@sensesay.net)
+ * @date    Apr 12, 2010
+ * 
+ */
+
+@Test(suiteName="extensions-cluster-specs-algorithms-1")
+public class HashTagsTest {
+
+	@Test
+	public void testGetHashKey () {
+		Log.log("Testing HashTags.getHashKey(byte[])");
+		
+		assertHashKey("user:{1000}:profile", "1000");
+		assertHashKey("{1000}:profile", "1000");
+		assertHashKey("user:{1000}", "1000");
+		assertHashKey("{user1000}.following", "user1000");
+		assertHashKey("foo{bar}{zap}", "bar");
+		assertHashKey("foo{{bar}}zap", "{bar");
+		
+		// keys without (non-empty) tags are their own hash keys
+		assertHashKey("user:1000:profile", "user:1000:profile");
+		assertHashKey("foo{}{bar}", "foo{}{bar}");
+		assertHashKey("foo{bar", "foo{bar");
+		assertHashKey("foo}bar{", "foo}bar{");
+		assertHashKey("", "");
+		
+		byte[] untagged = "user:1000:profile".getBytes();
+		assertSame(HashTags.getHashKey(untagged), untagged, "untagged key should be returned as is");
+	}
+	
+	@Test
+	public void testHaveSameHashKey () {
+		Log.log("Testing HashTags.haveSameHashKey(byte[], byte[])");
+		
+		assertTrue(HashTags.haveSameHashKey("user:{1000}:profile".getBytes(), "user:{1000}:friends".getBytes()));
+		assertTrue(HashTags.haveSameHashKey("{1000}".getBytes(), "user:{1000}:friends".getBytes()));
+		assertTrue(HashTags.haveSameHashKey("1000".getBytes(), "user:{1000}:friends".getBytes()));
+		assertTrue(HashTags.haveSameHashKey("foo{}".getBytes(), "foo{}".getBytes()));
+		
+		assertFalse(HashTags.haveSameHashKey("user:{1000}:profile".getBytes(), "user:{1001}:profile".getBytes()));
+		assertFalse(HashTags.haveSameHashKey("user:1000:profile".getBytes(), "user:1000:friends".getBytes()));
+		assertFalse(HashTags.haveSameHashKey("foo{}".getBytes(), "bar{}".getBytes()));
+	}
+	
+	private static void assertHashKey (String key, String expected) {
+		assertEquals(new String(HashTags.getHashKey(key.getBytes())), expected, "hash key for " + key);
+	}
+}
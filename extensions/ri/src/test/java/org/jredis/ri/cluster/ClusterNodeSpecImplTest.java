@@ -20,6 +20,10 @@ import org.jredis.cluster.ClusterNodeSpec;
 import org.jredis.cluster.ClusterNodeSpecProviderTestBase;
 import org.jredis.connector.ConnectionSpec;
 import org.jredis.ri.alphazero.connection.DefaultConnectionSpec;
+import org.jredis.ri.alphazero.support.Log;
+
+import org.testng.annotations.Test;
+import static org.testng.Assert.*;
 
 /**
  * [TODO: document me!]
@@ -40,4 +44,40 @@ public class ClusterNodeSpecImplTest extends ClusterNodeSpecProviderTestBase {
     final protected ClusterNodeSpec newProviderInstance (ConnectionSpec connectionSpec) {
 	    return new DefaultClusterNodeSpec (connectionSpec);
     }
+    
+	// ------------------------------------------------------------------------
+	// DefaultClusterNodeSpec specific tests
+	// ------------------------------------------------------------------------
+    @Test
+    public void testWeight () {
+    	Log.log("Testing ClusterNodeSpec.getWeight() ...");
+    	
+    	ConnectionSpec connSpec = DefaultConnectionSpec.newSpec("127.0.0.1", 6379, 0, null);
+    	ClusterNodeSpec defaultNode = new DefaultClusterNodeSpec(connSpec);
+    	assertEquals(defaultNode.getWeight(), ClusterNodeSpec.Support.DEFAULT_WEIGHT, "default weight expected");
+    	
+    	ClusterNodeSpec heavyNode = new DefaultClusterNodeSpec(connSpec, 8);
+    	assertEquals(heavyNode.getWeight(), 8, "weight should be that given to the constructor");
+    	assertTrue(heavyNode.equals(defaultNode), "weight is not part of node identity");
+    	assertEquals(heavyNode.hashCode(), defaultNode.hashCode(), "weight is not part of node identity");
+    	
+		boolean didRaiseError;
+		didRaiseError = false;
+		try {
+			new DefaultClusterNodeSpec(connSpec, 0);
+		}
+		catch (IllegalArgumentException e){
+			didRaiseError = true;
+		}
+		if(!didRaiseError) fail("Expecting an IllegalArgumentException raised for zero weight");
+		
+		didRaiseError = false;
+		try {
+			new DefaultClusterNodeSpec(connSpec, -2);
+		}
+		catch (IllegalArgumentException e){
+			didRaiseError = true;
+		}
+		if(!didRaiseError) fail("Expecting an IllegalArgumentException raised for negative weight");
+    }
 }
@@ -0,0 +1,133 @@
+/*
+ *   Copyright 2009-2010 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.jredis.ri.cluster.connection;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.jredis.ClientRuntimeException;
+import org.jredis.cluster.ClusterModel;
+import org.jredis.cluster.ClusterSpec;
+import org.jredis.fake.FakeRedisServer;
+import org.jredis.protocol.Command;
+import org.jredis.protocol.MultiBulkResponse;
+import org.jredis.protocol.Response;
+import org.jredis.ri.alphazero.connection.DefaultConnectionSpec;
+import org.jredis.ri.alphazero.support.Log;
+import org.jredis.ri.cluster.DefaultClusterNodeSpec;
+import org.jredis.ri.cluster.DefaultClusterSpec;
+import org.jredis.ri.cluster.model.KetamaClusterModel;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import static org.jredis.ri.alphazero.support.DefaultCodec.toStr;
+import static org.testng.Assert.*;
+
+/**
+ * Tests the blocking requests of a cluster connection to two in-process {@link FakeRedisServer} nodes.
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @since   alpha.0
+ * 
+ */
+@Test(suiteName="extensions-ri-cluster-connection")
+public class ClusterBlockingRequestTest {
+
+	private FakeRedisServer[] servers;
+	private ClusterModel model;
+	private ClusterConnectionBase cluster;
+	private ExecutorService consumers;
+	
+	@BeforeClass
+	public void startCluster () throws Exception {
+		servers = new FakeRedisServer[] { new FakeRedisServer().start(), new FakeRedisServer().start() };
+		ClusterSpec spec = new DefaultClusterSpec().setHashTagging(true);
+		for(FakeRedisServer server : servers)
+			spec.addNode(new DefaultClusterNodeSpec(DefaultConnectionSpec.newSpec("127.0.0.1", server.getPort(), 0, null)));
+		model = new KetamaClusterModel(spec);
+		cluster = new SynchClusterConnection(model) {
+			@Override
+			protected void initializeComponents () { }
+		};
+		consumers = Executors.newCachedThreadPool();
+	}
+	
+	@AfterClass
+	public void stopCluster () {
+		consumers.shutdownNow();
+		cluster.quit();
+		for(FakeRedisServer server : servers)
+			server.stop();
+	}
+	
+	@Test
+	public void testTimeoutIsNotAKey () throws Exception {
+		Log.log("Testing the timeout of BLPOP is not mapped to a node of the cluster");
+		cluster.serviceRequest(Command.RPUSH, "{jobs}:b".getBytes(), "job-1".getBytes());
+		
+		// the timeouts map to both nodes
+		for(int timeout=1; timeout<=10; timeout++){
+			if(timeout > 1)
+				cluster.serviceRequest(Command.RPUSH, "{jobs}:b".getBytes(), "job-1".getBytes());
+			Response response = cluster.serviceRequest(Command.BLPOP, "{jobs}:a".getBytes(), "{jobs}:b".getBytes(), String.valueOf(timeout).getBytes());
+			List<byte[]> popped = ((MultiBulkResponse) response).getMultiBulkData();
+			assertEquals(toStr(popped.get(0)), "{jobs}:b");
+			assertEquals(toStr(popped.get(1)), "job-1");
+		}
+		
+		byte[][] keys = keysOnDistinctNodes();
+		try {
+			cluster.serviceRequest(Command.BLPOP, keys[0], keys[1], "1".getBytes());
+			fail("BLPOP of keys of distinct nodes should raise a ClientRuntimeException");
+		}
+		catch (ClientRuntimeException expected) { }
+	}
+	
+	@Test
+	public void testBlockedRequestDoesNotStallNode () throws Exception {
+		Log.log("Testing a blocked BLPOP does not stall the requests to its node");
+		final byte[] key = "queue:blocked".getBytes();
+		Future<Response> consumer = consumers.submit(new Callable<Response>() {
+			public Response call () throws Exception {
+				return cluster.serviceRequest(Command.BLPOP, key, "10".getBytes());
+			}
+		});
+		Thread.sleep(200);
+		assertFalse(consumer.isDone(), "BLPOP of an empty list should block");
+		
+		// serviced on the node connection shared with the blocked request, if not for the blocking lane
+		cluster.serviceRequest(Command.RPUSH, key, "item".getBytes());
+		List<byte[]> popped = ((MultiBulkResponse) consumer.get(5, TimeUnit.SECONDS)).getMultiBulkData();
+		assertEquals(toStr(popped.get(1)), "item");
+	}
+	
+	// ------------------------------------------------------------------------
+	// helpers
+	// ------------------------------------------------------------------------
+	private byte[][] keysOnDistinctNodes () {
+		byte[] first = "queue:0".getBytes();
+		for(int i=1; i<1000; i++){
+			byte[] key = ("queue:" + i).getBytes();
+			if(!model.getNodeForKey(first).equals(model.getNodeForKey(key)))
+				return new byte[][] { first, key };
+		}
+		throw new IllegalStateException("no keys on distinct nodes");
+	}
+}
@@ -0,0 +1,159 @@
+/*
+ *   Copyright 2009-2010 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.jredis.ri.cluster.connection;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+import org.jredis.ClientRuntimeException;
+import org.jredis.cluster.ReplicaRoutingPolicy;
+import org.jredis.connector.Connection;
+import org.jredis.connector.ConnectionSpec;
+import org.jredis.protocol.Command;
+import org.jredis.protocol.Response;
+import org.jredis.ri.alphazero.connection.CircuitBreaker;
+import org.jredis.ri.alphazero.connection.DefaultConnectionSpec;
+import org.jredis.ri.alphazero.support.Log;
+
+import org.testng.annotations.Test;
+import static org.testng.Assert.*;
+
+/**
+ * Tests the routing of requests of a {@link ReplicaSet} per {@link ReplicaRoutingPolicy}.
+ * No servers are required: the connections are never used to service requests.
+ */
+@Test(suiteName="extensions-ri-cluster-replicas")
+public class ReplicaSetTest {
+
+	@Test
+	public void testWritesAndMasterOnly () {
+		Log.log("Testing ReplicaSet routing of writes and MASTER_ONLY policy");
+		Connection master = new NodeConnection("10.0.0.1", 6379);
+		ReplicaSet set = new ReplicaSet(master, replicas("10.0.0.2", "10.0.0.3"));
+		
+		for(ReplicaRoutingPolicy policy : ReplicaRoutingPolicy.values()){
+			assertTrue(set.getConnectionFor(Command.SET, policy) == master, "writes must go to master under " + policy);
+			assertTrue(set.getConnectionFor(Command.INCR, policy) == master, "writes must go to master under " + policy);
+		}
+		assertTrue(set.getConnectionFor(Command.GET, ReplicaRoutingPolicy.MASTER_ONLY) == master, "reads go to master under MASTER_ONLY");
+		
+		ReplicaSet noReplicas = new ReplicaSet(master, new ArrayList<Connection>());
+		assertTrue(noReplicas.getConnectionFor(Command.GET, ReplicaRoutingPolicy.ROUND_ROBIN) == master, "reads go to master if there are no replicas");
+	}
+	
+	@Test
+	public void testRoundRobin () {
+		Log.log("Testing ReplicaSet ROUND_ROBIN policy");
+		Connection master = new NodeConnection("10.0.0.1", 6379);
+		List<Connection> replicas = replicas("10.0.0.2", "10.0.0.3", "10.0.0.4");
+		ReplicaSet set = new ReplicaSet(master, replicas);
+		
+		Map<Connection, Integer> counts = new HashMap<Connection, Integer>();
+		int reqcnt = 300;
+		for(int i=0; i<reqcnt; i++){
+			Connection conn = set.getConnectionFor(Command.LRANGE, ReplicaRoutingPolicy.ROUND_ROBIN);
+			assertTrue(conn != master, "reads should not go to master");
+			Integer cnt = counts.get(conn);
+			counts.put(conn, cnt == null ? 1 : cnt + 1);
+		}
+		for(Connection replica : replicas)
+			assertEquals(counts.get(replica).intValue(), reqcnt/replicas.size(), "reads should be evenly distributed");
+	}
+	
+	@Test
+	public void testLeastLatency () {
+		Log.log("Testing ReplicaSet LEAST_LATENCY policy");
+		Connection master = new NodeConnection("10.0.0.1", 6379);
+		List<Connection> replicas = replicas("10.0.0.2", "10.0.0.3");
+		ReplicaSet set = new ReplicaSet(master, replicas);
+		
+		set.onResponseTime(replicas.get(0), 5000000);
+		set.onResponseTime(replicas.get(1), 200000);
+		int fastcnt = 0;
+		int reqcnt = ReplicaSet.LATENCY_PROBE_PERIOD * 10;
+		for(int i=0; i<reqcnt; i++){
+			if(set.getConnectionFor(Command.SMEMBERS, ReplicaRoutingPolicy.LEAST_LATENCY) == replicas.get(1))
+				fastcnt++;
+		}
+		assertTrue(fastcnt > reqcnt - 10 - 1, "most reads should go to the fastest replica");
+		assertTrue(fastcnt < reqcnt, "slower replicas should still be probed");
+	}
+	
+	@Test
+	public void testLocalFirst () {
+		Log.log("Testing ReplicaSet LOCAL_FIRST policy");
+		Connection master = new NodeConnection("10.0.0.1", 6379);
+		List<Connection> replicas = replicas("10.0.0.2", "127.0.0.1");
+		ReplicaSet set = new ReplicaSet(master, replicas);
+		for(int i=0; i<10; i++)
+			assertTrue(set.getConnectionFor(Command.ZRANGE, ReplicaRoutingPolicy.LOCAL_FIRST) == replicas.get(1), "reads should go to the local replica");
+		
+		List<Connection> remotes = replicas("10.0.0.2", "10.0.0.3");
+		ReplicaSet remoteSet = new ReplicaSet(master, remotes);
+		assertTrue(remoteSet.getConnectionFor(Command.ZRANGE, ReplicaRoutingPolicy.LOCAL_FIRST) != master, "reads should go to a replica if none are local");
+	}
+	
+	@Test
+	public void testCircuitBreakerFallback () {
+		Log.log("Testing ReplicaSet routing around open circuit breakers");
+		Connection master = new NodeConnection("10.0.0.1", 6379);
+		List<Connection> replicas = replicas("10.0.0.2", "10.0.0.3");
+		ReplicaSet set = new ReplicaSet(master, replicas);
+		assertNull(set.getCircuitBreaker(new NodeConnection("10.0.0.4", 6379)), "no breaker for unrelated connections");
+		
+		trip(set.getCircuitBreaker(replicas.get(0)));
+		for(int i=0; i<10; i++)
+			assertTrue(set.getConnectionFor(Command.GET, ReplicaRoutingPolicy.ROUND_ROBIN) == replicas.get(1), "reads should avoid the sick replica");
+		
+		trip(set.getCircuitBreaker(replicas.get(1)));
+		assertTrue(set.getConnectionFor(Command.GET, ReplicaRoutingPolicy.ROUND_ROBIN) == master, "reads should fall back on master if no replicas are available");
+		
+		ReplicaSet other = new ReplicaSet(master = new NodeConnection("10.0.0.1", 6379), replicas = replicas("10.0.0.2", "10.0.0.3"));
+		trip(other.getCircuitBreaker(master));
+		assertTrue(other.getConnectionFor(Command.GET, ReplicaRoutingPolicy.MASTER_ONLY) == master, "reads must go to master under MASTER_ONLY, even if it is out");
+		assertTrue(other.getConnectionFor(Command.SET, ReplicaRoutingPolicy.MASTER_ONLY) == master, "writes must go to master regardless");
+	}
+	
+	// ------------------------------------------------------------------------
+	// helpers
+	// ------------------------------------------------------------------------
+	private static void trip (CircuitBreaker breaker) {
+		for(int i=0; i<CircuitBreaker.DEFAULT_FAILURE_THRESHOLD; i++)
+			breaker.onFailure(new ClientRuntimeException("test"));
+		assertFalse(breaker.allowRequest(), "breaker should be open");
+	}
+	private static List<Connection> replicas (String...hosts) {
+		List<Connection> replicas = new ArrayList<Connection>();
+		for(String host : hosts)
+			replicas.add(new NodeConnection(host, 6379));
+		return replicas;
+	}
+	
+	/** Unconnected {@link Connection} that only provides its spec. */
+	private static class NodeConnection implements Connection {
+		final ConnectionSpec spec;
+		NodeConnection (String host, int port) { spec = DefaultConnectionSpec.newSpec(host, port, 0, null); }
+		public ConnectionSpec getSpec () { return spec; }
+		public Modality getModality () { return Modality.Synchronous; }
+		public Response serviceRequest (Command cmd, byte[]... args) { throw new UnsupportedOperationException(); }
+		public Future<Response> queueRequest (Command cmd, byte[]... args) { throw new UnsupportedOperationException(); }
+		public boolean addListener (Listener connListener) { return false; }
+		public boolean removeListener (Listener connListener) { return false; }
+	}
+}